@@ -81,6 +81,63 @@ public final class ControlProto {
      * <code>repeated .ResourceStats resource_stats = 4;</code>
      */
     edu.washington.escience.myria.proto.ControlProto.ResourceStatsOrBuilder getResourceStatsOrBuilder(int index);
+
+    /**
+     * <code>optional .SemiJoinFilter semi_join_filter = 5;</code>
+     */
+    boolean hasSemiJoinFilter();
+
+    /**
+     * <code>optional .SemiJoinFilter semi_join_filter = 5;</code>
+     */
+    edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter getSemiJoinFilter();
+
+    /**
+     * <code>optional .SemiJoinFilter semi_join_filter = 5;</code>
+     */
+    edu.washington.escience.myria.proto.ControlProto.SemiJoinFilterOrBuilder getSemiJoinFilterOrBuilder();
+
+    /**
+     * <code>optional .HeavyHitters heavy_hitters = 6;</code>
+     */
+    boolean hasHeavyHitters();
+
+    /**
+     * <code>optional .HeavyHitters heavy_hitters = 6;</code>
+     */
+    edu.washington.escience.myria.proto.ControlProto.HeavyHitters getHeavyHitters();
+
+    /**
+     * <code>optional .HeavyHitters heavy_hitters = 6;</code>
+     */
+    edu.washington.escience.myria.proto.ControlProto.HeavyHittersOrBuilder getHeavyHittersOrBuilder();
+
+    /**
+     * <code>optional .WorkerLoad worker_load = 7;</code>
+     *
+     * <pre>
+     * sent with WORKER_HEARTBEAT
+     * </pre>
+     */
+    boolean hasWorkerLoad();
+
+    /**
+     * <code>optional .WorkerLoad worker_load = 7;</code>
+     *
+     * <pre>
+     * sent with WORKER_HEARTBEAT
+     * </pre>
+     */
+    edu.washington.escience.myria.proto.ControlProto.WorkerLoad getWorkerLoad();
+
+    /**
+     * <code>optional .WorkerLoad worker_load = 7;</code>
+     *
+     * <pre>
+     * sent with WORKER_HEARTBEAT
+     * </pre>
+     */
+    edu.washington.escience.myria.proto.ControlProto.WorkerLoadOrBuilder getWorkerLoadOrBuilder();
   }
   /**
    * Protobuf type {@code ControlMessage}
@@ -178,6 +235,51 @@ public final class ControlProto {
                   edu.washington.escience.myria.proto.ControlProto.ResourceStats.PARSER, extensionRegistry));
               break;
             }
+            case 42: {
+              edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter.Builder subBuilder = null;
+              if (((bitField0_ & 0x00000008) == 0x00000008)) {
+                subBuilder = semiJoinFilter_.toBuilder();
+              }
+              semiJoinFilter_ =
+                  input.readMessage(edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter.PARSER,
+                      extensionRegistry);
+              if (subBuilder != null) {
+                subBuilder.mergeFrom(semiJoinFilter_);
+                semiJoinFilter_ = subBuilder.buildPartial();
+              }
+              bitField0_ |= 0x00000008;
+              break;
+            }
+            case 50: {
+              edu.washington.escience.myria.proto.ControlProto.HeavyHitters.Builder subBuilder = null;
+              if (((bitField0_ & 0x00000010) == 0x00000010)) {
+                subBuilder = heavyHitters_.toBuilder();
+              }
+              heavyHitters_ =
+                  input.readMessage(edu.washington.escience.myria.proto.ControlProto.HeavyHitters.PARSER,
+                      extensionRegistry);
+              if (subBuilder != null) {
+                subBuilder.mergeFrom(heavyHitters_);
+                heavyHitters_ = subBuilder.buildPartial();
+              }
+              bitField0_ |= 0x00000010;
+              break;
+            }
+            case 58: {
+              edu.washington.escience.myria.proto.ControlProto.WorkerLoad.Builder subBuilder = null;
+              if (((bitField0_ & 0x00000020) == 0x00000020)) {
+                subBuilder = workerLoad_.toBuilder();
+              }
+              workerLoad_ =
+                  input.readMessage(edu.washington.escience.myria.proto.ControlProto.WorkerLoad.PARSER,
+                      extensionRegistry);
+              if (subBuilder != null) {
+                subBuilder.mergeFrom(workerLoad_);
+                workerLoad_ = subBuilder.buildPartial();
+              }
+              bitField0_ |= 0x00000020;
+              break;
+            }
           }
         }
       } catch (com.google.protobuf.InvalidProtocolBufferException e) {
@@ -278,7 +380,23 @@ public final class ControlProto {
        * worker -&gt; master
        * </pre>
        */
-      RESOURCE_STATS(6, 7), ;
+      RESOURCE_STATS(6, 7),
+      /**
+       * <code>SEMI_JOIN_FILTER = 8;</code>
+       *
+       * <pre>
+       * worker -&gt; workers
+       * </pre>
+       */
+      SEMI_JOIN_FILTER(7, 8),
+      /**
+       * <code>HEAVY_HITTERS = 9;</code>
+       *
+       * <pre>
+       * worker -&gt; workers
+       * </pre>
+       */
+      HEAVY_HITTERS(8, 9), ;
 
       /**
        * <code>SHUTDOWN = 1;</code>
@@ -336,6 +454,22 @@ public final class ControlProto {
        * </pre>
        */
       public static final int RESOURCE_STATS_VALUE = 7;
+      /**
+       * <code>SEMI_JOIN_FILTER = 8;</code>
+       *
+       * <pre>
+       * worker -&gt; workers
+       * </pre>
+       */
+      public static final int SEMI_JOIN_FILTER_VALUE = 8;
+      /**
+       * <code>HEAVY_HITTERS = 9;</code>
+       *
+       * <pre>
+       * worker -&gt; workers
+       * </pre>
+       */
+      public static final int HEAVY_HITTERS_VALUE = 9;
 
       @Override
       public final int getNumber() {
@@ -358,6 +492,10 @@ public final class ControlProto {
             return ADD_WORKER_ACK;
           case 7:
             return RESOURCE_STATS;
+          case 8:
+            return SEMI_JOIN_FILTER;
+          case 9:
+            return HEAVY_HITTERS;
           default:
             return null;
         }
@@ -527,11 +665,107 @@ public final class ControlProto {
       return resourceStats_.get(index);
     }
 
+    public static final int SEMI_JOIN_FILTER_FIELD_NUMBER = 5;
+    private edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter semiJoinFilter_;
+
+    /**
+     * <code>optional .SemiJoinFilter semi_join_filter = 5;</code>
+     */
+    @Override
+    public boolean hasSemiJoinFilter() {
+      return ((bitField0_ & 0x00000008) == 0x00000008);
+    }
+
+    /**
+     * <code>optional .SemiJoinFilter semi_join_filter = 5;</code>
+     */
+    @Override
+    public edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter getSemiJoinFilter() {
+      return semiJoinFilter_;
+    }
+
+    /**
+     * <code>optional .SemiJoinFilter semi_join_filter = 5;</code>
+     */
+    @Override
+    public edu.washington.escience.myria.proto.ControlProto.SemiJoinFilterOrBuilder getSemiJoinFilterOrBuilder() {
+      return semiJoinFilter_;
+    }
+
+    public static final int HEAVY_HITTERS_FIELD_NUMBER = 6;
+    private edu.washington.escience.myria.proto.ControlProto.HeavyHitters heavyHitters_;
+
+    /**
+     * <code>optional .HeavyHitters heavy_hitters = 6;</code>
+     */
+    @Override
+    public boolean hasHeavyHitters() {
+      return ((bitField0_ & 0x00000010) == 0x00000010);
+    }
+
+    /**
+     * <code>optional .HeavyHitters heavy_hitters = 6;</code>
+     */
+    @Override
+    public edu.washington.escience.myria.proto.ControlProto.HeavyHitters getHeavyHitters() {
+      return heavyHitters_;
+    }
+
+    /**
+     * <code>optional .HeavyHitters heavy_hitters = 6;</code>
+     */
+    @Override
+    public edu.washington.escience.myria.proto.ControlProto.HeavyHittersOrBuilder getHeavyHittersOrBuilder() {
+      return heavyHitters_;
+    }
+
+    public static final int WORKER_LOAD_FIELD_NUMBER = 7;
+    private edu.washington.escience.myria.proto.ControlProto.WorkerLoad workerLoad_;
+
+    /**
+     * <code>optional .WorkerLoad worker_load = 7;</code>
+     *
+     * <pre>
+     * sent with WORKER_HEARTBEAT
+     * </pre>
+     */
+    @Override
+    public boolean hasWorkerLoad() {
+      return ((bitField0_ & 0x00000020) == 0x00000020);
+    }
+
+    /**
+     * <code>optional .WorkerLoad worker_load = 7;</code>
+     *
+     * <pre>
+     * sent with WORKER_HEARTBEAT
+     * </pre>
+     */
+    @Override
+    public edu.washington.escience.myria.proto.ControlProto.WorkerLoad getWorkerLoad() {
+      return workerLoad_;
+    }
+
+    /**
+     * <code>optional .WorkerLoad worker_load = 7;</code>
+     *
+     * <pre>
+     * sent with WORKER_HEARTBEAT
+     * </pre>
+     */
+    @Override
+    public edu.washington.escience.myria.proto.ControlProto.WorkerLoadOrBuilder getWorkerLoadOrBuilder() {
+      return workerLoad_;
+    }
+
     private void initFields() {
       type_ = edu.washington.escience.myria.proto.ControlProto.ControlMessage.Type.SHUTDOWN;
       workerId_ = 0;
       remoteAddress_ = edu.washington.escience.myria.proto.ControlProto.SocketInfo.getDefaultInstance();
       resourceStats_ = java.util.Collections.emptyList();
+      semiJoinFilter_ = edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter.getDefaultInstance();
+      heavyHitters_ = edu.washington.escience.myria.proto.ControlProto.HeavyHitters.getDefaultInstance();
+      workerLoad_ = edu.washington.escience.myria.proto.ControlProto.WorkerLoad.getDefaultInstance();
     }
 
     private byte memoizedIsInitialized = -1;
@@ -562,6 +796,24 @@ public final class ControlProto {
           return false;
         }
       }
+      if (hasSemiJoinFilter()) {
+        if (!getSemiJoinFilter().isInitialized()) {
+          memoizedIsInitialized = 0;
+          return false;
+        }
+      }
+      if (hasHeavyHitters()) {
+        if (!getHeavyHitters().isInitialized()) {
+          memoizedIsInitialized = 0;
+          return false;
+        }
+      }
+      if (hasWorkerLoad()) {
+        if (!getWorkerLoad().isInitialized()) {
+          memoizedIsInitialized = 0;
+          return false;
+        }
+      }
       memoizedIsInitialized = 1;
       return true;
     }
@@ -581,6 +833,15 @@ public final class ControlProto {
       for (int i = 0; i < resourceStats_.size(); i++) {
         output.writeMessage(4, resourceStats_.get(i));
       }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        output.writeMessage(5, semiJoinFilter_);
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        output.writeMessage(6, heavyHitters_);
+      }
+      if (((bitField0_ & 0x00000020) == 0x00000020)) {
+        output.writeMessage(7, workerLoad_);
+      }
       getUnknownFields().writeTo(output);
     }
 
@@ -606,6 +867,15 @@ public final class ControlProto {
       for (int i = 0; i < resourceStats_.size(); i++) {
         size += com.google.protobuf.CodedOutputStream.computeMessageSize(4, resourceStats_.get(i));
       }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        size += com.google.protobuf.CodedOutputStream.computeMessageSize(5, semiJoinFilter_);
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        size += com.google.protobuf.CodedOutputStream.computeMessageSize(6, heavyHitters_);
+      }
+      if (((bitField0_ & 0x00000020) == 0x00000020)) {
+        size += com.google.protobuf.CodedOutputStream.computeMessageSize(7, workerLoad_);
+      }
       size += getUnknownFields().getSerializedSize();
       memoizedSerializedSize = size;
       return size;
@@ -728,6 +998,9 @@ public final class ControlProto {
         if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
           getRemoteAddressFieldBuilder();
           getResourceStatsFieldBuilder();
+          getSemiJoinFilterFieldBuilder();
+          getHeavyHittersFieldBuilder();
+          getWorkerLoadFieldBuilder();
         }
       }
 
@@ -754,6 +1027,24 @@ public final class ControlProto {
         } else {
           resourceStatsBuilder_.clear();
         }
+        if (semiJoinFilterBuilder_ == null) {
+          semiJoinFilter_ = edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter.getDefaultInstance();
+        } else {
+          semiJoinFilterBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000010);
+        if (heavyHittersBuilder_ == null) {
+          heavyHitters_ = edu.washington.escience.myria.proto.ControlProto.HeavyHitters.getDefaultInstance();
+        } else {
+          heavyHittersBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000020);
+        if (workerLoadBuilder_ == null) {
+          workerLoad_ = edu.washington.escience.myria.proto.ControlProto.WorkerLoad.getDefaultInstance();
+        } else {
+          workerLoadBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000040);
         return this;
       }
 
@@ -812,6 +1103,30 @@ public final class ControlProto {
         } else {
           result.resourceStats_ = resourceStatsBuilder_.build();
         }
+        if (((from_bitField0_ & 0x00000010) == 0x00000010)) {
+          to_bitField0_ |= 0x00000008;
+        }
+        if (semiJoinFilterBuilder_ == null) {
+          result.semiJoinFilter_ = semiJoinFilter_;
+        } else {
+          result.semiJoinFilter_ = semiJoinFilterBuilder_.build();
+        }
+        if (((from_bitField0_ & 0x00000020) == 0x00000020)) {
+          to_bitField0_ |= 0x00000010;
+        }
+        if (heavyHittersBuilder_ == null) {
+          result.heavyHitters_ = heavyHitters_;
+        } else {
+          result.heavyHitters_ = heavyHittersBuilder_.build();
+        }
+        if (((from_bitField0_ & 0x00000040) == 0x00000040)) {
+          to_bitField0_ |= 0x00000020;
+        }
+        if (workerLoadBuilder_ == null) {
+          result.workerLoad_ = workerLoad_;
+        } else {
+          result.workerLoad_ = workerLoadBuilder_.build();
+        }
         result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
@@ -865,6 +1180,15 @@ public final class ControlProto {
             }
           }
         }
+        if (other.hasSemiJoinFilter()) {
+          mergeSemiJoinFilter(other.getSemiJoinFilter());
+        }
+        if (other.hasHeavyHitters()) {
+          mergeHeavyHitters(other.getHeavyHitters());
+        }
+        if (other.hasWorkerLoad()) {
+          mergeWorkerLoad(other.getWorkerLoad());
+        }
         mergeUnknownFields(other.getUnknownFields());
         return this;
       }
@@ -887,6 +1211,24 @@ public final class ControlProto {
             return false;
           }
         }
+        if (hasSemiJoinFilter()) {
+          if (!getSemiJoinFilter().isInitialized()) {
+
+            return false;
+          }
+        }
+        if (hasHeavyHitters()) {
+          if (!getHeavyHitters().isInitialized()) {
+
+            return false;
+          }
+        }
+        if (hasWorkerLoad()) {
+          if (!getWorkerLoad().isInitialized()) {
+
+            return false;
+          }
+        }
         return true;
       }
 
@@ -1387,39 +1729,451 @@ public final class ControlProto {
         return resourceStatsBuilder_;
       }
 
-      // @@protoc_insertion_point(builder_scope:ControlMessage)
-    }
-
-    static {
-      defaultInstance = new ControlMessage(true);
-      defaultInstance.initFields();
-    }
-
-    // @@protoc_insertion_point(class_scope:ControlMessage)
-  }
+      private edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter semiJoinFilter_ =
+          edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter.getDefaultInstance();
+      private com.google.protobuf.SingleFieldBuilder<edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter, edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter.Builder, edu.washington.escience.myria.proto.ControlProto.SemiJoinFilterOrBuilder> semiJoinFilterBuilder_;
 
-  public interface SocketInfoOrBuilder extends
-  // @@protoc_insertion_point(interface_extends:SocketInfo)
-      com.google.protobuf.MessageOrBuilder {
+      /**
+       * <code>optional .SemiJoinFilter semi_join_filter = 5;</code>
+       */
+      @Override
+      public boolean hasSemiJoinFilter() {
+        return ((bitField0_ & 0x00000010) == 0x00000010);
+      }
 
-    /**
-     * <code>required string host = 1;</code>
-     */
-    boolean hasHost();
+      /**
+       * <code>optional .SemiJoinFilter semi_join_filter = 5;</code>
+       */
+      @Override
+      public edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter getSemiJoinFilter() {
+        if (semiJoinFilterBuilder_ == null) {
+          return semiJoinFilter_;
+        } else {
+          return semiJoinFilterBuilder_.getMessage();
+        }
+      }
 
-    /**
-     * <code>required string host = 1;</code>
-     */
-    java.lang.String getHost();
+      /**
+       * <code>optional .SemiJoinFilter semi_join_filter = 5;</code>
+       */
+      public Builder setSemiJoinFilter(final edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter value) {
+        if (semiJoinFilterBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          semiJoinFilter_ = value;
+          onChanged();
+        } else {
+          semiJoinFilterBuilder_.setMessage(value);
+        }
+        bitField0_ |= 0x00000010;
+        return this;
+      }
 
-    /**
-     * <code>required string host = 1;</code>
-     */
-    com.google.protobuf.ByteString getHostBytes();
+      /**
+       * <code>optional .SemiJoinFilter semi_join_filter = 5;</code>
+       */
+      public Builder setSemiJoinFilter(
+          final edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter.Builder builderForValue) {
+        if (semiJoinFilterBuilder_ == null) {
+          semiJoinFilter_ = builderForValue.build();
+          onChanged();
+        } else {
+          semiJoinFilterBuilder_.setMessage(builderForValue.build());
+        }
+        bitField0_ |= 0x00000010;
+        return this;
+      }
 
-    /**
-     * <code>required int32 port = 2;</code>
-     */
+      /**
+       * <code>optional .SemiJoinFilter semi_join_filter = 5;</code>
+       */
+      public Builder mergeSemiJoinFilter(final edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter value) {
+        if (semiJoinFilterBuilder_ == null) {
+          if (((bitField0_ & 0x00000010) == 0x00000010)
+              && semiJoinFilter_ != edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter
+                  .getDefaultInstance()) {
+            semiJoinFilter_ =
+                edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter.newBuilder(semiJoinFilter_).mergeFrom(
+                    value).buildPartial();
+          } else {
+            semiJoinFilter_ = value;
+          }
+          onChanged();
+        } else {
+          semiJoinFilterBuilder_.mergeFrom(value);
+        }
+        bitField0_ |= 0x00000010;
+        return this;
+      }
+
+      /**
+       * <code>optional .SemiJoinFilter semi_join_filter = 5;</code>
+       */
+      public Builder clearSemiJoinFilter() {
+        if (semiJoinFilterBuilder_ == null) {
+          semiJoinFilter_ = edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter.getDefaultInstance();
+          onChanged();
+        } else {
+          semiJoinFilterBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000010);
+        return this;
+      }
+
+      /**
+       * <code>optional .SemiJoinFilter semi_join_filter = 5;</code>
+       */
+      public edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter.Builder getSemiJoinFilterBuilder() {
+        bitField0_ |= 0x00000010;
+        onChanged();
+        return getSemiJoinFilterFieldBuilder().getBuilder();
+      }
+
+      /**
+       * <code>optional .SemiJoinFilter semi_join_filter = 5;</code>
+       */
+      @Override
+      public edu.washington.escience.myria.proto.ControlProto.SemiJoinFilterOrBuilder getSemiJoinFilterOrBuilder() {
+        if (semiJoinFilterBuilder_ != null) {
+          return semiJoinFilterBuilder_.getMessageOrBuilder();
+        } else {
+          return semiJoinFilter_;
+        }
+      }
+
+      /**
+       * <code>optional .SemiJoinFilter semi_join_filter = 5;</code>
+       */
+      private com.google.protobuf.SingleFieldBuilder<edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter, edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter.Builder, edu.washington.escience.myria.proto.ControlProto.SemiJoinFilterOrBuilder> getSemiJoinFilterFieldBuilder() {
+        if (semiJoinFilterBuilder_ == null) {
+          semiJoinFilterBuilder_ =
+              new com.google.protobuf.SingleFieldBuilder<edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter, edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter.Builder, edu.washington.escience.myria.proto.ControlProto.SemiJoinFilterOrBuilder>(
+                  getSemiJoinFilter(), getParentForChildren(), isClean());
+          semiJoinFilter_ = null;
+        }
+        return semiJoinFilterBuilder_;
+      }
+
+      private edu.washington.escience.myria.proto.ControlProto.HeavyHitters heavyHitters_ =
+          edu.washington.escience.myria.proto.ControlProto.HeavyHitters.getDefaultInstance();
+      private com.google.protobuf.SingleFieldBuilder<edu.washington.escience.myria.proto.ControlProto.HeavyHitters, edu.washington.escience.myria.proto.ControlProto.HeavyHitters.Builder, edu.washington.escience.myria.proto.ControlProto.HeavyHittersOrBuilder> heavyHittersBuilder_;
+
+      /**
+       * <code>optional .HeavyHitters heavy_hitters = 6;</code>
+       */
+      @Override
+      public boolean hasHeavyHitters() {
+        return ((bitField0_ & 0x00000020) == 0x00000020);
+      }
+
+      /**
+       * <code>optional .HeavyHitters heavy_hitters = 6;</code>
+       */
+      @Override
+      public edu.washington.escience.myria.proto.ControlProto.HeavyHitters getHeavyHitters() {
+        if (heavyHittersBuilder_ == null) {
+          return heavyHitters_;
+        } else {
+          return heavyHittersBuilder_.getMessage();
+        }
+      }
+
+      /**
+       * <code>optional .HeavyHitters heavy_hitters = 6;</code>
+       */
+      public Builder setHeavyHitters(final edu.washington.escience.myria.proto.ControlProto.HeavyHitters value) {
+        if (heavyHittersBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          heavyHitters_ = value;
+          onChanged();
+        } else {
+          heavyHittersBuilder_.setMessage(value);
+        }
+        bitField0_ |= 0x00000020;
+        return this;
+      }
+
+      /**
+       * <code>optional .HeavyHitters heavy_hitters = 6;</code>
+       */
+      public Builder setHeavyHitters(
+          final edu.washington.escience.myria.proto.ControlProto.HeavyHitters.Builder builderForValue) {
+        if (heavyHittersBuilder_ == null) {
+          heavyHitters_ = builderForValue.build();
+          onChanged();
+        } else {
+          heavyHittersBuilder_.setMessage(builderForValue.build());
+        }
+        bitField0_ |= 0x00000020;
+        return this;
+      }
+
+      /**
+       * <code>optional .HeavyHitters heavy_hitters = 6;</code>
+       */
+      public Builder mergeHeavyHitters(final edu.washington.escience.myria.proto.ControlProto.HeavyHitters value) {
+        if (heavyHittersBuilder_ == null) {
+          if (((bitField0_ & 0x00000020) == 0x00000020)
+              && heavyHitters_ != edu.washington.escience.myria.proto.ControlProto.HeavyHitters.getDefaultInstance()) {
+            heavyHitters_ =
+                edu.washington.escience.myria.proto.ControlProto.HeavyHitters.newBuilder(heavyHitters_)
+                    .mergeFrom(value).buildPartial();
+          } else {
+            heavyHitters_ = value;
+          }
+          onChanged();
+        } else {
+          heavyHittersBuilder_.mergeFrom(value);
+        }
+        bitField0_ |= 0x00000020;
+        return this;
+      }
+
+      /**
+       * <code>optional .HeavyHitters heavy_hitters = 6;</code>
+       */
+      public Builder clearHeavyHitters() {
+        if (heavyHittersBuilder_ == null) {
+          heavyHitters_ = edu.washington.escience.myria.proto.ControlProto.HeavyHitters.getDefaultInstance();
+          onChanged();
+        } else {
+          heavyHittersBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000020);
+        return this;
+      }
+
+      /**
+       * <code>optional .HeavyHitters heavy_hitters = 6;</code>
+       */
+      public edu.washington.escience.myria.proto.ControlProto.HeavyHitters.Builder getHeavyHittersBuilder() {
+        bitField0_ |= 0x00000020;
+        onChanged();
+        return getHeavyHittersFieldBuilder().getBuilder();
+      }
+
+      /**
+       * <code>optional .HeavyHitters heavy_hitters = 6;</code>
+       */
+      @Override
+      public edu.washington.escience.myria.proto.ControlProto.HeavyHittersOrBuilder getHeavyHittersOrBuilder() {
+        if (heavyHittersBuilder_ != null) {
+          return heavyHittersBuilder_.getMessageOrBuilder();
+        } else {
+          return heavyHitters_;
+        }
+      }
+
+      /**
+       * <code>optional .HeavyHitters heavy_hitters = 6;</code>
+       */
+      private com.google.protobuf.SingleFieldBuilder<edu.washington.escience.myria.proto.ControlProto.HeavyHitters, edu.washington.escience.myria.proto.ControlProto.HeavyHitters.Builder, edu.washington.escience.myria.proto.ControlProto.HeavyHittersOrBuilder> getHeavyHittersFieldBuilder() {
+        if (heavyHittersBuilder_ == null) {
+          heavyHittersBuilder_ =
+              new com.google.protobuf.SingleFieldBuilder<edu.washington.escience.myria.proto.ControlProto.HeavyHitters, edu.washington.escience.myria.proto.ControlProto.HeavyHitters.Builder, edu.washington.escience.myria.proto.ControlProto.HeavyHittersOrBuilder>(
+                  getHeavyHitters(), getParentForChildren(), isClean());
+          heavyHitters_ = null;
+        }
+        return heavyHittersBuilder_;
+      }
+
+      private edu.washington.escience.myria.proto.ControlProto.WorkerLoad workerLoad_ =
+          edu.washington.escience.myria.proto.ControlProto.WorkerLoad.getDefaultInstance();
+      private com.google.protobuf.SingleFieldBuilder<edu.washington.escience.myria.proto.ControlProto.WorkerLoad, edu.washington.escience.myria.proto.ControlProto.WorkerLoad.Builder, edu.washington.escience.myria.proto.ControlProto.WorkerLoadOrBuilder> workerLoadBuilder_;
+
+      /**
+       * <code>optional .WorkerLoad worker_load = 7;</code>
+       *
+       * <pre>
+       * sent with WORKER_HEARTBEAT
+       * </pre>
+       */
+      @Override
+      public boolean hasWorkerLoad() {
+        return ((bitField0_ & 0x00000040) == 0x00000040);
+      }
+
+      /**
+       * <code>optional .WorkerLoad worker_load = 7;</code>
+       *
+       * <pre>
+       * sent with WORKER_HEARTBEAT
+       * </pre>
+       */
+      @Override
+      public edu.washington.escience.myria.proto.ControlProto.WorkerLoad getWorkerLoad() {
+        if (workerLoadBuilder_ == null) {
+          return workerLoad_;
+        } else {
+          return workerLoadBuilder_.getMessage();
+        }
+      }
+
+      /**
+       * <code>optional .WorkerLoad worker_load = 7;</code>
+       *
+       * <pre>
+       * sent with WORKER_HEARTBEAT
+       * </pre>
+       */
+      public Builder setWorkerLoad(final edu.washington.escience.myria.proto.ControlProto.WorkerLoad value) {
+        if (workerLoadBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          workerLoad_ = value;
+          onChanged();
+        } else {
+          workerLoadBuilder_.setMessage(value);
+        }
+        bitField0_ |= 0x00000040;
+        return this;
+      }
+
+      /**
+       * <code>optional .WorkerLoad worker_load = 7;</code>
+       *
+       * <pre>
+       * sent with WORKER_HEARTBEAT
+       * </pre>
+       */
+      public Builder setWorkerLoad(
+          final edu.washington.escience.myria.proto.ControlProto.WorkerLoad.Builder builderForValue) {
+        if (workerLoadBuilder_ == null) {
+          workerLoad_ = builderForValue.build();
+          onChanged();
+        } else {
+          workerLoadBuilder_.setMessage(builderForValue.build());
+        }
+        bitField0_ |= 0x00000040;
+        return this;
+      }
+
+      /**
+       * <code>optional .WorkerLoad worker_load = 7;</code>
+       *
+       * <pre>
+       * sent with WORKER_HEARTBEAT
+       * </pre>
+       */
+      public Builder mergeWorkerLoad(final edu.washington.escience.myria.proto.ControlProto.WorkerLoad value) {
+        if (workerLoadBuilder_ == null) {
+          if (((bitField0_ & 0x00000040) == 0x00000040)
+              && workerLoad_ != edu.washington.escience.myria.proto.ControlProto.WorkerLoad.getDefaultInstance()) {
+            workerLoad_ =
+                edu.washington.escience.myria.proto.ControlProto.WorkerLoad.newBuilder(workerLoad_).mergeFrom(value)
+                    .buildPartial();
+          } else {
+            workerLoad_ = value;
+          }
+          onChanged();
+        } else {
+          workerLoadBuilder_.mergeFrom(value);
+        }
+        bitField0_ |= 0x00000040;
+        return this;
+      }
+
+      /**
+       * <code>optional .WorkerLoad worker_load = 7;</code>
+       *
+       * <pre>
+       * sent with WORKER_HEARTBEAT
+       * </pre>
+       */
+      public Builder clearWorkerLoad() {
+        if (workerLoadBuilder_ == null) {
+          workerLoad_ = edu.washington.escience.myria.proto.ControlProto.WorkerLoad.getDefaultInstance();
+          onChanged();
+        } else {
+          workerLoadBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000040);
+        return this;
+      }
+
+      /**
+       * <code>optional .WorkerLoad worker_load = 7;</code>
+       *
+       * <pre>
+       * sent with WORKER_HEARTBEAT
+       * </pre>
+       */
+      public edu.washington.escience.myria.proto.ControlProto.WorkerLoad.Builder getWorkerLoadBuilder() {
+        bitField0_ |= 0x00000040;
+        onChanged();
+        return getWorkerLoadFieldBuilder().getBuilder();
+      }
+
+      /**
+       * <code>optional .WorkerLoad worker_load = 7;</code>
+       *
+       * <pre>
+       * sent with WORKER_HEARTBEAT
+       * </pre>
+       */
+      @Override
+      public edu.washington.escience.myria.proto.ControlProto.WorkerLoadOrBuilder getWorkerLoadOrBuilder() {
+        if (workerLoadBuilder_ != null) {
+          return workerLoadBuilder_.getMessageOrBuilder();
+        } else {
+          return workerLoad_;
+        }
+      }
+
+      /**
+       * <code>optional .WorkerLoad worker_load = 7;</code>
+       *
+       * <pre>
+       * sent with WORKER_HEARTBEAT
+       * </pre>
+       */
+      private com.google.protobuf.SingleFieldBuilder<edu.washington.escience.myria.proto.ControlProto.WorkerLoad, edu.washington.escience.myria.proto.ControlProto.WorkerLoad.Builder, edu.washington.escience.myria.proto.ControlProto.WorkerLoadOrBuilder> getWorkerLoadFieldBuilder() {
+        if (workerLoadBuilder_ == null) {
+          workerLoadBuilder_ =
+              new com.google.protobuf.SingleFieldBuilder<edu.washington.escience.myria.proto.ControlProto.WorkerLoad, edu.washington.escience.myria.proto.ControlProto.WorkerLoad.Builder, edu.washington.escience.myria.proto.ControlProto.WorkerLoadOrBuilder>(
+                  getWorkerLoad(), getParentForChildren(), isClean());
+          workerLoad_ = null;
+        }
+        return workerLoadBuilder_;
+      }
+
+      // @@protoc_insertion_point(builder_scope:ControlMessage)
+    }
+
+    static {
+      defaultInstance = new ControlMessage(true);
+      defaultInstance.initFields();
+    }
+
+    // @@protoc_insertion_point(class_scope:ControlMessage)
+  }
+
+  public interface SocketInfoOrBuilder extends
+  // @@protoc_insertion_point(interface_extends:SocketInfo)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>required string host = 1;</code>
+     */
+    boolean hasHost();
+
+    /**
+     * <code>required string host = 1;</code>
+     */
+    java.lang.String getHost();
+
+    /**
+     * <code>required string host = 1;</code>
+     */
+    com.google.protobuf.ByteString getHostBytes();
+
+    /**
+     * <code>required int32 port = 2;</code>
+     */
     boolean hasPort();
 
     /**
@@ -3017,12 +3771,4179 @@ public final class ControlProto {
     // @@protoc_insertion_point(class_scope:ResourceStats)
   }
 
+  public interface SemiJoinFilterOrBuilder extends
+  // @@protoc_insertion_point(interface_extends:SemiJoinFilter)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>required int64 query_id = 1;</code>
+     */
+    boolean hasQueryId();
+
+    /**
+     * <code>required int64 query_id = 1;</code>
+     */
+    long getQueryId();
+
+    /**
+     * <code>required int64 subquery_id = 2;</code>
+     */
+    boolean hasSubqueryId();
+
+    /**
+     * <code>required int64 subquery_id = 2;</code>
+     */
+    long getSubqueryId();
+
+    /**
+     * <code>required int32 op_id = 3;</code>
+     *
+     * <pre>
+     * the join whose build keys are in the filter
+     * </pre>
+     */
+    boolean hasOpId();
+
+    /**
+     * <code>required int32 op_id = 3;</code>
+     *
+     * <pre>
+     * the join whose build keys are in the filter
+     * </pre>
+     */
+    int getOpId();
+
+    /**
+     * <code>required int32 num_hashes = 4;</code>
+     *
+     * <pre>
+     * the number of bit positions per key
+     * </pre>
+     */
+    boolean hasNumHashes();
+
+    /**
+     * <code>required int32 num_hashes = 4;</code>
+     *
+     * <pre>
+     * the number of bit positions per key
+     * </pre>
+     */
+    int getNumHashes();
+
+    /**
+     * <code>required bytes words = 5;</code>
+     *
+     * <pre>
+     * the 64-bit words of the filter, big-endian
+     * </pre>
+     */
+    boolean hasWords();
+
+    /**
+     * <code>required bytes words = 5;</code>
+     *
+     * <pre>
+     * the 64-bit words of the filter, big-endian
+     * </pre>
+     */
+    com.google.protobuf.ByteString getWords();
+  }
+  /**
+   * Protobuf type {@code SemiJoinFilter}
+   */
+  public static final class SemiJoinFilter extends com.google.protobuf.GeneratedMessage implements
+  // @@protoc_insertion_point(message_implements:SemiJoinFilter)
+      SemiJoinFilterOrBuilder {
+    // Use SemiJoinFilter.newBuilder() to construct.
+    private SemiJoinFilter(final com.google.protobuf.GeneratedMessage.Builder<?> builder) {
+      super(builder);
+      unknownFields = builder.getUnknownFields();
+    }
+
+    private SemiJoinFilter(final boolean noInit) {
+      unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance();
+    }
+
+    private static final SemiJoinFilter defaultInstance;
+
+    public static SemiJoinFilter getDefaultInstance() {
+      return defaultInstance;
+    }
+
+    @Override
+    public SemiJoinFilter getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet getUnknownFields() {
+      return unknownFields;
+    }
+
+    private SemiJoinFilter(final com.google.protobuf.CodedInputStream input,
+        final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      initFields();
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields = com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            default: {
+              if (!parseUnknownField(input, unknownFields, extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+            case 8: {
+              bitField0_ |= 0x00000001;
+              queryId_ = input.readInt64();
+              break;
+            }
+            case 16: {
+              bitField0_ |= 0x00000002;
+              subqueryId_ = input.readInt64();
+              break;
+            }
+            case 24: {
+              bitField0_ |= 0x00000004;
+              opId_ = input.readInt32();
+              break;
+            }
+            case 32: {
+              bitField0_ |= 0x00000008;
+              numHashes_ = input.readInt32();
+              break;
+            }
+            case 42: {
+              bitField0_ |= 0x00000010;
+              words_ = input.readBytes();
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(e.getMessage()).setUnfinishedMessage(this);
+      } finally {
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+
+    public static final com.google.protobuf.Descriptors.Descriptor getDescriptor() {
+      return edu.washington.escience.myria.proto.ControlProto.internal_static_SemiJoinFilter_descriptor;
+    }
+
+    @Override
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable internalGetFieldAccessorTable() {
+      return edu.washington.escience.myria.proto.ControlProto.internal_static_SemiJoinFilter_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter.class,
+              edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter.Builder.class);
+    }
+
+    public static com.google.protobuf.Parser<SemiJoinFilter> PARSER =
+        new com.google.protobuf.AbstractParser<SemiJoinFilter>() {
+          @Override
+          public SemiJoinFilter parsePartialFrom(final com.google.protobuf.CodedInputStream input,
+              final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+              throws com.google.protobuf.InvalidProtocolBufferException {
+            return new SemiJoinFilter(input, extensionRegistry);
+          }
+        };
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<SemiJoinFilter> getParserForType() {
+      return PARSER;
+    }
+
+    private int bitField0_;
+    public static final int QUERY_ID_FIELD_NUMBER = 1;
+    private long queryId_;
+
+    /**
+     * <code>required int64 query_id = 1;</code>
+     */
+    @Override
+    public boolean hasQueryId() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+
+    /**
+     * <code>required int64 query_id = 1;</code>
+     */
+    @Override
+    public long getQueryId() {
+      return queryId_;
+    }
+
+    public static final int SUBQUERY_ID_FIELD_NUMBER = 2;
+    private long subqueryId_;
+
+    /**
+     * <code>required int64 subquery_id = 2;</code>
+     */
+    @Override
+    public boolean hasSubqueryId() {
+      return ((bitField0_ & 0x00000002) == 0x00000002);
+    }
+
+    /**
+     * <code>required int64 subquery_id = 2;</code>
+     */
+    @Override
+    public long getSubqueryId() {
+      return subqueryId_;
+    }
+
+    public static final int OP_ID_FIELD_NUMBER = 3;
+    private int opId_;
+
+    /**
+     * <code>required int32 op_id = 3;</code>
+     *
+     * <pre>
+     * the join whose build keys are in the filter
+     * </pre>
+     */
+    @Override
+    public boolean hasOpId() {
+      return ((bitField0_ & 0x00000004) == 0x00000004);
+    }
+
+    /**
+     * <code>required int32 op_id = 3;</code>
+     *
+     * <pre>
+     * the join whose build keys are in the filter
+     * </pre>
+     */
+    @Override
+    public int getOpId() {
+      return opId_;
+    }
+
+    public static final int NUM_HASHES_FIELD_NUMBER = 4;
+    private int numHashes_;
+
+    /**
+     * <code>required int32 num_hashes = 4;</code>
+     *
+     * <pre>
+     * the number of bit positions per key
+     * </pre>
+     */
+    @Override
+    public boolean hasNumHashes() {
+      return ((bitField0_ & 0x00000008) == 0x00000008);
+    }
+
+    /**
+     * <code>required int32 num_hashes = 4;</code>
+     *
+     * <pre>
+     * the number of bit positions per key
+     * </pre>
+     */
+    @Override
+    public int getNumHashes() {
+      return numHashes_;
+    }
+
+    public static final int WORDS_FIELD_NUMBER = 5;
+    private com.google.protobuf.ByteString words_;
+
+    /**
+     * <code>required bytes words = 5;</code>
+     *
+     * <pre>
+     * the 64-bit words of the filter, big-endian
+     * </pre>
+     */
+    @Override
+    public boolean hasWords() {
+      return ((bitField0_ & 0x00000010) == 0x00000010);
+    }
+
+    /**
+     * <code>required bytes words = 5;</code>
+     *
+     * <pre>
+     * the 64-bit words of the filter, big-endian
+     * </pre>
+     */
+    @Override
+    public com.google.protobuf.ByteString getWords() {
+      return words_;
+    }
+
+    private void initFields() {
+      queryId_ = 0L;
+      subqueryId_ = 0L;
+      opId_ = 0;
+      numHashes_ = 0;
+      words_ = com.google.protobuf.ByteString.EMPTY;
+    }
+
+    private byte memoizedIsInitialized = -1;
+
+    @Override
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) {
+        return true;
+      }
+      if (isInitialized == 0) {
+        return false;
+      }
+
+      if (!hasQueryId()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasSubqueryId()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasOpId()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasNumHashes()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasWords()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    @Override
+    public void writeTo(final com.google.protobuf.CodedOutputStream output) throws java.io.IOException {
+      getSerializedSize();
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeInt64(1, queryId_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        output.writeInt64(2, subqueryId_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        output.writeInt32(3, opId_);
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        output.writeInt32(4, numHashes_);
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        output.writeBytes(5, words_);
+      }
+      getUnknownFields().writeTo(output);
+    }
+
+    private int memoizedSerializedSize = -1;
+
+    @Override
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) {
+        return size;
+      }
+
+      size = 0;
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream.computeInt64Size(1, queryId_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        size += com.google.protobuf.CodedOutputStream.computeInt64Size(2, subqueryId_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        size += com.google.protobuf.CodedOutputStream.computeInt32Size(3, opId_);
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        size += com.google.protobuf.CodedOutputStream.computeInt32Size(4, numHashes_);
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        size += com.google.protobuf.CodedOutputStream.computeBytesSize(5, words_);
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+
+    private static final long serialVersionUID = 0L;
+
+    @java.lang.Override
+    protected java.lang.Object writeReplace() throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter parseFrom(
+        final com.google.protobuf.ByteString data) throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter parseFrom(
+        final com.google.protobuf.ByteString data, final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter parseFrom(final byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter parseFrom(final byte[] data,
+        final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter parseFrom(
+        final java.io.InputStream input) throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter parseFrom(
+        final java.io.InputStream input, final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter parseDelimitedFrom(
+        final java.io.InputStream input) throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter parseDelimitedFrom(
+        final java.io.InputStream input, final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input, extensionRegistry);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter parseFrom(
+        final com.google.protobuf.CodedInputStream input) throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter parseFrom(
+        final com.google.protobuf.CodedInputStream input,
+        final com.google.protobuf.ExtensionRegistryLite extensionRegistry) throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static Builder newBuilder() {
+      return Builder.create();
+    }
+
+    @Override
+    public Builder newBuilderForType() {
+      return newBuilder();
+    }
+
+    public static Builder newBuilder(final edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+
+    @Override
+    public Builder toBuilder() {
+      return newBuilder(this);
+    }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(final com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+
+    /**
+     * Protobuf type {@code SemiJoinFilter}
+     */
+    public static final class Builder extends com.google.protobuf.GeneratedMessage.Builder<Builder> implements
+    // @@protoc_insertion_point(builder_implements:SemiJoinFilter)
+        edu.washington.escience.myria.proto.ControlProto.SemiJoinFilterOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor getDescriptor() {
+        return edu.washington.escience.myria.proto.ControlProto.internal_static_SemiJoinFilter_descriptor;
+      }
+
+      @Override
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable internalGetFieldAccessorTable() {
+        return edu.washington.escience.myria.proto.ControlProto.internal_static_SemiJoinFilter_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter.class,
+                edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter.Builder.class);
+      }
+
+      // Construct using edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(final com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+        }
+      }
+
+      private static Builder create() {
+        return new Builder();
+      }
+
+      @Override
+      public Builder clear() {
+        super.clear();
+        queryId_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000001);
+        subqueryId_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000002);
+        opId_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000004);
+        numHashes_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000008);
+        words_ = com.google.protobuf.ByteString.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000010);
+        return this;
+      }
+
+      @Override
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+
+      @Override
+      public com.google.protobuf.Descriptors.Descriptor getDescriptorForType() {
+        return edu.washington.escience.myria.proto.ControlProto.internal_static_SemiJoinFilter_descriptor;
+      }
+
+      @Override
+      public edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter getDefaultInstanceForType() {
+        return edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter.getDefaultInstance();
+      }
+
+      @Override
+      public edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter build() {
+        edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      @Override
+      public edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter buildPartial() {
+        edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter result =
+            new edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        result.queryId_ = queryId_;
+        if (((from_bitField0_ & 0x00000002) == 0x00000002)) {
+          to_bitField0_ |= 0x00000002;
+        }
+        result.subqueryId_ = subqueryId_;
+        if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
+          to_bitField0_ |= 0x00000004;
+        }
+        result.opId_ = opId_;
+        if (((from_bitField0_ & 0x00000008) == 0x00000008)) {
+          to_bitField0_ |= 0x00000008;
+        }
+        result.numHashes_ = numHashes_;
+        if (((from_bitField0_ & 0x00000010) == 0x00000010)) {
+          to_bitField0_ |= 0x00000010;
+        }
+        result.words_ = words_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      @Override
+      public Builder mergeFrom(final com.google.protobuf.Message other) {
+        if (other instanceof edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter) {
+          return mergeFrom((edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter) other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(final edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter other) {
+        if (other == edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter.getDefaultInstance()) {
+          return this;
+        }
+        if (other.hasQueryId()) {
+          setQueryId(other.getQueryId());
+        }
+        if (other.hasSubqueryId()) {
+          setSubqueryId(other.getSubqueryId());
+        }
+        if (other.hasOpId()) {
+          setOpId(other.getOpId());
+        }
+        if (other.hasNumHashes()) {
+          setNumHashes(other.getNumHashes());
+        }
+        if (other.hasWords()) {
+          setWords(other.getWords());
+        }
+        mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+
+      @Override
+      public final boolean isInitialized() {
+        if (!hasQueryId()) {
+
+          return false;
+        }
+        if (!hasSubqueryId()) {
+
+          return false;
+        }
+        if (!hasOpId()) {
+
+          return false;
+        }
+        if (!hasNumHashes()) {
+
+          return false;
+        }
+        if (!hasWords()) {
+
+          return false;
+        }
+        return true;
+      }
+
+      @Override
+      public Builder mergeFrom(final com.google.protobuf.CodedInputStream input,
+          final com.google.protobuf.ExtensionRegistryLite extensionRegistry) throws java.io.IOException {
+        edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (edu.washington.escience.myria.proto.ControlProto.SemiJoinFilter) e.getUnfinishedMessage();
+          throw e;
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+
+      private int bitField0_;
+
+      private long queryId_;
+
+      /**
+       * <code>required int64 query_id = 1;</code>
+       */
+      @Override
+      public boolean hasQueryId() {
+        return ((bitField0_ & 0x00000001) == 0x00000001);
+      }
+
+      /**
+       * <code>required int64 query_id = 1;</code>
+       */
+      @Override
+      public long getQueryId() {
+        return queryId_;
+      }
+
+      /**
+       * <code>required int64 query_id = 1;</code>
+       */
+      public Builder setQueryId(final long value) {
+        bitField0_ |= 0x00000001;
+        queryId_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>required int64 query_id = 1;</code>
+       */
+      public Builder clearQueryId() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        queryId_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private long subqueryId_;
+
+      /**
+       * <code>required int64 subquery_id = 2;</code>
+       */
+      @Override
+      public boolean hasSubqueryId() {
+        return ((bitField0_ & 0x00000002) == 0x00000002);
+      }
+
+      /**
+       * <code>required int64 subquery_id = 2;</code>
+       */
+      @Override
+      public long getSubqueryId() {
+        return subqueryId_;
+      }
+
+      /**
+       * <code>required int64 subquery_id = 2;</code>
+       */
+      public Builder setSubqueryId(final long value) {
+        bitField0_ |= 0x00000002;
+        subqueryId_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>required int64 subquery_id = 2;</code>
+       */
+      public Builder clearSubqueryId() {
+        bitField0_ = (bitField0_ & ~0x00000002);
+        subqueryId_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private int opId_;
+
+      /**
+       * <code>required int32 op_id = 3;</code>
+       *
+       * <pre>
+       * the join whose build keys are in the filter
+       * </pre>
+       */
+      @Override
+      public boolean hasOpId() {
+        return ((bitField0_ & 0x00000004) == 0x00000004);
+      }
+
+      /**
+       * <code>required int32 op_id = 3;</code>
+       *
+       * <pre>
+       * the join whose build keys are in the filter
+       * </pre>
+       */
+      @Override
+      public int getOpId() {
+        return opId_;
+      }
+
+      /**
+       * <code>required int32 op_id = 3;</code>
+       *
+       * <pre>
+       * the join whose build keys are in the filter
+       * </pre>
+       */
+      public Builder setOpId(final int value) {
+        bitField0_ |= 0x00000004;
+        opId_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>required int32 op_id = 3;</code>
+       *
+       * <pre>
+       * the join whose build keys are in the filter
+       * </pre>
+       */
+      public Builder clearOpId() {
+        bitField0_ = (bitField0_ & ~0x00000004);
+        opId_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private int numHashes_;
+
+      /**
+       * <code>required int32 num_hashes = 4;</code>
+       *
+       * <pre>
+       * the number of bit positions per key
+       * </pre>
+       */
+      @Override
+      public boolean hasNumHashes() {
+        return ((bitField0_ & 0x00000008) == 0x00000008);
+      }
+
+      /**
+       * <code>required int32 num_hashes = 4;</code>
+       *
+       * <pre>
+       * the number of bit positions per key
+       * </pre>
+       */
+      @Override
+      public int getNumHashes() {
+        return numHashes_;
+      }
+
+      /**
+       * <code>required int32 num_hashes = 4;</code>
+       *
+       * <pre>
+       * the number of bit positions per key
+       * </pre>
+       */
+      public Builder setNumHashes(final int value) {
+        bitField0_ |= 0x00000008;
+        numHashes_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>required int32 num_hashes = 4;</code>
+       *
+       * <pre>
+       * the number of bit positions per key
+       * </pre>
+       */
+      public Builder clearNumHashes() {
+        bitField0_ = (bitField0_ & ~0x00000008);
+        numHashes_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.ByteString words_ = com.google.protobuf.ByteString.EMPTY;
+
+      /**
+       * <code>required bytes words = 5;</code>
+       *
+       * <pre>
+       * the 64-bit words of the filter, big-endian
+       * </pre>
+       */
+      @Override
+      public boolean hasWords() {
+        return ((bitField0_ & 0x00000010) == 0x00000010);
+      }
+
+      /**
+       * <code>required bytes words = 5;</code>
+       *
+       * <pre>
+       * the 64-bit words of the filter, big-endian
+       * </pre>
+       */
+      @Override
+      public com.google.protobuf.ByteString getWords() {
+        return words_;
+      }
+
+      /**
+       * <code>required bytes words = 5;</code>
+       *
+       * <pre>
+       * the 64-bit words of the filter, big-endian
+       * </pre>
+       */
+      public Builder setWords(final com.google.protobuf.ByteString value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        bitField0_ |= 0x00000010;
+        words_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>required bytes words = 5;</code>
+       *
+       * <pre>
+       * the 64-bit words of the filter, big-endian
+       * </pre>
+       */
+      public Builder clearWords() {
+        bitField0_ = (bitField0_ & ~0x00000010);
+        words_ = getDefaultInstance().getWords();
+        onChanged();
+        return this;
+      }
+
+      // @@protoc_insertion_point(builder_scope:SemiJoinFilter)
+    }
+
+    static {
+      defaultInstance = new SemiJoinFilter(true);
+      defaultInstance.initFields();
+    }
+
+    // @@protoc_insertion_point(class_scope:SemiJoinFilter)
+  }
+
+  public interface HeavyHittersOrBuilder extends
+  // @@protoc_insertion_point(interface_extends:HeavyHitters)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>required int64 query_id = 1;</code>
+     */
+    boolean hasQueryId();
+
+    /**
+     * <code>required int64 query_id = 1;</code>
+     */
+    long getQueryId();
+
+    /**
+     * <code>required int64 subquery_id = 2;</code>
+     */
+    boolean hasSubqueryId();
+
+    /**
+     * <code>required int64 subquery_id = 2;</code>
+     */
+    long getSubqueryId();
+
+    /**
+     * <code>required int32 op_id = 3;</code>
+     *
+     * <pre>
+     * the skew-aware shuffle that detected the heavy hitters
+     * </pre>
+     */
+    boolean hasOpId();
+
+    /**
+     * <code>required int32 op_id = 3;</code>
+     *
+     * <pre>
+     * the skew-aware shuffle that detected the heavy hitters
+     * </pre>
+     */
+    int getOpId();
+
+    /**
+     * <code>repeated int32 key_hash = 4;</code>
+     *
+     * <pre>
+     * the hash code of each heavy hitter
+     * </pre>
+     */
+    java.util.List<java.lang.Integer> getKeyHashList();
+
+    /**
+     * <code>repeated int32 key_hash = 4;</code>
+     *
+     * <pre>
+     * the hash code of each heavy hitter
+     * </pre>
+     */
+    int getKeyHashCount();
+
+    /**
+     * <code>repeated int32 key_hash = 4;</code>
+     *
+     * <pre>
+     * the hash code of each heavy hitter
+     * </pre>
+     */
+    int getKeyHash(int index);
+  }
+  /**
+   * Protobuf type {@code HeavyHitters}
+   */
+  public static final class HeavyHitters extends com.google.protobuf.GeneratedMessage implements
+  // @@protoc_insertion_point(message_implements:HeavyHitters)
+      HeavyHittersOrBuilder {
+    // Use HeavyHitters.newBuilder() to construct.
+    private HeavyHitters(final com.google.protobuf.GeneratedMessage.Builder<?> builder) {
+      super(builder);
+      unknownFields = builder.getUnknownFields();
+    }
+
+    private HeavyHitters(final boolean noInit) {
+      unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance();
+    }
+
+    private static final HeavyHitters defaultInstance;
+
+    public static HeavyHitters getDefaultInstance() {
+      return defaultInstance;
+    }
+
+    @Override
+    public HeavyHitters getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet getUnknownFields() {
+      return unknownFields;
+    }
+
+    private HeavyHitters(final com.google.protobuf.CodedInputStream input,
+        final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      initFields();
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields = com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            default: {
+              if (!parseUnknownField(input, unknownFields, extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+            case 8: {
+              bitField0_ |= 0x00000001;
+              queryId_ = input.readInt64();
+              break;
+            }
+            case 16: {
+              bitField0_ |= 0x00000002;
+              subqueryId_ = input.readInt64();
+              break;
+            }
+            case 24: {
+              bitField0_ |= 0x00000004;
+              opId_ = input.readInt32();
+              break;
+            }
+            case 32: {
+              if (!((mutable_bitField0_ & 0x00000008) == 0x00000008)) {
+                keyHash_ = new java.util.ArrayList<java.lang.Integer>();
+                mutable_bitField0_ |= 0x00000008;
+              }
+              keyHash_.add(input.readInt32());
+              break;
+            }
+            case 34: {
+              int length = input.readRawVarint32();
+              int limit = input.pushLimit(length);
+              if (!((mutable_bitField0_ & 0x00000008) == 0x00000008) && input.getBytesUntilLimit() > 0) {
+                keyHash_ = new java.util.ArrayList<java.lang.Integer>();
+                mutable_bitField0_ |= 0x00000008;
+              }
+              while (input.getBytesUntilLimit() > 0) {
+                keyHash_.add(input.readInt32());
+              }
+              input.popLimit(limit);
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(e.getMessage()).setUnfinishedMessage(this);
+      } finally {
+        if (((mutable_bitField0_ & 0x00000008) == 0x00000008)) {
+          keyHash_ = java.util.Collections.unmodifiableList(keyHash_);
+        }
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+
+    public static final com.google.protobuf.Descriptors.Descriptor getDescriptor() {
+      return edu.washington.escience.myria.proto.ControlProto.internal_static_HeavyHitters_descriptor;
+    }
+
+    @Override
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable internalGetFieldAccessorTable() {
+      return edu.washington.escience.myria.proto.ControlProto.internal_static_HeavyHitters_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(edu.washington.escience.myria.proto.ControlProto.HeavyHitters.class,
+              edu.washington.escience.myria.proto.ControlProto.HeavyHitters.Builder.class);
+    }
+
+    public static com.google.protobuf.Parser<HeavyHitters> PARSER =
+        new com.google.protobuf.AbstractParser<HeavyHitters>() {
+          @Override
+          public HeavyHitters parsePartialFrom(final com.google.protobuf.CodedInputStream input,
+              final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+              throws com.google.protobuf.InvalidProtocolBufferException {
+            return new HeavyHitters(input, extensionRegistry);
+          }
+        };
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<HeavyHitters> getParserForType() {
+      return PARSER;
+    }
+
+    private int bitField0_;
+    public static final int QUERY_ID_FIELD_NUMBER = 1;
+    private long queryId_;
+
+    /**
+     * <code>required int64 query_id = 1;</code>
+     */
+    @Override
+    public boolean hasQueryId() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+
+    /**
+     * <code>required int64 query_id = 1;</code>
+     */
+    @Override
+    public long getQueryId() {
+      return queryId_;
+    }
+
+    public static final int SUBQUERY_ID_FIELD_NUMBER = 2;
+    private long subqueryId_;
+
+    /**
+     * <code>required int64 subquery_id = 2;</code>
+     */
+    @Override
+    public boolean hasSubqueryId() {
+      return ((bitField0_ & 0x00000002) == 0x00000002);
+    }
+
+    /**
+     * <code>required int64 subquery_id = 2;</code>
+     */
+    @Override
+    public long getSubqueryId() {
+      return subqueryId_;
+    }
+
+    public static final int OP_ID_FIELD_NUMBER = 3;
+    private int opId_;
+
+    /**
+     * <code>required int32 op_id = 3;</code>
+     *
+     * <pre>
+     * the skew-aware shuffle that detected the heavy hitters
+     * </pre>
+     */
+    @Override
+    public boolean hasOpId() {
+      return ((bitField0_ & 0x00000004) == 0x00000004);
+    }
+
+    /**
+     * <code>required int32 op_id = 3;</code>
+     *
+     * <pre>
+     * the skew-aware shuffle that detected the heavy hitters
+     * </pre>
+     */
+    @Override
+    public int getOpId() {
+      return opId_;
+    }
+
+    public static final int KEY_HASH_FIELD_NUMBER = 4;
+    private java.util.List<java.lang.Integer> keyHash_;
+
+    /**
+     * <code>repeated int32 key_hash = 4;</code>
+     *
+     * <pre>
+     * the hash code of each heavy hitter
+     * </pre>
+     */
+    @Override
+    public java.util.List<java.lang.Integer> getKeyHashList() {
+      return keyHash_;
+    }
+
+    /**
+     * <code>repeated int32 key_hash = 4;</code>
+     *
+     * <pre>
+     * the hash code of each heavy hitter
+     * </pre>
+     */
+    @Override
+    public int getKeyHashCount() {
+      return keyHash_.size();
+    }
+
+    /**
+     * <code>repeated int32 key_hash = 4;</code>
+     *
+     * <pre>
+     * the hash code of each heavy hitter
+     * </pre>
+     */
+    @Override
+    public int getKeyHash(final int index) {
+      return keyHash_.get(index);
+    }
+
+    private void initFields() {
+      queryId_ = 0L;
+      subqueryId_ = 0L;
+      opId_ = 0;
+      keyHash_ = java.util.Collections.emptyList();
+    }
+
+    private byte memoizedIsInitialized = -1;
+
+    @Override
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) {
+        return true;
+      }
+      if (isInitialized == 0) {
+        return false;
+      }
+
+      if (!hasQueryId()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasSubqueryId()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasOpId()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    @Override
+    public void writeTo(final com.google.protobuf.CodedOutputStream output) throws java.io.IOException {
+      getSerializedSize();
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeInt64(1, queryId_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        output.writeInt64(2, subqueryId_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        output.writeInt32(3, opId_);
+      }
+      for (int i = 0; i < keyHash_.size(); i++) {
+        output.writeInt32(4, keyHash_.get(i));
+      }
+      getUnknownFields().writeTo(output);
+    }
+
+    private int memoizedSerializedSize = -1;
+
+    @Override
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) {
+        return size;
+      }
+
+      size = 0;
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream.computeInt64Size(1, queryId_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        size += com.google.protobuf.CodedOutputStream.computeInt64Size(2, subqueryId_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        size += com.google.protobuf.CodedOutputStream.computeInt32Size(3, opId_);
+      }
+      {
+        int dataSize = 0;
+        for (int i = 0; i < keyHash_.size(); i++) {
+          dataSize += com.google.protobuf.CodedOutputStream.computeInt32SizeNoTag(keyHash_.get(i));
+        }
+        size += dataSize;
+        size += 1 * getKeyHashList().size();
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+
+    private static final long serialVersionUID = 0L;
+
+    @java.lang.Override
+    protected java.lang.Object writeReplace() throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.HeavyHitters parseFrom(
+        final com.google.protobuf.ByteString data) throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.HeavyHitters parseFrom(
+        final com.google.protobuf.ByteString data, final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.HeavyHitters parseFrom(final byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.HeavyHitters parseFrom(final byte[] data,
+        final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.HeavyHitters parseFrom(
+        final java.io.InputStream input) throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.HeavyHitters parseFrom(
+        final java.io.InputStream input, final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.HeavyHitters parseDelimitedFrom(
+        final java.io.InputStream input) throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.HeavyHitters parseDelimitedFrom(
+        final java.io.InputStream input, final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input, extensionRegistry);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.HeavyHitters parseFrom(
+        final com.google.protobuf.CodedInputStream input) throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.HeavyHitters parseFrom(
+        final com.google.protobuf.CodedInputStream input,
+        final com.google.protobuf.ExtensionRegistryLite extensionRegistry) throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static Builder newBuilder() {
+      return Builder.create();
+    }
+
+    @Override
+    public Builder newBuilderForType() {
+      return newBuilder();
+    }
+
+    public static Builder newBuilder(final edu.washington.escience.myria.proto.ControlProto.HeavyHitters prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+
+    @Override
+    public Builder toBuilder() {
+      return newBuilder(this);
+    }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(final com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+
+    /**
+     * Protobuf type {@code HeavyHitters}
+     */
+    public static final class Builder extends com.google.protobuf.GeneratedMessage.Builder<Builder> implements
+    // @@protoc_insertion_point(builder_implements:HeavyHitters)
+        edu.washington.escience.myria.proto.ControlProto.HeavyHittersOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor getDescriptor() {
+        return edu.washington.escience.myria.proto.ControlProto.internal_static_HeavyHitters_descriptor;
+      }
+
+      @Override
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable internalGetFieldAccessorTable() {
+        return edu.washington.escience.myria.proto.ControlProto.internal_static_HeavyHitters_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(edu.washington.escience.myria.proto.ControlProto.HeavyHitters.class,
+                edu.washington.escience.myria.proto.ControlProto.HeavyHitters.Builder.class);
+      }
+
+      // Construct using edu.washington.escience.myria.proto.ControlProto.HeavyHitters.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(final com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+        }
+      }
+
+      private static Builder create() {
+        return new Builder();
+      }
+
+      @Override
+      public Builder clear() {
+        super.clear();
+        queryId_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000001);
+        subqueryId_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000002);
+        opId_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000004);
+        keyHash_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00000008);
+        return this;
+      }
+
+      @Override
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+
+      @Override
+      public com.google.protobuf.Descriptors.Descriptor getDescriptorForType() {
+        return edu.washington.escience.myria.proto.ControlProto.internal_static_HeavyHitters_descriptor;
+      }
+
+      @Override
+      public edu.washington.escience.myria.proto.ControlProto.HeavyHitters getDefaultInstanceForType() {
+        return edu.washington.escience.myria.proto.ControlProto.HeavyHitters.getDefaultInstance();
+      }
+
+      @Override
+      public edu.washington.escience.myria.proto.ControlProto.HeavyHitters build() {
+        edu.washington.escience.myria.proto.ControlProto.HeavyHitters result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      @Override
+      public edu.washington.escience.myria.proto.ControlProto.HeavyHitters buildPartial() {
+        edu.washington.escience.myria.proto.ControlProto.HeavyHitters result =
+            new edu.washington.escience.myria.proto.ControlProto.HeavyHitters(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        result.queryId_ = queryId_;
+        if (((from_bitField0_ & 0x00000002) == 0x00000002)) {
+          to_bitField0_ |= 0x00000002;
+        }
+        result.subqueryId_ = subqueryId_;
+        if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
+          to_bitField0_ |= 0x00000004;
+        }
+        result.opId_ = opId_;
+        if (((bitField0_ & 0x00000008) == 0x00000008)) {
+          keyHash_ = java.util.Collections.unmodifiableList(keyHash_);
+          bitField0_ = (bitField0_ & ~0x00000008);
+        }
+        result.keyHash_ = keyHash_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      @Override
+      public Builder mergeFrom(final com.google.protobuf.Message other) {
+        if (other instanceof edu.washington.escience.myria.proto.ControlProto.HeavyHitters) {
+          return mergeFrom((edu.washington.escience.myria.proto.ControlProto.HeavyHitters) other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(final edu.washington.escience.myria.proto.ControlProto.HeavyHitters other) {
+        if (other == edu.washington.escience.myria.proto.ControlProto.HeavyHitters.getDefaultInstance()) {
+          return this;
+        }
+        if (other.hasQueryId()) {
+          setQueryId(other.getQueryId());
+        }
+        if (other.hasSubqueryId()) {
+          setSubqueryId(other.getSubqueryId());
+        }
+        if (other.hasOpId()) {
+          setOpId(other.getOpId());
+        }
+        if (!other.keyHash_.isEmpty()) {
+          if (keyHash_.isEmpty()) {
+            keyHash_ = other.keyHash_;
+            bitField0_ = (bitField0_ & ~0x00000008);
+          } else {
+            ensureKeyHashIsMutable();
+            keyHash_.addAll(other.keyHash_);
+          }
+          onChanged();
+        }
+        mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+
+      @Override
+      public final boolean isInitialized() {
+        if (!hasQueryId()) {
+
+          return false;
+        }
+        if (!hasSubqueryId()) {
+
+          return false;
+        }
+        if (!hasOpId()) {
+
+          return false;
+        }
+        return true;
+      }
+
+      @Override
+      public Builder mergeFrom(final com.google.protobuf.CodedInputStream input,
+          final com.google.protobuf.ExtensionRegistryLite extensionRegistry) throws java.io.IOException {
+        edu.washington.escience.myria.proto.ControlProto.HeavyHitters parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (edu.washington.escience.myria.proto.ControlProto.HeavyHitters) e.getUnfinishedMessage();
+          throw e;
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+
+      private int bitField0_;
+
+      private long queryId_;
+
+      /**
+       * <code>required int64 query_id = 1;</code>
+       */
+      @Override
+      public boolean hasQueryId() {
+        return ((bitField0_ & 0x00000001) == 0x00000001);
+      }
+
+      /**
+       * <code>required int64 query_id = 1;</code>
+       */
+      @Override
+      public long getQueryId() {
+        return queryId_;
+      }
+
+      /**
+       * <code>required int64 query_id = 1;</code>
+       */
+      public Builder setQueryId(final long value) {
+        bitField0_ |= 0x00000001;
+        queryId_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>required int64 query_id = 1;</code>
+       */
+      public Builder clearQueryId() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        queryId_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private long subqueryId_;
+
+      /**
+       * <code>required int64 subquery_id = 2;</code>
+       */
+      @Override
+      public boolean hasSubqueryId() {
+        return ((bitField0_ & 0x00000002) == 0x00000002);
+      }
+
+      /**
+       * <code>required int64 subquery_id = 2;</code>
+       */
+      @Override
+      public long getSubqueryId() {
+        return subqueryId_;
+      }
+
+      /**
+       * <code>required int64 subquery_id = 2;</code>
+       */
+      public Builder setSubqueryId(final long value) {
+        bitField0_ |= 0x00000002;
+        subqueryId_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>required int64 subquery_id = 2;</code>
+       */
+      public Builder clearSubqueryId() {
+        bitField0_ = (bitField0_ & ~0x00000002);
+        subqueryId_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private int opId_;
+
+      /**
+       * <code>required int32 op_id = 3;</code>
+       *
+       * <pre>
+       * the skew-aware shuffle that detected the heavy hitters
+       * </pre>
+       */
+      @Override
+      public boolean hasOpId() {
+        return ((bitField0_ & 0x00000004) == 0x00000004);
+      }
+
+      /**
+       * <code>required int32 op_id = 3;</code>
+       *
+       * <pre>
+       * the skew-aware shuffle that detected the heavy hitters
+       * </pre>
+       */
+      @Override
+      public int getOpId() {
+        return opId_;
+      }
+
+      /**
+       * <code>required int32 op_id = 3;</code>
+       *
+       * <pre>
+       * the skew-aware shuffle that detected the heavy hitters
+       * </pre>
+       */
+      public Builder setOpId(final int value) {
+        bitField0_ |= 0x00000004;
+        opId_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>required int32 op_id = 3;</code>
+       *
+       * <pre>
+       * the skew-aware shuffle that detected the heavy hitters
+       * </pre>
+       */
+      public Builder clearOpId() {
+        bitField0_ = (bitField0_ & ~0x00000004);
+        opId_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private java.util.List<java.lang.Integer> keyHash_ = java.util.Collections.emptyList();
+
+      private void ensureKeyHashIsMutable() {
+        if (!((bitField0_ & 0x00000008) == 0x00000008)) {
+          keyHash_ = new java.util.ArrayList<java.lang.Integer>(keyHash_);
+          bitField0_ |= 0x00000008;
+        }
+      }
+
+      /**
+       * <code>repeated int32 key_hash = 4;</code>
+       *
+       * <pre>
+       * the hash code of each heavy hitter
+       * </pre>
+       */
+      @Override
+      public java.util.List<java.lang.Integer> getKeyHashList() {
+        return java.util.Collections.unmodifiableList(keyHash_);
+      }
+
+      /**
+       * <code>repeated int32 key_hash = 4;</code>
+       *
+       * <pre>
+       * the hash code of each heavy hitter
+       * </pre>
+       */
+      @Override
+      public int getKeyHashCount() {
+        return keyHash_.size();
+      }
+
+      /**
+       * <code>repeated int32 key_hash = 4;</code>
+       *
+       * <pre>
+       * the hash code of each heavy hitter
+       * </pre>
+       */
+      @Override
+      public int getKeyHash(final int index) {
+        return keyHash_.get(index);
+      }
+
+      /**
+       * <code>repeated int32 key_hash = 4;</code>
+       *
+       * <pre>
+       * the hash code of each heavy hitter
+       * </pre>
+       */
+      public Builder setKeyHash(final int index, final int value) {
+        ensureKeyHashIsMutable();
+        keyHash_.set(index, value);
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>repeated int32 key_hash = 4;</code>
+       *
+       * <pre>
+       * the hash code of each heavy hitter
+       * </pre>
+       */
+      public Builder addKeyHash(final int value) {
+        ensureKeyHashIsMutable();
+        keyHash_.add(value);
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>repeated int32 key_hash = 4;</code>
+       *
+       * <pre>
+       * the hash code of each heavy hitter
+       * </pre>
+       */
+      public Builder addAllKeyHash(final java.lang.Iterable<? extends java.lang.Integer> values) {
+        ensureKeyHashIsMutable();
+        com.google.protobuf.AbstractMessageLite.Builder.addAll(values, keyHash_);
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>repeated int32 key_hash = 4;</code>
+       *
+       * <pre>
+       * the hash code of each heavy hitter
+       * </pre>
+       */
+      public Builder clearKeyHash() {
+        keyHash_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00000008);
+        onChanged();
+        return this;
+      }
+
+      // @@protoc_insertion_point(builder_scope:HeavyHitters)
+    }
+
+    static {
+      defaultInstance = new HeavyHitters(true);
+      defaultInstance.initFields();
+    }
+
+    // @@protoc_insertion_point(class_scope:HeavyHitters)
+  }
+
+  public interface WorkerLoadOrBuilder extends
+  // @@protoc_insertion_point(interface_extends:WorkerLoad)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>required int64 heap_used_bytes = 1;</code>
+     */
+    boolean hasHeapUsedBytes();
+
+    /**
+     * <code>required int64 heap_used_bytes = 1;</code>
+     */
+    long getHeapUsedBytes();
+
+    /**
+     * <code>required int64 heap_max_bytes = 2;</code>
+     */
+    boolean hasHeapMaxBytes();
+
+    /**
+     * <code>required int64 heap_max_bytes = 2;</code>
+     */
+    long getHeapMaxBytes();
+
+    /**
+     * <code>optional int32 slots = 3;</code>
+     *
+     * <pre>
+     * the number of fragment execution slots
+     * </pre>
+     */
+    boolean hasSlots();
+
+    /**
+     * <code>optional int32 slots = 3;</code>
+     *
+     * <pre>
+     * the number of fragment execution slots
+     * </pre>
+     */
+    int getSlots();
+
+    /**
+     * <code>optional int32 slots_in_use = 4;</code>
+     */
+    boolean hasSlotsInUse();
+
+    /**
+     * <code>optional int32 slots_in_use = 4;</code>
+     */
+    int getSlotsInUse();
+
+    /**
+     * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+     */
+    java.util.List<edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage> getQuerySlotUsageList();
+
+    /**
+     * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+     */
+    edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage getQuerySlotUsage(int index);
+
+    /**
+     * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+     */
+    int getQuerySlotUsageCount();
+
+    /**
+     * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+     */
+    java.util.List<? extends edu.washington.escience.myria.proto.ControlProto.QuerySlotUsageOrBuilder> getQuerySlotUsageOrBuilderList();
+
+    /**
+     * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+     */
+    edu.washington.escience.myria.proto.ControlProto.QuerySlotUsageOrBuilder getQuerySlotUsageOrBuilder(int index);
+
+    /**
+     * <code>optional int64 compile_cache_hits = 6;</code>
+     */
+    boolean hasCompileCacheHits();
+
+    /**
+     * <code>optional int64 compile_cache_hits = 6;</code>
+     */
+    long getCompileCacheHits();
+
+    /**
+     * <code>optional int64 compile_cache_misses = 7;</code>
+     */
+    boolean hasCompileCacheMisses();
+
+    /**
+     * <code>optional int64 compile_cache_misses = 7;</code>
+     */
+    long getCompileCacheMisses();
+
+    /**
+     * <code>optional int64 compile_nanos = 8;</code>
+     */
+    boolean hasCompileNanos();
+
+    /**
+     * <code>optional int64 compile_nanos = 8;</code>
+     */
+    long getCompileNanos();
+
+    /**
+     * <code>optional int64 compile_cache_size = 9;</code>
+     */
+    boolean hasCompileCacheSize();
+
+    /**
+     * <code>optional int64 compile_cache_size = 9;</code>
+     */
+    long getCompileCacheSize();
+  }
+  /**
+   * Protobuf type {@code WorkerLoad}
+   */
+  public static final class WorkerLoad extends com.google.protobuf.GeneratedMessage implements
+  // @@protoc_insertion_point(message_implements:WorkerLoad)
+      WorkerLoadOrBuilder {
+    // Use WorkerLoad.newBuilder() to construct.
+    private WorkerLoad(final com.google.protobuf.GeneratedMessage.Builder<?> builder) {
+      super(builder);
+      unknownFields = builder.getUnknownFields();
+    }
+
+    private WorkerLoad(final boolean noInit) {
+      unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance();
+    }
+
+    private static final WorkerLoad defaultInstance;
+
+    public static WorkerLoad getDefaultInstance() {
+      return defaultInstance;
+    }
+
+    @Override
+    public WorkerLoad getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet getUnknownFields() {
+      return unknownFields;
+    }
+
+    private WorkerLoad(final com.google.protobuf.CodedInputStream input,
+        final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      initFields();
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields = com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            default: {
+              if (!parseUnknownField(input, unknownFields, extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+            case 8: {
+              bitField0_ |= 0x00000001;
+              heapUsedBytes_ = input.readInt64();
+              break;
+            }
+            case 16: {
+              bitField0_ |= 0x00000002;
+              heapMaxBytes_ = input.readInt64();
+              break;
+            }
+            case 24: {
+              bitField0_ |= 0x00000004;
+              slots_ = input.readInt32();
+              break;
+            }
+            case 32: {
+              bitField0_ |= 0x00000008;
+              slotsInUse_ = input.readInt32();
+              break;
+            }
+            case 42: {
+              if (!((mutable_bitField0_ & 0x00000010) == 0x00000010)) {
+                querySlotUsage_ =
+                    new java.util.ArrayList<edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage>();
+                mutable_bitField0_ |= 0x00000010;
+              }
+              querySlotUsage_.add(input.readMessage(
+                  edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage.PARSER, extensionRegistry));
+              break;
+            }
+            case 48: {
+              bitField0_ |= 0x00000010;
+              compileCacheHits_ = input.readInt64();
+              break;
+            }
+            case 56: {
+              bitField0_ |= 0x00000020;
+              compileCacheMisses_ = input.readInt64();
+              break;
+            }
+            case 64: {
+              bitField0_ |= 0x00000040;
+              compileNanos_ = input.readInt64();
+              break;
+            }
+            case 72: {
+              bitField0_ |= 0x00000080;
+              compileCacheSize_ = input.readInt64();
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(e.getMessage()).setUnfinishedMessage(this);
+      } finally {
+        if (((mutable_bitField0_ & 0x00000010) == 0x00000010)) {
+          querySlotUsage_ = java.util.Collections.unmodifiableList(querySlotUsage_);
+        }
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+
+    public static final com.google.protobuf.Descriptors.Descriptor getDescriptor() {
+      return edu.washington.escience.myria.proto.ControlProto.internal_static_WorkerLoad_descriptor;
+    }
+
+    @Override
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable internalGetFieldAccessorTable() {
+      return edu.washington.escience.myria.proto.ControlProto.internal_static_WorkerLoad_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(edu.washington.escience.myria.proto.ControlProto.WorkerLoad.class,
+              edu.washington.escience.myria.proto.ControlProto.WorkerLoad.Builder.class);
+    }
+
+    public static com.google.protobuf.Parser<WorkerLoad> PARSER = new com.google.protobuf.AbstractParser<WorkerLoad>() {
+      @Override
+      public WorkerLoad parsePartialFrom(final com.google.protobuf.CodedInputStream input,
+          final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new WorkerLoad(input, extensionRegistry);
+      }
+    };
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<WorkerLoad> getParserForType() {
+      return PARSER;
+    }
+
+    private int bitField0_;
+    public static final int HEAP_USED_BYTES_FIELD_NUMBER = 1;
+    private long heapUsedBytes_;
+
+    /**
+     * <code>required int64 heap_used_bytes = 1;</code>
+     */
+    @Override
+    public boolean hasHeapUsedBytes() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+
+    /**
+     * <code>required int64 heap_used_bytes = 1;</code>
+     */
+    @Override
+    public long getHeapUsedBytes() {
+      return heapUsedBytes_;
+    }
+
+    public static final int HEAP_MAX_BYTES_FIELD_NUMBER = 2;
+    private long heapMaxBytes_;
+
+    /**
+     * <code>required int64 heap_max_bytes = 2;</code>
+     */
+    @Override
+    public boolean hasHeapMaxBytes() {
+      return ((bitField0_ & 0x00000002) == 0x00000002);
+    }
+
+    /**
+     * <code>required int64 heap_max_bytes = 2;</code>
+     */
+    @Override
+    public long getHeapMaxBytes() {
+      return heapMaxBytes_;
+    }
+
+    public static final int SLOTS_FIELD_NUMBER = 3;
+    private int slots_;
+
+    /**
+     * <code>optional int32 slots = 3;</code>
+     *
+     * <pre>
+     * the number of fragment execution slots
+     * </pre>
+     */
+    @Override
+    public boolean hasSlots() {
+      return ((bitField0_ & 0x00000004) == 0x00000004);
+    }
+
+    /**
+     * <code>optional int32 slots = 3;</code>
+     *
+     * <pre>
+     * the number of fragment execution slots
+     * </pre>
+     */
+    @Override
+    public int getSlots() {
+      return slots_;
+    }
+
+    public static final int SLOTS_IN_USE_FIELD_NUMBER = 4;
+    private int slotsInUse_;
+
+    /**
+     * <code>optional int32 slots_in_use = 4;</code>
+     */
+    @Override
+    public boolean hasSlotsInUse() {
+      return ((bitField0_ & 0x00000008) == 0x00000008);
+    }
+
+    /**
+     * <code>optional int32 slots_in_use = 4;</code>
+     */
+    @Override
+    public int getSlotsInUse() {
+      return slotsInUse_;
+    }
+
+    public static final int QUERY_SLOT_USAGE_FIELD_NUMBER = 5;
+    private java.util.List<edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage> querySlotUsage_;
+
+    /**
+     * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+     */
+    @Override
+    public java.util.List<edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage> getQuerySlotUsageList() {
+      return querySlotUsage_;
+    }
+
+    /**
+     * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+     */
+    @Override
+    public java.util.List<? extends edu.washington.escience.myria.proto.ControlProto.QuerySlotUsageOrBuilder> getQuerySlotUsageOrBuilderList() {
+      return querySlotUsage_;
+    }
+
+    /**
+     * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+     */
+    @Override
+    public int getQuerySlotUsageCount() {
+      return querySlotUsage_.size();
+    }
+
+    /**
+     * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+     */
+    @Override
+    public edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage getQuerySlotUsage(final int index) {
+      return querySlotUsage_.get(index);
+    }
+
+    /**
+     * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+     */
+    @Override
+    public edu.washington.escience.myria.proto.ControlProto.QuerySlotUsageOrBuilder getQuerySlotUsageOrBuilder(
+        final int index) {
+      return querySlotUsage_.get(index);
+    }
+
+    public static final int COMPILE_CACHE_HITS_FIELD_NUMBER = 6;
+    private long compileCacheHits_;
+
+    /**
+     * <code>optional int64 compile_cache_hits = 6;</code>
+     */
+    @Override
+    public boolean hasCompileCacheHits() {
+      return ((bitField0_ & 0x00000010) == 0x00000010);
+    }
+
+    /**
+     * <code>optional int64 compile_cache_hits = 6;</code>
+     */
+    @Override
+    public long getCompileCacheHits() {
+      return compileCacheHits_;
+    }
+
+    public static final int COMPILE_CACHE_MISSES_FIELD_NUMBER = 7;
+    private long compileCacheMisses_;
+
+    /**
+     * <code>optional int64 compile_cache_misses = 7;</code>
+     */
+    @Override
+    public boolean hasCompileCacheMisses() {
+      return ((bitField0_ & 0x00000020) == 0x00000020);
+    }
+
+    /**
+     * <code>optional int64 compile_cache_misses = 7;</code>
+     */
+    @Override
+    public long getCompileCacheMisses() {
+      return compileCacheMisses_;
+    }
+
+    public static final int COMPILE_NANOS_FIELD_NUMBER = 8;
+    private long compileNanos_;
+
+    /**
+     * <code>optional int64 compile_nanos = 8;</code>
+     */
+    @Override
+    public boolean hasCompileNanos() {
+      return ((bitField0_ & 0x00000040) == 0x00000040);
+    }
+
+    /**
+     * <code>optional int64 compile_nanos = 8;</code>
+     */
+    @Override
+    public long getCompileNanos() {
+      return compileNanos_;
+    }
+
+    public static final int COMPILE_CACHE_SIZE_FIELD_NUMBER = 9;
+    private long compileCacheSize_;
+
+    /**
+     * <code>optional int64 compile_cache_size = 9;</code>
+     */
+    @Override
+    public boolean hasCompileCacheSize() {
+      return ((bitField0_ & 0x00000080) == 0x00000080);
+    }
+
+    /**
+     * <code>optional int64 compile_cache_size = 9;</code>
+     */
+    @Override
+    public long getCompileCacheSize() {
+      return compileCacheSize_;
+    }
+
+    private void initFields() {
+      heapUsedBytes_ = 0L;
+      heapMaxBytes_ = 0L;
+      slots_ = 0;
+      slotsInUse_ = 0;
+      querySlotUsage_ = java.util.Collections.emptyList();
+      compileCacheHits_ = 0L;
+      compileCacheMisses_ = 0L;
+      compileNanos_ = 0L;
+      compileCacheSize_ = 0L;
+    }
+
+    private byte memoizedIsInitialized = -1;
+
+    @Override
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) {
+        return true;
+      }
+      if (isInitialized == 0) {
+        return false;
+      }
+
+      if (!hasHeapUsedBytes()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasHeapMaxBytes()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      for (int i = 0; i < getQuerySlotUsageCount(); i++) {
+        if (!getQuerySlotUsage(i).isInitialized()) {
+          memoizedIsInitialized = 0;
+          return false;
+        }
+      }
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    @Override
+    public void writeTo(final com.google.protobuf.CodedOutputStream output) throws java.io.IOException {
+      getSerializedSize();
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeInt64(1, heapUsedBytes_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        output.writeInt64(2, heapMaxBytes_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        output.writeInt32(3, slots_);
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        output.writeInt32(4, slotsInUse_);
+      }
+      for (int i = 0; i < querySlotUsage_.size(); i++) {
+        output.writeMessage(5, querySlotUsage_.get(i));
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        output.writeInt64(6, compileCacheHits_);
+      }
+      if (((bitField0_ & 0x00000020) == 0x00000020)) {
+        output.writeInt64(7, compileCacheMisses_);
+      }
+      if (((bitField0_ & 0x00000040) == 0x00000040)) {
+        output.writeInt64(8, compileNanos_);
+      }
+      if (((bitField0_ & 0x00000080) == 0x00000080)) {
+        output.writeInt64(9, compileCacheSize_);
+      }
+      getUnknownFields().writeTo(output);
+    }
+
+    private int memoizedSerializedSize = -1;
+
+    @Override
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) {
+        return size;
+      }
+
+      size = 0;
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream.computeInt64Size(1, heapUsedBytes_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        size += com.google.protobuf.CodedOutputStream.computeInt64Size(2, heapMaxBytes_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        size += com.google.protobuf.CodedOutputStream.computeInt32Size(3, slots_);
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        size += com.google.protobuf.CodedOutputStream.computeInt32Size(4, slotsInUse_);
+      }
+      for (int i = 0; i < querySlotUsage_.size(); i++) {
+        size += com.google.protobuf.CodedOutputStream.computeMessageSize(5, querySlotUsage_.get(i));
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        size += com.google.protobuf.CodedOutputStream.computeInt64Size(6, compileCacheHits_);
+      }
+      if (((bitField0_ & 0x00000020) == 0x00000020)) {
+        size += com.google.protobuf.CodedOutputStream.computeInt64Size(7, compileCacheMisses_);
+      }
+      if (((bitField0_ & 0x00000040) == 0x00000040)) {
+        size += com.google.protobuf.CodedOutputStream.computeInt64Size(8, compileNanos_);
+      }
+      if (((bitField0_ & 0x00000080) == 0x00000080)) {
+        size += com.google.protobuf.CodedOutputStream.computeInt64Size(9, compileCacheSize_);
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+
+    private static final long serialVersionUID = 0L;
+
+    @java.lang.Override
+    protected java.lang.Object writeReplace() throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.WorkerLoad parseFrom(
+        final com.google.protobuf.ByteString data) throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.WorkerLoad parseFrom(
+        final com.google.protobuf.ByteString data, final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.WorkerLoad parseFrom(final byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.WorkerLoad parseFrom(final byte[] data,
+        final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.WorkerLoad parseFrom(final java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.WorkerLoad parseFrom(
+        final java.io.InputStream input, final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.WorkerLoad parseDelimitedFrom(
+        final java.io.InputStream input) throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.WorkerLoad parseDelimitedFrom(
+        final java.io.InputStream input, final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input, extensionRegistry);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.WorkerLoad parseFrom(
+        final com.google.protobuf.CodedInputStream input) throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.WorkerLoad parseFrom(
+        final com.google.protobuf.CodedInputStream input,
+        final com.google.protobuf.ExtensionRegistryLite extensionRegistry) throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static Builder newBuilder() {
+      return Builder.create();
+    }
+
+    @Override
+    public Builder newBuilderForType() {
+      return newBuilder();
+    }
+
+    public static Builder newBuilder(final edu.washington.escience.myria.proto.ControlProto.WorkerLoad prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+
+    @Override
+    public Builder toBuilder() {
+      return newBuilder(this);
+    }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(final com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+
+    /**
+     * Protobuf type {@code WorkerLoad}
+     */
+    public static final class Builder extends com.google.protobuf.GeneratedMessage.Builder<Builder> implements
+    // @@protoc_insertion_point(builder_implements:WorkerLoad)
+        edu.washington.escience.myria.proto.ControlProto.WorkerLoadOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor getDescriptor() {
+        return edu.washington.escience.myria.proto.ControlProto.internal_static_WorkerLoad_descriptor;
+      }
+
+      @Override
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable internalGetFieldAccessorTable() {
+        return edu.washington.escience.myria.proto.ControlProto.internal_static_WorkerLoad_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(edu.washington.escience.myria.proto.ControlProto.WorkerLoad.class,
+                edu.washington.escience.myria.proto.ControlProto.WorkerLoad.Builder.class);
+      }
+
+      // Construct using edu.washington.escience.myria.proto.ControlProto.WorkerLoad.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(final com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+          getQuerySlotUsageFieldBuilder();
+        }
+      }
+
+      private static Builder create() {
+        return new Builder();
+      }
+
+      @Override
+      public Builder clear() {
+        super.clear();
+        heapUsedBytes_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000001);
+        heapMaxBytes_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000002);
+        slots_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000004);
+        slotsInUse_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000008);
+        if (querySlotUsageBuilder_ == null) {
+          querySlotUsage_ = java.util.Collections.emptyList();
+          bitField0_ = (bitField0_ & ~0x00000010);
+        } else {
+          querySlotUsageBuilder_.clear();
+        }
+        compileCacheHits_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000020);
+        compileCacheMisses_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000040);
+        compileNanos_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000080);
+        compileCacheSize_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000100);
+        return this;
+      }
+
+      @Override
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+
+      @Override
+      public com.google.protobuf.Descriptors.Descriptor getDescriptorForType() {
+        return edu.washington.escience.myria.proto.ControlProto.internal_static_WorkerLoad_descriptor;
+      }
+
+      @Override
+      public edu.washington.escience.myria.proto.ControlProto.WorkerLoad getDefaultInstanceForType() {
+        return edu.washington.escience.myria.proto.ControlProto.WorkerLoad.getDefaultInstance();
+      }
+
+      @Override
+      public edu.washington.escience.myria.proto.ControlProto.WorkerLoad build() {
+        edu.washington.escience.myria.proto.ControlProto.WorkerLoad result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      @Override
+      public edu.washington.escience.myria.proto.ControlProto.WorkerLoad buildPartial() {
+        edu.washington.escience.myria.proto.ControlProto.WorkerLoad result =
+            new edu.washington.escience.myria.proto.ControlProto.WorkerLoad(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        result.heapUsedBytes_ = heapUsedBytes_;
+        if (((from_bitField0_ & 0x00000002) == 0x00000002)) {
+          to_bitField0_ |= 0x00000002;
+        }
+        result.heapMaxBytes_ = heapMaxBytes_;
+        if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
+          to_bitField0_ |= 0x00000004;
+        }
+        result.slots_ = slots_;
+        if (((from_bitField0_ & 0x00000008) == 0x00000008)) {
+          to_bitField0_ |= 0x00000008;
+        }
+        result.slotsInUse_ = slotsInUse_;
+        if (querySlotUsageBuilder_ == null) {
+          if (((bitField0_ & 0x00000010) == 0x00000010)) {
+            querySlotUsage_ = java.util.Collections.unmodifiableList(querySlotUsage_);
+            bitField0_ = (bitField0_ & ~0x00000010);
+          }
+          result.querySlotUsage_ = querySlotUsage_;
+        } else {
+          result.querySlotUsage_ = querySlotUsageBuilder_.build();
+        }
+        if (((from_bitField0_ & 0x00000020) == 0x00000020)) {
+          to_bitField0_ |= 0x00000010;
+        }
+        result.compileCacheHits_ = compileCacheHits_;
+        if (((from_bitField0_ & 0x00000040) == 0x00000040)) {
+          to_bitField0_ |= 0x00000020;
+        }
+        result.compileCacheMisses_ = compileCacheMisses_;
+        if (((from_bitField0_ & 0x00000080) == 0x00000080)) {
+          to_bitField0_ |= 0x00000040;
+        }
+        result.compileNanos_ = compileNanos_;
+        if (((from_bitField0_ & 0x00000100) == 0x00000100)) {
+          to_bitField0_ |= 0x00000080;
+        }
+        result.compileCacheSize_ = compileCacheSize_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      @Override
+      public Builder mergeFrom(final com.google.protobuf.Message other) {
+        if (other instanceof edu.washington.escience.myria.proto.ControlProto.WorkerLoad) {
+          return mergeFrom((edu.washington.escience.myria.proto.ControlProto.WorkerLoad) other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(final edu.washington.escience.myria.proto.ControlProto.WorkerLoad other) {
+        if (other == edu.washington.escience.myria.proto.ControlProto.WorkerLoad.getDefaultInstance()) {
+          return this;
+        }
+        if (other.hasHeapUsedBytes()) {
+          setHeapUsedBytes(other.getHeapUsedBytes());
+        }
+        if (other.hasHeapMaxBytes()) {
+          setHeapMaxBytes(other.getHeapMaxBytes());
+        }
+        if (other.hasSlots()) {
+          setSlots(other.getSlots());
+        }
+        if (other.hasSlotsInUse()) {
+          setSlotsInUse(other.getSlotsInUse());
+        }
+        if (querySlotUsageBuilder_ == null) {
+          if (!other.querySlotUsage_.isEmpty()) {
+            if (querySlotUsage_.isEmpty()) {
+              querySlotUsage_ = other.querySlotUsage_;
+              bitField0_ = (bitField0_ & ~0x00000010);
+            } else {
+              ensureQuerySlotUsageIsMutable();
+              querySlotUsage_.addAll(other.querySlotUsage_);
+            }
+            onChanged();
+          }
+        } else {
+          if (!other.querySlotUsage_.isEmpty()) {
+            if (querySlotUsageBuilder_.isEmpty()) {
+              querySlotUsageBuilder_.dispose();
+              querySlotUsageBuilder_ = null;
+              querySlotUsage_ = other.querySlotUsage_;
+              bitField0_ = (bitField0_ & ~0x00000010);
+              querySlotUsageBuilder_ =
+                  com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders ? getQuerySlotUsageFieldBuilder() : null;
+            } else {
+              querySlotUsageBuilder_.addAllMessages(other.querySlotUsage_);
+            }
+          }
+        }
+        if (other.hasCompileCacheHits()) {
+          setCompileCacheHits(other.getCompileCacheHits());
+        }
+        if (other.hasCompileCacheMisses()) {
+          setCompileCacheMisses(other.getCompileCacheMisses());
+        }
+        if (other.hasCompileNanos()) {
+          setCompileNanos(other.getCompileNanos());
+        }
+        if (other.hasCompileCacheSize()) {
+          setCompileCacheSize(other.getCompileCacheSize());
+        }
+        mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+
+      @Override
+      public final boolean isInitialized() {
+        if (!hasHeapUsedBytes()) {
+
+          return false;
+        }
+        if (!hasHeapMaxBytes()) {
+
+          return false;
+        }
+        for (int i = 0; i < getQuerySlotUsageCount(); i++) {
+          if (!getQuerySlotUsage(i).isInitialized()) {
+
+            return false;
+          }
+        }
+        return true;
+      }
+
+      @Override
+      public Builder mergeFrom(final com.google.protobuf.CodedInputStream input,
+          final com.google.protobuf.ExtensionRegistryLite extensionRegistry) throws java.io.IOException {
+        edu.washington.escience.myria.proto.ControlProto.WorkerLoad parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (edu.washington.escience.myria.proto.ControlProto.WorkerLoad) e.getUnfinishedMessage();
+          throw e;
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+
+      private int bitField0_;
+
+      private long heapUsedBytes_;
+
+      /**
+       * <code>required int64 heap_used_bytes = 1;</code>
+       */
+      @Override
+      public boolean hasHeapUsedBytes() {
+        return ((bitField0_ & 0x00000001) == 0x00000001);
+      }
+
+      /**
+       * <code>required int64 heap_used_bytes = 1;</code>
+       */
+      @Override
+      public long getHeapUsedBytes() {
+        return heapUsedBytes_;
+      }
+
+      /**
+       * <code>required int64 heap_used_bytes = 1;</code>
+       */
+      public Builder setHeapUsedBytes(final long value) {
+        bitField0_ |= 0x00000001;
+        heapUsedBytes_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>required int64 heap_used_bytes = 1;</code>
+       */
+      public Builder clearHeapUsedBytes() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        heapUsedBytes_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private long heapMaxBytes_;
+
+      /**
+       * <code>required int64 heap_max_bytes = 2;</code>
+       */
+      @Override
+      public boolean hasHeapMaxBytes() {
+        return ((bitField0_ & 0x00000002) == 0x00000002);
+      }
+
+      /**
+       * <code>required int64 heap_max_bytes = 2;</code>
+       */
+      @Override
+      public long getHeapMaxBytes() {
+        return heapMaxBytes_;
+      }
+
+      /**
+       * <code>required int64 heap_max_bytes = 2;</code>
+       */
+      public Builder setHeapMaxBytes(final long value) {
+        bitField0_ |= 0x00000002;
+        heapMaxBytes_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>required int64 heap_max_bytes = 2;</code>
+       */
+      public Builder clearHeapMaxBytes() {
+        bitField0_ = (bitField0_ & ~0x00000002);
+        heapMaxBytes_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private int slots_;
+
+      /**
+       * <code>optional int32 slots = 3;</code>
+       *
+       * <pre>
+       * the number of fragment execution slots
+       * </pre>
+       */
+      @Override
+      public boolean hasSlots() {
+        return ((bitField0_ & 0x00000004) == 0x00000004);
+      }
+
+      /**
+       * <code>optional int32 slots = 3;</code>
+       *
+       * <pre>
+       * the number of fragment execution slots
+       * </pre>
+       */
+      @Override
+      public int getSlots() {
+        return slots_;
+      }
+
+      /**
+       * <code>optional int32 slots = 3;</code>
+       *
+       * <pre>
+       * the number of fragment execution slots
+       * </pre>
+       */
+      public Builder setSlots(final int value) {
+        bitField0_ |= 0x00000004;
+        slots_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>optional int32 slots = 3;</code>
+       *
+       * <pre>
+       * the number of fragment execution slots
+       * </pre>
+       */
+      public Builder clearSlots() {
+        bitField0_ = (bitField0_ & ~0x00000004);
+        slots_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private int slotsInUse_;
+
+      /**
+       * <code>optional int32 slots_in_use = 4;</code>
+       */
+      @Override
+      public boolean hasSlotsInUse() {
+        return ((bitField0_ & 0x00000008) == 0x00000008);
+      }
+
+      /**
+       * <code>optional int32 slots_in_use = 4;</code>
+       */
+      @Override
+      public int getSlotsInUse() {
+        return slotsInUse_;
+      }
+
+      /**
+       * <code>optional int32 slots_in_use = 4;</code>
+       */
+      public Builder setSlotsInUse(final int value) {
+        bitField0_ |= 0x00000008;
+        slotsInUse_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>optional int32 slots_in_use = 4;</code>
+       */
+      public Builder clearSlotsInUse() {
+        bitField0_ = (bitField0_ & ~0x00000008);
+        slotsInUse_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private java.util.List<edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage> querySlotUsage_ =
+          java.util.Collections.emptyList();
+
+      private void ensureQuerySlotUsageIsMutable() {
+        if (!((bitField0_ & 0x00000010) == 0x00000010)) {
+          querySlotUsage_ =
+              new java.util.ArrayList<edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage>(querySlotUsage_);
+          bitField0_ |= 0x00000010;
+        }
+      }
+
+      private com.google.protobuf.RepeatedFieldBuilder<edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage, edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage.Builder, edu.washington.escience.myria.proto.ControlProto.QuerySlotUsageOrBuilder> querySlotUsageBuilder_;
+
+      /**
+       * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+       */
+      @Override
+      public java.util.List<edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage> getQuerySlotUsageList() {
+        if (querySlotUsageBuilder_ == null) {
+          return java.util.Collections.unmodifiableList(querySlotUsage_);
+        } else {
+          return querySlotUsageBuilder_.getMessageList();
+        }
+      }
+
+      /**
+       * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+       */
+      @Override
+      public int getQuerySlotUsageCount() {
+        if (querySlotUsageBuilder_ == null) {
+          return querySlotUsage_.size();
+        } else {
+          return querySlotUsageBuilder_.getCount();
+        }
+      }
+
+      /**
+       * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+       */
+      @Override
+      public edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage getQuerySlotUsage(final int index) {
+        if (querySlotUsageBuilder_ == null) {
+          return querySlotUsage_.get(index);
+        } else {
+          return querySlotUsageBuilder_.getMessage(index);
+        }
+      }
+
+      /**
+       * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+       */
+      public Builder setQuerySlotUsage(final int index,
+          final edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage value) {
+        if (querySlotUsageBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureQuerySlotUsageIsMutable();
+          querySlotUsage_.set(index, value);
+          onChanged();
+        } else {
+          querySlotUsageBuilder_.setMessage(index, value);
+        }
+        return this;
+      }
+
+      /**
+       * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+       */
+      public Builder setQuerySlotUsage(final int index,
+          final edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage.Builder builderForValue) {
+        if (querySlotUsageBuilder_ == null) {
+          ensureQuerySlotUsageIsMutable();
+          querySlotUsage_.set(index, builderForValue.build());
+          onChanged();
+        } else {
+          querySlotUsageBuilder_.setMessage(index, builderForValue.build());
+        }
+        return this;
+      }
+
+      /**
+       * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+       */
+      public Builder addQuerySlotUsage(final edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage value) {
+        if (querySlotUsageBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureQuerySlotUsageIsMutable();
+          querySlotUsage_.add(value);
+          onChanged();
+        } else {
+          querySlotUsageBuilder_.addMessage(value);
+        }
+        return this;
+      }
+
+      /**
+       * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+       */
+      public Builder addQuerySlotUsage(final int index,
+          final edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage value) {
+        if (querySlotUsageBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureQuerySlotUsageIsMutable();
+          querySlotUsage_.add(index, value);
+          onChanged();
+        } else {
+          querySlotUsageBuilder_.addMessage(index, value);
+        }
+        return this;
+      }
+
+      /**
+       * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+       */
+      public Builder addQuerySlotUsage(
+          final edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage.Builder builderForValue) {
+        if (querySlotUsageBuilder_ == null) {
+          ensureQuerySlotUsageIsMutable();
+          querySlotUsage_.add(builderForValue.build());
+          onChanged();
+        } else {
+          querySlotUsageBuilder_.addMessage(builderForValue.build());
+        }
+        return this;
+      }
+
+      /**
+       * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+       */
+      public Builder addQuerySlotUsage(final int index,
+          final edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage.Builder builderForValue) {
+        if (querySlotUsageBuilder_ == null) {
+          ensureQuerySlotUsageIsMutable();
+          querySlotUsage_.add(index, builderForValue.build());
+          onChanged();
+        } else {
+          querySlotUsageBuilder_.addMessage(index, builderForValue.build());
+        }
+        return this;
+      }
+
+      /**
+       * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+       */
+      public Builder addAllQuerySlotUsage(
+          final java.lang.Iterable<? extends edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage> values) {
+        if (querySlotUsageBuilder_ == null) {
+          ensureQuerySlotUsageIsMutable();
+          com.google.protobuf.AbstractMessageLite.Builder.addAll(values, querySlotUsage_);
+          onChanged();
+        } else {
+          querySlotUsageBuilder_.addAllMessages(values);
+        }
+        return this;
+      }
+
+      /**
+       * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+       */
+      public Builder clearQuerySlotUsage() {
+        if (querySlotUsageBuilder_ == null) {
+          querySlotUsage_ = java.util.Collections.emptyList();
+          bitField0_ = (bitField0_ & ~0x00000010);
+          onChanged();
+        } else {
+          querySlotUsageBuilder_.clear();
+        }
+        return this;
+      }
+
+      /**
+       * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+       */
+      public Builder removeQuerySlotUsage(final int index) {
+        if (querySlotUsageBuilder_ == null) {
+          ensureQuerySlotUsageIsMutable();
+          querySlotUsage_.remove(index);
+          onChanged();
+        } else {
+          querySlotUsageBuilder_.remove(index);
+        }
+        return this;
+      }
+
+      /**
+       * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+       */
+      public edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage.Builder getQuerySlotUsageBuilder(
+          final int index) {
+        return getQuerySlotUsageFieldBuilder().getBuilder(index);
+      }
+
+      /**
+       * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+       */
+      @Override
+      public edu.washington.escience.myria.proto.ControlProto.QuerySlotUsageOrBuilder getQuerySlotUsageOrBuilder(
+          final int index) {
+        if (querySlotUsageBuilder_ == null) {
+          return querySlotUsage_.get(index);
+        } else {
+          return querySlotUsageBuilder_.getMessageOrBuilder(index);
+        }
+      }
+
+      /**
+       * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+       */
+      @Override
+      public java.util.List<? extends edu.washington.escience.myria.proto.ControlProto.QuerySlotUsageOrBuilder> getQuerySlotUsageOrBuilderList() {
+        if (querySlotUsageBuilder_ != null) {
+          return querySlotUsageBuilder_.getMessageOrBuilderList();
+        } else {
+          return java.util.Collections.unmodifiableList(querySlotUsage_);
+        }
+      }
+
+      /**
+       * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+       */
+      public edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage.Builder addQuerySlotUsageBuilder() {
+        return getQuerySlotUsageFieldBuilder().addBuilder(
+            edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage.getDefaultInstance());
+      }
+
+      /**
+       * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+       */
+      public edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage.Builder addQuerySlotUsageBuilder(
+          final int index) {
+        return getQuerySlotUsageFieldBuilder().addBuilder(index,
+            edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage.getDefaultInstance());
+      }
+
+      /**
+       * <code>repeated .QuerySlotUsage query_slot_usage = 5;</code>
+       */
+      public java.util.List<edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage.Builder> getQuerySlotUsageBuilderList() {
+        return getQuerySlotUsageFieldBuilder().getBuilderList();
+      }
+
+      private com.google.protobuf.RepeatedFieldBuilder<edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage, edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage.Builder, edu.washington.escience.myria.proto.ControlProto.QuerySlotUsageOrBuilder> getQuerySlotUsageFieldBuilder() {
+        if (querySlotUsageBuilder_ == null) {
+          querySlotUsageBuilder_ =
+              new com.google.protobuf.RepeatedFieldBuilder<edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage, edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage.Builder, edu.washington.escience.myria.proto.ControlProto.QuerySlotUsageOrBuilder>(
+                  querySlotUsage_, ((bitField0_ & 0x00000010) == 0x00000010), getParentForChildren(), isClean());
+          querySlotUsage_ = null;
+        }
+        return querySlotUsageBuilder_;
+      }
+
+      private long compileCacheHits_;
+
+      /**
+       * <code>optional int64 compile_cache_hits = 6;</code>
+       */
+      @Override
+      public boolean hasCompileCacheHits() {
+        return ((bitField0_ & 0x00000020) == 0x00000020);
+      }
+
+      /**
+       * <code>optional int64 compile_cache_hits = 6;</code>
+       */
+      @Override
+      public long getCompileCacheHits() {
+        return compileCacheHits_;
+      }
+
+      /**
+       * <code>optional int64 compile_cache_hits = 6;</code>
+       */
+      public Builder setCompileCacheHits(final long value) {
+        bitField0_ |= 0x00000020;
+        compileCacheHits_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>optional int64 compile_cache_hits = 6;</code>
+       */
+      public Builder clearCompileCacheHits() {
+        bitField0_ = (bitField0_ & ~0x00000020);
+        compileCacheHits_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private long compileCacheMisses_;
+
+      /**
+       * <code>optional int64 compile_cache_misses = 7;</code>
+       */
+      @Override
+      public boolean hasCompileCacheMisses() {
+        return ((bitField0_ & 0x00000040) == 0x00000040);
+      }
+
+      /**
+       * <code>optional int64 compile_cache_misses = 7;</code>
+       */
+      @Override
+      public long getCompileCacheMisses() {
+        return compileCacheMisses_;
+      }
+
+      /**
+       * <code>optional int64 compile_cache_misses = 7;</code>
+       */
+      public Builder setCompileCacheMisses(final long value) {
+        bitField0_ |= 0x00000040;
+        compileCacheMisses_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>optional int64 compile_cache_misses = 7;</code>
+       */
+      public Builder clearCompileCacheMisses() {
+        bitField0_ = (bitField0_ & ~0x00000040);
+        compileCacheMisses_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private long compileNanos_;
+
+      /**
+       * <code>optional int64 compile_nanos = 8;</code>
+       */
+      @Override
+      public boolean hasCompileNanos() {
+        return ((bitField0_ & 0x00000080) == 0x00000080);
+      }
+
+      /**
+       * <code>optional int64 compile_nanos = 8;</code>
+       */
+      @Override
+      public long getCompileNanos() {
+        return compileNanos_;
+      }
+
+      /**
+       * <code>optional int64 compile_nanos = 8;</code>
+       */
+      public Builder setCompileNanos(final long value) {
+        bitField0_ |= 0x00000080;
+        compileNanos_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>optional int64 compile_nanos = 8;</code>
+       */
+      public Builder clearCompileNanos() {
+        bitField0_ = (bitField0_ & ~0x00000080);
+        compileNanos_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private long compileCacheSize_;
+
+      /**
+       * <code>optional int64 compile_cache_size = 9;</code>
+       */
+      @Override
+      public boolean hasCompileCacheSize() {
+        return ((bitField0_ & 0x00000100) == 0x00000100);
+      }
+
+      /**
+       * <code>optional int64 compile_cache_size = 9;</code>
+       */
+      @Override
+      public long getCompileCacheSize() {
+        return compileCacheSize_;
+      }
+
+      /**
+       * <code>optional int64 compile_cache_size = 9;</code>
+       */
+      public Builder setCompileCacheSize(final long value) {
+        bitField0_ |= 0x00000100;
+        compileCacheSize_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>optional int64 compile_cache_size = 9;</code>
+       */
+      public Builder clearCompileCacheSize() {
+        bitField0_ = (bitField0_ & ~0x00000100);
+        compileCacheSize_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      // @@protoc_insertion_point(builder_scope:WorkerLoad)
+    }
+
+    static {
+      defaultInstance = new WorkerLoad(true);
+      defaultInstance.initFields();
+    }
+
+    // @@protoc_insertion_point(class_scope:WorkerLoad)
+  }
+
+  public interface QuerySlotUsageOrBuilder extends
+  // @@protoc_insertion_point(interface_extends:QuerySlotUsage)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>required int64 query_id = 1;</code>
+     */
+    boolean hasQueryId();
+
+    /**
+     * <code>required int64 query_id = 1;</code>
+     */
+    long getQueryId();
+
+    /**
+     * <code>required int64 slot_nanos = 2;</code>
+     */
+    boolean hasSlotNanos();
+
+    /**
+     * <code>required int64 slot_nanos = 2;</code>
+     */
+    long getSlotNanos();
+
+    /**
+     * <code>required int32 slots_in_use = 3;</code>
+     */
+    boolean hasSlotsInUse();
+
+    /**
+     * <code>required int32 slots_in_use = 3;</code>
+     */
+    int getSlotsInUse();
+
+    /**
+     * <code>required int32 waiting_fragments = 4;</code>
+     */
+    boolean hasWaitingFragments();
+
+    /**
+     * <code>required int32 waiting_fragments = 4;</code>
+     */
+    int getWaitingFragments();
+
+    /**
+     * <code>required int64 subquery_id = 5;</code>
+     */
+    boolean hasSubqueryId();
+
+    /**
+     * <code>required int64 subquery_id = 5;</code>
+     */
+    long getSubqueryId();
+  }
+  /**
+   * Protobuf type {@code QuerySlotUsage}
+   */
+  public static final class QuerySlotUsage extends com.google.protobuf.GeneratedMessage implements
+  // @@protoc_insertion_point(message_implements:QuerySlotUsage)
+      QuerySlotUsageOrBuilder {
+    // Use QuerySlotUsage.newBuilder() to construct.
+    private QuerySlotUsage(final com.google.protobuf.GeneratedMessage.Builder<?> builder) {
+      super(builder);
+      unknownFields = builder.getUnknownFields();
+    }
+
+    private QuerySlotUsage(final boolean noInit) {
+      unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance();
+    }
+
+    private static final QuerySlotUsage defaultInstance;
+
+    public static QuerySlotUsage getDefaultInstance() {
+      return defaultInstance;
+    }
+
+    @Override
+    public QuerySlotUsage getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet getUnknownFields() {
+      return unknownFields;
+    }
+
+    private QuerySlotUsage(final com.google.protobuf.CodedInputStream input,
+        final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      initFields();
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields = com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            default: {
+              if (!parseUnknownField(input, unknownFields, extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+            case 8: {
+              bitField0_ |= 0x00000001;
+              queryId_ = input.readInt64();
+              break;
+            }
+            case 16: {
+              bitField0_ |= 0x00000002;
+              slotNanos_ = input.readInt64();
+              break;
+            }
+            case 24: {
+              bitField0_ |= 0x00000004;
+              slotsInUse_ = input.readInt32();
+              break;
+            }
+            case 32: {
+              bitField0_ |= 0x00000008;
+              waitingFragments_ = input.readInt32();
+              break;
+            }
+            case 40: {
+              bitField0_ |= 0x00000010;
+              subqueryId_ = input.readInt64();
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(e.getMessage()).setUnfinishedMessage(this);
+      } finally {
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+
+    public static final com.google.protobuf.Descriptors.Descriptor getDescriptor() {
+      return edu.washington.escience.myria.proto.ControlProto.internal_static_QuerySlotUsage_descriptor;
+    }
+
+    @Override
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable internalGetFieldAccessorTable() {
+      return edu.washington.escience.myria.proto.ControlProto.internal_static_QuerySlotUsage_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage.class,
+              edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage.Builder.class);
+    }
+
+    public static com.google.protobuf.Parser<QuerySlotUsage> PARSER =
+        new com.google.protobuf.AbstractParser<QuerySlotUsage>() {
+          @Override
+          public QuerySlotUsage parsePartialFrom(final com.google.protobuf.CodedInputStream input,
+              final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+              throws com.google.protobuf.InvalidProtocolBufferException {
+            return new QuerySlotUsage(input, extensionRegistry);
+          }
+        };
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<QuerySlotUsage> getParserForType() {
+      return PARSER;
+    }
+
+    private int bitField0_;
+    public static final int QUERY_ID_FIELD_NUMBER = 1;
+    private long queryId_;
+
+    /**
+     * <code>required int64 query_id = 1;</code>
+     */
+    @Override
+    public boolean hasQueryId() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+
+    /**
+     * <code>required int64 query_id = 1;</code>
+     */
+    @Override
+    public long getQueryId() {
+      return queryId_;
+    }
+
+    public static final int SLOT_NANOS_FIELD_NUMBER = 2;
+    private long slotNanos_;
+
+    /**
+     * <code>required int64 slot_nanos = 2;</code>
+     */
+    @Override
+    public boolean hasSlotNanos() {
+      return ((bitField0_ & 0x00000002) == 0x00000002);
+    }
+
+    /**
+     * <code>required int64 slot_nanos = 2;</code>
+     */
+    @Override
+    public long getSlotNanos() {
+      return slotNanos_;
+    }
+
+    public static final int SLOTS_IN_USE_FIELD_NUMBER = 3;
+    private int slotsInUse_;
+
+    /**
+     * <code>required int32 slots_in_use = 3;</code>
+     */
+    @Override
+    public boolean hasSlotsInUse() {
+      return ((bitField0_ & 0x00000004) == 0x00000004);
+    }
+
+    /**
+     * <code>required int32 slots_in_use = 3;</code>
+     */
+    @Override
+    public int getSlotsInUse() {
+      return slotsInUse_;
+    }
+
+    public static final int WAITING_FRAGMENTS_FIELD_NUMBER = 4;
+    private int waitingFragments_;
+
+    /**
+     * <code>required int32 waiting_fragments = 4;</code>
+     */
+    @Override
+    public boolean hasWaitingFragments() {
+      return ((bitField0_ & 0x00000008) == 0x00000008);
+    }
+
+    /**
+     * <code>required int32 waiting_fragments = 4;</code>
+     */
+    @Override
+    public int getWaitingFragments() {
+      return waitingFragments_;
+    }
+
+    public static final int SUBQUERY_ID_FIELD_NUMBER = 5;
+    private long subqueryId_;
+
+    /**
+     * <code>required int64 subquery_id = 5;</code>
+     */
+    @Override
+    public boolean hasSubqueryId() {
+      return ((bitField0_ & 0x00000010) == 0x00000010);
+    }
+
+    /**
+     * <code>required int64 subquery_id = 5;</code>
+     */
+    @Override
+    public long getSubqueryId() {
+      return subqueryId_;
+    }
+
+    private void initFields() {
+      queryId_ = 0L;
+      slotNanos_ = 0L;
+      slotsInUse_ = 0;
+      waitingFragments_ = 0;
+      subqueryId_ = 0L;
+    }
+
+    private byte memoizedIsInitialized = -1;
+
+    @Override
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) {
+        return true;
+      }
+      if (isInitialized == 0) {
+        return false;
+      }
+
+      if (!hasQueryId()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasSlotNanos()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasSlotsInUse()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasWaitingFragments()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasSubqueryId()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    @Override
+    public void writeTo(final com.google.protobuf.CodedOutputStream output) throws java.io.IOException {
+      getSerializedSize();
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeInt64(1, queryId_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        output.writeInt64(2, slotNanos_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        output.writeInt32(3, slotsInUse_);
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        output.writeInt32(4, waitingFragments_);
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        output.writeInt64(5, subqueryId_);
+      }
+      getUnknownFields().writeTo(output);
+    }
+
+    private int memoizedSerializedSize = -1;
+
+    @Override
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) {
+        return size;
+      }
+
+      size = 0;
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream.computeInt64Size(1, queryId_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        size += com.google.protobuf.CodedOutputStream.computeInt64Size(2, slotNanos_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        size += com.google.protobuf.CodedOutputStream.computeInt32Size(3, slotsInUse_);
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        size += com.google.protobuf.CodedOutputStream.computeInt32Size(4, waitingFragments_);
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        size += com.google.protobuf.CodedOutputStream.computeInt64Size(5, subqueryId_);
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+
+    private static final long serialVersionUID = 0L;
+
+    @java.lang.Override
+    protected java.lang.Object writeReplace() throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage parseFrom(
+        final com.google.protobuf.ByteString data) throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage parseFrom(
+        final com.google.protobuf.ByteString data, final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage parseFrom(final byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage parseFrom(final byte[] data,
+        final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage parseFrom(
+        final java.io.InputStream input) throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage parseFrom(
+        final java.io.InputStream input, final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage parseDelimitedFrom(
+        final java.io.InputStream input) throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage parseDelimitedFrom(
+        final java.io.InputStream input, final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input, extensionRegistry);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage parseFrom(
+        final com.google.protobuf.CodedInputStream input) throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+
+    public static edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage parseFrom(
+        final com.google.protobuf.CodedInputStream input,
+        final com.google.protobuf.ExtensionRegistryLite extensionRegistry) throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static Builder newBuilder() {
+      return Builder.create();
+    }
+
+    @Override
+    public Builder newBuilderForType() {
+      return newBuilder();
+    }
+
+    public static Builder newBuilder(final edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+
+    @Override
+    public Builder toBuilder() {
+      return newBuilder(this);
+    }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(final com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+
+    /**
+     * Protobuf type {@code QuerySlotUsage}
+     */
+    public static final class Builder extends com.google.protobuf.GeneratedMessage.Builder<Builder> implements
+    // @@protoc_insertion_point(builder_implements:QuerySlotUsage)
+        edu.washington.escience.myria.proto.ControlProto.QuerySlotUsageOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor getDescriptor() {
+        return edu.washington.escience.myria.proto.ControlProto.internal_static_QuerySlotUsage_descriptor;
+      }
+
+      @Override
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable internalGetFieldAccessorTable() {
+        return edu.washington.escience.myria.proto.ControlProto.internal_static_QuerySlotUsage_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage.class,
+                edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage.Builder.class);
+      }
+
+      // Construct using edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(final com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+        }
+      }
+
+      private static Builder create() {
+        return new Builder();
+      }
+
+      @Override
+      public Builder clear() {
+        super.clear();
+        queryId_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000001);
+        slotNanos_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000002);
+        slotsInUse_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000004);
+        waitingFragments_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000008);
+        subqueryId_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000010);
+        return this;
+      }
+
+      @Override
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+
+      @Override
+      public com.google.protobuf.Descriptors.Descriptor getDescriptorForType() {
+        return edu.washington.escience.myria.proto.ControlProto.internal_static_QuerySlotUsage_descriptor;
+      }
+
+      @Override
+      public edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage getDefaultInstanceForType() {
+        return edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage.getDefaultInstance();
+      }
+
+      @Override
+      public edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage build() {
+        edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      @Override
+      public edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage buildPartial() {
+        edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage result =
+            new edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        result.queryId_ = queryId_;
+        if (((from_bitField0_ & 0x00000002) == 0x00000002)) {
+          to_bitField0_ |= 0x00000002;
+        }
+        result.slotNanos_ = slotNanos_;
+        if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
+          to_bitField0_ |= 0x00000004;
+        }
+        result.slotsInUse_ = slotsInUse_;
+        if (((from_bitField0_ & 0x00000008) == 0x00000008)) {
+          to_bitField0_ |= 0x00000008;
+        }
+        result.waitingFragments_ = waitingFragments_;
+        if (((from_bitField0_ & 0x00000010) == 0x00000010)) {
+          to_bitField0_ |= 0x00000010;
+        }
+        result.subqueryId_ = subqueryId_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      @Override
+      public Builder mergeFrom(final com.google.protobuf.Message other) {
+        if (other instanceof edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage) {
+          return mergeFrom((edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage) other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(final edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage other) {
+        if (other == edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage.getDefaultInstance()) {
+          return this;
+        }
+        if (other.hasQueryId()) {
+          setQueryId(other.getQueryId());
+        }
+        if (other.hasSlotNanos()) {
+          setSlotNanos(other.getSlotNanos());
+        }
+        if (other.hasSlotsInUse()) {
+          setSlotsInUse(other.getSlotsInUse());
+        }
+        if (other.hasWaitingFragments()) {
+          setWaitingFragments(other.getWaitingFragments());
+        }
+        if (other.hasSubqueryId()) {
+          setSubqueryId(other.getSubqueryId());
+        }
+        mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+
+      @Override
+      public final boolean isInitialized() {
+        if (!hasQueryId()) {
+
+          return false;
+        }
+        if (!hasSlotNanos()) {
+
+          return false;
+        }
+        if (!hasSlotsInUse()) {
+
+          return false;
+        }
+        if (!hasWaitingFragments()) {
+
+          return false;
+        }
+        if (!hasSubqueryId()) {
+
+          return false;
+        }
+        return true;
+      }
+
+      @Override
+      public Builder mergeFrom(final com.google.protobuf.CodedInputStream input,
+          final com.google.protobuf.ExtensionRegistryLite extensionRegistry) throws java.io.IOException {
+        edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (edu.washington.escience.myria.proto.ControlProto.QuerySlotUsage) e.getUnfinishedMessage();
+          throw e;
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+
+      private int bitField0_;
+
+      private long queryId_;
+
+      /**
+       * <code>required int64 query_id = 1;</code>
+       */
+      @Override
+      public boolean hasQueryId() {
+        return ((bitField0_ & 0x00000001) == 0x00000001);
+      }
+
+      /**
+       * <code>required int64 query_id = 1;</code>
+       */
+      @Override
+      public long getQueryId() {
+        return queryId_;
+      }
+
+      /**
+       * <code>required int64 query_id = 1;</code>
+       */
+      public Builder setQueryId(final long value) {
+        bitField0_ |= 0x00000001;
+        queryId_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>required int64 query_id = 1;</code>
+       */
+      public Builder clearQueryId() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        queryId_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private long slotNanos_;
+
+      /**
+       * <code>required int64 slot_nanos = 2;</code>
+       */
+      @Override
+      public boolean hasSlotNanos() {
+        return ((bitField0_ & 0x00000002) == 0x00000002);
+      }
+
+      /**
+       * <code>required int64 slot_nanos = 2;</code>
+       */
+      @Override
+      public long getSlotNanos() {
+        return slotNanos_;
+      }
+
+      /**
+       * <code>required int64 slot_nanos = 2;</code>
+       */
+      public Builder setSlotNanos(final long value) {
+        bitField0_ |= 0x00000002;
+        slotNanos_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>required int64 slot_nanos = 2;</code>
+       */
+      public Builder clearSlotNanos() {
+        bitField0_ = (bitField0_ & ~0x00000002);
+        slotNanos_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private int slotsInUse_;
+
+      /**
+       * <code>required int32 slots_in_use = 3;</code>
+       */
+      @Override
+      public boolean hasSlotsInUse() {
+        return ((bitField0_ & 0x00000004) == 0x00000004);
+      }
+
+      /**
+       * <code>required int32 slots_in_use = 3;</code>
+       */
+      @Override
+      public int getSlotsInUse() {
+        return slotsInUse_;
+      }
+
+      /**
+       * <code>required int32 slots_in_use = 3;</code>
+       */
+      public Builder setSlotsInUse(final int value) {
+        bitField0_ |= 0x00000004;
+        slotsInUse_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>required int32 slots_in_use = 3;</code>
+       */
+      public Builder clearSlotsInUse() {
+        bitField0_ = (bitField0_ & ~0x00000004);
+        slotsInUse_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private int waitingFragments_;
+
+      /**
+       * <code>required int32 waiting_fragments = 4;</code>
+       */
+      @Override
+      public boolean hasWaitingFragments() {
+        return ((bitField0_ & 0x00000008) == 0x00000008);
+      }
+
+      /**
+       * <code>required int32 waiting_fragments = 4;</code>
+       */
+      @Override
+      public int getWaitingFragments() {
+        return waitingFragments_;
+      }
+
+      /**
+       * <code>required int32 waiting_fragments = 4;</code>
+       */
+      public Builder setWaitingFragments(final int value) {
+        bitField0_ |= 0x00000008;
+        waitingFragments_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>required int32 waiting_fragments = 4;</code>
+       */
+      public Builder clearWaitingFragments() {
+        bitField0_ = (bitField0_ & ~0x00000008);
+        waitingFragments_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private long subqueryId_;
+
+      /**
+       * <code>required int64 subquery_id = 5;</code>
+       */
+      @Override
+      public boolean hasSubqueryId() {
+        return ((bitField0_ & 0x00000010) == 0x00000010);
+      }
+
+      /**
+       * <code>required int64 subquery_id = 5;</code>
+       */
+      @Override
+      public long getSubqueryId() {
+        return subqueryId_;
+      }
+
+      /**
+       * <code>required int64 subquery_id = 5;</code>
+       */
+      public Builder setSubqueryId(final long value) {
+        bitField0_ |= 0x00000010;
+        subqueryId_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>required int64 subquery_id = 5;</code>
+       */
+      public Builder clearSubqueryId() {
+        bitField0_ = (bitField0_ & ~0x00000010);
+        subqueryId_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      // @@protoc_insertion_point(builder_scope:QuerySlotUsage)
+    }
+
+    static {
+      defaultInstance = new QuerySlotUsage(true);
+      defaultInstance.initFields();
+    }
+
+    // @@protoc_insertion_point(class_scope:QuerySlotUsage)
+  }
+
   private static final com.google.protobuf.Descriptors.Descriptor internal_static_ControlMessage_descriptor;
   private static com.google.protobuf.GeneratedMessage.FieldAccessorTable internal_static_ControlMessage_fieldAccessorTable;
   private static final com.google.protobuf.Descriptors.Descriptor internal_static_SocketInfo_descriptor;
   private static com.google.protobuf.GeneratedMessage.FieldAccessorTable internal_static_SocketInfo_fieldAccessorTable;
   private static final com.google.protobuf.Descriptors.Descriptor internal_static_ResourceStats_descriptor;
   private static com.google.protobuf.GeneratedMessage.FieldAccessorTable internal_static_ResourceStats_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor internal_static_SemiJoinFilter_descriptor;
+  private static com.google.protobuf.GeneratedMessage.FieldAccessorTable internal_static_SemiJoinFilter_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor internal_static_HeavyHitters_descriptor;
+  private static com.google.protobuf.GeneratedMessage.FieldAccessorTable internal_static_HeavyHitters_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor internal_static_WorkerLoad_descriptor;
+  private static com.google.protobuf.GeneratedMessage.FieldAccessorTable internal_static_WorkerLoad_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor internal_static_QuerySlotUsage_descriptor;
+  private static com.google.protobuf.GeneratedMessage.FieldAccessorTable internal_static_QuerySlotUsage_fieldAccessorTable;
 
   public static com.google.protobuf.Descriptors.FileDescriptor getDescriptor() {
     return descriptor;
@@ -3032,19 +7953,37 @@ public final class ControlProto {
   static {
     java.lang.String[] descriptorData =
         {
-            "\n\rcontrol.proto\"\243\002\n\016ControlMessage\022\"\n\004ty"
+            "\n\rcontrol.proto\"\277\003\n\016ControlMessage\022\"\n\004ty"
                 + "pe\030\001 \002(\0162\024.ControlMessage.Type\022\021\n\tworker"
                 + "_id\030\002 \001(\005\022#\n\016remote_address\030\003 \001(\0132\013.Sock"
                 + "etInfo\022&\n\016resource_stats\030\004 \003(\0132\016.Resourc"
-                + "eStats\"\214\001\n\004Type\022\014\n\010SHUTDOWN\020\001\022\024\n\020WORKER_"
-                + "HEARTBEAT\020\002\022\021\n\rREMOVE_WORKER\020\003\022\016\n\nADD_WO"
-                + "RKER\020\004\022\025\n\021REMOVE_WORKER_ACK\020\005\022\022\n\016ADD_WOR"
-                + "KER_ACK\020\006\022\022\n\016RESOURCE_STATS\020\007\"(\n\nSocketI"
-                + "nfo\022\014\n\004host\030\001 \002(\t\022\014\n\004port\030\002 \002(\005\"y\n\rResou"
-                + "rceStats\022\021\n\ttimestamp\030\001 \002(\003\022\014\n\004opId\030\002 \002(",
-            "\005\022\023\n\013measurement\030\003 \002(\t\022\r\n\005value\030\004 \002(\003\022\017\n"
-                + "\007queryId\030\005 \002(\003\022\022\n\nsubqueryId\030\006 \002(\003B3\n#ed"
-                + "u.washington.escience.myria.protoB\014Contr" + "olProto" };
+                + "eStats\022)\n\020semi_join_filter\030\005 \001(\0132\017.SemiJ"
+                + "oinFilter\022$\n\rheavy_hitters\030\006 \001(\0132\r.Heavy"
+                + "Hitters\022 \n\013worker_load\030\007 \001(\0132\013.WorkerLoa"
+                + "d\"\265\001\n\004Type\022\014\n\010SHUTDOWN\020\001\022\024\n\020WORKER_HEART"
+                + "BEAT\020\002\022\021\n\rREMOVE_WORKER\020\003\022\016\n\nADD_WORKER\020"
+                + "\004\022\025\n\021REMOVE_WORKER_ACK\020\005\022\022\n\016ADD_WORKER_A",
+            "CK\020\006\022\022\n\016RESOURCE_STATS\020\007\022\024\n\020SEMI_JOIN_FI"
+                + "LTER\020\010\022\021\n\rHEAVY_HITTERS\020\t\"(\n\nSocketInfo\022"
+                + "\014\n\004host\030\001 \002(\t\022\014\n\004port\030\002 \002(\005\"y\n\rResourceS"
+                + "tats\022\021\n\ttimestamp\030\001 \002(\003\022\014\n\004opId\030\002 \002(\005\022\023\n"
+                + "\013measurement\030\003 \002(\t\022\r\n\005value\030\004 \002(\003\022\017\n\007que"
+                + "ryId\030\005 \002(\003\022\022\n\nsubqueryId\030\006 \002(\003\"i\n\016SemiJo"
+                + "inFilter\022\020\n\010query_id\030\001 \002(\003\022\023\n\013subquery_i"
+                + "d\030\002 \002(\003\022\r\n\005op_id\030\003 \002(\005\022\022\n\nnum_hashes\030\004 \002"
+                + "(\005\022\r\n\005words\030\005 \002(\014\"V\n\014HeavyHitters\022\020\n\010que"
+                + "ry_id\030\001 \002(\003\022\023\n\013subquery_id\030\002 \002(\003\022\r\n\005op_i",
+            "d\030\003 \002(\005\022\020\n\010key_hash\030\004 \003(\005\"\372\001\n\nWorkerLoad"
+                + "\022\027\n\017heap_used_bytes\030\001 \002(\003\022\026\n\016heap_max_by"
+                + "tes\030\002 \002(\003\022\r\n\005slots\030\003 \001(\005\022\024\n\014slots_in_use"
+                + "\030\004 \001(\005\022)\n\020query_slot_usage\030\005 \003(\0132\017.Query"
+                + "SlotUsage\022\032\n\022compile_cache_hits\030\006 \001(\003\022\034\n"
+                + "\024compile_cache_misses\030\007 \001(\003\022\025\n\rcompile_n"
+                + "anos\030\010 \001(\003\022\032\n\022compile_cache_size\030\t \001(\003\"|"
+                + "\n\016QuerySlotUsage\022\020\n\010query_id\030\001 \002(\003\022\022\n\nsl"
+                + "ot_nanos\030\002 \002(\003\022\024\n\014slots_in_use\030\003 \002(\005\022\031\n\021"
+                + "waiting_fragments\030\004 \002(\005\022\023\n\013subquery_id\030\005",
+            " \002(\003B3\n#edu.washington.escience.myria.pr" + "otoB\014ControlProto" };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
         new com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner() {
           @Override
@@ -3059,7 +7998,8 @@ public final class ControlProto {
     internal_static_ControlMessage_descriptor = getDescriptor().getMessageTypes().get(0);
     internal_static_ControlMessage_fieldAccessorTable =
         new com.google.protobuf.GeneratedMessage.FieldAccessorTable(internal_static_ControlMessage_descriptor,
-            new java.lang.String[] { "Type", "WorkerId", "RemoteAddress", "ResourceStats", });
+            new java.lang.String[] {
+                "Type", "WorkerId", "RemoteAddress", "ResourceStats", "SemiJoinFilter", "HeavyHitters", "WorkerLoad", });
     internal_static_SocketInfo_descriptor = getDescriptor().getMessageTypes().get(1);
     internal_static_SocketInfo_fieldAccessorTable =
         new com.google.protobuf.GeneratedMessage.FieldAccessorTable(internal_static_SocketInfo_descriptor,
@@ -3068,6 +8008,24 @@ public final class ControlProto {
     internal_static_ResourceStats_fieldAccessorTable =
         new com.google.protobuf.GeneratedMessage.FieldAccessorTable(internal_static_ResourceStats_descriptor,
             new java.lang.String[] { "Timestamp", "OpId", "Measurement", "Value", "QueryId", "SubqueryId", });
+    internal_static_SemiJoinFilter_descriptor = getDescriptor().getMessageTypes().get(3);
+    internal_static_SemiJoinFilter_fieldAccessorTable =
+        new com.google.protobuf.GeneratedMessage.FieldAccessorTable(internal_static_SemiJoinFilter_descriptor,
+            new java.lang.String[] { "QueryId", "SubqueryId", "OpId", "NumHashes", "Words", });
+    internal_static_HeavyHitters_descriptor = getDescriptor().getMessageTypes().get(4);
+    internal_static_HeavyHitters_fieldAccessorTable =
+        new com.google.protobuf.GeneratedMessage.FieldAccessorTable(internal_static_HeavyHitters_descriptor,
+            new java.lang.String[] { "QueryId", "SubqueryId", "OpId", "KeyHash", });
+    internal_static_WorkerLoad_descriptor = getDescriptor().getMessageTypes().get(5);
+    internal_static_WorkerLoad_fieldAccessorTable =
+        new com.google.protobuf.GeneratedMessage.FieldAccessorTable(internal_static_WorkerLoad_descriptor,
+            new java.lang.String[] {
+                "HeapUsedBytes", "HeapMaxBytes", "Slots", "SlotsInUse", "QuerySlotUsage", "CompileCacheHits",
+                "CompileCacheMisses", "CompileNanos", "CompileCacheSize", });
+    internal_static_QuerySlotUsage_descriptor = getDescriptor().getMessageTypes().get(6);
+    internal_static_QuerySlotUsage_fieldAccessorTable =
+        new com.google.protobuf.GeneratedMessage.FieldAccessorTable(internal_static_QuerySlotUsage_descriptor,
+            new java.lang.String[] { "QueryId", "SlotNanos", "SlotsInUse", "WaitingFragments", "SubqueryId", });
   }
 
   // @@protoc_insertion_point(outer_class_scope)
@@ -1350,6 +1350,33 @@ public final class DataProto {
      * <code>optional .DateTimeColumnMessage date_column = 9;</code>
      */
     edu.washington.escience.myria.proto.DataProto.DateTimeColumnMessageOrBuilder getDateColumnOrBuilder();
+
+    /**
+     * <code>optional .EncodedColumnMessage encoded_column = 10;</code>
+     *
+     * <pre>
+     * Set instead of the raw column of the type above
+     * </pre>
+     */
+    boolean hasEncodedColumn();
+
+    /**
+     * <code>optional .EncodedColumnMessage encoded_column = 10;</code>
+     *
+     * <pre>
+     * Set instead of the raw column of the type above
+     * </pre>
+     */
+    edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage getEncodedColumn();
+
+    /**
+     * <code>optional .EncodedColumnMessage encoded_column = 10;</code>
+     *
+     * <pre>
+     * Set instead of the raw column of the type above
+     * </pre>
+     */
+    edu.washington.escience.myria.proto.DataProto.EncodedColumnMessageOrBuilder getEncodedColumnOrBuilder();
   }
   /**
    * Protobuf type {@code ColumnMessage}
@@ -1521,6 +1548,21 @@ public final class DataProto {
               bitField0_ |= 0x00000080;
               break;
             }
+            case 82: {
+              edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.Builder subBuilder = null;
+              if (((bitField0_ & 0x00000100) == 0x00000100)) {
+                subBuilder = encodedColumn_.toBuilder();
+              }
+              encodedColumn_ =
+                  input.readMessage(edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.PARSER,
+                      extensionRegistry);
+              if (subBuilder != null) {
+                subBuilder.mergeFrom(encodedColumn_);
+                encodedColumn_ = subBuilder.buildPartial();
+              }
+              bitField0_ |= 0x00000100;
+              break;
+            }
           }
         }
       } catch (com.google.protobuf.InvalidProtocolBufferException e) {
@@ -1910,6 +1952,45 @@ public final class DataProto {
       return dateColumn_;
     }
 
+    public static final int ENCODED_COLUMN_FIELD_NUMBER = 10;
+    private edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage encodedColumn_;
+
+    /**
+     * <code>optional .EncodedColumnMessage encoded_column = 10;</code>
+     *
+     * <pre>
+     * Set instead of the raw column of the type above
+     * </pre>
+     */
+    @Override
+    public boolean hasEncodedColumn() {
+      return ((bitField0_ & 0x00000100) == 0x00000100);
+    }
+
+    /**
+     * <code>optional .EncodedColumnMessage encoded_column = 10;</code>
+     *
+     * <pre>
+     * Set instead of the raw column of the type above
+     * </pre>
+     */
+    @Override
+    public edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage getEncodedColumn() {
+      return encodedColumn_;
+    }
+
+    /**
+     * <code>optional .EncodedColumnMessage encoded_column = 10;</code>
+     *
+     * <pre>
+     * Set instead of the raw column of the type above
+     * </pre>
+     */
+    @Override
+    public edu.washington.escience.myria.proto.DataProto.EncodedColumnMessageOrBuilder getEncodedColumnOrBuilder() {
+      return encodedColumn_;
+    }
+
     private void initFields() {
       type_ = edu.washington.escience.myria.proto.DataProto.ColumnMessage.Type.INT;
       intColumn_ = edu.washington.escience.myria.proto.DataProto.IntColumnMessage.getDefaultInstance();
@@ -1919,6 +2000,7 @@ public final class DataProto {
       stringColumn_ = edu.washington.escience.myria.proto.DataProto.StringColumnMessage.getDefaultInstance();
       booleanColumn_ = edu.washington.escience.myria.proto.DataProto.BooleanColumnMessage.getDefaultInstance();
       dateColumn_ = edu.washington.escience.myria.proto.DataProto.DateTimeColumnMessage.getDefaultInstance();
+      encodedColumn_ = edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.getDefaultInstance();
     }
 
     private byte memoizedIsInitialized = -1;
@@ -1979,6 +2061,12 @@ public final class DataProto {
           return false;
         }
       }
+      if (hasEncodedColumn()) {
+        if (!getEncodedColumn().isInitialized()) {
+          memoizedIsInitialized = 0;
+          return false;
+        }
+      }
       memoizedIsInitialized = 1;
       return true;
     }
@@ -2010,6 +2098,9 @@ public final class DataProto {
       if (((bitField0_ & 0x00000080) == 0x00000080)) {
         output.writeMessage(9, dateColumn_);
       }
+      if (((bitField0_ & 0x00000100) == 0x00000100)) {
+        output.writeMessage(10, encodedColumn_);
+      }
       getUnknownFields().writeTo(output);
     }
 
@@ -2047,6 +2138,9 @@ public final class DataProto {
       if (((bitField0_ & 0x00000080) == 0x00000080)) {
         size += com.google.protobuf.CodedOutputStream.computeMessageSize(9, dateColumn_);
       }
+      if (((bitField0_ & 0x00000100) == 0x00000100)) {
+        size += com.google.protobuf.CodedOutputStream.computeMessageSize(10, encodedColumn_);
+      }
       size += getUnknownFields().getSerializedSize();
       memoizedSerializedSize = size;
       return size;
@@ -2174,6 +2268,7 @@ public final class DataProto {
           getStringColumnFieldBuilder();
           getBooleanColumnFieldBuilder();
           getDateColumnFieldBuilder();
+          getEncodedColumnFieldBuilder();
         }
       }
 
@@ -2228,6 +2323,12 @@ public final class DataProto {
           dateColumnBuilder_.clear();
         }
         bitField0_ = (bitField0_ & ~0x00000080);
+        if (encodedColumnBuilder_ == null) {
+          encodedColumn_ = edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.getDefaultInstance();
+        } else {
+          encodedColumnBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000100);
         return this;
       }
 
@@ -2321,6 +2422,14 @@ public final class DataProto {
         } else {
           result.dateColumn_ = dateColumnBuilder_.build();
         }
+        if (((from_bitField0_ & 0x00000100) == 0x00000100)) {
+          to_bitField0_ |= 0x00000100;
+        }
+        if (encodedColumnBuilder_ == null) {
+          result.encodedColumn_ = encodedColumn_;
+        } else {
+          result.encodedColumn_ = encodedColumnBuilder_.build();
+        }
         result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
@@ -2364,6 +2473,9 @@ public final class DataProto {
         if (other.hasDateColumn()) {
           mergeDateColumn(other.getDateColumn());
         }
+        if (other.hasEncodedColumn()) {
+          mergeEncodedColumn(other.getEncodedColumn());
+        }
         mergeUnknownFields(other.getUnknownFields());
         return this;
       }
@@ -2416,6 +2528,12 @@ public final class DataProto {
             return false;
           }
         }
+        if (hasEncodedColumn()) {
+          if (!getEncodedColumn().isInitialized()) {
+
+            return false;
+          }
+        }
         return true;
       }
 
@@ -3375,6 +3493,168 @@ public final class DataProto {
         return dateColumnBuilder_;
       }
 
+      private edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage encodedColumn_ =
+          edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.getDefaultInstance();
+      private com.google.protobuf.SingleFieldBuilder<edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage, edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.Builder, edu.washington.escience.myria.proto.DataProto.EncodedColumnMessageOrBuilder> encodedColumnBuilder_;
+
+      /**
+       * <code>optional .EncodedColumnMessage encoded_column = 10;</code>
+       *
+       * <pre>
+       * Set instead of the raw column of the type above
+       * </pre>
+       */
+      @Override
+      public boolean hasEncodedColumn() {
+        return ((bitField0_ & 0x00000100) == 0x00000100);
+      }
+
+      /**
+       * <code>optional .EncodedColumnMessage encoded_column = 10;</code>
+       *
+       * <pre>
+       * Set instead of the raw column of the type above
+       * </pre>
+       */
+      @Override
+      public edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage getEncodedColumn() {
+        if (encodedColumnBuilder_ == null) {
+          return encodedColumn_;
+        } else {
+          return encodedColumnBuilder_.getMessage();
+        }
+      }
+
+      /**
+       * <code>optional .EncodedColumnMessage encoded_column = 10;</code>
+       *
+       * <pre>
+       * Set instead of the raw column of the type above
+       * </pre>
+       */
+      public Builder setEncodedColumn(final edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage value) {
+        if (encodedColumnBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          encodedColumn_ = value;
+          onChanged();
+        } else {
+          encodedColumnBuilder_.setMessage(value);
+        }
+        bitField0_ |= 0x00000100;
+        return this;
+      }
+
+      /**
+       * <code>optional .EncodedColumnMessage encoded_column = 10;</code>
+       *
+       * <pre>
+       * Set instead of the raw column of the type above
+       * </pre>
+       */
+      public Builder setEncodedColumn(
+          final edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.Builder builderForValue) {
+        if (encodedColumnBuilder_ == null) {
+          encodedColumn_ = builderForValue.build();
+          onChanged();
+        } else {
+          encodedColumnBuilder_.setMessage(builderForValue.build());
+        }
+        bitField0_ |= 0x00000100;
+        return this;
+      }
+
+      /**
+       * <code>optional .EncodedColumnMessage encoded_column = 10;</code>
+       *
+       * <pre>
+       * Set instead of the raw column of the type above
+       * </pre>
+       */
+      public Builder mergeEncodedColumn(final edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage value) {
+        if (encodedColumnBuilder_ == null) {
+          if (((bitField0_ & 0x00000100) == 0x00000100)
+              && encodedColumn_ != edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage
+                  .getDefaultInstance()) {
+            encodedColumn_ =
+                edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.newBuilder(encodedColumn_)
+                    .mergeFrom(value).buildPartial();
+          } else {
+            encodedColumn_ = value;
+          }
+          onChanged();
+        } else {
+          encodedColumnBuilder_.mergeFrom(value);
+        }
+        bitField0_ |= 0x00000100;
+        return this;
+      }
+
+      /**
+       * <code>optional .EncodedColumnMessage encoded_column = 10;</code>
+       *
+       * <pre>
+       * Set instead of the raw column of the type above
+       * </pre>
+       */
+      public Builder clearEncodedColumn() {
+        if (encodedColumnBuilder_ == null) {
+          encodedColumn_ = edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.getDefaultInstance();
+          onChanged();
+        } else {
+          encodedColumnBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000100);
+        return this;
+      }
+
+      /**
+       * <code>optional .EncodedColumnMessage encoded_column = 10;</code>
+       *
+       * <pre>
+       * Set instead of the raw column of the type above
+       * </pre>
+       */
+      public edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.Builder getEncodedColumnBuilder() {
+        bitField0_ |= 0x00000100;
+        onChanged();
+        return getEncodedColumnFieldBuilder().getBuilder();
+      }
+
+      /**
+       * <code>optional .EncodedColumnMessage encoded_column = 10;</code>
+       *
+       * <pre>
+       * Set instead of the raw column of the type above
+       * </pre>
+       */
+      @Override
+      public edu.washington.escience.myria.proto.DataProto.EncodedColumnMessageOrBuilder getEncodedColumnOrBuilder() {
+        if (encodedColumnBuilder_ != null) {
+          return encodedColumnBuilder_.getMessageOrBuilder();
+        } else {
+          return encodedColumn_;
+        }
+      }
+
+      /**
+       * <code>optional .EncodedColumnMessage encoded_column = 10;</code>
+       *
+       * <pre>
+       * Set instead of the raw column of the type above
+       * </pre>
+       */
+      private com.google.protobuf.SingleFieldBuilder<edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage, edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.Builder, edu.washington.escience.myria.proto.DataProto.EncodedColumnMessageOrBuilder> getEncodedColumnFieldBuilder() {
+        if (encodedColumnBuilder_ == null) {
+          encodedColumnBuilder_ =
+              new com.google.protobuf.SingleFieldBuilder<edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage, edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.Builder, edu.washington.escience.myria.proto.DataProto.EncodedColumnMessageOrBuilder>(
+                  getEncodedColumn(), getParentForChildren(), isClean());
+          encodedColumn_ = null;
+        }
+        return encodedColumnBuilder_;
+      }
+
       // @@protoc_insertion_point(builder_scope:ColumnMessage)
     }
 
@@ -6881,6 +7161,1339 @@ public final class DataProto {
     // @@protoc_insertion_point(class_scope:DateTimeColumnMessage)
   }
 
+  public interface EncodedColumnMessageOrBuilder extends
+  // @@protoc_insertion_point(interface_extends:EncodedColumnMessage)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>required .EncodedColumnMessage.Encoding encoding = 1;</code>
+     */
+    boolean hasEncoding();
+
+    /**
+     * <code>required .EncodedColumnMessage.Encoding encoding = 1;</code>
+     */
+    edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.Encoding getEncoding();
+
+    /**
+     * <code>required bytes data = 2;</code>
+     */
+    boolean hasData();
+
+    /**
+     * <code>required bytes data = 2;</code>
+     */
+    com.google.protobuf.ByteString getData();
+
+    /**
+     * <code>optional sint64 base = 3;</code>
+     */
+    boolean hasBase();
+
+    /**
+     * <code>optional sint64 base = 3;</code>
+     */
+    long getBase();
+
+    /**
+     * <code>optional uint32 bit_width = 4;</code>
+     */
+    boolean hasBitWidth();
+
+    /**
+     * <code>optional uint32 bit_width = 4;</code>
+     */
+    int getBitWidth();
+
+    /**
+     * <code>repeated string dictionary = 5;</code>
+     */
+    com.google.protobuf.ProtocolStringList getDictionaryList();
+
+    /**
+     * <code>repeated string dictionary = 5;</code>
+     */
+    int getDictionaryCount();
+
+    /**
+     * <code>repeated string dictionary = 5;</code>
+     */
+    java.lang.String getDictionary(int index);
+
+    /**
+     * <code>repeated string dictionary = 5;</code>
+     */
+    com.google.protobuf.ByteString getDictionaryBytes(int index);
+
+    /**
+     * <code>optional bool deflated = 6;</code>
+     *
+     * <pre>
+     * data is additionally compressed by java.util.zip.Deflater
+     * </pre>
+     */
+    boolean hasDeflated();
+
+    /**
+     * <code>optional bool deflated = 6;</code>
+     *
+     * <pre>
+     * data is additionally compressed by java.util.zip.Deflater
+     * </pre>
+     */
+    boolean getDeflated();
+
+    /**
+     * <code>optional uint32 inflated_size = 7;</code>
+     *
+     * <pre>
+     * size of data before the deflate pass
+     * </pre>
+     */
+    boolean hasInflatedSize();
+
+    /**
+     * <code>optional uint32 inflated_size = 7;</code>
+     *
+     * <pre>
+     * size of data before the deflate pass
+     * </pre>
+     */
+    int getInflatedSize();
+  }
+  /**
+   * Protobuf type {@code EncodedColumnMessage}
+   *
+   * <pre>
+   * A column in a compressed encoding. See edu.washington.escience.myria.column.ColumnCompressor.
+   * </pre>
+   */
+  public static final class EncodedColumnMessage extends com.google.protobuf.GeneratedMessage implements
+  // @@protoc_insertion_point(message_implements:EncodedColumnMessage)
+      EncodedColumnMessageOrBuilder {
+    // Use EncodedColumnMessage.newBuilder() to construct.
+    private EncodedColumnMessage(final com.google.protobuf.GeneratedMessage.Builder<?> builder) {
+      super(builder);
+      unknownFields = builder.getUnknownFields();
+    }
+
+    private EncodedColumnMessage(final boolean noInit) {
+      unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance();
+    }
+
+    private static final EncodedColumnMessage defaultInstance;
+
+    public static EncodedColumnMessage getDefaultInstance() {
+      return defaultInstance;
+    }
+
+    @Override
+    public EncodedColumnMessage getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet getUnknownFields() {
+      return unknownFields;
+    }
+
+    private EncodedColumnMessage(final com.google.protobuf.CodedInputStream input,
+        final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      initFields();
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields = com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            default: {
+              if (!parseUnknownField(input, unknownFields, extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+            case 8: {
+              int rawValue = input.readEnum();
+              edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.Encoding value =
+                  edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.Encoding.valueOf(rawValue);
+              if (value == null) {
+                unknownFields.mergeVarintField(1, rawValue);
+              } else {
+                bitField0_ |= 0x00000001;
+                encoding_ = value;
+              }
+              break;
+            }
+            case 18: {
+              bitField0_ |= 0x00000002;
+              data_ = input.readBytes();
+              break;
+            }
+            case 24: {
+              bitField0_ |= 0x00000004;
+              base_ = input.readSInt64();
+              break;
+            }
+            case 32: {
+              bitField0_ |= 0x00000008;
+              bitWidth_ = input.readUInt32();
+              break;
+            }
+            case 42: {
+              com.google.protobuf.ByteString bs = input.readBytes();
+              if (!((mutable_bitField0_ & 0x00000010) == 0x00000010)) {
+                dictionary_ = new com.google.protobuf.LazyStringArrayList();
+                mutable_bitField0_ |= 0x00000010;
+              }
+              dictionary_.add(bs);
+              break;
+            }
+            case 48: {
+              bitField0_ |= 0x00000010;
+              deflated_ = input.readBool();
+              break;
+            }
+            case 56: {
+              bitField0_ |= 0x00000020;
+              inflatedSize_ = input.readUInt32();
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(e.getMessage()).setUnfinishedMessage(this);
+      } finally {
+        if (((mutable_bitField0_ & 0x00000010) == 0x00000010)) {
+          dictionary_ = dictionary_.getUnmodifiableView();
+        }
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+
+    public static final com.google.protobuf.Descriptors.Descriptor getDescriptor() {
+      return edu.washington.escience.myria.proto.DataProto.internal_static_EncodedColumnMessage_descriptor;
+    }
+
+    @Override
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable internalGetFieldAccessorTable() {
+      return edu.washington.escience.myria.proto.DataProto.internal_static_EncodedColumnMessage_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.class,
+              edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.Builder.class);
+    }
+
+    public static com.google.protobuf.Parser<EncodedColumnMessage> PARSER =
+        new com.google.protobuf.AbstractParser<EncodedColumnMessage>() {
+          @Override
+          public EncodedColumnMessage parsePartialFrom(final com.google.protobuf.CodedInputStream input,
+              final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+              throws com.google.protobuf.InvalidProtocolBufferException {
+            return new EncodedColumnMessage(input, extensionRegistry);
+          }
+        };
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<EncodedColumnMessage> getParserForType() {
+      return PARSER;
+    }
+
+    /**
+     * Protobuf enum {@code EncodedColumnMessage.Encoding}
+     */
+    public enum Encoding implements com.google.protobuf.ProtocolMessageEnum {
+      /**
+       * <code>PLAIN = 0;</code>
+       *
+       * <pre>
+       * data is a serialized raw ColumnMessage (only used with deflated)
+       * </pre>
+       */
+      PLAIN(0, 0),
+      /**
+       * <code>DICTIONARY = 1;</code>
+       *
+       * <pre>
+       * STRING: bit-packed indexes into dictionary
+       * </pre>
+       */
+      DICTIONARY(1, 1),
+      /**
+       * <code>DELTA = 2;</code>
+       *
+       * <pre>
+       * INT, LONG, DATETIME: base is the first value, data the bit-packed zigzag deltas
+       * </pre>
+       */
+      DELTA(2, 2),
+      /**
+       * <code>FRAME_OF_REFERENCE = 3;</code>
+       *
+       * <pre>
+       * INT, LONG, DATETIME: base is the minimum, data the bit-packed offsets from it
+       * </pre>
+       */
+      FRAME_OF_REFERENCE(3, 3),
+      /**
+       * <code>RUN_LENGTH = 4;</code>
+       *
+       * <pre>
+       * BOOLEAN: base is the first value, data the varint lengths of the alternating runs
+       * </pre>
+       */
+      RUN_LENGTH(4, 4), ;
+
+      /**
+       * <code>PLAIN = 0;</code>
+       *
+       * <pre>
+       * data is a serialized raw ColumnMessage (only used with deflated)
+       * </pre>
+       */
+      public static final int PLAIN_VALUE = 0;
+      /**
+       * <code>DICTIONARY = 1;</code>
+       *
+       * <pre>
+       * STRING: bit-packed indexes into dictionary
+       * </pre>
+       */
+      public static final int DICTIONARY_VALUE = 1;
+      /**
+       * <code>DELTA = 2;</code>
+       *
+       * <pre>
+       * INT, LONG, DATETIME: base is the first value, data the bit-packed zigzag deltas
+       * </pre>
+       */
+      public static final int DELTA_VALUE = 2;
+      /**
+       * <code>FRAME_OF_REFERENCE = 3;</code>
+       *
+       * <pre>
+       * INT, LONG, DATETIME: base is the minimum, data the bit-packed offsets from it
+       * </pre>
+       */
+      public static final int FRAME_OF_REFERENCE_VALUE = 3;
+      /**
+       * <code>RUN_LENGTH = 4;</code>
+       *
+       * <pre>
+       * BOOLEAN: base is the first value, data the varint lengths of the alternating runs
+       * </pre>
+       */
+      public static final int RUN_LENGTH_VALUE = 4;
+
+      @Override
+      public final int getNumber() {
+        return value;
+      }
+
+      public static Encoding valueOf(final int value) {
+        switch (value) {
+          case 0:
+            return PLAIN;
+          case 1:
+            return DICTIONARY;
+          case 2:
+            return DELTA;
+          case 3:
+            return FRAME_OF_REFERENCE;
+          case 4:
+            return RUN_LENGTH;
+          default:
+            return null;
+        }
+      }
+
+      public static com.google.protobuf.Internal.EnumLiteMap<Encoding> internalGetValueMap() {
+        return internalValueMap;
+      }
+
+      private static com.google.protobuf.Internal.EnumLiteMap<Encoding> internalValueMap =
+          new com.google.protobuf.Internal.EnumLiteMap<Encoding>() {
+            @Override
+            public Encoding findValueByNumber(final int number) {
+              return Encoding.valueOf(number);
+            }
+          };
+
+      @Override
+      public final com.google.protobuf.Descriptors.EnumValueDescriptor getValueDescriptor() {
+        return getDescriptor().getValues().get(index);
+      }
+
+      @Override
+      public final com.google.protobuf.Descriptors.EnumDescriptor getDescriptorForType() {
+        return getDescriptor();
+      }
+
+      public static final com.google.protobuf.Descriptors.EnumDescriptor getDescriptor() {
+        return edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.getDescriptor().getEnumTypes().get(0);
+      }
+
+      private static final Encoding[] VALUES = values();
+
+      public static Encoding valueOf(final com.google.protobuf.Descriptors.EnumValueDescriptor desc) {
+        if (desc.getType() != getDescriptor()) {
+          throw new java.lang.IllegalArgumentException("EnumValueDescriptor is not for this type.");
+        }
+        return VALUES[desc.getIndex()];
+      }
+
+      private final int index;
+      private final int value;
+
+      private Encoding(final int index, final int value) {
+        this.index = index;
+        this.value = value;
+      }
+
+      // @@protoc_insertion_point(enum_scope:EncodedColumnMessage.Encoding)
+    }
+
+    private int bitField0_;
+    public static final int ENCODING_FIELD_NUMBER = 1;
+    private edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.Encoding encoding_;
+
+    /**
+     * <code>required .EncodedColumnMessage.Encoding encoding = 1;</code>
+     */
+    @Override
+    public boolean hasEncoding() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+
+    /**
+     * <code>required .EncodedColumnMessage.Encoding encoding = 1;</code>
+     */
+    @Override
+    public edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.Encoding getEncoding() {
+      return encoding_;
+    }
+
+    public static final int DATA_FIELD_NUMBER = 2;
+    private com.google.protobuf.ByteString data_;
+
+    /**
+     * <code>required bytes data = 2;</code>
+     */
+    @Override
+    public boolean hasData() {
+      return ((bitField0_ & 0x00000002) == 0x00000002);
+    }
+
+    /**
+     * <code>required bytes data = 2;</code>
+     */
+    @Override
+    public com.google.protobuf.ByteString getData() {
+      return data_;
+    }
+
+    public static final int BASE_FIELD_NUMBER = 3;
+    private long base_;
+
+    /**
+     * <code>optional sint64 base = 3;</code>
+     */
+    @Override
+    public boolean hasBase() {
+      return ((bitField0_ & 0x00000004) == 0x00000004);
+    }
+
+    /**
+     * <code>optional sint64 base = 3;</code>
+     */
+    @Override
+    public long getBase() {
+      return base_;
+    }
+
+    public static final int BIT_WIDTH_FIELD_NUMBER = 4;
+    private int bitWidth_;
+
+    /**
+     * <code>optional uint32 bit_width = 4;</code>
+     */
+    @Override
+    public boolean hasBitWidth() {
+      return ((bitField0_ & 0x00000008) == 0x00000008);
+    }
+
+    /**
+     * <code>optional uint32 bit_width = 4;</code>
+     */
+    @Override
+    public int getBitWidth() {
+      return bitWidth_;
+    }
+
+    public static final int DICTIONARY_FIELD_NUMBER = 5;
+    private com.google.protobuf.LazyStringList dictionary_;
+
+    /**
+     * <code>repeated string dictionary = 5;</code>
+     */
+    @Override
+    public com.google.protobuf.ProtocolStringList getDictionaryList() {
+      return dictionary_;
+    }
+
+    /**
+     * <code>repeated string dictionary = 5;</code>
+     */
+    @Override
+    public int getDictionaryCount() {
+      return dictionary_.size();
+    }
+
+    /**
+     * <code>repeated string dictionary = 5;</code>
+     */
+    @Override
+    public java.lang.String getDictionary(final int index) {
+      return dictionary_.get(index);
+    }
+
+    /**
+     * <code>repeated string dictionary = 5;</code>
+     */
+    @Override
+    public com.google.protobuf.ByteString getDictionaryBytes(final int index) {
+      return dictionary_.getByteString(index);
+    }
+
+    public static final int DEFLATED_FIELD_NUMBER = 6;
+    private boolean deflated_;
+
+    /**
+     * <code>optional bool deflated = 6;</code>
+     *
+     * <pre>
+     * data is additionally compressed by java.util.zip.Deflater
+     * </pre>
+     */
+    @Override
+    public boolean hasDeflated() {
+      return ((bitField0_ & 0x00000010) == 0x00000010);
+    }
+
+    /**
+     * <code>optional bool deflated = 6;</code>
+     *
+     * <pre>
+     * data is additionally compressed by java.util.zip.Deflater
+     * </pre>
+     */
+    @Override
+    public boolean getDeflated() {
+      return deflated_;
+    }
+
+    public static final int INFLATED_SIZE_FIELD_NUMBER = 7;
+    private int inflatedSize_;
+
+    /**
+     * <code>optional uint32 inflated_size = 7;</code>
+     *
+     * <pre>
+     * size of data before the deflate pass
+     * </pre>
+     */
+    @Override
+    public boolean hasInflatedSize() {
+      return ((bitField0_ & 0x00000020) == 0x00000020);
+    }
+
+    /**
+     * <code>optional uint32 inflated_size = 7;</code>
+     *
+     * <pre>
+     * size of data before the deflate pass
+     * </pre>
+     */
+    @Override
+    public int getInflatedSize() {
+      return inflatedSize_;
+    }
+
+    private void initFields() {
+      encoding_ = edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.Encoding.PLAIN;
+      data_ = com.google.protobuf.ByteString.EMPTY;
+      base_ = 0L;
+      bitWidth_ = 0;
+      dictionary_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+      deflated_ = false;
+      inflatedSize_ = 0;
+    }
+
+    private byte memoizedIsInitialized = -1;
+
+    @Override
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) {
+        return true;
+      }
+      if (isInitialized == 0) {
+        return false;
+      }
+
+      if (!hasEncoding()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasData()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    @Override
+    public void writeTo(final com.google.protobuf.CodedOutputStream output) throws java.io.IOException {
+      getSerializedSize();
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeEnum(1, encoding_.getNumber());
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        output.writeBytes(2, data_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        output.writeSInt64(3, base_);
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        output.writeUInt32(4, bitWidth_);
+      }
+      for (int i = 0; i < dictionary_.size(); i++) {
+        output.writeBytes(5, dictionary_.getByteString(i));
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        output.writeBool(6, deflated_);
+      }
+      if (((bitField0_ & 0x00000020) == 0x00000020)) {
+        output.writeUInt32(7, inflatedSize_);
+      }
+      getUnknownFields().writeTo(output);
+    }
+
+    private int memoizedSerializedSize = -1;
+
+    @Override
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) {
+        return size;
+      }
+
+      size = 0;
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream.computeEnumSize(1, encoding_.getNumber());
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        size += com.google.protobuf.CodedOutputStream.computeBytesSize(2, data_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        size += com.google.protobuf.CodedOutputStream.computeSInt64Size(3, base_);
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        size += com.google.protobuf.CodedOutputStream.computeUInt32Size(4, bitWidth_);
+      }
+      {
+        int dataSize = 0;
+        for (int i = 0; i < dictionary_.size(); i++) {
+          dataSize += com.google.protobuf.CodedOutputStream.computeBytesSizeNoTag(dictionary_.getByteString(i));
+        }
+        size += dataSize;
+        size += 1 * getDictionaryList().size();
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        size += com.google.protobuf.CodedOutputStream.computeBoolSize(6, deflated_);
+      }
+      if (((bitField0_ & 0x00000020) == 0x00000020)) {
+        size += com.google.protobuf.CodedOutputStream.computeUInt32Size(7, inflatedSize_);
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+
+    private static final long serialVersionUID = 0L;
+
+    @java.lang.Override
+    protected java.lang.Object writeReplace() throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+
+    public static edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage parseFrom(
+        final com.google.protobuf.ByteString data) throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+
+    public static edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage parseFrom(
+        final com.google.protobuf.ByteString data, final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+
+    public static edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage parseFrom(final byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+
+    public static edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage parseFrom(final byte[] data,
+        final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+
+    public static edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage parseFrom(
+        final java.io.InputStream input) throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+
+    public static edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage parseFrom(
+        final java.io.InputStream input, final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage parseDelimitedFrom(
+        final java.io.InputStream input) throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input);
+    }
+
+    public static edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage parseDelimitedFrom(
+        final java.io.InputStream input, final com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input, extensionRegistry);
+    }
+
+    public static edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage parseFrom(
+        final com.google.protobuf.CodedInputStream input) throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+
+    public static edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage parseFrom(
+        final com.google.protobuf.CodedInputStream input,
+        final com.google.protobuf.ExtensionRegistryLite extensionRegistry) throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static Builder newBuilder() {
+      return Builder.create();
+    }
+
+    @Override
+    public Builder newBuilderForType() {
+      return newBuilder();
+    }
+
+    public static Builder newBuilder(final edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+
+    @Override
+    public Builder toBuilder() {
+      return newBuilder(this);
+    }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(final com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+
+    /**
+     * Protobuf type {@code EncodedColumnMessage}
+     *
+     * <pre>
+     * A column in a compressed encoding. See edu.washington.escience.myria.column.ColumnCompressor.
+     * </pre>
+     */
+    public static final class Builder extends com.google.protobuf.GeneratedMessage.Builder<Builder> implements
+    // @@protoc_insertion_point(builder_implements:EncodedColumnMessage)
+        edu.washington.escience.myria.proto.DataProto.EncodedColumnMessageOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor getDescriptor() {
+        return edu.washington.escience.myria.proto.DataProto.internal_static_EncodedColumnMessage_descriptor;
+      }
+
+      @Override
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable internalGetFieldAccessorTable() {
+        return edu.washington.escience.myria.proto.DataProto.internal_static_EncodedColumnMessage_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.class,
+                edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.Builder.class);
+      }
+
+      // Construct using edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(final com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+        }
+      }
+
+      private static Builder create() {
+        return new Builder();
+      }
+
+      @Override
+      public Builder clear() {
+        super.clear();
+        encoding_ = edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.Encoding.PLAIN;
+        bitField0_ = (bitField0_ & ~0x00000001);
+        data_ = com.google.protobuf.ByteString.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000002);
+        base_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000004);
+        bitWidth_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000008);
+        dictionary_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000010);
+        deflated_ = false;
+        bitField0_ = (bitField0_ & ~0x00000020);
+        inflatedSize_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000040);
+        return this;
+      }
+
+      @Override
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+
+      @Override
+      public com.google.protobuf.Descriptors.Descriptor getDescriptorForType() {
+        return edu.washington.escience.myria.proto.DataProto.internal_static_EncodedColumnMessage_descriptor;
+      }
+
+      @Override
+      public edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage getDefaultInstanceForType() {
+        return edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.getDefaultInstance();
+      }
+
+      @Override
+      public edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage build() {
+        edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      @Override
+      public edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage buildPartial() {
+        edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage result =
+            new edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        result.encoding_ = encoding_;
+        if (((from_bitField0_ & 0x00000002) == 0x00000002)) {
+          to_bitField0_ |= 0x00000002;
+        }
+        result.data_ = data_;
+        if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
+          to_bitField0_ |= 0x00000004;
+        }
+        result.base_ = base_;
+        if (((from_bitField0_ & 0x00000008) == 0x00000008)) {
+          to_bitField0_ |= 0x00000008;
+        }
+        result.bitWidth_ = bitWidth_;
+        if (((bitField0_ & 0x00000010) == 0x00000010)) {
+          dictionary_ = dictionary_.getUnmodifiableView();
+          bitField0_ = (bitField0_ & ~0x00000010);
+        }
+        result.dictionary_ = dictionary_;
+        if (((from_bitField0_ & 0x00000020) == 0x00000020)) {
+          to_bitField0_ |= 0x00000010;
+        }
+        result.deflated_ = deflated_;
+        if (((from_bitField0_ & 0x00000040) == 0x00000040)) {
+          to_bitField0_ |= 0x00000020;
+        }
+        result.inflatedSize_ = inflatedSize_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      @Override
+      public Builder mergeFrom(final com.google.protobuf.Message other) {
+        if (other instanceof edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage) {
+          return mergeFrom((edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage) other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(final edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage other) {
+        if (other == edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.getDefaultInstance()) {
+          return this;
+        }
+        if (other.hasEncoding()) {
+          setEncoding(other.getEncoding());
+        }
+        if (other.hasData()) {
+          setData(other.getData());
+        }
+        if (other.hasBase()) {
+          setBase(other.getBase());
+        }
+        if (other.hasBitWidth()) {
+          setBitWidth(other.getBitWidth());
+        }
+        if (!other.dictionary_.isEmpty()) {
+          if (dictionary_.isEmpty()) {
+            dictionary_ = other.dictionary_;
+            bitField0_ = (bitField0_ & ~0x00000010);
+          } else {
+            ensureDictionaryIsMutable();
+            dictionary_.addAll(other.dictionary_);
+          }
+          onChanged();
+        }
+        if (other.hasDeflated()) {
+          setDeflated(other.getDeflated());
+        }
+        if (other.hasInflatedSize()) {
+          setInflatedSize(other.getInflatedSize());
+        }
+        mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+
+      @Override
+      public final boolean isInitialized() {
+        if (!hasEncoding()) {
+
+          return false;
+        }
+        if (!hasData()) {
+
+          return false;
+        }
+        return true;
+      }
+
+      @Override
+      public Builder mergeFrom(final com.google.protobuf.CodedInputStream input,
+          final com.google.protobuf.ExtensionRegistryLite extensionRegistry) throws java.io.IOException {
+        edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage) e.getUnfinishedMessage();
+          throw e;
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+
+      private int bitField0_;
+
+      private edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.Encoding encoding_ =
+          edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.Encoding.PLAIN;
+
+      /**
+       * <code>required .EncodedColumnMessage.Encoding encoding = 1;</code>
+       */
+      @Override
+      public boolean hasEncoding() {
+        return ((bitField0_ & 0x00000001) == 0x00000001);
+      }
+
+      /**
+       * <code>required .EncodedColumnMessage.Encoding encoding = 1;</code>
+       */
+      @Override
+      public edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.Encoding getEncoding() {
+        return encoding_;
+      }
+
+      /**
+       * <code>required .EncodedColumnMessage.Encoding encoding = 1;</code>
+       */
+      public Builder setEncoding(final edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.Encoding value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        bitField0_ |= 0x00000001;
+        encoding_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>required .EncodedColumnMessage.Encoding encoding = 1;</code>
+       */
+      public Builder clearEncoding() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        encoding_ = edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.Encoding.PLAIN;
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.ByteString data_ = com.google.protobuf.ByteString.EMPTY;
+
+      /**
+       * <code>required bytes data = 2;</code>
+       */
+      @Override
+      public boolean hasData() {
+        return ((bitField0_ & 0x00000002) == 0x00000002);
+      }
+
+      /**
+       * <code>required bytes data = 2;</code>
+       */
+      @Override
+      public com.google.protobuf.ByteString getData() {
+        return data_;
+      }
+
+      /**
+       * <code>required bytes data = 2;</code>
+       */
+      public Builder setData(final com.google.protobuf.ByteString value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        bitField0_ |= 0x00000002;
+        data_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>required bytes data = 2;</code>
+       */
+      public Builder clearData() {
+        bitField0_ = (bitField0_ & ~0x00000002);
+        data_ = getDefaultInstance().getData();
+        onChanged();
+        return this;
+      }
+
+      private long base_;
+
+      /**
+       * <code>optional sint64 base = 3;</code>
+       */
+      @Override
+      public boolean hasBase() {
+        return ((bitField0_ & 0x00000004) == 0x00000004);
+      }
+
+      /**
+       * <code>optional sint64 base = 3;</code>
+       */
+      @Override
+      public long getBase() {
+        return base_;
+      }
+
+      /**
+       * <code>optional sint64 base = 3;</code>
+       */
+      public Builder setBase(final long value) {
+        bitField0_ |= 0x00000004;
+        base_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>optional sint64 base = 3;</code>
+       */
+      public Builder clearBase() {
+        bitField0_ = (bitField0_ & ~0x00000004);
+        base_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private int bitWidth_;
+
+      /**
+       * <code>optional uint32 bit_width = 4;</code>
+       */
+      @Override
+      public boolean hasBitWidth() {
+        return ((bitField0_ & 0x00000008) == 0x00000008);
+      }
+
+      /**
+       * <code>optional uint32 bit_width = 4;</code>
+       */
+      @Override
+      public int getBitWidth() {
+        return bitWidth_;
+      }
+
+      /**
+       * <code>optional uint32 bit_width = 4;</code>
+       */
+      public Builder setBitWidth(final int value) {
+        bitField0_ |= 0x00000008;
+        bitWidth_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>optional uint32 bit_width = 4;</code>
+       */
+      public Builder clearBitWidth() {
+        bitField0_ = (bitField0_ & ~0x00000008);
+        bitWidth_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.LazyStringList dictionary_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+
+      private void ensureDictionaryIsMutable() {
+        if (!((bitField0_ & 0x00000010) == 0x00000010)) {
+          dictionary_ = new com.google.protobuf.LazyStringArrayList(dictionary_);
+          bitField0_ |= 0x00000010;
+        }
+      }
+
+      /**
+       * <code>repeated string dictionary = 5;</code>
+       */
+      @Override
+      public com.google.protobuf.ProtocolStringList getDictionaryList() {
+        return dictionary_.getUnmodifiableView();
+      }
+
+      /**
+       * <code>repeated string dictionary = 5;</code>
+       */
+      @Override
+      public int getDictionaryCount() {
+        return dictionary_.size();
+      }
+
+      /**
+       * <code>repeated string dictionary = 5;</code>
+       */
+      @Override
+      public java.lang.String getDictionary(final int index) {
+        return dictionary_.get(index);
+      }
+
+      /**
+       * <code>repeated string dictionary = 5;</code>
+       */
+      @Override
+      public com.google.protobuf.ByteString getDictionaryBytes(final int index) {
+        return dictionary_.getByteString(index);
+      }
+
+      /**
+       * <code>repeated string dictionary = 5;</code>
+       */
+      public Builder setDictionary(final int index, final java.lang.String value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        ensureDictionaryIsMutable();
+        dictionary_.set(index, value);
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>repeated string dictionary = 5;</code>
+       */
+      public Builder addDictionary(final java.lang.String value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        ensureDictionaryIsMutable();
+        dictionary_.add(value);
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>repeated string dictionary = 5;</code>
+       */
+      public Builder addAllDictionary(final java.lang.Iterable<java.lang.String> values) {
+        ensureDictionaryIsMutable();
+        com.google.protobuf.AbstractMessageLite.Builder.addAll(values, dictionary_);
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>repeated string dictionary = 5;</code>
+       */
+      public Builder clearDictionary() {
+        dictionary_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000010);
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>repeated string dictionary = 5;</code>
+       */
+      public Builder addDictionaryBytes(final com.google.protobuf.ByteString value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        ensureDictionaryIsMutable();
+        dictionary_.add(value);
+        onChanged();
+        return this;
+      }
+
+      private boolean deflated_;
+
+      /**
+       * <code>optional bool deflated = 6;</code>
+       *
+       * <pre>
+       * data is additionally compressed by java.util.zip.Deflater
+       * </pre>
+       */
+      @Override
+      public boolean hasDeflated() {
+        return ((bitField0_ & 0x00000020) == 0x00000020);
+      }
+
+      /**
+       * <code>optional bool deflated = 6;</code>
+       *
+       * <pre>
+       * data is additionally compressed by java.util.zip.Deflater
+       * </pre>
+       */
+      @Override
+      public boolean getDeflated() {
+        return deflated_;
+      }
+
+      /**
+       * <code>optional bool deflated = 6;</code>
+       *
+       * <pre>
+       * data is additionally compressed by java.util.zip.Deflater
+       * </pre>
+       */
+      public Builder setDeflated(final boolean value) {
+        bitField0_ |= 0x00000020;
+        deflated_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>optional bool deflated = 6;</code>
+       *
+       * <pre>
+       * data is additionally compressed by java.util.zip.Deflater
+       * </pre>
+       */
+      public Builder clearDeflated() {
+        bitField0_ = (bitField0_ & ~0x00000020);
+        deflated_ = false;
+        onChanged();
+        return this;
+      }
+
+      private int inflatedSize_;
+
+      /**
+       * <code>optional uint32 inflated_size = 7;</code>
+       *
+       * <pre>
+       * size of data before the deflate pass
+       * </pre>
+       */
+      @Override
+      public boolean hasInflatedSize() {
+        return ((bitField0_ & 0x00000040) == 0x00000040);
+      }
+
+      /**
+       * <code>optional uint32 inflated_size = 7;</code>
+       *
+       * <pre>
+       * size of data before the deflate pass
+       * </pre>
+       */
+      @Override
+      public int getInflatedSize() {
+        return inflatedSize_;
+      }
+
+      /**
+       * <code>optional uint32 inflated_size = 7;</code>
+       *
+       * <pre>
+       * size of data before the deflate pass
+       * </pre>
+       */
+      public Builder setInflatedSize(final int value) {
+        bitField0_ |= 0x00000040;
+        inflatedSize_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+       * <code>optional uint32 inflated_size = 7;</code>
+       *
+       * <pre>
+       * size of data before the deflate pass
+       * </pre>
+       */
+      public Builder clearInflatedSize() {
+        bitField0_ = (bitField0_ & ~0x00000040);
+        inflatedSize_ = 0;
+        onChanged();
+        return this;
+      }
+
+      // @@protoc_insertion_point(builder_scope:EncodedColumnMessage)
+    }
+
+    static {
+      defaultInstance = new EncodedColumnMessage(true);
+      defaultInstance.initFields();
+    }
+
+    // @@protoc_insertion_point(class_scope:EncodedColumnMessage)
+  }
+
   private static final com.google.protobuf.Descriptors.Descriptor internal_static_DataMessage_descriptor;
   private static com.google.protobuf.GeneratedMessage.FieldAccessorTable internal_static_DataMessage_fieldAccessorTable;
   private static final com.google.protobuf.Descriptors.Descriptor internal_static_ColumnMessage_descriptor;
@@ -6899,6 +8512,8 @@ public final class DataProto {
   private static com.google.protobuf.GeneratedMessage.FieldAccessorTable internal_static_BooleanColumnMessage_fieldAccessorTable;
   private static final com.google.protobuf.Descriptors.Descriptor internal_static_DateTimeColumnMessage_descriptor;
   private static com.google.protobuf.GeneratedMessage.FieldAccessorTable internal_static_DateTimeColumnMessage_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor internal_static_EncodedColumnMessage_descriptor;
+  private static com.google.protobuf.GeneratedMessage.FieldAccessorTable internal_static_EncodedColumnMessage_fieldAccessorTable;
 
   public static com.google.protobuf.Descriptors.FileDescriptor getDescriptor() {
     return descriptor;
@@ -6912,7 +8527,7 @@ public final class DataProto {
                 + " \002(\0162\021.DataMessage.Type\022\022\n\noperatorID\030\002 "
                 + "\001(\004\022\037\n\007columns\030\003 \003(\0132\016.ColumnMessage\022\022\n\n"
                 + "num_tuples\030\004 \001(\r\022\013\n\003seq\030\005 \001(\004\"\033\n\004Type\022\n\n"
-                + "\006NORMAL\020\001\022\007\n\003EOI\020\002\"\274\003\n\rColumnMessage\022!\n\004"
+                + "\006NORMAL\020\001\022\007\n\003EOI\020\002\"\353\003\n\rColumnMessage\022!\n\004"
                 + "type\030\001 \002(\0162\023.ColumnMessage.Type\022%\n\nint_c"
                 + "olumn\030\003 \001(\0132\021.IntColumnMessage\022\'\n\013long_c"
                 + "olumn\030\004 \001(\0132\022.LongColumnMessage\022)\n\014float"
@@ -6921,17 +8536,25 @@ public final class DataProto {
             "+\n\rstring_column\030\007 \001(\0132\024.StringColumnMes"
                 + "sage\022-\n\016boolean_column\030\010 \001(\0132\025.BooleanCo"
                 + "lumnMessage\022+\n\013date_column\030\t \001(\0132\026.DateT"
-                + "imeColumnMessage\"W\n\004Type\022\007\n\003INT\020\000\022\010\n\004LON"
-                + "G\020\001\022\t\n\005FLOAT\020\002\022\n\n\006DOUBLE\020\003\022\n\n\006STRING\020\004\022\013"
-                + "\n\007BOOLEAN\020\005\022\014\n\010DATETIME\020\006\" \n\020IntColumnMe"
-                + "ssage\022\014\n\004data\030\001 \002(\014\"!\n\021LongColumnMessage"
-                + "\022\014\n\004data\030\001 \002(\014\"\"\n\022FloatColumnMessage\022\014\n\004"
-                + "data\030\001 \002(\014\"#\n\023DoubleColumnMessage\022\014\n\004dat"
-                + "a\030\001 \002(\014\"O\n\023StringColumnMessage\022\014\n\004data\030\001",
-            " \002(\014\022\025\n\rstart_indices\030\002 \003(\005\022\023\n\013end_indic"
-                + "es\030\003 \003(\005\"$\n\024BooleanColumnMessage\022\014\n\004data"
-                + "\030\001 \002(\014\"%\n\025DateTimeColumnMessage\022\014\n\004data\030"
-                + "\001 \002(\014B0\n#edu.washington.escience.myria.p" + "rotoB\tDataProto" };
+                + "imeColumnMessage\022-\n\016encoded_column\030\n \001(\013"
+                + "2\025.EncodedColumnMessage\"W\n\004Type\022\007\n\003INT\020\000"
+                + "\022\010\n\004LONG\020\001\022\t\n\005FLOAT\020\002\022\n\n\006DOUBLE\020\003\022\n\n\006STR"
+                + "ING\020\004\022\013\n\007BOOLEAN\020\005\022\014\n\010DATETIME\020\006\" \n\020IntC"
+                + "olumnMessage\022\014\n\004data\030\001 \002(\014\"!\n\021LongColumn"
+                + "Message\022\014\n\004data\030\001 \002(\014\"\"\n\022FloatColumnMess"
+                + "age\022\014\n\004data\030\001 \002(\014\"#\n\023DoubleColumnMessage",
+            "\022\014\n\004data\030\001 \002(\014\"O\n\023StringColumnMessage\022\014\n"
+                + "\004data\030\001 \002(\014\022\025\n\rstart_indices\030\002 \003(\005\022\023\n\013en"
+                + "d_indices\030\003 \003(\005\"$\n\024BooleanColumnMessage\022"
+                + "\014\n\004data\030\001 \002(\014\"%\n\025DateTimeColumnMessage\022\014"
+                + "\n\004data\030\001 \002(\014\"\216\002\n\024EncodedColumnMessage\0220\n"
+                + "\010encoding\030\001 \002(\0162\036.EncodedColumnMessage.E"
+                + "ncoding\022\014\n\004data\030\002 \002(\014\022\014\n\004base\030\003 \001(\022\022\021\n\tb"
+                + "it_width\030\004 \001(\r\022\022\n\ndictionary\030\005 \003(\t\022\020\n\010de"
+                + "flated\030\006 \001(\010\022\025\n\rinflated_size\030\007 \001(\r\"X\n\010E"
+                + "ncoding\022\t\n\005PLAIN\020\000\022\016\n\nDICTIONARY\020\001\022\t\n\005DE",
+            "LTA\020\002\022\026\n\022FRAME_OF_REFERENCE\020\003\022\016\n\nRUN_LEN"
+                + "GTH\020\004B0\n#edu.washington.escience.myria.p" + "rotoB\tDataProto" };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
         new com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner() {
           @Override
@@ -6952,7 +8575,7 @@ public final class DataProto {
         new com.google.protobuf.GeneratedMessage.FieldAccessorTable(internal_static_ColumnMessage_descriptor,
             new java.lang.String[] {
                 "Type", "IntColumn", "LongColumn", "FloatColumn", "DoubleColumn", "StringColumn", "BooleanColumn",
-                "DateColumn", });
+                "DateColumn", "EncodedColumn", });
     internal_static_IntColumnMessage_descriptor = getDescriptor().getMessageTypes().get(2);
     internal_static_IntColumnMessage_fieldAccessorTable =
         new com.google.protobuf.GeneratedMessage.FieldAccessorTable(internal_static_IntColumnMessage_descriptor,
@@ -6981,6 +8604,11 @@ public final class DataProto {
     internal_static_DateTimeColumnMessage_fieldAccessorTable =
         new com.google.protobuf.GeneratedMessage.FieldAccessorTable(internal_static_DateTimeColumnMessage_descriptor,
             new java.lang.String[] { "Data", });
+    internal_static_EncodedColumnMessage_descriptor = getDescriptor().getMessageTypes().get(9);
+    internal_static_EncodedColumnMessage_fieldAccessorTable =
+        new com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+            internal_static_EncodedColumnMessage_descriptor,
+            new java.lang.String[] { "Encoding", "Data", "Base", "BitWidth", "Dictionary", "Deflated", "InflatedSize", });
   }
 
   // @@protoc_insertion_point(outer_class_scope)
@@ -18,7 +18,7 @@ _sym_db = _symbol_database.Default()
 DESCRIPTOR = _descriptor.FileDescriptor(
   name='column.proto',
   package='',
-  serialized_pb=_b('\n\x0c\x63olumn.proto\"\xa1\x01\n\x0b\x44\x61taMessage\x12\x1f\n\x04type\x18\x01 \x02(\x0e\x32\x11.DataMessage.Type\x12\x12\n\noperatorID\x18\x02 \x01(\x04\x12\x1f\n\x07\x63olumns\x18\x03 \x03(\x0b\x32\x0e.ColumnMessage\x12\x12\n\nnum_tuples\x18\x04 \x01(\r\x12\x0b\n\x03seq\x18\x05 \x01(\x04\"\x1b\n\x04Type\x12\n\n\x06NORMAL\x10\x01\x12\x07\n\x03\x45OI\x10\x02\"\xbc\x03\n\rColumnMessage\x12!\n\x04type\x18\x01 \x02(\x0e\x32\x13.ColumnMessage.Type\x12%\n\nint_column\x18\x03 \x01(\x0b\x32\x11.IntColumnMessage\x12\'\n\x0blong_column\x18\x04 \x01(\x0b\x32\x12.LongColumnMessage\x12)\n\x0c\x66loat_column\x18\x05 \x01(\x0b\x32\x13.FloatColumnMessage\x12+\n\rdouble_column\x18\x06 \x01(\x0b\x32\x14.DoubleColumnMessage\x12+\n\rstring_column\x18\x07 \x01(\x0b\x32\x14.StringColumnMessage\x12-\n\x0e\x62oolean_column\x18\x08 \x01(\x0b\x32\x15.BooleanColumnMessage\x12+\n\x0b\x64\x61te_column\x18\t \x01(\x0b\x32\x16.DateTimeColumnMessage\"W\n\x04Type\x12\x07\n\x03INT\x10\x00\x12\x08\n\x04LONG\x10\x01\x12\t\n\x05\x46LOAT\x10\x02\x12\n\n\x06\x44OUBLE\x10\x03\x12\n\n\x06STRING\x10\x04\x12\x0b\n\x07\x42OOLEAN\x10\x05\x12\x0c\n\x08\x44\x41TETIME\x10\x06\" \n\x10IntColumnMessage\x12\x0c\n\x04\x64\x61ta\x18\x01 \x02(\x0c\"!\n\x11LongColumnMessage\x12\x0c\n\x04\x64\x61ta\x18\x01 \x02(\x0c\"\"\n\x12\x46loatColumnMessage\x12\x0c\n\x04\x64\x61ta\x18\x01 \x02(\x0c\"#\n\x13\x44oubleColumnMessage\x12\x0c\n\x04\x64\x61ta\x18\x01 \x02(\x0c\"O\n\x13StringColumnMessage\x12\x0c\n\x04\x64\x61ta\x18\x01 \x02(\x0c\x12\x15\n\rstart_indices\x18\x02 \x03(\x05\x12\x13\n\x0b\x65nd_indices\x18\x03 \x03(\x05\"$\n\x14\x42ooleanColumnMessage\x12\x0c\n\x04\x64\x61ta\x18\x01 \x02(\x0c\"%\n\x15\x44\x61teTimeColumnMessage\x12\x0c\n\x04\x64\x61ta\x18\x01 \x02(\x0c\x42\x30\n#edu.washington.escience.myria.protoB\tDataProto')
+  serialized_pb=_b('\n\x0c\x63olumn.proto\"\xa1\x01\n\x0b\x44\x61taMessage\x12\x1f\n\x04type\x18\x01 \x02(\x0e\x32\x11.DataMessage.Type\x12\x12\n\noperatorID\x18\x02 \x01(\x04\x12\x1f\n\x07\x63olumns\x18\x03 \x03(\x0b\x32\x0e.ColumnMessage\x12\x12\n\nnum_tuples\x18\x04 \x01(\r\x12\x0b\n\x03seq\x18\x05 \x01(\x04\"\x1b\n\x04Type\x12\n\n\x06NORMAL\x10\x01\x12\x07\n\x03\x45OI\x10\x02\"\xeb\x03\n\rColumnMessage\x12!\n\x04type\x18\x01 \x02(\x0e\x32\x13.ColumnMessage.Type\x12%\n\nint_column\x18\x03 \x01(\x0b\x32\x11.IntColumnMessage\x12\'\n\x0blong_column\x18\x04 \x01(\x0b\x32\x12.LongColumnMessage\x12)\n\x0c\x66loat_column\x18\x05 \x01(\x0b\x32\x13.FloatColumnMessage\x12+\n\rdouble_column\x18\x06 \x01(\x0b\x32\x14.DoubleColumnMessage\x12+\n\rstring_column\x18\x07 \x01(\x0b\x32\x14.StringColumnMessage\x12-\n\x0e\x62oolean_column\x18\x08 \x01(\x0b\x32\x15.BooleanColumnMessage\x12+\n\x0b\x64\x61te_column\x18\t \x01(\x0b\x32\x16.DateTimeColumnMessage\x12-\n\x0e\x65ncoded_column\x18\n \x01(\x0b\x32\x15.EncodedColumnMessage\"W\n\x04Type\x12\x07\n\x03INT\x10\x00\x12\x08\n\x04LONG\x10\x01\x12\t\n\x05\x46LOAT\x10\x02\x12\n\n\x06\x44OUBLE\x10\x03\x12\n\n\x06STRING\x10\x04\x12\x0b\n\x07\x42OOLEAN\x10\x05\x12\x0c\n\x08\x44\x41TETIME\x10\x06\" \n\x10IntColumnMessage\x12\x0c\n\x04\x64\x61ta\x18\x01 \x02(\x0c\"!\n\x11LongColumnMessage\x12\x0c\n\x04\x64\x61ta\x18\x01 \x02(\x0c\"\"\n\x12\x46loatColumnMessage\x12\x0c\n\x04\x64\x61ta\x18\x01 \x02(\x0c\"#\n\x13\x44oubleColumnMessage\x12\x0c\n\x04\x64\x61ta\x18\x01 \x02(\x0c\"O\n\x13StringColumnMessage\x12\x0c\n\x04\x64\x61ta\x18\x01 \x02(\x0c\x12\x15\n\rstart_indices\x18\x02 \x03(\x05\x12\x13\n\x0b\x65nd_indices\x18\x03 \x03(\x05\"$\n\x14\x42ooleanColumnMessage\x12\x0c\n\x04\x64\x61ta\x18\x01 \x02(\x0c\"%\n\x15\x44\x61teTimeColumnMessage\x12\x0c\n\x04\x64\x61ta\x18\x01 \x02(\x0c\"\x8e\x02\n\x14\x45ncodedColumnMessage\x12\x30\n\x08\x65ncoding\x18\x01 \x02(\x0e\x32\x1e.EncodedColumnMessage.Encoding\x12\x0c\n\x04\x64\x61ta\x18\x02 \x02(\x0c\x12\x0c\n\x04\x62\x61se\x18\x03 \x01(\x12\x12\x11\n\tbit_width\x18\x04 \x01(\r\x12\x12\n\ndictionary\x18\x05 \x03(\t\x12\x10\n\x08\x64\x65\x66lated\x18\x06 \x01(\x08\x12\x15\n\rinflated_size\x18\x07 \x01(\r\"X\n\x08\x45ncoding\x12\t\n\x05PLAIN\x10\x00\x12\x0e\n\nDICTIONARY\x10\x01\x12\t\n\x05\x44\x45LTA\x10\x02\x12\x16\n\x12\x46RAME_OF_REFERENCE\x10\x03\x12\x0e\n\nRUN_LENGTH\x10\x04\x42\x30\n#edu.washington.escience.myria.protoB\tDataProto')
 )
 _sym_db.RegisterFileDescriptor(DESCRIPTOR)
 
@@ -83,11 +83,45 @@ _COLUMNMESSAGE_TYPE = _descriptor.EnumDescriptor(
   ],
   containing_type=None,
   options=None,
-  serialized_start=538,
-  serialized_end=625,
+  serialized_start=585,
+  serialized_end=672,
 )
 _sym_db.RegisterEnumDescriptor(_COLUMNMESSAGE_TYPE)
 
+_ENCODEDCOLUMNMESSAGE_ENCODING = _descriptor.EnumDescriptor(
+  name='Encoding',
+  full_name='EncodedColumnMessage.Encoding',
+  filename=None,
+  file=DESCRIPTOR,
+  values=[
+    _descriptor.EnumValueDescriptor(
+      name='PLAIN', index=0, number=0,
+      options=None,
+      type=None),
+    _descriptor.EnumValueDescriptor(
+      name='DICTIONARY', index=1, number=1,
+      options=None,
+      type=None),
+    _descriptor.EnumValueDescriptor(
+      name='DELTA', index=2, number=2,
+      options=None,
+      type=None),
+    _descriptor.EnumValueDescriptor(
+      name='FRAME_OF_REFERENCE', index=3, number=3,
+      options=None,
+      type=None),
+    _descriptor.EnumValueDescriptor(
+      name='RUN_LENGTH', index=4, number=4,
+      options=None,
+      type=None),
+  ],
+  containing_type=None,
+  options=None,
+  serialized_start=1157,
+  serialized_end=1245,
+)
+_sym_db.RegisterEnumDescriptor(_ENCODEDCOLUMNMESSAGE_ENCODING)
+
 
 _DATAMESSAGE = _descriptor.Descriptor(
   name='DataMessage',
@@ -211,6 +245,13 @@ _COLUMNMESSAGE = _descriptor.Descriptor(
       message_type=None, enum_type=None, containing_type=None,
       is_extension=False, extension_scope=None,
       options=None),
+    _descriptor.FieldDescriptor(
+      name='encoded_column', full_name='ColumnMessage.encoded_column', index=8,
+      number=10, type=11, cpp_type=10, label=1,
+      has_default_value=False, default_value=None,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
   ],
   extensions=[
   ],
@@ -224,7 +265,7 @@ _COLUMNMESSAGE = _descriptor.Descriptor(
   oneofs=[
   ],
   serialized_start=181,
-  serialized_end=625,
+  serialized_end=672,
 )
 
 
@@ -253,8 +294,8 @@ _INTCOLUMNMESSAGE = _descriptor.Descriptor(
   extension_ranges=[],
   oneofs=[
   ],
-  serialized_start=627,
-  serialized_end=659,
+  serialized_start=674,
+  serialized_end=706,
 )
 
 
@@ -283,8 +324,8 @@ _LONGCOLUMNMESSAGE = _descriptor.Descriptor(
   extension_ranges=[],
   oneofs=[
   ],
-  serialized_start=661,
-  serialized_end=694,
+  serialized_start=708,
+  serialized_end=741,
 )
 
 
@@ -313,8 +354,8 @@ _FLOATCOLUMNMESSAGE = _descriptor.Descriptor(
   extension_ranges=[],
   oneofs=[
   ],
-  serialized_start=696,
-  serialized_end=730,
+  serialized_start=743,
+  serialized_end=777,
 )
 
 
@@ -343,8 +384,8 @@ _DOUBLECOLUMNMESSAGE = _descriptor.Descriptor(
   extension_ranges=[],
   oneofs=[
   ],
-  serialized_start=732,
-  serialized_end=767,
+  serialized_start=779,
+  serialized_end=814,
 )
 
 
@@ -387,8 +428,8 @@ _STRINGCOLUMNMESSAGE = _descriptor.Descriptor(
   extension_ranges=[],
   oneofs=[
   ],
-  serialized_start=769,
-  serialized_end=848,
+  serialized_start=816,
+  serialized_end=895,
 )
 
 
@@ -417,8 +458,8 @@ _BOOLEANCOLUMNMESSAGE = _descriptor.Descriptor(
   extension_ranges=[],
   oneofs=[
   ],
-  serialized_start=850,
-  serialized_end=886,
+  serialized_start=897,
+  serialized_end=933,
 )
 
 
@@ -447,8 +488,81 @@ _DATETIMECOLUMNMESSAGE = _descriptor.Descriptor(
   extension_ranges=[],
   oneofs=[
   ],
-  serialized_start=888,
-  serialized_end=925,
+  serialized_start=935,
+  serialized_end=972,
+)
+
+
+_ENCODEDCOLUMNMESSAGE = _descriptor.Descriptor(
+  name='EncodedColumnMessage',
+  full_name='EncodedColumnMessage',
+  filename=None,
+  file=DESCRIPTOR,
+  containing_type=None,
+  fields=[
+    _descriptor.FieldDescriptor(
+      name='encoding', full_name='EncodedColumnMessage.encoding', index=0,
+      number=1, type=14, cpp_type=8, label=2,
+      has_default_value=False, default_value=0,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='data', full_name='EncodedColumnMessage.data', index=1,
+      number=2, type=12, cpp_type=9, label=2,
+      has_default_value=False, default_value=_b(""),
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='base', full_name='EncodedColumnMessage.base', index=2,
+      number=3, type=18, cpp_type=2, label=1,
+      has_default_value=False, default_value=0,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='bit_width', full_name='EncodedColumnMessage.bit_width', index=3,
+      number=4, type=13, cpp_type=3, label=1,
+      has_default_value=False, default_value=0,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='dictionary', full_name='EncodedColumnMessage.dictionary', index=4,
+      number=5, type=9, cpp_type=9, label=3,
+      has_default_value=False, default_value=[],
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='deflated', full_name='EncodedColumnMessage.deflated', index=5,
+      number=6, type=8, cpp_type=7, label=1,
+      has_default_value=False, default_value=False,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='inflated_size', full_name='EncodedColumnMessage.inflated_size', index=6,
+      number=7, type=13, cpp_type=3, label=1,
+      has_default_value=False, default_value=0,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+  ],
+  extensions=[
+  ],
+  nested_types=[],
+  enum_types=[
+    _ENCODEDCOLUMNMESSAGE_ENCODING,
+  ],
+  options=None,
+  is_extendable=False,
+  extension_ranges=[],
+  oneofs=[
+  ],
+  serialized_start=975,
+  serialized_end=1245,
 )
 
 _DATAMESSAGE.fields_by_name['type'].enum_type = _DATAMESSAGE_TYPE
@@ -462,7 +576,10 @@ _COLUMNMESSAGE.fields_by_name['double_column'].message_type = _DOUBLECOLUMNMESSA
 _COLUMNMESSAGE.fields_by_name['string_column'].message_type = _STRINGCOLUMNMESSAGE
 _COLUMNMESSAGE.fields_by_name['boolean_column'].message_type = _BOOLEANCOLUMNMESSAGE
 _COLUMNMESSAGE.fields_by_name['date_column'].message_type = _DATETIMECOLUMNMESSAGE
+_COLUMNMESSAGE.fields_by_name['encoded_column'].message_type = _ENCODEDCOLUMNMESSAGE
 _COLUMNMESSAGE_TYPE.containing_type = _COLUMNMESSAGE
+_ENCODEDCOLUMNMESSAGE.fields_by_name['encoding'].enum_type = _ENCODEDCOLUMNMESSAGE_ENCODING
+_ENCODEDCOLUMNMESSAGE_ENCODING.containing_type = _ENCODEDCOLUMNMESSAGE
 DESCRIPTOR.message_types_by_name['DataMessage'] = _DATAMESSAGE
 DESCRIPTOR.message_types_by_name['ColumnMessage'] = _COLUMNMESSAGE
 DESCRIPTOR.message_types_by_name['IntColumnMessage'] = _INTCOLUMNMESSAGE
@@ -472,6 +589,7 @@ DESCRIPTOR.message_types_by_name['DoubleColumnMessage'] = _DOUBLECOLUMNMESSAGE
 DESCRIPTOR.message_types_by_name['StringColumnMessage'] = _STRINGCOLUMNMESSAGE
 DESCRIPTOR.message_types_by_name['BooleanColumnMessage'] = _BOOLEANCOLUMNMESSAGE
 DESCRIPTOR.message_types_by_name['DateTimeColumnMessage'] = _DATETIMECOLUMNMESSAGE
+DESCRIPTOR.message_types_by_name['EncodedColumnMessage'] = _ENCODEDCOLUMNMESSAGE
 
 DataMessage = _reflection.GeneratedProtocolMessageType('DataMessage', (_message.Message,), dict(
   DESCRIPTOR = _DATAMESSAGE,
@@ -536,6 +654,13 @@ DateTimeColumnMessage = _reflection.GeneratedProtocolMessageType('DateTimeColumn
   ))
 _sym_db.RegisterMessage(DateTimeColumnMessage)
 
+EncodedColumnMessage = _reflection.GeneratedProtocolMessageType('EncodedColumnMessage', (_message.Message,), dict(
+  DESCRIPTOR = _ENCODEDCOLUMNMESSAGE,
+  __module__ = 'column_pb2'
+  # @@protoc_insertion_point(class_scope:EncodedColumnMessage)
+  ))
+_sym_db.RegisterMessage(EncodedColumnMessage)
+
 
 DESCRIPTOR.has_options = True
 DESCRIPTOR._options = _descriptor._ParseOptions(descriptor_pb2.FileOptions(), _b('\n#edu.washington.escience.myria.protoB\tDataProto'))
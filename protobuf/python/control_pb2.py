@@ -18,7 +18,7 @@ _sym_db = _symbol_database.Default()
 DESCRIPTOR = _descriptor.FileDescriptor(
   name='control.proto',
   package='',
-  serialized_pb=_b('\n\rcontrol.proto\"\xa3\x02\n\x0e\x43ontrolMessage\x12\"\n\x04type\x18\x01 \x02(\x0e\x32\x14.ControlMessage.Type\x12\x11\n\tworker_id\x18\x02 \x01(\x05\x12#\n\x0eremote_address\x18\x03 \x01(\x0b\x32\x0b.SocketInfo\x12&\n\x0eresource_stats\x18\x04 \x03(\x0b\x32\x0e.ResourceStats\"\x8c\x01\n\x04Type\x12\x0c\n\x08SHUTDOWN\x10\x01\x12\x14\n\x10WORKER_HEARTBEAT\x10\x02\x12\x11\n\rREMOVE_WORKER\x10\x03\x12\x0e\n\nADD_WORKER\x10\x04\x12\x15\n\x11REMOVE_WORKER_ACK\x10\x05\x12\x12\n\x0e\x41\x44\x44_WORKER_ACK\x10\x06\x12\x12\n\x0eRESOURCE_STATS\x10\x07\"(\n\nSocketInfo\x12\x0c\n\x04host\x18\x01 \x02(\t\x12\x0c\n\x04port\x18\x02 \x02(\x05\"y\n\rResourceStats\x12\x11\n\ttimestamp\x18\x01 \x02(\x03\x12\x0c\n\x04opId\x18\x02 \x02(\x05\x12\x13\n\x0bmeasurement\x18\x03 \x02(\t\x12\r\n\x05value\x18\x04 \x02(\x03\x12\x0f\n\x07queryId\x18\x05 \x02(\x03\x12\x12\n\nsubqueryId\x18\x06 \x02(\x03\x42\x33\n#edu.washington.escience.myria.protoB\x0c\x43ontrolProto')
+  serialized_pb=_b('\n\rcontrol.proto\"\xbf\x03\n\x0e\x43ontrolMessage\x12\"\n\x04type\x18\x01 \x02(\x0e\x32\x14.ControlMessage.Type\x12\x11\n\tworker_id\x18\x02 \x01(\x05\x12#\n\x0eremote_address\x18\x03 \x01(\x0b\x32\x0b.SocketInfo\x12&\n\x0eresource_stats\x18\x04 \x03(\x0b\x32\x0e.ResourceStats\x12)\n\x10semi_join_filter\x18\x05 \x01(\x0b\x32\x0f.SemiJoinFilter\x12$\n\rheavy_hitters\x18\x06 \x01(\x0b\x32\r.HeavyHitters\x12 \n\x0bworker_load\x18\x07 \x01(\x0b\x32\x0b.WorkerLoad\"\xb5\x01\n\x04Type\x12\x0c\n\x08SHUTDOWN\x10\x01\x12\x14\n\x10WORKER_HEARTBEAT\x10\x02\x12\x11\n\rREMOVE_WORKER\x10\x03\x12\x0e\n\nADD_WORKER\x10\x04\x12\x15\n\x11REMOVE_WORKER_ACK\x10\x05\x12\x12\n\x0e\x41\x44\x44_WORKER_ACK\x10\x06\x12\x12\n\x0eRESOURCE_STATS\x10\x07\x12\x14\n\x10SEMI_JOIN_FILTER\x10\x08\x12\x11\n\rHEAVY_HITTERS\x10\t\"(\n\nSocketInfo\x12\x0c\n\x04host\x18\x01 \x02(\t\x12\x0c\n\x04port\x18\x02 \x02(\x05\"y\n\rResourceStats\x12\x11\n\ttimestamp\x18\x01 \x02(\x03\x12\x0c\n\x04opId\x18\x02 \x02(\x05\x12\x13\n\x0bmeasurement\x18\x03 \x02(\t\x12\r\n\x05value\x18\x04 \x02(\x03\x12\x0f\n\x07queryId\x18\x05 \x02(\x03\x12\x12\n\nsubqueryId\x18\x06 \x02(\x03\"i\n\x0eSemiJoinFilter\x12\x10\n\x08query_id\x18\x01 \x02(\x03\x12\x13\n\x0bsubquery_id\x18\x02 \x02(\x03\x12\r\n\x05op_id\x18\x03 \x02(\x05\x12\x12\n\nnum_hashes\x18\x04 \x02(\x05\x12\r\n\x05words\x18\x05 \x02(\x0c\"V\n\x0cHeavyHitters\x12\x10\n\x08query_id\x18\x01 \x02(\x03\x12\x13\n\x0bsubquery_id\x18\x02 \x02(\x03\x12\r\n\x05op_id\x18\x03 \x02(\x05\x12\x10\n\x08key_hash\x18\x04 \x03(\x05\"\xfa\x01\n\nWorkerLoad\x12\x17\n\x0fheap_used_bytes\x18\x01 \x02(\x03\x12\x16\n\x0eheap_max_bytes\x18\x02 \x02(\x03\x12\r\n\x05slots\x18\x03 \x01(\x05\x12\x14\n\x0cslots_in_use\x18\x04 \x01(\x05\x12)\n\x10query_slot_usage\x18\x05 \x03(\x0b\x32\x0f.QuerySlotUsage\x12\x1a\n\x12\x63ompile_cache_hits\x18\x06 \x01(\x03\x12\x1c\n\x14\x63ompile_cache_misses\x18\x07 \x01(\x03\x12\x15\n\rcompile_nanos\x18\x08 \x01(\x03\x12\x1a\n\x12\x63ompile_cache_size\x18\t \x01(\x03\"|\n\x0eQuerySlotUsage\x12\x10\n\x08query_id\x18\x01 \x02(\x03\x12\x12\n\nslot_nanos\x18\x02 \x02(\x03\x12\x14\n\x0cslots_in_use\x18\x03 \x02(\x05\x12\x19\n\x11waiting_fragments\x18\x04 \x02(\x05\x12\x13\n\x0bsubquery_id\x18\x05 \x02(\x03\x42\x33\n#edu.washington.escience.myria.protoB\x0c\x43ontrolProto')
 )
 _sym_db.RegisterFileDescriptor(DESCRIPTOR)
 
@@ -58,11 +58,19 @@ _CONTROLMESSAGE_TYPE = _descriptor.EnumDescriptor(
       name='RESOURCE_STATS', index=6, number=7,
       options=None,
       type=None),
+    _descriptor.EnumValueDescriptor(
+      name='SEMI_JOIN_FILTER', index=7, number=8,
+      options=None,
+      type=None),
+    _descriptor.EnumValueDescriptor(
+      name='HEAVY_HITTERS', index=8, number=9,
+      options=None,
+      type=None),
   ],
   containing_type=None,
   options=None,
-  serialized_start=169,
-  serialized_end=309,
+  serialized_start=284,
+  serialized_end=465,
 )
 _sym_db.RegisterEnumDescriptor(_CONTROLMESSAGE_TYPE)
 
@@ -102,6 +110,27 @@ _CONTROLMESSAGE = _descriptor.Descriptor(
       message_type=None, enum_type=None, containing_type=None,
       is_extension=False, extension_scope=None,
       options=None),
+    _descriptor.FieldDescriptor(
+      name='semi_join_filter', full_name='ControlMessage.semi_join_filter', index=4,
+      number=5, type=11, cpp_type=10, label=1,
+      has_default_value=False, default_value=None,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='heavy_hitters', full_name='ControlMessage.heavy_hitters', index=5,
+      number=6, type=11, cpp_type=10, label=1,
+      has_default_value=False, default_value=None,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='worker_load', full_name='ControlMessage.worker_load', index=6,
+      number=7, type=11, cpp_type=10, label=1,
+      has_default_value=False, default_value=None,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
   ],
   extensions=[
   ],
@@ -115,7 +144,7 @@ _CONTROLMESSAGE = _descriptor.Descriptor(
   oneofs=[
   ],
   serialized_start=18,
-  serialized_end=309,
+  serialized_end=465,
 )
 
 
@@ -151,8 +180,8 @@ _SOCKETINFO = _descriptor.Descriptor(
   extension_ranges=[],
   oneofs=[
   ],
-  serialized_start=311,
-  serialized_end=351,
+  serialized_start=467,
+  serialized_end=507,
 )
 
 
@@ -216,17 +245,278 @@ _RESOURCESTATS = _descriptor.Descriptor(
   extension_ranges=[],
   oneofs=[
   ],
-  serialized_start=353,
-  serialized_end=474,
+  serialized_start=509,
+  serialized_end=630,
+)
+
+
+_SEMIJOINFILTER = _descriptor.Descriptor(
+  name='SemiJoinFilter',
+  full_name='SemiJoinFilter',
+  filename=None,
+  file=DESCRIPTOR,
+  containing_type=None,
+  fields=[
+    _descriptor.FieldDescriptor(
+      name='query_id', full_name='SemiJoinFilter.query_id', index=0,
+      number=1, type=3, cpp_type=2, label=2,
+      has_default_value=False, default_value=0,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='subquery_id', full_name='SemiJoinFilter.subquery_id', index=1,
+      number=2, type=3, cpp_type=2, label=2,
+      has_default_value=False, default_value=0,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='op_id', full_name='SemiJoinFilter.op_id', index=2,
+      number=3, type=5, cpp_type=1, label=2,
+      has_default_value=False, default_value=0,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='num_hashes', full_name='SemiJoinFilter.num_hashes', index=3,
+      number=4, type=5, cpp_type=1, label=2,
+      has_default_value=False, default_value=0,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='words', full_name='SemiJoinFilter.words', index=4,
+      number=5, type=12, cpp_type=9, label=2,
+      has_default_value=False, default_value=_b(""),
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+  ],
+  extensions=[
+  ],
+  nested_types=[],
+  enum_types=[
+  ],
+  options=None,
+  is_extendable=False,
+  extension_ranges=[],
+  oneofs=[
+  ],
+  serialized_start=632,
+  serialized_end=737,
+)
+
+
+_HEAVYHITTERS = _descriptor.Descriptor(
+  name='HeavyHitters',
+  full_name='HeavyHitters',
+  filename=None,
+  file=DESCRIPTOR,
+  containing_type=None,
+  fields=[
+    _descriptor.FieldDescriptor(
+      name='query_id', full_name='HeavyHitters.query_id', index=0,
+      number=1, type=3, cpp_type=2, label=2,
+      has_default_value=False, default_value=0,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='subquery_id', full_name='HeavyHitters.subquery_id', index=1,
+      number=2, type=3, cpp_type=2, label=2,
+      has_default_value=False, default_value=0,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='op_id', full_name='HeavyHitters.op_id', index=2,
+      number=3, type=5, cpp_type=1, label=2,
+      has_default_value=False, default_value=0,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='key_hash', full_name='HeavyHitters.key_hash', index=3,
+      number=4, type=5, cpp_type=1, label=3,
+      has_default_value=False, default_value=[],
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+  ],
+  extensions=[
+  ],
+  nested_types=[],
+  enum_types=[
+  ],
+  options=None,
+  is_extendable=False,
+  extension_ranges=[],
+  oneofs=[
+  ],
+  serialized_start=739,
+  serialized_end=825,
+)
+
+
+_WORKERLOAD = _descriptor.Descriptor(
+  name='WorkerLoad',
+  full_name='WorkerLoad',
+  filename=None,
+  file=DESCRIPTOR,
+  containing_type=None,
+  fields=[
+    _descriptor.FieldDescriptor(
+      name='heap_used_bytes', full_name='WorkerLoad.heap_used_bytes', index=0,
+      number=1, type=3, cpp_type=2, label=2,
+      has_default_value=False, default_value=0,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='heap_max_bytes', full_name='WorkerLoad.heap_max_bytes', index=1,
+      number=2, type=3, cpp_type=2, label=2,
+      has_default_value=False, default_value=0,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='slots', full_name='WorkerLoad.slots', index=2,
+      number=3, type=5, cpp_type=1, label=1,
+      has_default_value=False, default_value=0,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='slots_in_use', full_name='WorkerLoad.slots_in_use', index=3,
+      number=4, type=5, cpp_type=1, label=1,
+      has_default_value=False, default_value=0,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='query_slot_usage', full_name='WorkerLoad.query_slot_usage', index=4,
+      number=5, type=11, cpp_type=10, label=3,
+      has_default_value=False, default_value=[],
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='compile_cache_hits', full_name='WorkerLoad.compile_cache_hits', index=5,
+      number=6, type=3, cpp_type=2, label=1,
+      has_default_value=False, default_value=0,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='compile_cache_misses', full_name='WorkerLoad.compile_cache_misses', index=6,
+      number=7, type=3, cpp_type=2, label=1,
+      has_default_value=False, default_value=0,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='compile_nanos', full_name='WorkerLoad.compile_nanos', index=7,
+      number=8, type=3, cpp_type=2, label=1,
+      has_default_value=False, default_value=0,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='compile_cache_size', full_name='WorkerLoad.compile_cache_size', index=8,
+      number=9, type=3, cpp_type=2, label=1,
+      has_default_value=False, default_value=0,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+  ],
+  extensions=[
+  ],
+  nested_types=[],
+  enum_types=[
+  ],
+  options=None,
+  is_extendable=False,
+  extension_ranges=[],
+  oneofs=[
+  ],
+  serialized_start=828,
+  serialized_end=1078,
+)
+
+
+_QUERYSLOTUSAGE = _descriptor.Descriptor(
+  name='QuerySlotUsage',
+  full_name='QuerySlotUsage',
+  filename=None,
+  file=DESCRIPTOR,
+  containing_type=None,
+  fields=[
+    _descriptor.FieldDescriptor(
+      name='query_id', full_name='QuerySlotUsage.query_id', index=0,
+      number=1, type=3, cpp_type=2, label=2,
+      has_default_value=False, default_value=0,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='slot_nanos', full_name='QuerySlotUsage.slot_nanos', index=1,
+      number=2, type=3, cpp_type=2, label=2,
+      has_default_value=False, default_value=0,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='slots_in_use', full_name='QuerySlotUsage.slots_in_use', index=2,
+      number=3, type=5, cpp_type=1, label=2,
+      has_default_value=False, default_value=0,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='waiting_fragments', full_name='QuerySlotUsage.waiting_fragments', index=3,
+      number=4, type=5, cpp_type=1, label=2,
+      has_default_value=False, default_value=0,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+    _descriptor.FieldDescriptor(
+      name='subquery_id', full_name='QuerySlotUsage.subquery_id', index=4,
+      number=5, type=3, cpp_type=2, label=2,
+      has_default_value=False, default_value=0,
+      message_type=None, enum_type=None, containing_type=None,
+      is_extension=False, extension_scope=None,
+      options=None),
+  ],
+  extensions=[
+  ],
+  nested_types=[],
+  enum_types=[
+  ],
+  options=None,
+  is_extendable=False,
+  extension_ranges=[],
+  oneofs=[
+  ],
+  serialized_start=1080,
+  serialized_end=1204,
 )
 
 _CONTROLMESSAGE.fields_by_name['type'].enum_type = _CONTROLMESSAGE_TYPE
 _CONTROLMESSAGE.fields_by_name['remote_address'].message_type = _SOCKETINFO
 _CONTROLMESSAGE.fields_by_name['resource_stats'].message_type = _RESOURCESTATS
+_CONTROLMESSAGE.fields_by_name['semi_join_filter'].message_type = _SEMIJOINFILTER
+_CONTROLMESSAGE.fields_by_name['heavy_hitters'].message_type = _HEAVYHITTERS
+_CONTROLMESSAGE.fields_by_name['worker_load'].message_type = _WORKERLOAD
 _CONTROLMESSAGE_TYPE.containing_type = _CONTROLMESSAGE
+_WORKERLOAD.fields_by_name['query_slot_usage'].message_type = _QUERYSLOTUSAGE
 DESCRIPTOR.message_types_by_name['ControlMessage'] = _CONTROLMESSAGE
 DESCRIPTOR.message_types_by_name['SocketInfo'] = _SOCKETINFO
 DESCRIPTOR.message_types_by_name['ResourceStats'] = _RESOURCESTATS
+DESCRIPTOR.message_types_by_name['SemiJoinFilter'] = _SEMIJOINFILTER
+DESCRIPTOR.message_types_by_name['HeavyHitters'] = _HEAVYHITTERS
+DESCRIPTOR.message_types_by_name['WorkerLoad'] = _WORKERLOAD
+DESCRIPTOR.message_types_by_name['QuerySlotUsage'] = _QUERYSLOTUSAGE
 
 ControlMessage = _reflection.GeneratedProtocolMessageType('ControlMessage', (_message.Message,), dict(
   DESCRIPTOR = _CONTROLMESSAGE,
@@ -249,6 +539,34 @@ ResourceStats = _reflection.GeneratedProtocolMessageType('ResourceStats', (_mess
   ))
 _sym_db.RegisterMessage(ResourceStats)
 
+SemiJoinFilter = _reflection.GeneratedProtocolMessageType('SemiJoinFilter', (_message.Message,), dict(
+  DESCRIPTOR = _SEMIJOINFILTER,
+  __module__ = 'control_pb2'
+  # @@protoc_insertion_point(class_scope:SemiJoinFilter)
+  ))
+_sym_db.RegisterMessage(SemiJoinFilter)
+
+HeavyHitters = _reflection.GeneratedProtocolMessageType('HeavyHitters', (_message.Message,), dict(
+  DESCRIPTOR = _HEAVYHITTERS,
+  __module__ = 'control_pb2'
+  # @@protoc_insertion_point(class_scope:HeavyHitters)
+  ))
+_sym_db.RegisterMessage(HeavyHitters)
+
+WorkerLoad = _reflection.GeneratedProtocolMessageType('WorkerLoad', (_message.Message,), dict(
+  DESCRIPTOR = _WORKERLOAD,
+  __module__ = 'control_pb2'
+  # @@protoc_insertion_point(class_scope:WorkerLoad)
+  ))
+_sym_db.RegisterMessage(WorkerLoad)
+
+QuerySlotUsage = _reflection.GeneratedProtocolMessageType('QuerySlotUsage', (_message.Message,), dict(
+  DESCRIPTOR = _QUERYSLOTUSAGE,
+  __module__ = 'control_pb2'
+  # @@protoc_insertion_point(class_scope:QuerySlotUsage)
+  ))
+_sym_db.RegisterMessage(QuerySlotUsage)
+
 
 DESCRIPTOR.has_options = True
 DESCRIPTOR._options = _descriptor._ParseOptions(descriptor_pb2.FileOptions(), _b('\n#edu.washington.escience.myria.protoB\014ControlProto'))
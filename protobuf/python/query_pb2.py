@@ -18,7 +18,7 @@ _sym_db = _symbol_database.Default()
 DESCRIPTOR = _descriptor.FileDescriptor(
   name='query.proto',
   package='',
-  serialized_pb=_b('\n\x0bquery.proto\"\xcb\x02\n\x0cQueryMessage\x12\x10\n\x08query_id\x18\x01 \x02(\x04\x12\x13\n\x0bsubquery_id\x18\x02 \x02(\x04\x12 \n\x04type\x18\x03 \x02(\x0e\x32\x12.QueryMessage.Type\x12\"\n\x0cquery_report\x18\x04 \x01(\x0b\x32\x0c.QueryReport\x12\x15\n\x05query\x18\x05 \x01(\x0b\x32\x06.Query\x12\x11\n\tworker_id\x18\x06 \x01(\x05\"\xa3\x01\n\x04Type\x12\x14\n\x10QUERY_DISTRIBUTE\x10\x00\x12\x0f\n\x0bQUERY_START\x10\x01\x12\x0f\n\x0bQUERY_PAUSE\x10\x07\x12\x10\n\x0cQUERY_RESUME\x10\x08\x12\x0e\n\nQUERY_KILL\x10\t\x12\x1a\n\x16QUERY_READY_TO_EXECUTE\x10\x02\x12\x12\n\x0eQUERY_COMPLETE\x10\x06\x12\x11\n\rQUERY_RECOVER\x10\x03\"\x16\n\x05Query\x12\r\n\x05query\x18\x01 \x02(\x0c\"a\n\x0bQueryReport\x12\x0f\n\x07success\x18\x01 \x02(\x08\x12\x32\n\x14\x65xecution_statistics\x18\x02 \x02(\x0b\x32\x14.ExecutionStatistics\x12\r\n\x05\x63\x61use\x18\x03 \x01(\x0c\"%\n\x13\x45xecutionStatistics\x12\x0e\n\x06\x65lapse\x18\x02 \x02(\x04\x42\x31\n#edu.washington.escience.myria.protoB\nQueryProto')
+  serialized_pb=_b('\n\x0bquery.proto\"\xde\x02\n\x0cQueryMessage\x12\x10\n\x08query_id\x18\x01 \x02(\x04\x12\x13\n\x0bsubquery_id\x18\x02 \x02(\x04\x12 \n\x04type\x18\x03 \x02(\x0e\x32\x12.QueryMessage.Type\x12\"\n\x0cquery_report\x18\x04 \x01(\x0b\x32\x0c.QueryReport\x12\x15\n\x05query\x18\x05 \x01(\x0b\x32\x06.Query\x12\x11\n\tworker_id\x18\x06 \x01(\x05\"\xb6\x01\n\x04Type\x12\x14\n\x10QUERY_DISTRIBUTE\x10\x00\x12\x0f\n\x0bQUERY_START\x10\x01\x12\x0f\n\x0bQUERY_PAUSE\x10\x07\x12\x10\n\x0cQUERY_RESUME\x10\x08\x12\x0e\n\nQUERY_KILL\x10\t\x12\x1a\n\x16QUERY_READY_TO_EXECUTE\x10\x02\x12\x12\n\x0eQUERY_COMPLETE\x10\x06\x12\x11\n\rQUERY_RECOVER\x10\x03\x12\x11\n\rQUERY_RELEASE\x10\n\"\x16\n\x05Query\x12\r\n\x05query\x18\x01 \x02(\x0c\"a\n\x0bQueryReport\x12\x0f\n\x07success\x18\x01 \x02(\x08\x12\x32\n\x14\x65xecution_statistics\x18\x02 \x02(\x0b\x32\x14.ExecutionStatistics\x12\r\n\x05\x63\x61use\x18\x03 \x01(\x0c\"%\n\x13\x45xecutionStatistics\x12\x0e\n\x06\x65lapse\x18\x02 \x02(\x04\x42\x31\n#edu.washington.escience.myria.protoB\nQueryProto')
 )
 _sym_db.RegisterFileDescriptor(DESCRIPTOR)
 
@@ -62,11 +62,15 @@ _QUERYMESSAGE_TYPE = _descriptor.EnumDescriptor(
       name='QUERY_RECOVER', index=7, number=3,
       options=None,
       type=None),
+    _descriptor.EnumValueDescriptor(
+      name='QUERY_RELEASE', index=8, number=10,
+      options=None,
+      type=None),
   ],
   containing_type=None,
   options=None,
   serialized_start=184,
-  serialized_end=347,
+  serialized_end=366,
 )
 _sym_db.RegisterEnumDescriptor(_QUERYMESSAGE_TYPE)
 
@@ -133,7 +137,7 @@ _QUERYMESSAGE = _descriptor.Descriptor(
   oneofs=[
   ],
   serialized_start=16,
-  serialized_end=347,
+  serialized_end=366,
 )
 
 
@@ -162,8 +166,8 @@ _QUERY = _descriptor.Descriptor(
   extension_ranges=[],
   oneofs=[
   ],
-  serialized_start=349,
-  serialized_end=371,
+  serialized_start=368,
+  serialized_end=390,
 )
 
 
@@ -206,8 +210,8 @@ _QUERYREPORT = _descriptor.Descriptor(
   extension_ranges=[],
   oneofs=[
   ],
-  serialized_start=373,
-  serialized_end=470,
+  serialized_start=392,
+  serialized_end=489,
 )
 
 
@@ -236,8 +240,8 @@ _EXECUTIONSTATISTICS = _descriptor.Descriptor(
   extension_ranges=[],
   oneofs=[
   ],
-  serialized_start=472,
-  serialized_end=509,
+  serialized_start=491,
+  serialized_end=528,
 )
 
 _QUERYMESSAGE.fields_by_name['type'].enum_type = _QUERYMESSAGE_TYPE
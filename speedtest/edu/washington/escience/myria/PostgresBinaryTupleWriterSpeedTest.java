@@ -0,0 +1,81 @@
+package edu.washington.escience.myria;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.carrotsearch.junitbenchmarks.AbstractBenchmark;
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+
+/**
+ * Measures how fast {@link PostgresBinaryTupleWriter} encodes the tuples sent to PostgreSQL by COPY BINARY, using the
+ * float-heavy schema of Tipsy star particles.
+ */
+public class PostgresBinaryTupleWriterSpeedTest extends AbstractBenchmark {
+  /** The logger for this class. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(PostgresBinaryTupleWriterSpeedTest.class);
+
+  /** The number of tuples to encode. */
+  private static final int NUM_TUPLES = 1000 * TupleBatch.BATCH_SIZE;
+
+  /** The tuples to encode. */
+  private static List<TupleBatch> batches;
+
+  @BeforeClass
+  public static void generateTuples() {
+    Type[] typeAr = { Type.LONG_TYPE, // iOrder
+        Type.FLOAT_TYPE, // mass
+        Type.FLOAT_TYPE, // x
+        Type.FLOAT_TYPE, // y
+        Type.FLOAT_TYPE, // z
+        Type.FLOAT_TYPE, // vx
+        Type.FLOAT_TYPE, // vy
+        Type.FLOAT_TYPE, // vz
+        Type.FLOAT_TYPE, // metals
+        Type.FLOAT_TYPE, // tform
+        Type.FLOAT_TYPE, // eps
+        Type.FLOAT_TYPE, // phi
+    };
+    Schema schema = new Schema(Arrays.asList(typeAr));
+    Random random = new Random(0);
+    TupleBatchBuffer buffer = new TupleBatchBuffer(schema);
+    for (int i = 0; i < NUM_TUPLES; ++i) {
+      buffer.putLong(0, i);
+      for (int column = 1; column < typeAr.length; ++column) {
+        buffer.putFloat(column, random.nextFloat());
+      }
+    }
+    batches = buffer.getAll();
+  }
+
+  @BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 1)
+  @Test
+  public void encodeTipsyStarsTest() throws IOException {
+    CountingOutputStream out = new CountingOutputStream(new NullOutputStream());
+    long start = System.nanoTime();
+    PostgresBinaryTupleWriter writer = new PostgresBinaryTupleWriter(out);
+    for (TupleBatch tb : batches) {
+      writer.writeTuples(tb);
+    }
+    writer.done();
+    long elapsed = System.nanoTime() - start;
+
+    /* 19 bytes of header and 2 of trailer; each tuple has a 2 byte column count, and each value a 4 byte length. */
+    assertEquals(19 + 2 + NUM_TUPLES * (2L + 4 + 8 + 11 * (4 + 4)), out.getByteCount());
+    LOGGER.info("Encoded {} tuples, {} MB, at {} MB/s", NUM_TUPLES, out.getByteCount() / 1e6, out.getByteCount()
+        * 1e3 / elapsed);
+  }
+}
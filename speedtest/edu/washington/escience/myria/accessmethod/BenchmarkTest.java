@@ -173,6 +173,42 @@ public class BenchmarkTest {
     }
   }
 
+  @Test
+  public void benchmarkInsertFloatsTest() throws Exception {
+    assertTrue(successfulSetup);
+
+    /* Like astronomy particles: nearly all the columns are floating point. */
+    Schema floatSchema =
+        Schema.of(ImmutableList.of(Type.LONG_TYPE, Type.FLOAT_TYPE, Type.FLOAT_TYPE, Type.FLOAT_TYPE,
+            Type.DOUBLE_TYPE, Type.DOUBLE_TYPE, Type.DOUBLE_TYPE), ImmutableList.of("id", "x", "y", "z", "vx", "vy",
+            "vz"));
+    Random generator = new Random();
+    TupleBatchBuffer floats = new TupleBatchBuffer(floatSchema);
+    for (int i = 0; i < NUM_TUPLES; ++i) {
+      floats.putLong(0, i);
+      for (int column = 1; column <= 3; ++column) {
+        floats.putFloat(column, generator.nextFloat());
+      }
+      for (int column = 4; column <= 6; ++column) {
+        floats.putDouble(column, generator.nextGaussian());
+      }
+    }
+
+    RelationKey floatsKey = RelationKey.of("test", "test", "big_floats");
+    for (ConnectionInfo conn : connections) {
+      LOGGER.info("Starting float insert tests with DBMS: {}", conn.getDbms());
+      double t1 = System.nanoTime();
+      DbInsert insert = new DbInsert(new TupleSource(floats), floatsKey, conn, true);
+      insert.open(null);
+      while (!insert.eos()) {
+        insert.nextReady();
+      }
+      insert.close();
+      double t2 = System.nanoTime();
+      LOGGER.info("Insertion time: {}s", (t2 - t1) / 1000000000.0);
+    }
+  }
+
   @Test
   public void benchmarkSelectStarTest() throws Exception {
     assertTrue(successfulSetup);
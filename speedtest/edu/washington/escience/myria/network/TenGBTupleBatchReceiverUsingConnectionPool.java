@@ -52,6 +52,10 @@ public class TenGBTupleBatchReceiverUsingConnectionPool {
       m = sib.take();
       final TupleBatch tm = m.getPayload();
       if (tm != null) {
+        if (numReceived == 0) {
+          start = System.currentTimeMillis();
+          System.out.println("Received columns of type " + tm.getDataColumns().get(0).getClass().getSimpleName());
+        }
         if (numReceived % 100 == 0) {
           System.out.println(numReceived + " received");
         }
@@ -64,6 +68,7 @@ public class TenGBTupleBatchReceiverUsingConnectionPool {
       }
 
     }
+    end = System.currentTimeMillis();
     System.out.println("Receive start at " + start);
     System.out.println("Receive end at " + end);
     System.out.println("Total num received is " + numReceived);
@@ -36,6 +36,8 @@ public class TenGBTupleBatchSenderUsingConnectionPool {
       throws Exception {
 
     final String receiveHostName = args[0];
+    /* the wire format of the TupleBatches: "columnar" (the default) or "protobuf". */
+    final boolean columnar = args.length < 2 || !"protobuf".equals(args[1]);
 
     final HashMap<Integer, SocketInfo> computingUnits = new HashMap<Integer, SocketInfo>();
     computingUnits.put(TenGBTupleBatchReceiverUsingConnectionPool.IPCID, new SocketInfo(receiveHostName,
@@ -45,6 +47,7 @@ public class TenGBTupleBatchSenderUsingConnectionPool {
     final IPCConnectionPool connectionPool =
         IPCTestUtil.startIPCConnectionPool(1, computingUnits, new LinkedBlockingQueue<IPCMessage.Data<TupleBatch>>(),
             new TransportMessageSerializer(), 10, 8, Runtime.getRuntime().availableProcessors() * 2 + 1);
+    connectionPool.setColumnarDataFrames(columnar);
 
     long numSent = 0;
     long start = 0;
@@ -57,7 +60,14 @@ public class TenGBTupleBatchSenderUsingConnectionPool {
     System.out.println("Start at " + start);
 
     final TupleBatch tm = dataToSend.popAny();
-    final long serializedSize = tm.toTransportMessage().getSerializedSize();
+    final long serializedSize;
+    if (columnar) {
+      /* header byte, number of tuples, number of columns, column types, then the raw column values. */
+      serializedSize = 1 + 2 * (Integer.SIZE / 8) + tm.numColumns() + (long) tm.numTuples() * tupleSize;
+    } else {
+      serializedSize = tm.toTransportMessage().getSerializedSize();
+    }
+    System.out.println("Wire format: " + (columnar ? "columnar" : "protobuf"));
     System.out.println("TupleBatch payload size: " + ((Long.SIZE / 8) + tupleSize * TupleBatch.BATCH_SIZE));
     System.out.println("TupleBatch serialized size: " + serializedSize);
     final long tenGBytes = 10L * 1024L * 1024L * 1024L;
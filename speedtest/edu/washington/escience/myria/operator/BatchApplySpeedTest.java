@@ -0,0 +1,128 @@
+package edu.washington.escience.myria.operator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.expression.ConstantExpression;
+import edu.washington.escience.myria.expression.DivideExpression;
+import edu.washington.escience.myria.expression.Expression;
+import edu.washington.escience.myria.expression.LenExpression;
+import edu.washington.escience.myria.expression.MinusExpression;
+import edu.washington.escience.myria.expression.PlusExpression;
+import edu.washington.escience.myria.expression.SqrtExpression;
+import edu.washington.escience.myria.expression.SubstrExpression;
+import edu.washington.escience.myria.expression.TimesExpression;
+import edu.washington.escience.myria.expression.ToUpperCaseExpression;
+import edu.washington.escience.myria.expression.VariableExpression;
+import edu.washington.escience.myria.expression.evaluate.ExpressionOperatorParameter;
+import edu.washington.escience.myria.expression.evaluate.GenericEvaluator;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+import edu.washington.escience.myria.util.TestEnvVars;
+
+/**
+ * Compares an {@link Apply} of several arithmetic and string expressions over 100M rows, evaluated in one generated
+ * loop per batch, with evaluating the same expressions one compiled call per row and value.
+ */
+public class BatchApplySpeedTest {
+  /** The logger for this class. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(BatchApplySpeedTest.class);
+
+  /** Number of rows. */
+  private static final int NUM_ROWS = 100 * 1000 * 1000;
+  /** Number of distinct batches, repeated to make up the rows. */
+  private static final int NUM_DISTINCT_BATCHES = 100;
+
+  private static final Schema SCHEMA = Schema.ofFields("a", Type.LONG_TYPE, "b", Type.INT_TYPE, "c", Type.DOUBLE_TYPE,
+      "s", Type.STRING_TYPE);
+
+  private static final List<Expression> EXPRESSIONS = ImmutableList.of(new Expression("sum", new PlusExpression(
+      new VariableExpression(0), new TimesExpression(new VariableExpression(1), new ConstantExpression(3)))),
+      new Expression("ratio", new DivideExpression(new MinusExpression(new VariableExpression(2), new VariableExpression(
+          1)), new ConstantExpression(7.0))), new Expression("root", new SqrtExpression(new VariableExpression(2))),
+      new Expression("upper", new ToUpperCaseExpression(new VariableExpression(3))), new Expression("len",
+          new LenExpression(new VariableExpression(3))), new Expression("prefix", new SubstrExpression(
+          new VariableExpression(3), new ConstantExpression(0), new ConstantExpression(3))));
+
+  private static List<TupleBatch> batches;
+
+  @BeforeClass
+  public static void generateData() {
+    Random rand = new Random(1);
+    TupleBatchBuffer tbb = new TupleBatchBuffer(SCHEMA);
+    for (int i = 0; i < NUM_DISTINCT_BATCHES * TupleBatch.BATCH_SIZE; ++i) {
+      tbb.putLong(0, rand.nextLong());
+      tbb.putInt(1, rand.nextInt(1000));
+      tbb.putDouble(2, rand.nextDouble() * 1000);
+      tbb.putString(3, "value" + rand.nextInt(100000));
+    }
+    List<TupleBatch> distinct = tbb.getAll();
+    batches = new ArrayList<>();
+    for (int i = 0; i < NUM_ROWS / TupleBatch.BATCH_SIZE; ++i) {
+      batches.add(distinct.get(i % distinct.size()));
+    }
+  }
+
+  private static long runBatch() throws DbException {
+    Apply apply = new Apply(new TupleSource(batches), EXPRESSIONS);
+    apply.open(TestEnvVars.get());
+    long count = 0;
+    while (!apply.eos()) {
+      TupleBatch tb = apply.nextReady();
+      if (tb != null) {
+        count += tb.numTuples();
+      }
+    }
+    apply.close();
+    return count;
+  }
+
+  private static long runPerRow() throws DbException, InvocationTargetException {
+    List<GenericEvaluator> evaluators = new ArrayList<>();
+    for (Expression expression : EXPRESSIONS) {
+      GenericEvaluator evaluator = new GenericEvaluator(expression, new ExpressionOperatorParameter(SCHEMA, 0));
+      evaluator.compile();
+      evaluators.add(evaluator);
+    }
+    long count = 0;
+    for (TupleBatch tb : batches) {
+      for (GenericEvaluator evaluator : evaluators) {
+        evaluator.evaluateColumn(tb);
+      }
+      count += tb.numTuples();
+    }
+    return count;
+  }
+
+  @Test
+  public void batchVersusPerRow() throws DbException, InvocationTargetException {
+    /* warm up. */
+    runBatch();
+    runPerRow();
+
+    long start = System.nanoTime();
+    assertEquals(NUM_ROWS, runPerRow());
+    long perRowNanos = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    assertEquals(NUM_ROWS, runBatch());
+    long batchNanos = System.nanoTime() - start;
+
+    LOGGER.info("per row: {} ms, batch: {} ms, speedup {}", perRowNanos / 1000000, batchNanos / 1000000,
+        (double) perRowNanos / batchNanos);
+  }
+}
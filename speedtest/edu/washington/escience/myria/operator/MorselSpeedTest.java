@@ -0,0 +1,113 @@
+package edu.washington.escience.myria.operator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.expression.ConstantExpression;
+import edu.washington.escience.myria.expression.EqualsExpression;
+import edu.washington.escience.myria.expression.Expression;
+import edu.washington.escience.myria.expression.PlusExpression;
+import edu.washington.escience.myria.expression.PowExpression;
+import edu.washington.escience.myria.expression.SqrtExpression;
+import edu.washington.escience.myria.expression.VariableExpression;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+import edu.washington.escience.myria.util.TestEnvVars;
+
+/**
+ * Measures the scaling of morsel-driven parallelism from 1 to N cores on the shape of the sp2bench Q1 plan over a
+ * synthetic triple table: select the triples of one predicate, compute a value for each of them, and join them with a
+ * second selection on the subject.
+ */
+public class MorselSpeedTest {
+  /** The logger for this class. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(MorselSpeedTest.class);
+
+  /** Number of triples. */
+  private static final int NUM_TRIPLES = 4 * 1000 * 1000;
+  /** Number of distinct subjects. */
+  private static final int NUM_SUBJECTS = 1000 * 1000;
+  /** Number of distinct predicates. */
+  private static final int NUM_PREDICATES = 4;
+
+  private static final Schema SCHEMA = Schema.ofFields("subject", Type.LONG_TYPE, "predicate", Type.LONG_TYPE,
+      "object", Type.LONG_TYPE);
+
+  private static List<TupleBatch> triples;
+
+  @BeforeClass
+  public static void generateData() {
+    Random rand = new Random(1);
+    TupleBatchBuffer tbb = new TupleBatchBuffer(SCHEMA);
+    for (int i = 0; i < NUM_TRIPLES; ++i) {
+      tbb.putLong(0, rand.nextInt(NUM_SUBJECTS));
+      tbb.putLong(1, rand.nextInt(NUM_PREDICATES));
+      tbb.putLong(2, rand.nextInt());
+    }
+    triples = new ArrayList<>();
+    TupleBatch tb;
+    while ((tb = tbb.popAny()) != null) {
+      triples.add(tb);
+    }
+  }
+
+  private static Filter predicate(final long predicate) {
+    return new Filter(new Expression("p", new EqualsExpression(new VariableExpression(1), new ConstantExpression(
+        predicate))), new TupleSource(triples));
+  }
+
+  private static long runQuery(final int parallelism) throws DbException {
+    Apply issued =
+        new Apply(predicate(0), ImmutableList.of(new Expression("subject", new VariableExpression(0)), new Expression(
+            "year", new SqrtExpression(new PlusExpression(new PowExpression(new VariableExpression(2),
+                new ConstantExpression(2)), new ConstantExpression(1))))));
+    RightHashJoin join =
+        new RightHashJoin(ImmutableList.of("subject", "year"), issued, predicate(1), new int[] { 0 }, new int[] { 0 },
+            new int[] { 0, 1 }, new int[] {});
+    Map<String, Object> envVars = TestEnvVars.get();
+    envVars.put(MyriaConstants.EXEC_ENV_VAR_MORSEL_PARALLELISM, parallelism);
+    join.open(envVars);
+    long count = 0;
+    while (!join.eos()) {
+      TupleBatch tb = join.nextReady();
+      if (tb != null) {
+        count += tb.numTuples();
+      }
+    }
+    join.close();
+    return count;
+  }
+
+  @Test
+  public void scaling() throws DbException {
+    final long expected = runQuery(1);
+    final int cores = Runtime.getRuntime().availableProcessors();
+    long serialNanos = 0;
+    for (int parallelism = 1; parallelism <= cores; parallelism *= 2) {
+      /* warm up. */
+      runQuery(parallelism);
+      long start = System.nanoTime();
+      assertEquals(expected, runQuery(parallelism));
+      long nanos = System.nanoTime() - start;
+      if (parallelism == 1) {
+        serialNanos = nanos;
+      }
+      LOGGER.info("parallelism {}: {} ms, speedup {}", parallelism, nanos / 1000000, (double) serialNanos / nanos);
+    }
+  }
+}
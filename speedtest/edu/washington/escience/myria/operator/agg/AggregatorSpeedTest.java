@@ -0,0 +1,149 @@
+package edu.washington.escience.myria.operator.agg;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.carrotsearch.junitbenchmarks.AbstractBenchmark;
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.operator.agg.PrimitiveAggregator.AggregationOp;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+
+/**
+ * Compares the per-tuple cost of updating aggregates one row at a time through {@link Aggregator#addRow} against the
+ * column-at-a-time {@link GroupedAggregator#addRows}, with and without a group-id vector.
+ */
+public class AggregatorSpeedTest extends AbstractBenchmark {
+  /** The logger for this class. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(AggregatorSpeedTest.class);
+
+  /** Number of input tuples. */
+  private static final int NUM_TUPLES = 10 * 1000 * 1000;
+  /** Number of groups in the grouped benchmarks. */
+  private static final int NUM_GROUPS = 1000;
+
+  private static final Schema SCHEMA = Schema.ofFields("i", Type.INT_TYPE, "d", Type.DOUBLE_TYPE);
+  private static final AggregationOp[] OPS = new AggregationOp[] {
+      AggregationOp.COUNT, AggregationOp.MIN, AggregationOp.MAX, AggregationOp.SUM, AggregationOp.AVG,
+      AggregationOp.STDEV };
+  private static final AggregatorFactory[] FACTORIES = new AggregatorFactory[] {
+      new SingleColumnAggregatorFactory(0, OPS), new SingleColumnAggregatorFactory(1, OPS) };
+
+  private static List<TupleBatch> input;
+  /** The group id of each row of each batch in {@link #input}. */
+  private static List<int[]> groupIds;
+
+  @BeforeClass
+  public static void generateData() {
+    Random rand = new Random(1);
+    TupleBatchBuffer tbb = new TupleBatchBuffer(SCHEMA);
+    for (int i = 0; i < NUM_TUPLES; ++i) {
+      tbb.putInt(0, rand.nextInt(1000 * 1000));
+      tbb.putDouble(1, rand.nextDouble());
+    }
+    input = new ArrayList<>();
+    groupIds = new ArrayList<>();
+    TupleBatch tb;
+    while ((tb = tbb.popAny()) != null) {
+      input.add(tb);
+      int[] groups = new int[tb.numTuples()];
+      for (int row = 0; row < groups.length; ++row) {
+        groups[row] = rand.nextInt(NUM_GROUPS);
+      }
+      groupIds.add(groups);
+    }
+  }
+
+  @BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 2)
+  @Test
+  public void rowAtATime() throws DbException {
+    long start = System.nanoTime();
+    Aggregator[] aggs = AggUtils.allocateAggs(FACTORIES, SCHEMA);
+    Object[] states = AggUtils.allocateAggStates(aggs);
+    for (TupleBatch tb : input) {
+      for (int row = 0; row < tb.numTuples(); ++row) {
+        for (int a = 0; a < aggs.length; ++a) {
+          aggs[a].addRow(tb, row, states[a]);
+        }
+      }
+    }
+    report("row-at-a-time", System.nanoTime() - start);
+    TupleBatchBuffer result = new TupleBatchBuffer(aggs[0].getResultSchema());
+    aggs[0].getResult(result, 0, states[0]);
+    assertEquals(NUM_TUPLES, result.popAny().getLong(0, 0));
+  }
+
+  @BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 2)
+  @Test
+  public void columnAtATime() throws DbException {
+    long start = System.nanoTime();
+    GroupedAggregator[] aggs = AggUtils.allocateGroupedAggs(FACTORIES, SCHEMA);
+    for (GroupedAggregator agg : aggs) {
+      agg.addGroups(1);
+    }
+    for (TupleBatch tb : input) {
+      for (GroupedAggregator agg : aggs) {
+        agg.addRows(tb, null, tb.numTuples(), null);
+      }
+    }
+    report("column-at-a-time", System.nanoTime() - start);
+    TupleBatchBuffer result = new TupleBatchBuffer(aggs[0].getResultSchema());
+    aggs[0].getResult(result, 0, 0);
+    assertEquals(NUM_TUPLES, result.popAny().getLong(0, 0));
+  }
+
+  @BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 2)
+  @Test
+  public void groupedRowAtATime() throws DbException {
+    long start = System.nanoTime();
+    Aggregator[] aggs = AggUtils.allocateAggs(FACTORIES, SCHEMA);
+    Object[][] states = new Object[NUM_GROUPS][];
+    for (int g = 0; g < NUM_GROUPS; ++g) {
+      states[g] = AggUtils.allocateAggStates(aggs);
+    }
+    for (int b = 0; b < input.size(); ++b) {
+      TupleBatch tb = input.get(b);
+      int[] groups = groupIds.get(b);
+      for (int row = 0; row < tb.numTuples(); ++row) {
+        Object[] groupStates = states[groups[row]];
+        for (int a = 0; a < aggs.length; ++a) {
+          aggs[a].addRow(tb, row, groupStates[a]);
+        }
+      }
+    }
+    report("grouped row-at-a-time", System.nanoTime() - start);
+  }
+
+  @BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 2)
+  @Test
+  public void groupedColumnAtATime() throws DbException {
+    long start = System.nanoTime();
+    GroupedAggregator[] aggs = AggUtils.allocateGroupedAggs(FACTORIES, SCHEMA);
+    for (GroupedAggregator agg : aggs) {
+      agg.addGroups(NUM_GROUPS);
+    }
+    for (int b = 0; b < input.size(); ++b) {
+      TupleBatch tb = input.get(b);
+      for (GroupedAggregator agg : aggs) {
+        agg.addRows(tb, null, tb.numTuples(), groupIds.get(b));
+      }
+    }
+    report("grouped column-at-a-time", System.nanoTime() - start);
+  }
+
+  private static void report(final String name, final long nanos) {
+    LOGGER.info("{}: {} ms, {} ns/tuple", name, nanos / 1000000, (double) nanos / NUM_TUPLES);
+  }
+}
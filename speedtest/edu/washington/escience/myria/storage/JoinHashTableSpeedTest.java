@@ -0,0 +1,154 @@
+package edu.washington.escience.myria.storage;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.carrotsearch.junitbenchmarks.AbstractBenchmark;
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.gs.collections.impl.list.mutable.primitive.IntArrayList;
+import com.gs.collections.impl.map.mutable.primitive.IntObjectHashMap;
+
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.util.HashUtils;
+
+/**
+ * Compares the memory footprint and probe throughput of {@link JoinHashTable} against the
+ * {@code IntObjectHashMap<IntArrayList>} plus {@link MutableTupleBuffer} that the hash joins used before.
+ */
+public class JoinHashTableSpeedTest extends AbstractBenchmark {
+  /** The logger for this class. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(JoinHashTableSpeedTest.class);
+
+  /** Number of tuples on the build side. */
+  private static final int NUM_BUILD_TUPLES = 4 * 1000 * 1000;
+  /** Number of distinct keys on the build side. */
+  private static final int NUM_KEYS = 1000 * 1000;
+  /** Number of tuples on the probe side. */
+  private static final int NUM_PROBE_TUPLES = 4 * 1000 * 1000;
+
+  private static final Schema SCHEMA = Schema.ofFields("key", Type.LONG_TYPE, "value", Type.LONG_TYPE);
+  private static final int[] KEY = new int[] { 0 };
+
+  private static List<TupleBatch> build;
+  private static List<TupleBatch> probe;
+
+  private static List<TupleBatch> generate(final int numTuples, final Random rand) {
+    TupleBatchBuffer tbb = new TupleBatchBuffer(SCHEMA);
+    for (int i = 0; i < numTuples; ++i) {
+      tbb.putLong(0, rand.nextInt(NUM_KEYS * 2));
+      tbb.putLong(1, i);
+    }
+    List<TupleBatch> ret = new ArrayList<>();
+    TupleBatch tb;
+    while ((tb = tbb.popAny()) != null) {
+      ret.add(tb);
+    }
+    return ret;
+  }
+
+  @BeforeClass
+  public static void generateData() {
+    Random rand = new Random(1);
+    build = generate(NUM_BUILD_TUPLES, rand);
+    probe = generate(NUM_PROBE_TUPLES, rand);
+  }
+
+  private static long usedMemory() {
+    Runtime rt = Runtime.getRuntime();
+    for (int i = 0; i < 3; ++i) {
+      System.gc();
+    }
+    return rt.totalMemory() - rt.freeMemory();
+  }
+
+  @BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+  @Test
+  public void joinHashTable() {
+    long before = usedMemory();
+    long start = System.nanoTime();
+    JoinHashTable table = new JoinHashTable(SCHEMA, KEY);
+    for (TupleBatch tb : build) {
+      int[] hashCodes = HashUtils.hashSubRows(tb, KEY);
+      for (int row = 0; row < tb.numTuples(); ++row) {
+        table.add(tb, row, hashCodes[row]);
+      }
+    }
+    long built = System.nanoTime();
+    long footprint = usedMemory() - before;
+
+    long probeStart = System.nanoTime();
+    long matches = 0;
+    for (TupleBatch tb : probe) {
+      int[] hashCodes = HashUtils.hashSubRows(tb, KEY);
+      for (int row = 0; row < tb.numTuples(); ++row) {
+        for (int index = table.firstMatch(tb, KEY, row, hashCodes[row]); index >= 0; index =
+            table.nextMatch(index, tb, KEY, row, hashCodes[row])) {
+          ++matches;
+        }
+      }
+    }
+    long end = System.nanoTime();
+    report("JoinHashTable", table.numTuples(), footprint, built - start, end - probeStart, matches);
+    assertEquals(NUM_BUILD_TUPLES, table.numTuples());
+  }
+
+  @BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+  @Test
+  public void intObjectHashMap() {
+    long before = usedMemory();
+    long start = System.nanoTime();
+    MutableTupleBuffer buffer = new MutableTupleBuffer(SCHEMA);
+    IntObjectHashMap<IntArrayList> indices = new IntObjectHashMap<>();
+    for (TupleBatch tb : build) {
+      int[] hashCodes = HashUtils.hashSubRows(tb, KEY);
+      for (int row = 0; row < tb.numTuples(); ++row) {
+        IntArrayList list = indices.get(hashCodes[row]);
+        if (list == null) {
+          list = new IntArrayList(1);
+          indices.put(hashCodes[row], list);
+        }
+        list.add(buffer.numTuples());
+        buffer.put(0, tb.getDataColumns().get(0), row);
+        buffer.put(1, tb.getDataColumns().get(1), row);
+      }
+    }
+    long built = System.nanoTime();
+    long footprint = usedMemory() - before;
+
+    long probeStart = System.nanoTime();
+    long matches = 0;
+    for (TupleBatch tb : probe) {
+      int[] hashCodes = HashUtils.hashSubRows(tb, KEY);
+      for (int row = 0; row < tb.numTuples(); ++row) {
+        IntArrayList list = indices.get(hashCodes[row]);
+        if (list == null) {
+          continue;
+        }
+        for (int i = 0; i < list.size(); ++i) {
+          if (TupleUtils.tupleEquals(tb, KEY, row, buffer, KEY, list.get(i))) {
+            ++matches;
+          }
+        }
+      }
+    }
+    long end = System.nanoTime();
+    report("IntObjectHashMap", buffer.numTuples(), footprint, built - start, end - probeStart, matches);
+    assertEquals(NUM_BUILD_TUPLES, buffer.numTuples());
+  }
+
+  private static void report(final String name, final int numTuples, final long footprint, final long buildNanos,
+      final long probeNanos, final long matches) {
+    LOGGER.info("{}: {} tuples, {} bytes ({} bytes/tuple), build {} ms, probe {} ms ({} probes/s), {} matches", name,
+        numTuples, footprint, footprint / numTuples, buildNanos / 1000000, probeNanos / 1000000,
+        NUM_PROBE_TUPLES * 1000000000L / Math.max(probeNanos, 1), matches);
+  }
+}
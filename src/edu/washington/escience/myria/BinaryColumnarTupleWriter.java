@@ -0,0 +1,186 @@
+package edu.washington.escience.myria;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+
+import com.google.common.base.Preconditions;
+
+import edu.washington.escience.myria.storage.ReadableTable;
+
+/**
+ * BinaryColumnarTupleWriter is a {@link TupleWriter} that serializes tuples to a compact, column-oriented binary format.
+ * All numbers are big-endian.
+ *
+ * The output starts with a header: the {@link #MAGIC} number, the {@link #VERSION}, the number of columns, and then,
+ * for each column, its {@link Type} name and its column name, each written in modified UTF-8 as by
+ * {@link DataOutputStream#writeUTF(String)}.
+ *
+ * Then come the blocks of tuples. Each block starts with its number of tuples, followed by one block per column that
+ * starts with the number of bytes in the column block. Column values are written back to back: 4 bytes for ints and
+ * floats, 8 bytes for longs and doubles, 1 byte (0 or 1) for booleans, and 8 bytes of milliseconds since the epoch for
+ * datetimes. Strings are written as their length in bytes followed by their UTF-8 bytes.
+ *
+ * The output ends with a block of 0 tuples. A query failure is signaled by a block of -1 tuples.
+ *
+ */
+public class BinaryColumnarTupleWriter implements TupleWriter {
+
+  /** The first four bytes of the output, "MYRB". */
+  public static final int MAGIC = 0x4d595242;
+  /** The version of the format. */
+  public static final int VERSION = 1;
+  /** The number of tuples in the block that ends the output. */
+  public static final int END_OF_DATA = 0;
+  /** The number of tuples in the block that ends the output of a failed query. */
+  public static final int ERROR = -1;
+
+  /** The types of the columns. */
+  private final List<Type> columnTypes;
+  /** The stream to which the data is written. */
+  private final DataOutputStream output;
+  /** The buffer in which a column block is assembled. */
+  private ByteBuffer block = ByteBuffer.allocate(0);
+
+  /**
+   * Constructs a {@link BinaryColumnarTupleWriter}.
+   *
+   * @param schema the schema of the tuples that will be written.
+   * @param output the {@link OutputStream} to which the data will be written.
+   */
+  public BinaryColumnarTupleWriter(final Schema schema, final OutputStream output) {
+    columnTypes = Objects.requireNonNull(schema, "schema").getColumnTypes();
+    this.output = new DataOutputStream(new BufferedOutputStream(Objects.requireNonNull(output, "output")));
+  }
+
+  @Override
+  public void writeColumnHeaders(final List<String> columnNames) throws IOException {
+    Preconditions.checkArgument(columnNames.size() == columnTypes.size(), "expected %s column names but got %s",
+        columnTypes.size(), columnNames.size());
+    output.writeInt(MAGIC);
+    output.writeInt(VERSION);
+    output.writeInt(columnTypes.size());
+    for (int i = 0; i < columnTypes.size(); ++i) {
+      output.writeUTF(columnTypes.get(i).name());
+      output.writeUTF(columnNames.get(i));
+    }
+  }
+
+  /**
+   * @param capacity the number of bytes needed.
+   * @return the cleared column block buffer, with at least the specified capacity.
+   */
+  private ByteBuffer block(final int capacity) {
+    if (block.capacity() < capacity) {
+      block = ByteBuffer.allocate(Math.max(capacity, block.capacity() * 2));
+    }
+    block.clear();
+    return block;
+  }
+
+  /**
+   * Serialize one column of the tuples into the column block buffer.
+   *
+   * @param tuples the tuples.
+   * @param column the column to serialize.
+   * @return the column block buffer, flipped for reading.
+   */
+  private ByteBuffer encodeColumn(final ReadableTable tuples, final int column) {
+    final int numTuples = tuples.numTuples();
+    ByteBuffer buffer;
+    switch (columnTypes.get(column)) {
+      case BOOLEAN_TYPE:
+        buffer = block(numTuples);
+        for (int row = 0; row < numTuples; ++row) {
+          buffer.put((byte) (tuples.getBoolean(column, row) ? 1 : 0));
+        }
+        break;
+      case DATETIME_TYPE:
+        buffer = block(numTuples * Long.SIZE / Byte.SIZE);
+        for (int row = 0; row < numTuples; ++row) {
+          buffer.putLong(tuples.getDateTime(column, row).getMillis());
+        }
+        break;
+      case DOUBLE_TYPE:
+        buffer = block(numTuples * Double.SIZE / Byte.SIZE);
+        for (int row = 0; row < numTuples; ++row) {
+          buffer.putDouble(tuples.getDouble(column, row));
+        }
+        break;
+      case FLOAT_TYPE:
+        buffer = block(numTuples * Float.SIZE / Byte.SIZE);
+        for (int row = 0; row < numTuples; ++row) {
+          buffer.putFloat(tuples.getFloat(column, row));
+        }
+        break;
+      case INT_TYPE:
+        buffer = block(numTuples * Integer.SIZE / Byte.SIZE);
+        for (int row = 0; row < numTuples; ++row) {
+          buffer.putInt(tuples.getInt(column, row));
+        }
+        break;
+      case LONG_TYPE:
+        buffer = block(numTuples * Long.SIZE / Byte.SIZE);
+        for (int row = 0; row < numTuples; ++row) {
+          buffer.putLong(tuples.getLong(column, row));
+        }
+        break;
+      case STRING_TYPE:
+        final byte[][] values = new byte[numTuples][];
+        int size = numTuples * Integer.SIZE / Byte.SIZE;
+        for (int row = 0; row < numTuples; ++row) {
+          values[row] = tuples.getString(column, row).getBytes(StandardCharsets.UTF_8);
+          size += values[row].length;
+        }
+        buffer = block(size);
+        for (byte[] value : values) {
+          buffer.putInt(value.length);
+          buffer.put(value);
+        }
+        break;
+      default:
+        throw new UnsupportedOperationException("unsupported type " + columnTypes.get(column));
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  @Override
+  public void writeTuples(final ReadableTable tuples) throws IOException {
+    if (tuples.numTuples() == 0) {
+      /* A block of 0 tuples ends the output. */
+      return;
+    }
+    output.writeInt(tuples.numTuples());
+    for (int column = 0; column < columnTypes.size(); ++column) {
+      ByteBuffer buffer = encodeColumn(tuples, column);
+      output.writeInt(buffer.remaining());
+      output.write(buffer.array(), buffer.arrayOffset(), buffer.remaining());
+    }
+  }
+
+  @Override
+  public void done() throws IOException {
+    try {
+      output.writeInt(END_OF_DATA);
+      output.flush();
+    } finally {
+      output.close();
+    }
+  }
+
+  @Override
+  public void error() throws IOException {
+    try {
+      output.writeInt(ERROR);
+      output.flush();
+    } finally {
+      output.close();
+    }
+  }
+}
@@ -77,6 +77,22 @@ public final class MyriaConstants {
    */
   public static final String EXEC_ENV_VAR_PROFILING_MODE = "profiling_mode";
 
+  /**
+   * Memory budget, in bytes, of a single memory-intensive operator such as a hash join. Zero means unlimited.
+   */
+  public static final String EXEC_ENV_VAR_OPERATOR_MEMORY_BUDGET = "operatorMemoryBudget";
+
+  /**
+   * The directory in which operators create their temporary spill files.
+   */
+  public static final String EXEC_ENV_VAR_SPILL_DIRECTORY = "spillDirectory";
+
+  /**
+   * The maximum number of morsels of a single batch that stateless operators process in parallel, see
+   * {@link edu.washington.escience.myria.operator.Morsels}. One means that each fragment runs on a single thread.
+   */
+  public static final String EXEC_ENV_VAR_MORSEL_PARALLELISM = "morselParallelism";
+
   /** Time interval between two heartbeats. */
   public static final int HEARTBEAT_INTERVAL = 1000;
 
@@ -162,6 +178,11 @@ public final class MyriaConstants {
    */
   public static final String STORAGE_SYSTEM_POSTGRESQL = "postgresql";
 
+  /**
+   * Native columnar storage.
+   */
+  public static final String STORAGE_SYSTEM_COLUMNAR = "columnar";
+
   /** Worker config file name. */
   public static final String WORKER_CONFIG_FILE = "worker.cfg";
 
@@ -205,6 +226,11 @@ public final class MyriaConstants {
    */
   public static final int MAX_ACTIVE_QUERIES = 25;
 
+  /**
+   * The user on whose behalf a query runs if the query does not name one.
+   */
+  public static final String DEFAULT_QUERY_USER = "public";
+
   /**
    * The relation that stores profiling information about which operators executed when.
    */
@@ -258,6 +284,12 @@ public final class MyriaConstants {
   public static final String[] DEFAULT_JANINO_IMPORTS =
       { "com.google.common.hash.Hashing", "java.nio.charset.Charset" };
 
+  /**
+   * The maximum number of distinct strings in the dictionary shared by the dictionary-encoded string columns of a
+   * process. When it is full, it is replaced by an empty dictionary.
+   */
+  public static final int SHARED_STRING_DICTIONARY_CAPACITY = 1 << 20;
+
   /** Private constructor to disallow building utility class. */
   private MyriaConstants() {
   }
@@ -279,4 +311,21 @@ public final class MyriaConstants {
      */
     QUERY
   };
+
+  /** available compression of the TupleBatches a query sends between workers. */
+  public static enum ColumnCompression {
+    /**
+     * NONE: raw columns. Best when the cluster is CPU-bound.
+     */
+    NONE,
+    /**
+     * LIGHTWEIGHT: each column is dictionary, delta, frame-of-reference or run-length encoded when its statistics say
+     * this is smaller.
+     */
+    LIGHTWEIGHT,
+    /**
+     * DEFLATE: LIGHTWEIGHT followed by a fast deflate pass over each column. Best when the cluster is network-bound.
+     */
+    DEFLATE
+  };
 }
@@ -56,9 +56,39 @@ public final class MyriaSystemConfigKeys {
    * */
   public static final String TCP_CONNECTION_TIMEOUT_MILLIS = "tcp.connection.timeout.milliseconds";
 
+  /**
+   * The number of bytes that a single memory-intensive operator, such as the build side of a hash join, may hold before
+   * it starts spilling to disk. Zero means unlimited.
+   * */
+  public static final String OPERATOR_MEMORY_BUDGET_BYTES = "operator.memory.budget.bytes";
+
+  /**
+   * The maximum number of queries that the master runs at the same time. Further queries wait in the scheduler's
+   * per-user queues.
+   * */
+  public static final String SCHEDULER_MAX_RUNNING_QUERIES = "scheduler.running.queries.max";
+
+  /**
+   * The fraction of its maximum heap that a worker may use before the master stops admitting more queries. A query is
+   * always admitted when nothing else is running.
+   * */
+  public static final String SCHEDULER_ADMISSION_HEAP_FRACTION = "scheduler.admission.heap.fraction";
+
+  /**
+   * How long a fragment of a query with priority 1 may keep an execution slot of a worker while fragments of other
+   * queries are waiting for a slot. The slice is proportional to the priority of the query.
+   * */
+  public static final String SCHEDULER_TIME_SLICE_MILLIS = "scheduler.timeslice.milliseconds";
+
   /** */
   public static final String WORKER_STORAGE_DATABASE_SYSTEM = "dbms";
 
+  /**
+   * How the {@link MyriaConstants#STORAGE_SYSTEM_COLUMNAR columnar} storage compresses the chunks it writes, one of
+   * {@link MyriaConstants.ColumnCompression}.
+   * */
+  public static final String WORKER_STORAGE_COLUMNAR_COMPRESSION = "storage.columnar.compression";
+
   /** */
   public static final String WORKER_STORAGE_DATABASE_NAME = "database_name";
 
@@ -137,11 +167,37 @@ public final class MyriaSystemConfigKeys {
    */
   public static final String WORKER_STORAGE_DATABASE_SYSTEM_DEFAULT_VALUE = MyriaConstants.STORAGE_SYSTEM_SQLITE;
 
+  /**
+   * Default value for {@link MyriaSystemConfigKeys#WORKER_STORAGE_COLUMNAR_COMPRESSION}.
+   */
+  public static final String WORKER_STORAGE_COLUMNAR_COMPRESSION_DEFAULT_VALUE = MyriaConstants.ColumnCompression.NONE
+      .name();
+
   /**
    * Default value for {@link MyriaSystemConfigKeys#GANGLIA_MASTER_PORT}.
    */
   public static final int GANGLIA_MASTER_PORT_DEFAULT_VALUE = 8649;
 
+  /**
+   * Default value for {@link MyriaSystemConfigKeys#OPERATOR_MEMORY_BUDGET_BYTES}.
+   */
+  public static final long OPERATOR_MEMORY_BUDGET_BYTES_DEFAULT_VALUE = 0;
+
+  /**
+   * Default value for {@link MyriaSystemConfigKeys#SCHEDULER_MAX_RUNNING_QUERIES}.
+   */
+  public static final int SCHEDULER_MAX_RUNNING_QUERIES_DEFAULT_VALUE = 1;
+
+  /**
+   * Default value for {@link MyriaSystemConfigKeys#SCHEDULER_ADMISSION_HEAP_FRACTION}.
+   */
+  public static final double SCHEDULER_ADMISSION_HEAP_FRACTION_DEFAULT_VALUE = 0.8;
+
+  /**
+   * Default value for {@link MyriaSystemConfigKeys#SCHEDULER_TIME_SLICE_MILLIS}.
+   */
+  public static final long SCHEDULER_TIME_SLICE_MILLIS_DEFAULT_VALUE = 100;
+
   /**
    * 
    * @param config the configuration.
@@ -173,11 +229,21 @@ public final class MyriaSystemConfigKeys {
         OPERATOR_INPUT_BUFFER_CAPACITY_DEFAULT_VALUE + "");
     setDefaultValueIfMissing(config, "runtime", OPERATOR_INPUT_BUFFER_RECOVER_TRIGGER,
         OPERATOR_INPUT_BUFFER_RECOVER_TRIGGER_DEFAULT_VALUE + "");
+    setDefaultValueIfMissing(config, "runtime", OPERATOR_MEMORY_BUDGET_BYTES,
+        OPERATOR_MEMORY_BUDGET_BYTES_DEFAULT_VALUE + "");
+    setDefaultValueIfMissing(config, "runtime", SCHEDULER_MAX_RUNNING_QUERIES,
+        SCHEDULER_MAX_RUNNING_QUERIES_DEFAULT_VALUE + "");
+    setDefaultValueIfMissing(config, "runtime", SCHEDULER_ADMISSION_HEAP_FRACTION,
+        SCHEDULER_ADMISSION_HEAP_FRACTION_DEFAULT_VALUE + "");
+    setDefaultValueIfMissing(config, "runtime", SCHEDULER_TIME_SLICE_MILLIS, SCHEDULER_TIME_SLICE_MILLIS_DEFAULT_VALUE
+        + "");
     setDefaultValueIfMissing(config, "runtime", TCP_CONNECTION_TIMEOUT_MILLIS,
         TCP_CONNECTION_TIMEOUT_MILLIS_DEFAULT_VALUE + "");
     setDefaultValueIfMissing(config, "runtime", TCP_RECEIVE_BUFFER_SIZE_BYTES,
         TCP_RECEIVE_BUFFER_SIZE_BYTES_DEFAULT_VALUE + "");
     setDefaultValueIfMissing(config, "runtime", TCP_SEND_BUFFER_SIZE_BYTES, TCP_SEND_BUFFER_SIZE_BYTES_DEFAULT_VALUE
         + "");
+    setDefaultValueIfMissing(config, "runtime", WORKER_STORAGE_COLUMNAR_COMPRESSION,
+        WORKER_STORAGE_COLUMNAR_COMPRESSION_DEFAULT_VALUE);
   }
 }
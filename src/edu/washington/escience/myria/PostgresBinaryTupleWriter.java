@@ -1,26 +1,44 @@
 package edu.washington.escience.myria;
 
-import java.io.BufferedOutputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 
+import edu.washington.escience.myria.storage.ReadableColumn;
 import edu.washington.escience.myria.storage.ReadableTable;
 
 /**
  * PostgresBinaryTupleWriter is a {@link TupleWriter} that serializes tuples to a a binary format that can be directly
  * imported into PostgreSQL. See http://www.postgresql.org/docs/current/interactive/sql-copy.html.
  * 
+ * Values are read directly from the columns of the tuples and encoded into a reusable buffer, so writing does not
+ * allocate per value.
+ *
  * This requires integer time stamps.
  */
 public class PostgresBinaryTupleWriter implements TupleWriter {
 
-  /** The ByteBuffer to write the output. */
-  private final DataOutputStream buffer;
+  /** The size of the buffer in which values are encoded before being written to the output. */
+  private static final int BUFFER_SIZE = 64 * 1024;
+  /** The largest number of bytes a single UTF-8 encoded code point uses. */
+  private static final int MAX_UTF8_BYTES_PER_CODE_POINT = 4;
+  /** The PostgreSQL epoch, 2000-01-01 00:00:00, in milliseconds since the Java epoch. */
+  private static final long PG_EPOCH_MILLIS = 946684800000L;
+
+  /** The output. */
+  private final OutputStream out;
+  /** The buffer in which values are encoded. */
+  private final byte[] buffer;
+  /** The number of bytes in the buffer that have not yet been written to the output. */
+  private int position;
+  /** The types of the columns in the previously written tuples. */
+  private Type[] columnTypes;
+  /** The columns of the tuples being written. */
+  private ReadableColumn[] columns;
 
   /**
    * Constructs a {@link PostgresBinaryTupleWriter} object.
@@ -29,13 +47,17 @@ public class PostgresBinaryTupleWriter implements TupleWriter {
    * @throws IOException if there is an IO exception
    */
   public PostgresBinaryTupleWriter(final OutputStream out) throws IOException {
-    buffer = new DataOutputStream(new BufferedOutputStream(out));
+    this.out = out;
+    buffer = new byte[BUFFER_SIZE];
+    position = 0;
     // 11 bytes required header
-    buffer.writeBytes("PGCOPY\n\377\r\n\0");
+    for (byte b : "PGCOPY\n\377\r\n\0".getBytes("ISO-8859-1")) {
+      buffer[position++] = b;
+    }
     // 32 bit integer indicating no OID
-    buffer.writeInt(0);
+    putInt(0);
     // 32 bit header extension area length
-    buffer.writeInt(0);
+    putInt(0);
   }
 
   /*
@@ -46,81 +68,86 @@ public class PostgresBinaryTupleWriter implements TupleWriter {
   }
 
   /**
-   * Converts the given java seconds to postgresql seconds. The conversion is valid for any year 100 BC onwards.
+   * Converts the given instant to a PostgreSQL timestamp without time zone, i.e., the number of microseconds between
+   * 2000-01-01 00:00:00 and the wall-clock time of the instant in the default time zone. This is how the JDBC driver
+   * stores and reads back a {@link java.sql.Timestamp}, so both ways of inserting tuples store the same values.
    * 
-   * from /org/postgresql/jdbc2/TimestampUtils.java
+   * Both Joda-Time and PostgreSQL use the proleptic Gregorian calendar, so no calendar conversion is needed.
    * 
-   * @param seconds Postgresql seconds.
-   * @return Java seconds.
+   * @param time the instant.
+   * @param zone the default time zone.
+   * @return the PostgreSQL timestamp.
    */
-  @SuppressWarnings("checkstyle:magicnumber")
-  private static long toPgSecs(final long seconds) {
-    long secs = seconds;
-    // java epoc to postgres epoc
-    secs -= 946684800L;
-
-    // Julian/Greagorian calendar cutoff point
-    if (secs < -13165977600L) { // October 15, 1582 -> October 4, 1582
-      secs -= 86400 * 10;
-      if (secs < -15773356800L) { // 1500-03-01 -> 1500-02-28
-        int years = (int) ((secs + 15773356800L) / -3155823050L);
-        years++;
-        years -= years / 4;
-        secs += years * 86400;
-      }
-    }
-
-    return secs;
+  private static long toPgMicros(final DateTime time, final DateTimeZone zone) {
+    long millis = time.getMillis();
+    // adjust time zone offset
+    millis += zone.getOffset(millis);
+    // pg time 0 is 2000-01-01 00:00:00
+    return TimeUnit.MILLISECONDS.toMicros(millis - PG_EPOCH_MILLIS);
   }
 
   @Override
   public void writeTuples(final ReadableTable tuples) throws IOException {
-    List<Type> columnTypes = tuples.getSchema().getColumnTypes();
+    final int numColumns = tuples.numColumns();
+    if (columnTypes == null || columnTypes.length != numColumns) {
+      columnTypes = new Type[numColumns];
+      columns = new ReadableColumn[numColumns];
+    }
+    for (int j = 0; j < numColumns; ++j) {
+      columnTypes[j] = tuples.getSchema().getColumnType(j);
+      columns[j] = tuples.asColumn(j);
+    }
+    final DateTimeZone zone = DateTimeZone.getDefault();
 
     for (int i = 0; i < tuples.numTuples(); ++i) {
-      short numColumns = (short) tuples.numColumns();
-
-      // 16 bit integer number of tuples
-      buffer.writeShort(numColumns);
+      // 16 bit integer number of columns
+      reserve(2);
+      putShort((short) numColumns);
       for (int j = 0; j < numColumns; ++j) {
+        final ReadableColumn column = columns[j];
 
         // 32 bit integer for length of value
         // n bytes value
 
-        switch (columnTypes.get(j)) {
+        switch (columnTypes[j]) {
           case BOOLEAN_TYPE:
             // https://github.com/postgres/postgres/blob/master/src/backend/utils/adt/bool.c
 
-            buffer.writeInt(1);
-            if (tuples.getBoolean(j, i)) {
-              buffer.writeByte(1);
+            reserve(4 + 1);
+            putInt(1);
+            if (column.getBoolean(i)) {
+              buffer[position++] = 1;
             } else {
-              buffer.writeByte(0);
+              buffer[position++] = 0;
             }
             break;
           case DOUBLE_TYPE:
             // https://github.com/postgres/postgres/blob/master/src/backend/utils/adt/float.c
 
-            buffer.writeInt(8);
-            buffer.writeDouble(tuples.getDouble(j, i));
+            reserve(4 + 8);
+            putInt(8);
+            putLong(Double.doubleToLongBits(column.getDouble(i)));
             break;
           case FLOAT_TYPE:
             // https://github.com/postgres/postgres/blob/master/src/backend/utils/adt/float.c
 
-            buffer.writeInt(4);
-            buffer.writeFloat(tuples.getFloat(j, i));
+            reserve(4 + 4);
+            putInt(4);
+            putInt(Float.floatToIntBits(column.getFloat(i)));
             break;
           case INT_TYPE:
             // https://github.com/postgres/postgres/blob/master/src/backend/utils/adt/int.c
 
-            buffer.writeInt(4);
-            buffer.writeInt(tuples.getInt(j, i));
+            reserve(4 + 4);
+            putInt(4);
+            putInt(column.getInt(i));
             break;
           case LONG_TYPE:
             // https://github.com/postgres/postgres/blob/master/src/backend/utils/adt/int8.c
 
-            buffer.writeInt(8);
-            buffer.writeLong(tuples.getLong(j, i));
+            reserve(4 + 8);
+            putInt(8);
+            putLong(column.getLong(i));
             break;
           case DATETIME_TYPE:
             // https://github.com/postgres/postgres/blob/master/src/backend/utils/adt/timestamp.c
@@ -128,39 +155,148 @@ public class PostgresBinaryTupleWriter implements TupleWriter {
             // requires eight-byte integers for time stamps! This should be the default.
             // See http://www.postgresql.org/docs/9.1/static/datatype-datetime.html
 
-            buffer.writeInt(8);
-
-            DateTime theTime = tuples.getDateTime(j, i);
-            long millis = theTime.getMillis();
-
-            // adjust time zone offset
-            millis += theTime.getZone().getOffset(millis);
-
-            // pg time 0 is 2000-01-01 00:00:00
-            long secs = toPgSecs(TimeUnit.MILLISECONDS.toSeconds(millis));
-
-            buffer.writeLong(TimeUnit.SECONDS.toMicros(secs));
+            reserve(4 + 8);
+            putInt(8);
+            putLong(toPgMicros(column.getDateTime(i), zone));
             break;
           case STRING_TYPE:
             // https://github.com/postgres/postgres/blob/master/src/backend/utils/adt/varchar.c
 
-            String string = tuples.getString(j, i);
-            final byte[] utf8Bytes = string.getBytes("UTF-8");
-            buffer.writeInt(utf8Bytes.length);
-            buffer.write(utf8Bytes);
+            writeString(column.getString(i));
             break;
         }
       }
     }
+  }
+
+  /**
+   * Writes the length and the UTF-8 encoding of the given string. Unpaired surrogates are encoded as '?', like
+   * {@link String#getBytes(String)} does.
+   *
+   * @param string the string.
+   * @throws IOException if there is an IO exception
+   */
+  @SuppressWarnings("checkstyle:magicnumber")
+  private void writeString(final String string) throws IOException {
+    final int numChars = string.length();
+    int numBytes = 0;
+    for (int i = 0; i < numChars; ++i) {
+      final char c = string.charAt(i);
+      if (c < 0x80) {
+        numBytes += 1;
+      } else if (c < 0x800) {
+        numBytes += 2;
+      } else if (isSurrogatePair(string, i)) {
+        numBytes += 4;
+        ++i;
+      } else if (Character.isSurrogate(c)) {
+        numBytes += 1;
+      } else {
+        numBytes += 3;
+      }
+    }
 
-    // 16 bit file trailer
-    buffer.writeShort(-1);
+    reserve(4);
+    putInt(numBytes);
+    for (int i = 0; i < numChars; ++i) {
+      reserve(MAX_UTF8_BYTES_PER_CODE_POINT);
+      final char c = string.charAt(i);
+      if (c < 0x80) {
+        buffer[position++] = (byte) c;
+      } else if (c < 0x800) {
+        buffer[position++] = (byte) (0xC0 | (c >> 6));
+        buffer[position++] = (byte) (0x80 | (c & 0x3F));
+      } else if (isSurrogatePair(string, i)) {
+        final int codePoint = Character.toCodePoint(c, string.charAt(++i));
+        buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+        buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+        buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+      } else if (Character.isSurrogate(c)) {
+        buffer[position++] = '?';
+      } else {
+        buffer[position++] = (byte) (0xE0 | (c >> 12));
+        buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        buffer[position++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+  }
+
+  /**
+   * @param string a string.
+   * @param index the index of a char in the string.
+   * @return true if the chars at <code>index</code> and <code>index + 1</code> form a surrogate pair.
+   */
+  private static boolean isSurrogatePair(final String string, final int index) {
+    return Character.isHighSurrogate(string.charAt(index)) && index + 1 < string.length()
+        && Character.isLowSurrogate(string.charAt(index + 1));
+  }
+
+  /**
+   * Makes sure that the buffer has room for the given number of bytes, writing its content to the output if needed.
+   *
+   * @param numBytes the number of bytes.
+   * @throws IOException if there is an IO exception
+   */
+  private void reserve(final int numBytes) throws IOException {
+    if (buffer.length - position < numBytes) {
+      flushBuffer();
+    }
+  }
+
+  /**
+   * Writes the content of the buffer to the output.
+   *
+   * @throws IOException if there is an IO exception
+   */
+  private void flushBuffer() throws IOException {
+    out.write(buffer, 0, position);
+    position = 0;
+  }
+
+  /**
+   * Encodes a big-endian 16 bit integer. The caller must have reserved room for it.
+   *
+   * @param value the value.
+   */
+  @SuppressWarnings("checkstyle:magicnumber")
+  private void putShort(final short value) {
+    buffer[position++] = (byte) (value >> 8);
+    buffer[position++] = (byte) value;
+  }
+
+  /**
+   * Encodes a big-endian 32 bit integer. The caller must have reserved room for it.
+   *
+   * @param value the value.
+   */
+  @SuppressWarnings("checkstyle:magicnumber")
+  private void putInt(final int value) {
+    buffer[position++] = (byte) (value >> 24);
+    buffer[position++] = (byte) (value >> 16);
+    buffer[position++] = (byte) (value >> 8);
+    buffer[position++] = (byte) value;
+  }
+
+  /**
+   * Encodes a big-endian 64 bit integer. The caller must have reserved room for it.
+   *
+   * @param value the value.
+   */
+  @SuppressWarnings("checkstyle:magicnumber")
+  private void putLong(final long value) {
+    putInt((int) (value >> 32));
+    putInt((int) value);
   }
 
   @Override
   public void done() throws IOException {
-    buffer.flush();
-    buffer.close();
+    // 16 bit file trailer
+    reserve(2);
+    putShort((short) -1);
+    flushBuffer();
+    out.flush();
+    out.close();
   }
 
   @Override
@@ -168,7 +304,7 @@ public class PostgresBinaryTupleWriter implements TupleWriter {
     try {
       throw new IOException("An error ocurred when writing binary data.");
     } finally {
-      buffer.close();
+      out.close();
     }
   }
 }
@@ -137,6 +137,7 @@ public final class RelationKey implements Serializable {
             ret);
         return ret;
       case MyriaConstants.STORAGE_SYSTEM_SQLITE:
+      case MyriaConstants.STORAGE_SYSTEM_COLUMNAR:
         return toString('\"', ':', '\"');
       case MyriaConstants.STORAGE_SYSTEM_MONETDB:
         /* TODO: can we switch the other DBMS to : as well? */
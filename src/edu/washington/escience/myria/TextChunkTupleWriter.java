@@ -0,0 +1,118 @@
+package edu.washington.escience.myria;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.Objects;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.operator.TupleFormatter;
+import edu.washington.escience.myria.storage.ReadableTable;
+
+/**
+ * TextChunkTupleWriter is a {@link TupleWriter} that assembles the text chunks produced by {@link TupleFormatter}
+ * operators on the workers. The output is the same as that of a {@link CsvTupleWriter} or {@link JsonTupleWriter}
+ * serializing the original tuples, but the master only copies text.
+ *
+ * The tuples written to this writer have the single column of {@link TupleFormatter#CHUNK_SCHEMA}, so the header is
+ * written with the names of the original columns given to the constructor.
+ */
+public class TextChunkTupleWriter implements TupleWriter {
+
+  /** The text format, one of "csv", "tsv", and "json". */
+  private final String format;
+  /** The names of the formatted columns. */
+  private final ImmutableList<String> columnNames;
+  /** The writer to which the text is written. */
+  private final Writer output;
+  /** Whether we have output a chunk yet. */
+  private boolean haveWritten = false;
+
+  /**
+   * Constructs a {@link TextChunkTupleWriter}.
+   *
+   * @param format the text format, one of "csv", "tsv", and "json".
+   * @param columnNames the names of the formatted columns.
+   * @param output the {@link OutputStream} to which the data will be written.
+   */
+  public TextChunkTupleWriter(final String format, final List<String> columnNames, final OutputStream output) {
+    this.format = Objects.requireNonNull(format, "format");
+    Preconditions.checkArgument(TupleFormatter.isSupported(format), "format must be 'csv', 'tsv', or 'json'");
+    this.columnNames = ImmutableList.copyOf(columnNames);
+    this.output = new BufferedWriter(new OutputStreamWriter(Objects.requireNonNull(output, "output")));
+  }
+
+  @Override
+  public void writeColumnHeaders(final List<String> chunkColumnNames) throws IOException {
+    if (format.equals("json")) {
+      /* Start the JSON with a '[' to open the list of objects. */
+      output.write('[');
+      return;
+    }
+    /* Use the CSV writer to get the same quoting for the header as for the records. */
+    ByteArrayOutputStream header = new ByteArrayOutputStream();
+    TupleWriter writer;
+    if (format.equals("csv")) {
+      writer = new CsvTupleWriter(header);
+    } else {
+      writer = new CsvTupleWriter('\t', header);
+    }
+    writer.writeColumnHeaders(columnNames);
+    writer.done();
+    output.write(header.toString());
+  }
+
+  @Override
+  public void writeTuples(final ReadableTable tuples) throws IOException {
+    for (int i = 0; i < tuples.numTuples(); ++i) {
+      String chunk = tuples.getString(0, i);
+      if (chunk.isEmpty()) {
+        continue;
+      }
+      /* JSON chunks are lists of objects without the brackets, so they need a separator. */
+      if (haveWritten && format.equals("json")) {
+        output.write(',');
+      }
+      haveWritten = true;
+      output.write(chunk);
+    }
+  }
+
+  @Override
+  public void done() throws IOException {
+    try {
+      if (format.equals("json")) {
+        /* Close the list with ']'. */
+        output.write(']');
+      }
+      output.flush();
+    } finally {
+      output.close();
+    }
+  }
+
+  @Override
+  public void error() throws IOException {
+    try {
+      if (format.equals("json")) {
+        if (haveWritten) {
+          output.write(",{");
+        } else {
+          output.write("{");
+        }
+        output.write("\"error\":\"There was an error. Investigate the query status to see the message\"}]");
+      } else {
+        output.write("There was an error. Investigate the query status to see the message");
+      }
+      output.flush();
+    } finally {
+      output.close();
+    }
+  }
+}
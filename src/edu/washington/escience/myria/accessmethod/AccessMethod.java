@@ -39,6 +39,8 @@ public abstract class AccessMethod {
     switch (dbms) {
       case MyriaConstants.STORAGE_SYSTEM_SQLITE:
         return new SQLiteAccessMethod((SQLiteInfo) connectionInfo, readOnly);
+      case MyriaConstants.STORAGE_SYSTEM_COLUMNAR:
+        return new ColumnarAccessMethod((ColumnarInfo) connectionInfo, readOnly);
       case MyriaConstants.STORAGE_SYSTEM_MONETDB:
       case MyriaConstants.STORAGE_SYSTEM_MYSQL:
       case MyriaConstants.STORAGE_SYSTEM_POSTGRESQL:
@@ -74,6 +76,21 @@ public abstract class AccessMethod {
    */
   public abstract void tupleBatchInsert(final RelationKey relationKey, final TupleBatch tupleBatch) throws DbException;
 
+  /**
+   * Insert the tuples in these TupleBatches into the database. Access methods that can do so insert them all in a
+   * single transaction or bulk load command, which is much faster than inserting them one batch at a time.
+   *
+   * @param relationKey the table to insert into.
+   * @param tupleBatches the tupleBatches to be inserted, which all have the same schema.
+   *
+   * @throws DbException if there is an error inserting the tuples.
+   */
+  public void tupleBatchInsert(final RelationKey relationKey, final List<TupleBatch> tupleBatches) throws DbException {
+    for (TupleBatch tupleBatch : tupleBatches) {
+      tupleBatchInsert(relationKey, tupleBatch);
+    }
+  }
+
   /**
    * Runs a query and expose the results as an Iterator<TupleBatch>.
    * 
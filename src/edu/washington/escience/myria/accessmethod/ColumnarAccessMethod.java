@@ -0,0 +1,400 @@
+package edu.washington.escience.myria.accessmethod;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+
+import org.apache.commons.io.FileUtils;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Striped;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.RelationKey;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+
+/**
+ * Access method for the native columnar storage, see {@link ColumnarRelation}. It stores each relation as a directory of
+ * column files, so that scans read only the columns they need and skip the chunks whose zone maps exclude their
+ * predicates.
+ *
+ * Scans accept the subset of SQL that Myria generates for simple scans: <code>SELECT * | COUNT(*) | col, ...
+ * FROM user:program:relation [WHERE col op literal AND ...] [ORDER BY col [ASC|DESC], ...]</code>.
+ *
+ * There are no secondary indexes: creating an index clusters the relation on the index columns instead, which makes the
+ * zone maps of those columns narrow enough to act as a sparse index.
+ */
+public final class ColumnarAccessMethod extends AccessMethod {
+
+  /** Serializes the writers of each relation directory, across all the access methods of the process. */
+  private static final Striped<Lock> WRITE_LOCKS = Striped.lock(64);
+
+  /** The connection information. */
+  private ColumnarInfo columnarInfo;
+  /** The directory that contains the relations. */
+  private Path root;
+  /** Flag that identifies the connection type (read-only or not). */
+  private Boolean readOnly;
+
+  /**
+   * The constructor.
+   *
+   * @param columnarInfo connection information
+   * @param readOnly whether read-only connection or not
+   * @throws DbException if the storage directory cannot be created.
+   */
+  public ColumnarAccessMethod(final ColumnarInfo columnarInfo, final Boolean readOnly) throws DbException {
+    Objects.requireNonNull(columnarInfo);
+    connect(columnarInfo, readOnly);
+  }
+
+  @Override
+  void connect(final ConnectionInfo connectionInfo, final Boolean readOnly) throws DbException {
+    Objects.requireNonNull(connectionInfo);
+
+    this.readOnly = readOnly;
+    columnarInfo = (ColumnarInfo) connectionInfo;
+    root = Paths.get(columnarInfo.getDirectory());
+    if (!Files.isDirectory(root)) {
+      if (readOnly) {
+        throw new DbException("Storage directory " + root + " does not exist!");
+      }
+      try {
+        Files.createDirectories(root);
+      } catch (IOException e) {
+        throw new DbException("Could not create storage directory " + root, e);
+      }
+    }
+  }
+
+  @Override
+  void setReadOnly(final Boolean readOnly) throws DbException {
+    this.readOnly = readOnly;
+  }
+
+  /**
+   * @param relationKey a relation.
+   * @return the directory of the relation.
+   */
+  private Path directory(final RelationKey relationKey) {
+    return root.resolve(relationKey.toString(MyriaConstants.STORAGE_SYSTEM_COLUMNAR));
+  }
+
+  /**
+   * @param relationKey a relation.
+   * @return the lock that serializes the writers of the relation.
+   */
+  private Lock writeLock(final RelationKey relationKey) {
+    return WRITE_LOCKS.get(directory(relationKey));
+  }
+
+  /**
+   * @throws DbException if this access method is read-only.
+   */
+  private void checkWritable() throws DbException {
+    if (readOnly) {
+      throw new DbException("The columnar storage was opened read-only");
+    }
+  }
+
+  @Override
+  public void tupleBatchInsert(final RelationKey relationKey, final TupleBatch tupleBatch) throws DbException {
+    tupleBatchInsert(relationKey, Collections.singletonList(tupleBatch));
+  }
+
+  @Override
+  public void tupleBatchInsert(final RelationKey relationKey, final List<TupleBatch> tupleBatches)
+      throws DbException {
+    checkWritable();
+    if (tupleBatches.isEmpty()) {
+      return;
+    }
+    final Lock lock = writeLock(relationKey);
+    lock.lock();
+    try {
+      final Path directory = directory(relationKey);
+      final ColumnarRelation relation;
+      if (ColumnarRelation.exists(directory)) {
+        relation = ColumnarRelation.open(directory);
+      } else {
+        relation = ColumnarRelation.create(directory, tupleBatches.get(0).getSchema());
+      }
+      relation.append(tupleBatches, columnarInfo.getCompression());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Iterator<TupleBatch> tupleBatchIteratorFromQuery(final String queryString, final Schema schema)
+      throws DbException {
+    final ColumnarQuery query = ColumnarQuery.parse(queryString);
+    final ColumnarRelation relation = ColumnarRelation.open(directory(query.getRelationKey()));
+    query.bind(relation.getSchema());
+
+    if (query.isCount()) {
+      checkOutputSchema(schema, ImmutableList.of(Type.LONG_TYPE), queryString);
+      long count = 0;
+      if (query.getPredicates().isEmpty()) {
+        for (ColumnarRelation.Chunk chunk : relation.readChunks()) {
+          count += chunk.getNumTuples();
+        }
+      } else {
+        final Iterator<TupleBatch> tuples =
+            relation.scan(new int[0], query.getPredicates(), Schema.EMPTY_SCHEMA);
+        while (tuples.hasNext()) {
+          count += tuples.next().numTuples();
+        }
+      }
+      final TupleBatchBuffer result = new TupleBatchBuffer(schema);
+      result.putLong(0, count);
+      return result.getAll().iterator();
+    }
+
+    final int[] columns = query.getColumns();
+    final List<Type> types = new ArrayList<>(columns.length);
+    for (int column : columns) {
+      types.add(relation.getSchema().getColumnType(column));
+    }
+    checkOutputSchema(schema, types, queryString);
+
+    final Iterator<TupleBatch> tuples = relation.scan(columns, query.getPredicates(), schema);
+    if (query.getSortColumns() == null) {
+      return tuples;
+    }
+    return ColumnarRelation.sort(tuples, schema, query.getSortColumns(), query.getAscending()).iterator();
+  }
+
+  /**
+   * @param schema the schema expected by the caller.
+   * @param types the types of the columns returned by the query.
+   * @param queryString the query.
+   * @throws DbException if the types do not match the schema.
+   */
+  private static void checkOutputSchema(final Schema schema, final List<Type> types, final String queryString)
+      throws DbException {
+    if (!schema.getColumnTypes().equals(types)) {
+      throw new DbException("Query " + queryString + " returns columns of types " + types + ", not " + schema);
+    }
+  }
+
+  @Override
+  void execute(final String ddlCommand) throws DbException {
+    throw new DbException("The columnar storage does not execute SQL commands: " + ddlCommand);
+  }
+
+  @Override
+  public void close() throws DbException {
+    /* Scans map their files and close them right away, so there is nothing to release. */
+  }
+
+  @Override
+  public String insertStatementFromSchema(final Schema schema, final RelationKey relationKey) {
+    throw new UnsupportedOperationException("The columnar storage has no insert statements");
+  }
+
+  @Override
+  public String createIfNotExistsStatementFromSchema(final Schema schema, final RelationKey relationKey) {
+    throw new UnsupportedOperationException("The columnar storage has no create statements");
+  }
+
+  @Override
+  public void createTableIfNotExists(final RelationKey relationKey, final Schema schema) throws DbException {
+    checkWritable();
+    final Lock lock = writeLock(relationKey);
+    lock.lock();
+    try {
+      final Path directory = directory(relationKey);
+      if (!ColumnarRelation.exists(directory)) {
+        ColumnarRelation.create(directory, schema);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void dropAndRenameTables(final RelationKey oldRelation, final RelationKey newRelation) throws DbException {
+    checkWritable();
+    final Lock oldLock = writeLock(oldRelation);
+    final Lock newLock = writeLock(newRelation);
+    oldLock.lock();
+    try {
+      if (newLock != oldLock) {
+        newLock.lock();
+      }
+      try {
+        final Path oldDirectory = directory(oldRelation);
+        final Path dropped = moveAside(oldDirectory);
+        try {
+          Files.move(directory(newRelation), oldDirectory, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+          throw new DbException("Unable to rename " + newRelation + " to " + oldRelation, e);
+        }
+        delete(dropped);
+      } finally {
+        if (newLock != oldLock) {
+          newLock.unlock();
+        }
+      }
+    } finally {
+      oldLock.unlock();
+    }
+  }
+
+  @Override
+  public void dropTableIfExists(final RelationKey relationKey) throws DbException {
+    checkWritable();
+    final Lock lock = writeLock(relationKey);
+    lock.lock();
+    try {
+      delete(moveAside(directory(relationKey)));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void dropTableIfExistsCascade(final RelationKey relationKey) throws DbException {
+    /* There are no views or foreign keys that depend on a relation. */
+    dropTableIfExists(relationKey);
+  }
+
+  /**
+   * Renames a directory to a fresh name, so that its name can be reused at once while it is deleted.
+   *
+   * @param directory the directory.
+   * @return its new name, or null if it does not exist.
+   * @throws DbException if the directory cannot be renamed.
+   */
+  private static Path moveAside(final Path directory) throws DbException {
+    if (!Files.exists(directory)) {
+      return null;
+    }
+    final Path aside = directory.resolveSibling(directory.getFileName() + ".dropped." + UUID.randomUUID());
+    try {
+      Files.move(directory, aside, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new DbException("Unable to drop " + directory, e);
+    }
+    return aside;
+  }
+
+  /**
+   * @param directory a directory, or null.
+   * @throws DbException if the directory cannot be deleted.
+   */
+  private static void delete(final Path directory) throws DbException {
+    if (directory == null) {
+      return;
+    }
+    try {
+      FileUtils.deleteDirectory(directory.toFile());
+    } catch (IOException e) {
+      throw new DbException("Unable to delete " + directory, e);
+    }
+  }
+
+  @Override
+  public void createIndexes(final RelationKey relationKey, final Schema schema, final List<List<IndexRef>> indexes)
+      throws DbException {
+    checkWritable();
+    if (indexes.isEmpty()) {
+      return;
+    }
+    final Lock lock = writeLock(relationKey);
+    lock.lock();
+    try {
+      final ColumnarRelation relation = cluster(relationKey, indexes.get(0));
+      final List<List<IndexRef>> allIndexes = new ArrayList<>(relation.readIndexes());
+      for (List<IndexRef> index : indexes) {
+        if (!allIndexes.contains(index)) {
+          allIndexes.add(index);
+        }
+      }
+      relation.writeIndexes(allIndexes);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void createIndexIfNotExists(final RelationKey relationKey, final Schema schema, final List<IndexRef> index)
+      throws DbException {
+    checkWritable();
+    final Lock lock = writeLock(relationKey);
+    lock.lock();
+    try {
+      final List<List<IndexRef>> indexes = ColumnarRelation.open(directory(relationKey)).readIndexes();
+      if (indexes.contains(index)) {
+        return;
+      }
+      final ColumnarRelation relation;
+      if (indexes.isEmpty()) {
+        relation = cluster(relationKey, index);
+      } else {
+        /* The relation is already clustered on its first index. */
+        relation = ColumnarRelation.open(directory(relationKey));
+      }
+      final List<List<IndexRef>> allIndexes = new ArrayList<>(indexes);
+      allIndexes.add(index);
+      relation.writeIndexes(allIndexes);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Sorts a relation on the columns of an index. The sorted relation is written to a new directory that then replaces
+   * the relation, so that running scans keep reading the old files. The caller must hold the write lock.
+   *
+   * @param relationKey the relation.
+   * @param index the columns to sort on.
+   * @return the sorted relation.
+   * @throws DbException if the relation cannot be sorted.
+   */
+  private ColumnarRelation cluster(final RelationKey relationKey, final List<IndexRef> index) throws DbException {
+    final Path directory = directory(relationKey);
+    final ColumnarRelation relation = ColumnarRelation.open(directory);
+    final Schema schema = relation.getSchema();
+    final int[] columns = new int[schema.numColumns()];
+    for (int i = 0; i < columns.length; ++i) {
+      columns[i] = i;
+    }
+    final int[] sortColumns = new int[index.size()];
+    final boolean[] ascending = new boolean[index.size()];
+    for (int i = 0; i < sortColumns.length; ++i) {
+      sortColumns[i] = index.get(i).getColumn();
+      ascending[i] = index.get(i).isAscending();
+    }
+    final List<TupleBatch> sorted =
+        ColumnarRelation.sort(relation.scan(columns, ImmutableList.<ColumnarQuery.Predicate> of(), schema), schema,
+            sortColumns, ascending);
+
+    final Path clustered = directory.resolveSibling(directory.getFileName() + ".clustered." + UUID.randomUUID());
+    final ColumnarRelation result = ColumnarRelation.create(clustered, schema);
+    result.append(sorted, columnarInfo.getCompression());
+    result.writeIndexes(relation.readIndexes());
+    final Path dropped = moveAside(directory);
+    try {
+      Files.move(clustered, directory, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new DbException("Unable to replace " + relationKey + " by its clustered copy", e);
+    }
+    delete(dropped);
+    return ColumnarRelation.open(directory);
+  }
+}
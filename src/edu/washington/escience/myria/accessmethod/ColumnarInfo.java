@@ -0,0 +1,83 @@
+package edu.washington.escience.myria.accessmethod;
+
+import java.io.Serializable;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.MyriaConstants.ColumnCompression;
+
+/**
+ * Holds the info for the native columnar storage of a worker.
+ */
+public final class ColumnarInfo extends ConnectionInfo implements Serializable {
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+  /** The directory that contains the relations. */
+  @JsonProperty
+  private final String directory;
+  /** How newly written chunks are compressed. */
+  @JsonProperty
+  private final ColumnCompression compression;
+
+  /**
+   * This is not really unused, it's used automagically by Jackson deserialization.
+   */
+  private ColumnarInfo() {
+    directory = null;
+    compression = ColumnCompression.NONE;
+  }
+
+  /**
+   * Private constructor.
+   *
+   * @param directory the directory that contains the relations.
+   * @param compression how newly written chunks are compressed.
+   */
+  private ColumnarInfo(final String directory, final ColumnCompression compression) {
+    this.directory = Preconditions.checkNotNull(directory, "directory");
+    this.compression = Preconditions.checkNotNull(compression, "compression");
+  }
+
+  /**
+   * Creates a new ColumnarInfo object that stores uncompressed chunks.
+   *
+   * @param directory the directory that contains the relations.
+   * @return a new ColumnarInfo containing this information.
+   */
+  public static ColumnarInfo of(final String directory) {
+    return new ColumnarInfo(directory, ColumnCompression.NONE);
+  }
+
+  /**
+   * Creates a new ColumnarInfo object.
+   *
+   * @param directory the directory that contains the relations.
+   * @param compression how newly written chunks are compressed.
+   * @return a new ColumnarInfo containing this information.
+   */
+  public static ColumnarInfo of(final String directory, final ColumnCompression compression) {
+    return new ColumnarInfo(directory, compression);
+  }
+
+  /**
+   * @return the directory that contains the relations.
+   */
+  public String getDirectory() {
+    return directory;
+  }
+
+  /**
+   * @return how newly written chunks are compressed.
+   */
+  public ColumnCompression getCompression() {
+    return MoreObjects.firstNonNull(compression, ColumnCompression.NONE);
+  }
+
+  @Override
+  public String getDbms() {
+    return MyriaConstants.STORAGE_SYSTEM_COLUMNAR;
+  }
+}
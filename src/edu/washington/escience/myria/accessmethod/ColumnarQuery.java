@@ -0,0 +1,581 @@
+package edu.washington.escience.myria.accessmethod;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.joda.time.DateTime;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.RelationKey;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+
+/**
+ * The subset of SQL that the {@link ColumnarAccessMethod} answers, i.e., the queries Myria itself issues to scan a
+ * relation:
+ *
+ * <pre>
+ * SELECT { * | COUNT(*) | column [, column]* } FROM "user:program:relation"
+ *   [WHERE column op literal [AND column op literal]*]
+ *   [ORDER BY column [ASC | DESC] [, column [ASC | DESC]]*]
+ * </pre>
+ *
+ * where <code>op</code> is one of <code>= &lt;&gt; != &lt; &lt;= &gt; &gt;=</code>, and a literal is a number, a
+ * quoted string, <code>TRUE</code> or <code>FALSE</code>. Column names may be quoted with <code>""</code>,
+ * <code>[]</code> or <code>``</code>.
+ */
+final class ColumnarQuery {
+
+  /** The tokens of the supported SQL. */
+  private static final Pattern TOKEN = Pattern.compile("\\s*(?:(?<string>'(?:[^']|'')*')"
+      + "|(?<quoted>\"[^\"]*\"|\\[[^\\]]*\\]|`[^`]*`)" + "|(?<number>[-+]?(?:\\d+\\.?\\d*|\\.\\d+)(?:[eE][-+]?\\d+)?)"
+      + "|(?<symbol><=|>=|<>|!=|=|<|>|\\(|\\)|,|\\*|;)" + "|(?<word>[A-Za-z_]\\w*))");
+
+  /** A comparison operator. */
+  enum Op {
+    /** = */
+    EQ,
+    /** <> or != */
+    NE,
+    /** < */
+    LT,
+    /** <= */
+    LE,
+    /** > */
+    GT,
+    /** >= */
+    GE;
+
+    /**
+     * @param sign the sign of the comparison of a value to the literal.
+     * @return true if a value that compares to the literal like <code>sign</code> satisfies this operator.
+     */
+    boolean accepts(final int sign) {
+      switch (this) {
+        case EQ:
+          return sign == 0;
+        case NE:
+          return sign != 0;
+        case LT:
+          return sign < 0;
+        case LE:
+          return sign <= 0;
+        case GT:
+          return sign > 0;
+        case GE:
+          return sign >= 0;
+      }
+      throw new IllegalStateException("Unknown operator " + this);
+    }
+  }
+
+  /** A comparison of a column to a literal. */
+  static final class Predicate {
+    /** The index of the column in the relation. */
+    private final int column;
+    /** The type of the column. */
+    private final Type type;
+    /** The operator. */
+    private final Op op;
+    /** The literal, as a long, if the column is integral, or as the bits of a double, if it is floating point. */
+    private final long number;
+    /** True if the literal is a whole number, so that integral columns can be compared exactly. */
+    private final boolean integral;
+    /** The literal, if the column is a string. */
+    private final String string;
+
+    /**
+     * @param column the index of the column in the relation.
+     * @param type the type of the column.
+     * @param op the operator.
+     * @param literal the text of the literal.
+     * @param quoted true if the literal is a quoted string.
+     * @throws DbException if the literal does not fit the type of the column.
+     */
+    private Predicate(final int column, final Type type, final Op op, final String literal, final boolean quoted)
+        throws DbException {
+      this.column = column;
+      this.type = type;
+      this.op = op;
+      try {
+        switch (type) {
+          case STRING_TYPE:
+            checkLiteral(quoted, literal);
+            string = literal;
+            number = 0;
+            integral = false;
+            return;
+          case DATETIME_TYPE:
+            checkLiteral(quoted, literal);
+            string = null;
+            number = new DateTime(literal).getMillis();
+            integral = true;
+            return;
+          case BOOLEAN_TYPE:
+            checkLiteral(!quoted, literal);
+            string = null;
+            if (literal.equalsIgnoreCase("true") || literal.equals("1")) {
+              number = 1;
+            } else if (literal.equalsIgnoreCase("false") || literal.equals("0")) {
+              number = 0;
+            } else {
+              throw new DbException("Not a boolean: " + literal);
+            }
+            integral = true;
+            return;
+          case INT_TYPE:
+          case LONG_TYPE:
+          case FLOAT_TYPE:
+          case DOUBLE_TYPE:
+            checkLiteral(!quoted, literal);
+            string = null;
+            final double value = Double.parseDouble(literal);
+            integral = (type == Type.INT_TYPE || type == Type.LONG_TYPE) && value == Math.rint(value);
+            if (integral) {
+              number = literal.matches("[-+]?\\d+") ? Long.parseLong(literal) : (long) value;
+            } else {
+              number = Double.doubleToLongBits(value);
+            }
+            return;
+        }
+      } catch (IllegalArgumentException e) {
+        throw new DbException("Cannot compare column of type " + type + " to " + literal, e);
+      }
+      throw new DbException("Unknown type " + type);
+    }
+
+    /**
+     * @param valid whether the literal has the right kind for the column.
+     * @param literal the literal.
+     * @throws DbException if it does not.
+     */
+    private void checkLiteral(final boolean valid, final String literal) throws DbException {
+      if (!valid) {
+        throw new DbException("Cannot compare column of type " + type + " to " + literal);
+      }
+    }
+
+    /**
+     * @return the index of the column in the relation.
+     */
+    int getColumn() {
+      return column;
+    }
+
+    /**
+     * @param value a value of an integral column (INT, LONG, DATETIME or BOOLEAN).
+     * @return true if the value satisfies this predicate.
+     */
+    boolean acceptsLong(final long value) {
+      if (integral) {
+        return op.accepts(Long.compare(value, number));
+      }
+      return op.accepts(compare(value, Double.longBitsToDouble(number)));
+    }
+
+    /**
+     * @param value a value of a floating point column.
+     * @return true if the value satisfies this predicate.
+     */
+    boolean acceptsDouble(final double value) {
+      return op.accepts(compare(value, Double.longBitsToDouble(number)));
+    }
+
+    /**
+     * Compares like SQL does: 0.0 equals -0.0, and NaN is larger than every other value.
+     *
+     * @param value a value.
+     * @param literal the literal.
+     * @return the sign of the comparison of the value to the literal.
+     */
+    private static int compare(final double value, final double literal) {
+      if (value < literal) {
+        return -1;
+      }
+      if (value > literal) {
+        return 1;
+      }
+      if (value == literal) {
+        return 0;
+      }
+      return Double.compare(value, literal);
+    }
+
+    /**
+     * @param value a value of a string column.
+     * @return true if the value satisfies this predicate.
+     */
+    boolean acceptsString(final String value) {
+      return op.accepts(Integer.signum(value.compareTo(string)));
+    }
+
+    /**
+     * Whether any value in the range [min, max] of a column chunk can satisfy this predicate, i.e., whether the chunk
+     * has to be read.
+     *
+     * @param min the smallest value of the chunk, encoded like {@link ColumnarRelation} encodes zone maps.
+     * @param max the largest value of the chunk.
+     * @return false if no value of the chunk satisfies this predicate.
+     */
+    boolean mayAccept(final long min, final long max) {
+      final int minSign;
+      final int maxSign;
+      if (type == Type.FLOAT_TYPE || type == Type.DOUBLE_TYPE) {
+        final double literal = Double.longBitsToDouble(number);
+        minSign = compare(Double.longBitsToDouble(min), literal);
+        maxSign = compare(Double.longBitsToDouble(max), literal);
+      } else if (integral) {
+        minSign = Long.compare(min, number);
+        maxSign = Long.compare(max, number);
+      } else {
+        final double literal = Double.longBitsToDouble(number);
+        minSign = compare(min, literal);
+        maxSign = compare(max, literal);
+      }
+      switch (op) {
+        case EQ:
+          return minSign <= 0 && maxSign >= 0;
+        case NE:
+          return !(minSign == 0 && maxSign == 0);
+        case LT:
+          return minSign < 0;
+        case LE:
+          return minSign <= 0;
+        case GT:
+          return maxSign > 0;
+        case GE:
+          return maxSign >= 0;
+      }
+      throw new IllegalStateException("Unknown operator " + op);
+    }
+  }
+
+  /** The relation to scan. */
+  private final RelationKey relationKey;
+  /** True if the query counts the tuples instead of returning them. */
+  private boolean count;
+  /** The indices of the columns of the relation that are returned. */
+  private int[] columns;
+  /** The conjunction of predicates the returned tuples satisfy. */
+  private final List<Predicate> predicates = new ArrayList<>();
+  /** The indices, in {@link #columns}, of the columns the tuples are ordered by. */
+  private int[] sortColumns;
+  /** True for each column in {@link #sortColumns} that is ordered ascending. */
+  private boolean[] ascending;
+
+  /** The names of the returned columns, until the schema of the relation is known. */
+  private List<String> pendingColumnNames;
+  /** The tokens of the query. */
+  private final List<String> tokens;
+  /** The kind of each token, i.e., the name of the group of {@link #TOKEN} it matched. */
+  private final List<String> kinds;
+  /** The index of the next token. */
+  private int next;
+
+  /**
+   * Tokenizes a query.
+   *
+   * @param sql the query.
+   * @throws DbException if the query contains characters that are not part of the supported SQL.
+   */
+  private ColumnarQuery(final String sql) throws DbException {
+    tokens = new ArrayList<>();
+    kinds = new ArrayList<>();
+    final Matcher matcher = TOKEN.matcher(sql);
+    int end = sql.length();
+    while (end > 0 && Character.isWhitespace(sql.charAt(end - 1))) {
+      --end;
+    }
+    int position = 0;
+    while (position < end) {
+      matcher.region(position, end);
+      if (!matcher.lookingAt()) {
+        throw new DbException("Unsupported query for the columnar storage: " + sql);
+      }
+      for (String kind : ImmutableList.of("string", "quoted", "number", "symbol", "word")) {
+        if (matcher.group(kind) != null) {
+          kinds.add(kind);
+          tokens.add(matcher.group(kind));
+          break;
+        }
+      }
+      position = matcher.end();
+    }
+    next = 0;
+
+    expectWord("SELECT");
+    final List<String> columnNames = new ArrayList<>();
+    if (acceptSymbol("*")) {
+      columnNames.add("*");
+    } else if (peekWord("COUNT")) {
+      expectWord("COUNT");
+      expectSymbol("(");
+      expectSymbol("*");
+      expectSymbol(")");
+      count = true;
+    } else {
+      do {
+        columnNames.add(identifier());
+      } while (acceptSymbol(","));
+    }
+    expectWord("FROM");
+    final String relation = identifier();
+    final String[] parts = relation.split(":");
+    if (parts.length != 3) {
+      throw new DbException("Not a relation: " + relation);
+    }
+    relationKey = RelationKey.of(parts[0], parts[1], parts[2]);
+    pendingColumnNames = columnNames;
+  }
+
+  /**
+   * Parses a query.
+   *
+   * @param sql the query.
+   * @return the relation that the query scans; call {@link #bind(Schema)} with its schema to parse the rest.
+   * @throws DbException if the query is not supported.
+   */
+  static ColumnarQuery parse(final String sql) throws DbException {
+    return new ColumnarQuery(sql);
+  }
+
+  /**
+   * Resolves the column names of the query against the schema of the relation and parses the rest of the query.
+   *
+   * @param schema the schema of the relation.
+   * @throws DbException if the query refers to unknown columns or is not supported.
+   */
+  void bind(final Schema schema) throws DbException {
+    Preconditions.checkState(pendingColumnNames != null, "already bound");
+    if (count) {
+      columns = new int[0];
+    } else if (pendingColumnNames.equals(ImmutableList.of("*"))) {
+      columns = new int[schema.numColumns()];
+      for (int i = 0; i < columns.length; ++i) {
+        columns[i] = i;
+      }
+    } else {
+      columns = new int[pendingColumnNames.size()];
+      for (int i = 0; i < columns.length; ++i) {
+        columns[i] = column(schema, pendingColumnNames.get(i));
+      }
+    }
+    pendingColumnNames = null;
+
+    if (acceptWord("WHERE")) {
+      do {
+        final int column = column(schema, identifier());
+        final Op op = operator();
+        final boolean quoted = "string".equals(kinds.get(next));
+        String literal = token();
+        if (quoted) {
+          literal = literal.substring(1, literal.length() - 1).replace("''", "'");
+        }
+        predicates.add(new Predicate(column, schema.getColumnType(column), op, literal, quoted));
+      } while (acceptWord("AND"));
+    }
+
+    if (acceptWord("ORDER")) {
+      expectWord("BY");
+      final List<Integer> sortList = new ArrayList<>();
+      final List<Boolean> ascendingList = new ArrayList<>();
+      do {
+        final int column = column(schema, identifier());
+        int outputColumn = -1;
+        for (int i = 0; i < columns.length; ++i) {
+          if (columns[i] == column) {
+            outputColumn = i;
+          }
+        }
+        if (outputColumn < 0) {
+          throw new DbException("ORDER BY column " + schema.getColumnName(column) + " is not selected");
+        }
+        sortList.add(outputColumn);
+        if (acceptWord("DESC")) {
+          ascendingList.add(false);
+        } else {
+          acceptWord("ASC");
+          ascendingList.add(true);
+        }
+      } while (acceptSymbol(","));
+      sortColumns = new int[sortList.size()];
+      ascending = new boolean[sortList.size()];
+      for (int i = 0; i < sortColumns.length; ++i) {
+        sortColumns[i] = sortList.get(i);
+        ascending[i] = ascendingList.get(i);
+      }
+    }
+
+    acceptSymbol(";");
+    if (next != tokens.size()) {
+      throw new DbException("Unsupported query for the columnar storage, unexpected " + tokens.get(next));
+    }
+  }
+
+  /**
+   * @return the relation to scan.
+   */
+  RelationKey getRelationKey() {
+    return relationKey;
+  }
+
+  /**
+   * @return true if the query counts the tuples instead of returning them.
+   */
+  boolean isCount() {
+    return count;
+  }
+
+  /**
+   * @return the indices of the columns of the relation that are returned.
+   */
+  int[] getColumns() {
+    return columns;
+  }
+
+  /**
+   * @return the conjunction of predicates the returned tuples satisfy.
+   */
+  List<Predicate> getPredicates() {
+    return predicates;
+  }
+
+  /**
+   * @return the indices, in the returned columns, of the columns the tuples are ordered by, or null.
+   */
+  int[] getSortColumns() {
+    return sortColumns;
+  }
+
+  /**
+   * @return true for each sort column that is ordered ascending, or null.
+   */
+  boolean[] getAscending() {
+    return ascending;
+  }
+
+  /**
+   * @param schema the schema of the relation.
+   * @param name the name of a column.
+   * @return the index of the column.
+   * @throws DbException if there is no such column.
+   */
+  private static int column(final Schema schema, final String name) throws DbException {
+    for (int i = 0; i < schema.numColumns(); ++i) {
+      if (schema.getColumnName(i).equalsIgnoreCase(name)) {
+        return i;
+      }
+    }
+    throw new DbException("Unknown column " + name + " in " + schema);
+  }
+
+  /**
+   * @return the next token, which is consumed.
+   * @throws DbException if there is no more token.
+   */
+  private String token() throws DbException {
+    if (next >= tokens.size()) {
+      throw new DbException("Unexpected end of query");
+    }
+    return tokens.get(next++);
+  }
+
+  /**
+   * @return the next token, a possibly quoted identifier, without its quotes.
+   * @throws DbException if the next token is not an identifier.
+   */
+  private String identifier() throws DbException {
+    if (next < tokens.size() && kinds.get(next).equals("quoted")) {
+      final String quoted = token();
+      return quoted.substring(1, quoted.length() - 1);
+    }
+    if (next < tokens.size() && kinds.get(next).equals("word")) {
+      return token();
+    }
+    throw new DbException("Expected an identifier at " + (next < tokens.size() ? tokens.get(next) : "end of query"));
+  }
+
+  /**
+   * @return the next token, a comparison operator.
+   * @throws DbException if the next token is not a comparison operator.
+   */
+  private Op operator() throws DbException {
+    final String symbol = token();
+    switch (symbol) {
+      case "=":
+        return Op.EQ;
+      case "<>":
+      case "!=":
+        return Op.NE;
+      case "<":
+        return Op.LT;
+      case "<=":
+        return Op.LE;
+      case ">":
+        return Op.GT;
+      case ">=":
+        return Op.GE;
+      default:
+        throw new DbException("Unsupported comparison " + symbol);
+    }
+  }
+
+  /**
+   * @param word a keyword.
+   * @return true if the next token is the keyword.
+   */
+  private boolean peekWord(final String word) {
+    return next < tokens.size() && kinds.get(next).equals("word")
+        && tokens.get(next).toUpperCase(Locale.ROOT).equals(word);
+  }
+
+  /**
+   * @param word a keyword.
+   * @return true if the next token was the keyword, which is consumed.
+   */
+  private boolean acceptWord(final String word) {
+    if (peekWord(word)) {
+      ++next;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @param word a keyword, which must be the next token.
+   * @throws DbException if the next token is not the keyword.
+   */
+  private void expectWord(final String word) throws DbException {
+    if (!acceptWord(word)) {
+      throw new DbException("Expected " + word + " at " + (next < tokens.size() ? tokens.get(next) : "end of query"));
+    }
+  }
+
+  /**
+   * @param symbol a symbol.
+   * @return true if the next token was the symbol, which is consumed.
+   */
+  private boolean acceptSymbol(final String symbol) {
+    if (next < tokens.size() && kinds.get(next).equals("symbol") && tokens.get(next).equals(symbol)) {
+      ++next;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @param symbol a symbol, which must be the next token.
+   * @throws DbException if the next token is not the symbol.
+   */
+  private void expectSymbol(final String symbol) throws DbException {
+    if (!acceptSymbol(symbol)) {
+      throw new DbException("Expected " + symbol + " at " + (next < tokens.size() ? tokens.get(next) : "end of query"));
+    }
+  }
+}
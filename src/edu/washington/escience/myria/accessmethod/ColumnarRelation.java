@@ -0,0 +1,785 @@
+package edu.washington.escience.myria.accessmethod;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import org.joda.time.DateTime;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.CodedInputStream;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.MyriaConstants.ColumnCompression;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.accessmethod.AccessMethod.IndexRef;
+import edu.washington.escience.myria.accessmethod.ColumnarQuery.Predicate;
+import edu.washington.escience.myria.api.MyriaJsonMapperProvider;
+import edu.washington.escience.myria.column.BooleanColumn;
+import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.column.DateTimeColumn;
+import edu.washington.escience.myria.column.DoubleBufferColumn;
+import edu.washington.escience.myria.column.FloatBufferColumn;
+import edu.washington.escience.myria.column.IntBufferColumn;
+import edu.washington.escience.myria.column.LongBufferColumn;
+import edu.washington.escience.myria.column.StringArrayColumn;
+import edu.washington.escience.myria.column.builder.ColumnCompressor;
+import edu.washington.escience.myria.proto.DataProto.ColumnMessage;
+import edu.washington.escience.myria.storage.MutableTupleBuffer;
+import edu.washington.escience.myria.storage.ReadableColumn;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+import edu.washington.escience.myria.storage.TupleUtils;
+
+/**
+ * A relation in the native columnar storage. Each relation is a directory with
+ * <ul>
+ * <li><code>schema.json</code>, the schema of the relation;</li>
+ * <li><code>column_i</code>, the values of column <code>i</code>, as a sequence of chunks;</li>
+ * <li><code>chunks</code>, an append-only index with one fixed-size record per chunk, holding its number of tuples
+ * and, for each column, the offset, length and encoding of the chunk in the column file and the zone map of its values,
+ * i.e., their minimum and maximum;</li>
+ * <li><code>indexes.json</code>, the indexes created on the relation, if any.</li>
+ * </ul>
+ *
+ * Each inserted {@link TupleBatch} becomes one chunk. Chunks are stored raw and little-endian, so that scans wrap the
+ * memory-mapped column files in buffer-backed columns without copying them, or compressed by {@link ColumnCompressor}
+ * when that makes them smaller. A chunk becomes visible once its record is appended to the index, so readers never need
+ * a lock. Files are never modified in place: overwriting or clustering a relation writes a new directory, so the files
+ * that a running scan has mapped stay valid.
+ */
+final class ColumnarRelation {
+
+  /** The file that holds the schema. */
+  private static final String SCHEMA_FILE = "schema.json";
+  /** The file that holds the chunk records. */
+  private static final String CHUNKS_FILE = "chunks";
+  /** The file that holds the indexes. */
+  private static final String INDEXES_FILE = "indexes.json";
+  /** The prefix of the column files. */
+  private static final String COLUMN_FILE_PREFIX = "column_";
+  /** How much of a column file a scan maps at once. */
+  private static final int MAP_WINDOW_BYTES = 64 * 1024 * 1024;
+  /** A chunk stored raw. */
+  private static final byte RAW = 0;
+  /** A chunk stored as a compressed {@link ColumnMessage}. */
+  private static final byte COMPRESSED = 1;
+  /** The number of bytes of the record of each column in a chunk record: offset, length, encoding, range flag, range. */
+  private static final int COLUMN_RECORD_BYTES = 8 + 4 + 1 + 1 + 8 + 8;
+  /** The byte order of the files. */
+  private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+  /** Where a chunk is stored and what values it holds. */
+  static final class Chunk {
+    /** The number of tuples in the chunk. */
+    private final int numTuples;
+    /** The offset of the chunk in each column file. */
+    private final long[] offsets;
+    /** The length of the chunk in each column file. */
+    private final int[] lengths;
+    /** The encoding of the chunk in each column file. */
+    private final byte[] encodings;
+    /** True for each column whose zone map is known. */
+    private final boolean[] hasRange;
+    /** The minimum of each column, see {@link #zoneMapValue}. */
+    private final long[] mins;
+    /** The maximum of each column, see {@link #zoneMapValue}. */
+    private final long[] maxs;
+
+    /**
+     * @param numTuples the number of tuples in the chunk.
+     * @param numColumns the number of columns of the relation.
+     */
+    private Chunk(final int numTuples, final int numColumns) {
+      this.numTuples = numTuples;
+      offsets = new long[numColumns];
+      lengths = new int[numColumns];
+      encodings = new byte[numColumns];
+      hasRange = new boolean[numColumns];
+      mins = new long[numColumns];
+      maxs = new long[numColumns];
+    }
+
+    /**
+     * @return the number of tuples in the chunk.
+     */
+    int getNumTuples() {
+      return numTuples;
+    }
+
+    /**
+     * @param predicates a conjunction of predicates.
+     * @return false if the zone maps show that no tuple of this chunk satisfies the predicates.
+     */
+    boolean mayMatch(final List<Predicate> predicates) {
+      for (Predicate predicate : predicates) {
+        final int column = predicate.getColumn();
+        if (hasRange[column] && !predicate.mayAccept(mins[column], maxs[column])) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /** The directory of the relation. */
+  private final Path directory;
+  /** The schema of the relation. */
+  private final Schema schema;
+
+  /**
+   * @param directory the directory of the relation.
+   * @param schema the schema of the relation.
+   */
+  private ColumnarRelation(final Path directory, final Schema schema) {
+    this.directory = directory;
+    this.schema = schema;
+  }
+
+  /**
+   * @param directory the directory of a relation.
+   * @return true if the relation exists.
+   */
+  static boolean exists(final Path directory) {
+    return Files.exists(directory.resolve(SCHEMA_FILE));
+  }
+
+  /**
+   * Creates an empty relation.
+   *
+   * @param directory the directory of the relation, which must not exist.
+   * @param schema the schema of the relation.
+   * @return the relation.
+   * @throws DbException if the relation cannot be created.
+   */
+  static ColumnarRelation create(final Path directory, final Schema schema) throws DbException {
+    try {
+      Files.createDirectories(directory);
+      final Path temp = directory.resolve(SCHEMA_FILE + ".tmp");
+      MyriaJsonMapperProvider.getMapper().writeValue(temp.toFile(), schema);
+      Files.move(temp, directory.resolve(SCHEMA_FILE), StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new DbException("Unable to create relation in " + directory, e);
+    }
+    return new ColumnarRelation(directory, schema);
+  }
+
+  /**
+   * Opens an existing relation.
+   *
+   * @param directory the directory of the relation.
+   * @return the relation.
+   * @throws DbException if the relation does not exist or cannot be read.
+   */
+  static ColumnarRelation open(final Path directory) throws DbException {
+    try {
+      final Schema schema =
+          MyriaJsonMapperProvider.getMapper().readValue(directory.resolve(SCHEMA_FILE).toFile(), Schema.class);
+      return new ColumnarRelation(directory, schema);
+    } catch (NoSuchFileException | FileNotFoundException e) {
+      throw new DbException("Relation in " + directory + " does not exist", e);
+    } catch (IOException e) {
+      throw new DbException("Unable to read relation in " + directory, e);
+    }
+  }
+
+  /**
+   * @return the schema of the relation.
+   */
+  Schema getSchema() {
+    return schema;
+  }
+
+  /**
+   * @return the directory of the relation.
+   */
+  Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * @param column a column.
+   * @return the file that holds the column.
+   */
+  private Path columnFile(final int column) {
+    return directory.resolve(COLUMN_FILE_PREFIX + column);
+  }
+
+  /**
+   * Reads the records of the chunks that have been completely appended.
+   *
+   * @return the chunks of the relation.
+   * @throws DbException if the index cannot be read.
+   */
+  List<Chunk> readChunks() throws DbException {
+    final Path chunksFile = directory.resolve(CHUNKS_FILE);
+    if (!Files.exists(chunksFile)) {
+      return ImmutableList.of();
+    }
+    final ByteBuffer records;
+    try {
+      records = ByteBuffer.wrap(Files.readAllBytes(chunksFile)).order(ORDER);
+    } catch (IOException e) {
+      throw new DbException("Unable to read the chunks of " + directory, e);
+    }
+    final int numColumns = schema.numColumns();
+    final int recordBytes = 4 + numColumns * COLUMN_RECORD_BYTES;
+    final List<Chunk> chunks = new ArrayList<>(records.remaining() / recordBytes);
+    /* A record that is still being appended is ignored. */
+    while (records.remaining() >= recordBytes) {
+      final Chunk chunk = new Chunk(records.getInt(), numColumns);
+      for (int column = 0; column < numColumns; ++column) {
+        chunk.offsets[column] = records.getLong();
+        chunk.lengths[column] = records.getInt();
+        chunk.encodings[column] = records.get();
+        chunk.hasRange[column] = records.get() != 0;
+        chunk.mins[column] = records.getLong();
+        chunk.maxs[column] = records.getLong();
+      }
+      chunks.add(chunk);
+    }
+    return chunks;
+  }
+
+  /**
+   * Appends batches to the relation, one chunk per batch. The caller must make sure no one else appends to the
+   * relation at the same time.
+   *
+   * @param tupleBatches the batches.
+   * @param compression how to compress the chunks.
+   * @throws DbException if the batches cannot be written.
+   */
+  void append(final List<TupleBatch> tupleBatches, final ColumnCompression compression) throws DbException {
+    final int numColumns = schema.numColumns();
+    final ByteBuffer records =
+        ByteBuffer.allocate(tupleBatches.size() * (4 + numColumns * COLUMN_RECORD_BYTES)).order(ORDER);
+    final FileChannel[] files = new FileChannel[numColumns];
+    try {
+      for (int column = 0; column < numColumns; ++column) {
+        files[column] =
+            FileChannel.open(columnFile(column), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+      }
+      for (TupleBatch tb : tupleBatches) {
+        if (!tb.getSchema().getColumnTypes().equals(schema.getColumnTypes())) {
+          throw new DbException("Cannot insert tuples of schema " + tb.getSchema() + " into a relation of schema "
+              + schema);
+        }
+        if (tb.numTuples() == 0) {
+          continue;
+        }
+        records.putInt(tb.numTuples());
+        for (int column = 0; column < numColumns; ++column) {
+          final Chunk zoneMap = new Chunk(tb.numTuples(), 1);
+          final Column<?> values = tb.getDataColumns().get(column);
+          ByteBuffer data = encode(values, zoneMap);
+          byte encoding = RAW;
+          if (compression != ColumnCompression.NONE) {
+            final ColumnMessage compressed = ColumnCompressor.compress(values, compression);
+            if (compressed.hasEncodedColumn() && compressed.getSerializedSize() < data.remaining()) {
+              data = ByteBuffer.wrap(compressed.toByteArray());
+              encoding = COMPRESSED;
+            }
+          }
+          final long offset = files[column].size();
+          final int length = data.remaining();
+          while (data.hasRemaining()) {
+            files[column].write(data);
+          }
+          records.putLong(offset).putInt(length).put(encoding).put((byte) (zoneMap.hasRange[0] ? 1 : 0));
+          records.putLong(zoneMap.mins[0]).putLong(zoneMap.maxs[0]);
+        }
+      }
+      for (FileChannel file : files) {
+        file.force(false);
+      }
+      records.flip();
+      try (FileChannel chunksFile =
+          FileChannel.open(directory.resolve(CHUNKS_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+              StandardOpenOption.APPEND)) {
+        while (records.hasRemaining()) {
+          chunksFile.write(records);
+        }
+      }
+    } catch (IOException e) {
+      throw new DbException("Unable to append to relation in " + directory, e);
+    } finally {
+      for (FileChannel file : files) {
+        if (file != null) {
+          try {
+            file.close();
+          } catch (IOException e) {
+            throw new DbException(e);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * The value of a cell in a zone map: the value itself for integral columns, milliseconds for DATETIME, 0 or 1 for
+   * BOOLEAN, and the bits of the value as a double for floating point columns.
+   *
+   * @param values a column.
+   * @param row a row.
+   * @return the value of the cell in a zone map.
+   */
+  private static long zoneMapValue(final Column<?> values, final int row) {
+    switch (values.getType()) {
+      case INT_TYPE:
+        return values.getInt(row);
+      case LONG_TYPE:
+        return values.getLong(row);
+      case DATETIME_TYPE:
+        return values.getDateTime(row).getMillis();
+      case BOOLEAN_TYPE:
+        return values.getBoolean(row) ? 1 : 0;
+      default:
+        throw new IllegalArgumentException("No integral zone map for " + values.getType());
+    }
+  }
+
+  /**
+   * @param values a FLOAT or DOUBLE column.
+   * @param row a row.
+   * @return the value of the cell as a double.
+   */
+  private static double doubleValue(final Column<?> values, final int row) {
+    if (values.getType() == Type.FLOAT_TYPE) {
+      return values.getFloat(row);
+    }
+    return values.getDouble(row);
+  }
+
+  /**
+   * Encodes a chunk of a column in the raw format, and computes its zone map.
+   *
+   * @param values the column.
+   * @param zoneMap where to store the zone map, as the range of its only column.
+   * @return the encoded chunk.
+   */
+  private static ByteBuffer encode(final Column<?> values, final Chunk zoneMap) {
+    final int numTuples = values.size();
+    final ByteBuffer data;
+    switch (values.getType()) {
+      case INT_TYPE:
+      case LONG_TYPE:
+      case DATETIME_TYPE:
+      case BOOLEAN_TYPE:
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int row = 0; row < numTuples; ++row) {
+          final long value = zoneMapValue(values, row);
+          min = Math.min(min, value);
+          max = Math.max(max, value);
+        }
+        zoneMap.hasRange[0] = true;
+        zoneMap.mins[0] = min;
+        zoneMap.maxs[0] = max;
+        break;
+      case FLOAT_TYPE:
+      case DOUBLE_TYPE:
+        double minDouble = Double.POSITIVE_INFINITY;
+        double maxDouble = Double.NEGATIVE_INFINITY;
+        boolean hasNaN = false;
+        for (int row = 0; row < numTuples; ++row) {
+          final double value = doubleValue(values, row);
+          hasNaN |= Double.isNaN(value);
+          minDouble = Math.min(minDouble, value);
+          maxDouble = Math.max(maxDouble, value);
+        }
+        /* NaN is larger than every value in comparisons, so a chunk with a NaN has no useful range. */
+        zoneMap.hasRange[0] = !hasNaN;
+        zoneMap.mins[0] = Double.doubleToLongBits(minDouble);
+        zoneMap.maxs[0] = Double.doubleToLongBits(maxDouble);
+        break;
+      case STRING_TYPE:
+        break;
+    }
+
+    switch (values.getType()) {
+      case INT_TYPE:
+        data = ByteBuffer.allocate(numTuples * 4).order(ORDER);
+        for (int row = 0; row < numTuples; ++row) {
+          data.putInt(values.getInt(row));
+        }
+        break;
+      case FLOAT_TYPE:
+        data = ByteBuffer.allocate(numTuples * 4).order(ORDER);
+        for (int row = 0; row < numTuples; ++row) {
+          data.putFloat(values.getFloat(row));
+        }
+        break;
+      case LONG_TYPE:
+      case DATETIME_TYPE:
+        data = ByteBuffer.allocate(numTuples * 8).order(ORDER);
+        for (int row = 0; row < numTuples; ++row) {
+          data.putLong(zoneMapValue(values, row));
+        }
+        break;
+      case DOUBLE_TYPE:
+        data = ByteBuffer.allocate(numTuples * 8).order(ORDER);
+        for (int row = 0; row < numTuples; ++row) {
+          data.putDouble(values.getDouble(row));
+        }
+        break;
+      case BOOLEAN_TYPE:
+        final BitSet bits = new BitSet(numTuples);
+        for (int row = 0; row < numTuples; ++row) {
+          bits.set(row, values.getBoolean(row));
+        }
+        data = ByteBuffer.wrap(bits.toByteArray());
+        data.position(data.limit());
+        break;
+      case STRING_TYPE:
+        /* The end offset of each string, then the UTF-8 bytes of all the strings. */
+        final byte[][] strings = new byte[numTuples][];
+        int numBytes = 0;
+        for (int row = 0; row < numTuples; ++row) {
+          strings[row] = values.getString(row).getBytes(StandardCharsets.UTF_8);
+          numBytes += strings[row].length;
+        }
+        data = ByteBuffer.allocate(numTuples * 4 + numBytes).order(ORDER);
+        int end = 0;
+        for (int row = 0; row < numTuples; ++row) {
+          end += strings[row].length;
+          data.putInt(end);
+        }
+        for (int row = 0; row < numTuples; ++row) {
+          data.put(strings[row]);
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown type " + values.getType());
+    }
+    data.flip();
+    return data;
+  }
+
+  /**
+   * Decodes a chunk of a column.
+   *
+   * @param type the type of the column.
+   * @param numTuples the number of tuples in the chunk.
+   * @param encoding the encoding of the chunk.
+   * @param data the chunk, which raw fixed-width columns wrap without copying.
+   * @return the column.
+   * @throws DbException if the chunk is corrupt.
+   */
+  private static Column<?> decode(final Type type, final int numTuples, final byte encoding, final ByteBuffer data)
+      throws DbException {
+    if (encoding == COMPRESSED) {
+      try {
+        final CodedInputStream in = CodedInputStream.newInstance(toArray(data, data.remaining()));
+        return ColumnCompressor.decompress(ColumnMessage.parseFrom(in), numTuples);
+      } catch (IOException | IllegalArgumentException e) {
+        throw new DbException("Corrupt compressed chunk of type " + type, e);
+      }
+    }
+    switch (type) {
+      case INT_TYPE:
+        return new IntBufferColumn(data.asIntBuffer());
+      case FLOAT_TYPE:
+        return new FloatBufferColumn(data.asFloatBuffer());
+      case LONG_TYPE:
+        return new LongBufferColumn(data.asLongBuffer());
+      case DOUBLE_TYPE:
+        return new DoubleBufferColumn(data.asDoubleBuffer());
+      case DATETIME_TYPE:
+        final DateTime[] dates = new DateTime[numTuples];
+        for (int row = 0; row < numTuples; ++row) {
+          dates[row] = new DateTime(data.getLong());
+        }
+        return new DateTimeColumn(dates, numTuples);
+      case BOOLEAN_TYPE:
+        return new BooleanColumn(BitSet.valueOf(data), numTuples);
+      case STRING_TYPE:
+        final int[] ends = new int[numTuples];
+        data.asIntBuffer().get(ends);
+        data.position(data.position() + numTuples * 4);
+        final byte[] bytes = toArray(data, data.remaining());
+        final String[] strings = new String[numTuples];
+        int start = 0;
+        for (int row = 0; row < numTuples; ++row) {
+          strings[row] = new String(bytes, start, ends[row] - start, StandardCharsets.UTF_8);
+          start = ends[row];
+        }
+        return new StringArrayColumn(strings, numTuples);
+    }
+    throw new DbException("Unknown type " + type);
+  }
+
+  /**
+   * @param data a buffer.
+   * @param length the number of bytes to copy from its position.
+   * @return the bytes.
+   */
+  private static byte[] toArray(final ByteBuffer data, final int length) {
+    final byte[] bytes = new byte[length];
+    data.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * A column file, memory-mapped a window at a time.
+   */
+  private static final class MappedColumnFile {
+    /** The file. */
+    private final Path path;
+    /** The currently mapped part of the file. */
+    private MappedByteBuffer window;
+    /** The offset of {@link #window} in the file. */
+    private long windowStart;
+
+    /**
+     * @param path the file.
+     */
+    MappedColumnFile(final Path path) {
+      this.path = path;
+    }
+
+    /**
+     * @param offset the offset of a chunk.
+     * @param length the length of the chunk.
+     * @return the chunk, little-endian.
+     * @throws IOException if the file cannot be mapped.
+     */
+    ByteBuffer read(final long offset, final int length) throws IOException {
+      if (window == null || offset < windowStart || offset + length > windowStart + window.capacity()) {
+        /* The channel can be closed as soon as the file is mapped. */
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+          final long size = Math.min(channel.size() - offset, Math.max(length, MAP_WINDOW_BYTES));
+          window = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+          windowStart = offset;
+        }
+      }
+      final ByteBuffer chunk = window.duplicate();
+      chunk.position((int) (offset - windowStart));
+      chunk.limit(chunk.position() + length);
+      return chunk.slice().order(ORDER);
+    }
+  }
+
+  /**
+   * Scans the relation.
+   *
+   * @param columns the columns to return.
+   * @param predicates a conjunction of predicates that the returned tuples satisfy.
+   * @param outputSchema the schema of the returned tuples.
+   * @return the tuples, one batch per chunk that has matching tuples.
+   * @throws DbException if the relation cannot be read.
+   */
+  Iterator<TupleBatch> scan(final int[] columns, final List<Predicate> predicates, final Schema outputSchema)
+      throws DbException {
+    final List<Chunk> chunks = readChunks();
+    final MappedColumnFile[] files = new MappedColumnFile[schema.numColumns()];
+    for (int column : columns) {
+      files[column] = new MappedColumnFile(columnFile(column));
+    }
+    for (Predicate predicate : predicates) {
+      files[predicate.getColumn()] = new MappedColumnFile(columnFile(predicate.getColumn()));
+    }
+
+    return new AbstractIterator<TupleBatch>() {
+      /** The index of the next chunk. */
+      private int next = 0;
+
+      @Override
+      protected TupleBatch computeNext() {
+        try {
+          while (next < chunks.size()) {
+            final Chunk chunk = chunks.get(next++);
+            if (!chunk.mayMatch(predicates)) {
+              continue;
+            }
+            final Column<?>[] decoded = new Column<?>[files.length];
+            BitSet matches = null;
+            for (Predicate predicate : predicates) {
+              final int column = predicate.getColumn();
+              if (decoded[column] == null) {
+                decoded[column] = readColumn(files, chunk, column);
+              }
+              matches = evaluate(predicate, decoded[column], chunk.numTuples, matches);
+            }
+            if (matches != null && matches.isEmpty()) {
+              continue;
+            }
+            final List<Column<?>> output = new ArrayList<>(columns.length);
+            for (int column : columns) {
+              if (decoded[column] == null) {
+                decoded[column] = readColumn(files, chunk, column);
+              }
+              output.add(decoded[column]);
+            }
+            TupleBatch tb = new TupleBatch(outputSchema, output, chunk.numTuples);
+            if (matches != null) {
+              tb = tb.filter(matches);
+            }
+            return tb;
+          }
+          return endOfData();
+        } catch (DbException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+  }
+
+  /**
+   * @param files the column files.
+   * @param chunk a chunk.
+   * @param column a column.
+   * @return the values of the column in the chunk.
+   * @throws DbException if the chunk cannot be read.
+   */
+  private Column<?> readColumn(final MappedColumnFile[] files, final Chunk chunk, final int column)
+      throws DbException {
+    try {
+      final ByteBuffer data = files[column].read(chunk.offsets[column], chunk.lengths[column]);
+      return decode(schema.getColumnType(column), chunk.numTuples, chunk.encodings[column], data);
+    } catch (IOException e) {
+      throw new DbException("Unable to read column " + column + " of relation in " + directory, e);
+    }
+  }
+
+  /**
+   * Evaluates a predicate on the rows of a chunk that satisfy the previous predicates.
+   *
+   * @param predicate the predicate.
+   * @param values the column of the predicate.
+   * @param numTuples the number of tuples in the chunk.
+   * @param previous the rows that satisfy the previous predicates, or null for all the rows.
+   * @return the rows that satisfy this and the previous predicates.
+   */
+  private static BitSet evaluate(final Predicate predicate, final Column<?> values, final int numTuples,
+      final BitSet previous) {
+    final BitSet matches;
+    if (previous == null) {
+      matches = new BitSet(numTuples);
+      matches.set(0, numTuples);
+    } else {
+      matches = previous;
+    }
+    for (int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row + 1)) {
+      final boolean match;
+      switch (values.getType()) {
+        case FLOAT_TYPE:
+        case DOUBLE_TYPE:
+          match = predicate.acceptsDouble(doubleValue(values, row));
+          break;
+        case STRING_TYPE:
+          match = predicate.acceptsString(values.getString(row));
+          break;
+        default:
+          match = predicate.acceptsLong(zoneMapValue(values, row));
+          break;
+      }
+      if (!match) {
+        matches.clear(row);
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * Sorts tuples in memory.
+   *
+   * @param tuples the tuples.
+   * @param schema the schema of the tuples.
+   * @param sortColumns the columns to sort by.
+   * @param ascending true for each sort column that is sorted ascending.
+   * @return the sorted tuples.
+   */
+  static List<TupleBatch> sort(final Iterator<TupleBatch> tuples, final Schema schema, final int[] sortColumns,
+      final boolean[] ascending) {
+    final MutableTupleBuffer table = new MutableTupleBuffer(schema);
+    while (tuples.hasNext()) {
+      final TupleBatch tb = tuples.next();
+      for (int row = 0; row < tb.numTuples(); ++row) {
+        for (int column = 0; column < tb.numColumns(); ++column) {
+          table.put(column, tb.getDataColumns().get(column), row);
+        }
+      }
+    }
+
+    final List<Integer> rows = new ArrayList<>(table.numTuples());
+    for (int row = 0; row < table.numTuples(); ++row) {
+      rows.add(row);
+    }
+    Collections.sort(rows, new Comparator<Integer>() {
+      @Override
+      public int compare(final Integer row, final Integer otherRow) {
+        for (int i = 0; i < sortColumns.length; ++i) {
+          final int compared = TupleUtils.cellCompare(table, sortColumns[i], row, table, sortColumns[i], otherRow);
+          if (compared != 0) {
+            return ascending[i] ? compared : -compared;
+          }
+        }
+        return 0;
+      }
+    });
+
+    final TupleBatchBuffer sorted = new TupleBatchBuffer(schema);
+    for (int row : rows) {
+      final ReadableColumn[] columns = table.getColumns(row);
+      final int tupleIndex = table.getTupleIndexInContainingTB(row);
+      for (int column = 0; column < schema.numColumns(); ++column) {
+        sorted.put(column, columns[column], tupleIndex);
+      }
+    }
+    return sorted.getAll();
+  }
+
+  /**
+   * @return the indexes created on the relation.
+   * @throws DbException if the indexes cannot be read.
+   */
+  List<List<IndexRef>> readIndexes() throws DbException {
+    final Path indexesFile = directory.resolve(INDEXES_FILE);
+    if (!Files.exists(indexesFile)) {
+      return ImmutableList.of();
+    }
+    try {
+      return MyriaJsonMapperProvider.getMapper().readValue(indexesFile.toFile(),
+          new TypeReference<List<List<IndexRef>>>() {
+          });
+    } catch (IOException e) {
+      throw new DbException("Unable to read the indexes of " + directory, e);
+    }
+  }
+
+  /**
+   * @param indexes the indexes created on the relation.
+   * @throws DbException if the indexes cannot be written.
+   */
+  void writeIndexes(final List<List<IndexRef>> indexes) throws DbException {
+    final ObjectMapper mapper = MyriaJsonMapperProvider.getMapper();
+    try {
+      final Path temp = directory.resolve(INDEXES_FILE + ".tmp");
+      mapper.writeValue(temp.toFile(), indexes);
+      Files.move(temp, directory.resolve(INDEXES_FILE), StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new DbException("Unable to write the indexes of " + directory, e);
+    }
+  }
+}
@@ -9,6 +9,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
@@ -34,6 +35,7 @@ import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.TupleWriter;
 import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.column.StringDictionary;
 import edu.washington.escience.myria.column.builder.ColumnBuilder;
 import edu.washington.escience.myria.column.builder.ColumnFactory;
 import edu.washington.escience.myria.storage.TupleBatch;
@@ -109,11 +111,10 @@ public final class JdbcAccessMethod extends AccessMethod {
    * Helper function to copy data into PostgreSQL using the COPY command.
    * 
    * @param relationKey the destination relation
-   * @param schema the schema of the relation
-   * @param tupleBatch the tuples to be inserted.
+   * @param tupleBatches the tuples to be inserted.
    * @throws DbException if there is an error.
    */
-  private void postgresCopyInsert(final RelationKey relationKey, final Schema schema, final TupleBatch tupleBatch)
+  private void postgresCopyInsert(final RelationKey relationKey, final List<TupleBatch> tupleBatches)
       throws DbException {
     // Use the postgres COPY command which is much faster
     try {
@@ -123,12 +124,16 @@ public final class JdbcAccessMethod extends AccessMethod {
       CopyIn copyIn = cpManager.copyIn(copyString.toString());
 
       TupleWriter tw = new PostgresBinaryTupleWriter(new PGCopyOutputStream(copyIn));
-      tw.writeTuples(tupleBatch);
+      long numTuples = 0;
+      for (TupleBatch tupleBatch : tupleBatches) {
+        tw.writeTuples(tupleBatch);
+        numTuples += tupleBatch.numTuples();
+      }
       tw.done();
 
       long inserted = copyIn.getHandledRowCount();
-      Preconditions.checkState(inserted == tupleBatch.numTuples(),
-          "Error: inserted a batch of size %s but only actually inserted %s rows", tupleBatch.numTuples(), inserted);
+      Preconditions.checkState(inserted == numTuples,
+          "Error: inserted a batch of size %s but only actually inserted %s rows", numTuples, inserted);
     } catch (final SQLException e) {
       throw ErrorUtils.mergeSQLException(e);
     } catch (final IOException e) {
@@ -139,19 +144,28 @@ public final class JdbcAccessMethod extends AccessMethod {
 
   @Override
   public void tupleBatchInsert(final RelationKey relationKey, final TupleBatch tupleBatch) throws DbException {
-    LOGGER.debug("Inserting batch of size {}", tupleBatch.numTuples());
+    tupleBatchInsert(relationKey, Collections.singletonList(tupleBatch));
+  }
+
+  @Override
+  public void tupleBatchInsert(final RelationKey relationKey, final List<TupleBatch> tupleBatches)
+      throws DbException {
     Objects.requireNonNull(jdbcConnection, "jdbcConnection");
+    if (tupleBatches.isEmpty()) {
+      return;
+    }
+    LOGGER.debug("Inserting {} batches", tupleBatches.size());
 
-    Schema schema = tupleBatch.getSchema();
+    Schema schema = tupleBatches.get(0).getSchema();
 
     boolean writeSucceeds = false;
     if (jdbcInfo.getDbms().equals(MyriaConstants.STORAGE_SYSTEM_POSTGRESQL)) {
       /*
-       * There are bugs when using the COPY command to store doubles and floats into PostgreSQL. See
-       * uwescience/myria-web#48
+       * COPY BINARY encodes every Myria type. If it fails anyway, e.g., because an existing table has other column
+       * types than the schema, fall back to prepared statements and let PostgreSQL convert the values.
        */
       try {
-        postgresCopyInsert(relationKey, schema, tupleBatch);
+        postgresCopyInsert(relationKey, tupleBatches);
         writeSucceeds = true;
       } catch (DbException e) {
         LOGGER.error("Error inserting batch via PostgreSQL COPY", e);
@@ -168,33 +182,35 @@ public final class JdbcAccessMethod extends AccessMethod {
         /* Set up and execute the query */
         final PreparedStatement statement =
             jdbcConnection.prepareStatement(insertStatementFromSchema(schema, relationKey));
-        for (int row = 0; row < tupleBatch.numTuples(); ++row) {
-          for (int col = 0; col < tupleBatch.numColumns(); ++col) {
-            switch (schema.getColumnType(col)) {
-              case BOOLEAN_TYPE:
-                statement.setBoolean(col + 1, tupleBatch.getBoolean(col, row));
-                break;
-              case DATETIME_TYPE:
-                statement.setTimestamp(col + 1, new Timestamp(tupleBatch.getDateTime(col, row).getMillis()));
-                break;
-              case DOUBLE_TYPE:
-                statement.setDouble(col + 1, tupleBatch.getDouble(col, row));
-                break;
-              case FLOAT_TYPE:
-                statement.setFloat(col + 1, tupleBatch.getFloat(col, row));
-                break;
-              case INT_TYPE:
-                statement.setInt(col + 1, tupleBatch.getInt(col, row));
-                break;
-              case LONG_TYPE:
-                statement.setLong(col + 1, tupleBatch.getLong(col, row));
-                break;
-              case STRING_TYPE:
-                statement.setString(col + 1, tupleBatch.getString(col, row));
-                break;
+        for (TupleBatch tupleBatch : tupleBatches) {
+          for (int row = 0; row < tupleBatch.numTuples(); ++row) {
+            for (int col = 0; col < tupleBatch.numColumns(); ++col) {
+              switch (schema.getColumnType(col)) {
+                case BOOLEAN_TYPE:
+                  statement.setBoolean(col + 1, tupleBatch.getBoolean(col, row));
+                  break;
+                case DATETIME_TYPE:
+                  statement.setTimestamp(col + 1, new Timestamp(tupleBatch.getDateTime(col, row).getMillis()));
+                  break;
+                case DOUBLE_TYPE:
+                  statement.setDouble(col + 1, tupleBatch.getDouble(col, row));
+                  break;
+                case FLOAT_TYPE:
+                  statement.setFloat(col + 1, tupleBatch.getFloat(col, row));
+                  break;
+                case INT_TYPE:
+                  statement.setInt(col + 1, tupleBatch.getInt(col, row));
+                  break;
+                case LONG_TYPE:
+                  statement.setLong(col + 1, tupleBatch.getLong(col, row));
+                  break;
+                case STRING_TYPE:
+                  statement.setString(col + 1, tupleBatch.getString(col, row));
+                  break;
+              }
             }
+            statement.addBatch();
           }
-          statement.addBatch();
         }
         statement.executeBatch();
         statement.close();
@@ -202,7 +218,7 @@ public final class JdbcAccessMethod extends AccessMethod {
         throw ErrorUtils.mergeSQLException(e);
       }
     }
-    LOGGER.debug(".. done inserting batch of size {}", tupleBatch.numTuples());
+    LOGGER.debug(".. done inserting {} batches", tupleBatches.size());
   }
 
   @Override
@@ -660,7 +676,9 @@ class JdbcTupleBatchIterator implements Iterator<TupleBatch> {
       return null;
     }
     final int numFields = schema.numColumns();
-    final List<ColumnBuilder<?>> columnBuilders = ColumnFactory.allocateColumns(schema);
+    /* Encode the strings, so that joins, grouping and duplicate elimination can compare their codes. */
+    final List<ColumnBuilder<?>> columnBuilders =
+        ColumnFactory.allocateColumns(schema, StringDictionary.sharedWithRoom());
     int numTuples = 0;
     for (numTuples = 0; numTuples < TupleBatch.BATCH_SIZE; ++numTuples) {
       if (!resultSet.next()) {
@@ -38,12 +38,14 @@ import com.wordnik.swagger.annotations.ApiOperation;
 import com.wordnik.swagger.annotations.ApiResponse;
 import com.wordnik.swagger.annotations.ApiResponses;
 
+import edu.washington.escience.myria.BinaryColumnarTupleWriter;
 import edu.washington.escience.myria.CsvTupleWriter;
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.JsonTupleWriter;
 import edu.washington.escience.myria.MyriaConstants;
 import edu.washington.escience.myria.RelationKey;
 import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.TextChunkTupleWriter;
 import edu.washington.escience.myria.TupleWriter;
 import edu.washington.escience.myria.accessmethod.AccessMethod.IndexRef;
 import edu.washington.escience.myria.api.encoding.DatasetEncoding;
@@ -144,11 +146,31 @@ public final class DatasetResource {
     throw new MyriaApiException(Status.BAD_REQUEST, "format must be 'csv', 'tsv', or 'json'");
   }
 
+  /**
+   * Helper function to parse a download format string, with default value "csv". In addition to the formats accepted
+   * by {@link #validateFormat(String)}, downloads may use the "binary" columnar format, see
+   * {@link BinaryColumnarTupleWriter}.
+   * 
+   * @param format the format string, with default value "csv".
+   * @return the cleaned-up format string.
+   */
+  private String validateDownloadFormat(final String format) {
+    if (format != null && format.trim().toLowerCase().equals("binary")) {
+      return "binary";
+    }
+    try {
+      return validateFormat(format);
+    } catch (MyriaApiException e) {
+      throw new MyriaApiException(Status.BAD_REQUEST, "format must be 'csv', 'tsv', 'json', or 'binary'");
+    }
+  }
+
   /**
    * @param userName the user who owns the target relation.
    * @param programName the program to which the target relation belongs.
    * @param relationName the name of the target relation.
-   * @param format the format of the output data. Valid options are (case-insensitive) "csv", "tsv", and "json".
+   * @param format the format of the output data. Valid options are (case-insensitive) "csv", "tsv", "json", and
+   *          "binary".
    * @return metadata about the specified relation.
    * @throws DbException if there is an error in the database.
    */
@@ -158,15 +180,93 @@ public final class DatasetResource {
   public Response getDatasetData(@PathParam("userName") final String userName,
       @PathParam("programName") final String programName, @PathParam("relationName") final String relationName,
       @QueryParam("format") final String format) throws DbException {
+    return streamDataset(RelationKey.of(userName, programName, relationName), format, null);
+  }
 
-    /* Start building the response. */
-    ResponseBuilder response = Response.ok();
+  /**
+   * @param userName the user who owns the target relation.
+   * @param programName the program to which the target relation belongs.
+   * @param relationName the name of the target relation.
+   * @return the workers that store the relation, whose parts can be downloaded in parallel from
+   *         {@link #getDatasetShardData}.
+   * @throws DbException if there is an error in the database.
+   */
+  @GET
+  @Path("/user-{userName}/program-{programName}/relation-{relationName}/data/workers")
+  public Response getDatasetDataWorkers(@PathParam("userName") final String userName,
+      @PathParam("programName") final String programName, @PathParam("relationName") final String relationName)
+      throws DbException {
+    RelationKey relationKey = RelationKey.of(userName, programName, relationName);
+    Set<Integer> workers;
+    try {
+      workers = server.getWorkersForRelation(relationKey, null);
+    } catch (CatalogException e) {
+      throw new DbException(e);
+    }
+    if (workers == null || workers.isEmpty()) {
+      throw new MyriaApiException(Status.NOT_FOUND, "That dataset was not found");
+    }
+    return Response.ok().cacheControl(MyriaApiUtils.doNotCache()).entity(workers).build();
+  }
 
-    /* Assemble the name of the relation. */
+  /**
+   * Download the part of a relation stored on one worker, so that clients can fetch all parts in parallel.
+   * 
+   * @param userName the user who owns the target relation.
+   * @param programName the program to which the target relation belongs.
+   * @param relationName the name of the target relation.
+   * @param workerId the worker whose part of the relation is downloaded.
+   * @param format the format of the output data. Valid options are (case-insensitive) "csv", "tsv", "json", and
+   *          "binary".
+   * @return metadata about the specified relation.
+   * @throws DbException if there is an error in the database.
+   */
+  @GET
+  @Produces({ MediaType.APPLICATION_OCTET_STREAM, MyriaApiConstants.JSON_UTF_8 })
+  @Path("/user-{userName}/program-{programName}/relation-{relationName}/data/worker-{workerId:\\d+}")
+  public Response getDatasetShardData(@PathParam("userName") final String userName,
+      @PathParam("programName") final String programName, @PathParam("relationName") final String relationName,
+      @PathParam("workerId") final int workerId, @QueryParam("format") final String format) throws DbException {
     RelationKey relationKey = RelationKey.of(userName, programName, relationName);
+    try {
+      Set<Integer> workers = server.getWorkersForRelation(relationKey, null);
+      if (workers == null || !workers.contains(workerId)) {
+        throw new MyriaApiException(Status.NOT_FOUND, "That dataset was not found on worker " + workerId);
+      }
+    } catch (CatalogException e) {
+      throw new DbException(e);
+    }
+    return streamDataset(relationKey, format, workerId);
+  }
+
+  /**
+   * Stream a relation, or the part of it stored on one worker, to the client. Text formats are serialized in parallel
+   * on the workers; the binary format is serialized at the master, which is cheap since it copies column values.
+   * 
+   * @param relationKey the relation to be downloaded.
+   * @param format the format of the output data.
+   * @param workerId if not null, the only worker whose part of the relation is downloaded.
+   * @return the response streaming the data.
+   * @throws DbException if there is an error in the database.
+   */
+  private Response streamDataset(final RelationKey relationKey, final String format, final Integer workerId)
+      throws DbException {
+    /* Start building the response. */
+    ResponseBuilder response = Response.ok();
 
     /* Validate the request format. This will throw a MyriaApiException if format is invalid. */
-    String validFormat = validateFormat(format);
+    String validFormat = validateDownloadFormat(format);
+
+    /* Get the schema of the relation, to make sure it exists. */
+    Schema schema;
+    try {
+      schema = server.getSchema(relationKey);
+    } catch (CatalogException e) {
+      throw new DbException(e);
+    }
+    if (schema == null) {
+      throw new MyriaApiException(Status.NOT_FOUND, "That dataset was not found");
+    }
 
     /*
      * Allocate the pipes by which the {@link DataOutput} operator will talk to the {@link StreamingOutput} object that
@@ -186,34 +286,36 @@ public final class DatasetResource {
     response.entity(entity);
 
     /* Set up the TupleWriter and the Response MediaType based on the format choices. */
+    String fileName = relationKey.toString();
+    if (workerId != null) {
+      fileName += "-worker-" + workerId;
+    }
     TupleWriter writer;
-    if (validFormat.equals("csv") || validFormat.equals("tsv")) {
-      /* CSV or TSV : set application/octet-stream, attachment, and filename. */
-      try {
-        if (validFormat.equals("csv")) {
-          writer = new CsvTupleWriter(writerOutput);
-        } else {
-          writer = new CsvTupleWriter('\t', writerOutput);
-        }
-      } catch (IOException e) {
-        throw new DbException(e);
-      }
-      ContentDisposition contentDisposition =
-          ContentDisposition.type("attachment").fileName(relationKey.toString() + '.' + validFormat).build();
-
-      response.header("Content-Disposition", contentDisposition);
+    String workerFormat;
+    if (validFormat.equals("binary")) {
+      /* Binary: set application/octet-stream, attachment, and filename. */
+      writer = new BinaryColumnarTupleWriter(schema, writerOutput);
+      workerFormat = null;
+      response.header("Content-Disposition", ContentDisposition.type("attachment").fileName(fileName + ".bin")
+          .build());
       response.type(MediaType.APPLICATION_OCTET_STREAM);
-    } else if (validFormat.equals("json")) {
-      /* JSON: set application/json. */
-      response.type(MyriaApiConstants.JSON_UTF_8);
-      writer = new JsonTupleWriter(writerOutput);
     } else {
-      /* Should not be possible to get here. */
-      throw new IllegalStateException("format should have been validated by now, and yet we got here");
+      /* Text: the workers format the tuples, and the master assembles the chunks. */
+      writer = new TextChunkTupleWriter(validFormat, schema.getColumnNames(), writerOutput);
+      workerFormat = validFormat;
+      if (validFormat.equals("json")) {
+        /* JSON: set application/json. */
+        response.type(MyriaApiConstants.JSON_UTF_8);
+      } else {
+        /* CSV or TSV : set application/octet-stream, attachment, and filename. */
+        response.header("Content-Disposition", ContentDisposition.type("attachment").fileName(
+            fileName + '.' + validFormat).build());
+        response.type(MediaType.APPLICATION_OCTET_STREAM);
+      }
     }
 
     /* Start streaming tuples into the TupleWriter, and through the pipes to the PipedStreamingOutput. */
-    server.startDataStream(relationKey, writer);
+    server.startDataStream(relationKey, writer, workerFormat, workerId);
 
     /* Yay, worked! Ensure the file has the correct filename. */
     return response.build();
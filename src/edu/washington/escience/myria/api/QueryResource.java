@@ -28,6 +28,7 @@ import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.api.encoding.QueryEncoding;
 import edu.washington.escience.myria.api.encoding.QuerySearchResults;
 import edu.washington.escience.myria.api.encoding.QueryStatusEncoding;
+import edu.washington.escience.myria.api.encoding.SchedulerStatusEncoding;
 import edu.washington.escience.myria.coordinator.CatalogException;
 import edu.washington.escience.myria.parallel.QueryFuture;
 import edu.washington.escience.myria.parallel.Server;
@@ -153,6 +154,18 @@ public final class QueryResource {
     return response.build();
   }
 
+  /**
+   * Get the state of the query scheduler: the queued and running queries of each user, and the load of each worker.
+   * 
+   * @return the state of the query scheduler.
+   */
+  @GET
+  @Path("scheduler")
+  public Response getSchedulerStatus() {
+    SchedulerStatusEncoding status = server.getQueryManager().getSchedulerStatus();
+    return Response.ok().cacheControl(MyriaApiUtils.doNotCache()).entity(status).build();
+  }
+
   /**
    * Get the cached execution plan for a specific subquery.
    * 
@@ -0,0 +1,34 @@
+package edu.washington.escience.myria.api.encoding;
+
+import javax.ws.rs.core.Response.Status;
+
+import edu.washington.escience.myria.api.MyriaApiException;
+import edu.washington.escience.myria.api.encoding.QueryConstruct.ConstructArgs;
+import edu.washington.escience.myria.operator.ExternalOrderBy;
+
+public class ExternalOrderByEncoding extends UnaryOperatorEncoding<ExternalOrderBy> {
+
+  @Required
+  public int[] argSortColumns;
+  @Required
+  public boolean[] argAscending;
+  /** The memory budget of the sort in bytes, beyond which it spills to disk. Uses the worker's budget if null. */
+  public Long argMemoryBudgetBytes;
+
+  @Override
+  public ExternalOrderBy construct(final ConstructArgs args) throws MyriaApiException {
+    ExternalOrderBy orderBy = new ExternalOrderBy(null, argSortColumns, argAscending);
+    if (argMemoryBudgetBytes != null) {
+      orderBy.setMemoryBudget(argMemoryBudgetBytes);
+    }
+    return orderBy;
+  }
+
+  @Override
+  protected void validateExtra() {
+    if (argSortColumns.length != argAscending.length) {
+      throw new MyriaApiException(Status.BAD_REQUEST, "sort columns number should be equal to ascending orders number!");
+    }
+  }
+
+}
@@ -10,9 +10,20 @@ public class MultiGroupByAggregateEncoding extends UnaryOperatorEncoding<MultiGr
   public int[] argGroupFields;
   @Required
   public AggregatorFactory[] aggregators;
+  /** If set, compute partial aggregates and output them whenever this many groups are held. */
+  public Integer argPreAggregationGroups;
+  /** The memory budget of the groups in bytes, beyond which they are spilled to disk. Uses the worker's if null. */
+  public Long argMemoryBudgetBytes;
 
   @Override
   public MultiGroupByAggregate construct(ConstructArgs args) {
-    return new MultiGroupByAggregate(null, argGroupFields, aggregators);
+    MultiGroupByAggregate agg = new MultiGroupByAggregate(null, argGroupFields, aggregators);
+    if (argPreAggregationGroups != null) {
+      agg.setPreAggregation(argPreAggregationGroups);
+    }
+    if (argMemoryBudgetBytes != null) {
+      agg.setMemoryBudget(argMemoryBudgetBytes);
+    }
+    return agg;
   }
 }
@@ -21,6 +21,7 @@ import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 
 import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.MyriaConstants.ColumnCompression;
 import edu.washington.escience.myria.MyriaConstants.FTMode;
 import edu.washington.escience.myria.MyriaConstants.ProfilingMode;
 import edu.washington.escience.myria.RelationKey;
@@ -33,6 +34,7 @@ import edu.washington.escience.myria.expression.Expression;
 import edu.washington.escience.myria.expression.VariableExpression;
 import edu.washington.escience.myria.operator.Apply;
 import edu.washington.escience.myria.operator.DbQueryScan;
+import edu.washington.escience.myria.operator.Filter;
 import edu.washington.escience.myria.operator.IDBController;
 import edu.washington.escience.myria.operator.Operator;
 import edu.washington.escience.myria.operator.RootOperator;
@@ -44,6 +46,7 @@ import edu.washington.escience.myria.operator.network.CollectConsumer;
 import edu.washington.escience.myria.operator.network.CollectProducer;
 import edu.washington.escience.myria.operator.network.Consumer;
 import edu.washington.escience.myria.operator.network.EOSController;
+import edu.washington.escience.myria.operator.network.GenericShuffleProducer;
 import edu.washington.escience.myria.parallel.ExchangePairID;
 import edu.washington.escience.myria.parallel.JsonSubQuery;
 import edu.washington.escience.myria.parallel.RelationWriteMetadata;
@@ -84,6 +87,8 @@ public class QueryConstruct {
         op2OwnerFragmentMapping.put(op.opId, fragment);
       }
     }
+    resolveSkewGroups(fragments, op2OwnerFragmentMapping);
+    resolveSemiJoinGroups(fragments, op2OwnerFragmentMapping);
 
     Map<Integer, Operator> allOperators = Maps.newHashMap();
     for (PlanFragmentEncoding fragment : fragments) {
@@ -117,12 +122,19 @@ public class QueryConstruct {
    * @param plans the physical query plan
    * @param ftMode the fault tolerance mode under which the query will be executed
    * @param profilingMode how the query should be profiled
+   * @param columnCompression how shuffled columns should be compressed
+   * @param morselParallelism the maximum number of morsels of a batch processed in parallel
+   * @param priority the weight of the query in the fair sharing of the workers' execution slots
    */
   public static void setQueryExecutionOptions(final Map<Integer, SubQueryPlan> plans, final FTMode ftMode,
-      @Nonnull final Set<ProfilingMode> profilingMode) {
+      @Nonnull final Set<ProfilingMode> profilingMode, @Nonnull final ColumnCompression columnCompression,
+      final int morselParallelism, final int priority) {
     for (SubQueryPlan plan : plans.values()) {
       plan.setFTMode(ftMode);
       plan.setProfilingMode(profilingMode);
+      plan.setColumnCompression(columnCompression);
+      plan.setMorselParallelism(morselParallelism);
+      plan.setPriority(priority);
     }
   }
 
@@ -398,6 +410,92 @@ public class QueryConstruct {
     }
   }
 
+  /**
+   * Pair up the two shuffles of each skew-aware join, and tell each of them the workers of the other.
+   * 
+   * @param fragments the fragments of the plan
+   * @param op2OwnerFragmentMapping the fragment that owns each operator
+   */
+  private static void resolveSkewGroups(final List<PlanFragmentEncoding> fragments,
+      final Map<Integer, PlanFragmentEncoding> op2OwnerFragmentMapping) {
+    Map<String, ShuffleProducerEncoding> splits = Maps.newHashMap();
+    Map<String, ShuffleProducerEncoding> replicates = Maps.newHashMap();
+    for (PlanFragmentEncoding fragment : fragments) {
+      for (OperatorEncoding<?> operator : fragment.operators) {
+        if (!(operator instanceof ShuffleProducerEncoding) || ((ShuffleProducerEncoding) operator).argSkewGroup == null) {
+          continue;
+        }
+        ShuffleProducerEncoding shuffle = (ShuffleProducerEncoding) operator;
+        Preconditions.checkArgument(shuffle.argSkewRole != null, "skew group %s: operator %s has no argSkewRole",
+            shuffle.argSkewGroup, shuffle.opId);
+        Map<String, ShuffleProducerEncoding> side =
+            shuffle.argSkewRole == GenericShuffleProducer.SkewRole.SPLIT ? splits : replicates;
+        Preconditions.checkArgument(side.put(shuffle.argSkewGroup, shuffle) == null,
+            "skew group %s has more than one %s shuffle", shuffle.argSkewGroup, shuffle.argSkewRole);
+      }
+    }
+    Preconditions.checkArgument(splits.keySet().equals(replicates.keySet()),
+        "every skew group needs exactly one SPLIT and one REPLICATE shuffle");
+    for (Map.Entry<String, ShuffleProducerEncoding> e : splits.entrySet()) {
+      ShuffleProducerEncoding split = e.getValue();
+      ShuffleProducerEncoding replicate = replicates.get(e.getKey());
+      split.setRealSkewGroup(split.opId, ImmutableSet.copyOf(op2OwnerFragmentMapping.get(replicate.opId).workers));
+      replicate.setRealSkewGroup(split.opId, ImmutableSet.copyOf(op2OwnerFragmentMapping.get(split.opId).workers));
+    }
+  }
+
+  /**
+   * Pair up the join and the shuffle of its right child in each semi-join reduction, and tell the join the workers of
+   * the shuffle and the shuffle the key columns of the join.
+   * 
+   * @param fragments the fragments of the plan
+   * @param op2OwnerFragmentMapping the fragment that owns each operator
+   */
+  private static void resolveSemiJoinGroups(final List<PlanFragmentEncoding> fragments,
+      final Map<Integer, PlanFragmentEncoding> op2OwnerFragmentMapping) {
+    Map<Integer, OperatorEncoding<?>> operators = Maps.newHashMap();
+    Map<String, SymmetricHashJoinEncoding> joins = Maps.newHashMap();
+    Map<String, ShuffleProducerEncoding> shuffles = Maps.newHashMap();
+    for (PlanFragmentEncoding fragment : fragments) {
+      for (OperatorEncoding<?> operator : fragment.operators) {
+        operators.put(operator.opId, operator);
+        if (operator instanceof SymmetricHashJoinEncoding
+            && ((SymmetricHashJoinEncoding) operator).argSemiJoinGroup != null) {
+          SymmetricHashJoinEncoding join = (SymmetricHashJoinEncoding) operator;
+          Preconditions.checkArgument(joins.put(join.argSemiJoinGroup, join) == null,
+              "semi-join group %s has more than one join", join.argSemiJoinGroup);
+        } else if (operator instanceof ShuffleProducerEncoding
+            && ((ShuffleProducerEncoding) operator).argSemiJoinGroup != null) {
+          ShuffleProducerEncoding shuffle = (ShuffleProducerEncoding) operator;
+          Preconditions.checkArgument(shuffles.put(shuffle.argSemiJoinGroup, shuffle) == null,
+              "semi-join group %s has more than one shuffle", shuffle.argSemiJoinGroup);
+        }
+      }
+    }
+    Preconditions.checkArgument(joins.keySet().equals(shuffles.keySet()),
+        "every semi-join group needs exactly one join and one shuffle");
+    for (Map.Entry<String, SymmetricHashJoinEncoding> e : joins.entrySet()) {
+      SymmetricHashJoinEncoding join = e.getValue();
+      ShuffleProducerEncoding shuffle = shuffles.get(e.getKey());
+      OperatorEncoding<?> right = operators.get(join.argChild2);
+      Preconditions.checkArgument(right instanceof AbstractConsumerEncoding<?>
+          && shuffle.opId.equals(((AbstractConsumerEncoding<?>) right).argOperatorId),
+          "semi-join group %s: the shuffle must feed the right child of the join", e.getKey());
+      /* Skew-aware shuffles move keys away from their hash partition, where the filters expect them. */
+      OperatorEncoding<?> left = operators.get(join.argChild1);
+      boolean leftSkewed = false;
+      if (left instanceof AbstractConsumerEncoding<?>) {
+        OperatorEncoding<?> leftShuffle = operators.get(((AbstractConsumerEncoding<?>) left).argOperatorId);
+        leftSkewed = leftShuffle instanceof ShuffleProducerEncoding
+            && ((ShuffleProducerEncoding) leftShuffle).argSkewGroup != null;
+      }
+      Preconditions.checkArgument(shuffle.argSkewGroup == null && !leftSkewed,
+          "semi-join group %s: the inputs of the join cannot be skew-aware", e.getKey());
+      join.setRealSemiJoinProbeWorkerIds(ImmutableSet.copyOf(op2OwnerFragmentMapping.get(shuffle.opId).workers));
+      shuffle.setRealSemiJoin(join.opId, join.argColumns2);
+    }
+  }
+
   /**
    * Given an abstract execution plan, assign the workers to the fragments.
    * 
@@ -480,12 +578,77 @@ public class QueryConstruct {
       op.setFragmentId(planFragment.fragmentIndex);
       allOperators.put(encoding.opId, op);
     }
+    Set<Integer> pushedDown = pushDownIntoScans(planFragment, args.getServer().getDBMS(), allOperators);
     for (OperatorEncoding<?> encoding : planFragment.operators) {
+      if (pushedDown.contains(encoding.opId)) {
+        continue;
+      }
       Operator op = allOperators.get(encoding.opId);
       encoding.connect(op, allOperators);
     }
   }
 
+  /**
+   * Rewrites the instantiated, but not yet connected, operators of a fragment so that each {@link Filter} and
+   * {@link Apply} directly above a {@link DbQueryScan} is evaluated by the storage engine, as part of the query of the
+   * scan, when its expressions can be translated to SQL. The new scan takes the place, and the id, of the operator;
+   * the operator and the original scan are removed from <code>allOperators</code>.
+   * 
+   * @param planFragment the encoded plan fragment.
+   * @param dbms the database system of the workers.
+   * @param allOperators the instantiated operators.
+   * @return the ids of the operators that were replaced by scans, which must not be connected to their children.
+   */
+  private static Set<Integer> pushDownIntoScans(final PlanFragmentEncoding planFragment, final String dbms,
+      final Map<Integer, Operator> allOperators) {
+    Set<Integer> pushedDown = Sets.newHashSet();
+    /* A scan that feeds several operators cannot be changed for one of them. */
+    HashMultiset<Integer> consumers = HashMultiset.create();
+    for (OperatorEncoding<?> encoding : planFragment.operators) {
+      if (encoding instanceof UnaryOperatorEncoding<?>) {
+        consumers.add(((UnaryOperatorEncoding<?>) encoding).argChild);
+      }
+    }
+
+    /* Repeat, so that an Apply above a Filter above a scan is pushed down once the Filter is. */
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (OperatorEncoding<?> encoding : planFragment.operators) {
+        if (pushedDown.contains(encoding.opId)
+            || !(encoding instanceof FilterEncoding || encoding.getClass() == ApplyEncoding.class)) {
+          continue;
+        }
+        Integer childId = ((UnaryOperatorEncoding<?>) encoding).argChild;
+        Operator child = allOperators.get(childId);
+        if (child == null || child.getClass() != DbQueryScan.class || consumers.count(childId) != 1
+            || child.getFragmentId() != planFragment.fragmentIndex) {
+          continue;
+        }
+        DbQueryScan scan = (DbQueryScan) child;
+        Operator op = allOperators.get(encoding.opId);
+        DbQueryScan pushed;
+        if (op instanceof Filter) {
+          pushed = scan.pushDownPredicate(((Filter) op).getPredicate(), dbms);
+        } else {
+          pushed = scan.pushDownProjection(((Apply) op).getEmitExpressions(), dbms);
+        }
+        if (pushed == null) {
+          continue;
+        }
+        LOGGER.debug("Pushed {} down into {}", op.getOpName(), scan.getOpName());
+        pushed.setOpName(op.getOpName());
+        pushed.setOpId(op.getOpId());
+        pushed.setFragmentId(op.getFragmentId());
+        allOperators.put(encoding.opId, pushed);
+        allOperators.remove(childId);
+        pushedDown.add(encoding.opId);
+        changed = true;
+      }
+    }
+    return pushedDown;
+  }
+
   /**
    * Given an encoding of a plan fragment, i.e., a connected list of operators, instantiate the actual plan fragment.
    * This includes instantiating the operators and connecting them together. The constraint on the plan fragments is
@@ -7,6 +7,8 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Verify;
 import com.google.common.collect.ImmutableList;
 
+import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.MyriaConstants.ColumnCompression;
 import edu.washington.escience.myria.MyriaConstants.FTMode;
 import edu.washington.escience.myria.MyriaConstants.ProfilingMode;
 import edu.washington.escience.myria.api.MyriaApiException;
@@ -31,6 +33,14 @@ public class QueryEncoding extends MyriaApiEncoding {
   public List<ProfilingMode> profilingMode = ImmutableList.of();
   /** The fault-tolerance mode used in this query, default: none. */
   public FTMode ftMode = FTMode.NONE;
+  /** How shuffled columns are compressed in this query, default: none. */
+  public ColumnCompression columnCompression = ColumnCompression.NONE;
+  /** The maximum number of morsels of a batch that stateless operators process in parallel, default: 1 (serial). */
+  public int morselParallelism = 1;
+  /** The user on whose behalf the query runs. The cluster is shared fairly between users, default: "public". */
+  public String user = MyriaConstants.DEFAULT_QUERY_USER;
+  /** The weight of this query in the fair sharing of the cluster, default: 1. */
+  public int priority = 1;
 
   /** The old physical query plan encoding. */
   public List<PlanFragmentEncoding> fragments;
@@ -41,6 +51,9 @@ public class QueryEncoding extends MyriaApiEncoding {
   protected void validateExtra() throws MyriaApiException {
     Preconditions.checkArgument((fragments == null) ^ (plan == null),
         "exactly one of fragments or plan must be specified");
+    Preconditions.checkArgument(morselParallelism >= 1, "morselParallelism must be positive");
+    Preconditions.checkArgument(user != null && !user.isEmpty(), "user must be a non-empty string");
+    Preconditions.checkArgument(priority >= 1, "priority must be positive");
     /* If they gave us an old plan type, convert it to a new plan type. */
     if (fragments != null) {
       plan = new SubQueryEncoding(fragments);
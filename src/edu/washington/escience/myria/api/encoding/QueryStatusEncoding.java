@@ -65,6 +65,10 @@ public class QueryStatusEncoding {
   public String message;
   /** The execution time of this query (in nanoseconds). */
   public Long elapsedNanos;
+  /** How long this query waited in the scheduler queue before it started (in nanoseconds). */
+  public Long queueWaitNanos;
+  /** The fragment execution slot time used by this query on all workers (in nanoseconds). */
+  public Long slotNanos;
   /** The status of the query. */
   public Status status;
   /** The profilingMode of the query. */
@@ -20,9 +20,21 @@ public class RightHashJoinEncoding extends BinaryOperatorEncoding<RightHashJoin>
   public int[] argSelect1;
   @Required
   public int[] argSelect2;
+  /** The memory budget of the join in bytes, beyond which it spills to disk. Uses the worker's budget if null. */
+  public Long argMemoryBudgetBytes;
+  /** Whether the hash table of the right child is built once and reused by the later iterations of the query. */
+  public Boolean argCacheRightHashTable;
 
   @Override
   public RightHashJoin construct(ConstructArgs args) {
-    return new RightHashJoin(argColumnNames, null, null, argColumns1, argColumns2, argSelect1, argSelect2);
+    RightHashJoin join =
+        new RightHashJoin(argColumnNames, null, null, argColumns1, argColumns2, argSelect1, argSelect2);
+    if (argMemoryBudgetBytes != null) {
+      join.setMemoryBudget(argMemoryBudgetBytes);
+    }
+    if (argCacheRightHashTable != null) {
+      join.setCacheRightHashTable(argCacheRightHashTable);
+    }
+    return join;
   }
 }
@@ -0,0 +1,52 @@
+package edu.washington.escience.myria.api.encoding;
+
+import java.util.List;
+
+/**
+ * Encodes the REST response describing the state of the query scheduler: which queries each user has queued and
+ * running, and how loaded each worker is.
+ */
+public class SchedulerStatusEncoding {
+  /** The maximum number of queries that run at the same time. */
+  public int maxRunningQueries;
+  /** The fraction of its heap that every worker must be below for a new query to start. */
+  public double admissionHeapFraction;
+  /** The users that have queries queued or running. */
+  public List<UserStatus> users;
+  /** The workers that have reported their load. */
+  public List<WorkerStatus> workers;
+
+  /** The queries of one user. */
+  public static class UserStatus {
+    /** The name of the user. */
+    public String user;
+    /** The queued queries of the user, in the order in which they will start. */
+    public List<Long> queued;
+    /** The running queries of the user. */
+    public List<Long> running;
+    /** The cluster time used by the user, divided by the priorities of the queries (in nanoseconds). */
+    public long usageNanos;
+  }
+
+  /** The load of one worker. */
+  public static class WorkerStatus {
+    /** The ID of the worker. */
+    public int workerId;
+    /** The heap used by the worker (in bytes). */
+    public long heapUsedBytes;
+    /** The maximum heap of the worker (in bytes). */
+    public long heapMaxBytes;
+    /** The number of fragment execution slots of the worker. */
+    public long slots;
+    /** The number of fragment execution slots in use. */
+    public long slotsInUse;
+    /** The number of expression compilations that the worker found in its cache. */
+    public long compileCacheHits;
+    /** The number of expressions that the worker compiled. */
+    public long compileCacheMisses;
+    /** The time the worker spent compiling expressions (in nanoseconds). */
+    public long compileNanos;
+    /** The number of compiled expressions in the cache of the worker. */
+    public long compileCacheSize;
+  }
+}
@@ -2,6 +2,8 @@ package edu.washington.escience.myria.api.encoding;
 
 import java.util.Set;
 
+import com.google.common.base.MoreObjects;
+
 import edu.washington.escience.myria.api.encoding.QueryConstruct.ConstructArgs;
 import edu.washington.escience.myria.operator.network.GenericShuffleProducer;
 import edu.washington.escience.myria.operator.network.partition.PartitionFunction;
@@ -15,6 +17,48 @@ public class ShuffleProducerEncoding extends AbstractProducerEncoding<GenericShu
   @Required
   public PartitionFunction argPf;
   public StreamingStateEncoding<?> argBufferStateType;
+  /** The name shared by the two shuffles of a skew-aware join, or null if this shuffle is not skew-aware. */
+  public String argSkewGroup;
+  /** The role of this shuffle in its skew-aware join. */
+  public GenericShuffleProducer.SkewRole argSkewRole;
+  /** The number of tuples sampled to detect heavy hitters. */
+  public Integer argSkewSampleSize;
+  /** The share of a consumer, relative to a fair share, above which a key is a heavy hitter. */
+  public Double argSkewThreshold;
+
+  /**
+   * The name of the semi-join reduction in which this shuffle drops the tuples that cannot match the left keys of the
+   * join it feeds, or null. The join must have the same argSemiJoinGroup, and this shuffle must feed its right child.
+   */
+  public String argSemiJoinGroup;
+
+  /** The id of the skew-aware join, resolved by {@link QueryConstruct}. */
+  private int realSkewGroupId;
+  /** The workers of the producers of the other input of the skew-aware join, resolved by {@link QueryConstruct}. */
+  private Set<Integer> realSkewPeerWorkerIds;
+
+  /** The operator id of the join of the semi-join reduction, resolved by {@link QueryConstruct}. */
+  private int realSemiJoinId;
+  /** The right key columns of the join of the semi-join reduction, resolved by {@link QueryConstruct}. */
+  private int[] realSemiJoinKeyColumns;
+
+  /**
+   * @param joinId the operator id of the join.
+   * @param keyColumns the right key columns of the join.
+   */
+  public final void setRealSemiJoin(final int joinId, final int[] keyColumns) {
+    realSemiJoinId = joinId;
+    realSemiJoinKeyColumns = keyColumns;
+  }
+
+  /**
+   * @param groupId the id of the skew-aware join.
+   * @param peerWorkerIds the workers of the producers of the other input of the skew-aware join.
+   */
+  public final void setRealSkewGroup(final int groupId, final Set<Integer> peerWorkerIds) {
+    realSkewGroupId = groupId;
+    realSkewPeerWorkerIds = peerWorkerIds;
+  }
 
   @Override
   public GenericShuffleProducer construct(final ConstructArgs args) {
@@ -37,6 +81,14 @@ public class ShuffleProducerEncoding extends AbstractProducerEncoding<GenericShu
         producer.setBackupBufferAsAppender();
       }
     }
+    if (argSkewGroup != null) {
+      producer.setSkewHandling(argSkewRole, realSkewGroupId, MyriaUtils.integerSetToIntArray(realSkewPeerWorkerIds),
+          MoreObjects.firstNonNull(argSkewSampleSize, GenericShuffleProducer.DEFAULT_SKEW_SAMPLE_SIZE), MoreObjects
+              .firstNonNull(argSkewThreshold, GenericShuffleProducer.DEFAULT_SKEW_THRESHOLD));
+    }
+    if (argSemiJoinGroup != null) {
+      producer.setSemiJoinFilter(realSemiJoinId, realSemiJoinKeyColumns);
+    }
     return producer;
   }
-}
\ No newline at end of file
+}
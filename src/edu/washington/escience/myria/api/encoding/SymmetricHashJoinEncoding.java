@@ -1,10 +1,14 @@
 package edu.washington.escience.myria.api.encoding;
 
 import java.util.List;
+import java.util.Set;
+
+import com.google.common.base.MoreObjects;
 
 import edu.washington.escience.myria.api.encoding.QueryConstruct.ConstructArgs;
 import edu.washington.escience.myria.operator.SymmetricHashJoin;
 import edu.washington.escience.myria.operator.SymmetricHashJoin.JoinPullOrder;
+import edu.washington.escience.myria.util.MyriaUtils;
 
 public class SymmetricHashJoinEncoding extends BinaryOperatorEncoding<SymmetricHashJoin> {
 
@@ -20,6 +24,25 @@ public class SymmetricHashJoinEncoding extends BinaryOperatorEncoding<SymmetricH
   public boolean argSetSemanticsLeft = false;
   public boolean argSetSemanticsRight = false;
   public JoinPullOrder argOrder = JoinPullOrder.ALTER;
+  /**
+   * The name of the semi-join reduction in which this join sends a Bloom filter of its left keys to the producers of its
+   * right child, or null if it sends none. The shuffle of the right child must have the same argSemiJoinGroup.
+   */
+  public String argSemiJoinGroup;
+  /** The number of bits per key of the semi-join filter. */
+  public Integer argSemiJoinBitsPerKey;
+  /** The memory budget of the join in bytes, beyond which it spills to disk. Uses the worker's budget if null. */
+  public Long argMemoryBudgetBytes;
+
+  /** The workers of the producers of the right child, resolved by {@link QueryConstruct}. */
+  private Set<Integer> realSemiJoinProbeWorkerIds;
+
+  /**
+   * @param probeWorkerIds the workers of the producers of the right child.
+   */
+  public final void setRealSemiJoinProbeWorkerIds(final Set<Integer> probeWorkerIds) {
+    realSemiJoinProbeWorkerIds = probeWorkerIds;
+  }
 
   @Override
   public SymmetricHashJoin construct(final ConstructArgs args) {
@@ -27,6 +50,13 @@ public class SymmetricHashJoinEncoding extends BinaryOperatorEncoding<SymmetricH
         new SymmetricHashJoin(argColumnNames, null, null, argColumns1, argColumns2, argSelect1, argSelect2,
             argSetSemanticsLeft, argSetSemanticsRight);
     join.setPullOrder(argOrder);
+    if (argMemoryBudgetBytes != null) {
+      join.setMemoryBudget(argMemoryBudgetBytes);
+    }
+    if (argSemiJoinGroup != null) {
+      join.setSemiJoinFilter(MyriaUtils.integerSetToIntArray(realSemiJoinProbeWorkerIds), MoreObjects.firstNonNull(
+          argSemiJoinBitsPerKey, SymmetricHashJoin.DEFAULT_SEMI_JOIN_BITS_PER_KEY));
+    }
     return join;
   }
 
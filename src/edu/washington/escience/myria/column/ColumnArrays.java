@@ -0,0 +1,362 @@
+package edu.washington.escience.myria.column;
+
+import java.util.BitSet;
+
+import org.joda.time.DateTime;
+
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.storage.ReadableColumn;
+
+/**
+ * Converts between columns and arrays of their values, for code that loops over whole batches. The array of an
+ * array-backed column is shared rather than copied, so the arrays returned here must not be modified.
+ */
+public final class ColumnArrays {
+  /** Utility classes have no constructors. */
+  private ColumnArrays() {
+  }
+
+  /**
+   * The getters of this class return the array of an array-backed column as it is, indexed by row, and copy the rows
+   * [from, to) of any other column into a new array of to - from elements.
+   *
+   * @param column a column.
+   * @param from the first row read by a getter.
+   * @return the row whose value is at index 0 of the array returned by the getter for the column.
+   */
+  public static int offset(final ReadableColumn column, final int from) {
+    if (column instanceof IntArrayColumn || column instanceof LongColumn || column instanceof FloatColumn
+        || column instanceof DoubleColumn || column instanceof StringArrayColumn || column instanceof DateTimeColumn) {
+      return 0;
+    }
+    return from;
+  }
+
+  /**
+   * @param column an int column.
+   * @param from the first row to read.
+   * @param to the row after the last row to read.
+   * @return an array that holds the value of every row r in [from, to) at index r -
+   *         {@link #offset(ReadableColumn, int)}.
+   */
+  public static int[] getInts(final ReadableColumn column, final int from, final int to) {
+    if (column instanceof IntArrayColumn) {
+      return ((IntArrayColumn) column).getArray();
+    }
+    int[] values = new int[to - from];
+    for (int row = from; row < to; ++row) {
+      values[row - from] = column.getInt(row);
+    }
+    return values;
+  }
+
+  /**
+   * @param column a long column.
+   * @param from the first row to read.
+   * @param to the row after the last row to read.
+   * @return an array that holds the value of every row r in [from, to) at index r -
+   *         {@link #offset(ReadableColumn, int)}.
+   */
+  public static long[] getLongs(final ReadableColumn column, final int from, final int to) {
+    if (column instanceof LongColumn) {
+      return ((LongColumn) column).getArray();
+    }
+    long[] values = new long[to - from];
+    for (int row = from; row < to; ++row) {
+      values[row - from] = column.getLong(row);
+    }
+    return values;
+  }
+
+  /**
+   * @param column a float column.
+   * @param from the first row to read.
+   * @param to the row after the last row to read.
+   * @return an array that holds the value of every row r in [from, to) at index r -
+   *         {@link #offset(ReadableColumn, int)}.
+   */
+  public static float[] getFloats(final ReadableColumn column, final int from, final int to) {
+    if (column instanceof FloatColumn) {
+      return ((FloatColumn) column).getArray();
+    }
+    float[] values = new float[to - from];
+    for (int row = from; row < to; ++row) {
+      values[row - from] = column.getFloat(row);
+    }
+    return values;
+  }
+
+  /**
+   * @param column a double column.
+   * @param from the first row to read.
+   * @param to the row after the last row to read.
+   * @return an array that holds the value of every row r in [from, to) at index r -
+   *         {@link #offset(ReadableColumn, int)}.
+   */
+  public static double[] getDoubles(final ReadableColumn column, final int from, final int to) {
+    if (column instanceof DoubleColumn) {
+      return ((DoubleColumn) column).getArray();
+    }
+    double[] values = new double[to - from];
+    for (int row = from; row < to; ++row) {
+      values[row - from] = column.getDouble(row);
+    }
+    return values;
+  }
+
+  /**
+   * @param column a boolean column.
+   * @param from the first row to read.
+   * @param to the row after the last row to read.
+   * @return an array that holds the value of every row r in [from, to) at index r -
+   *         {@link #offset(ReadableColumn, int)}.
+   */
+  public static boolean[] getBooleans(final ReadableColumn column, final int from, final int to) {
+    boolean[] values = new boolean[to - from];
+    for (int row = from; row < to; ++row) {
+      values[row - from] = column.getBoolean(row);
+    }
+    return values;
+  }
+
+  /**
+   * @param column a string column.
+   * @param from the first row to read.
+   * @param to the row after the last row to read.
+   * @return an array that holds the value of every row r in [from, to) at index r -
+   *         {@link #offset(ReadableColumn, int)}.
+   */
+  public static String[] getStrings(final ReadableColumn column, final int from, final int to) {
+    if (column instanceof StringArrayColumn) {
+      return ((StringArrayColumn) column).getArray();
+    }
+    String[] values = new String[to - from];
+    for (int row = from; row < to; ++row) {
+      values[row - from] = column.getString(row);
+    }
+    return values;
+  }
+
+  /**
+   * @param column a datetime column.
+   * @param from the first row to read.
+   * @param to the row after the last row to read.
+   * @return an array that holds the value of every row r in [from, to) at index r -
+   *         {@link #offset(ReadableColumn, int)}.
+   */
+  public static DateTime[] getDateTimes(final ReadableColumn column, final int from, final int to) {
+    if (column instanceof DateTimeColumn) {
+      return ((DateTimeColumn) column).getArray();
+    }
+    DateTime[] values = new DateTime[to - from];
+    for (int row = from; row < to; ++row) {
+      values[row - from] = column.getDateTime(row);
+    }
+    return values;
+  }
+
+  /**
+   * @param type the type of the values.
+   * @param numRows the number of values.
+   * @return an array of the Java type of the values, e.g., int[] for {@link Type#INT_TYPE}.
+   */
+  public static Object allocate(final Type type, final int numRows) {
+    switch (type) {
+      case BOOLEAN_TYPE:
+        return new boolean[numRows];
+      case DATETIME_TYPE:
+        return new DateTime[numRows];
+      case DOUBLE_TYPE:
+        return new double[numRows];
+      case FLOAT_TYPE:
+        return new float[numRows];
+      case INT_TYPE:
+        return new int[numRows];
+      case LONG_TYPE:
+        return new long[numRows];
+      case STRING_TYPE:
+        return new String[numRows];
+      default:
+        throw new IllegalArgumentException("Type " + type + " is not supported.");
+    }
+  }
+
+  /**
+   * @param type the type of the values.
+   * @param values an array allocated by {@link #allocate(Type, int)}. It becomes part of the column.
+   * @param numRows the number of values.
+   * @return a column of the first numRows values.
+   */
+  public static Column<?> toColumn(final Type type, final Object values, final int numRows) {
+    switch (type) {
+      case BOOLEAN_TYPE:
+        boolean[] booleans = (boolean[]) values;
+        BitSet bits = new BitSet(numRows);
+        for (int row = 0; row < numRows; ++row) {
+          if (booleans[row]) {
+            bits.set(row);
+          }
+        }
+        return new BooleanColumn(bits, numRows);
+      case DATETIME_TYPE:
+        return new DateTimeColumn((DateTime[]) values, numRows);
+      case DOUBLE_TYPE:
+        return new DoubleColumn((double[]) values, numRows);
+      case FLOAT_TYPE:
+        return new FloatColumn((float[]) values, numRows);
+      case INT_TYPE:
+        return new IntArrayColumn((int[]) values, numRows);
+      case LONG_TYPE:
+        return new LongColumn((long[]) values, numRows);
+      case STRING_TYPE:
+        return new StringArrayColumn((String[]) values, numRows);
+      default:
+        throw new IllegalArgumentException("Type " + type + " is not supported.");
+    }
+  }
+
+  /**
+   * Copy the values of a column into one new column per partition, in one pass over the column. The values of each
+   * partition keep their order.
+   *
+   * @param column the column.
+   * @param partitions the partition of every row of the column.
+   * @param counts the number of rows in every partition.
+   * @return the column of every partition, or null for the partitions without rows.
+   */
+  public static Column<?>[] scatter(final Column<?> column, final int[] partitions, final int[] counts) {
+    final int numRows = partitions.length;
+    final int numPartitions = counts.length;
+    final Type type = column.getType();
+    /* The next row to write in every partition. */
+    final int[] cursors = new int[numPartitions];
+    Column<?>[] result = new Column<?>[numPartitions];
+    switch (type) {
+      case BOOLEAN_TYPE:
+        BitSet[] bits = new BitSet[numPartitions];
+        for (int p = 0; p < numPartitions; ++p) {
+          if (counts[p] > 0) {
+            bits[p] = new BitSet(counts[p]);
+          }
+        }
+        for (int row = 0; row < numRows; ++row) {
+          int p = partitions[row];
+          if (column.getBoolean(row)) {
+            bits[p].set(cursors[p]);
+          }
+          ++cursors[p];
+        }
+        for (int p = 0; p < numPartitions; ++p) {
+          if (counts[p] > 0) {
+            result[p] = new BooleanColumn(bits[p], counts[p]);
+          }
+        }
+        return result;
+      case DOUBLE_TYPE:
+        double[] doubles = getDoubles(column, 0, numRows);
+        double[][] doubleParts = new double[numPartitions][];
+        for (int p = 0; p < numPartitions; ++p) {
+          if (counts[p] > 0) {
+            doubleParts[p] = new double[counts[p]];
+          }
+        }
+        for (int row = 0; row < numRows; ++row) {
+          int p = partitions[row];
+          doubleParts[p][cursors[p]++] = doubles[row];
+        }
+        return toColumns(type, doubleParts, counts);
+      case FLOAT_TYPE:
+        float[] floats = getFloats(column, 0, numRows);
+        float[][] floatParts = new float[numPartitions][];
+        for (int p = 0; p < numPartitions; ++p) {
+          if (counts[p] > 0) {
+            floatParts[p] = new float[counts[p]];
+          }
+        }
+        for (int row = 0; row < numRows; ++row) {
+          int p = partitions[row];
+          floatParts[p][cursors[p]++] = floats[row];
+        }
+        return toColumns(type, floatParts, counts);
+      case INT_TYPE:
+        int[] ints = getInts(column, 0, numRows);
+        int[][] intParts = new int[numPartitions][];
+        for (int p = 0; p < numPartitions; ++p) {
+          if (counts[p] > 0) {
+            intParts[p] = new int[counts[p]];
+          }
+        }
+        for (int row = 0; row < numRows; ++row) {
+          int p = partitions[row];
+          intParts[p][cursors[p]++] = ints[row];
+        }
+        return toColumns(type, intParts, counts);
+      case LONG_TYPE:
+        long[] longs = getLongs(column, 0, numRows);
+        long[][] longParts = new long[numPartitions][];
+        for (int p = 0; p < numPartitions; ++p) {
+          if (counts[p] > 0) {
+            longParts[p] = new long[counts[p]];
+          }
+        }
+        for (int row = 0; row < numRows; ++row) {
+          int p = partitions[row];
+          longParts[p][cursors[p]++] = longs[row];
+        }
+        return toColumns(type, longParts, counts);
+      case DATETIME_TYPE:
+      case STRING_TYPE:
+        if (column instanceof DictionaryStringColumn) {
+          /* Scatter the codes, so that the partitions keep the dictionary of the column. */
+          DictionaryStringColumn dictionaryColumn = (DictionaryStringColumn) column;
+          int[] codes = dictionaryColumn.getCodes();
+          int[][] codeParts = new int[numPartitions][];
+          for (int p = 0; p < numPartitions; ++p) {
+            if (counts[p] > 0) {
+              codeParts[p] = new int[counts[p]];
+            }
+          }
+          for (int row = 0; row < numRows; ++row) {
+            int p = partitions[row];
+            codeParts[p][cursors[p]++] = codes[row];
+          }
+          for (int p = 0; p < numPartitions; ++p) {
+            if (counts[p] > 0) {
+              result[p] = new DictionaryStringColumn(dictionaryColumn.getDictionary(), codeParts[p], counts[p]);
+            }
+          }
+          return result;
+        }
+        Object[] objects = type == Type.STRING_TYPE ? getStrings(column, 0, numRows) : getDateTimes(column, 0, numRows);
+        Object[][] objectParts = new Object[numPartitions][];
+        for (int p = 0; p < numPartitions; ++p) {
+          if (counts[p] > 0) {
+            objectParts[p] = (Object[]) allocate(type, counts[p]);
+          }
+        }
+        for (int row = 0; row < numRows; ++row) {
+          int p = partitions[row];
+          objectParts[p][cursors[p]++] = objects[row];
+        }
+        return toColumns(type, objectParts, counts);
+      default:
+        throw new IllegalArgumentException("Type " + type + " is not supported.");
+    }
+  }
+
+  /**
+   * @param type the type of the values.
+   * @param parts the values of every partition, arrays of the Java type of the values.
+   * @param counts the number of values in every partition.
+   * @return the column of every partition, or null for the partitions without values.
+   */
+  private static Column<?>[] toColumns(final Type type, final Object[] parts, final int[] counts) {
+    Column<?>[] result = new Column<?>[parts.length];
+    for (int p = 0; p < parts.length; ++p) {
+      if (counts[p] > 0) {
+        result[p] = toColumn(type, parts[p], counts[p]);
+      }
+    }
+    return result;
+  }
+}
@@ -69,4 +69,11 @@ public final class DateTimeColumn extends Column<DateTime> {
     sb.append(']');
     return sb.toString();
   }
-}
\ No newline at end of file
+
+  /**
+   * @return the array backing this column, whose first {@link #size()} elements are the values. Do not modify it.
+   */
+  DateTime[] getArray() {
+    return data;
+  }
+}
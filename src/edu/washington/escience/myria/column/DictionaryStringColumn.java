@@ -0,0 +1,101 @@
+package edu.washington.escience.myria.column;
+
+import java.util.BitSet;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A column of String values stored as the integer codes of a {@link StringDictionary}. Operators that find both of
+ * their inputs encoded with the same dictionary may compare, group and hash the codes instead of the strings, see
+ * {@link #sharesDictionary(Object, Object)}.
+ */
+public final class DictionaryStringColumn extends StringColumn {
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+  /** The code of each string. */
+  private final transient int[] codes;
+  /** The dictionary of the codes. Not serializable, see {@link #writeReplace()}. */
+  private final transient StringDictionary dictionary;
+  /** Number of elements in this column. */
+  private final int numStrings;
+
+  /**
+   * Constructs a new column.
+   *
+   * @param dictionary the dictionary of the codes.
+   * @param codes the codes of the strings.
+   * @param numStrings number of tuples.
+   * */
+  public DictionaryStringColumn(final StringDictionary dictionary, final int[] codes, final int numStrings) {
+    this.dictionary = Preconditions.checkNotNull(dictionary, "dictionary");
+    this.codes = Preconditions.checkNotNull(codes, "codes");
+    this.numStrings = numStrings;
+  }
+
+  @Override
+  public String getString(final int row) {
+    return dictionary.decode(getCode(row));
+  }
+
+  /**
+   * @param row the row.
+   * @return the code of the string at the specified row.
+   */
+  public int getCode(final int row) {
+    return codes[Preconditions.checkElementIndex(row, numStrings)];
+  }
+
+  /**
+   * @return the array of codes, of which the first {@link #size()} are the codes of this column. It is shared, not
+   *         copied, so it must not be modified.
+   */
+  int[] getCodes() {
+    return codes;
+  }
+
+  /**
+   * @return the dictionary of the codes in this column.
+   */
+  public StringDictionary getDictionary() {
+    return dictionary;
+  }
+
+  /**
+   * @param column1 a column.
+   * @param column2 another column.
+   * @return true if both columns are {@link DictionaryStringColumn}s of the same dictionary, i.e., their codes can be
+   *         compared instead of their strings.
+   */
+  public static boolean sharesDictionary(final Object column1, final Object column2) {
+    return column1 instanceof DictionaryStringColumn && column2 instanceof DictionaryStringColumn
+        && ((DictionaryStringColumn) column1).dictionary == ((DictionaryStringColumn) column2).dictionary;
+  }
+
+  @Override
+  public Column<String> filter(final BitSet filter) {
+    final int[] newCodes = new int[filter.cardinality()];
+    int i = 0;
+    for (int row = filter.nextSetBit(0); row >= 0 && row < numStrings; row = filter.nextSetBit(row + 1)) {
+      newCodes[i++] = codes[row];
+    }
+    return new DictionaryStringColumn(dictionary, newCodes, i);
+  }
+
+  @Override
+  public int size() {
+    return numStrings;
+  }
+
+  /**
+   * Java serialization writes the column as a {@link StringArrayColumn}, since the dictionary belongs to this process.
+   *
+   * @return a copy of this column with the strings decoded.
+   */
+  private Object writeReplace() {
+    final String[] strings = new String[numStrings];
+    for (int row = 0; row < numStrings; ++row) {
+      strings[row] = dictionary.decode(codes[row]);
+    }
+    return new StringArrayColumn(strings, numStrings);
+  }
+}
@@ -71,4 +71,11 @@ public final class DoubleColumn extends Column<Double> {
     sb.append(']');
     return sb.toString();
   }
+
+  /**
+   * @return the array backing this column, whose first {@link #size()} elements are the values. Do not modify it.
+   */
+  double[] getArray() {
+    return data;
+  }
 }
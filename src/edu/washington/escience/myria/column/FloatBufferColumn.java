@@ -0,0 +1,73 @@
+package edu.washington.escience.myria.column;
+
+import java.nio.FloatBuffer;
+
+import com.google.common.base.Preconditions;
+
+import edu.washington.escience.myria.Type;
+
+/**
+ * A column of Float values backed by a {@link FloatBuffer}, e.g., a little-endian view of a received network frame. The
+ * buffer is wrapped, not copied.
+ */
+public final class FloatBufferColumn extends Column<Float> {
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+  /** The column data. Not serializable, see {@link #writeReplace()}. */
+  private final transient FloatBuffer data;
+
+  /**
+   * Constructs a new column. The column holds the elements between the buffer's position and its limit.
+   * 
+   * @param data the data
+   * */
+  public FloatBufferColumn(final FloatBuffer data) {
+    Preconditions.checkNotNull(data);
+    this.data = data.slice();
+  }
+
+  @Override
+  public Float getObject(final int row) {
+    return Float.valueOf(getFloat(row));
+  }
+
+  @Override
+  public float getFloat(final int row) {
+    return data.get(row);
+  }
+
+  @Override
+  public Type getType() {
+    return Type.FLOAT_TYPE;
+  }
+
+  @Override
+  public int size() {
+    return data.limit();
+  }
+
+  /**
+   * Java serialization writes the column as a {@link FloatColumn} instead of the unserializable buffer.
+   * 
+   * @return an array-backed copy of this column.
+   */
+  private Object writeReplace() {
+    final float[] array = new float[size()];
+    data.duplicate().get(array);
+    return new FloatColumn(array, array.length);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder();
+    sb.append(size()).append(" elements: [");
+    for (int i = 0; i < size(); ++i) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append(data.get(i));
+    }
+    sb.append(']');
+    return sb.toString();
+  }
+}
@@ -69,4 +69,11 @@ public final class FloatColumn extends Column<Float> {
     sb.append(']');
     return sb.toString();
   }
-}
\ No newline at end of file
+
+  /**
+   * @return the array backing this column, whose first {@link #size()} elements are the values. Do not modify it.
+   */
+  float[] getArray() {
+    return data;
+  }
+}
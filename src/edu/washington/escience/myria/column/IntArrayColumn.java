@@ -43,4 +43,11 @@ public final class IntArrayColumn extends IntColumn {
   public int size() {
     return position;
   }
+
+  /**
+   * @return the array backing this column, whose first {@link #size()} elements are the values. Do not modify it.
+   */
+  int[] getArray() {
+    return data;
+  }
 }
@@ -0,0 +1,53 @@
+package edu.washington.escience.myria.column;
+
+import java.nio.IntBuffer;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A column of Integer values backed by a {@link IntBuffer}, e.g., a little-endian view of a received network frame. The
+ * buffer is wrapped, not copied.
+ */
+public final class IntBufferColumn extends IntColumn {
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+  /** The column data. Not serializable, see {@link #writeReplace()}. */
+  private final transient IntBuffer data;
+
+  /**
+   * Constructs a new column. The column holds the elements between the buffer's position and its limit.
+   * 
+   * @param data the data
+   * */
+  public IntBufferColumn(final IntBuffer data) {
+    Preconditions.checkNotNull(data);
+    this.data = data.slice();
+  }
+
+  @Override
+  public Integer getObject(final int row) {
+    return Integer.valueOf(getInt(row));
+  }
+
+  @Override
+  public int getInt(final int row) {
+    return data.get(row);
+  }
+
+  @Override
+  public int size() {
+    return data.limit();
+  }
+
+  /**
+   * Java serialization writes the column as a {@link IntArrayColumn} instead of the unserializable buffer.
+   * 
+   * @return an array-backed copy of this column.
+   */
+  private Object writeReplace() {
+    final int[] array = new int[size()];
+    data.duplicate().get(array);
+    return new IntArrayColumn(array, array.length);
+  }
+
+}
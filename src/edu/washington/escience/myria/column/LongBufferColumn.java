@@ -0,0 +1,73 @@
+package edu.washington.escience.myria.column;
+
+import java.nio.LongBuffer;
+
+import com.google.common.base.Preconditions;
+
+import edu.washington.escience.myria.Type;
+
+/**
+ * A column of Long values backed by a {@link LongBuffer}, e.g., a little-endian view of a received network frame. The
+ * buffer is wrapped, not copied.
+ */
+public final class LongBufferColumn extends Column<Long> {
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+  /** The column data. Not serializable, see {@link #writeReplace()}. */
+  private final transient LongBuffer data;
+
+  /**
+   * Constructs a new column. The column holds the elements between the buffer's position and its limit.
+   * 
+   * @param data the data
+   * */
+  public LongBufferColumn(final LongBuffer data) {
+    Preconditions.checkNotNull(data);
+    this.data = data.slice();
+  }
+
+  @Override
+  public Long getObject(final int row) {
+    return Long.valueOf(getLong(row));
+  }
+
+  @Override
+  public long getLong(final int row) {
+    return data.get(row);
+  }
+
+  @Override
+  public Type getType() {
+    return Type.LONG_TYPE;
+  }
+
+  @Override
+  public int size() {
+    return data.limit();
+  }
+
+  /**
+   * Java serialization writes the column as a {@link LongColumn} instead of the unserializable buffer.
+   * 
+   * @return an array-backed copy of this column.
+   */
+  private Object writeReplace() {
+    final long[] array = new long[size()];
+    data.duplicate().get(array);
+    return new LongColumn(array, array.length);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder();
+    sb.append(size()).append(" elements: [");
+    for (int i = 0; i < size(); ++i) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append(data.get(i));
+    }
+    sb.append(']');
+    return sb.toString();
+  }
+}
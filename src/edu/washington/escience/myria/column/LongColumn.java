@@ -62,4 +62,11 @@ public final class LongColumn extends Column<Long> {
     sb.append(']');
     return sb.toString();
   }
+
+  /**
+   * @return the array backing this column, whose first {@link #size()} elements are the values. Do not modify it.
+   */
+  long[] getArray() {
+    return data;
+  }
 }
@@ -41,4 +41,11 @@ public final class StringArrayColumn extends StringColumn {
   public int size() {
     return numStrings;
   }
+
+  /**
+   * @return the array backing this column, whose first {@link #size()} elements are the values. Do not modify it.
+   */
+  String[] getArray() {
+    return data;
+  }
 }
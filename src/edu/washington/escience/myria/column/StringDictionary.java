@@ -0,0 +1,208 @@
+package edu.washington.escience.myria.column;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.common.base.Preconditions;
+
+import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.util.HashUtils;
+
+/**
+ * An append-only dictionary that assigns dense integer codes to strings, shared by {@link DictionaryStringColumn}s.
+ * Two strings encoded by the same dictionary are equal if and only if their codes are, so operators can compare, group
+ * and hash the codes of such columns instead of the characters. The hash code of each string, as computed by
+ * {@link HashUtils#hashString(String)}, is computed once when the string is added.
+ *
+ * The dictionary holds at most a fixed number of strings, after which {@link #encode(String)} refuses new ones. It is
+ * thread-safe: lookups of existing strings and decoding do not lock.
+ *
+ * The dictionary {@link #shared() shared} by the columns decoded or scanned by a process is replaced by an empty one when it is
+ * full, see {@link #replaceShared(StringDictionary)}, and when no query runs, see {@link #releaseShared()}. A replaced
+ * dictionary is freed once no column uses it; columns encoded with different dictionaries are compared by string.
+ */
+public final class StringDictionary {
+
+  /** log2 of the number of entries per chunk. */
+  private static final int CHUNK_BITS = 12;
+  /** The number of entries per chunk. */
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+  /** The dictionary shared by the process, see {@link #shared()}. */
+  private static final AtomicReference<StringDictionary> SHARED = new AtomicReference<>(new StringDictionary(
+      MyriaConstants.SHARED_STRING_DICTIONARY_CAPACITY));
+
+  /** The code of each string. */
+  private final ConcurrentHashMap<String, Integer> codes;
+  /** The string of each code, in chunks of {@link #CHUNK_SIZE} so that growing does not copy. */
+  private final String[][] strings;
+  /** The hash code of each string, chunked like {@link #strings}. */
+  private final int[][] hashes;
+  /** The maximum number of strings. */
+  private final int capacity;
+  /** The number of strings. Written under the lock of this dictionary. */
+  private volatile int size;
+
+  /**
+   * @param capacity the maximum number of strings in the dictionary.
+   */
+  public StringDictionary(final int capacity) {
+    Preconditions.checkArgument(capacity > 0, "capacity must be positive");
+    this.capacity = capacity;
+    codes = new ConcurrentHashMap<String, Integer>();
+    final int numChunks = (capacity + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    strings = new String[numChunks][];
+    hashes = new int[numChunks][];
+  }
+
+  /**
+   * @return the dictionary currently shared by the dictionary-encoded columns decoded by this process, holding up to
+   *         {@link MyriaConstants#SHARED_STRING_DICTIONARY_CAPACITY} strings.
+   */
+  public static StringDictionary shared() {
+    return SHARED.get();
+  }
+
+  /**
+   * @return the dictionary currently shared by this process, replaced by an empty one first if it is full, see
+   *         {@link #replaceShared(StringDictionary)}.
+   */
+  public static StringDictionary sharedWithRoom() {
+    final StringDictionary shared = SHARED.get();
+    if (shared.size() < shared.capacity()) {
+      return shared;
+    }
+    return replaceShared(shared);
+  }
+
+  /**
+   * Replace the shared dictionary by an empty one because it is full. If another thread has already replaced it, its
+   * replacement is kept.
+   *
+   * @param full the shared dictionary that is full.
+   * @return the shared dictionary after the replacement.
+   */
+  public static StringDictionary replaceShared(final StringDictionary full) {
+    SHARED.compareAndSet(full, new StringDictionary(MyriaConstants.SHARED_STRING_DICTIONARY_CAPACITY));
+    return SHARED.get();
+  }
+
+  /**
+   * Replace the shared dictionary by an empty one, so that the strings of the queries that have finished can be freed.
+   * Called when no query runs in this process.
+   */
+  public static void releaseShared() {
+    if (SHARED.get().size() > 0) {
+      SHARED.set(new StringDictionary(MyriaConstants.SHARED_STRING_DICTIONARY_CAPACITY));
+    }
+  }
+
+  /**
+   * @param value a string.
+   * @return the code of the string, or -1 if it is not in the dictionary.
+   */
+  public int lookup(final String value) {
+    final Integer code = codes.get(value);
+    if (code == null) {
+      return -1;
+    }
+    return code;
+  }
+
+  /**
+   * Return the code of a string, adding it to the dictionary if needed.
+   *
+   * @param value a string.
+   * @return the code of the string, or -1 if it is not in the dictionary and the dictionary is full.
+   */
+  public int encode(final String value) {
+    Preconditions.checkNotNull(value, "value");
+    final int code = lookup(value);
+    if (code >= 0 || size >= capacity) {
+      return code;
+    }
+    synchronized (this) {
+      final Integer existing = codes.get(value);
+      if (existing != null) {
+        return existing;
+      }
+      final int newCode = size;
+      if (newCode >= capacity) {
+        return -1;
+      }
+      final int chunk = newCode >>> CHUNK_BITS;
+      if (strings[chunk] == null) {
+        strings[chunk] = new String[CHUNK_SIZE];
+        hashes[chunk] = new int[CHUNK_SIZE];
+      }
+      strings[chunk][newCode & (CHUNK_SIZE - 1)] = value;
+      hashes[chunk][newCode & (CHUNK_SIZE - 1)] = HashUtils.hashString(value);
+      /* publish the entry before the code. */
+      size = newCode + 1;
+      codes.put(value, newCode);
+      return newCode;
+    }
+  }
+
+  /**
+   * Return the codes of some strings, adding the ones that are not in the dictionary only if all of them fit.
+   *
+   * @param values strings.
+   * @return the code of each string, or null if the dictionary cannot hold the missing strings, in which case none of
+   *         them is added.
+   */
+  public int[] encodeAll(final List<String> values) {
+    final int[] ret = new int[values.size()];
+    synchronized (this) {
+      int missing = 0;
+      for (int i = 0; i < ret.length; ++i) {
+        ret[i] = lookup(values.get(i));
+        if (ret[i] < 0) {
+          ++missing;
+        }
+      }
+      if (missing > capacity - size) {
+        return null;
+      }
+      for (int i = 0; i < ret.length; ++i) {
+        if (ret[i] < 0) {
+          ret[i] = encode(values.get(i));
+        }
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * @param code a code returned by this dictionary.
+   * @return the string with the given code.
+   */
+  public String decode(final int code) {
+    Preconditions.checkElementIndex(code, size);
+    return strings[code >>> CHUNK_BITS][code & (CHUNK_SIZE - 1)];
+  }
+
+  /**
+   * @param code a code returned by this dictionary.
+   * @return {@link HashUtils#hashString(String)} of the string with the given code.
+   */
+  public int hash(final int code) {
+    Preconditions.checkElementIndex(code, size);
+    return hashes[code >>> CHUNK_BITS][code & (CHUNK_SIZE - 1)];
+  }
+
+  /**
+   * @return the number of strings in the dictionary.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return the maximum number of strings in the dictionary.
+   */
+  public int capacity() {
+    return capacity;
+  }
+}
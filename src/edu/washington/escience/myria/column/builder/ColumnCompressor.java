@@ -0,0 +1,539 @@
+package edu.washington.escience.myria.column.builder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.joda.time.DateTime;
+
+import com.google.common.base.Preconditions;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import edu.washington.escience.myria.MyriaConstants.ColumnCompression;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.BooleanColumn;
+import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.column.DateTimeColumn;
+import edu.washington.escience.myria.column.DictionaryStringColumn;
+import edu.washington.escience.myria.column.IntArrayColumn;
+import edu.washington.escience.myria.column.LongColumn;
+import edu.washington.escience.myria.column.StringArrayColumn;
+import edu.washington.escience.myria.column.StringDictionary;
+import edu.washington.escience.myria.proto.DataProto.ColumnMessage;
+import edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage;
+import edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.Encoding;
+
+/**
+ * Serializes columns to compressed {@link ColumnMessage}s and back.
+ *
+ * The encoding of each column is picked from cheap statistics gathered in one pass over it: INT, LONG and DATETIME
+ * columns are bit-packed as deltas from the previous value or as offsets from the minimum value, whichever needs fewer
+ * bits; STRING columns with few distinct values are dictionary encoded; BOOLEAN columns with long runs are run-length
+ * encoded. A column is only encoded if that saves at least {@link #MIN_SAVING} of its raw size, otherwise it is sent as
+ * the raw {@link Column#serializeToProto()}. With {@link ColumnCompression#DEFLATE}, the result is additionally deflated
+ * when that helps.
+ */
+public final class ColumnCompressor {
+
+  /** The minimum fraction of the raw size an encoding must save to be used. */
+  private static final double MIN_SAVING = 0.1;
+
+  /** Inaccessible. */
+  private ColumnCompressor() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Serialize a column, compressing it as specified.
+   *
+   * @param column the column.
+   * @param compression how to compress the column.
+   * @return a ColumnMessage containing a serialized copy of the column.
+   */
+  public static ColumnMessage compress(final Column<?> column, final ColumnCompression compression) {
+    Preconditions.checkNotNull(compression, "compression");
+    EncodedColumnMessage.Builder encoded = null;
+    ColumnMessage raw = null;
+    if (compression != ColumnCompression.NONE && column.size() > 0) {
+      encoded = encode(column);
+    }
+    if (compression == ColumnCompression.DEFLATE && column.size() > 0) {
+      if (encoded == null) {
+        raw = column.serializeToProto();
+        encoded = EncodedColumnMessage.newBuilder().setEncoding(Encoding.PLAIN).setData(raw.toByteString());
+      }
+      deflate(encoded);
+      if (encoded.getEncoding() == Encoding.PLAIN && !encoded.getDeflated()) {
+        return raw;
+      }
+    }
+    if (encoded == null) {
+      return column.serializeToProto();
+    }
+    return ColumnMessage.newBuilder().setType(protoType(column.getType())).setEncodedColumn(encoded).build();
+  }
+
+  /**
+   * An estimate of the size of the raw serialization of a column, used to report compression ratios.
+   *
+   * @param column the column.
+   * @return the number of bytes of the column's values in the raw serialization.
+   */
+  public static long rawSize(final Column<?> column) {
+    final int n = column.size();
+    switch (column.getType()) {
+      case BOOLEAN_TYPE:
+        return (n + 7) / 8;
+      case INT_TYPE:
+      case FLOAT_TYPE:
+        return n * (long) (Integer.SIZE / Byte.SIZE);
+      case LONG_TYPE:
+      case DOUBLE_TYPE:
+      case DATETIME_TYPE:
+        return n * (long) (Long.SIZE / Byte.SIZE);
+      case STRING_TYPE:
+        long size = 0;
+        for (int i = 0; i < n; ++i) {
+          /* characters, plus varint start and end indices. */
+          size += column.getString(i).length() + 2 * CodedOutputStream.computeRawVarint32Size(i);
+        }
+        return size;
+    }
+    throw new IllegalArgumentException("Unknown column type " + column.getType());
+  }
+
+  /**
+   * Deserialize a ColumnMessage that has an {@link EncodedColumnMessage}.
+   *
+   * @param message the ColumnMessage.
+   * @param numTuples the number of tuples in the column.
+   * @return the column.
+   */
+  public static Column<?> decompress(final ColumnMessage message, final int numTuples) {
+    Preconditions.checkArgument(message.hasEncodedColumn(), "ColumnMessage %s is not encoded", message.getType());
+    final EncodedColumnMessage encoded = message.getEncodedColumn();
+    final byte[] data;
+    if (encoded.getDeflated()) {
+      data = inflate(encoded.getData(), encoded.getInflatedSize());
+    } else {
+      data = encoded.getData().toByteArray();
+    }
+
+    switch (encoded.getEncoding()) {
+      case PLAIN:
+        try {
+          return ColumnFactory.columnFromColumnMessage(ColumnMessage.parseFrom(data), numTuples);
+        } catch (InvalidProtocolBufferException e) {
+          throw new IllegalArgumentException("Corrupt deflated column", e);
+        }
+      case DELTA:
+      case FRAME_OF_REFERENCE:
+        final long[] values = unpack(data, numTuples, encoded.getBitWidth());
+        final long base = encoded.getBase();
+        if (encoded.getEncoding() == Encoding.DELTA) {
+          long previous = base;
+          for (int i = 0; i < numTuples; ++i) {
+            previous += (values[i] >>> 1) ^ -(values[i] & 1);
+            values[i] = previous;
+          }
+        } else {
+          for (int i = 0; i < numTuples; ++i) {
+            values[i] += base;
+          }
+        }
+        return integralColumn(message.getType(), values, numTuples);
+      case DICTIONARY:
+        Preconditions.checkArgument(message.getType() == ColumnMessage.Type.STRING,
+            "Dictionary encoding of a %s column", message.getType());
+        final List<String> dictionary = encoded.getDictionaryList();
+        final long[] codes = unpack(data, numTuples, encoded.getBitWidth());
+        StringDictionary shared = StringDictionary.shared();
+        int[] sharedCodes = shared.encodeAll(dictionary);
+        if (sharedCodes == null) {
+          /* The shared dictionary cannot hold the received strings; this and later columns share a new one. */
+          shared = StringDictionary.replaceShared(shared);
+          sharedCodes = shared.encodeAll(dictionary);
+        }
+        if (sharedCodes != null) {
+          final int[] column = new int[numTuples];
+          for (int i = 0; i < numTuples; ++i) {
+            column[i] = sharedCodes[(int) codes[i]];
+          }
+          return new DictionaryStringColumn(shared, column, numTuples);
+        }
+        final String[] strings = new String[numTuples];
+        for (int i = 0; i < numTuples; ++i) {
+          strings[i] = dictionary.get((int) codes[i]);
+        }
+        return new StringArrayColumn(strings, numTuples);
+      case RUN_LENGTH:
+        Preconditions.checkArgument(message.getType() == ColumnMessage.Type.BOOLEAN,
+            "Run-length encoding of a %s column", message.getType());
+        final BitSet bits = new BitSet(numTuples);
+        final CodedInputStream runs = CodedInputStream.newInstance(data);
+        boolean value = encoded.getBase() != 0;
+        try {
+          int row = 0;
+          while (row < numTuples) {
+            final int run = runs.readRawVarint32();
+            if (value) {
+              bits.set(row, row + run);
+            }
+            row += run;
+            value = !value;
+          }
+        } catch (IOException e) {
+          throw new IllegalArgumentException("Corrupt run-length encoded column", e);
+        }
+        return new BooleanColumn(bits, numTuples);
+    }
+    throw new IllegalArgumentException("Unknown column encoding " + encoded.getEncoding());
+  }
+
+  /**
+   * @param column a non-empty column.
+   * @return its lightweight encoding, or null if it has none that saves enough.
+   */
+  private static EncodedColumnMessage.Builder encode(final Column<?> column) {
+    switch (column.getType()) {
+      case INT_TYPE:
+        return encodeIntegral(column, Integer.SIZE);
+      case LONG_TYPE:
+      case DATETIME_TYPE:
+        return encodeIntegral(column, Long.SIZE);
+      case STRING_TYPE:
+        return encodeDictionary(column);
+      case BOOLEAN_TYPE:
+        return encodeRunLength(column);
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * @param rawBytes the raw size of a column.
+   * @param encodedBytes the size of an encoding of it.
+   * @return true if the encoding saves enough to be used.
+   */
+  private static boolean saves(final long rawBytes, final long encodedBytes) {
+    return encodedBytes <= rawBytes * (1 - MIN_SAVING);
+  }
+
+  /**
+   * @param column an INT, LONG or DATETIME column.
+   * @param rawBits the number of bits of a value in the raw serialization.
+   * @return the delta or frame-of-reference encoding of the column, or null if neither saves enough.
+   */
+  private static EncodedColumnMessage.Builder encodeIntegral(final Column<?> column, final int rawBits) {
+    final int n = column.size();
+    final long[] values = new long[n];
+    for (int i = 0; i < n; ++i) {
+      switch (column.getType()) {
+        case INT_TYPE:
+          values[i] = column.getInt(i);
+          break;
+        case LONG_TYPE:
+          values[i] = column.getLong(i);
+          break;
+        default:
+          values[i] = column.getDateTime(i).getMillis();
+          break;
+      }
+    }
+
+    long min = values[0];
+    long max = values[0];
+    /* the bitwise or of all zigzag deltas has the bit width of the largest. */
+    long deltaBits = 0;
+    for (int i = 1; i < n; ++i) {
+      min = Math.min(min, values[i]);
+      max = Math.max(max, values[i]);
+      final long delta = values[i] - values[i - 1];
+      deltaBits |= (delta << 1) ^ (delta >> (Long.SIZE - 1));
+    }
+    final int forWidth = Long.SIZE - Long.numberOfLeadingZeros(max - min);
+    final int deltaWidth = Long.SIZE - Long.numberOfLeadingZeros(deltaBits);
+    final int width = Math.min(forWidth, deltaWidth);
+    if (!saves(packedSize(n, rawBits), packedSize(n, width))) {
+      return null;
+    }
+
+    final EncodedColumnMessage.Builder encoded = EncodedColumnMessage.newBuilder().setBitWidth(width);
+    if (deltaWidth < forWidth) {
+      encoded.setEncoding(Encoding.DELTA).setBase(values[0]);
+      long previous = values[0];
+      for (int i = 0; i < n; ++i) {
+        final long delta = values[i] - previous;
+        previous = values[i];
+        values[i] = (delta << 1) ^ (delta >> (Long.SIZE - 1));
+      }
+    } else {
+      encoded.setEncoding(Encoding.FRAME_OF_REFERENCE).setBase(min);
+      for (int i = 0; i < n; ++i) {
+        values[i] -= min;
+      }
+    }
+    return encoded.setData(ByteString.copyFrom(pack(values, n, width)));
+  }
+
+  /**
+   * @param column a STRING column.
+   * @return the dictionary encoding of the column, or null if it does not save enough.
+   */
+  private static EncodedColumnMessage.Builder encodeDictionary(final Column<?> column) {
+    final int n = column.size();
+    final HashMap<String, Integer> dictionary = new HashMap<String, Integer>();
+    final EncodedColumnMessage.Builder encoded = EncodedColumnMessage.newBuilder().setEncoding(Encoding.DICTIONARY);
+    final long[] codes = new long[n];
+    long dictionaryBytes = 0;
+    for (int i = 0; i < n; ++i) {
+      final String value = column.getString(i);
+      Integer code = dictionary.get(value);
+      if (code == null) {
+        if (dictionary.size() >= n / 2) {
+          /* too many distinct values to be worth it. */
+          return null;
+        }
+        code = dictionary.size();
+        dictionary.put(value, code);
+        encoded.addDictionary(value);
+        dictionaryBytes += value.length() + 1;
+      }
+      codes[i] = code;
+    }
+    final int width = Integer.SIZE - Integer.numberOfLeadingZeros(dictionary.size() - 1);
+    if (!saves(rawSize(column), dictionaryBytes + packedSize(n, width))) {
+      return null;
+    }
+    return encoded.setBitWidth(width).setData(ByteString.copyFrom(pack(codes, n, width)));
+  }
+
+  /**
+   * @param column a BOOLEAN column.
+   * @return the run-length encoding of the column, or null if it does not save enough.
+   */
+  private static EncodedColumnMessage.Builder encodeRunLength(final Column<?> column) {
+    final int n = column.size();
+    final long rawBytes = rawSize(column);
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final CodedOutputStream runs = CodedOutputStream.newInstance(bytes);
+    try {
+      boolean value = column.getBoolean(0);
+      int runStart = 0;
+      for (int i = 1; i <= n; ++i) {
+        if (i == n || column.getBoolean(i) != value) {
+          runs.writeRawVarint32(i - runStart);
+          runStart = i;
+          value = !value;
+        }
+      }
+      runs.flush();
+    } catch (IOException e) {
+      throw new IllegalStateException("Writing to memory", e);
+    }
+    if (!saves(rawBytes, bytes.size())) {
+      return null;
+    }
+    return EncodedColumnMessage.newBuilder().setEncoding(Encoding.RUN_LENGTH).setBase(column.getBoolean(0) ? 1 : 0)
+        .setData(ByteString.copyFrom(bytes.toByteArray()));
+  }
+
+  /**
+   * Deflate the data of an encoded column, if that makes it smaller.
+   *
+   * @param encoded the encoded column.
+   */
+  private static void deflate(final EncodedColumnMessage.Builder encoded) {
+    final byte[] input = encoded.getData().toByteArray();
+    final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      deflater.setInput(input);
+      deflater.finish();
+      final byte[] output = new byte[input.length];
+      int outputBytes = 0;
+      while (!deflater.finished() && outputBytes < output.length) {
+        outputBytes += deflater.deflate(output, outputBytes, output.length - outputBytes);
+      }
+      if (deflater.finished() && saves(input.length, outputBytes)) {
+        encoded.setDeflated(true).setInflatedSize(input.length).setData(ByteString.copyFrom(output, 0, outputBytes));
+      }
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * @param data deflated data.
+   * @param inflatedSize the size of data before it was deflated.
+   * @return the inflated data.
+   */
+  private static byte[] inflate(final ByteString data, final int inflatedSize) {
+    final Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(data.toByteArray());
+      final byte[] output = new byte[inflatedSize];
+      int outputBytes = 0;
+      while (outputBytes < inflatedSize && !inflater.finished()) {
+        final int inflated = inflater.inflate(output, outputBytes, inflatedSize - outputBytes);
+        if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        outputBytes += inflated;
+      }
+      Preconditions.checkArgument(outputBytes == inflatedSize, "Deflated column is truncated");
+      return output;
+    } catch (DataFormatException e) {
+      throw new IllegalArgumentException("Corrupt deflated column", e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  /**
+   * @param n number of values.
+   * @param width bits per value.
+   * @return number of bytes of n bit-packed values.
+   */
+  private static long packedSize(final int n, final int width) {
+    return (n * (long) width + Byte.SIZE - 1) / Byte.SIZE;
+  }
+
+  /**
+   * @param bits number of bits, 0 to 64.
+   * @return a mask of the lowest bits bits.
+   */
+  private static long mask(final int bits) {
+    if (bits == Long.SIZE) {
+      return -1L;
+    }
+    return (1L << bits) - 1;
+  }
+
+  /**
+   * Bit-pack values, least significant bits first.
+   *
+   * @param values the values, all of which fit into width unsigned bits.
+   * @param n the number of values.
+   * @param width bits per value.
+   * @return the packed values.
+   */
+  static byte[] pack(final long[] values, final int n, final int width) {
+    final byte[] out = new byte[(int) packedSize(n, width)];
+    int pos = 0;
+    long acc = 0;
+    int accBits = 0;
+    for (int i = 0; i < n; ++i) {
+      long value = values[i];
+      int remaining = width;
+      while (remaining > 0) {
+        /* accBits < 8 here, so up to 56 bits fit into acc. */
+        final int take = Math.min(remaining, Long.SIZE - Byte.SIZE);
+        acc |= (value & mask(take)) << accBits;
+        accBits += take;
+        value >>>= take;
+        remaining -= take;
+        while (accBits >= Byte.SIZE) {
+          out[pos++] = (byte) acc;
+          acc >>>= Byte.SIZE;
+          accBits -= Byte.SIZE;
+        }
+      }
+    }
+    if (accBits > 0) {
+      out[pos] = (byte) acc;
+    }
+    return out;
+  }
+
+  /**
+   * Inverse of {@link #pack(long[], int, int)}.
+   *
+   * @param data the packed values.
+   * @param n the number of values.
+   * @param width bits per value.
+   * @return the values.
+   */
+  static long[] unpack(final byte[] data, final int n, final int width) {
+    Preconditions.checkArgument(data.length >= packedSize(n, width), "Bit-packed column is truncated");
+    final long[] values = new long[n];
+    int pos = 0;
+    long acc = 0;
+    int accBits = 0;
+    for (int i = 0; i < n; ++i) {
+      long value = 0;
+      int got = 0;
+      while (got < width) {
+        if (accBits == 0) {
+          acc = data[pos++] & 0xFF;
+          accBits = Byte.SIZE;
+        }
+        final int take = Math.min(width - got, accBits);
+        value |= (acc & mask(take)) << got;
+        acc >>>= take;
+        accBits -= take;
+        got += take;
+      }
+      values[i] = value;
+    }
+    return values;
+  }
+
+  /**
+   * @param type INT, LONG or DATETIME.
+   * @param values the values of the column.
+   * @param n the number of values.
+   * @return a column of the specified type holding the values.
+   */
+  private static Column<?> integralColumn(final ColumnMessage.Type type, final long[] values, final int n) {
+    switch (type) {
+      case INT:
+        final int[] ints = new int[n];
+        for (int i = 0; i < n; ++i) {
+          ints[i] = (int) values[i];
+        }
+        return new IntArrayColumn(ints, n);
+      case LONG:
+        return new LongColumn(values, n);
+      case DATETIME:
+        final DateTime[] dates = new DateTime[n];
+        for (int i = 0; i < n; ++i) {
+          dates[i] = new DateTime(values[i]);
+        }
+        return new DateTimeColumn(dates, n);
+      default:
+        throw new IllegalArgumentException("Delta or frame-of-reference encoding of a " + type + " column");
+    }
+  }
+
+  /**
+   * @param type a Myria type.
+   * @return the corresponding ColumnMessage type.
+   */
+  private static ColumnMessage.Type protoType(final Type type) {
+    switch (type) {
+      case BOOLEAN_TYPE:
+        return ColumnMessage.Type.BOOLEAN;
+      case DATETIME_TYPE:
+        return ColumnMessage.Type.DATETIME;
+      case DOUBLE_TYPE:
+        return ColumnMessage.Type.DOUBLE;
+      case FLOAT_TYPE:
+        return ColumnMessage.Type.FLOAT;
+      case INT_TYPE:
+        return ColumnMessage.Type.INT;
+      case LONG_TYPE:
+        return ColumnMessage.Type.LONG;
+      case STRING_TYPE:
+        return ColumnMessage.Type.STRING;
+    }
+    throw new IllegalArgumentException("Unknown column type " + type);
+  }
+}
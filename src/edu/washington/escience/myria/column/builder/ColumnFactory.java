@@ -6,6 +6,7 @@ import java.util.List;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.column.StringDictionary;
 import edu.washington.escience.myria.proto.DataProto.ColumnMessage;
 
 /**
@@ -51,6 +52,23 @@ public final class ColumnFactory {
     return allocateColumns(schema.getColumnTypes());
   }
 
+  /**
+   * Allocates an array of Columns to match the given Schema, encoding the STRING columns with the given dictionary.
+   * 
+   * @param schema the Schema
+   * @param dictionary the dictionary of the STRING columns
+   * @return the list of Columns
+   */
+  public static List<ColumnBuilder<?>> allocateColumns(final Schema schema, final StringDictionary dictionary) {
+    final List<ColumnBuilder<?>> columns = allocateColumns(schema);
+    for (int i = 0; i < columns.size(); ++i) {
+      if (columns.get(i).getType() == Type.STRING_TYPE) {
+        columns.set(i, new DictionaryStringColumnBuilder(dictionary));
+      }
+    }
+    return columns;
+  }
+
   /**
    * Allocates an array of Columns to match the given Type array.
    * 
@@ -73,6 +91,9 @@ public final class ColumnFactory {
    * @return a Column of the appropriate type and contents.
    */
   public static Column<?> columnFromColumnMessage(final ColumnMessage message, final int numTuples) {
+    if (message.hasEncodedColumn()) {
+      return ColumnCompressor.decompress(message, numTuples);
+    }
     switch (message.getType()) {
       case BOOLEAN:
         return BooleanColumnBuilder.buildFromProtobuf(message, numTuples);
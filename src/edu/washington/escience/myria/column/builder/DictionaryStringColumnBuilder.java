@@ -0,0 +1,234 @@
+package edu.washington.escience.myria.column.builder;
+
+import java.nio.BufferOverflowException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Objects;
+
+import com.almworks.sqlite4java.SQLiteException;
+import com.almworks.sqlite4java.SQLiteStatement;
+import com.google.common.base.Preconditions;
+
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.DictionaryStringColumn;
+import edu.washington.escience.myria.column.StringArrayColumn;
+import edu.washington.escience.myria.column.StringColumn;
+import edu.washington.escience.myria.column.StringDictionary;
+import edu.washington.escience.myria.column.mutable.StringMutableColumn;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.util.MyriaUtils;
+
+/**
+ * A builder of {@link DictionaryStringColumn}s. Appended strings are encoded with the builder's
+ * {@link StringDictionary}; if the dictionary fills up, the builder keeps the strings instead and builds a
+ * {@link StringArrayColumn}.
+ */
+public final class DictionaryStringColumnBuilder extends ColumnBuilder<String> {
+
+  /** The dictionary of the codes. */
+  private final StringDictionary dictionary;
+  /** The codes of the strings, while all of them are in the dictionary. */
+  private final int[] codes;
+  /** The strings, once one of them was not in the dictionary, otherwise null. */
+  private String[] strings;
+  /** Number of elements in this column. */
+  private int numStrings;
+
+  /**
+   * If the builder has built the column.
+   * */
+  private boolean built = false;
+
+  /**
+   * Constructs an empty column that can hold up to TupleBatch.BATCH_SIZE elements.
+   *
+   * @param dictionary the dictionary to encode the strings with.
+   */
+  public DictionaryStringColumnBuilder(final StringDictionary dictionary) {
+    this(Objects.requireNonNull(dictionary, "dictionary"), new int[TupleBatch.BATCH_SIZE], null, 0);
+  }
+
+  /**
+   * copy.
+   *
+   * @param dictionary the dictionary of the codes
+   * @param codes the codes
+   * @param strings the strings, or null if all of them are encoded
+   * @param numStrings the actual num strings in the data
+   * */
+  private DictionaryStringColumnBuilder(final StringDictionary dictionary, final int[] codes, final String[] strings,
+      final int numStrings) {
+    this.dictionary = dictionary;
+    this.codes = codes;
+    this.strings = strings;
+    this.numStrings = numStrings;
+  }
+
+  /**
+   * @return the dictionary the strings are encoded with.
+   */
+  public StringDictionary getDictionary() {
+    return dictionary;
+  }
+
+  /**
+   * Stop encoding: decode the strings appended so far and keep them instead.
+   */
+  private void decodeAll() {
+    strings = new String[codes.length];
+    for (int row = 0; row < numStrings; ++row) {
+      strings[row] = dictionary.decode(codes[row]);
+    }
+  }
+
+  @Override
+  public DictionaryStringColumnBuilder appendString(final String value) throws BufferOverflowException {
+    Preconditions.checkState(!built, "No further changes are allowed after the builder has built the column.");
+    Objects.requireNonNull(value, "value");
+    if (numStrings >= TupleBatch.BATCH_SIZE) {
+      throw new BufferOverflowException();
+    }
+    if (strings == null) {
+      final int code = dictionary.encode(value);
+      if (code >= 0) {
+        codes[numStrings++] = code;
+        return this;
+      }
+      decodeAll();
+    }
+    strings[numStrings++] = value;
+    return this;
+  }
+
+  /**
+   * Append a string given by its code in the dictionary of this builder.
+   *
+   * @param code the code of the string.
+   * @return this column builder.
+   * @throws BufferOverflowException if the column is already full.
+   */
+  public DictionaryStringColumnBuilder appendCode(final int code) throws BufferOverflowException {
+    Preconditions.checkState(!built, "No further changes are allowed after the builder has built the column.");
+    if (numStrings >= TupleBatch.BATCH_SIZE) {
+      throw new BufferOverflowException();
+    }
+    if (strings == null) {
+      Preconditions.checkElementIndex(code, dictionary.size());
+      codes[numStrings++] = code;
+    } else {
+      strings[numStrings++] = dictionary.decode(code);
+    }
+    return this;
+  }
+
+  @Override
+  public Type getType() {
+    return Type.STRING_TYPE;
+  }
+
+  @Override
+  public DictionaryStringColumnBuilder appendFromJdbc(final ResultSet resultSet, final int jdbcIndex)
+      throws SQLException, BufferOverflowException {
+    Preconditions.checkState(!built, "No further changes are allowed after the builder has built the column.");
+    return appendString(resultSet.getString(jdbcIndex));
+  }
+
+  @Override
+  public DictionaryStringColumnBuilder appendFromSQLite(final SQLiteStatement statement, final int index)
+      throws SQLiteException, BufferOverflowException {
+    Preconditions.checkState(!built, "No further changes are allowed after the builder has built the column.");
+    return appendString(statement.columnString(index));
+  }
+
+  @Override
+  public int size() {
+    return numStrings;
+  }
+
+  @Override
+  public StringColumn build() {
+    built = true;
+    if (strings != null) {
+      return new StringArrayColumn(strings, numStrings);
+    }
+    return new DictionaryStringColumn(dictionary, codes, numStrings);
+  }
+
+  @Override
+  public StringMutableColumn buildMutable() {
+    built = true;
+    if (strings == null) {
+      decodeAll();
+    }
+    return new StringMutableColumn(strings, numStrings);
+  }
+
+  @Override
+  public void replaceString(final String value, final int row) throws IndexOutOfBoundsException {
+    Preconditions.checkState(!built, "No further changes are allowed after the builder has built the column.");
+    Preconditions.checkElementIndex(row, numStrings);
+    Objects.requireNonNull(value, "value");
+    if (strings == null) {
+      final int code = dictionary.encode(value);
+      if (code >= 0) {
+        codes[row] = code;
+        return;
+      }
+      decodeAll();
+    }
+    strings[row] = value;
+  }
+
+  @Override
+  public DictionaryStringColumnBuilder expand(final int size) throws BufferOverflowException {
+    Preconditions.checkState(!built, "No further changes are allowed after the builder has built the column.");
+    Preconditions.checkArgument(size >= 0);
+    if (numStrings + size > codes.length) {
+      throw new BufferOverflowException();
+    }
+    if (strings == null) {
+      /* the new rows have no string yet, so they cannot have a code. */
+      decodeAll();
+    }
+    numStrings += size;
+    return this;
+  }
+
+  @Override
+  public DictionaryStringColumnBuilder expandAll() {
+    return expand(codes.length - numStrings);
+  }
+
+  @Override
+  public String getObject(final int row) {
+    return getString(row);
+  }
+
+  @Override
+  public String getString(final int row) {
+    Preconditions.checkElementIndex(row, numStrings);
+    if (strings == null) {
+      return dictionary.decode(codes[row]);
+    }
+    return strings[row];
+  }
+
+  @Deprecated
+  @Override
+  public ColumnBuilder<String> appendObject(final Object value) throws BufferOverflowException {
+    Preconditions.checkArgument(!built, "No further changes are allowed after the builder has built the column.");
+    return appendString((String) MyriaUtils.ensureObjectIsValidType(value));
+  }
+
+  @Override
+  public DictionaryStringColumnBuilder forkNewBuilder() {
+    final int[] newCodes = new int[codes.length];
+    System.arraycopy(codes, 0, newCodes, 0, numStrings);
+    String[] newStrings = null;
+    if (strings != null) {
+      newStrings = new String[strings.length];
+      System.arraycopy(strings, 0, newStrings, 0, numStrings);
+    }
+    return new DictionaryStringColumnBuilder(dictionary, newCodes, newStrings, numStrings);
+  }
+}
@@ -52,6 +52,15 @@ public class Expression implements Serializable {
    * Variable name of state.
    */
   public static final String STATE = "state";
+  /**
+   * Prefix of the variable names of the input column arrays in batch evaluation, followed by the column index.
+   */
+  public static final String COLUMN = "col";
+  /**
+   * Suffix of the variable names of the row whose value is at index 0 of an input column array in batch evaluation,
+   * after {@link #COLUMN} and the column index.
+   */
+  public static final String COLUMN_OFFSET = "Offset";
 
   /**
    * This is not really unused, it's used automagically by Jackson deserialization.
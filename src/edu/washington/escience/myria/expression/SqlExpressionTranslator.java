@@ -0,0 +1,372 @@
+package edu.washington.escience.myria.expression;
+
+import java.util.Objects;
+
+import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.expression.evaluate.ExpressionOperatorParameter;
+
+/**
+ * Translates expression trees to SQL, so that filters and projections can be evaluated by the storage engine instead of
+ * by compiled Java. An expression is translated only if the database system evaluates it exactly like the Java code
+ * generated by {@link ExpressionOperator#getJavaString}, otherwise the translator returns <code>null</code> and the
+ * expression must be evaluated in Java. In particular:
+ * <ul>
+ * <li>Integral addition, subtraction, multiplication and modulo are translated only for PostgreSQL, which, like Java,
+ * fails on overflow. Negation is not translated, since Java silently wraps it at the minimum value. Floating-point
+ * arithmetic is never translated: PostgreSQL fails where Java overflows to infinity, and SQLite turns NaN into
+ * NULL.</li>
+ * <li>Java compares NaN unequal to every value, including itself, whereas PostgreSQL and the columnar storage order it
+ * above every value and SQLite stores it as NULL. Floating-point values are therefore only compared for equality with a
+ * value that cannot be NaN, and not at all in SQLite.</li>
+ * <li>Strings are only compared for equality, since databases order them by their collation, except in the columnar
+ * storage, which orders them like Java.</li>
+ * <li>The columnar storage only evaluates conjunctions of comparisons between columns and constants, and only
+ * projects columns.</li>
+ * </ul>
+ */
+public final class SqlExpressionTranslator {
+
+  /** The database system that evaluates the SQL. */
+  private final String dbms;
+  /** The parameters that give the types of the columns. */
+  private final ExpressionOperatorParameter parameters;
+
+  /**
+   * @param dbms the database system that evaluates the SQL.
+   * @param schema the schema of the relation that the expressions refer to.
+   */
+  private SqlExpressionTranslator(final String dbms, final Schema schema) {
+    this.dbms = Objects.requireNonNull(dbms, "dbms");
+    parameters = new ExpressionOperatorParameter(Objects.requireNonNull(schema, "schema"));
+  }
+
+  /**
+   * @param dbms a database system.
+   * @return true if expressions can be translated to the SQL of the database system.
+   */
+  public static boolean supports(final String dbms) {
+    switch (dbms) {
+      case MyriaConstants.STORAGE_SYSTEM_POSTGRESQL:
+      case MyriaConstants.STORAGE_SYSTEM_SQLITE:
+      case MyriaConstants.STORAGE_SYSTEM_COLUMNAR:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Translates a predicate to a WHERE clause.
+   *
+   * @param predicate the predicate.
+   * @param schema the schema of the relation that the predicate refers to.
+   * @param dbms the database system that evaluates the SQL.
+   * @return the condition of the WHERE clause, or null if the predicate cannot be translated exactly.
+   */
+  public static String translatePredicate(final Expression predicate, final Schema schema, final String dbms) {
+    if (!supports(dbms) || predicate.getOutputType(new ExpressionOperatorParameter(schema)) != Type.BOOLEAN_TYPE) {
+      return null;
+    }
+    final SqlExpressionTranslator translator = new SqlExpressionTranslator(dbms, schema);
+    if (translator.isColumnar()) {
+      return translator.columnarCondition(predicate.getRootExpressionOperator());
+    }
+    return translator.condition(predicate.getRootExpressionOperator());
+  }
+
+  /**
+   * Translates an expression to an item of a SELECT list.
+   *
+   * @param expression the expression.
+   * @param schema the schema of the relation that the expression refers to.
+   * @param dbms the database system that evaluates the SQL.
+   * @return the item, or null if the expression cannot be translated exactly.
+   */
+  public static String translateValue(final Expression expression, final Schema schema, final String dbms) {
+    if (!supports(dbms)) {
+      return null;
+    }
+    final SqlExpressionTranslator translator = new SqlExpressionTranslator(dbms, schema);
+    final ExpressionOperator root = expression.getRootExpressionOperator();
+    if (translator.isColumnar()) {
+      if (root instanceof VariableExpression) {
+        return translator.variable((VariableExpression) root);
+      }
+      return null;
+    }
+    /* Booleans are read back as stored values, which comparisons are not in every database system. */
+    if (root.getOutputType(translator.parameters) == Type.BOOLEAN_TYPE && !(root instanceof VariableExpression)) {
+      return null;
+    }
+    return translator.value(root);
+  }
+
+  /**
+   * @return true if the SQL is evaluated by the columnar storage.
+   */
+  private boolean isColumnar() {
+    return dbms.equals(MyriaConstants.STORAGE_SYSTEM_COLUMNAR);
+  }
+
+  /**
+   * @param op a boolean expression.
+   * @return the SQL condition, or null.
+   */
+  private String condition(final ExpressionOperator op) {
+    if (op instanceof AndExpression || op instanceof OrExpression) {
+      final BinaryExpression binary = (BinaryExpression) op;
+      final String left = condition(binary.getLeft());
+      final String right = condition(binary.getRight());
+      if (left == null || right == null) {
+        return null;
+      }
+      return "(" + left + (op instanceof AndExpression ? " AND " : " OR ") + right + ")";
+    }
+    if (op instanceof NotExpression) {
+      final String operand = condition(((NotExpression) op).getOperand());
+      return operand == null ? null : "(NOT " + operand + ")";
+    }
+    if (op instanceof ComparisonExpression) {
+      return comparison((ComparisonExpression) op);
+    }
+    if (op instanceof VariableExpression) {
+      final String column = variable((VariableExpression) op);
+      /* SQLite stores booleans as 0 or 1. */
+      return dbms.equals(MyriaConstants.STORAGE_SYSTEM_SQLITE) ? "(" + column + " <> 0)" : column;
+    }
+    if (op instanceof ConstantExpression) {
+      return constant((ConstantExpression) op);
+    }
+    return null;
+  }
+
+  /**
+   * @param op a comparison.
+   * @return the SQL comparison, or null.
+   */
+  private String comparison(final ComparisonExpression op) {
+    final String sqlOp = comparisonOperator(op);
+    if (sqlOp == null) {
+      return null;
+    }
+    final Type type = op.getLeft().getOutputType(parameters);
+    if (type == Type.BOOLEAN_TYPE) {
+      return null;
+    }
+    final boolean equality = op instanceof EqualsExpression || op instanceof NotEqualsExpression;
+    if (type == Type.STRING_TYPE && !equality) {
+      return null;
+    }
+    final boolean leftNaN = mayBeNaN(op.getLeft());
+    final boolean rightNaN = mayBeNaN(op.getRight());
+    if ((leftNaN || rightNaN)
+        && (!equality || (leftNaN && rightNaN) || dbms.equals(MyriaConstants.STORAGE_SYSTEM_SQLITE))) {
+      return null;
+    }
+    final String left = value(op.getLeft());
+    final String right = value(op.getRight());
+    if (left == null || right == null) {
+      return null;
+    }
+    return "(" + left + " " + sqlOp + " " + right + ")";
+  }
+
+  /**
+   * @param op an expression.
+   * @return true if the expression produces FLOAT or DOUBLE values that may be NaN, i.e., it is not a constant.
+   */
+  private boolean mayBeNaN(final ExpressionOperator op) {
+    final Type type = op.getOutputType(parameters);
+    return (type == Type.FLOAT_TYPE || type == Type.DOUBLE_TYPE) && !(op instanceof ConstantExpression);
+  }
+
+  /**
+   * @param op a comparison.
+   * @return its SQL operator, or null if it is not a supported comparison.
+   */
+  private static String comparisonOperator(final ExpressionOperator op) {
+    if (op instanceof EqualsExpression) {
+      return "=";
+    } else if (op instanceof NotEqualsExpression) {
+      return "<>";
+    } else if (op instanceof LessThanExpression) {
+      return "<";
+    } else if (op instanceof LessThanOrEqualsExpression) {
+      return "<=";
+    } else if (op instanceof GreaterThanExpression) {
+      return ">";
+    } else if (op instanceof GreaterThanOrEqualsExpression) {
+      return ">=";
+    }
+    return null;
+  }
+
+  /**
+   * @param op a comparison operator.
+   * @return the operator that compares the operands the other way around.
+   */
+  private static String flip(final String op) {
+    switch (op) {
+      case "<":
+        return ">";
+      case "<=":
+        return ">=";
+      case ">":
+        return "<";
+      case ">=":
+        return "<=";
+      default:
+        return op;
+    }
+  }
+
+  /**
+   * @param op a non-boolean expression, or a boolean column or constant.
+   * @return the SQL value, or null.
+   */
+  private String value(final ExpressionOperator op) {
+    if (op instanceof VariableExpression) {
+      return variable((VariableExpression) op);
+    }
+    if (op instanceof ConstantExpression) {
+      return constant((ConstantExpression) op);
+    }
+    final Type type = op.getOutputType(parameters);
+    if (!(type == Type.INT_TYPE || type == Type.LONG_TYPE) || !dbms.equals(MyriaConstants.STORAGE_SYSTEM_POSTGRESQL)) {
+      return null;
+    }
+    final String infix;
+    if (op instanceof PlusExpression) {
+      infix = " + ";
+    } else if (op instanceof MinusExpression) {
+      infix = " - ";
+    } else if (op instanceof TimesExpression) {
+      infix = " * ";
+    } else if (op instanceof ModuloExpression) {
+      infix = " % ";
+    } else {
+      return null;
+    }
+    final BinaryExpression binary = (BinaryExpression) op;
+    final String left = value(binary.getLeft());
+    final String right = value(binary.getRight());
+    if (left == null || right == null) {
+      return null;
+    }
+    return "(" + left + infix + right + ")";
+  }
+
+  /**
+   * @param op a column reference.
+   * @return the quoted name of the column.
+   */
+  private String variable(final VariableExpression op) {
+    final String name = parameters.getSchema().getColumnName(op.getColumnIdx());
+    return '"' + name.replace("\"", "\"\"") + '"';
+  }
+
+  /**
+   * @param op a constant.
+   * @return the SQL literal, or null if it cannot be written exactly.
+   */
+  private String constant(final ConstantExpression op) {
+    final Type type = op.getOutputType(parameters);
+    final String value = op.getValue();
+    final boolean postgres = dbms.equals(MyriaConstants.STORAGE_SYSTEM_POSTGRESQL);
+    try {
+      switch (type) {
+        case INT_TYPE:
+          return String.valueOf(Integer.parseInt(value));
+        case LONG_TYPE:
+          final long longValue = Long.parseLong(stripSuffix(value, 'L'));
+          return postgres ? "CAST(" + longValue + " AS BIGINT)" : String.valueOf(longValue);
+        case FLOAT_TYPE:
+        case DOUBLE_TYPE:
+          /* A float constant is compared in float precision in Java, so write the exact double it widens to. */
+          final double doubleValue =
+              type == Type.FLOAT_TYPE ? Float.parseFloat(stripSuffix(value, 'F')) : Double.parseDouble(value);
+          if (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue)) {
+            return null;
+          }
+          return postgres ? "CAST(" + doubleValue + " AS DOUBLE PRECISION)" : String.valueOf(doubleValue);
+        case BOOLEAN_TYPE:
+          final boolean booleanValue = Boolean.parseBoolean(value);
+          if (dbms.equals(MyriaConstants.STORAGE_SYSTEM_SQLITE)) {
+            return booleanValue ? "1" : "0";
+          }
+          return booleanValue ? "TRUE" : "FALSE";
+        case STRING_TYPE:
+          return "'" + value.replace("'", "''") + "'";
+        case DATETIME_TYPE:
+          return null;
+      }
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    return null;
+  }
+
+  /**
+   * @param value the text of a constant.
+   * @param suffix the Java type suffix of the constant.
+   * @return the text without the suffix.
+   */
+  private static String stripSuffix(final String value, final char suffix) {
+    if (!value.isEmpty() && Character.toUpperCase(value.charAt(value.length() - 1)) == suffix) {
+      return value.substring(0, value.length() - 1);
+    }
+    return value;
+  }
+
+  /**
+   * The columnar storage only evaluates conjunctions of comparisons between a column and a constant.
+   *
+   * @param op a boolean expression.
+   * @return the SQL condition, or null.
+   */
+  private String columnarCondition(final ExpressionOperator op) {
+    if (op instanceof AndExpression) {
+      final String left = columnarCondition(((AndExpression) op).getLeft());
+      final String right = columnarCondition(((AndExpression) op).getRight());
+      if (left == null || right == null) {
+        return null;
+      }
+      return left + " AND " + right;
+    }
+    if (op instanceof VariableExpression) {
+      return variable((VariableExpression) op) + " = TRUE";
+    }
+    if (!(op instanceof ComparisonExpression)) {
+      return null;
+    }
+    final ComparisonExpression comparison = (ComparisonExpression) op;
+    String sqlOp = comparisonOperator(comparison);
+    if (sqlOp == null) {
+      return null;
+    }
+    ExpressionOperator column = comparison.getLeft();
+    ExpressionOperator constant = comparison.getRight();
+    if (column instanceof ConstantExpression) {
+      column = comparison.getRight();
+      constant = comparison.getLeft();
+      sqlOp = flip(sqlOp);
+    }
+    if (!(column instanceof VariableExpression) || !(constant instanceof ConstantExpression)) {
+      return null;
+    }
+    final Type type = column.getOutputType(parameters);
+    if (type == Type.BOOLEAN_TYPE || type == Type.DATETIME_TYPE) {
+      return null;
+    }
+    if ((type == Type.FLOAT_TYPE || type == Type.DOUBLE_TYPE) && !(sqlOp.equals("=") || sqlOp.equals("<>"))) {
+      return null;
+    }
+    final String literal = constant((ConstantExpression) constant);
+    if (literal == null) {
+      return null;
+    }
+    return variable((VariableExpression) column) + " " + sqlOp + " " + literal;
+  }
+}
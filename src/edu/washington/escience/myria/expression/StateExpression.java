@@ -43,6 +43,10 @@ public class StateExpression extends ZeroaryExpression {
 
   @Override
   public String getJavaString(final ExpressionOperatorParameter parameters) {
+    if (parameters.isBatch()) {
+      // We generate an access to the local variable that holds the state, see StatefulBatchEvaluator.
+      return new StringBuilder(Expression.STATE).append(getColumnIdx()).toString();
+    }
     // We generate a variable access into the state tuple.
     return new StringBuilder(Expression.STATE).append(".get").append(getOutputType(parameters).getName())
         .append("(").append(getColumnIdx()).append(", 0)").toString();
@@ -42,6 +42,11 @@ public class VariableExpression extends ZeroaryExpression {
 
   @Override
   public String getJavaString(final ExpressionOperatorParameter parameters) {
+    if (parameters.isBatch()) {
+      // We generate an access into the array of the column, see BatchEvaluator.
+      return new StringBuilder(Expression.COLUMN).append(columnIdx).append('[').append(Expression.ROW).append(" - ")
+          .append(Expression.COLUMN).append(columnIdx).append(Expression.COLUMN_OFFSET).append(']').toString();
+    }
     // We generate a variable access into the tuple buffer.
     return new StringBuilder(Expression.TB).append(".get").append(getOutputType(parameters).getName()).append(
         "(").append(columnIdx).append(", ").append(Expression.ROW).append(")").toString();
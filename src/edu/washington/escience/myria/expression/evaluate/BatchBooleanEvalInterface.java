@@ -0,0 +1,21 @@
+package edu.washington.escience.myria.expression.evaluate;
+
+import java.util.BitSet;
+
+import edu.washington.escience.myria.storage.TupleBatch;
+
+/**
+ * Interface for evaluating a boolean {@link edu.washington.escience.myria.expression.Expression} over a range of rows
+ * of a batch in one loop, see {@link BatchBooleanEvaluator}.
+ */
+public interface BatchBooleanEvalInterface {
+  /**
+   * Evaluate the expression on rows [from, to) of the batch, and set the bits of the rows where it is true.
+   *
+   * @param tb a tuple batch
+   * @param from the first row
+   * @param to the row after the last row
+   * @param selection the rows where the expression is true
+   */
+  void evaluate(final TupleBatch tb, final int from, final int to, final BitSet selection);
+}
@@ -0,0 +1,79 @@
+package edu.washington.escience.myria.expression.evaluate;
+
+import java.util.BitSet;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.expression.Expression;
+import edu.washington.escience.myria.storage.TupleBatch;
+
+/**
+ * An evaluator for a stateless boolean expression that evaluates it over a batch in one generated loop, setting the
+ * bits of the selected rows directly instead of returning a value per row as {@link BooleanEvaluator} does. See
+ * {@link BatchEvaluator}.
+ */
+public final class BatchBooleanEvaluator {
+
+  /** Variable name of the selected rows. */
+  private static final String SELECTION = "selection";
+
+  /** The expression. */
+  private final Expression expression;
+  /** Parameters passed for creating the java expression. */
+  private final ExpressionOperatorParameter parameters;
+  /** The compiled loop. */
+  private BatchBooleanEvalInterface evaluator;
+  /** The hits and misses of this evaluator in the {@link EvaluatorCache}. */
+  private final EvaluatorCache.Stats compileStats = new EvaluatorCache.Stats();
+
+  /**
+   * @param expression the expression, which must not use state
+   * @param parameters parameters that are passed to the expression
+   */
+  public BatchBooleanEvaluator(final Expression expression, final ExpressionOperatorParameter parameters) {
+    this.expression = Preconditions.checkNotNull(expression, "expression");
+    this.parameters = Preconditions.checkNotNull(parameters, "parameters").forBatch();
+    Preconditions.checkArgument(expression.getOutputType(parameters).equals(Type.BOOLEAN_TYPE));
+  }
+
+  /**
+   * Generate and compile the loop.
+   *
+   * @throws DbException compilation failed
+   */
+  public void compile() throws DbException {
+    StringBuilder script = new StringBuilder();
+    BatchEvaluator.appendInputColumns(script, ImmutableList.of(expression), parameters);
+    BatchEvaluator.appendLoopHeader(script);
+    // if (expression) { selection.set(row); }
+    script.append("  if (").append(expression.getJavaExpression(parameters)).append(") {\n    ").append(SELECTION)
+        .append(".set(").append(Expression.ROW).append(");\n  }\n}\n");
+    evaluator =
+        BatchEvaluator.createFastEvaluator(script.toString(), BatchBooleanEvalInterface.class, new String[] {
+            Expression.TB, BatchEvaluator.FROM, BatchEvaluator.TO, SELECTION }, parameters.getSchema(), null,
+            compileStats);
+  }
+
+  /**
+   * @return the hits and misses of this evaluator in the {@link EvaluatorCache}.
+   */
+  public EvaluatorCache.Stats getCompileStats() {
+    return compileStats;
+  }
+
+  /**
+   * Evaluate the expression on a range of rows of a batch.
+   *
+   * @param tb a tuple batch
+   * @param from the first row
+   * @param to the row after the last row
+   * @param selection the bits of the rows where the expression is true are set in it
+   */
+  public void evaluate(final TupleBatch tb, final int from, final int to, final BitSet selection) {
+    Preconditions.checkArgument(evaluator != null, "Call compile first.");
+    evaluator.evaluate(tb, from, to, selection);
+  }
+}
@@ -0,0 +1,21 @@
+package edu.washington.escience.myria.expression.evaluate;
+
+import edu.washington.escience.myria.storage.TupleBatch;
+
+/**
+ * Interface for evaluating a list of {@link edu.washington.escience.myria.expression.Expression}s over a range of rows
+ * of a batch in one loop, see {@link BatchEvaluator}.
+ */
+public interface BatchEvalInterface {
+  /**
+   * Evaluate the expressions on rows [from, to) of the batch. The result of expression i on row r is stored at index
+   * r - offset of results[i], an array of the Java type of the expression.
+   *
+   * @param tb a tuple batch
+   * @param from the first row
+   * @param to the row after the last row
+   * @param results one array of results per expression
+   * @param offset the row whose results are stored at index 0 of the arrays
+   */
+  void evaluate(final TupleBatch tb, final int from, final int to, final Object[] results, final int offset);
+}
@@ -0,0 +1,240 @@
+package edu.washington.escience.myria.expression.evaluate;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.codehaus.commons.compiler.CompileException;
+import org.codehaus.commons.compiler.CompilerFactoryFactory;
+import org.codehaus.commons.compiler.IScriptEvaluator;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.column.ColumnArrays;
+import edu.washington.escience.myria.expression.Expression;
+import edu.washington.escience.myria.expression.ExpressionOperator;
+import edu.washington.escience.myria.expression.VariableExpression;
+import edu.washington.escience.myria.storage.TupleBatch;
+
+/**
+ * An evaluator for a list of stateless expressions that evaluates all of them over a batch in one generated loop,
+ * instead of calling a compiled expression per row and value as {@link GenericEvaluator} does. The generated code
+ * fetches the array of every input column it reads once per batch, see {@link ColumnArrays}, and stores the results in
+ * arrays that become the output columns, so values are neither boxed nor appended through an interface.
+ */
+public final class BatchEvaluator {
+
+  /** logger for this class. */
+  private static final org.slf4j.Logger LOGGER = org.slf4j.LoggerFactory.getLogger(BatchEvaluator.class);
+
+  /** Variable name of the first row. */
+  static final String FROM = "from";
+  /** Variable name of the row after the last row. */
+  static final String TO = "to";
+  /** Variable name of the row whose results are stored at index 0 of the result arrays. */
+  static final String OFFSET = "offset";
+
+  /** The expressions. */
+  private final ImmutableList<Expression> expressions;
+  /** Parameters passed for creating the java expressions. */
+  private final ExpressionOperatorParameter parameters;
+  /** The output type of each expression. */
+  private final ImmutableList<Type> outputTypes;
+  /** The compiled loop. */
+  private BatchEvalInterface evaluator;
+  /** The hits and misses of this evaluator in the {@link EvaluatorCache}. */
+  private final EvaluatorCache.Stats compileStats = new EvaluatorCache.Stats();
+
+  /**
+   * @param expressions the expressions, which must not use state
+   * @param parameters parameters that are passed to the expressions
+   */
+  public BatchEvaluator(final List<Expression> expressions, final ExpressionOperatorParameter parameters) {
+    this.expressions = ImmutableList.copyOf(expressions);
+    this.parameters = Preconditions.checkNotNull(parameters, "parameters").forBatch();
+    ImmutableList.Builder<Type> types = ImmutableList.builder();
+    for (Expression expression : expressions) {
+      types.add(expression.getOutputType(parameters));
+    }
+    outputTypes = types.build();
+  }
+
+  /**
+   * Generate and compile the loop.
+   *
+   * @throws DbException compilation failed
+   */
+  public void compile() throws DbException {
+    StringBuilder script = new StringBuilder();
+    appendInputColumns(script, expressions, parameters);
+    for (int i = 0; i < expressions.size(); ++i) {
+      String javaType = outputTypes.get(i).toJavaType().getName();
+      // final int[] result0 = (int[]) result[0];
+      script.append("final ").append(javaType).append("[] ").append(Expression.RESULT).append(i).append(" = (").append(
+          javaType).append("[]) ").append(Expression.RESULT).append('[').append(i).append("];\n");
+    }
+    appendLoopHeader(script);
+    for (int i = 0; i < expressions.size(); ++i) {
+      // result0[row - offset] = expression;
+      script.append("  ").append(Expression.RESULT).append(i).append('[').append(Expression.ROW).append(" - ").append(
+          OFFSET).append("] = ").append(expressions.get(i).getJavaExpression(parameters)).append(";\n");
+    }
+    script.append("}\n");
+    evaluator =
+        createFastEvaluator(script.toString(), BatchEvalInterface.class, new String[] {
+            Expression.TB, FROM, TO, Expression.RESULT, OFFSET }, parameters.getSchema(), null, compileStats);
+  }
+
+  /**
+   * @return the hits and misses of this evaluator in the {@link EvaluatorCache}.
+   */
+  public EvaluatorCache.Stats getCompileStats() {
+    return compileStats;
+  }
+
+  /**
+   * Evaluate the expressions on a range of rows of a batch.
+   *
+   * @param tb a tuple batch
+   * @param from the first row
+   * @param to the row after the last row
+   * @return one column of results per expression
+   */
+  public Column<?>[] evaluate(final TupleBatch tb, final int from, final int to) {
+    Preconditions.checkArgument(evaluator != null, "Call compile first.");
+    int numRows = to - from;
+    Object[] results = allocateResults(numRows);
+    evaluator.evaluate(tb, from, to, results, from);
+    return toColumns(results, numRows);
+  }
+
+  /**
+   * @param numRows the number of rows.
+   * @return one array of results per expression, each of the Java type of the expression and of the given length.
+   */
+  public Object[] allocateResults(final int numRows) {
+    Object[] results = new Object[expressions.size()];
+    for (int i = 0; i < results.length; ++i) {
+      results[i] = ColumnArrays.allocate(outputTypes.get(i), numRows);
+    }
+    return results;
+  }
+
+  /**
+   * Evaluate the expressions on a range of rows of a batch, storing the result of every row r at index r of the result
+   * arrays. Ranges that do not overlap may be evaluated into the same arrays concurrently.
+   *
+   * @param tb a tuple batch
+   * @param from the first row
+   * @param to the row after the last row
+   * @param results the result arrays, see {@link #allocateResults(int)}, of at least {@code to} rows
+   */
+  public void evaluateInto(final TupleBatch tb, final int from, final int to, final Object[] results) {
+    Preconditions.checkArgument(evaluator != null, "Call compile first.");
+    evaluator.evaluate(tb, from, to, results, 0);
+  }
+
+  /**
+   * @param results the result arrays, see {@link #allocateResults(int)}.
+   * @param numRows the number of rows in the result arrays.
+   * @return one column per expression, backed by its result array.
+   */
+  public Column<?>[] toColumns(final Object[] results, final int numRows) {
+    Column<?>[] columns = new Column<?>[results.length];
+    for (int i = 0; i < results.length; ++i) {
+      columns[i] = ColumnArrays.toColumn(outputTypes.get(i), results[i], numRows);
+    }
+    return columns;
+  }
+
+  /**
+   * Declare the array of every input column read by the expressions, and the row whose value is at index 0 of it.
+   *
+   * @param script the generated code
+   * @param expressions the expressions
+   * @param parameters parameters that are passed to the expressions
+   */
+  static void appendInputColumns(final StringBuilder script, final List<Expression> expressions,
+      final ExpressionOperatorParameter parameters) {
+    SortedSet<Integer> columns = new TreeSet<>();
+    for (Expression expression : expressions) {
+      LinkedList<ExpressionOperator> ops = new LinkedList<>();
+      ops.add(expression.getRootExpressionOperator());
+      while (!ops.isEmpty()) {
+        ExpressionOperator op = ops.pop();
+        if (op instanceof VariableExpression) {
+          columns.add(((VariableExpression) op).getColumnIdx());
+        }
+        ops.addAll(op.getChildren());
+      }
+    }
+    for (int column : columns) {
+      Type type = parameters.getSchema().getColumnType(column);
+      // final int[] col0 = edu.washington.escience.myria.column.ColumnArrays.getInts(tb.asColumn(0), from, to);
+      script.append("final ").append(type.toJavaType().getName()).append("[] ").append(Expression.COLUMN).append(
+          column).append(" = ").append(ColumnArrays.class.getName()).append(".get").append(type.getName()).append(
+          "s(").append(Expression.TB).append(".asColumn(").append(column).append("), ").append(FROM).append(", ")
+          .append(TO).append(");\n");
+      // final int col0Offset = edu.washington.escience.myria.column.ColumnArrays.offset(tb.asColumn(0), from);
+      script.append("final int ").append(Expression.COLUMN).append(column).append(Expression.COLUMN_OFFSET).append(
+          " = ").append(ColumnArrays.class.getName()).append(".offset(").append(Expression.TB).append(".asColumn(")
+          .append(column).append("), ").append(FROM).append(");\n");
+    }
+  }
+
+  /**
+   * Open the loop over the rows.
+   *
+   * @param script the generated code
+   */
+  static void appendLoopHeader(final StringBuilder script) {
+    script.append("for (int ").append(Expression.ROW).append(" = ").append(FROM).append("; ").append(Expression.ROW)
+        .append(" < ").append(TO).append("; ++").append(Expression.ROW).append(") {\n");
+  }
+
+  /**
+   * Compile a script, or get it from the {@link EvaluatorCache} if it has been compiled before.
+   *
+   * @param <T> the interface implemented by the script
+   * @param script the generated code
+   * @param interfaceToImplement the interface implemented by the script
+   * @param parameterNames the names of the parameters of the method of the interface
+   * @param inputSchema the schema of the input of the script
+   * @param stateSchema the schema of the state of the script, or null if it has none
+   * @param stats the hit or miss in the cache is recorded in it
+   * @return an instance of the interface
+   * @throws DbException compilation failed
+   */
+  static <T> T createFastEvaluator(final String script, final Class<T> interfaceToImplement,
+      final String[] parameterNames, final Schema inputSchema, final Schema stateSchema,
+      final EvaluatorCache.Stats stats) throws DbException {
+    return EvaluatorCache.get(interfaceToImplement, script, inputSchema, stateSchema, stats,
+        new EvaluatorCache.Compiler<T>() {
+          @Override
+          public T compile() throws DbException {
+            LOGGER.debug("Compiling batch expression {}", script);
+            IScriptEvaluator se;
+            try {
+              se = CompilerFactoryFactory.getDefaultCompilerFactory().newScriptEvaluator();
+            } catch (Exception e) {
+              LOGGER.error("Could not create scriptevaluator", e);
+              throw new DbException("Could not create scriptevaluator", e);
+            }
+            se.setDefaultImports(MyriaConstants.DEFAULT_JANINO_IMPORTS);
+            try {
+              return interfaceToImplement.cast(se.createFastEvaluator(script, interfaceToImplement, parameterNames));
+            } catch (CompileException e) {
+              LOGGER.error("Error when compiling expression {}: {}", script, e);
+              throw new DbException("Error when compiling expression: " + script, e);
+            }
+          }
+        });
+  }
+}
@@ -40,17 +40,23 @@ public class BooleanEvaluator extends Evaluator {
    */
   @Override
   public void compile() throws DbException {
-    try {
-      IExpressionEvaluator se = CompilerFactoryFactory.getDefaultCompilerFactory().newExpressionEvaluator();
+    evaluator =
+        EvaluatorCache.get(BooleanEvalInterface.class, getJavaExpressionWithAppend(), getInputSchema(), null,
+            getCompileStats(), new EvaluatorCache.Compiler<BooleanEvalInterface>() {
+              @Override
+              public BooleanEvalInterface compile() throws DbException {
+                try {
+                  IExpressionEvaluator se = CompilerFactoryFactory.getDefaultCompilerFactory().newExpressionEvaluator();
 
-      se.setDefaultImports(MyriaConstants.DEFAULT_JANINO_IMPORTS);
+                  se.setDefaultImports(MyriaConstants.DEFAULT_JANINO_IMPORTS);
 
-      evaluator =
-          (BooleanEvalInterface) se.createFastEvaluator(getJavaExpressionWithAppend(), BooleanEvalInterface.class, new String[] {
-              Expression.TB, Expression.ROW });
-    } catch (Exception e) {
-      throw new DbException("Error when compiling expression " + this, e);
-    }
+                  return (BooleanEvalInterface) se.createFastEvaluator(getJavaExpressionWithAppend(),
+                      BooleanEvalInterface.class, new String[] { Expression.TB, Expression.ROW });
+                } catch (Exception e) {
+                  throw new DbException("Error when compiling expression " + BooleanEvaluator.this, e);
+                }
+              }
+            });
   }
 
   /**
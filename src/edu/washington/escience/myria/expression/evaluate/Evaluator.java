@@ -29,6 +29,11 @@ public abstract class Evaluator {
    */
   private final boolean needsState;
 
+  /**
+   * The hits and misses of this evaluator in the {@link EvaluatorCache}.
+   */
+  private final EvaluatorCache.Stats compileStats = new EvaluatorCache.Stats();
+
   /**
    * @param expression the expression to be evaluated
    * @param parameters parameters that are passed to the expression
@@ -59,6 +64,13 @@ public abstract class Evaluator {
     return parameters.getStateSchema();
   }
 
+  /**
+   * @return the hits and misses of this evaluator in the {@link EvaluatorCache}
+   */
+  public EvaluatorCache.Stats getCompileStats() {
+    return compileStats;
+  }
+
   /**
    * @return the parameters that are passed down the expression tree
    */
@@ -0,0 +1,232 @@
+package edu.washington.escience.myria.expression.evaluate;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+
+/**
+ * A cache of the evaluators compiled by Janino, shared by all operators in this JVM, i.e., by all fragments and queries
+ * of a worker. Compiling an expression takes milliseconds, and every worker compiles the expressions of every fragment
+ * again on every query, and on every iteration of a loop. The generated classes are stateless, so one instance can be
+ * used by any number of operators at the same time.
+ *
+ * An evaluator is identified by the interface it implements, its generated Java source, and the column types of its
+ * input and state. The least recently used evaluators are evicted once the cache holds {@link #MAX_ENTRIES}.
+ */
+public final class EvaluatorCache {
+
+  /** The maximum number of compiled evaluators kept. */
+  public static final int MAX_ENTRIES = 1024;
+
+  /**
+   * Compiles an evaluator on a cache miss.
+   *
+   * @param <T> the interface implemented by the evaluator.
+   */
+  public interface Compiler<T> {
+    /**
+     * @return the compiled evaluator.
+     * @throws DbException if there is an error compiling the evaluator.
+     */
+    T compile() throws DbException;
+  }
+
+  /** The number of hits and misses of some lookups, and the time spent compiling on the misses. */
+  public static final class Stats {
+    /** The number of lookups that found a compiled evaluator. */
+    @GuardedBy("this")
+    private long hits;
+    /** The number of lookups that compiled an evaluator. */
+    @GuardedBy("this")
+    private long misses;
+    /** The time spent compiling, in nanoseconds. */
+    @GuardedBy("this")
+    private long compileNanos;
+
+    /** Record a hit. */
+    private synchronized void recordHit() {
+      ++hits;
+    }
+
+    /**
+     * Record a miss.
+     *
+     * @param nanos the time spent compiling, in nanoseconds.
+     */
+    private synchronized void recordMiss(final long nanos) {
+      ++misses;
+      compileNanos += nanos;
+    }
+
+    /**
+     * Add the counts of other lookups to these.
+     *
+     * @param other the counts of the other lookups.
+     * @return this.
+     */
+    public Stats add(final Stats other) {
+      long otherHits;
+      long otherMisses;
+      long otherNanos;
+      synchronized (other) {
+        otherHits = other.hits;
+        otherMisses = other.misses;
+        otherNanos = other.compileNanos;
+      }
+      synchronized (this) {
+        hits += otherHits;
+        misses += otherMisses;
+        compileNanos += otherNanos;
+      }
+      return this;
+    }
+
+    /**
+     * @return the number of lookups that found a compiled evaluator.
+     */
+    public synchronized long getHits() {
+      return hits;
+    }
+
+    /**
+     * @return the number of lookups that compiled an evaluator.
+     */
+    public synchronized long getMisses() {
+      return misses;
+    }
+
+    /**
+     * @return the time spent compiling, in nanoseconds.
+     */
+    public synchronized long getCompileNanos() {
+      return compileNanos;
+    }
+  }
+
+  /** Identifies a compiled evaluator. */
+  private static final class Key {
+    /** The interface implemented by the evaluator. */
+    private final Class<?> kind;
+    /** The generated Java source. */
+    private final String source;
+    /** The column types of the input, or null if there is none. */
+    private final List<Type> inputTypes;
+    /** The column types of the state, or null if there is none. */
+    private final List<Type> stateTypes;
+
+    /**
+     * @param kind the interface implemented by the evaluator.
+     * @param source the generated Java source.
+     * @param inputSchema the schema of the input, or null if there is none.
+     * @param stateSchema the schema of the state, or null if there is none.
+     */
+    private Key(final Class<?> kind, final String source, @Nullable final Schema inputSchema,
+        @Nullable final Schema stateSchema) {
+      this.kind = Preconditions.checkNotNull(kind, "kind");
+      this.source = Preconditions.checkNotNull(source, "source");
+      inputTypes = inputSchema == null ? null : inputSchema.getColumnTypes();
+      stateTypes = stateSchema == null ? null : stateSchema.getColumnTypes();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return kind.equals(other.kind) && source.equals(other.source) && Objects.equals(inputTypes, other.inputTypes)
+          && Objects.equals(stateTypes, other.stateTypes);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(kind, source, inputTypes, stateTypes);
+    }
+  }
+
+  /** The compiled evaluators. */
+  private static final Cache<Key, Object> CACHE = CacheBuilder.newBuilder().maximumSize(MAX_ENTRIES).build();
+  /** The hits and misses of all lookups. */
+  private static final Stats TOTAL = new Stats();
+
+  /** Utility class cannot be instantiated. */
+  private EvaluatorCache() {
+  }
+
+  /**
+   * Get the compiled evaluator for some generated source, compiling it if it is not cached. If several threads ask for
+   * the same evaluator at the same time, only one compiles it.
+   *
+   * @param <T> the interface implemented by the evaluator.
+   * @param kind the interface implemented by the evaluator.
+   * @param source the generated Java source.
+   * @param inputSchema the schema of the input, or null if there is none.
+   * @param stateSchema the schema of the state, or null if there is none.
+   * @param stats the hit or miss is recorded in it, unless it is null.
+   * @param compiler compiles the evaluator on a miss.
+   * @return the compiled evaluator.
+   * @throws DbException if there is an error compiling the evaluator.
+   */
+  public static <T> T get(final Class<T> kind, final String source, @Nullable final Schema inputSchema,
+      @Nullable final Schema stateSchema, @Nullable final Stats stats, final Compiler<T> compiler) throws DbException {
+    Preconditions.checkNotNull(compiler, "compiler");
+    final long[] compileNanos = { -1 };
+    Object evaluator;
+    try {
+      evaluator = CACHE.get(new Key(kind, source, inputSchema, stateSchema), new Callable<Object>() {
+        @Override
+        public Object call() throws DbException {
+          long start = System.nanoTime();
+          T compiled = compiler.compile();
+          compileNanos[0] = System.nanoTime() - start;
+          return compiled;
+        }
+      });
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof DbException) {
+        throw (DbException) e.getCause();
+      }
+      throw new DbException("Error when compiling expression: " + source, e.getCause());
+    }
+
+    if (compileNanos[0] >= 0) {
+      TOTAL.recordMiss(compileNanos[0]);
+      if (stats != null) {
+        stats.recordMiss(compileNanos[0]);
+      }
+    } else {
+      TOTAL.recordHit();
+      if (stats != null) {
+        stats.recordHit();
+      }
+    }
+    return kind.cast(evaluator);
+  }
+
+  /**
+   * @return the hits and misses of all lookups in this JVM.
+   */
+  public static Stats getTotalStats() {
+    return new Stats().add(TOTAL);
+  }
+
+  /**
+   * @return the number of compiled evaluators in the cache.
+   */
+  public static long size() {
+    return CACHE.size();
+  }
+}
@@ -56,26 +56,33 @@ public class GenericEvaluator extends Evaluator {
     Preconditions.checkArgument(needsCompiling() || (getStateSchema() != null),
         "This expression does not need to be compiled.");
 
-    String javaExpression = getJavaExpressionWithAppend();
-    IExpressionEvaluator se;
-    try {
-      se = CompilerFactoryFactory.getDefaultCompilerFactory().newExpressionEvaluator();
-    } catch (Exception e) {
-      LOGGER.error("Could not create expression evaluator", e);
-      throw new DbException("Could not create expression evaluator", e);
-    }
-
-    se.setExpressionType(Void.TYPE);
-    se.setDefaultImports(MyriaConstants.DEFAULT_JANINO_IMPORTS);
-
-    try {
-      evaluator =
-          (ExpressionEvalInterface) se.createFastEvaluator(javaExpression, ExpressionEvalInterface.class, new String[] {
-              Expression.TB, Expression.ROW, Expression.RESULT, Expression.STATE });
-    } catch (CompileException e) {
-      LOGGER.error("Error when compiling expression {}: {}", javaExpression, e);
-      throw new DbException("Error when compiling expression: " + javaExpression, e);
-    }
+    final String javaExpression = getJavaExpressionWithAppend();
+    evaluator =
+        EvaluatorCache.get(ExpressionEvalInterface.class, javaExpression, getInputSchema(), getStateSchema(),
+            getCompileStats(), new EvaluatorCache.Compiler<ExpressionEvalInterface>() {
+              @Override
+              public ExpressionEvalInterface compile() throws DbException {
+                IExpressionEvaluator se;
+                try {
+                  se = CompilerFactoryFactory.getDefaultCompilerFactory().newExpressionEvaluator();
+                } catch (Exception e) {
+                  LOGGER.error("Could not create expression evaluator", e);
+                  throw new DbException("Could not create expression evaluator", e);
+                }
+
+                se.setExpressionType(Void.TYPE);
+                se.setDefaultImports(MyriaConstants.DEFAULT_JANINO_IMPORTS);
+
+                try {
+                  return (ExpressionEvalInterface) se.createFastEvaluator(javaExpression,
+                      ExpressionEvalInterface.class, new String[] {
+                          Expression.TB, Expression.ROW, Expression.RESULT, Expression.STATE });
+                } catch (CompileException e) {
+                  LOGGER.error("Error when compiling expression {}: {}", javaExpression, e);
+                  throw new DbException("Error when compiling expression: " + javaExpression, e);
+                }
+              }
+            });
   }
 
   /**
@@ -0,0 +1,22 @@
+package edu.washington.escience.myria.expression.evaluate;
+
+import edu.washington.escience.myria.storage.TupleBatch;
+
+/**
+ * Interface for updating a state and evaluating a list of {@link edu.washington.escience.myria.expression.Expression}s
+ * that may read it over a range of rows of a batch in one loop, see {@link StatefulBatchEvaluator}.
+ */
+public interface StatefulBatchEvalInterface {
+  /**
+   * Update the state and evaluate the expressions on rows [from, to) of the batch. Field i of the state is stored at
+   * index 0 of state[i], an array of the Java type of the field, and is updated in place. The result of expression i on
+   * row r is stored at index r - from of results[i], an array of the Java type of the expression.
+   *
+   * @param tb a tuple batch
+   * @param from the first row
+   * @param to the row after the last row
+   * @param results one array of results per expression
+   * @param state one array of length 1 per field of the state
+   */
+  void evaluate(final TupleBatch tb, final int from, final int to, final Object[] results, final Object[] state);
+}
@@ -0,0 +1,162 @@
+package edu.washington.escience.myria.expression.evaluate;
+
+import java.lang.reflect.Array;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.column.ColumnArrays;
+import edu.washington.escience.myria.expression.Expression;
+import edu.washington.escience.myria.storage.TupleBatch;
+
+/**
+ * An evaluator for the update and emit expressions of a {@link edu.washington.escience.myria.operator.StatefulApply}
+ * that evaluates all of them over a batch in one generated loop. The state lives in one typed array of length 1 per
+ * field, see {@link #newState(List)}. The generated code keeps each field in a local primitive variable while it loops
+ * over the rows and writes it back once per batch, so neither tuples nor boxed values are allocated per row.
+ *
+ * Like in {@link edu.washington.escience.myria.operator.StatefulApply}, all update expressions of a row read the state
+ * of the previous row, and the emit expressions read the updated state.
+ */
+public final class StatefulBatchEvaluator {
+
+  /** Variable name of the next value of a field of the state. */
+  private static final String NEXT = "next";
+
+  /** The expressions that update the state, one per field. */
+  private final ImmutableList<Expression> updateExpressions;
+  /** The expressions that are emitted. */
+  private final ImmutableList<Expression> emitExpressions;
+  /** Parameters passed for creating the java expressions. */
+  private final ExpressionOperatorParameter parameters;
+  /** The output type of each emit expression. */
+  private final ImmutableList<Type> outputTypes;
+  /** The compiled loop. */
+  private StatefulBatchEvalInterface evaluator;
+  /** The hits and misses of this evaluator in the {@link EvaluatorCache}. */
+  private final EvaluatorCache.Stats compileStats = new EvaluatorCache.Stats();
+
+  /**
+   * @param updateExpressions the expressions that update the state, one per field of the state schema
+   * @param emitExpressions the expressions that are emitted
+   * @param parameters parameters that are passed to the expressions, including the state schema
+   */
+  public StatefulBatchEvaluator(final List<Expression> updateExpressions, final List<Expression> emitExpressions,
+      final ExpressionOperatorParameter parameters) {
+    Preconditions.checkNotNull(parameters, "parameters");
+    Preconditions.checkNotNull(parameters.getStateSchema(), "state schema");
+    Preconditions.checkArgument(updateExpressions.size() == parameters.getStateSchema().numColumns(),
+        "one update expression is needed per field of the state");
+    this.updateExpressions = ImmutableList.copyOf(updateExpressions);
+    this.emitExpressions = ImmutableList.copyOf(emitExpressions);
+    this.parameters = parameters.forBatch();
+    ImmutableList.Builder<Type> types = ImmutableList.builder();
+    for (Expression expression : emitExpressions) {
+      types.add(expression.getOutputType(parameters));
+    }
+    outputTypes = types.build();
+  }
+
+  /**
+   * Generate and compile the loop.
+   *
+   * @throws DbException compilation failed
+   */
+  public void compile() throws DbException {
+    Schema stateSchema = parameters.getStateSchema();
+    StringBuilder script = new StringBuilder();
+    BatchEvaluator.appendInputColumns(script, ImmutableList.<Expression> builder().addAll(updateExpressions).addAll(
+        emitExpressions).build(), parameters);
+    for (int i = 0; i < stateSchema.numColumns(); ++i) {
+      String javaType = stateSchema.getColumnType(i).toJavaType().getName();
+      // int state0 = ((int[]) state[0])[0];
+      script.append(javaType).append(' ').append(Expression.STATE).append(i).append(" = ((").append(javaType).append(
+          "[]) ").append(Expression.STATE).append('[').append(i).append("])[0];\n");
+    }
+    for (int i = 0; i < emitExpressions.size(); ++i) {
+      String javaType = outputTypes.get(i).toJavaType().getName();
+      // final int[] result0 = (int[]) result[0];
+      script.append("final ").append(javaType).append("[] ").append(Expression.RESULT).append(i).append(" = (").append(
+          javaType).append("[]) ").append(Expression.RESULT).append('[').append(i).append("];\n");
+    }
+    BatchEvaluator.appendLoopHeader(script);
+    for (int i = 0; i < stateSchema.numColumns(); ++i) {
+      // final int next0 = expression;
+      script.append("  final ").append(stateSchema.getColumnType(i).toJavaType().getName()).append(' ').append(NEXT)
+          .append(i).append(" = ").append(updateExpressions.get(i).getJavaExpression(parameters)).append(";\n");
+    }
+    for (int i = 0; i < stateSchema.numColumns(); ++i) {
+      // state0 = next0;
+      script.append("  ").append(Expression.STATE).append(i).append(" = ").append(NEXT).append(i).append(";\n");
+    }
+    for (int i = 0; i < emitExpressions.size(); ++i) {
+      // result0[row - from] = expression; copying the state needs no evaluation: result0[row - from] = state0;
+      script.append("  ").append(Expression.RESULT).append(i).append('[').append(Expression.ROW).append(" - ").append(
+          BatchEvaluator.FROM).append("] = ").append(emitExpressions.get(i).getJavaExpression(parameters)).append(
+          ";\n");
+    }
+    script.append("}\n");
+    for (int i = 0; i < stateSchema.numColumns(); ++i) {
+      // ((int[]) state[0])[0] = state0;
+      script.append("((").append(stateSchema.getColumnType(i).toJavaType().getName()).append("[]) ").append(
+          Expression.STATE).append('[').append(i).append("])[0] = ").append(Expression.STATE).append(i).append(";\n");
+    }
+    evaluator =
+        BatchEvaluator.createFastEvaluator(script.toString(), StatefulBatchEvalInterface.class, new String[] {
+            Expression.TB, BatchEvaluator.FROM, BatchEvaluator.TO, Expression.RESULT, Expression.STATE }, parameters
+            .getSchema(), stateSchema, compileStats);
+  }
+
+  /**
+   * @param initialValues the initial value of each field of the state.
+   * @return the state, one array of length 1 per field, to be passed to
+   *         {@link #evaluate(TupleBatch, int, int, Object[])}.
+   */
+  public Object[] newState(final List<?> initialValues) {
+    Schema stateSchema = parameters.getStateSchema();
+    Preconditions.checkArgument(initialValues.size() == stateSchema.numColumns(),
+        "one initial value is needed per field of the state");
+    Object[] state = new Object[initialValues.size()];
+    for (int i = 0; i < state.length; ++i) {
+      state[i] = ColumnArrays.allocate(stateSchema.getColumnType(i), 1);
+      Array.set(state[i], 0, initialValues.get(i));
+    }
+    return state;
+  }
+
+  /**
+   * Update the state with a range of rows of a batch, and evaluate the emit expressions on them.
+   *
+   * @param tb a tuple batch
+   * @param from the first row
+   * @param to the row after the last row
+   * @param state the state, created by {@link #newState(List)}, which is updated in place
+   * @return one column of results per emit expression
+   */
+  public Column<?>[] evaluate(final TupleBatch tb, final int from, final int to, final Object[] state) {
+    Preconditions.checkArgument(evaluator != null, "Call compile first.");
+    int numRows = to - from;
+    Object[] results = new Object[emitExpressions.size()];
+    for (int i = 0; i < results.length; ++i) {
+      results[i] = ColumnArrays.allocate(outputTypes.get(i), numRows);
+    }
+    evaluator.evaluate(tb, from, to, results, state);
+    Column<?>[] columns = new Column<?>[results.length];
+    for (int i = 0; i < results.length; ++i) {
+      columns[i] = ColumnArrays.toColumn(outputTypes.get(i), results[i], numRows);
+    }
+    return columns;
+  }
+
+  /**
+   * @return the hits and misses of this evaluator in the {@link EvaluatorCache}.
+   */
+  public EvaluatorCache.Stats getCompileStats() {
+    return compileStats;
+  }
+}
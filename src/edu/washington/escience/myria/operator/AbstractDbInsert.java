@@ -3,14 +3,59 @@
  */
 package edu.washington.escience.myria.operator;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.RelationKey;
+import edu.washington.escience.myria.accessmethod.AccessMethod;
 import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.util.concurrent.RenamingThreadFactory;
 
 /**
  * A temporary relation that is inserted into the database.
+ *
+ * Subclasses may load their tuples asynchronously: after {@link #startLoad(AccessMethod, RelationKey)}, each batch
+ * passed to {@link #load(TupleBatch)} is queued and written by a dedicated loader thread, so the fragment keeps
+ * computing while the database does I/O. The loader writes all the batches that are waiting in the queue with a single
+ * call to {@link AccessMethod#tupleBatchInsert(RelationKey, List)}, i.e., one transaction or one COPY. When the queue
+ * is full, {@link #load(TupleBatch)} blocks until the loader catches up.
  */
 public abstract class AbstractDbInsert extends RootOperator implements DbWriter {
   /** Required for Java serialization. */
   private static final long serialVersionUID = 1L;
+  /** The logger for this class. */
+  private static final org.slf4j.Logger LOGGER = org.slf4j.LoggerFactory.getLogger(AbstractDbInsert.class);
+
+  /** The maximum number of batches waiting to be written by the loader. */
+  private static final int LOAD_QUEUE_CAPACITY = 16;
+  /** The maximum number of batches that the loader writes at once. */
+  private static final int MAX_BATCHES_PER_LOAD = 64;
+  /** How long to wait for space in the load queue before checking whether the loader failed, in milliseconds. */
+  private static final long LOAD_QUEUE_POLL_MILLIS = 100;
+
+  /** The batches waiting to be written by the loader. */
+  private transient BlockingQueue<TupleBatch> loadQueue;
+  /** The thread running the loader. */
+  private transient ExecutorService loaderExecutor;
+  /** The result of the loader. */
+  private transient Future<Void> loader;
+  /** The number of tuples written by the loader. */
+  private transient volatile long loadedTuples;
+  /** The number of bytes of values written by the loader. */
+  private transient volatile long loadedBytes;
+  /** The time spent by the loader writing to the database, in nanoseconds. */
+  private transient volatile long loadNanos;
 
   /**
    * Construct this abstract database insert operator to insert tuples from its child into the database.
@@ -20,4 +65,195 @@ public abstract class AbstractDbInsert extends RootOperator implements DbWriter
   public AbstractDbInsert(final Operator child) {
     super(child, TupleBatch.BATCH_SIZE);
   }
+
+  /**
+   * Start a loader thread that writes the batches passed to {@link #load(TupleBatch)} into the given relation.
+   *
+   * @param accessMethod the connection to the database. Only the loader uses it until {@link #finishLoad()} returns.
+   * @param relationKey the relation to insert into.
+   */
+  protected final void startLoad(final AccessMethod accessMethod, final RelationKey relationKey) {
+    Preconditions.checkState(loader == null, "the load has already started");
+    loadQueue = new ArrayBlockingQueue<>(LOAD_QUEUE_CAPACITY);
+    loadedTuples = 0;
+    loadedBytes = 0;
+    loadNanos = 0;
+    loaderExecutor = Executors.newSingleThreadExecutor(new RenamingThreadFactory("DbInsert loader " + relationKey));
+    loader = loaderExecutor.submit(new Callable<Void>() {
+      @Override
+      public Void call() throws DbException, InterruptedException {
+        final List<TupleBatch> batches = new ArrayList<>(MAX_BATCHES_PER_LOAD);
+        boolean done = false;
+        while (!done) {
+          batches.add(loadQueue.take());
+          loadQueue.drainTo(batches, MAX_BATCHES_PER_LOAD - 1);
+          /* An EOI batch marks the end of the load. */
+          if (batches.get(batches.size() - 1).isEOI()) {
+            batches.remove(batches.size() - 1);
+            done = true;
+          }
+          if (!batches.isEmpty()) {
+            final long start = System.nanoTime();
+            accessMethod.tupleBatchInsert(relationKey, batches);
+            loadNanos += System.nanoTime() - start;
+            for (TupleBatch tb : batches) {
+              loadedTuples += tb.numTuples();
+              loadedBytes += valueBytes(tb);
+            }
+            batches.clear();
+          }
+        }
+        return null;
+      }
+    });
+  }
+
+  /**
+   * Queue a batch to be written by the loader.
+   *
+   * @param tupleBatch the batch.
+   * @throws DbException if the loader failed.
+   */
+  protected final void load(final TupleBatch tupleBatch) throws DbException {
+    Preconditions.checkState(loader != null, "the load has not started");
+    enqueue(tupleBatch);
+  }
+
+  /**
+   * Wait until the loader has written all the queued batches, and stop it.
+   *
+   * @throws DbException if the loader failed.
+   */
+  protected final void finishLoad() throws DbException {
+    if (loader == null) {
+      return;
+    }
+    enqueue(TupleBatch.eoiTupleBatch(getSchema()));
+    try {
+      loader.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DbException(e);
+    } catch (ExecutionException e) {
+      throw loaderError(e);
+    } finally {
+      stopLoader();
+    }
+  }
+
+  /**
+   * Stop the loader, if any, without writing the batches that are still queued. Used when the operator is closed
+   * before its child finished.
+   */
+  protected final void abortLoad() {
+    if (loader == null) {
+      return;
+    }
+    loadQueue.clear();
+    loader.cancel(true);
+    stopLoader();
+  }
+
+  /**
+   * Shut down the thread of the loader, waiting for an interrupted write to return so that the connection to the
+   * database is no longer in use.
+   */
+  private void stopLoader() {
+    loaderExecutor.shutdownNow();
+    try {
+      while (!loaderExecutor.awaitTermination(LOAD_QUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+        LOGGER.debug("Waiting for the loader of {} to stop", this);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    loader = null;
+    loaderExecutor = null;
+    loadQueue = null;
+  }
+
+  /**
+   * Put a batch in the load queue, waiting for space if it is full.
+   *
+   * @param tupleBatch the batch.
+   * @throws DbException if the loader failed.
+   */
+  private void enqueue(final TupleBatch tupleBatch) throws DbException {
+    try {
+      do {
+        if (loader.isDone()) {
+          loader.get();
+          throw new DbException("the loader stopped before the end of the load");
+        }
+      } while (!loadQueue.offer(tupleBatch, LOAD_QUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DbException(e);
+    } catch (ExecutionException e) {
+      throw loaderError(e);
+    }
+  }
+
+  /**
+   * @param e the failure of the loader.
+   * @return the exception to throw to the fragment.
+   */
+  private static DbException loaderError(final ExecutionException e) {
+    if (e.getCause() instanceof DbException) {
+      return (DbException) e.getCause();
+    }
+    return new DbException(e.getCause());
+  }
+
+  /**
+   * @param tb a batch.
+   * @return the number of bytes of the values in the batch, counting one byte per character of a string.
+   */
+  private static long valueBytes(final TupleBatch tb) {
+    final int numTuples = tb.numTuples();
+    long bytes = 0;
+    for (int column = 0; column < tb.numColumns(); ++column) {
+      switch (tb.getSchema().getColumnType(column)) {
+        case BOOLEAN_TYPE:
+          bytes += numTuples;
+          break;
+        case FLOAT_TYPE:
+        case INT_TYPE:
+          bytes += numTuples * 4L;
+          break;
+        case DATETIME_TYPE:
+        case DOUBLE_TYPE:
+        case LONG_TYPE:
+          bytes += numTuples * 8L;
+          break;
+        case STRING_TYPE:
+          for (int row = 0; row < numTuples; ++row) {
+            bytes += tb.getString(column, row).length();
+          }
+          break;
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * @return the number of tuples written to the database by the loader.
+   */
+  public long getLoadedTuples() {
+    return loadedTuples;
+  }
+
+  /**
+   * @return the number of bytes of values written to the database by the loader.
+   */
+  public long getLoadedBytes() {
+    return loadedBytes;
+  }
+
+  /**
+   * @return the time spent by the loader writing to the database, in nanoseconds.
+   */
+  public long getLoadNanos() {
+    return loadNanos;
+  }
 }
@@ -15,13 +15,17 @@ import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.column.Column;
 import edu.washington.escience.myria.expression.Expression;
+import edu.washington.escience.myria.expression.evaluate.BatchEvaluator;
 import edu.washington.escience.myria.expression.evaluate.ConstantEvaluator;
+import edu.washington.escience.myria.expression.evaluate.EvaluatorCache;
 import edu.washington.escience.myria.expression.evaluate.ExpressionOperatorParameter;
 import edu.washington.escience.myria.expression.evaluate.GenericEvaluator;
+import edu.washington.escience.myria.operator.Morsels.MorselTask;
 import edu.washington.escience.myria.storage.TupleBatch;
 
 /**
- * Generic apply operator.
+ * Generic apply operator. The expressions that need compiling are evaluated together in one generated loop per batch,
+ * see {@link BatchEvaluator}, on morsels of the batch in parallel if the query enables it, see {@link Morsels}.
  */
 public class Apply extends UnaryOperator {
   /***/
@@ -37,10 +41,27 @@ public class Apply extends UnaryOperator {
    */
   private ArrayList<GenericEvaluator> emitEvaluators;
 
+  /**
+   * Evaluates all the expressions in {@link #emitExpressions} that need compiling in one loop per batch, or null if none
+   * does.
+   */
+  private transient BatchEvaluator batchEvaluator;
+
+  /**
+   * For each expression in {@link #emitExpressions}, its index in {@link #batchEvaluator}, or -1 if it is a constant or
+   * a copy of an input column.
+   */
+  private transient int[] batchIndexes;
+
+  /**
+   * The maximum number of morsels of a batch that are evaluated in parallel, see {@link Morsels}.
+   */
+  private transient int parallelism;
+
   /**
    * @return the {@link #emitExpressions}
    */
-  protected ImmutableList<Expression> getEmitExpressions() {
+  public ImmutableList<Expression> getEmitExpressions() {
     return emitExpressions;
   }
 
@@ -83,13 +104,46 @@ public class Apply extends UnaryOperator {
       return null;
     }
 
+    Column<?>[] computed;
+    if (batchEvaluator == null) {
+      computed = null;
+    } else if (Morsels.numMorsels(tb.numTuples(), parallelism) > 1) {
+      computed = evaluateMorsels(tb);
+    } else {
+      computed = batchEvaluator.evaluate(tb, 0, tb.numTuples());
+    }
+
     List<Column<?>> output = Lists.newLinkedList();
-    for (GenericEvaluator evaluator : emitEvaluators) {
-      output.add(evaluator.evaluateColumn(tb));
+    for (int i = 0; i < emitEvaluators.size(); ++i) {
+      if (batchIndexes[i] >= 0) {
+        output.add(computed[batchIndexes[i]]);
+      } else {
+        output.add(emitEvaluators.get(i).evaluateColumn(tb));
+      }
     }
     return new TupleBatch(getSchema(), output);
   }
 
+  /**
+   * Evaluate the compiled expressions on morsels of the batch in parallel. Every morsel stores its results in its own
+   * range of rows of the same output arrays.
+   *
+   * @param tb the input batch.
+   * @return the columns of the compiled expressions, in the order of {@link #batchEvaluator}.
+   * @throws DbException if there is an error evaluating the expressions.
+   */
+  private Column<?>[] evaluateMorsels(final TupleBatch tb) throws DbException {
+    final Object[] results = batchEvaluator.allocateResults(tb.numTuples());
+    Morsels.run(tb.numTuples(), parallelism, new MorselTask<Void>() {
+      @Override
+      public Void process(final int from, final int to) throws DbException {
+        batchEvaluator.evaluateInto(tb, from, to, results);
+        return null;
+      }
+    });
+    return batchEvaluator.toColumns(results, tb.numTuples());
+  }
+
   @Override
   protected void init(final ImmutableMap<String, Object> execEnvVars) throws DbException {
     Preconditions.checkNotNull(emitExpressions);
@@ -105,12 +159,38 @@ public class Apply extends UnaryOperator {
       } else {
         evaluator = new GenericEvaluator(expr, parameters);
       }
-      if (evaluator.needsCompiling()) {
-        evaluator.compile();
-      }
       Preconditions.checkArgument(!evaluator.needsState());
       emitEvaluators.add(evaluator);
     }
+
+    /* Instead of compiling each expression that needs it on its own, fuse them all into one loop. */
+    List<Expression> compiled = new ArrayList<>();
+    batchIndexes = new int[emitExpressions.size()];
+    for (int i = 0; i < emitEvaluators.size(); ++i) {
+      if (emitEvaluators.get(i).needsCompiling()) {
+        batchIndexes[i] = compiled.size();
+        compiled.add(emitExpressions.get(i));
+      } else {
+        batchIndexes[i] = -1;
+      }
+    }
+    batchEvaluator = null;
+    if (!compiled.isEmpty()) {
+      batchEvaluator = new BatchEvaluator(compiled, parameters);
+      batchEvaluator.compile();
+    }
+    parallelism = Morsels.getParallelism(execEnvVars);
+  }
+
+  /**
+   * @return the hits and misses of the compiled expressions of this operator in the {@link EvaluatorCache}.
+   */
+  public EvaluatorCache.Stats getCompileStats() {
+    EvaluatorCache.Stats stats = new EvaluatorCache.Stats();
+    if (batchEvaluator != null) {
+      stats.add(batchEvaluator.getCompileStats());
+    }
+    return stats;
   }
 
   /**
@@ -169,6 +169,7 @@ public class DbInsert extends AbstractDbInsert {
 
   @Override
   public void cleanup() {
+    abortLoad();
     try {
       if (accessMethod != null) {
         accessMethod.close();
@@ -184,7 +185,7 @@ public class DbInsert extends AbstractDbInsert {
     Objects.requireNonNull(tempRelationKey, "tempRelationKey");
     Preconditions.checkArgument(tupleBatch.getSchema().equals(getSchema()),
         "tuple schema %s does not match operator schema %s", tupleBatch.getSchema(), getSchema());
-    accessMethod.tupleBatchInsert(tempRelationKey, tupleBatch);
+    load(tupleBatch);
   }
 
   @Override
@@ -227,14 +228,16 @@ public class DbInsert extends AbstractDbInsert {
 
     /* Create the table */
     accessMethod.createTableIfNotExists(tempRelationKey, getSchema());
-    /* Create indexes. */
-    accessMethod.createIndexes(tempRelationKey, getSchema(), indexes);
+    /* Indexes, which are only allowed on new tables, are created once the tuples are loaded. */
+    startLoad(accessMethod, tempRelationKey);
   }
 
   @Override
   protected void childEOS() throws DbException {
+    finishLoad();
     /* If the child finished, we're done too. If in overwrite mode, drop the existing table and rename. */
     if (overwriteTable) {
+      accessMethod.createIndexes(tempRelationKey, getSchema(), indexes);
       accessMethod.dropAndRenameTables(relationKey, tempRelationKey);
     }
   }
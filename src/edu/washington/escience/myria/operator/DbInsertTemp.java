@@ -112,6 +112,7 @@ public class DbInsertTemp extends AbstractDbInsert {
 
   @Override
   public void cleanup() {
+    abortLoad();
     try {
       if (accessMethod != null) {
         accessMethod.close();
@@ -126,7 +127,7 @@ public class DbInsertTemp extends AbstractDbInsert {
     Preconditions.checkState(accessMethod != null, "accessMethod must not be null");
     Preconditions.checkArgument(tupleBatch.getSchema().equals(getSchema()),
         "tuple schema %s does not match operator schema %s", tupleBatch.getSchema(), getSchema());
-    accessMethod.tupleBatchInsert(stagingRelationKey, tupleBatch);
+    load(tupleBatch);
   }
 
   @Override
@@ -145,14 +146,16 @@ public class DbInsertTemp extends AbstractDbInsert {
 
     /* Create the table */
     accessMethod.createTableIfNotExists(stagingRelationKey, getSchema());
-    /* Create indexes. */
-    accessMethod.createIndexes(stagingRelationKey, getSchema(), indexes);
+    /* Indexes, which are only allowed on new tables, are created once the tuples are loaded. */
+    startLoad(accessMethod, stagingRelationKey);
   }
 
   @Override
   protected void childEOS() throws DbException {
+    finishLoad();
     /* If the child finished, we're done too. If in overwrite mode, drop the existing table and rename. */
     if (overwriteTable) {
+      accessMethod.createIndexes(stagingRelationKey, getSchema(), indexes);
       accessMethod.dropAndRenameTables(relationKey, stagingRelationKey);
     }
   }
@@ -1,10 +1,16 @@
 package edu.washington.escience.myria.operator;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 
+import org.apache.commons.lang3.StringUtils;
+
+import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
@@ -12,8 +18,12 @@ import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.MyriaConstants;
 import edu.washington.escience.myria.RelationKey;
 import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.accessmethod.AccessMethod;
 import edu.washington.escience.myria.accessmethod.ConnectionInfo;
+import edu.washington.escience.myria.expression.Expression;
+import edu.washington.escience.myria.expression.SqlExpressionTranslator;
+import edu.washington.escience.myria.expression.evaluate.ExpressionOperatorParameter;
 import edu.washington.escience.myria.storage.TupleBatch;
 
 /**
@@ -55,6 +65,23 @@ public class DbQueryScan extends LeafOperator implements DbReader {
    */
   private final boolean[] ascending;
 
+  /**
+   * The SELECT list of a <code>SELECT ... FROM relationKey</code> query, or null for <code>*</code>. Set by
+   * {@link #pushDownProjection}.
+   */
+  private String selectList;
+
+  /**
+   * The WHERE condition of a <code>SELECT ... FROM relationKey</code> query, or null. Set by
+   * {@link #pushDownPredicate}.
+   */
+  private String whereCondition;
+
+  /**
+   * The database system that {@link #selectList} and {@link #whereCondition} are written for.
+   */
+  private String pushDownDbms;
+
   /** Required for Java serialization. */
   private static final long serialVersionUID = 1L;
 
@@ -145,6 +172,92 @@ public class DbQueryScan extends LeafOperator implements DbReader {
     this.connectionInfo = connectionInfo;
   }
 
+  /**
+   * Copy constructor that replaces the output schema, for pushing down projections and predicates.
+   *
+   * @param scan the scan to copy.
+   * @param outputSchema the Schema of the returned tuples.
+   * @param selectList see the corresponding field.
+   * @param whereCondition see the corresponding field.
+   * @param pushDownDbms see the corresponding field.
+   */
+  private DbQueryScan(final DbQueryScan scan, final Schema outputSchema, final String selectList,
+      final String whereCondition, final String pushDownDbms) {
+    this(scan.relationKey, outputSchema, scan.sortedColumns, scan.ascending);
+    connectionInfo = scan.connectionInfo;
+    this.selectList = selectList;
+    this.whereCondition = whereCondition;
+    this.pushDownDbms = pushDownDbms;
+  }
+
+  /**
+   * @param dbms the database system that will run the scan.
+   * @return true if this scan runs a generated query over {@link #relationKey} to which projections and predicates
+   *         for <code>dbms</code> can be added.
+   */
+  private boolean canPushDown(final String dbms) {
+    if (relationKey == null || !SqlExpressionTranslator.supports(dbms)) {
+      return false;
+    }
+    if (connectionInfo != null && !dbms.equals(connectionInfo.getDbms())) {
+      return false;
+    }
+    return pushDownDbms == null || pushDownDbms.equals(dbms);
+  }
+
+  /**
+   * Pushes a filter down into the query of this scan, so that the database system returns only the tuples that
+   * satisfy its predicate.
+   *
+   * @param predicate the predicate of the filter, over the tuples returned by this scan.
+   * @param dbms the database system that will run the scan.
+   * @return a scan that returns only the tuples that satisfy the predicate, or null if the predicate cannot be
+   *         evaluated by the database system exactly like {@link Filter} evaluates it.
+   */
+  public DbQueryScan pushDownPredicate(final Expression predicate, final String dbms) {
+    /* Once the columns are projected, the predicate no longer refers to the columns of the relation. */
+    if (!canPushDown(dbms) || selectList != null) {
+      return null;
+    }
+    final String condition = SqlExpressionTranslator.translatePredicate(predicate, outputSchema, dbms);
+    if (condition == null) {
+      return null;
+    }
+    final String where = whereCondition == null ? condition : whereCondition + " AND " + condition;
+    return new DbQueryScan(this, outputSchema, null, where, dbms);
+  }
+
+  /**
+   * Pushes an apply down into the query of this scan, so that the database system computes its expressions and
+   * returns only the columns they need.
+   *
+   * @param emitExpressions the expressions of the apply, over the tuples returned by this scan.
+   * @param dbms the database system that will run the scan.
+   * @return a scan that returns the tuples that the apply would, or null if some expression cannot be evaluated by the
+   *         database system exactly like {@link Apply} evaluates it.
+   */
+  public DbQueryScan pushDownProjection(final List<Expression> emitExpressions, final String dbms) {
+    /* ORDER BY refers to the columns of the relation by their position in the output. */
+    if (!canPushDown(dbms) || selectList != null || (sortedColumns != null && sortedColumns.length > 0)) {
+      return null;
+    }
+    final List<String> items = new ArrayList<>(emitExpressions.size());
+    final ImmutableList.Builder<Type> types = ImmutableList.builder();
+    final ImmutableList.Builder<String> names = ImmutableList.builder();
+    final ExpressionOperatorParameter parameters = new ExpressionOperatorParameter(outputSchema);
+    for (Expression expression : emitExpressions) {
+      final String item = SqlExpressionTranslator.translateValue(expression, outputSchema, dbms);
+      if (item == null) {
+        return null;
+      }
+      items.add(item);
+      types.add(expression.getOutputType(parameters));
+      names.add(expression.getOutputName());
+    }
+    return new DbQueryScan(this, new Schema(types.build(), names.build()), StringUtils.join(items, ", "),
+        whereCondition, dbms);
+  }
+
   @Override
   public final void cleanup() {
     tuples = null;
@@ -192,7 +305,16 @@ public class DbQueryScan extends LeafOperator implements DbReader {
     }
 
     if (relationKey != null) {
-      baseSQL = "SELECT * FROM " + relationKey.toString(connectionInfo.getDbms());
+      if (pushDownDbms != null && !pushDownDbms.equals(connectionInfo.getDbms())) {
+        throw new DbException("Unable to instantiate DbQueryScan: the pushed down query is written for " + pushDownDbms
+            + ", not " + connectionInfo.getDbms());
+      }
+      baseSQL =
+          "SELECT " + MoreObjects.firstNonNull(selectList, "*") + " FROM "
+              + relationKey.toString(connectionInfo.getDbms());
+      if (whereCondition != null) {
+        baseSQL = baseSQL + " WHERE " + whereCondition;
+      }
 
       String prefix = "";
       if (sortedColumns != null && sortedColumns.length > 0) {
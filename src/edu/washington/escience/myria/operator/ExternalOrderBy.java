@@ -0,0 +1,600 @@
+package edu.washington.escience.myria.operator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.storage.MutableTupleBuffer;
+import edu.washington.escience.myria.storage.ReadableColumn;
+import edu.washington.escience.myria.storage.ReadableTable;
+import edu.washington.escience.myria.storage.SpillFile;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+import edu.washington.escience.myria.storage.TupleUtils;
+
+/**
+ * Orders tuples using an external merge sort, so that the amount of data it can sort is not bounded by memory.
+ *
+ * The input is buffered until it exceeds the memory budget, set either with {@link #setMemoryBudget(long)} or by the
+ * worker through {@link MyriaConstants#EXEC_ENV_VAR_OPERATOR_MEMORY_BUDGET}. Each full buffer is sorted and written to
+ * a {@link SpillFile} as a sorted run. Once the child is exhausted, the runs are merged with a loser tree and the
+ * result is streamed out as the merge progresses. If the whole input fits in the budget, nothing is written to disk.
+ *
+ * The output is suitable as input for operators that expect sorted input, such as {@link MergeJoin} and
+ * {@link OrderedDupElim}.
+ */
+public final class ExternalOrderBy extends UnaryOperator {
+
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+
+  /** The maximum number of runs that are merged at once. More runs are first merged into longer runs. */
+  private static final int MAX_MERGE_FANIN = 64;
+  /** Below this many rows, the sort switches to insertion sort. */
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+
+  /** Which columns to sort the tuples by. */
+  private final int[] sortColumns;
+  /** True for each column that should be sorted ascending. */
+  private final boolean[] ascending;
+  /** The memory budget in bytes, or zero to use the budget of the worker. */
+  private long memoryBudget;
+
+  /** The memory budget in effect, in bytes. Zero means unlimited. */
+  private transient long effectiveMemoryBudget;
+  /** The directory in which runs are created. */
+  private transient File spillDirectory;
+  /** The input tuples that have not been written to a run yet. */
+  private transient MutableTupleBuffer table;
+  /** The estimated memory used by {@link #table}, in bytes. */
+  private transient long tableBytes;
+  /** The sorted runs written so far. */
+  private transient List<SpillFile> runs;
+  /** When the whole input fits in memory, the order in which to output the rows of {@link #table}; otherwise null. */
+  private transient int[] sortedRows;
+  /** The number of rows of {@link #sortedRows} already output. */
+  private transient int sortedPosition;
+  /** The merge of the runs, or null if it has not started. */
+  private transient LoserTree merger;
+  /** Buffers the output tuples. */
+  private transient TupleBatchBuffer ans;
+  /** The number of bytes written to runs. */
+  private transient long spilledBytes;
+  /** The number of runs written. */
+  private transient long numRuns;
+
+  /**
+   * @param child the source of the tuples.
+   * @param sortColumns the columns that should be ordered by.
+   * @param ascending true for each column that should be sorted ascending.
+   */
+  public ExternalOrderBy(final Operator child, final int[] sortColumns, final boolean[] ascending) {
+    super(child);
+    Preconditions.checkArgument(sortColumns.length == ascending.length,
+        "the number of sort columns must equal the number of ascending flags");
+    this.sortColumns = sortColumns;
+    this.ascending = ascending;
+  }
+
+  /**
+   * Set the memory budget of the buffered input. If it is exceeded, the input is sorted in runs on disk.
+   *
+   * @param memoryBudget the memory budget in bytes, or zero to use the default budget of the worker.
+   */
+  public void setMemoryBudget(final long memoryBudget) {
+    Preconditions.checkArgument(memoryBudget >= 0, "memory budget must be non-negative: %s", memoryBudget);
+    this.memoryBudget = memoryBudget;
+  }
+
+  /**
+   * @return the number of bytes that this operator has written to sorted runs.
+   */
+  public long getSpilledBytes() {
+    return spilledBytes;
+  }
+
+  /**
+   * @return the number of sorted runs that this operator has written, including those of intermediate merges.
+   */
+  public long getNumRuns() {
+    return numRuns;
+  }
+
+  @Override
+  protected void init(final ImmutableMap<String, Object> execEnvVars) throws DbException {
+    effectiveMemoryBudget = memoryBudget;
+    if (effectiveMemoryBudget == 0 && execEnvVars != null
+        && execEnvVars.containsKey(MyriaConstants.EXEC_ENV_VAR_OPERATOR_MEMORY_BUDGET)) {
+      effectiveMemoryBudget = (Long) execEnvVars.get(MyriaConstants.EXEC_ENV_VAR_OPERATOR_MEMORY_BUDGET);
+    }
+    spillDirectory = SpillFile.getSpillDirectory(execEnvVars);
+    table = new MutableTupleBuffer(getSchema());
+    tableBytes = 0;
+    runs = new ArrayList<>();
+    ans = new TupleBatchBuffer(getSchema());
+    spilledBytes = 0;
+    numRuns = 0;
+  }
+
+  @Override
+  protected TupleBatch fetchNextReady() throws DbException {
+    final Operator child = getChild();
+    while (!child.eos()) {
+      TupleBatch tb = child.nextReady();
+      if (tb == null) {
+        if (child.eos()) {
+          break;
+        }
+        return null;
+      }
+      List<? extends Column<?>> inputColumns = tb.getDataColumns();
+      for (int row = 0; row < tb.numTuples(); ++row) {
+        for (int column = 0; column < inputColumns.size(); ++column) {
+          table.put(column, inputColumns.get(column), row);
+        }
+      }
+      if (effectiveMemoryBudget > 0) {
+        tableBytes += TupleUtils.estimateSize(tb);
+        if (tableBytes > effectiveMemoryBudget) {
+          writeRun();
+        }
+      }
+    }
+
+    if (sortedRows == null && merger == null) {
+      if (runs.isEmpty()) {
+        sortedRows = sort(table);
+        sortedPosition = 0;
+      } else {
+        if (table.numTuples() > 0) {
+          writeRun();
+        }
+        table = null;
+        while (runs.size() > MAX_MERGE_FANIN) {
+          mergeRuns();
+        }
+        merger = new LoserTree(runs);
+      }
+    }
+
+    if (sortedRows != null) {
+      while (sortedPosition < sortedRows.length && !ans.hasFilledTB()) {
+        final int row = sortedRows[sortedPosition++];
+        final ReadableColumn[] columns = table.getColumns(row);
+        final int tupleIdx = table.getTupleIndexInContainingTB(row);
+        for (int column = 0; column < columns.length; ++column) {
+          ans.put(column, columns[column], tupleIdx);
+        }
+      }
+    } else {
+      while (!merger.isEmpty() && !ans.hasFilledTB()) {
+        merger.popInto(ans);
+      }
+    }
+
+    TupleBatch nexttb = ans.popFilled();
+    if (nexttb == null) {
+      nexttb = ans.popAny();
+      if (nexttb == null) {
+        setEOS();
+      }
+    }
+    return nexttb;
+  }
+
+  /**
+   * Sort the tuples in {@link #table}, write them to a new run, and empty the table.
+   *
+   * @throws DbException if there is an error writing the run.
+   */
+  private void writeRun() throws DbException {
+    final int[] order = sort(table);
+    final SpillFile run = new SpillFile(getSchema(), spillDirectory);
+    final TupleBatchBuffer sorted = new TupleBatchBuffer(getSchema());
+    for (final int row : order) {
+      final ReadableColumn[] columns = table.getColumns(row);
+      final int tupleIdx = table.getTupleIndexInContainingTB(row);
+      for (int column = 0; column < columns.length; ++column) {
+        sorted.put(column, columns[column], tupleIdx);
+      }
+      TupleBatch tb = sorted.popFilled();
+      if (tb != null) {
+        run.putAll(tb);
+      }
+    }
+    TupleBatch tb = sorted.popAny();
+    if (tb != null) {
+      run.putAll(tb);
+    }
+    finishRun(run);
+    table = new MutableTupleBuffer(getSchema());
+    tableBytes = 0;
+  }
+
+  /**
+   * Merge the first {@link #MAX_MERGE_FANIN} runs into a single run at the end of the list.
+   *
+   * @throws DbException if there is an error reading or writing the runs.
+   */
+  private void mergeRuns() throws DbException {
+    final List<SpillFile> inputs = new ArrayList<>(runs.subList(0, MAX_MERGE_FANIN));
+    runs.subList(0, MAX_MERGE_FANIN).clear();
+    final SpillFile run = new SpillFile(getSchema(), spillDirectory);
+    final TupleBatchBuffer merged = new TupleBatchBuffer(getSchema());
+    final LoserTree tree = new LoserTree(inputs);
+    try {
+      while (!tree.isEmpty()) {
+        tree.popInto(merged);
+        TupleBatch tb = merged.popFilled();
+        if (tb != null) {
+          run.putAll(tb);
+        }
+      }
+    } finally {
+      tree.close();
+    }
+    TupleBatch tb = merged.popAny();
+    if (tb != null) {
+      run.putAll(tb);
+    }
+    for (SpillFile input : inputs) {
+      input.delete();
+    }
+    finishRun(run);
+  }
+
+  /**
+   * @param run a run to finish and add to {@link #runs}.
+   * @throws DbException if there is an error writing the run.
+   */
+  private void finishRun(final SpillFile run) throws DbException {
+    run.finish();
+    runs.add(run);
+    spilledBytes += run.numBytes();
+    ++numRuns;
+  }
+
+  /**
+   * @param data the tuples to sort.
+   * @return the rows of the data in sorted order.
+   */
+  private int[] sort(final ReadableTable data) {
+    final SortKeys keys = new SortKeys(data);
+    final int[] rows = new int[data.numTuples()];
+    for (int i = 0; i < rows.length; ++i) {
+      rows[i] = i;
+    }
+    mergeSort(rows, rows.clone(), 0, rows.length, keys);
+    return rows;
+  }
+
+  /**
+   * Stable merge sort of {@code rows[from, to)}, using {@code buffer} as scratch space. On entry, the range of both
+   * arrays must hold the same values.
+   *
+   * @param rows the rows to sort.
+   * @param buffer scratch space.
+   * @param from the first index to sort, inclusive.
+   * @param to the last index to sort, exclusive.
+   * @param keys the sort keys of the rows.
+   */
+  private static void mergeSort(final int[] rows, final int[] buffer, final int from, final int to, final SortKeys keys) {
+    if (to - from <= INSERTION_SORT_THRESHOLD) {
+      for (int i = from + 1; i < to; ++i) {
+        final int row = rows[i];
+        int j = i - 1;
+        while (j >= from && keys.compare(rows[j], keys, row) > 0) {
+          rows[j + 1] = rows[j];
+          --j;
+        }
+        rows[j + 1] = row;
+      }
+      return;
+    }
+    final int mid = (from + to) >>> 1;
+    /* Sort each half of buffer, using rows as scratch space, then merge them into rows. */
+    mergeSort(buffer, rows, from, mid, keys);
+    mergeSort(buffer, rows, mid, to, keys);
+    int left = from;
+    int right = mid;
+    for (int i = from; i < to; ++i) {
+      if (right >= to || (left < mid && keys.compare(buffer[left], keys, buffer[right]) <= 0)) {
+        rows[i] = buffer[left++];
+      } else {
+        rows[i] = buffer[right++];
+      }
+    }
+  }
+
+  @Override
+  protected void cleanup() throws DbException {
+    try {
+      if (merger != null) {
+        merger.close();
+      }
+    } finally {
+      if (runs != null) {
+        for (SpillFile run : runs) {
+          run.delete();
+        }
+      }
+      merger = null;
+      runs = null;
+      table = null;
+      sortedRows = null;
+      ans = null;
+    }
+  }
+
+  @Override
+  protected Schema generateSchema() {
+    Operator child = getChild();
+    if (child == null) {
+      return null;
+    }
+    return child.getSchema();
+  }
+
+  /**
+   * The sort columns of a table, copied into primitive arrays so that rows can be compared without boxing or
+   * dispatching on the column type.
+   */
+  private final class SortKeys {
+    /** For each sort column, its values as longs, or null if it is not stored as longs. */
+    private final long[][] longKeys;
+    /** For each sort column, its values as doubles, or null if it is not stored as doubles. */
+    private final double[][] doubleKeys;
+    /** For each sort column, its values as strings, or null if it is not stored as strings. */
+    private final String[][] stringKeys;
+
+    /**
+     * @param data the table whose sort columns are copied.
+     */
+    SortKeys(final ReadableTable data) {
+      final int numTuples = data.numTuples();
+      longKeys = new long[sortColumns.length][];
+      doubleKeys = new double[sortColumns.length][];
+      stringKeys = new String[sortColumns.length][];
+      for (int i = 0; i < sortColumns.length; ++i) {
+        final ReadableColumn column = data.asColumn(sortColumns[i]);
+        switch (column.getType()) {
+          case BOOLEAN_TYPE:
+            longKeys[i] = new long[numTuples];
+            for (int row = 0; row < numTuples; ++row) {
+              longKeys[i][row] = column.getBoolean(row) ? 1 : 0;
+            }
+            break;
+          case DATETIME_TYPE:
+            longKeys[i] = new long[numTuples];
+            for (int row = 0; row < numTuples; ++row) {
+              longKeys[i][row] = column.getDateTime(row).getMillis();
+            }
+            break;
+          case INT_TYPE:
+            longKeys[i] = new long[numTuples];
+            for (int row = 0; row < numTuples; ++row) {
+              longKeys[i][row] = column.getInt(row);
+            }
+            break;
+          case LONG_TYPE:
+            longKeys[i] = new long[numTuples];
+            for (int row = 0; row < numTuples; ++row) {
+              longKeys[i][row] = column.getLong(row);
+            }
+            break;
+          case FLOAT_TYPE:
+            doubleKeys[i] = new double[numTuples];
+            for (int row = 0; row < numTuples; ++row) {
+              doubleKeys[i][row] = column.getFloat(row);
+            }
+            break;
+          case DOUBLE_TYPE:
+            doubleKeys[i] = new double[numTuples];
+            for (int row = 0; row < numTuples; ++row) {
+              doubleKeys[i][row] = column.getDouble(row);
+            }
+            break;
+          case STRING_TYPE:
+            stringKeys[i] = new String[numTuples];
+            for (int row = 0; row < numTuples; ++row) {
+              stringKeys[i][row] = column.getString(row);
+            }
+            break;
+        }
+      }
+    }
+
+    /**
+     * @param row a row of this table.
+     * @param other the keys of another table with the same schema.
+     * @param otherRow a row of the other table.
+     * @return a negative number, zero, or a positive number if the row sorts before, with, or after the other row.
+     */
+    int compare(final int row, final SortKeys other, final int otherRow) {
+      for (int i = 0; i < sortColumns.length; ++i) {
+        final int compared;
+        if (longKeys[i] != null) {
+          compared = Long.compare(longKeys[i][row], other.longKeys[i][otherRow]);
+        } else if (doubleKeys[i] != null) {
+          compared = Double.compare(doubleKeys[i][row], other.doubleKeys[i][otherRow]);
+        } else {
+          compared = stringKeys[i][row].compareTo(other.stringKeys[i][otherRow]);
+        }
+        if (compared != 0) {
+          return ascending[i] ? compared : -compared;
+        }
+      }
+      return 0;
+    }
+  }
+
+  /**
+   * The current position in a sorted run being merged.
+   */
+  private final class RunCursor {
+    /** The reader over the run. */
+    private final SpillFile.Reader reader;
+    /** The current batch, or null if the run is exhausted. */
+    private TupleBatch tb;
+    /** The sort keys of the current batch. */
+    private SortKeys keys;
+    /** The current row in the current batch. */
+    private int row;
+
+    /**
+     * @param run the run.
+     * @throws DbException if there is an error reading the run.
+     */
+    RunCursor(final SpillFile run) throws DbException {
+      reader = run.openReader();
+      nextBatch();
+    }
+
+    /**
+     * Move to the next row of the run.
+     *
+     * @throws DbException if there is an error reading the run.
+     */
+    void advance() throws DbException {
+      if (++row >= tb.numTuples()) {
+        nextBatch();
+      }
+    }
+
+    /**
+     * Move to the first row of the next non-empty batch of the run.
+     *
+     * @throws DbException if there is an error reading the run.
+     */
+    private void nextBatch() throws DbException {
+      do {
+        tb = reader.next();
+      } while (tb != null && tb.numTuples() == 0);
+      keys = tb == null ? null : new SortKeys(tb);
+      row = 0;
+    }
+  }
+
+  /**
+   * A k-way merge of sorted runs. The leaves of the tree are the runs, and each internal node holds the loser of the
+   * comparison between the winners of its two subtrees, so that replacing the overall winner only requires one
+   * comparison per level of the tree. Ties are broken in favor of the earlier run, so the merge is stable.
+   */
+  private final class LoserTree {
+    /** The runs being merged. */
+    private final RunCursor[] cursors;
+    /** Node 0 holds the index of the overall winner, and nodes 1 to k-1 the losers of the internal nodes. */
+    private final int[] tree;
+
+    /**
+     * @param runs the sorted runs to merge.
+     * @throws DbException if there is an error reading the runs.
+     */
+    LoserTree(final List<SpillFile> runs) throws DbException {
+      final int k = runs.size();
+      cursors = new RunCursor[k];
+      tree = new int[k];
+      try {
+        for (int i = 0; i < k; ++i) {
+          cursors[i] = new RunCursor(runs.get(i));
+        }
+      } catch (DbException e) {
+        close();
+        throw e;
+      }
+      /* Play the initial tournament bottom-up; the leaf of run i is node k + i. */
+      final int[] winners = new int[2 * k];
+      for (int i = 0; i < k; ++i) {
+        winners[k + i] = i;
+      }
+      for (int node = k - 1; node >= 1; --node) {
+        final int left = winners[2 * node];
+        final int right = winners[2 * node + 1];
+        if (beats(left, right)) {
+          winners[node] = left;
+          tree[node] = right;
+        } else {
+          winners[node] = right;
+          tree[node] = left;
+        }
+      }
+      tree[0] = k == 1 ? 0 : winners[1];
+    }
+
+    /**
+     * @param a the index of a run.
+     * @param b the index of another run.
+     * @return whether the current row of run a must be output before that of run b.
+     */
+    private boolean beats(final int a, final int b) {
+      final RunCursor x = cursors[a];
+      final RunCursor y = cursors[b];
+      if (x.tb == null) {
+        return false;
+      }
+      if (y.tb == null) {
+        return true;
+      }
+      final int compared = x.keys.compare(x.row, y.keys, y.row);
+      return compared < 0 || (compared == 0 && a < b);
+    }
+
+    /**
+     * @return whether all the runs are exhausted.
+     */
+    boolean isEmpty() {
+      return cursors[tree[0]].tb == null;
+    }
+
+    /**
+     * Move the smallest row to the given buffer.
+     *
+     * @param out the buffer.
+     * @throws DbException if there is an error reading the runs.
+     */
+    void popInto(final TupleBatchBuffer out) throws DbException {
+      int winner = tree[0];
+      final RunCursor cursor = cursors[winner];
+      out.put(cursor.tb, cursor.row);
+      cursor.advance();
+      for (int node = (winner + cursors.length) >>> 1; node >= 1; node >>>= 1) {
+        if (beats(tree[node], winner)) {
+          final int loser = winner;
+          winner = tree[node];
+          tree[node] = loser;
+        }
+      }
+      tree[0] = winner;
+    }
+
+    /**
+     * Close the readers over the runs.
+     *
+     * @throws DbException if there is an error closing a reader.
+     */
+    void close() throws DbException {
+      IOException error = null;
+      for (RunCursor cursor : cursors) {
+        if (cursor == null) {
+          continue;
+        }
+        try {
+          cursor.reader.close();
+        } catch (IOException e) {
+          error = e;
+        }
+      }
+      if (error != null) {
+        throw new DbException(error);
+      }
+    }
+  }
+}
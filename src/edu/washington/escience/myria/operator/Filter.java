@@ -1,7 +1,7 @@
 package edu.washington.escience.myria.operator;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.BitSet;
+import java.util.List;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
@@ -9,12 +9,16 @@ import com.google.common.collect.ImmutableMap;
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.expression.Expression;
-import edu.washington.escience.myria.expression.evaluate.BooleanEvaluator;
+import edu.washington.escience.myria.expression.evaluate.BatchBooleanEvaluator;
+import edu.washington.escience.myria.expression.evaluate.EvaluatorCache;
 import edu.washington.escience.myria.expression.evaluate.ExpressionOperatorParameter;
+import edu.washington.escience.myria.operator.Morsels.MorselTask;
 import edu.washington.escience.myria.storage.TupleBatch;
 
 /**
- * Filter is an operator that implements a relational select.
+ * Filter is an operator that implements a relational select. The predicate is evaluated in one generated loop per
+ * batch that sets the bits of the selected rows, see {@link BatchBooleanEvaluator}, on morsels of the batch in parallel
+ * if the query enables it, see {@link Morsels}.
  */
 public final class Filter extends UnaryOperator {
 
@@ -26,9 +30,14 @@ public final class Filter extends UnaryOperator {
   private final Expression predicate;
 
   /**
-   * Evaluator that evaluates {@link #predicate}.
+   * Evaluator that evaluates {@link #predicate} over whole batches.
    */
-  private BooleanEvaluator evaluator;
+  private transient BatchBooleanEvaluator evaluator;
+
+  /**
+   * The maximum number of morsels of a batch that are filtered in parallel, see {@link Morsels}.
+   */
+  private transient int parallelism;
 
   /**
    * Constructor accepts a predicate to apply and a child operator to read tuples to filter from.
@@ -41,22 +50,18 @@ public final class Filter extends UnaryOperator {
     this.predicate = predicate;
   }
 
+  /**
+   * @return the predicate by which tuples are filtered.
+   */
+  public Expression getPredicate() {
+    return predicate;
+  }
+
   @Override
   protected TupleBatch fetchNextReady() throws DbException {
     Operator child = getChild();
     for (TupleBatch tb = child.nextReady(); tb != null; tb = child.nextReady()) {
-      BitSet bits = new BitSet(tb.numTuples());
-      for (int rowIdx = 0; rowIdx < tb.numTuples(); rowIdx++) {
-        Boolean valid;
-        try {
-          valid = evaluator.eval(tb, rowIdx);
-        } catch (InvocationTargetException e) {
-          throw new DbException(e);
-        }
-        if (valid) {
-          bits.set(rowIdx);
-        }
-      }
+      BitSet bits = evaluate(tb);
 
       if (bits.cardinality() == 0) {
         continue;
@@ -67,6 +72,29 @@ public final class Filter extends UnaryOperator {
     return null;
   }
 
+  /**
+   * Evaluate the predicate on every row of the batch, in morsels processed in parallel if enabled.
+   *
+   * @param tb the batch.
+   * @return the rows that satisfy the predicate.
+   * @throws DbException if there is an error evaluating the predicate.
+   */
+  private BitSet evaluate(final TupleBatch tb) throws DbException {
+    List<BitSet> morsels = Morsels.run(tb.numTuples(), parallelism, new MorselTask<BitSet>() {
+      @Override
+      public BitSet process(final int from, final int to) throws DbException {
+        BitSet bits = new BitSet(to);
+        evaluator.evaluate(tb, from, to, bits);
+        return bits;
+      }
+    });
+    BitSet bits = morsels.get(0);
+    for (int i = 1; i < morsels.size(); ++i) {
+      bits.or(morsels.get(i));
+    }
+    return bits;
+  }
+
   @Override
   protected void init(final ImmutableMap<String, Object> execEnvVars) throws DbException {
     Preconditions.checkNotNull(predicate);
@@ -75,10 +103,19 @@ public final class Filter extends UnaryOperator {
 
     final ExpressionOperatorParameter parameters = new ExpressionOperatorParameter(inputSchema, getNodeID());
 
-    evaluator = new BooleanEvaluator(predicate, parameters);
-    if (evaluator.needsCompiling()) {
-      evaluator.compile();
+    evaluator = new BatchBooleanEvaluator(predicate, parameters);
+    evaluator.compile();
+    parallelism = Morsels.getParallelism(execEnvVars);
+  }
+
+  /**
+   * @return the hits and misses of the compiled predicate in the {@link EvaluatorCache}.
+   */
+  public EvaluatorCache.Stats getCompileStats() {
+    if (evaluator == null) {
+      return new EvaluatorCache.Stats();
     }
+    return evaluator.getCompileStats();
   }
 
   @Override
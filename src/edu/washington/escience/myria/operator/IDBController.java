@@ -1,16 +1,19 @@
 package edu.washington.escience.myria.operator;
 
 import java.io.File;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import com.almworks.sqlite4java.SQLiteConnection;
 import com.almworks.sqlite4java.SQLiteException;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.gs.collections.impl.list.mutable.primitive.IntArrayList;
+import com.gs.collections.impl.list.mutable.primitive.LongArrayList;
 
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.MyriaConstants;
@@ -32,6 +35,8 @@ import edu.washington.escience.myria.storage.TupleBatchBuffer;
  * An IDB in a Datalog program is a relation that will be updated. In general, it can be treated as a non-constant
  * relation in a query. An IDBController maintains the state of an IDB: it takes tuples in, does aggregation, updates
  * its internal state, and outputs delta. It also reports to the EOSController to help it determine termination.
+ * 
+ * The duration and the number of delta tuples of each iteration are recorded.
  * */
 public class IDBController extends Operator implements StreamingStateful, DbWriter {
 
@@ -98,12 +103,23 @@ public class IDBController extends Operator implements StreamingStateful, DbWrit
   private ArrayList<TupleBatch> bufferedIterTBs;
 
   /** delta tuples of the previous iteration. */
-
-  private LinkedList<TupleBatch> deltaTuples;
+  private ArrayDeque<TupleBatch> deltaTuples;
 
   /** if the buffer of previous iteration tuples has been cleaned. */
   private boolean bufferCleared = false;
 
+  /** The number of delta tuples output in each completed iteration. */
+  private transient IntArrayList iterationDeltaSizes;
+
+  /** The duration in nanoseconds of each completed iteration. */
+  private transient LongArrayList iterationNanos;
+
+  /** When the current iteration started. */
+  private transient long iterationStartNanos;
+
+  /** The number of delta tuples output in the current iteration. */
+  private transient int deltaSize;
+
   /** if this IDBController uses sync mode. */
   private final boolean sync;
 
@@ -177,9 +193,25 @@ public class IDBController extends Operator implements StreamingStateful, DbWrit
 
   @Override
   public final TupleBatch fetchNextReady() throws DbException {
+    TupleBatch tb;
     if (sync) {
-      return fetchNextReadySync();
+      tb = fetchNextReadySync();
+    } else {
+      tb = fetchNextReadyAsync();
+    }
+    if (tb != null) {
+      deltaSize += tb.numTuples();
     }
+    return tb;
+  }
+
+  /**
+   * Asynchronous mode of IDBController fetchNextReady.
+   * 
+   * @return next ready output TupleBatch.
+   * @throws DbException if any error occurs
+   */
+  private TupleBatch fetchNextReadyAsync() throws DbException {
     TupleBatch tb;
     if (!initialInputEnded) {
       while ((tb = initialIDBInput.nextReady()) != null) {
@@ -263,6 +295,7 @@ public class IDBController extends Operator implements StreamingStateful, DbWrit
         setEOI(true);
         emptyDelta = true;
         initialInputEnded = true;
+        endIteration();
       }
     } else {
       try {
@@ -283,6 +316,7 @@ public class IDBController extends Operator implements StreamingStateful, DbWrit
           buffer.putBoolean(1, emptyDelta);
           eoiReportChannel.write(buffer.popAny());
           emptyDelta = true;
+          endIteration();
         }
       } catch (DbException e) {
         if (LOGGER.isErrorEnabled()) {
@@ -292,6 +326,42 @@ public class IDBController extends Operator implements StreamingStateful, DbWrit
     }
   }
 
+  /**
+   * Record the statistics of the iteration that just ended.
+   */
+  private void endIteration() {
+    final long now = System.nanoTime();
+    synchronized (this) {
+      iterationDeltaSizes.add(deltaSize);
+      iterationNanos.add(now - iterationStartNanos);
+    }
+    LOGGER.debug("IDB {} iteration {}: {} delta tuples in {} ms, {} tuples in state", selfIDBIdx, iterationNanos.size(),
+        deltaSize, TimeUnit.NANOSECONDS.toMillis(now - iterationStartNanos), state.numTuples());
+    deltaSize = 0;
+    iterationStartNanos = now;
+  }
+
+  /**
+   * @return the number of completed iterations, counting the initial input as the first one.
+   */
+  public final synchronized int getNumIterations() {
+    return iterationNanos.size();
+  }
+
+  /**
+   * @return the number of delta tuples output in each completed iteration.
+   */
+  public final synchronized int[] getIterationDeltaSizes() {
+    return iterationDeltaSizes.toArray();
+  }
+
+  /**
+   * @return the duration in nanoseconds of each completed iteration.
+   */
+  public final synchronized long[] getIterationNanos() {
+    return iterationNanos.toArray();
+  }
+
   @Override
   public final Operator[] getChildren() {
     Operator[] result = new Operator[3];
@@ -329,8 +399,12 @@ public class IDBController extends Operator implements StreamingStateful, DbWrit
         (LocalFragmentResourceManager) execEnvVars.get(MyriaConstants.EXEC_ENV_VAR_FRAGMENT_RESOURCE_MANAGER);
     eoiReportChannel = resourceManager.startAStream(controllerWorkerID, controllerOpID);
     state.init(execEnvVars);
-    deltaTuples = new LinkedList<TupleBatch>();
+    deltaTuples = new ArrayDeque<TupleBatch>();
     bufferedIterTBs = new ArrayList<TupleBatch>();
+    iterationDeltaSizes = new IntArrayList();
+    iterationNanos = new LongArrayList();
+    iterationStartNanos = System.nanoTime();
+    deltaSize = 0;
 
     if (relationKey != null) {
       if (connectionInfo == null && execEnvVars != null) {
@@ -0,0 +1,151 @@
+package edu.washington.escience.myria.operator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import com.google.common.base.Preconditions;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.MyriaConstants;
+
+/**
+ * Morsel-driven parallelism for operators that process the rows of a batch independently. The rows of a batch are
+ * split into contiguous ranges, the morsels, which are processed by a fork-join pool shared by all the fragments of the
+ * process while the fragment thread processes the first morsel itself. The results are returned in the order of the
+ * morsels, so an operator that concatenates them produces exactly the output of a serial run.
+ *
+ * The number of morsels per batch is bounded by {@link MyriaConstants#EXEC_ENV_VAR_MORSEL_PARALLELISM}, and no morsel
+ * is smaller than {@link #MIN_MORSEL_SIZE} rows.
+ */
+public final class Morsels {
+
+  /** Batches are not split into morsels of fewer rows than this, since the hand-off would cost more than it saves. */
+  public static final int MIN_MORSEL_SIZE = 1024;
+
+  /** The pool processing the morsels of all the operators of this process. */
+  private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+  /** Utility class cannot be constructed. */
+  private Morsels() {
+  }
+
+  /**
+   * The work done on one morsel.
+   *
+   * @param <T> the type of the result of a morsel.
+   */
+  public interface MorselTask<T> {
+    /**
+     * Process the rows {@code [from, to)} of the batch. Called concurrently for disjoint ranges of the same batch.
+     *
+     * @param from the first row of the morsel.
+     * @param to one past the last row of the morsel.
+     * @return the result of the morsel.
+     * @throws DbException if there is an error processing the morsel.
+     */
+    T process(int from, int to) throws DbException;
+  }
+
+  /**
+   * @param execEnvVars the execution environment variables of an operator, or null.
+   * @return the maximum number of morsels an operator may process in parallel. This is
+   *         {@link MyriaConstants#EXEC_ENV_VAR_MORSEL_PARALLELISM} if set, or 1 otherwise.
+   */
+  public static int getParallelism(final Map<String, Object> execEnvVars) {
+    if (execEnvVars == null) {
+      return 1;
+    }
+    final Object parallelism = execEnvVars.get(MyriaConstants.EXEC_ENV_VAR_MORSEL_PARALLELISM);
+    if (parallelism == null) {
+      return 1;
+    }
+    return Math.max(1, (Integer) parallelism);
+  }
+
+  /**
+   * @param numTuples the number of rows of a batch.
+   * @param parallelism the maximum number of morsels.
+   * @return the number of morsels the batch would be split into.
+   */
+  public static int numMorsels(final int numTuples, final int parallelism) {
+    Preconditions.checkArgument(parallelism >= 1, "parallelism must be positive");
+    return Math.max(1, Math.min(parallelism, numTuples / MIN_MORSEL_SIZE));
+  }
+
+  /**
+   * Split {@code numTuples} rows into morsels and process them in parallel.
+   *
+   * @param <T> the type of the result of a morsel.
+   * @param numTuples the number of rows to process.
+   * @param parallelism the maximum number of morsels, see {@link #getParallelism(Map)}.
+   * @param task the work done on each morsel.
+   * @return the result of each morsel, in the order of the rows.
+   * @throws DbException if processing any of the morsels fails.
+   */
+  public static <T> List<T> run(final int numTuples, final int parallelism, final MorselTask<T> task)
+      throws DbException {
+    final int numMorsels = numMorsels(numTuples, parallelism);
+    if (numMorsels == 1) {
+      return Collections.singletonList(task.process(0, numTuples));
+    }
+
+    final List<ForkJoinTask<T>> forked = new ArrayList<>(numMorsels - 1);
+    for (int morsel = 1; morsel < numMorsels; ++morsel) {
+      final int from = bound(numTuples, numMorsels, morsel);
+      final int to = bound(numTuples, numMorsels, morsel + 1);
+      forked.add(POOL.submit(new Callable<T>() {
+        @Override
+        public T call() throws DbException {
+          return task.process(from, to);
+        }
+      }));
+    }
+
+    final List<T> results = new ArrayList<>(numMorsels);
+    try {
+      results.add(task.process(0, bound(numTuples, numMorsels, 1)));
+      for (ForkJoinTask<T> morsel : forked) {
+        results.add(morsel.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DbException(e);
+    } catch (ExecutionException e) {
+      /* the pool wraps checked exceptions, possibly more than once. */
+      for (Throwable t = e.getCause(); t != null; t = t.getCause()) {
+        if (t instanceof DbException) {
+          throw (DbException) t;
+        }
+      }
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new DbException(cause);
+    } finally {
+      for (ForkJoinTask<T> morsel : forked) {
+        morsel.cancel(false);
+      }
+    }
+    return results;
+  }
+
+  /**
+   * @param numTuples the number of rows.
+   * @param numMorsels the number of morsels.
+   * @param morsel the index of a morsel.
+   * @return the first row of the morsel.
+   */
+  private static int bound(final int numTuples, final int numMorsels, final int morsel) {
+    return (int) ((long) numTuples * morsel / numMorsels);
+  }
+}
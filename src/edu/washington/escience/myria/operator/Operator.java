@@ -20,6 +20,7 @@ import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.parallel.LocalFragment;
 import edu.washington.escience.myria.parallel.LocalFragmentResourceManager;
 import edu.washington.escience.myria.parallel.LocalSubQuery;
+import edu.washington.escience.myria.parallel.ResourceStats;
 import edu.washington.escience.myria.parallel.SubQueryId;
 import edu.washington.escience.myria.parallel.WorkerSubQuery;
 import edu.washington.escience.myria.profiling.ProfilingLogger;
@@ -106,6 +107,23 @@ public abstract class Operator implements Serializable {
     return profilingLogger;
   }
 
+  /**
+   * Record a resource measurement of this operator with the profiling logger of the worker. Has no effect if the query
+   * is not profiled.
+   * 
+   * @param measurement the name of the measurement.
+   * @param value the value of the measurement.
+   * @throws DbException if the measurement cannot be logged.
+   */
+  protected final void recordResource(final String measurement, final long value) throws DbException {
+    if (profilingLogger == null || getOpId() == null) {
+      return;
+    }
+    SubQueryId subQueryId = getSubQueryId();
+    profilingLogger.recordResource(new ResourceStats(System.currentTimeMillis(), getOpId(), measurement, value,
+        subQueryId.getQueryId(), subQueryId.getSubqueryId()));
+  }
+
   /**
    * @return return subquery id.
    */
@@ -1,22 +1,29 @@
 package edu.washington.escience.myria.operator;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.gs.collections.api.block.procedure.primitive.IntProcedure;
 import com.gs.collections.impl.list.mutable.primitive.IntArrayList;
-import com.gs.collections.impl.map.mutable.primitive.IntObjectHashMap;
 
 import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.MyriaConstants;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.column.Column;
-import edu.washington.escience.myria.storage.MutableTupleBuffer;
+import edu.washington.escience.myria.operator.Morsels.MorselTask;
+import edu.washington.escience.myria.operator.network.Consumer;
+import edu.washington.escience.myria.parallel.LocalFragmentResourceManager;
+import edu.washington.escience.myria.storage.JoinHashTable;
 import edu.washington.escience.myria.storage.ReadableColumn;
+import edu.washington.escience.myria.storage.SpillFile;
 import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.storage.TupleBatchBuffer;
 import edu.washington.escience.myria.storage.TupleUtils;
@@ -27,11 +34,29 @@ import edu.washington.escience.myria.util.MyriaArrayUtils;
  * This is an implementation of unbalanced hash join. This operator only builds hash tables for its right child, thus
  * will begin to output tuples after right child EOS.
  * 
+ * If a memory budget is set, either with {@link #setMemoryBudget(long)} or by the worker through
+ * {@link MyriaConstants#EXEC_ENV_VAR_OPERATOR_MEMORY_BUDGET}, and the hash table of the right child grows beyond it, the
+ * join switches to a grace hash join: both children are partitioned on the join key into {@link SpillFile}s in
+ * {@link MyriaConstants#EXEC_ENV_VAR_SPILL_DIRECTORY}, and the matching partitions are joined one at a time. Partitions
+ * that are still too large are partitioned again with a different hash function.
+ * 
+ * If the query enables it, the batches of the left child are probed in morsels in parallel, see {@link Morsels}.
+ * 
+ * In an iterative query, e.g., the body of a {@link edu.washington.escience.myria.parallel.DoWhile}, the right child is
+ * often the same relation in every iteration. With {@link #setCacheRightHashTable(boolean)}, the hash table built in
+ * the first iteration is kept by the worker, keyed by the id of this operator, and later iterations probe it instead of
+ * building it again. The right child is then not read at all, unless it receives tuples from other fragments, in which
+ * case it is drained and its tuples are dropped. The table is released when the query finishes.
  */
 public final class RightHashJoin extends BinaryOperator {
   /** Required for Java serialization. */
   private static final long serialVersionUID = 1L;
 
+  /** The number of partitions that each pass of spilling splits its input into. Must be a power of two. */
+  private static final int SPILL_FANOUT = 16;
+  /** Estimated memory used by the hash table index for each stored tuple and key column, in bytes. */
+  private static final int INDEX_BYTES_PER_VALUE = 8;
+
   /**
    * The names of the output columns.
    */
@@ -47,14 +72,9 @@ public final class RightHashJoin extends BinaryOperator {
   private final int[] rightCompareIndx;
 
   /**
-   * A hash table for tuples from child 2. {Hashcode -> List of tuple indices with the same hash code}
-   */
-  private transient IntObjectHashMap<IntArrayList> rightHashTableIndices;
-
-  /**
-   * The buffer holding the valid tuples from right.
+   * The hash table holding the tuples from right, keyed on the right compare columns.
    */
-  private transient MutableTupleBuffer rightHashTable;
+  private transient JoinHashTable rightHashTable;
   /**
    * The buffer holding the results.
    */
@@ -64,50 +84,46 @@ public final class RightHashJoin extends BinaryOperator {
   /** Which columns in the right child are to be output. */
   private final int[] rightAnswerColumns;
 
-  /**
-   * Traverse through the list of tuples with the same hash code.
-   * */
-  private final class JoinProcedure implements IntProcedure {
-
-    /** serial version id. */
-    private static final long serialVersionUID = 1L;
-
-    /**
-     * Hash table.
-     * */
-    private MutableTupleBuffer joinAgainstHashTable;
-
-    /**
-     * 
-     * */
-    private int[] inputCmpColumns;
-
-    /**
-     * the columns to compare against.
-     * */
-    private int[] joinAgainstCmpColumns;
-    /**
-     * row index of the tuple.
-     * */
-    private int row;
-
-    /**
-     * input TupleBatch.
-     * */
-    private TupleBatch inputTB;
-
-    @Override
-    public void value(final int index) {
-      if (TupleUtils.tupleEquals(inputTB, inputCmpColumns, row, joinAgainstHashTable, joinAgainstCmpColumns, index)) {
-        addToAns(inputTB, row, joinAgainstHashTable, index);
-      }
-    }
-  };
-
-  /**
-   * Traverse through the list of tuples.
-   * */
-  private transient JoinProcedure doJoin;
+  /** The memory budget of the right hash table in bytes, or zero to use the budget of the worker. */
+  private long memoryBudget;
+  /** Whether the right hash table is cached for the later subqueries of the query. */
+  private boolean cacheRightHashTable;
+  /** The resources of the fragment, which cache the right hash table, or null if it is not cached. */
+  private transient LocalFragmentResourceManager resourceManager;
+  /** Whether {@link #rightHashTable} was built by an earlier subquery. */
+  private transient boolean rightFromCache;
+  /** Whether {@link #rightHashTable} is in the cache, and so must not be modified. */
+  private transient boolean rightHashTableCached;
+  /** Whether the right child is not read, because {@link #rightHashTable} came from the cache. */
+  private transient boolean skipRight;
+  /** The memory budget in effect, in bytes. Zero means unlimited. */
+  private transient long effectiveMemoryBudget;
+  /** The directory in which spill files are created. */
+  private transient File spillDirectory;
+  /** The estimated memory used by {@link #rightHashTable}, in bytes. */
+  private transient long hashTableBytes;
+  /** The partitions of the right child, or null if the join has not spilled. */
+  private transient SpillFile[] rightRuns;
+  /** Whether all of the right child has been written to {@link #rightRuns}. */
+  private transient boolean rightRunsFinished;
+  /** The partitions of the left child since the last EOI, or null if there are none. */
+  private transient SpillFile[] leftRuns;
+  /** The spilled partitions that remain to be joined. */
+  private transient Deque<SpilledPartition> pendingPartitions;
+  /** The spilled partition currently being joined, or null. */
+  private transient SpilledPartition currentPartition;
+  /** The hash table holding the right side of {@link #currentPartition}. */
+  private transient JoinHashTable partitionHashTable;
+  /** The reader over the left side of {@link #currentPartition}. */
+  private transient SpillFile.Reader partitionProbe;
+  /** The number of bytes written to spill files. */
+  private transient long spilledBytes;
+  /** The number of spilled partitions that were joined or partitioned again. */
+  private transient long spillPartitions;
+  /** The number of partitioning passes over spilled data. */
+  private transient long spillPasses;
+  /** The maximum number of morsels of a left batch that are probed in parallel, see {@link Morsels}. */
+  private transient int parallelism;
 
   /**
    * Construct an EquiJoin operator. It returns all columns from both children when the corresponding columns in
@@ -208,6 +224,62 @@ public final class RightHashJoin extends BinaryOperator {
     return ret;
   }
 
+  /**
+   * Set the memory budget of the hash table built on the right child. If it is exceeded, the join spills to disk.
+   * 
+   * @param memoryBudget the memory budget in bytes, or zero to use the default budget of the worker.
+   */
+  public void setMemoryBudget(final long memoryBudget) {
+    Preconditions.checkArgument(memoryBudget >= 0, "memory budget must be non-negative: %s", memoryBudget);
+    this.memoryBudget = memoryBudget;
+  }
+
+  /**
+   * Set whether the hash table built on the right child is kept for the later subqueries of the query, i.e., the later
+   * iterations of a loop. The right child must produce the same tuples in each of them, and the table must fit in
+   * memory: a table that spills is not cached.
+   * 
+   * @param cacheRightHashTable whether to cache the right hash table.
+   */
+  public void setCacheRightHashTable(final boolean cacheRightHashTable) {
+    this.cacheRightHashTable = cacheRightHashTable;
+  }
+
+  /**
+   * @return whether the hash table built on the right child is kept for the later subqueries of the query.
+   */
+  public boolean getCacheRightHashTable() {
+    return cacheRightHashTable;
+  }
+
+  /**
+   * @return whether this join probed a right hash table cached by an earlier subquery.
+   */
+  public boolean isRightHashTableFromCache() {
+    return rightFromCache;
+  }
+
+  /**
+   * @return the number of bytes that this join has written to spill files.
+   */
+  public long getSpilledBytes() {
+    return spilledBytes;
+  }
+
+  /**
+   * @return the number of spilled partitions that this join has processed.
+   */
+  public long getSpillPartitions() {
+    return spillPartitions;
+  }
+
+  /**
+   * @return the number of partitioning passes that this join has made over spilled data.
+   */
+  public long getSpillPasses() {
+    return spillPasses;
+  }
+
   @Override
   protected Schema generateSchema() {
     final Schema leftSchema = getLeft().getSchema();
@@ -249,7 +321,7 @@ public final class RightHashJoin extends BinaryOperator {
    * @param hashTable the buffer holding the tuples to join against
    * @param index the index of hashTable, which the cntTuple is to join with
    */
-  protected void addToAns(final TupleBatch cntTB, final int row, final MutableTupleBuffer hashTable, final int index) {
+  protected void addToAns(final TupleBatch cntTB, final int row, final JoinHashTable hashTable, final int index) {
     List<? extends Column<?>> tbColumns = cntTB.getDataColumns();
     ReadableColumn[] hashTblColumns = hashTable.getColumns(index);
     int tupleIdx = hashTable.getTupleIndexInContainingTB(index);
@@ -266,23 +338,72 @@ public final class RightHashJoin extends BinaryOperator {
 
   @Override
   protected void cleanup() throws DbException {
+    if (partitionProbe != null) {
+      try {
+        partitionProbe.close();
+      } catch (IOException e) {
+        throw new DbException(e);
+      } finally {
+        partitionProbe = null;
+      }
+    }
+    deleteRuns(rightRuns);
+    deleteRuns(leftRuns);
+    if (currentPartition != null) {
+      currentPartition.delete();
+    }
+    if (pendingPartitions != null) {
+      for (SpilledPartition partition : pendingPartitions) {
+        partition.delete();
+      }
+    }
+    rightRuns = null;
+    leftRuns = null;
+    currentPartition = null;
+    pendingPartitions = null;
+    partitionHashTable = null;
     rightHashTable = null;
-    rightHashTableIndices = null;
+    resourceManager = null;
     ans = null;
+    if (spillPasses > 0) {
+      /* Spilling is rare and expensive, so log it even if the resources of the query are not sampled. */
+      recordResource("spilledBytes", spilledBytes);
+      recordResource("spillPartitions", spillPartitions);
+      recordResource("spillPasses", spillPasses);
+    }
+  }
+
+  /**
+   * @param runs spill files to delete, or null.
+   */
+  private static void deleteRuns(final SpillFile[] runs) {
+    if (runs == null) {
+      return;
+    }
+    for (SpillFile run : runs) {
+      run.delete();
+    }
+  }
+
+  /**
+   * @return whether there are spilled partitions that have not been joined yet.
+   */
+  private boolean hasSpilledWork() {
+    return leftRuns != null || currentPartition != null || (pendingPartitions != null && !pendingPartitions.isEmpty());
   }
 
   @Override
   public void checkEOSAndEOI() {
     final Operator left = getLeft();
-    final Operator right = getRight();
 
-    if (left.eos() && right.eos() && ans.numTuples() == 0) {
+    if (left.eos() && rightEOS() && ans.numTuples() == 0 && !hasSpilledWork()) {
       setEOS();
       return;
     }
 
     // EOS could be used as an EOI
-    if ((childrenEOI[0] || left.eos()) && (childrenEOI[1] || right.eos()) && ans.numTuples() == 0) {
+    if ((childrenEOI[0] || left.eos()) && (childrenEOI[1] || rightEOS()) && ans.numTuples() == 0
+        && !hasSpilledWork()) {
       setEOI(true);
       Arrays.fill(childrenEOI, false);
     }
@@ -293,13 +414,20 @@ public final class RightHashJoin extends BinaryOperator {
    */
   private final boolean[] childrenEOI = new boolean[2];
 
+  /**
+   * @return whether the right child has no more tuples for this join.
+   */
+  private boolean rightEOS() {
+    return skipRight || getRight().eos();
+  }
+
   /**
    * Note: If this operator is ready for EOS, this function will return true since EOS is a special EOI.
    * 
    * @return whether this operator is ready to set itself EOI
    */
   private boolean isEOIReady() {
-    if ((childrenEOI[0] || getLeft().eos()) && (childrenEOI[1] || getRight().eos())) {
+    if ((childrenEOI[0] || getLeft().eos()) && (childrenEOI[1] || rightEOS())) {
       return true;
     }
     return false;
@@ -320,7 +448,7 @@ public final class RightHashJoin extends BinaryOperator {
     final Operator right = getRight();
 
     /* Drain the right child. */
-    while (!right.eos()) {
+    while (!skipRight && !right.eos()) {
       TupleBatch rightTB = right.nextReady();
       if (rightTB == null) {
         /* The right child may have realized it's EOS now. If so, we must move onto left child to avoid livelock. */
@@ -331,6 +459,17 @@ public final class RightHashJoin extends BinaryOperator {
       }
       processRightChildTB(rightTB);
     }
+    if (rightRuns != null && !rightRunsFinished) {
+      for (SpillFile run : rightRuns) {
+        run.finish();
+        spilledBytes += run.numBytes();
+      }
+      rightRunsFinished = true;
+    }
+    if (resourceManager != null && !rightHashTableCached && rightRuns == null) {
+      resourceManager.cacheJoinHashTable(getOpId(), rightHashTable);
+      rightHashTableCached = true;
+    }
 
     /* The right child is done, let's drain the left child. */
     final Operator left = getLeft();
@@ -358,6 +497,13 @@ public final class RightHashJoin extends BinaryOperator {
     }
 
     if (isEOIReady()) {
+      if (leftRuns != null) {
+        scheduleSpilledPartitions();
+      }
+      nexttb = joinSpilledPartitions();
+      if (nexttb != null) {
+        return nexttb;
+      }
       nexttb = ans.popAny();
     }
 
@@ -368,68 +514,367 @@ public final class RightHashJoin extends BinaryOperator {
   public void init(final ImmutableMap<String, Object> execEnvVars) throws DbException {
     final Operator right = getRight();
 
-    rightHashTableIndices = new IntObjectHashMap<>();
-    rightHashTable = new MutableTupleBuffer(right.getSchema());
+    rightHashTable = new JoinHashTable(right.getSchema(), rightCompareIndx);
+    hashTableBytes = 0;
+    resourceManager = null;
+    rightFromCache = false;
+    rightHashTableCached = false;
+    skipRight = false;
+    if (cacheRightHashTable && execEnvVars != null && getOpId() != null) {
+      resourceManager =
+          (LocalFragmentResourceManager) execEnvVars.get(MyriaConstants.EXEC_ENV_VAR_FRAGMENT_RESOURCE_MANAGER);
+    }
+    if (resourceManager != null) {
+      JoinHashTable cached = resourceManager.getCachedJoinHashTable(getOpId());
+      if (cached != null) {
+        rightHashTable = cached;
+        rightFromCache = true;
+        rightHashTableCached = true;
+        /* Tuples sent by other fragments must still be received, or their producers would never finish. */
+        skipRight = !receivesTuples(right);
+      }
+    }
+
+    effectiveMemoryBudget = memoryBudget;
+    if (effectiveMemoryBudget == 0 && execEnvVars != null
+        && execEnvVars.containsKey(MyriaConstants.EXEC_ENV_VAR_OPERATOR_MEMORY_BUDGET)) {
+      effectiveMemoryBudget = (Long) execEnvVars.get(MyriaConstants.EXEC_ENV_VAR_OPERATOR_MEMORY_BUDGET);
+    }
+    spillDirectory = SpillFile.getSpillDirectory(execEnvVars);
+    parallelism = Morsels.getParallelism(execEnvVars);
+    pendingPartitions = new ArrayDeque<>();
+    spilledBytes = 0;
+    spillPartitions = 0;
+    spillPasses = 0;
 
     ans = new TupleBatchBuffer(getSchema());
-    doJoin = new JoinProcedure();
   }
 
   /**
    * Process the tuples from left child.
    * 
    * @param tb TupleBatch to be processed.
+   * @throws DbException if there is an error writing spill files.
    */
-  protected void processLeftChildTB(final TupleBatch tb) {
-    doJoin.joinAgainstHashTable = rightHashTable;
-    doJoin.inputCmpColumns = leftCompareIndx;
-    doJoin.joinAgainstCmpColumns = rightCompareIndx;
-    doJoin.inputTB = tb;
+  protected void processLeftChildTB(final TupleBatch tb) throws DbException {
+    if (rightRuns != null) {
+      if (leftRuns == null) {
+        leftRuns = newRuns(getLeft().getSchema());
+      }
+      partition(tb, leftCompareIndx, 1, leftRuns);
+      return;
+    }
+    probe(tb, rightHashTable);
+  }
 
+  /**
+   * Join the tuples of the given batch from the left child with the tuples in the given hash table.
+   * 
+   * @param tb TupleBatch to be processed.
+   * @param hashTable the hash table holding tuples from the right child.
+   */
+  private void probe(final TupleBatch tb, final JoinHashTable hashTable) throws DbException {
+    final int[] hashCodes = HashUtils.hashSubRows(tb, leftCompareIndx);
+    if (Morsels.numMorsels(tb.numTuples(), parallelism) > 1) {
+      probeMorsels(tb, hashCodes, hashTable);
+      return;
+    }
     for (int row = 0; row < tb.numTuples(); ++row) {
-      final int cntHashCode = HashUtils.hashSubRow(tb, doJoin.inputCmpColumns, row);
-      IntArrayList tuplesWithHashCode = rightHashTableIndices.get(cntHashCode);
-      if (tuplesWithHashCode != null) {
-        doJoin.row = row;
-        tuplesWithHashCode.forEach(doJoin);
+      final int hashCode = hashCodes[row];
+      for (int index = hashTable.firstMatch(tb, leftCompareIndx, row, hashCode); index >= 0; index =
+          hashTable.nextMatch(index, tb, leftCompareIndx, row, hashCode)) {
+        addToAns(tb, row, hashTable, index);
       }
     }
   }
 
   /**
-   * Process the tuples from right child.
+   * Look up morsels of the given batch in the hash table in parallel, then add the matches to the answer in the order
+   * of a serial probe. The hash table is not modified while it is probed.
    * 
    * @param tb TupleBatch to be processed.
+   * @param hashCodes the hash code of the join key of each row of the batch.
+   * @param hashTable the hash table holding tuples from the right child.
+   * @throws DbException if there is an error probing a morsel.
    */
-  protected void processRightChildTB(final TupleBatch tb) {
+  private void probeMorsels(final TupleBatch tb, final int[] hashCodes, final JoinHashTable hashTable)
+      throws DbException {
+    final List<IntArrayList> morsels = Morsels.run(tb.numTuples(), parallelism, new MorselTask<IntArrayList>() {
+      @Override
+      public IntArrayList process(final int from, final int to) {
+        /* pairs of (row, index). */
+        IntArrayList matches = new IntArrayList();
+        for (int row = from; row < to; ++row) {
+          final int hashCode = hashCodes[row];
+          for (int index = hashTable.firstMatch(tb, leftCompareIndx, row, hashCode); index >= 0; index =
+              hashTable.nextMatch(index, tb, leftCompareIndx, row, hashCode)) {
+            matches.add(row);
+            matches.add(index);
+          }
+        }
+        return matches;
+      }
+    });
+    for (IntArrayList matches : morsels) {
+      for (int i = 0; i < matches.size(); i += 2) {
+        addToAns(tb, matches.get(i), hashTable, matches.get(i + 1));
+      }
+    }
+  }
 
+  /**
+   * Process the tuples from right child.
+   * 
+   * @param tb TupleBatch to be processed.
+   * @throws DbException if there is an error writing spill files.
+   */
+  protected void processRightChildTB(final TupleBatch tb) throws DbException {
+    if (rightFromCache) {
+      return;
+    }
+    if (rightRuns != null) {
+      partition(tb, rightCompareIndx, 1, rightRuns);
+      return;
+    }
+    final int[] hashCodes = HashUtils.hashSubRows(tb, rightCompareIndx);
     for (int row = 0; row < tb.numTuples(); ++row) {
-      final int cntHashCode = HashUtils.hashSubRow(tb, rightCompareIndx, row);
-      // only build hash table on two sides if none of the children is EOS
-      addToHashTable(tb, row, rightHashTable, rightHashTableIndices, cntHashCode);
+      rightHashTable.add(tb, row, hashCodes[row]);
+    }
+    if (effectiveMemoryBudget > 0) {
+      hashTableBytes +=
+          TupleUtils.estimateSize(tb) + (long) tb.numTuples() * INDEX_BYTES_PER_VALUE * (1 + rightCompareIndx.length);
+      if (hashTableBytes > effectiveMemoryBudget) {
+        spillRightHashTable();
+      }
+    }
+  }
+
+  /**
+   * @param op the root of a plan.
+   * @return whether the plan contains a {@link Consumer}, which receives tuples from other fragments.
+   */
+  private static boolean receivesTuples(final Operator op) {
+    if (op instanceof Consumer) {
+      return true;
+    }
+    final Operator[] children = op.getChildren();
+    if (children != null) {
+      for (Operator child : children) {
+        if (child != null && receivesTuples(child)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Move the tuples of {@link #rightHashTable} to new partitions on disk, and partition the rest of the right child
+   * from now on.
+   * 
+   * @throws DbException if there is an error writing spill files.
+   */
+  private void spillRightHashTable() throws DbException {
+    rightRuns = newRuns(getRight().getSchema());
+    for (TupleBatch tb : rightHashTable.getData().getAll()) {
+      partition(tb, rightCompareIndx, 1, rightRuns);
+    }
+    rightHashTable = null;
+    hashTableBytes = 0;
+    ++spillPasses;
+  }
+
+  /**
+   * Close the partitions of the left child received since the last EOI and schedule each of them to be joined with the
+   * corresponding partition of the right child.
+   * 
+   * @throws DbException if there is an error writing spill files.
+   */
+  private void scheduleSpilledPartitions() throws DbException {
+    for (int i = 0; i < SPILL_FANOUT; ++i) {
+      leftRuns[i].finish();
+      spilledBytes += leftRuns[i].numBytes();
+      if (leftRuns[i].numTuples() > 0 && rightRuns[i].numTuples() > 0) {
+        /* The right partitions are kept for the next EOI. */
+        pendingPartitions.add(new SpilledPartition(rightRuns[i], false, leftRuns[i], 1));
+      } else {
+        leftRuns[i].delete();
+      }
+    }
+    leftRuns = null;
+  }
+
+  /**
+   * Join the pending spilled partitions, until a batch of results is ready or there are no partitions left.
+   * 
+   * @return a batch of results, or null if all pending partitions have been joined.
+   * @throws DbException if there is an error reading or writing spill files.
+   */
+  private TupleBatch joinSpilledPartitions() throws DbException {
+    while (true) {
+      if (currentPartition != null) {
+        TupleBatch tb = partitionProbe.next();
+        if (tb != null) {
+          probe(tb, partitionHashTable);
+          TupleBatch nexttb = ans.popAnyUsingTimeout();
+          if (nexttb != null) {
+            return nexttb;
+          }
+          continue;
+        }
+        try {
+          partitionProbe.close();
+        } catch (IOException e) {
+          throw new DbException(e);
+        }
+        currentPartition.delete();
+        currentPartition = null;
+        partitionProbe = null;
+        partitionHashTable = null;
+      }
+
+      SpilledPartition partition = pendingPartitions.poll();
+      if (partition == null) {
+        return null;
+      }
+      ++spillPartitions;
+      if (partition.right.numBytes() > effectiveMemoryBudget && partition.depth + 1 < HashUtils.NUM_OF_HASHFUNCTIONS) {
+        repartition(partition);
+        continue;
+      }
+      /*
+       * Either the partition fits, or it has been split with every available hash function, which means that it is
+       * dominated by a few keys that no partitioning can separate.
+       */
+      partitionHashTable = new JoinHashTable(getRight().getSchema(), rightCompareIndx);
+      try (SpillFile.Reader reader = partition.right.openReader()) {
+        TupleBatch tb;
+        while ((tb = reader.next()) != null) {
+          final int[] hashCodes = HashUtils.hashSubRows(tb, rightCompareIndx);
+          for (int row = 0; row < tb.numTuples(); ++row) {
+            partitionHashTable.add(tb, row, hashCodes[row]);
+          }
+        }
+      } catch (IOException e) {
+        throw new DbException(e);
+      }
+      partitionProbe = partition.left.openReader();
+      currentPartition = partition;
+    }
+  }
+
+  /**
+   * Split a spilled partition that is too large into smaller ones using the next hash function, and schedule them to be
+   * joined before the other pending partitions.
+   * 
+   * @param partition the partition to split.
+   * @throws DbException if there is an error reading or writing spill files.
+   */
+  private void repartition(final SpilledPartition partition) throws DbException {
+    final int depth = partition.depth + 1;
+    final SpillFile[] rights = split(partition.right, rightCompareIndx, depth);
+    final SpillFile[] lefts = split(partition.left, leftCompareIndx, depth);
+    partition.delete();
+    for (int i = SPILL_FANOUT - 1; i >= 0; --i) {
+      spilledBytes += rights[i].numBytes() + lefts[i].numBytes();
+      if (rights[i].numTuples() > 0 && lefts[i].numTuples() > 0) {
+        pendingPartitions.addFirst(new SpilledPartition(rights[i], true, lefts[i], depth));
+      } else {
+        rights[i].delete();
+        lefts[i].delete();
+      }
+    }
+    ++spillPasses;
+  }
+
+  /**
+   * @param run a finished spill file.
+   * @param keyColumns the join key columns of the tuples in the file.
+   * @param depth the partitioning pass, which selects the hash function.
+   * @return the finished partitions of the tuples in the file.
+   * @throws DbException if there is an error reading or writing spill files.
+   */
+  private SpillFile[] split(final SpillFile run, final int[] keyColumns, final int depth) throws DbException {
+    final SpillFile[] runs = newRuns(run.getSchema());
+    try (SpillFile.Reader reader = run.openReader()) {
+      TupleBatch tb;
+      while ((tb = reader.next()) != null) {
+        partition(tb, keyColumns, depth, runs);
+      }
+    } catch (IOException e) {
+      throw new DbException(e);
+    }
+    for (SpillFile r : runs) {
+      r.finish();
     }
+    return runs;
+  }
 
+  /**
+   * @param schema the schema of the tuples to be partitioned.
+   * @return {@link #SPILL_FANOUT} new, empty spill files.
+   * @throws DbException if the files cannot be created.
+   */
+  private SpillFile[] newRuns(final Schema schema) throws DbException {
+    final SpillFile[] runs = new SpillFile[SPILL_FANOUT];
+    for (int i = 0; i < SPILL_FANOUT; ++i) {
+      runs[i] = new SpillFile(schema, spillDirectory);
+    }
+    return runs;
   }
 
   /**
-   * @param tb the source TupleBatch
-   * @param row the row number to get added to hash table
-   * @param hashTable the target hash table
-   * @param hashTable1IndicesLocal hash table 1 indices local
-   * @param hashCode the hashCode of the tb.
-   * */
-  private void addToHashTable(final TupleBatch tb, final int row, final MutableTupleBuffer hashTable,
-      final IntObjectHashMap<IntArrayList> hashTable1IndicesLocal, final int hashCode) {
-    final int nextIndex = hashTable.numTuples();
-    IntArrayList tupleIndicesList = hashTable1IndicesLocal.get(hashCode);
-    if (tupleIndicesList == null) {
-      tupleIndicesList = new IntArrayList(1);
-      hashTable1IndicesLocal.put(hashCode, tupleIndicesList);
+   * Append each tuple of the given batch to one of the given spill files, based on the hash of its join key.
+   * 
+   * @param tb the tuples to be partitioned.
+   * @param keyColumns the join key columns of the tuples.
+   * @param depth the partitioning pass, which selects the hash function. Pass 0 is reserved for the hash tables.
+   * @param runs the partitions.
+   * @throws DbException if there is an error writing spill files.
+   */
+  private static void partition(final TupleBatch tb, final int[] keyColumns, final int depth, final SpillFile[] runs)
+      throws DbException {
+    final int[] hashCodes = new int[tb.numTuples()];
+    HashUtils.hashSubRows(tb, keyColumns, depth, hashCodes);
+    for (int row = 0; row < hashCodes.length; ++row) {
+      runs[hashCodes[row] & (SPILL_FANOUT - 1)].put(tb, row);
     }
-    tupleIndicesList.add(nextIndex);
-    List<? extends Column<?>> inputColumns = tb.getDataColumns();
-    for (int column = 0; column < tb.numColumns(); column++) {
-      hashTable.put(column, inputColumns.get(column), row);
+  }
+
+  /**
+   * A pair of matching spilled partitions of the right and the left child.
+   */
+  private static final class SpilledPartition {
+    /** The tuples from the right child. */
+    private final SpillFile right;
+    /** Whether {@link #right} is deleted with this partition. */
+    private final boolean ownsRight;
+    /** The tuples from the left child. */
+    private final SpillFile left;
+    /** The partitioning pass that produced this partition. */
+    private final int depth;
+
+    /**
+     * @param right the tuples from the right child.
+     * @param ownsRight whether the right tuples are deleted with this partition.
+     * @param left the tuples from the left child.
+     * @param depth the partitioning pass that produced this partition.
+     */
+    SpilledPartition(final SpillFile right, final boolean ownsRight, final SpillFile left, final int depth) {
+      this.right = right;
+      this.ownsRight = ownsRight;
+      this.left = left;
+      this.depth = depth;
+    }
+
+    /**
+     * Delete the spill files of this partition.
+     */
+    void delete() {
+      left.delete();
+      if (ownsRight) {
+        right.delete();
+      }
     }
   }
 }
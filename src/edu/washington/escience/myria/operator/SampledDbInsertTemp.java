@@ -110,9 +110,7 @@ public class SampledDbInsertTemp extends DbInsertTemp {
   @Override
   protected void childEOS() throws DbException {
     // Insert the reservoir samples.
-    for (TupleBatch tb : reservoir.getAll()) {
-      accessMethod.tupleBatchInsert(getRelationKey(), tb);
-    }
+    accessMethod.tupleBatchInsert(getRelationKey(), reservoir.getAll());
     // Insert (WorkerID, PartitionSize, PartitionSampleSize) to
     // countRelationKey.
     IntColumnBuilder wIdCol = new IntColumnBuilder();
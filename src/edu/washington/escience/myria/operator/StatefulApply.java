@@ -13,17 +13,17 @@ import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.column.Column;
-import edu.washington.escience.myria.column.builder.ColumnBuilder;
-import edu.washington.escience.myria.column.builder.ColumnFactory;
 import edu.washington.escience.myria.expression.Expression;
 import edu.washington.escience.myria.expression.evaluate.ConstantEvaluator;
+import edu.washington.escience.myria.expression.evaluate.EvaluatorCache;
 import edu.washington.escience.myria.expression.evaluate.ExpressionOperatorParameter;
 import edu.washington.escience.myria.expression.evaluate.GenericEvaluator;
-import edu.washington.escience.myria.storage.Tuple;
+import edu.washington.escience.myria.expression.evaluate.StatefulBatchEvaluator;
 import edu.washington.escience.myria.storage.TupleBatch;
 
 /**
- * Apply operator that has to be initialized and carries a state while new tuples are generated.
+ * Apply operator that has to be initialized and carries a state while new tuples are generated. The state is updated
+ * and the emit expressions are evaluated in one generated loop per batch, see {@link StatefulBatchEvaluator}.
  */
 public class StatefulApply extends Apply {
   /***/
@@ -40,14 +40,22 @@ public class StatefulApply extends Apply {
   private ImmutableList<Expression> updateExpressions;
 
   /**
-   * The states that are passed during execution.
+   * The state that is passed during execution, one array of length 1 per field, see
+   * {@link StatefulBatchEvaluator#newState(List)}.
    */
-  private Tuple state;
+  private transient Object[] state;
 
   /**
-   * Evaluators that update the {@link #state}. One evaluator for each expression in {@link #updateExpressions}.
+   * Updates the {@link #state} and evaluates the emit expressions that read the state or need compiling, in one loop
+   * per batch.
    */
-  private ArrayList<GenericEvaluator> updateEvaluators;
+  private transient StatefulBatchEvaluator statefulEvaluator;
+
+  /**
+   * For each expression in {@link #getEmitExpressions()}, its index in {@link #statefulEvaluator}, or -1 if it is a
+   * constant or a copy of an input column.
+   */
+  private transient int[] batchIndexes;
 
   /**
    * Schema of the state relation.
@@ -99,47 +107,17 @@ public class StatefulApply extends Apply {
       return null;
     }
 
-    final int numColumns = getSchema().numColumns();
+    Column<?>[] computed = statefulEvaluator.evaluate(tb, 0, tb.numTuples(), state);
 
-    List<Column<?>> output = Lists.newArrayList(new Column<?>[numColumns]);
-    List<Integer> needState = Lists.newLinkedList();
-
-    // first, generate columns that do not require state. This can often be optimized.
-    for (int columnIdx = 0; columnIdx < numColumns; columnIdx++) {
-      final GenericEvaluator evaluator = getEmitEvaluators().get(columnIdx);
-      if (!evaluator.needsState() || evaluator.isCopyFromInput()) {
-        output.set(columnIdx, evaluator.evaluateColumn(tb));
+    final List<GenericEvaluator> emitEvaluators = getEmitEvaluators();
+    List<Column<?>> output = Lists.newArrayListWithCapacity(emitEvaluators.size());
+    for (int columnIdx = 0; columnIdx < emitEvaluators.size(); columnIdx++) {
+      if (batchIndexes[columnIdx] >= 0) {
+        output.add(computed[batchIndexes[columnIdx]]);
       } else {
-        needState.add(columnIdx);
+        output.add(emitEvaluators.get(columnIdx).evaluateColumn(tb));
       }
     }
-
-    // second, build and add the columns that require state
-    List<ColumnBuilder<?>> columnBuilders = Lists.newArrayListWithCapacity(needState.size());
-    for (int builderIdx = 0; builderIdx < needState.size(); builderIdx++) {
-      columnBuilders.add(ColumnFactory.allocateColumn(getEmitEvaluators().get(needState.get(builderIdx))
-          .getOutputType()));
-    }
-
-    for (int rowIdx = 0; rowIdx < tb.numTuples(); rowIdx++) {
-      // update state
-      Tuple newState = new Tuple(getStateSchema());
-      for (int columnIdx = 0; columnIdx < stateSchema.numColumns(); columnIdx++) {
-        updateEvaluators.get(columnIdx).eval(tb, rowIdx, newState.getColumn(columnIdx), state);
-      }
-      state = newState;
-      // apply expression
-      for (int index = 0; index < needState.size(); index++) {
-        final GenericEvaluator evaluator = getEmitEvaluators().get(needState.get(index));
-        // TODO: optimize the case where the state is copied directly
-        evaluator.eval(tb, rowIdx, columnBuilders.get(index), state);
-      }
-    }
-
-    for (int builderIdx = 0; builderIdx < needState.size(); builderIdx++) {
-      output.set(needState.get(builderIdx), columnBuilders.get(builderIdx).build());
-    }
-
     return new TupleBatch(getSchema(), output);
   }
 
@@ -149,38 +127,50 @@ public class StatefulApply extends Apply {
     Preconditions.checkNotNull(getEmitExpressions());
 
     final Schema inputSchema = getChild().getSchema();
-
-    ArrayList<GenericEvaluator> evaluators = new ArrayList<>();
-    evaluators.ensureCapacity(getEmitExpressions().size());
-    for (Expression expr : getEmitExpressions()) {
-      GenericEvaluator evaluator =
-          new GenericEvaluator(expr, new ExpressionOperatorParameter(inputSchema, getStateSchema(), getNodeID()));
+    final ExpressionOperatorParameter parameters =
+        new ExpressionOperatorParameter(inputSchema, getStateSchema(), getNodeID());
+
+    /* Constants and copies of input columns are produced without evaluation, everything else in one loop. */
+    ArrayList<GenericEvaluator> evaluators = new ArrayList<>(getEmitExpressions().size());
+    List<Expression> compiled = new ArrayList<>();
+    batchIndexes = new int[getEmitExpressions().size()];
+    for (int columnIdx = 0; columnIdx < getEmitExpressions().size(); columnIdx++) {
+      Expression expr = getEmitExpressions().get(columnIdx);
+      GenericEvaluator evaluator;
+      if (expr.isConstant()) {
+        evaluator = new ConstantEvaluator(expr, parameters);
+      } else {
+        evaluator = new GenericEvaluator(expr, parameters);
+      }
       if (evaluator.needsCompiling()) {
-        evaluator.compile();
+        batchIndexes[columnIdx] = compiled.size();
+        compiled.add(expr);
+      } else {
+        batchIndexes[columnIdx] = -1;
       }
       evaluators.add(evaluator);
     }
     setEvaluators(evaluators);
 
-    updateEvaluators = new ArrayList<>();
-    updateEvaluators.ensureCapacity(updateExpressions.size());
-
-    state = new Tuple(getStateSchema());
+    statefulEvaluator = new StatefulBatchEvaluator(updateExpressions, compiled, parameters);
+    statefulEvaluator.compile();
 
-    for (int columnIdx = 0; columnIdx < getStateSchema().numColumns(); columnIdx++) {
-      Expression expr = initExpressions.get(columnIdx);
+    List<Object> initialValues = new ArrayList<>(initExpressions.size());
+    for (Expression expr : initExpressions) {
       ConstantEvaluator evaluator =
           new ConstantEvaluator(expr, new ExpressionOperatorParameter(inputSchema, getNodeID()));
-      evaluator.compile();
-      state.set(columnIdx, evaluator.eval());
+      initialValues.add(evaluator.eval());
     }
+    state = statefulEvaluator.newState(initialValues);
+  }
 
-    for (Expression expr : updateExpressions) {
-      GenericEvaluator evaluator =
-          new GenericEvaluator(expr, new ExpressionOperatorParameter(inputSchema, getStateSchema(), getNodeID()));
-      evaluator.compile();
-      updateEvaluators.add(evaluator);
+  @Override
+  public EvaluatorCache.Stats getCompileStats() {
+    EvaluatorCache.Stats stats = new EvaluatorCache.Stats();
+    if (statefulEvaluator != null) {
+      stats.add(statefulEvaluator.getCompileStats());
     }
+    return stats;
   }
 
   /**
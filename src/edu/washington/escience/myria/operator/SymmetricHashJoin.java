@@ -1,38 +1,59 @@
 package edu.washington.escience.myria.operator;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.gs.collections.api.block.procedure.primitive.IntProcedure;
-import com.gs.collections.impl.list.mutable.primitive.IntArrayList;
-import com.gs.collections.impl.map.mutable.primitive.IntObjectHashMap;
 
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.MyriaConstants;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.parallel.LocalFragmentResourceManager;
 import edu.washington.escience.myria.parallel.QueryExecutionMode;
-import edu.washington.escience.myria.storage.MutableTupleBuffer;
+import edu.washington.escience.myria.storage.JoinHashTable;
 import edu.washington.escience.myria.storage.ReadableColumn;
+import edu.washington.escience.myria.storage.SpillFile;
 import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.storage.TupleBatchBuffer;
 import edu.washington.escience.myria.storage.TupleUtils;
+import edu.washington.escience.myria.util.BloomFilter;
 import edu.washington.escience.myria.util.HashUtils;
 import edu.washington.escience.myria.util.MyriaArrayUtils;
 
 /**
  * This is an implementation of hash equal join. The same as in DupElim, this implementation does not keep the
  * references to the incoming TupleBatches in order to get better memory performance.
+ * 
+ * If a memory budget is set, either with {@link #setMemoryBudget(long)} or by the worker through
+ * {@link MyriaConstants#EXEC_ENV_VAR_OPERATOR_MEMORY_BUDGET}, and the two hash tables grow beyond it, the join stops
+ * pipelining: the tuples of both hash tables, whose matches have already been output, are partitioned on the join key
+ * into {@link SpillFile}s in {@link MyriaConstants#EXEC_ENV_VAR_SPILL_DIRECTORY}, and so are the tuples that arrive
+ * later. At each EOI, the new left tuples of each partition are joined with all the right tuples of the partition, and
+ * the older left tuples with the new right tuples, so that every match is output exactly once. Partitions that are
+ * still too large are partitioned again with a different hash function.
  */
 public final class SymmetricHashJoin extends BinaryOperator {
   /** Required for Java serialization. */
   private static final long serialVersionUID = 1L;
 
+  /** The default number of bits per key of a semi-join filter, for a false positive rate of about 2%. */
+  public static final int DEFAULT_SEMI_JOIN_BITS_PER_KEY = 8;
+
+  /** The number of partitions that each pass of spilling splits its input into. Must be a power of two. */
+  private static final int SPILL_FANOUT = 16;
+  /** Estimated memory used by the hash table index for each stored tuple and key column, in bytes. */
+  private static final int INDEX_BYTES_PER_VALUE = 8;
+
   /**
    * The names of the output columns.
    */
@@ -47,22 +68,13 @@ public final class SymmetricHashJoin extends BinaryOperator {
    */
   private final int[] rightCompareIndx;
   /**
-   * A hash table for tuples from child 1. {Hashcode -> List of tuple indices with the same hash code}
-   */
-  private transient IntObjectHashMap<IntArrayList> leftHashTableIndices;
-  /**
-   * A hash table for tuples from child 2. {Hashcode -> List of tuple indices with the same hash code}
+   * The hash table holding the valid tuples from left, keyed on the left compare columns.
    */
-  private transient IntObjectHashMap<IntArrayList> rightHashTableIndices;
-
-  /**
-   * The buffer holding the valid tuples from left.
-   */
-  private transient MutableTupleBuffer hashTable1;
+  private transient JoinHashTable hashTable1;
   /**
-   * The buffer holding the valid tuples from right.
+   * The hash table holding the valid tuples from right, keyed on the right compare columns.
    */
-  private transient MutableTupleBuffer hashTable2;
+  private transient JoinHashTable hashTable2;
   /**
    * The buffer holding the results.
    */
@@ -72,103 +84,6 @@ public final class SymmetricHashJoin extends BinaryOperator {
   /** Which columns in the right child are to be output. */
   private final int[] rightAnswerColumns;
 
-  /**
-   * Traverse through the list of tuples with the same hash code.
-   * */
-  private final class JoinProcedure implements IntProcedure {
-
-    /** serialization id. */
-    private static final long serialVersionUID = 1L;
-
-    /**
-     * Hash table.
-     * */
-    private MutableTupleBuffer joinAgainstHashTable;
-
-    /**
-     * 
-     * */
-    private int[] inputCmpColumns;
-
-    /**
-     * the columns to compare against.
-     * */
-    private int[] joinAgainstCmpColumns;
-    /**
-     * row index of the tuple.
-     * */
-    private int row;
-
-    /**
-     * input TupleBatch.
-     * */
-    private TupleBatch inputTB;
-    /**
-     * if the tuple which is comparing against the list of tuples with the same hash code is from left child.
-     * */
-    private boolean fromLeft;
-
-    @Override
-    public void value(final int index) {
-      if (TupleUtils.tupleEquals(inputTB, inputCmpColumns, row, joinAgainstHashTable, joinAgainstCmpColumns, index)) {
-
-        addToAns(inputTB, row, joinAgainstHashTable, index, fromLeft);
-      }
-    }
-  };
-
-  /**
-   * Traverse through the list of tuples with the same hash code.
-   * */
-  private final class ReplaceProcedure implements IntProcedure {
-
-    /** serialization id. */
-    private static final long serialVersionUID = 1L;
-
-    /**
-     * Hash table.
-     * */
-    private MutableTupleBuffer hashTable;
-
-    /**
-     * the columns to compare against.
-     * */
-    private int[] keyColumns;
-    /**
-     * row index of the tuple.
-     * */
-    private int row;
-
-    /**
-     * input TupleBatch.
-     * */
-    private TupleBatch inputTB;
-
-    /** if found a replacement. */
-    private boolean replaced;
-
-    @Override
-    public void value(final int index) {
-      if (TupleUtils.tupleEquals(inputTB, keyColumns, row, hashTable, keyColumns, index)) {
-        replaced = true;
-        List<? extends Column<?>> columns = inputTB.getDataColumns();
-        for (int j = 0; j < inputTB.numColumns(); ++j) {
-          hashTable.replace(j, index, columns.get(j), row);
-        }
-      }
-    }
-  };
-
-  /**
-   * Traverse through the list of tuples.
-   * */
-  private transient JoinProcedure doJoin;
-
-  /**
-   * Traverse through the list of tuples and replace old values.
-   * */
-  private transient ReplaceProcedure doReplace;
-
   /** Whether the last child polled was the left child. */
   private boolean pollLeft = false;
 
@@ -180,6 +95,54 @@ public final class SymmetricHashJoin extends BinaryOperator {
   /** if the hash table of the right child should use set semantics. */
   private boolean setSemanticsRight = false;
 
+  /** The workers of the producers of the right child, to which the semi-join filter is sent, or null if none is. */
+  private int[] semiJoinProbeWorkerIds = null;
+  /** The number of bits per key of the semi-join filter. */
+  private int semiJoinBitsPerKey;
+  /** The resource manager of the fragment, through which the semi-join filter is sent. */
+  private transient LocalFragmentResourceManager resourceManager;
+  /** Whether the semi-join filter has been sent. */
+  private transient boolean semiJoinFilterSent;
+  /** The size of the semi-join filter in bytes, or -1 if it has not been built. */
+  private transient long semiJoinFilterBytes;
+  /** The expected false positive rate of the semi-join filter. */
+  private transient double semiJoinFilterFalsePositiveRate;
+
+  /** The memory budget of both hash tables in bytes, or zero to use the budget of the worker. */
+  private long memoryBudget;
+  /** The memory budget in effect, in bytes. Zero means unlimited. */
+  private transient long effectiveMemoryBudget;
+  /** The directory in which spill files are created. */
+  private transient File spillDirectory;
+  /** The estimated memory used by {@link #hashTable1}, in bytes. */
+  private transient long hashTable1Bytes;
+  /** The estimated memory used by {@link #hashTable2}, in bytes. */
+  private transient long hashTable2Bytes;
+  /** The finished partitions of the left tuples received before the last EOI, or null if the join has not spilled. */
+  private transient List<List<SpillFile>> leftSpilledRuns;
+  /** The finished partitions of the right tuples received before the last EOI, or null if the join has not spilled. */
+  private transient List<List<SpillFile>> rightSpilledRuns;
+  /** The partitions of the left tuples received since the last EOI, or null if there are none. */
+  private transient SpillFile[] leftRuns;
+  /** The partitions of the right tuples received since the last EOI, or null if there are none. */
+  private transient SpillFile[] rightRuns;
+  /** The spilled partitions that remain to be joined. */
+  private transient Deque<SpilledPartition> pendingPartitions;
+  /** The spilled partition currently being joined, or null. */
+  private transient SpilledPartition currentPartition;
+  /** The hash table holding the right side of {@link #currentPartition}. */
+  private transient JoinHashTable partitionHashTable;
+  /** The reader over the current left file of {@link #currentPartition}. */
+  private transient SpillFile.Reader partitionProbe;
+  /** The index of the current left file of {@link #currentPartition}. */
+  private transient int partitionProbeFile;
+  /** The number of bytes written to spill files. */
+  private transient long spilledBytes;
+  /** The number of spilled partitions that were joined or partitioned again. */
+  private transient long spillPartitions;
+  /** The number of partitioning passes over spilled data. */
+  private transient long spillPasses;
+
   /**
    * Construct an EquiJoin operator. It returns all columns from both children when the corresponding columns in
    * compareIndx1 and compareIndx2 match.
@@ -328,6 +291,38 @@ public final class SymmetricHashJoin extends BinaryOperator {
     return ret;
   }
 
+  /**
+   * Set the memory budget of the hash tables built on both children. If it is exceeded, the join spills to disk. A join
+   * that uses set semantics on either child never spills.
+   * 
+   * @param memoryBudget the memory budget in bytes, or zero to use the default budget of the worker.
+   */
+  public void setMemoryBudget(final long memoryBudget) {
+    Preconditions.checkArgument(memoryBudget >= 0, "memory budget must be non-negative: %s", memoryBudget);
+    this.memoryBudget = memoryBudget;
+  }
+
+  /**
+   * @return the number of bytes that this join has written to spill files.
+   */
+  public long getSpilledBytes() {
+    return spilledBytes;
+  }
+
+  /**
+   * @return the number of spilled partitions that this join has processed.
+   */
+  public long getSpillPartitions() {
+    return spillPartitions;
+  }
+
+  /**
+   * @return the number of partitioning passes that this join has made over spilled data.
+   */
+  public long getSpillPasses() {
+    return spillPasses;
+  }
+
   @Override
   protected Schema generateSchema() {
     final Schema leftSchema = getLeft().getSchema();
@@ -376,7 +371,7 @@ public final class SymmetricHashJoin extends BinaryOperator {
    * @param index the index of hashTable, which the cntTuple is to join with
    * @param fromLeft if the tuple is from child 1
    */
-  protected void addToAns(final TupleBatch cntTB, final int row, final MutableTupleBuffer hashTable, final int index,
+  protected void addToAns(final TupleBatch cntTB, final int row, final JoinHashTable hashTable, final int index,
       final boolean fromLeft) {
     List<? extends Column<?>> tbColumns = cntTB.getDataColumns();
     ReadableColumn[] hashTblColumns = hashTable.getColumns(index);
@@ -403,9 +398,77 @@ public final class SymmetricHashJoin extends BinaryOperator {
 
   @Override
   protected void cleanup() throws DbException {
+    if (partitionProbe != null) {
+      try {
+        partitionProbe.close();
+      } catch (IOException e) {
+        throw new DbException(e);
+      } finally {
+        partitionProbe = null;
+      }
+    }
+    deleteRuns(leftRuns);
+    deleteRuns(rightRuns);
+    deleteSpilledRuns(leftSpilledRuns);
+    deleteSpilledRuns(rightSpilledRuns);
+    if (currentPartition != null) {
+      currentPartition.delete();
+    }
+    if (pendingPartitions != null) {
+      for (SpilledPartition partition : pendingPartitions) {
+        partition.delete();
+      }
+    }
+    leftRuns = null;
+    rightRuns = null;
+    leftSpilledRuns = null;
+    rightSpilledRuns = null;
+    currentPartition = null;
+    pendingPartitions = null;
+    partitionHashTable = null;
     hashTable1 = null;
     hashTable2 = null;
+    resourceManager = null;
     ans = null;
+    if (spillPasses > 0) {
+      /* Spilling is rare and expensive, so log it even if the resources of the query are not sampled. */
+      recordResource("spilledBytes", spilledBytes);
+      recordResource("spillPartitions", spillPartitions);
+      recordResource("spillPasses", spillPasses);
+    }
+  }
+
+  /**
+   * @param runs spill files to delete, or null.
+   */
+  private static void deleteRuns(final SpillFile[] runs) {
+    if (runs == null) {
+      return;
+    }
+    for (SpillFile run : runs) {
+      run.delete();
+    }
+  }
+
+  /**
+   * @param spilledRuns the finished spill files of each partition to delete, or null.
+   */
+  private static void deleteSpilledRuns(final List<List<SpillFile>> spilledRuns) {
+    if (spilledRuns == null) {
+      return;
+    }
+    for (List<SpillFile> runs : spilledRuns) {
+      for (SpillFile run : runs) {
+        run.delete();
+      }
+    }
+  }
+
+  /**
+   * @return whether there are spilled tuples that have not been joined yet.
+   */
+  private boolean hasSpilledWork() {
+    return leftRuns != null || currentPartition != null || (pendingPartitions != null && !pendingPartitions.isEmpty());
   }
 
   /**
@@ -448,6 +511,9 @@ public final class SymmetricHashJoin extends BinaryOperator {
         break;
       }
     }
+    if (nexttb == null && isEOIReady()) {
+      nexttb = joinSpilledRound();
+    }
     if (nexttb == null) {
       nexttb = ans.popAny();
     }
@@ -459,13 +525,14 @@ public final class SymmetricHashJoin extends BinaryOperator {
     final Operator left = getLeft();
     final Operator right = getRight();
 
-    if (left.eos() && right.eos() && ans.numTuples() == 0) {
+    if (left.eos() && right.eos() && ans.numTuples() == 0 && !hasSpilledWork()) {
       setEOS();
       return;
     }
 
     // EOS could be used as an EOI
-    if ((childrenEOI[0] || left.eos()) && (childrenEOI[1] || right.eos()) && ans.numTuples() == 0) {
+    if ((childrenEOI[0] || left.eos()) && (childrenEOI[1] || right.eos()) && ans.numTuples() == 0
+        && !hasSpilledWork()) {
       setEOI(true);
       Arrays.fill(childrenEOI, false);
     }
@@ -507,8 +574,67 @@ public final class SymmetricHashJoin extends BinaryOperator {
     return false;
   }
 
+  /**
+   * Send a semi-join filter of the keys of the left child to the producers of the right child, so that they drop the
+   * right tuples that cannot match. The filter is built once the left child is EOS. Must be called before the operator
+   * is initialized.
+   * 
+   * @param probeWorkerIds the workers of the producers of the right child.
+   * @param bitsPerKey the number of bits per key of the filter.
+   */
+  public void setSemiJoinFilter(final int[] probeWorkerIds, final int bitsPerKey) {
+    Preconditions.checkNotNull(probeWorkerIds, "probeWorkerIds");
+    Preconditions.checkArgument(bitsPerKey > 0, "bitsPerKey must be positive");
+    semiJoinProbeWorkerIds = probeWorkerIds.clone();
+    semiJoinBitsPerKey = bitsPerKey;
+  }
+
+  /**
+   * @return whether this join sends a semi-join filter to the producers of its right child.
+   */
+  public boolean sendsSemiJoinFilter() {
+    return semiJoinProbeWorkerIds != null;
+  }
+
+  /**
+   * @return the size of the semi-join filter in bytes, or -1 if it has not been built.
+   */
+  public long getSemiJoinFilterBytes() {
+    return semiJoinFilterBytes;
+  }
+
+  /**
+   * @return the expected false positive rate of the semi-join filter.
+   */
+  public double getSemiJoinFilterFalsePositiveRate() {
+    return semiJoinFilterFalsePositiveRate;
+  }
+
+  /**
+   * Build and send the semi-join filter if the left child has just become EOS.
+   */
+  private void sendSemiJoinFilterIfReady() {
+    if (semiJoinProbeWorkerIds == null || semiJoinFilterSent || !getLeft().eos()) {
+      return;
+    }
+    semiJoinFilterSent = true;
+    if (hashTable1 == null || resourceManager == null) {
+      /* The right child is done too, so nothing is left to filter, or the left keys have been spilled. */
+      return;
+    }
+    int numTuples = hashTable1.numTuples();
+    BloomFilter filter = BloomFilter.create(numTuples, semiJoinBitsPerKey);
+    for (int index = 0; index < numTuples; ++index) {
+      filter.add(hashTable1.getHashCode(index));
+    }
+    semiJoinFilterBytes = filter.getSizeInBytes();
+    semiJoinFilterFalsePositiveRate = filter.getExpectedFalsePositiveRate(numTuples);
+    resourceManager.sendSemiJoinFilter(getOpId(), semiJoinProbeWorkerIds, filter);
+  }
+
   @Override
   protected TupleBatch fetchNextReady() throws DbException {
+    sendSemiJoinFilterIfReady();
     if (!nonBlocking) {
       return fetchNextReadySynchronousEOI();
     }
@@ -530,7 +656,10 @@ public final class SymmetricHashJoin extends BinaryOperator {
      * set EOS or EOI.
      */
     if (isEOIReady()) {
-      nexttb = ans.popAny();
+      nexttb = joinSpilledRound();
+      if (nexttb == null) {
+        nexttb = ans.popAny();
+      }
       if (nexttb == null) {
         checkEOSAndEOI();
       }
@@ -574,6 +703,7 @@ public final class SymmetricHashJoin extends BinaryOperator {
           break;
         }
       } else {
+        sendSemiJoinFilterIfReady();
         if ((pollLeft && order.equals(JoinPullOrder.LEFT_EOS)) || (!pollLeft && order.equals(JoinPullOrder.RIGHT_EOS))) {
           if (!current.eos()) {
             break;
@@ -590,7 +720,10 @@ public final class SymmetricHashJoin extends BinaryOperator {
      * and/or EOS
      */
     if (isEOIReady()) {
-      nexttb = ans.popAny();
+      nexttb = joinSpilledRound();
+      if (nexttb == null) {
+        nexttb = ans.popAny();
+      }
       if (nexttb == null) {
         checkEOSAndEOI();
       }
@@ -602,18 +735,38 @@ public final class SymmetricHashJoin extends BinaryOperator {
   public void init(final ImmutableMap<String, Object> execEnvVars) throws DbException {
     final Operator left = getLeft();
     final Operator right = getRight();
-    leftHashTableIndices = new IntObjectHashMap<IntArrayList>();
-    rightHashTableIndices = new IntObjectHashMap<IntArrayList>();
-
-    hashTable1 = new MutableTupleBuffer(left.getSchema());
-    hashTable2 = new MutableTupleBuffer(right.getSchema());
+    hashTable1 = new JoinHashTable(left.getSchema(), leftCompareIndx);
+    hashTable2 = new JoinHashTable(right.getSchema(), rightCompareIndx);
 
     ans = new TupleBatchBuffer(getSchema());
+    semiJoinFilterSent = false;
+    semiJoinFilterBytes = -1;
+    semiJoinFilterFalsePositiveRate = 0;
+    resourceManager = null;
+    if (semiJoinProbeWorkerIds != null && execEnvVars != null && getOpId() != null) {
+      resourceManager =
+          (LocalFragmentResourceManager) execEnvVars.get(MyriaConstants.EXEC_ENV_VAR_FRAGMENT_RESOURCE_MANAGER);
+    }
+
+    effectiveMemoryBudget = memoryBudget;
+    if (effectiveMemoryBudget == 0 && execEnvVars != null
+        && execEnvVars.containsKey(MyriaConstants.EXEC_ENV_VAR_OPERATOR_MEMORY_BUDGET)) {
+      effectiveMemoryBudget = (Long) execEnvVars.get(MyriaConstants.EXEC_ENV_VAR_OPERATOR_MEMORY_BUDGET);
+    }
+    if (setSemanticsLeft || setSemanticsRight) {
+      /* Replacing a tuple would need the tuples it replaced to be removed from the spilled partitions. */
+      effectiveMemoryBudget = 0;
+    }
+    spillDirectory = SpillFile.getSpillDirectory(execEnvVars);
+    hashTable1Bytes = 0;
+    hashTable2Bytes = 0;
+    pendingPartitions = new ArrayDeque<>();
+    spilledBytes = 0;
+    spillPartitions = 0;
+    spillPasses = 0;
 
     nonBlocking =
         (QueryExecutionMode) execEnvVars.get(MyriaConstants.EXEC_ENV_VAR_EXECUTION_MODE) == QueryExecutionMode.NON_BLOCKING;
-    doJoin = new JoinProcedure();
-    doReplace = new ReplaceProcedure();
   }
 
   /**
@@ -624,72 +777,395 @@ public final class SymmetricHashJoin extends BinaryOperator {
   /**
    * @param tb the incoming TupleBatch for processing join.
    * @param fromLeft if the tb is from left.
+   * @throws DbException if there is an error writing spill files.
    */
-  protected void processChildTB(final TupleBatch tb, final boolean fromLeft) {
+  protected void processChildTB(final TupleBatch tb, final boolean fromLeft) throws DbException {
     final Operator left = getLeft();
     final Operator right = getRight();
 
-    if (left.eos() && rightHashTableIndices != null) {
+    if (leftSpilledRuns != null) {
+      if (leftRuns == null) {
+        leftRuns = newRuns(left.getSchema());
+        rightRuns = newRuns(right.getSchema());
+      }
+      if (fromLeft) {
+        partition(tb, leftCompareIndx, 1, leftRuns);
+      } else {
+        partition(tb, rightCompareIndx, 1, rightRuns);
+      }
+      return;
+    }
+
+    if (left.eos() && hashTable2 != null) {
       /*
        * delete right child's hash table if the left child is EOS, since there will be no incoming tuples from right as
        * it will never be probed again.
        */
-      rightHashTableIndices = null;
       hashTable2 = null;
+      hashTable2Bytes = 0;
     }
-    if (right.eos() && leftHashTableIndices != null) {
+    if (right.eos() && hashTable1 != null) {
       /*
        * delete left child's hash table if the right child is EOS, since there will be no incoming tuples from left as
        * it will never be probed again.
        */
-      leftHashTableIndices = null;
       hashTable1 = null;
+      hashTable1Bytes = 0;
     }
 
     final boolean useSetSemantics = fromLeft && setSemanticsLeft || !fromLeft && setSemanticsRight;
-    MutableTupleBuffer hashTable1Local = null;
-    IntObjectHashMap<IntArrayList> hashTable1IndicesLocal = null;
-    IntObjectHashMap<IntArrayList> hashTable2IndicesLocal = null;
+    final JoinHashTable buildHashTable;
+    final JoinHashTable probeHashTable;
+    final int[] inputCmpColumns;
     if (fromLeft) {
-      hashTable1Local = hashTable1;
-      doJoin.joinAgainstHashTable = hashTable2;
-      hashTable1IndicesLocal = leftHashTableIndices;
-      hashTable2IndicesLocal = rightHashTableIndices;
-      doJoin.inputCmpColumns = leftCompareIndx;
-      doJoin.joinAgainstCmpColumns = rightCompareIndx;
-      if (useSetSemantics) {
-        doReplace.hashTable = hashTable1;
-        doReplace.keyColumns = leftCompareIndx;
-      }
+      buildHashTable = hashTable1;
+      probeHashTable = hashTable2;
+      inputCmpColumns = leftCompareIndx;
     } else {
-      hashTable1Local = hashTable2;
-      doJoin.joinAgainstHashTable = hashTable1;
-      hashTable1IndicesLocal = rightHashTableIndices;
-      hashTable2IndicesLocal = leftHashTableIndices;
-      doJoin.inputCmpColumns = rightCompareIndx;
-      doJoin.joinAgainstCmpColumns = leftCompareIndx;
-      if (useSetSemantics) {
-        doReplace.hashTable = hashTable2;
-        doReplace.keyColumns = rightCompareIndx;
-      }
-    }
-    doJoin.fromLeft = fromLeft;
-    doJoin.inputTB = tb;
-    if (useSetSemantics) {
-      doReplace.inputTB = tb;
+      buildHashTable = hashTable2;
+      probeHashTable = hashTable1;
+      inputCmpColumns = rightCompareIndx;
     }
 
+    final int[] hashCodes = HashUtils.hashSubRows(tb, inputCmpColumns);
     for (int row = 0; row < tb.numTuples(); ++row) {
-      final int cntHashCode = HashUtils.hashSubRow(tb, doJoin.inputCmpColumns, row);
-      IntArrayList tuplesWithHashCode = hashTable2IndicesLocal.get(cntHashCode);
-      if (tuplesWithHashCode != null) {
-        doJoin.row = row;
-        tuplesWithHashCode.forEach(doJoin);
+      final int hashCode = hashCodes[row];
+      for (int index = probeHashTable.firstMatch(tb, inputCmpColumns, row, hashCode); index >= 0; index =
+          probeHashTable.nextMatch(index, tb, inputCmpColumns, row, hashCode)) {
+        addToAns(tb, row, probeHashTable, index, fromLeft);
       }
 
-      if (hashTable1Local != null) {
+      if (buildHashTable != null) {
         // only build hash table on two sides if none of the children is EOS
-        addToHashTable(tb, row, hashTable1Local, hashTable1IndicesLocal, cntHashCode, useSetSemantics);
+        addToHashTable(tb, row, buildHashTable, inputCmpColumns, hashCode, useSetSemantics);
+      }
+    }
+
+    if (buildHashTable != null && effectiveMemoryBudget > 0) {
+      final long bytes =
+          TupleUtils.estimateSize(tb) + (long) tb.numTuples() * INDEX_BYTES_PER_VALUE * (1 + inputCmpColumns.length);
+      if (fromLeft) {
+        hashTable1Bytes += bytes;
+      } else {
+        hashTable2Bytes += bytes;
+      }
+      if (hashTable1Bytes + hashTable2Bytes > effectiveMemoryBudget) {
+        spillHashTables();
+      }
+    }
+  }
+
+  /**
+   * Move the tuples of both hash tables to finished partitions on disk, and partition the tuples of both children from
+   * now on. All matches among the tuples of the hash tables have already been output.
+   * 
+   * @throws DbException if there is an error writing spill files.
+   */
+  private void spillHashTables() throws DbException {
+    leftSpilledRuns = spillHashTable(hashTable1, getLeft().getSchema(), leftCompareIndx);
+    rightSpilledRuns = spillHashTable(hashTable2, getRight().getSchema(), rightCompareIndx);
+    hashTable1 = null;
+    hashTable2 = null;
+    hashTable1Bytes = 0;
+    hashTable2Bytes = 0;
+    ++spillPasses;
+  }
+
+  /**
+   * @param hashTable the hash table to spill, or null if it has been deleted.
+   * @param schema the schema of the tuples in the hash table.
+   * @param keyColumns the join key columns of the tuples.
+   * @return for each partition, a list holding the finished file of its tuples, if it has any.
+   * @throws DbException if there is an error writing spill files.
+   */
+  private List<List<SpillFile>> spillHashTable(final JoinHashTable hashTable, final Schema schema,
+      final int[] keyColumns) throws DbException {
+    final List<List<SpillFile>> spilledRuns = new ArrayList<>(SPILL_FANOUT);
+    for (int i = 0; i < SPILL_FANOUT; ++i) {
+      spilledRuns.add(new ArrayList<SpillFile>());
+    }
+    if (hashTable == null) {
+      return spilledRuns;
+    }
+    final SpillFile[] runs = newRuns(schema);
+    for (TupleBatch tb : hashTable.getData().getAll()) {
+      partition(tb, keyColumns, 1, runs);
+    }
+    for (int i = 0; i < SPILL_FANOUT; ++i) {
+      keepRun(spilledRuns.get(i), runs[i]);
+    }
+    return spilledRuns;
+  }
+
+  /**
+   * Finish a spill file, and add it to the given list if it is not empty, or delete it otherwise.
+   * 
+   * @param spilledRuns the finished files of a partition.
+   * @param run the file to be added.
+   * @throws DbException if there is an error writing the file.
+   */
+  private void keepRun(final List<SpillFile> spilledRuns, final SpillFile run) throws DbException {
+    run.finish();
+    spilledBytes += run.numBytes();
+    if (run.numTuples() > 0) {
+      spilledRuns.add(run);
+    } else {
+      run.delete();
+    }
+  }
+
+  /**
+   * If the join has spilled, join the tuples received since the last EOI with each other and with the older ones,
+   * until a batch of results is ready or all of them have been joined. Must only be called once the join is ready for
+   * EOI.
+   * 
+   * @return a batch of results, or null if all spilled tuples have been joined.
+   * @throws DbException if there is an error reading or writing spill files.
+   */
+  private TupleBatch joinSpilledRound() throws DbException {
+    if (leftRuns != null) {
+      scheduleSpilledPartitions();
+    }
+    return joinSpilledPartitions();
+  }
+
+  /**
+   * Close the partitions of both children received since the last EOI and schedule them to be joined: the new left
+   * tuples with all the right tuples, and the older left tuples with the new right tuples. The new partitions are then
+   * kept for the later rounds.
+   * 
+   * @throws DbException if there is an error writing spill files.
+   */
+  private void scheduleSpilledPartitions() throws DbException {
+    for (int i = 0; i < SPILL_FANOUT; ++i) {
+      final List<SpillFile> oldLefts = ImmutableList.copyOf(leftSpilledRuns.get(i));
+      keepRun(leftSpilledRuns.get(i), leftRuns[i]);
+      keepRun(rightSpilledRuns.get(i), rightRuns[i]);
+      if (leftRuns[i].numTuples() > 0 && !rightSpilledRuns.get(i).isEmpty()) {
+        pendingPartitions.add(new SpilledPartition(ImmutableList.copyOf(rightSpilledRuns.get(i)), ImmutableList
+            .of(leftRuns[i]), false, 1));
+      }
+      if (rightRuns[i].numTuples() > 0 && !oldLefts.isEmpty()) {
+        pendingPartitions.add(new SpilledPartition(ImmutableList.of(rightRuns[i]), oldLefts, false, 1));
+      }
+    }
+    leftRuns = null;
+    rightRuns = null;
+  }
+
+  /**
+   * Join the pending spilled partitions, until a batch of results is ready or there are no partitions left.
+   * 
+   * @return a batch of results, or null if all pending partitions have been joined.
+   * @throws DbException if there is an error reading or writing spill files.
+   */
+  private TupleBatch joinSpilledPartitions() throws DbException {
+    while (true) {
+      if (currentPartition != null) {
+        TupleBatch tb = partitionProbe.next();
+        if (tb != null) {
+          probe(tb, partitionHashTable);
+          TupleBatch nexttb = ans.popAnyUsingTimeout();
+          if (nexttb != null) {
+            return nexttb;
+          }
+          continue;
+        }
+        try {
+          partitionProbe.close();
+        } catch (IOException e) {
+          throw new DbException(e);
+        }
+        partitionProbe = null;
+        if (++partitionProbeFile < currentPartition.left.size()) {
+          partitionProbe = currentPartition.left.get(partitionProbeFile).openReader();
+          continue;
+        }
+        currentPartition.delete();
+        currentPartition = null;
+        partitionHashTable = null;
+      }
+
+      SpilledPartition partition = pendingPartitions.poll();
+      if (partition == null) {
+        return null;
+      }
+      ++spillPartitions;
+      if (partition.numRightBytes() > effectiveMemoryBudget && partition.depth + 1 < HashUtils.NUM_OF_HASHFUNCTIONS) {
+        repartition(partition);
+        continue;
+      }
+      /*
+       * Either the partition fits, or it has been split with every available hash function, which means that it is
+       * dominated by a few keys that no partitioning can separate.
+       */
+      partitionHashTable = new JoinHashTable(getRight().getSchema(), rightCompareIndx);
+      for (SpillFile run : partition.right) {
+        try (SpillFile.Reader reader = run.openReader()) {
+          TupleBatch tb;
+          while ((tb = reader.next()) != null) {
+            final int[] hashCodes = HashUtils.hashSubRows(tb, rightCompareIndx);
+            for (int row = 0; row < tb.numTuples(); ++row) {
+              partitionHashTable.add(tb, row, hashCodes[row]);
+            }
+          }
+        } catch (IOException e) {
+          throw new DbException(e);
+        }
+      }
+      partitionProbeFile = 0;
+      partitionProbe = partition.left.get(0).openReader();
+      currentPartition = partition;
+    }
+  }
+
+  /**
+   * Join the tuples of the given batch from the left child with the tuples in the given hash table.
+   * 
+   * @param tb TupleBatch to be processed.
+   * @param hashTable the hash table holding tuples from the right child.
+   */
+  private void probe(final TupleBatch tb, final JoinHashTable hashTable) {
+    final int[] hashCodes = HashUtils.hashSubRows(tb, leftCompareIndx);
+    for (int row = 0; row < tb.numTuples(); ++row) {
+      final int hashCode = hashCodes[row];
+      for (int index = hashTable.firstMatch(tb, leftCompareIndx, row, hashCode); index >= 0; index =
+          hashTable.nextMatch(index, tb, leftCompareIndx, row, hashCode)) {
+        addToAns(tb, row, hashTable, index, true);
+      }
+    }
+  }
+
+  /**
+   * Split a spilled partition that is too large into smaller ones using the next hash function, and schedule them to be
+   * joined before the other pending partitions.
+   * 
+   * @param partition the partition to split.
+   * @throws DbException if there is an error reading or writing spill files.
+   */
+  private void repartition(final SpilledPartition partition) throws DbException {
+    final int depth = partition.depth + 1;
+    final SpillFile[] rights = split(partition.right, rightCompareIndx, depth);
+    final SpillFile[] lefts = split(partition.left, leftCompareIndx, depth);
+    partition.delete();
+    for (int i = SPILL_FANOUT - 1; i >= 0; --i) {
+      spilledBytes += rights[i].numBytes() + lefts[i].numBytes();
+      if (rights[i].numTuples() > 0 && lefts[i].numTuples() > 0) {
+        pendingPartitions.addFirst(new SpilledPartition(ImmutableList.of(rights[i]), ImmutableList.of(lefts[i]), true,
+            depth));
+      } else {
+        rights[i].delete();
+        lefts[i].delete();
+      }
+    }
+    ++spillPasses;
+  }
+
+  /**
+   * @param runs finished spill files with the same schema.
+   * @param keyColumns the join key columns of the tuples in the files.
+   * @param depth the partitioning pass, which selects the hash function.
+   * @return the finished partitions of the tuples in the files.
+   * @throws DbException if there is an error reading or writing spill files.
+   */
+  private SpillFile[] split(final List<SpillFile> runs, final int[] keyColumns, final int depth) throws DbException {
+    final SpillFile[] partitions = newRuns(runs.get(0).getSchema());
+    for (SpillFile run : runs) {
+      try (SpillFile.Reader reader = run.openReader()) {
+        TupleBatch tb;
+        while ((tb = reader.next()) != null) {
+          partition(tb, keyColumns, depth, partitions);
+        }
+      } catch (IOException e) {
+        throw new DbException(e);
+      }
+    }
+    for (SpillFile p : partitions) {
+      p.finish();
+    }
+    return partitions;
+  }
+
+  /**
+   * @param schema the schema of the tuples to be partitioned.
+   * @return {@link #SPILL_FANOUT} new, empty spill files.
+   * @throws DbException if the files cannot be created.
+   */
+  private SpillFile[] newRuns(final Schema schema) throws DbException {
+    final SpillFile[] runs = new SpillFile[SPILL_FANOUT];
+    for (int i = 0; i < SPILL_FANOUT; ++i) {
+      runs[i] = new SpillFile(schema, spillDirectory);
+    }
+    return runs;
+  }
+
+  /**
+   * Append each tuple of the given batch to one of the given spill files, based on the hash of its join key.
+   * 
+   * @param tb the tuples to be partitioned.
+   * @param keyColumns the join key columns of the tuples.
+   * @param depth the partitioning pass, which selects the hash function. Pass 0 is reserved for the hash tables.
+   * @param runs the partitions.
+   * @throws DbException if there is an error writing spill files.
+   */
+  private static void partition(final TupleBatch tb, final int[] keyColumns, final int depth, final SpillFile[] runs)
+      throws DbException {
+    final int[] hashCodes = new int[tb.numTuples()];
+    HashUtils.hashSubRows(tb, keyColumns, depth, hashCodes);
+    for (int row = 0; row < hashCodes.length; ++row) {
+      runs[hashCodes[row] & (SPILL_FANOUT - 1)].put(tb, row);
+    }
+  }
+
+  /**
+   * The spilled tuples of a partition of the right and the left child that remain to be joined.
+   */
+  private static final class SpilledPartition {
+    /** The tuples from the right child. */
+    private final List<SpillFile> right;
+    /** The tuples from the left child. */
+    private final List<SpillFile> left;
+    /** Whether the files are deleted with this partition, rather than kept for the later rounds. */
+    private final boolean owned;
+    /** The partitioning pass that produced this partition. */
+    private final int depth;
+
+    /**
+     * @param right the tuples from the right child.
+     * @param left the tuples from the left child.
+     * @param owned whether the files are deleted with this partition.
+     * @param depth the partitioning pass that produced this partition.
+     */
+    SpilledPartition(final List<SpillFile> right, final List<SpillFile> left, final boolean owned, final int depth) {
+      this.right = right;
+      this.left = left;
+      this.owned = owned;
+      this.depth = depth;
+    }
+
+    /**
+     * @return the number of bytes of the tuples from the right child.
+     */
+    long numRightBytes() {
+      long bytes = 0;
+      for (SpillFile run : right) {
+        bytes += run.numBytes();
+      }
+      return bytes;
+    }
+
+    /**
+     * Delete the spill files of this partition, unless they are kept for the later rounds.
+     */
+    void delete() {
+      if (!owned) {
+        return;
+      }
+      for (SpillFile run : right) {
+        run.delete();
+      }
+      for (SpillFile run : left) {
+        run.delete();
       }
     }
   }
@@ -698,33 +1174,21 @@ public final class SymmetricHashJoin extends BinaryOperator {
    * @param tb the source TupleBatch
    * @param row the row number to get added to hash table
    * @param hashTable the target hash table
-   * @param hashTable1IndicesLocal hash table 1 indices local
+   * @param keyColumns the columns of the source TupleBatch on which the hash table is keyed
    * @param hashCode the hashCode of the tb.
    * @param useSetSemantics if need to update the hash table using set semantics.
    * */
-  private void addToHashTable(final TupleBatch tb, final int row, final MutableTupleBuffer hashTable,
-      final IntObjectHashMap<IntArrayList> hashTable1IndicesLocal, final int hashCode, final boolean useSetSemantics) {
-
-    final int nextIndex = hashTable.numTuples();
-    IntArrayList tupleIndicesList = hashTable1IndicesLocal.get(hashCode);
-    if (tupleIndicesList == null) {
-      tupleIndicesList = new IntArrayList(1);
-      hashTable1IndicesLocal.put(hashCode, tupleIndicesList);
-    }
-
-    doReplace.replaced = false;
+  private void addToHashTable(final TupleBatch tb, final int row, final JoinHashTable hashTable,
+      final int[] keyColumns, final int hashCode, final boolean useSetSemantics) {
     if (useSetSemantics) {
-      doReplace.row = row;
-      tupleIndicesList.forEach(doReplace);
-    }
-    if (!doReplace.replaced) {
-      /* not using set semantics || using set semantics but found nothing to replace (i.e. new) */
-      tupleIndicesList.add(nextIndex);
-      List<? extends Column<?>> inputColumns = tb.getDataColumns();
-      for (int column = 0; column < tb.numColumns(); column++) {
-        hashTable.put(column, inputColumns.get(column), row);
+      final int index = hashTable.firstMatch(tb, keyColumns, row, hashCode);
+      if (index >= 0) {
+        hashTable.replace(index, tb, row);
+        return;
       }
     }
+    /* not using set semantics || using set semantics but found nothing to replace (i.e. new) */
+    hashTable.add(tb, row, hashCode);
   }
 
   /**
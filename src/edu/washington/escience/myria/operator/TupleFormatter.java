@@ -0,0 +1,118 @@
+package edu.washington.escience.myria.operator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Objects;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.CsvTupleWriter;
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.JsonTupleWriter;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.TextChunkTupleWriter;
+import edu.washington.escience.myria.TupleWriter;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.builder.StringColumnBuilder;
+import edu.washington.escience.myria.storage.TupleBatch;
+
+/**
+ * TupleFormatter serializes each batch of tuples from its child to text, so that the formatting of a download is done
+ * in parallel on the workers rather than at the master. Every non-empty batch becomes a single tuple of
+ * {@link #CHUNK_SCHEMA}, and a {@link TextChunkTupleWriter} at the master concatenates the chunks into the downloaded
+ * file.
+ *
+ * For CSV and TSV, a chunk holds the records of the batch without a header. For JSON, a chunk holds the objects of the
+ * batch separated by commas, without the enclosing brackets.
+ */
+public final class TupleFormatter extends UnaryOperator {
+
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+
+  /** The schema of the formatted output. */
+  public static final Schema CHUNK_SCHEMA = Schema.ofFields("chunk", Type.STRING_TYPE);
+
+  /** The text format, one of "csv", "tsv", and "json". */
+  private final String format;
+
+  /**
+   * @param format the text format, one of "csv", "tsv", and "json".
+   * @param child the source of tuples to be formatted.
+   */
+  public TupleFormatter(final String format, final Operator child) {
+    super(child);
+    this.format = Objects.requireNonNull(format, "format");
+    Preconditions.checkArgument(isSupported(format), "format must be 'csv', 'tsv', or 'json'");
+  }
+
+  /**
+   * @param format a format name.
+   * @return true if tuples can be formatted in the specified format.
+   */
+  public static boolean isSupported(final String format) {
+    return format.equals("csv") || format.equals("tsv") || format.equals("json");
+  }
+
+  /**
+   * @return the text format, one of "csv", "tsv", and "json".
+   */
+  public String getFormat() {
+    return format;
+  }
+
+  /**
+   * @param tuples the tuples to be formatted.
+   * @return the formatted tuples.
+   * @throws IOException if there is an error formatting the tuples.
+   */
+  private String formatTuples(final TupleBatch tuples) throws IOException {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    TupleWriter writer;
+    switch (format) {
+      case "csv":
+        writer = new CsvTupleWriter(buffer);
+        break;
+      case "tsv":
+        writer = new CsvTupleWriter('\t', buffer);
+        break;
+      default:
+        writer = new JsonTupleWriter(buffer);
+        /* The JSON writer needs the column names, and opens the list with a '['. */
+        writer.writeColumnHeaders(tuples.getSchema().getColumnNames());
+        break;
+    }
+    writer.writeTuples(tuples);
+    writer.done();
+    String text = buffer.toString();
+    if (format.equals("json")) {
+      /* Strip the enclosing '[' and ']'. */
+      return text.substring(1, text.length() - 1);
+    }
+    return text;
+  }
+
+  @Override
+  protected TupleBatch fetchNextReady() throws DbException {
+    Operator child = getChild();
+    for (TupleBatch tb = child.nextReady(); tb != null; tb = child.nextReady()) {
+      if (tb.numTuples() == 0) {
+        continue;
+      }
+      String chunk;
+      try {
+        chunk = formatTuples(tb);
+      } catch (IOException e) {
+        throw new DbException(e);
+      }
+      return new TupleBatch(CHUNK_SCHEMA, ImmutableList.of(new StringColumnBuilder().appendString(chunk).build()));
+    }
+    return null;
+  }
+
+  @Override
+  public Schema generateSchema() {
+    return CHUNK_SCHEMA;
+  }
+}
@@ -92,6 +92,34 @@ public final class AggUtils {
     return aggregators;
   }
 
+  /**
+   * Allocate a set of {@link GroupedAggregator}s from the factories. Aggregates over numeric columns and COUNT(*) keep
+   * their states in primitive arrays; all others keep one state object per group.
+   * 
+   * @param factories The factories that will produce the aggregators.
+   * @param inputSchema The schema of the input tuples.
+   * @return the grouped aggregators for this operator.
+   * @throws DbException if there is an error.
+   */
+  public static GroupedAggregator[] allocateGroupedAggs(final AggregatorFactory[] factories, final Schema inputSchema)
+      throws DbException {
+    GroupedAggregator[] aggregators = new GroupedAggregator[factories.length];
+    for (int j = 0; j < factories.length; ++j) {
+      Aggregator agg = factories[j].get(inputSchema);
+      if (agg instanceof CountAllAggregator) {
+        aggregators[j] = new PrimitiveGroupedAggregator();
+      } else if (factories[j] instanceof SingleColumnAggregatorFactory && agg instanceof PrimitiveAggregator
+          && PrimitiveGroupedAggregator.isSupported(((PrimitiveAggregator) agg).getType())) {
+        aggregators[j] =
+            new PrimitiveGroupedAggregator((PrimitiveAggregator) agg, ((SingleColumnAggregatorFactory) factories[j])
+                .getColumn());
+      } else {
+        aggregators[j] = new ObjectGroupedAggregator(agg);
+      }
+    }
+    return aggregators;
+  }
+
   /**
    * Utility class to allocate the initial aggregation states from a set of {@link Aggregator}s.
    * 
@@ -26,10 +26,8 @@ public final class Aggregate extends UnaryOperator {
 
   /** Use to create the aggregators. */
   private final AggregatorFactory[] factories;
-  /** The actual aggregators. */
-  private Aggregator[] aggregators;
-  /** The state of the aggregators. */
-  private Object[] aggregatorStates;
+  /** The actual aggregators, each of which computes a single group. */
+  private transient GroupedAggregator[] aggregators;
   /**
    * buffer for holding results.
    */
@@ -62,16 +60,16 @@ public final class Aggregate extends UnaryOperator {
     }
 
     while ((tb = child.nextReady()) != null) {
-      for (int agg = 0; agg < aggregators.length; ++agg) {
-        aggregators[agg].add(tb, aggregatorStates[agg]);
+      for (GroupedAggregator agg : aggregators) {
+        agg.addRows(tb, null, tb.numTuples(), null);
       }
     }
 
     if (child.eos()) {
       int fromIndex = 0;
-      for (int agg = 0; agg < aggregators.length; ++agg) {
-        aggregators[agg].getResult(aggBuffer, fromIndex, aggregatorStates[agg]);
-        fromIndex += aggregators[agg].getResultSchema().numColumns();
+      for (GroupedAggregator agg : aggregators) {
+        agg.getResult(aggBuffer, fromIndex, 0);
+        fromIndex += agg.getResultSchema().numColumns();
       }
       return aggBuffer.popAny();
     }
@@ -81,8 +79,10 @@ public final class Aggregate extends UnaryOperator {
   @Override
   protected void init(final ImmutableMap<String, Object> execEnvVars) throws DbException {
     Preconditions.checkState(getSchema() != null, "unable to determine schema in init");
-    aggregators = AggUtils.allocateAggs(factories, getChild().getSchema());
-    aggregatorStates = AggUtils.allocateAggStates(aggregators);
+    aggregators = AggUtils.allocateGroupedAggs(factories, getChild().getSchema());
+    for (GroupedAggregator agg : aggregators) {
+      agg.addGroups(1);
+    }
     aggBuffer = new TupleBatchBuffer(getSchema());
   }
 
@@ -0,0 +1,80 @@
+package edu.washington.escience.myria.operator.agg;
+
+import javax.annotation.Nullable;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.storage.AppendableTable;
+import edu.washington.escience.myria.storage.ReadableTable;
+
+/**
+ * Computes an aggregate for many groups at once. Groups are identified by dense ids 0, 1, ..., in the order in which
+ * they were created, so that implementations can keep the state of all groups in arrays indexed by group id.
+ * 
+ * @see AggUtils#allocateGroupedAggs(AggregatorFactory[], Schema)
+ */
+public interface GroupedAggregator {
+
+  /**
+   * Create the specified number of new groups, which have not seen any row yet. Their ids are {@link #numGroups()},
+   * {@link #numGroups()} + 1, ...
+   * 
+   * @param count the number of new groups.
+   */
+  void addGroups(int count);
+
+  /**
+   * Update the specified group using the specified row of the specified table.
+   * 
+   * @param from the source {@link ReadableTable}.
+   * @param row the specified row.
+   * @param group the id of the group.
+   * @throws DbException if there is an error.
+   */
+  void addRow(ReadableTable from, int row, int group) throws DbException;
+
+  /**
+   * Update many groups using many rows of the specified table at once. The {@code i}-th aggregated row is
+   * {@code selection[i]}, or {@code i} if there is no selection vector, and it belongs to the group
+   * {@code groups[i]}, or to group 0 if there is no group-id vector.
+   * 
+   * @param from the source {@link ReadableTable}.
+   * @param selection the rows to aggregate, or null to aggregate rows {@code 0} to {@code numRows - 1}.
+   * @param numRows the number of rows to aggregate.
+   * @param groups the id of the group of each aggregated row, or null if all rows belong to group 0.
+   * @throws DbException if there is an error.
+   */
+  void addRows(ReadableTable from, @Nullable int[] selection, int numRows, @Nullable int[] groups) throws DbException;
+
+  /**
+   * Append the aggregate result(s) of the specified group to the given table starting from the given column.
+   * 
+   * @param dest where to store the aggregate result.
+   * @param destColumn the starting index into which aggregates will be output.
+   * @param group the id of the group.
+   * @throws DbException if there is an error.
+   */
+  void getResult(AppendableTable dest, int destColumn, int group) throws DbException;
+
+  /**
+   * @return the number of groups.
+   */
+  int numGroups();
+
+  /**
+   * Remove all the groups.
+   */
+  void clear();
+
+  /**
+   * @return the estimated memory used by the state of one group, in bytes.
+   */
+  int bytesPerGroup();
+
+  /**
+   * Compute and return the schema of the outputs of this {@link GroupedAggregator}.
+   * 
+   * @return the schema of the outputs of this {@link GroupedAggregator}.
+   */
+  Schema getResultSchema();
+}
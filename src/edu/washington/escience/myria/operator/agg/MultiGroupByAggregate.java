@@ -1,6 +1,9 @@
 package edu.washington.escience.myria.operator.agg;
 
-import java.util.ArrayList;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Objects;
 
@@ -9,25 +12,39 @@ import javax.annotation.Nullable;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Lists;
-import com.gs.collections.impl.list.mutable.primitive.IntArrayList;
-import com.gs.collections.impl.map.mutable.primitive.IntObjectHashMap;
 
 import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.MyriaConstants;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.column.Column;
 import edu.washington.escience.myria.operator.Operator;
 import edu.washington.escience.myria.operator.UnaryOperator;
+import edu.washington.escience.myria.operator.agg.PrimitiveAggregator.AggregationOp;
+import edu.washington.escience.myria.storage.JoinHashTable;
+import edu.washington.escience.myria.storage.SpillFile;
 import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.storage.TupleBatchBuffer;
-import edu.washington.escience.myria.storage.TupleBuffer;
 import edu.washington.escience.myria.storage.TupleUtils;
 import edu.washington.escience.myria.util.HashUtils;
 
 /**
  * The Aggregation operator that computes an aggregate (e.g., sum, avg, max, min). This variant supports aggregates over
  * multiple columns, group by multiple columns.
+ *
+ * The distinct group keys are stored in a {@link JoinHashTable}, and the index of a key in the table is the id of its
+ * group in the {@link GroupedAggregator}s, which keep the aggregation states of all groups in arrays.
+ *
+ * Two optional modes bound the memory used by the groups:
+ * <ul>
+ * <li>With {@link #setPreAggregation(int)}, the operator computes partial aggregates, e.g., before a shuffle. Whenever
+ * the table holds the given number of groups, or exceeds the memory budget, the groups are output and the table is
+ * emptied, so a group may be output several times and a downstream aggregate must combine the partial results.</li>
+ * <li>Otherwise, once the groups exceed the memory budget (see {@link #setMemoryBudget(long)}), the rows of the groups
+ * already in the table keep updating them, and the rows of new groups are written to hash partitions on disk. Each
+ * partition is aggregated after the groups in memory have been output, and is partitioned again with the next hash
+ * function if it does not fit either.</li>
+ * </ul>
  * 
  * @see Aggregate
  * @see SingleGroupByAggregate
@@ -36,15 +53,13 @@ public final class MultiGroupByAggregate extends UnaryOperator {
 
   /** Java requires this. **/
   private static final long serialVersionUID = 1L;
+  /** The number of partitions that the new groups are written to when the table exceeds the memory budget. */
+  private static final int SPILL_FANOUT = 16;
+  /** Estimated memory used by the hash table entry of a group beyond its key values, in bytes. */
+  private static final int INDEX_BYTES_PER_GROUP = 12;
 
-  /** Holds the distinct grouping keys. */
-  private transient TupleBuffer groupKeys;
-  /** Final group keys. */
-  private List<TupleBatch> groupKeyList;
-  /** Holds the corresponding aggregation state for each group key in {@link #groupKeys}. */
-  private transient List<Object[]> aggStates;
-  /** Maps the hash of a grouping key to a list of indices in {@link #groupKeys}. */
-  private transient IntObjectHashMap<IntArrayList> groupKeyMap;
+  /** Holds the distinct grouping keys. The index of a key is the id of its group. */
+  private transient JoinHashTable groupKeys;
   /** The schema of the columns indicated by the group keys. */
   private Schema groupSchema;
   /** The schema of the aggregation result. */
@@ -53,12 +68,51 @@ public final class MultiGroupByAggregate extends UnaryOperator {
   /** Factories to make the Aggregators. **/
   private final AggregatorFactory[] factories;
   /** The actual Aggregators. **/
-  private Aggregator[] aggregators;
+  private transient GroupedAggregator[] aggregators;
   /** Group fields. **/
   private final int[] gfields;
   /** An array [0, 1, .., gfields.length-1] used for comparing tuples. */
   private final int[] grpRange;
 
+  /** The maximum number of groups before partial aggregates are output, or zero to compute final aggregates. */
+  private int preAggregationGroups;
+  /** The memory budget of the groups in bytes, or zero to use the budget of the worker. */
+  private long memoryBudget;
+  /** The memory budget used by this execution, or zero if the groups are unbounded. */
+  private transient long effectiveMemoryBudget;
+  /** The directory for spill files. */
+  private transient File spillDirectory;
+  /** Estimated memory used by the groups in the table, in bytes. */
+  private transient long groupBytes;
+  /** Estimated memory used by the aggregation states and the index of a group, in bytes. */
+  private transient long bytesPerGroup;
+
+  /** The rows of the current batch that update a group in memory. */
+  private transient int[] selection;
+  /** The group of each row in {@link #selection}. */
+  private transient int[] groupIds;
+  /** The partitioning pass of the rows being aggregated. Pass 0 is the input from the child. */
+  private transient int depth;
+  /** The partitions to which rows of new groups are being written, or null if the table is not full. */
+  private transient SpillFile[] spillRuns;
+  /** The partitions waiting to be aggregated. */
+  private transient Deque<SpilledRun> pendingRuns;
+  /** The batch of the child that was interrupted by a flush of partial aggregates, or null. */
+  private transient TupleBatch pendingInput;
+  /** The first row of {@link #pendingInput} that has not been aggregated yet. */
+  private transient int pendingInputRow;
+  /** The group key batches that are being output, or null if the groups are being built. */
+  private transient List<TupleBatch> resultKeys;
+  /** The next batch of {@link #resultKeys} to output. */
+  private transient int nextResultBatch;
+  /** The id of the first group in the next batch of {@link #resultKeys}. */
+  private transient int nextResultGroup;
+
+  /** The number of bytes written to spill files. */
+  private transient long spilledBytes;
+  /** The number of spilled partitions aggregated. */
+  private transient long spillPartitions;
+
   /**
    * Groups the input tuples according to the specified grouping fields, then produces the specified aggregates.
    * 
@@ -77,15 +131,97 @@ public final class MultiGroupByAggregate extends UnaryOperator {
     for (int i = 0; i < gfields.length; ++i) {
       grpRange[i] = i;
     }
-    groupKeyList = null;
+  }
+
+  /**
+   * Compute partial aggregates, which are output whenever the given number of groups is reached. The partial aggregates
+   * must be combined by a downstream aggregate, e.g., a SUM of the partial COUNTs. Only COUNT, SUM, MIN and MAX can be
+   * combined that way: AVG, STDEV and user-defined aggregates are rejected.
+   *
+   * @param maxGroups the maximum number of groups held at once, or zero to compute final aggregates.
+   */
+  public void setPreAggregation(final int maxGroups) {
+    Preconditions.checkArgument(maxGroups >= 0, "maximum number of groups must be non-negative: %s", maxGroups);
+    if (maxGroups > 0) {
+      for (AggregatorFactory factory : factories) {
+        Preconditions.checkArgument(isDecomposable(factory),
+            "pre-aggregation only supports COUNT, SUM, MIN and MAX, whose partial results can be combined: %s",
+            factory.getClass().getSimpleName());
+      }
+    }
+    preAggregationGroups = maxGroups;
+  }
+
+  /**
+   * @param factory the factory of an aggregate.
+   * @return whether partial results of the aggregate can be combined by another aggregate.
+   */
+  private static boolean isDecomposable(final AggregatorFactory factory) {
+    if (factory instanceof CountAllAggregatorFactory) {
+      return true;
+    }
+    if (!(factory instanceof SingleColumnAggregatorFactory)) {
+      return false;
+    }
+    for (AggregationOp op : ((SingleColumnAggregatorFactory) factory).getAggOps()) {
+      switch (op) {
+        case COUNT:
+        case SUM:
+        case MIN:
+        case MAX:
+          break;
+        default:
+          return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Set the memory budget of the groups. Beyond it, partial aggregates are output if pre-aggregation is enabled, and new
+   * groups are spilled to disk otherwise.
+   *
+   * @param memoryBudget the memory budget in bytes, or zero to use the default budget of the worker.
+   */
+  public void setMemoryBudget(final long memoryBudget) {
+    Preconditions.checkArgument(memoryBudget >= 0, "memory budget must be non-negative: %s", memoryBudget);
+    this.memoryBudget = memoryBudget;
+  }
+
+  /**
+   * @return the number of bytes written to spill files.
+   */
+  public long getSpilledBytes() {
+    return spilledBytes;
+  }
+
+  /**
+   * @return the number of spilled partitions aggregated.
+   */
+  public long getSpillPartitions() {
+    return spillPartitions;
   }
 
   @Override
   protected void cleanup() throws DbException {
     groupKeys = null;
-    aggStates = null;
-    groupKeyMap = null;
-    groupKeyList = null;
+    aggregators = null;
+    selection = null;
+    groupIds = null;
+    resultKeys = null;
+    pendingInput = null;
+    if (spillRuns != null) {
+      for (SpillFile run : spillRuns) {
+        run.delete();
+      }
+      spillRuns = null;
+    }
+    if (pendingRuns != null) {
+      for (SpilledRun run : pendingRuns) {
+        run.file.delete();
+      }
+      pendingRuns = null;
+    }
   }
 
   /**
@@ -100,129 +236,240 @@ public final class MultiGroupByAggregate extends UnaryOperator {
   protected TupleBatch fetchNextReady() throws DbException {
     final Operator child = getChild();
 
-    if (child.eos()) {
-      return getResultBatch();
-    }
+    while (true) {
+      if (resultKeys != null) {
+        TupleBatch result = getResultBatch();
+        if (result != null) {
+          return result;
+        }
+        resetGroups();
+      }
 
-    TupleBatch tb = child.nextReady();
-    while (tb != null) {
-      for (int row = 0; row < tb.numTuples(); ++row) {
-        int rowHash = HashUtils.hashSubRow(tb, gfields, row);
-        IntArrayList hashMatches = groupKeyMap.get(rowHash);
-        if (hashMatches == null) {
-          hashMatches = newKey(rowHash);
-          newGroup(tb, row, hashMatches);
+      if (pendingInput != null) {
+        TupleBatch tb = pendingInput;
+        pendingInput = null;
+        if (!aggregateInput(tb, pendingInputRow)) {
           continue;
         }
-        boolean found = false;
-        for (int i = 0; i < hashMatches.size(); i++) {
-          int value = hashMatches.get(i);
-          if (TupleUtils.tupleEquals(tb, gfields, row, groupKeys, grpRange, value)) {
-            updateGroup(tb, row, aggStates.get(value));
-            found = true;
+      }
+
+      if (!child.eos()) {
+        TupleBatch tb = child.nextReady();
+        boolean flushed = false;
+        while (tb != null) {
+          if (!aggregateInput(tb, 0)) {
+            flushed = true;
             break;
           }
+          tb = child.nextReady();
         }
-
-        if (!found) {
-          newGroup(tb, row, hashMatches);
+        if (flushed) {
+          continue;
+        }
+        /*
+         * We know that child.nextReady() has returned <code>null</code>, so we have processed all tuple we can. Child is
+         * either EOS or we have to wait for more data.
+         */
+        if (!child.eos()) {
+          return null;
         }
-        Preconditions.checkState(groupKeys.numTuples() == aggStates.size());
+        finishPass();
+        continue;
       }
-      tb = child.nextReady();
+
+      SpilledRun run = pendingRuns.poll();
+      if (run == null) {
+        return null;
+      }
+      aggregateSpilledRun(run);
     }
+  }
 
-    /*
-     * We know that child.nextReady() has returned <code>null</code>, so we have processed all tuple we can. Child is
-     * either EOS or we have to wait for more data.
-     */
-    if (child.eos()) {
-      return getResultBatch();
+  /**
+   * Aggregate the rows of a batch from the child, starting at the given row. If pre-aggregation is enabled and the table
+   * fills up, stops and starts outputting the groups.
+   *
+   * @param tb the batch.
+   * @param fromRow the first row to aggregate.
+   * @return true if all the rows were aggregated, false if the groups must be output first.
+   * @throws DbException if there is an error.
+   */
+  private boolean aggregateInput(final TupleBatch tb, final int fromRow) throws DbException {
+    final int row = aggregateBatch(tb, fromRow);
+    if (row < tb.numTuples()) {
+      pendingInput = tb;
+      pendingInputRow = row;
+      startResults();
+      return false;
     }
+    return true;
+  }
 
-    return null;
+  /**
+   * Aggregate all the rows of a spilled partition, and start outputting the groups.
+   *
+   * @param run the partition.
+   * @throws DbException if there is an error reading or writing spill files.
+   */
+  private void aggregateSpilledRun(final SpilledRun run) throws DbException {
+    ++spillPartitions;
+    depth = run.depth;
+    try (SpillFile.Reader reader = run.file.openReader()) {
+      TupleBatch tb;
+      while ((tb = reader.next()) != null) {
+        aggregateBatch(tb, 0);
+      }
+    } catch (IOException e) {
+      throw new DbException(e);
+    }
+    run.file.delete();
+    finishPass();
   }
 
   /**
-   * Since row <code>row</code> in {@link TupleBatch} <code>tb</code> does not appear in {@link #groupKeys}, create a
-   * new group for it.
-   * 
-   * @param tb the source {@link TupleBatch}
-   * @param row the row in <code>tb</code> that contains the new group
-   * @param hashMatches the list of all rows in the output {@link TupleBuffer}s that match this hash.
+   * Find or create the group of each row of a batch, starting at the given row, and then update the groups. If the
+   * table is full and the final aggregates are being computed, the rows of new groups are spilled instead. If
+   * pre-aggregation is enabled, stops at the first row that finds the table full.
+   *
+   * @param tb the batch.
+   * @param fromRow the first row to aggregate.
+   * @return the first row that was not aggregated, which is the number of rows in the batch unless the table filled up.
    * @throws DbException if there is an error.
    */
-  private void newGroup(final TupleBatch tb, final int row, final IntArrayList hashMatches) throws DbException {
-    int newIndex = groupKeys.numTuples();
-    for (int column = 0; column < gfields.length; ++column) {
-      TupleUtils.copyValue(tb, gfields[column], row, groupKeys, column);
+  private int aggregateBatch(final TupleBatch tb, final int fromRow) throws DbException {
+    final int numTuples = tb.numTuples();
+    if (selection.length < numTuples) {
+      selection = new int[numTuples];
+      groupIds = new int[numTuples];
+    }
+    final int[] hashCodes = HashUtils.hashSubRows(tb, gfields);
+    int[] spillHashCodes = null;
+    int numSelected = 0;
+    int numNewGroups = 0;
+    int row = fromRow;
+    for (; row < numTuples; ++row) {
+      if (preAggregationGroups > 0 && isFull()) {
+        break;
+      }
+      int group = groupKeys.firstMatch(tb, gfields, row, hashCodes[row]);
+      if (group < 0) {
+        if (spillRuns != null) {
+          if (spillHashCodes == null) {
+            spillHashCodes = new int[numTuples];
+            HashUtils.hashSubRows(tb, gfields, depth + 1, spillHashCodes);
+          }
+          spillRuns[spillHashCodes[row] & (SPILL_FANOUT - 1)].put(tb, row);
+          continue;
+        }
+        group = groupKeys.add(tb, gfields, row, hashCodes[row]);
+        ++numNewGroups;
+        if (effectiveMemoryBudget > 0) {
+          addGroupBytes(tb, row);
+        }
+      }
+      selection[numSelected] = row;
+      groupIds[numSelected] = group;
+      ++numSelected;
+    }
+    for (GroupedAggregator agg : aggregators) {
+      agg.addGroups(numNewGroups);
+      agg.addRows(tb, selection, numSelected, groupIds);
+    }
+    return row;
+  }
+
+  /**
+   * Account for the memory used by a new group, and start spilling the rows of new groups if the final aggregates are
+   * being computed and the table is full.
+   *
+   * @param tb the batch containing the first row of the group.
+   * @param row the first row of the group.
+   * @throws DbException if the spill files cannot be created.
+   */
+  private void addGroupBytes(final TupleBatch tb, final int row) throws DbException {
+    groupBytes += TupleUtils.estimateSize(tb, gfields, row) + bytesPerGroup;
+    if (preAggregationGroups == 0 && isFull() && depth + 1 < HashUtils.NUM_OF_HASHFUNCTIONS) {
+      spillRuns = new SpillFile[SPILL_FANOUT];
+      for (int i = 0; i < SPILL_FANOUT; ++i) {
+        spillRuns[i] = new SpillFile(tb.getSchema(), spillDirectory);
+      }
     }
-    hashMatches.add(newIndex);
-    Object[] curAggStates = AggUtils.allocateAggStates(aggregators);
-    aggStates.add(curAggStates);
-    updateGroup(tb, row, curAggStates);
-    Preconditions.checkState(groupKeys.numTuples() == aggStates.size(), "groupKeys %s != groupAggs %s", groupKeys
-        .numTuples(), aggStates.size());
   }
 
   /**
-   * Called when there is no list yet of which output aggregators match the specified hash. Creates a new int list to
-   * store these matches, and insert it into the {@link #groupKeyMap}.
-   * 
-   * @param groupHash the hash of the grouping columns in a tuple
-   * @return the new (empty still) int list storing which output aggregators match the specified hash
+   * @return whether the groups have reached the maximum number of groups or the memory budget.
    */
-  private IntArrayList newKey(final int groupHash) {
-    IntArrayList matches = new IntArrayList(1);
-    groupKeyMap.put(groupHash, matches);
-    return matches;
+  private boolean isFull() {
+    return (preAggregationGroups > 0 && groupKeys.numTuples() >= preAggregationGroups)
+        || (effectiveMemoryBudget > 0 && groupBytes > effectiveMemoryBudget);
   }
 
   /**
-   * Update the aggregation states with the tuples in the specified row.
-   * 
-   * @param tb the source {@link TupleBatch}
-   * @param row the row in <code>tb</code> that contains the new values
-   * @param curAggStates the aggregation states to be updated.
-   * @throws DbException if there is an error.
+   * Called when all the rows of a pass have been aggregated. Schedules the partitions spilled during the pass, and starts
+   * outputting the groups.
+   *
+   * @throws DbException if there is an error writing spill files.
    */
-  private void updateGroup(final TupleBatch tb, final int row, final Object[] curAggStates) throws DbException {
-    for (int agg = 0; agg < aggregators.length; ++agg) {
-      aggregators[agg].addRow(tb, row, curAggStates[agg]);
+  private void finishPass() throws DbException {
+    if (spillRuns != null) {
+      for (int i = SPILL_FANOUT - 1; i >= 0; --i) {
+        spillRuns[i].finish();
+        spilledBytes += spillRuns[i].numBytes();
+        if (spillRuns[i].numTuples() > 0) {
+          pendingRuns.addFirst(new SpilledRun(spillRuns[i], depth + 1));
+        } else {
+          spillRuns[i].delete();
+        }
+      }
+      spillRuns = null;
     }
+    startResults();
   }
 
   /**
-   * @return A batch's worth of result tuples from this aggregate.
-   * @throws DbException if there is an error.
+   * Start outputting the groups in the table.
    */
-  private TupleBatch getResultBatch() throws DbException {
-    Preconditions.checkState(getChild().eos(), "cannot extract results from an aggregate until child has reached EOS");
-    if (groupKeyList == null) {
-      groupKeyList = Lists.newLinkedList(groupKeys.finalResult());
-      groupKeys = null;
+  private void startResults() {
+    resultKeys = groupKeys.getData().getAll();
+    nextResultBatch = 0;
+    nextResultGroup = 0;
+  }
+
+  /**
+   * Empty the table after its groups have been output.
+   */
+  private void resetGroups() {
+    resultKeys = null;
+    groupKeys = new JoinHashTable(groupSchema, grpRange);
+    for (GroupedAggregator agg : aggregators) {
+      agg.clear();
     }
+    groupBytes = 0;
+  }
 
-    if (groupKeyList.isEmpty()) {
+  /**
+   * @return A batch's worth of result tuples from this aggregate, or null if all the groups have been output.
+   * @throws DbException if there is an error.
+   */
+  private TupleBatch getResultBatch() throws DbException {
+    if (nextResultBatch == resultKeys.size()) {
       return null;
     }
 
-    TupleBatch curGroupKeys = groupKeyList.remove(0);
+    TupleBatch curGroupKeys = resultKeys.get(nextResultBatch++);
     TupleBatchBuffer curGroupAggs = new TupleBatchBuffer(aggSchema);
     for (int row = 0; row < curGroupKeys.numTuples(); ++row) {
-      Object[] rowAggs = aggStates.get(row);
       int curCol = 0;
-      for (int agg = 0; agg < aggregators.length; ++agg) {
-        aggregators[agg].getResult(curGroupAggs, curCol, rowAggs[agg]);
-        curCol += aggregators[agg].getResultSchema().numColumns();
+      for (GroupedAggregator agg : aggregators) {
+        agg.getResult(curGroupAggs, curCol, nextResultGroup + row);
+        curCol += agg.getResultSchema().numColumns();
       }
     }
+    nextResultGroup += curGroupKeys.numTuples();
     TupleBatch aggResults = curGroupAggs.popAny();
     Preconditions.checkState(curGroupKeys.numTuples() == aggResults.numTuples(),
         "curGroupKeys size %s != aggResults size %s", curGroupKeys.numTuples(), aggResults.numTuples());
 
-    /* Note: as of Java7 sublists of sublists do what we want -- the sublists are at most one deep. */
-    aggStates = aggStates.subList(curGroupKeys.numTuples(), aggStates.size());
     return new TupleBatch(getSchema(), ImmutableList.<Column<?>> builder().addAll(curGroupKeys.getDataColumns())
         .addAll(aggResults.getDataColumns()).build());
   }
@@ -265,9 +512,46 @@ public final class MultiGroupByAggregate extends UnaryOperator {
   @Override
   protected void init(final ImmutableMap<String, Object> execEnvVars) throws DbException {
     Preconditions.checkState(getSchema() != null, "unable to determine schema in init");
-    aggregators = AggUtils.allocateAggs(factories, getChild().getSchema());
-    groupKeys = new TupleBuffer(groupSchema);
-    aggStates = new ArrayList<>();
-    groupKeyMap = new IntObjectHashMap<>();
+    aggregators = AggUtils.allocateGroupedAggs(factories, getChild().getSchema());
+    groupKeys = new JoinHashTable(groupSchema, grpRange);
+
+    effectiveMemoryBudget = memoryBudget;
+    if (effectiveMemoryBudget == 0 && execEnvVars != null
+        && execEnvVars.containsKey(MyriaConstants.EXEC_ENV_VAR_OPERATOR_MEMORY_BUDGET)) {
+      effectiveMemoryBudget = (Long) execEnvVars.get(MyriaConstants.EXEC_ENV_VAR_OPERATOR_MEMORY_BUDGET);
+    }
+    spillDirectory = SpillFile.getSpillDirectory(execEnvVars);
+    bytesPerGroup = INDEX_BYTES_PER_GROUP + 8L * gfields.length;
+    for (GroupedAggregator agg : aggregators) {
+      bytesPerGroup += agg.bytesPerGroup();
+    }
+    groupBytes = 0;
+    selection = new int[TupleBatch.BATCH_SIZE];
+    groupIds = new int[TupleBatch.BATCH_SIZE];
+    depth = 0;
+    pendingRuns = new ArrayDeque<>();
+    resultKeys = null;
+    pendingInput = null;
+    spilledBytes = 0;
+    spillPartitions = 0;
+  }
+
+  /**
+   * A partition of rows spilled to disk.
+   */
+  private static final class SpilledRun {
+    /** The rows. */
+    private final SpillFile file;
+    /** The partitioning pass that produced this partition. */
+    private final int depth;
+
+    /**
+     * @param file the rows.
+     * @param depth the partitioning pass that produced this partition.
+     */
+    private SpilledRun(final SpillFile file, final int depth) {
+      this.file = file;
+      this.depth = depth;
+    }
   }
 };
@@ -0,0 +1,90 @@
+package edu.washington.escience.myria.operator.agg;
+
+import java.util.ArrayList;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.storage.AppendableTable;
+import edu.washington.escience.myria.storage.ReadableTable;
+
+/**
+ * A {@link GroupedAggregator} that keeps one state object per group, for {@link Aggregator}s whose state does not
+ * have a primitive representation, such as strings and user-defined aggregates.
+ */
+public final class ObjectGroupedAggregator implements GroupedAggregator {
+
+  /** Estimated memory used by a state object and its reference, in bytes. */
+  private static final int STATE_BYTES = 64;
+
+  /** The aggregator that updates the states. */
+  private final Aggregator aggregator;
+  /** The state of each group. */
+  private final ArrayList<Object> states;
+
+  /**
+   * @param aggregator the aggregator that updates the states.
+   */
+  public ObjectGroupedAggregator(final Aggregator aggregator) {
+    this.aggregator = Objects.requireNonNull(aggregator, "aggregator");
+    states = new ArrayList<>();
+  }
+
+  @Override
+  public void addGroups(final int count) {
+    for (int i = 0; i < count; ++i) {
+      states.add(aggregator.getInitialState());
+    }
+  }
+
+  @Override
+  public void addRow(final ReadableTable from, final int row, final int group) throws DbException {
+    aggregator.addRow(from, row, states.get(group));
+  }
+
+  @Override
+  public void addRows(final ReadableTable from, @Nullable final int[] selection, final int numRows,
+      @Nullable final int[] groups) throws DbException {
+    if (groups == null) {
+      Object state = states.get(0);
+      if (selection == null && numRows == from.numTuples()) {
+        aggregator.add(from, state);
+        return;
+      }
+      for (int i = 0; i < numRows; ++i) {
+        aggregator.addRow(from, selection == null ? i : selection[i], state);
+      }
+      return;
+    }
+    for (int i = 0; i < numRows; ++i) {
+      aggregator.addRow(from, selection == null ? i : selection[i], states.get(groups[i]));
+    }
+  }
+
+  @Override
+  public void getResult(final AppendableTable dest, final int destColumn, final int group) throws DbException {
+    aggregator.getResult(dest, destColumn, states.get(group));
+  }
+
+  @Override
+  public int numGroups() {
+    return states.size();
+  }
+
+  @Override
+  public void clear() {
+    states.clear();
+  }
+
+  @Override
+  public int bytesPerGroup() {
+    return STATE_BYTES;
+  }
+
+  @Override
+  public Schema getResultSchema() {
+    return aggregator.getResultSchema();
+  }
+}
@@ -0,0 +1,689 @@
+package edu.washington.escience.myria.operator.agg;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Preconditions;
+import com.google.common.math.LongMath;
+
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.operator.agg.PrimitiveAggregator.AggregationOp;
+import edu.washington.escience.myria.storage.AppendableTable;
+import edu.washington.escience.myria.storage.ReadableColumn;
+import edu.washington.escience.myria.storage.ReadableTable;
+import edu.washington.escience.myria.storage.TupleBatch;
+
+/**
+ * A {@link GroupedAggregator} for numeric columns and for COUNT(*), which keeps the state of every group in primitive
+ * arrays indexed by group id. The results are the same as those of the corresponding {@link PrimitiveAggregator} or
+ * {@link CountAllAggregator}.
+ *
+ * {@link #addRows(ReadableTable, int[], int, int[])} first copies the selected values of the column to a primitive
+ * array, and then updates each statistic in its own loop, so that which statistics are needed is checked once per
+ * batch rather than once per row.
+ */
+public final class PrimitiveGroupedAggregator implements GroupedAggregator {
+
+  /** The initial capacity of the state arrays. */
+  private static final int INITIAL_CAPACITY = 64;
+
+  /** The type of the aggregated column, or null for COUNT(*). */
+  private final Type type;
+  /** Which column of the input this aggregator operates over, or -1 for COUNT(*). */
+  private final int column;
+  /** The aggregate operations, in the order of the result columns. */
+  private final AggregationOp[] aggOps;
+  /** The schema of the results. */
+  private final Schema resultSchema;
+  /** Does this aggregator need to compute the count? */
+  private final boolean needsCount;
+  /** Does this aggregator need to compute the sum? */
+  private final boolean needsSum;
+  /** Does this aggregator need to compute the sum squared? */
+  private final boolean needsSumSq;
+  /** Does this aggregator need to compute the min? */
+  private final boolean needsMin;
+  /** Does this aggregator need to compute the max? */
+  private final boolean needsMax;
+
+  /** The number of groups. */
+  private int numGroups;
+  /** The number of groups that fit in the state arrays. */
+  private int capacity;
+  /** The number of tuples in each group. */
+  private long[] counts;
+  /** The sum of each group, for integral types. */
+  private long[] longSums;
+  /** The sum of squares of each group, for integral types. */
+  private long[] longSumSqs;
+  /** The minimum of each group, for integral types. */
+  private long[] longMins;
+  /** The maximum of each group, for integral types. */
+  private long[] longMaxs;
+  /** The sum of each group, for floating-point types. */
+  private double[] doubleSums;
+  /** The sum of squares of each group, for floating-point types. */
+  private double[] doubleSumSqs;
+  /** The minimum of each group, for floating-point types. */
+  private double[] doubleMins;
+  /** The maximum of each group, for floating-point types. */
+  private double[] doubleMaxs;
+  /** Scratch space for the values of an integral column. */
+  private long[] longValues;
+  /** Scratch space for the values of a floating-point column. */
+  private double[] doubleValues;
+
+  /**
+   * @param aggregator the aggregator whose results this grouped aggregator computes. Its type must be
+   *          {@link #isSupported(Type) supported}.
+   * @param column which column of the input the aggregator operates over.
+   */
+  public PrimitiveGroupedAggregator(final PrimitiveAggregator aggregator, final int column) {
+    Objects.requireNonNull(aggregator, "aggregator");
+    Preconditions.checkArgument(isSupported(aggregator.getType()), "unsupported type %s", aggregator.getType());
+    type = aggregator.getType();
+    this.column = column;
+    aggOps = aggregator.aggOps.toArray(new AggregationOp[aggregator.aggOps.size()]);
+    resultSchema = aggregator.getResultSchema();
+    needsCount = aggregator.needsCount;
+    needsSum = aggregator.needsSum;
+    needsSumSq = aggregator.needsSumSq;
+    needsMin = aggregator.needsMin;
+    needsMax = aggregator.needsMax;
+    allocate(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Construct a COUNT(*) aggregator.
+   */
+  public PrimitiveGroupedAggregator() {
+    type = null;
+    column = -1;
+    aggOps = new AggregationOp[] { AggregationOp.COUNT };
+    resultSchema = CountAllAggregator.SCHEMA;
+    needsCount = true;
+    needsSum = false;
+    needsSumSq = false;
+    needsMin = false;
+    needsMax = false;
+    allocate(INITIAL_CAPACITY);
+  }
+
+  /**
+   * @param type the type of a column.
+   * @return whether aggregates over columns of the given type can be computed by this class.
+   */
+  public static boolean isSupported(final Type type) {
+    switch (type) {
+      case DOUBLE_TYPE:
+      case FLOAT_TYPE:
+      case INT_TYPE:
+      case LONG_TYPE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * @return whether the aggregated column has an integral type, whose stats are kept in the {@code long} arrays.
+   */
+  private boolean isIntegral() {
+    return type == Type.INT_TYPE || type == Type.LONG_TYPE;
+  }
+
+  /**
+   * Allocate or grow the state arrays.
+   *
+   * @param newCapacity the new number of groups that fit in the arrays.
+   */
+  private void allocate(final int newCapacity) {
+    capacity = newCapacity;
+    if (needsCount) {
+      counts = grow(counts, newCapacity);
+    }
+    if (isIntegral()) {
+      if (needsSum) {
+        longSums = grow(longSums, newCapacity);
+      }
+      if (needsSumSq) {
+        longSumSqs = grow(longSumSqs, newCapacity);
+      }
+      if (needsMin) {
+        longMins = grow(longMins, newCapacity);
+      }
+      if (needsMax) {
+        longMaxs = grow(longMaxs, newCapacity);
+      }
+    } else if (type != null) {
+      if (needsSum) {
+        doubleSums = grow(doubleSums, newCapacity);
+      }
+      if (needsSumSq) {
+        doubleSumSqs = grow(doubleSumSqs, newCapacity);
+      }
+      if (needsMin) {
+        doubleMins = grow(doubleMins, newCapacity);
+      }
+      if (needsMax) {
+        doubleMaxs = grow(doubleMaxs, newCapacity);
+      }
+    }
+  }
+
+  /**
+   * @param array an array, or null.
+   * @param length the new length.
+   * @return a copy of the array with the new length, or a new array if it was null.
+   */
+  private static long[] grow(final long[] array, final int length) {
+    return array == null ? new long[length] : Arrays.copyOf(array, length);
+  }
+
+  /**
+   * @param array an array, or null.
+   * @param length the new length.
+   * @return a copy of the array with the new length, or a new array if it was null.
+   */
+  private static double[] grow(final double[] array, final int length) {
+    return array == null ? new double[length] : Arrays.copyOf(array, length);
+  }
+
+  @Override
+  public void addGroups(final int count) {
+    Preconditions.checkArgument(count >= 0, "count must be non-negative: %s", count);
+    final int fromGroup = numGroups;
+    numGroups += count;
+    if (numGroups > capacity) {
+      allocate(Math.max(capacity * 2, numGroups));
+    }
+    if (needsCount) {
+      Arrays.fill(counts, fromGroup, numGroups, 0);
+    }
+    if (isIntegral()) {
+      /* INT min and max start from the int extremes, so that an empty group outputs the same as IntegerAggregator. */
+      final boolean isInt = type == Type.INT_TYPE;
+      if (needsSum) {
+        Arrays.fill(longSums, fromGroup, numGroups, 0);
+      }
+      if (needsSumSq) {
+        Arrays.fill(longSumSqs, fromGroup, numGroups, 0);
+      }
+      if (needsMin) {
+        Arrays.fill(longMins, fromGroup, numGroups, isInt ? Integer.MAX_VALUE : Long.MAX_VALUE);
+      }
+      if (needsMax) {
+        Arrays.fill(longMaxs, fromGroup, numGroups, isInt ? Integer.MIN_VALUE : Long.MIN_VALUE);
+      }
+    } else if (type != null) {
+      if (needsSum) {
+        Arrays.fill(doubleSums, fromGroup, numGroups, 0);
+      }
+      if (needsSumSq) {
+        Arrays.fill(doubleSumSqs, fromGroup, numGroups, 0);
+      }
+      if (needsMin) {
+        Arrays.fill(doubleMins, fromGroup, numGroups, Double.POSITIVE_INFINITY);
+      }
+      if (needsMax) {
+        Arrays.fill(doubleMaxs, fromGroup, numGroups, Double.NEGATIVE_INFINITY);
+      }
+    }
+  }
+
+  @Override
+  public void addRows(final ReadableTable from, @Nullable final int[] selection, final int numRows,
+      @Nullable final int[] groups) {
+    Objects.requireNonNull(from, "from");
+    if (needsCount) {
+      if (groups == null) {
+        counts[0] = LongMath.checkedAdd(counts[0], numRows);
+      } else {
+        final long[] c = counts;
+        for (int i = 0; i < numRows; ++i) {
+          c[groups[i]]++;
+        }
+      }
+    }
+    if (type == null || numRows == 0) {
+      return;
+    }
+    if (isIntegral()) {
+      final long[] values = gatherLongs(from.asColumn(column), selection, numRows);
+      if (groups == null) {
+        addLongStats(values, numRows);
+      } else {
+        addLongStats(values, numRows, groups);
+      }
+    } else {
+      final double[] values = gatherDoubles(from.asColumn(column), selection, numRows);
+      if (groups == null) {
+        addDoubleStats(values, numRows);
+      } else {
+        addDoubleStats(values, numRows, groups);
+      }
+    }
+  }
+
+  /**
+   * Copy the selected values of an integral column to {@link #longValues}.
+   *
+   * @param source the column.
+   * @param selection the rows to copy, or null to copy rows {@code 0} to {@code numRows - 1}.
+   * @param numRows the number of rows to copy.
+   * @return {@link #longValues}.
+   */
+  private long[] gatherLongs(final ReadableColumn source, @Nullable final int[] selection, final int numRows) {
+    if (longValues == null || longValues.length < numRows) {
+      longValues = new long[Math.max(numRows, TupleBatch.BATCH_SIZE)];
+    }
+    final long[] values = longValues;
+    if (type == Type.INT_TYPE) {
+      if (selection == null) {
+        for (int i = 0; i < numRows; ++i) {
+          values[i] = source.getInt(i);
+        }
+      } else {
+        for (int i = 0; i < numRows; ++i) {
+          values[i] = source.getInt(selection[i]);
+        }
+      }
+    } else {
+      if (selection == null) {
+        for (int i = 0; i < numRows; ++i) {
+          values[i] = source.getLong(i);
+        }
+      } else {
+        for (int i = 0; i < numRows; ++i) {
+          values[i] = source.getLong(selection[i]);
+        }
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Copy the selected values of a floating-point column to {@link #doubleValues}.
+   *
+   * @param source the column.
+   * @param selection the rows to copy, or null to copy rows {@code 0} to {@code numRows - 1}.
+   * @param numRows the number of rows to copy.
+   * @return {@link #doubleValues}.
+   */
+  private double[] gatherDoubles(final ReadableColumn source, @Nullable final int[] selection, final int numRows) {
+    if (doubleValues == null || doubleValues.length < numRows) {
+      doubleValues = new double[Math.max(numRows, TupleBatch.BATCH_SIZE)];
+    }
+    final double[] values = doubleValues;
+    if (type == Type.FLOAT_TYPE) {
+      if (selection == null) {
+        for (int i = 0; i < numRows; ++i) {
+          values[i] = source.getFloat(i);
+        }
+      } else {
+        for (int i = 0; i < numRows; ++i) {
+          values[i] = source.getFloat(selection[i]);
+        }
+      }
+    } else {
+      if (selection == null) {
+        for (int i = 0; i < numRows; ++i) {
+          values[i] = source.getDouble(i);
+        }
+      } else {
+        for (int i = 0; i < numRows; ++i) {
+          values[i] = source.getDouble(selection[i]);
+        }
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Update group 0 with integral values. Note this does NOT update count.
+   *
+   * @param values the values.
+   * @param numRows the number of values.
+   */
+  private void addLongStats(final long[] values, final int numRows) {
+    if (needsSum) {
+      long sum = longSums[0];
+      if (type == Type.INT_TYPE) {
+        /* A batch of ints cannot overflow a long, so only the total needs to be checked. */
+        long batchSum = 0;
+        for (int i = 0; i < numRows; ++i) {
+          batchSum += values[i];
+        }
+        sum = LongMath.checkedAdd(sum, batchSum);
+      } else {
+        for (int i = 0; i < numRows; ++i) {
+          sum = LongMath.checkedAdd(sum, values[i]);
+        }
+      }
+      longSums[0] = sum;
+    }
+    if (needsSumSq) {
+      long sumSq = longSumSqs[0];
+      for (int i = 0; i < numRows; ++i) {
+        sumSq = LongMath.checkedAdd(sumSq, LongMath.checkedMultiply(values[i], values[i]));
+      }
+      longSumSqs[0] = sumSq;
+    }
+    if (needsMin) {
+      long min = longMins[0];
+      for (int i = 0; i < numRows; ++i) {
+        min = Math.min(min, values[i]);
+      }
+      longMins[0] = min;
+    }
+    if (needsMax) {
+      long max = longMaxs[0];
+      for (int i = 0; i < numRows; ++i) {
+        max = Math.max(max, values[i]);
+      }
+      longMaxs[0] = max;
+    }
+  }
+
+  /**
+   * Update many groups with integral values. Note this does NOT update count.
+   *
+   * @param values the values.
+   * @param numRows the number of values.
+   * @param groups the group of each value.
+   */
+  private void addLongStats(final long[] values, final int numRows, final int[] groups) {
+    if (needsSum) {
+      final long[] sums = longSums;
+      for (int i = 0; i < numRows; ++i) {
+        sums[groups[i]] = LongMath.checkedAdd(sums[groups[i]], values[i]);
+      }
+    }
+    if (needsSumSq) {
+      final long[] sumSqs = longSumSqs;
+      for (int i = 0; i < numRows; ++i) {
+        sumSqs[groups[i]] = LongMath.checkedAdd(sumSqs[groups[i]], LongMath.checkedMultiply(values[i], values[i]));
+      }
+    }
+    if (needsMin) {
+      final long[] mins = longMins;
+      for (int i = 0; i < numRows; ++i) {
+        mins[groups[i]] = Math.min(mins[groups[i]], values[i]);
+      }
+    }
+    if (needsMax) {
+      final long[] maxs = longMaxs;
+      for (int i = 0; i < numRows; ++i) {
+        maxs[groups[i]] = Math.max(maxs[groups[i]], values[i]);
+      }
+    }
+  }
+
+  /**
+   * Update group 0 with floating-point values. Note this does NOT update count.
+   *
+   * @param values the values.
+   * @param numRows the number of values.
+   */
+  private void addDoubleStats(final double[] values, final int numRows) {
+    if (needsSum) {
+      double sum = doubleSums[0];
+      for (int i = 0; i < numRows; ++i) {
+        sum += values[i];
+      }
+      doubleSums[0] = sum;
+    }
+    if (needsSumSq) {
+      double sumSq = doubleSumSqs[0];
+      if (type == Type.FLOAT_TYPE) {
+        for (int i = 0; i < numRows; ++i) {
+          /* The square is computed in float precision, as in FloatAggregator. */
+          final float value = (float) values[i];
+          sumSq += value * value;
+        }
+      } else {
+        for (int i = 0; i < numRows; ++i) {
+          sumSq += values[i] * values[i];
+        }
+      }
+      doubleSumSqs[0] = sumSq;
+    }
+    if (needsMin) {
+      double min = doubleMins[0];
+      for (int i = 0; i < numRows; ++i) {
+        min = Math.min(min, values[i]);
+      }
+      doubleMins[0] = min;
+    }
+    if (needsMax) {
+      double max = doubleMaxs[0];
+      for (int i = 0; i < numRows; ++i) {
+        max = Math.max(max, values[i]);
+      }
+      doubleMaxs[0] = max;
+    }
+  }
+
+  /**
+   * Update many groups with floating-point values. Note this does NOT update count.
+   *
+   * @param values the values.
+   * @param numRows the number of values.
+   * @param groups the group of each value.
+   */
+  private void addDoubleStats(final double[] values, final int numRows, final int[] groups) {
+    if (needsSum) {
+      final double[] sums = doubleSums;
+      for (int i = 0; i < numRows; ++i) {
+        sums[groups[i]] += values[i];
+      }
+    }
+    if (needsSumSq) {
+      final double[] sumSqs = doubleSumSqs;
+      if (type == Type.FLOAT_TYPE) {
+        for (int i = 0; i < numRows; ++i) {
+          final float value = (float) values[i];
+          sumSqs[groups[i]] += value * value;
+        }
+      } else {
+        for (int i = 0; i < numRows; ++i) {
+          sumSqs[groups[i]] += values[i] * values[i];
+        }
+      }
+    }
+    if (needsMin) {
+      final double[] mins = doubleMins;
+      for (int i = 0; i < numRows; ++i) {
+        mins[groups[i]] = Math.min(mins[groups[i]], values[i]);
+      }
+    }
+    if (needsMax) {
+      final double[] maxs = doubleMaxs;
+      for (int i = 0; i < numRows; ++i) {
+        maxs[groups[i]] = Math.max(maxs[groups[i]], values[i]);
+      }
+    }
+  }
+
+  @Override
+  public void addRow(final ReadableTable from, final int row, final int group) {
+    if (needsCount) {
+      counts[group] = LongMath.checkedAdd(counts[group], 1);
+    }
+    if (type == null) {
+      return;
+    }
+    switch (type) {
+      case INT_TYPE: {
+        final int value = from.getInt(column, row);
+        if (needsSum) {
+          longSums[group] = LongMath.checkedAdd(longSums[group], value);
+        }
+        if (needsSumSq) {
+          longSumSqs[group] = LongMath.checkedAdd(longSumSqs[group], ((long) value) * value);
+        }
+        if (needsMin) {
+          longMins[group] = Math.min(longMins[group], value);
+        }
+        if (needsMax) {
+          longMaxs[group] = Math.max(longMaxs[group], value);
+        }
+        break;
+      }
+      case LONG_TYPE: {
+        final long value = from.getLong(column, row);
+        if (needsSum) {
+          longSums[group] = LongMath.checkedAdd(longSums[group], value);
+        }
+        if (needsSumSq) {
+          longSumSqs[group] = LongMath.checkedAdd(longSumSqs[group], LongMath.checkedMultiply(value, value));
+        }
+        if (needsMin) {
+          longMins[group] = Math.min(longMins[group], value);
+        }
+        if (needsMax) {
+          longMaxs[group] = Math.max(longMaxs[group], value);
+        }
+        break;
+      }
+      case FLOAT_TYPE: {
+        final float value = from.getFloat(column, row);
+        if (needsSum) {
+          doubleSums[group] += value;
+        }
+        if (needsSumSq) {
+          /* The square is computed in float precision, as in FloatAggregator. */
+          doubleSumSqs[group] += value * value;
+        }
+        if (needsMin) {
+          doubleMins[group] = Math.min(doubleMins[group], value);
+        }
+        if (needsMax) {
+          doubleMaxs[group] = Math.max(doubleMaxs[group], value);
+        }
+        break;
+      }
+      case DOUBLE_TYPE: {
+        final double value = from.getDouble(column, row);
+        if (needsSum) {
+          doubleSums[group] += value;
+        }
+        if (needsSumSq) {
+          doubleSumSqs[group] += value * value;
+        }
+        if (needsMin) {
+          doubleMins[group] = Math.min(doubleMins[group], value);
+        }
+        if (needsMax) {
+          doubleMaxs[group] = Math.max(doubleMaxs[group], value);
+        }
+        break;
+      }
+      default:
+        throw new IllegalStateException("unsupported type " + type);
+    }
+  }
+
+  @Override
+  public void getResult(final AppendableTable dest, final int destColumn, final int group) {
+    Objects.requireNonNull(dest, "dest");
+    Preconditions.checkElementIndex(group, numGroups);
+    final boolean integral = isIntegral();
+    int idx = destColumn;
+    for (AggregationOp op : aggOps) {
+      switch (op) {
+        case AVG:
+          if (integral) {
+            dest.putDouble(idx, longSums[group] * 1.0 / counts[group]);
+          } else {
+            dest.putDouble(idx, doubleSums[group] * 1.0 / counts[group]);
+          }
+          break;
+        case COUNT:
+          dest.putLong(idx, counts[group]);
+          break;
+        case MAX:
+          putExtreme(dest, idx, integral ? longMaxs[group] : 0, integral ? 0 : doubleMaxs[group]);
+          break;
+        case MIN:
+          putExtreme(dest, idx, integral ? longMins[group] : 0, integral ? 0 : doubleMins[group]);
+          break;
+        case STDEV:
+          double first;
+          double second;
+          if (integral) {
+            first = ((double) longSumSqs[group]) / counts[group];
+            second = ((double) longSums[group]) / counts[group];
+          } else {
+            first = doubleSumSqs[group] / counts[group];
+            second = doubleSums[group] / counts[group];
+          }
+          dest.putDouble(idx, Math.sqrt(first - second * second));
+          break;
+        case SUM:
+          if (integral) {
+            dest.putLong(idx, longSums[group]);
+          } else {
+            dest.putDouble(idx, doubleSums[group]);
+          }
+          break;
+      }
+      idx++;
+    }
+  }
+
+  /**
+   * Output a MIN or MAX value in the type of the aggregated column.
+   *
+   * @param dest where to store the value.
+   * @param destColumn the column in which to store the value.
+   * @param longValue the value, if the type is integral.
+   * @param doubleValue the value, if the type is floating-point.
+   */
+  private void putExtreme(final AppendableTable dest, final int destColumn, final long longValue,
+      final double doubleValue) {
+    switch (type) {
+      case INT_TYPE:
+        dest.putInt(destColumn, (int) longValue);
+        break;
+      case LONG_TYPE:
+        dest.putLong(destColumn, longValue);
+        break;
+      case FLOAT_TYPE:
+        dest.putFloat(destColumn, (float) doubleValue);
+        break;
+      case DOUBLE_TYPE:
+        dest.putDouble(destColumn, doubleValue);
+        break;
+      default:
+        throw new IllegalStateException("unsupported type " + type);
+    }
+  }
+
+  @Override
+  public int numGroups() {
+    return numGroups;
+  }
+
+  @Override
+  public void clear() {
+    numGroups = 0;
+  }
+
+  @Override
+  public int bytesPerGroup() {
+    int arrays = needsCount ? 1 : 0;
+    if (type != null) {
+      arrays += (needsSum ? 1 : 0) + (needsSumSq ? 1 : 0) + (needsMin ? 1 : 0) + (needsMax ? 1 : 0);
+    }
+    return arrays * 8;
+  }
+
+  @Override
+  public Schema getResultSchema() {
+    return resultSchema;
+  }
+}
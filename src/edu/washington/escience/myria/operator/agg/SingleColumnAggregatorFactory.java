@@ -65,4 +65,18 @@ public class SingleColumnAggregatorFactory implements AggregatorFactory {
     }
     throw new IllegalArgumentException("Unknown column type: " + type);
   }
+
+  /**
+   * @return which column of the input to aggregate over.
+   */
+  int getColumn() {
+    return column;
+  }
+
+  /**
+   * @return which aggregate operations are requested.
+   */
+  AggregationOp[] getAggOps() {
+    return aggOps.clone();
+  }
 }
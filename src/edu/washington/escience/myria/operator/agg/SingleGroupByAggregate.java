@@ -1,7 +1,5 @@
 package edu.washington.escience.myria.operator.agg;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Objects;
 
 import javax.annotation.Nullable;
@@ -10,19 +8,25 @@ import org.joda.time.DateTime;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
-import com.gs.collections.impl.map.mutable.primitive.DoubleObjectHashMap;
-import com.gs.collections.impl.map.mutable.primitive.FloatObjectHashMap;
-import com.gs.collections.impl.map.mutable.primitive.IntObjectHashMap;
-import com.gs.collections.impl.map.mutable.primitive.LongObjectHashMap;
+import com.gs.collections.impl.map.mutable.primitive.DoubleIntHashMap;
+import com.gs.collections.impl.map.mutable.primitive.FloatIntHashMap;
+import com.gs.collections.impl.map.mutable.primitive.IntIntHashMap;
+import com.gs.collections.impl.map.mutable.primitive.LongIntHashMap;
+import com.gs.collections.impl.map.mutable.primitive.ObjectIntHashMap;
 
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.column.DictionaryStringColumn;
+import edu.washington.escience.myria.column.StringDictionary;
 import edu.washington.escience.myria.operator.Operator;
 import edu.washington.escience.myria.operator.UnaryOperator;
-import edu.washington.escience.myria.storage.ReadableTable;
+import edu.washington.escience.myria.storage.MutableTupleBuffer;
+import edu.washington.escience.myria.storage.ReadableColumn;
 import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.storage.TupleBatchBuffer;
+import edu.washington.escience.myria.storage.TupleUtils;
 
 /**
  * The Aggregation operator that computes an aggregate (e.g., sum, avg, max, min) with a single group by column.
@@ -55,41 +59,58 @@ public class SingleGroupByAggregate extends UnaryOperator {
   private Type gColumnType;
 
   /**
-   * The buffer storing in-progress group by results. {groupby-column-value -> Aggregator Array} when the group key is
-   * String
+   * Maps the group key to the group id when the group key is String.
    */
-  private transient HashMap<String, Object[]> stringAggState;
+  private transient ObjectIntHashMap<String> stringGroups;
 
   /**
-   * The buffer storing in-progress group by results. {groupby-column-value -> Aggregator Array} when the group key is
-   * DateTime.
+   * Maps the code of the group key to the group id when the group key is a String encoded with
+   * {@link #codeDictionary}.
    */
-  private transient HashMap<DateTime, Object[]> datetimeAggState;
+  private transient IntIntHashMap codeGroups;
 
   /**
-   * The buffer storing in-progress group by results when the group key is int.
+   * The dictionary of the codes in {@link #codeGroups}, taken from the first dictionary-encoded group column.
    */
-  private transient IntObjectHashMap<Object[]> intAggState;
+  private transient StringDictionary codeDictionary;
+
   /**
-   * The buffer storing in-progress group by results when the group key is boolean.
+   * Maps the group key to the group id when the group key is DateTime.
    */
-  private transient Object[][] booleanAggState;
+  private transient ObjectIntHashMap<DateTime> datetimeGroups;
+
   /**
-   * The buffer storing in-progress group by results when the group key is long.
+   * Maps the group key to the group id when the group key is int.
    */
-  private transient LongObjectHashMap<Object[]> longAggState;
+  private transient IntIntHashMap intGroups;
   /**
-   * The buffer storing in-progress group by results when the group key is float.
+   * The group ids of true and false when the group key is boolean, or -1 if the group does not exist yet.
    */
-  private transient FloatObjectHashMap<Object[]> floatAggState;
+  private transient int[] booleanGroups;
   /**
-   * The buffer storing in-progress group by results when the group key is double.
+   * Maps the group key to the group id when the group key is long.
    */
-  private transient DoubleObjectHashMap<Object[]> doubleAggState;
+  private transient LongIntHashMap longGroups;
   /**
-   * The aggregators that will initialize and update the state.
+   * Maps the group key to the group id when the group key is float.
    */
-  private Aggregator[] aggregators;
+  private transient FloatIntHashMap floatGroups;
+  /**
+   * Maps the group key to the group id when the group key is double.
+   */
+  private transient DoubleIntHashMap doubleGroups;
+  /**
+   * The key of each group, in the order of the group ids.
+   */
+  private transient MutableTupleBuffer groupKeys;
+  /**
+   * The group id of each row of the batch being aggregated.
+   */
+  private transient int[] groupIds;
+  /**
+   * The aggregators that will initialize and update the state of the groups.
+   */
+  private transient GroupedAggregator[] aggregators;
 
   /**
    * The buffer storing results after group by is done.
@@ -111,183 +132,192 @@ public class SingleGroupByAggregate extends UnaryOperator {
 
   @Override
   protected final void cleanup() throws DbException {
-    stringAggState = null;
-    datetimeAggState = null;
-    doubleAggState = null;
-    booleanAggState = null;
-    floatAggState = null;
-    intAggState = null;
-    longAggState = null;
+    stringGroups = null;
+    codeGroups = null;
+    codeDictionary = null;
+    datetimeGroups = null;
+    doubleGroups = null;
+    booleanGroups = null;
+    floatGroups = null;
+    intGroups = null;
+    longGroups = null;
+    groupKeys = null;
+    groupIds = null;
+    aggregators = null;
     resultBuffer = null;
   }
 
   /**
-   * Utility function to fetch or create/initialize the aggregation state for the group corresponding to the data in the
-   * specified table and row.
+   * Compute the group id of each row of a batch whose group column is encoded with {@link #codeDictionary}, looking up
+   * the codes instead of the strings. Only a code seen for the first time looks up its string, since its group may have
+   * been created by a batch that was not encoded.
    * 
-   * @param table the data to be aggregated.
-   * @param row which row of the table is to be aggregated.
-   * @return the aggregation state for that row.
-   * @throws DbException if there is an error.
+   * @param keys the group column of the batch.
+   * @param numTuples the number of rows in the batch.
    */
-  private Object[] getAggState(final ReadableTable table, final int row) throws DbException {
-    Object[] aggState = null;
+  private void computeGroupIdsFromCodes(final DictionaryStringColumn keys, final int numTuples) {
+    for (int row = 0; row < numTuples; ++row) {
+      final int code = keys.getCode(row);
+      int group = codeGroups.getIfAbsent(code, -1);
+      if (group < 0) {
+        final String key = keys.getString(row);
+        group = stringGroups.getIfAbsent(key, -1);
+        if (group < 0) {
+          group = newGroup(keys, row);
+          stringGroups.put(key, group);
+        }
+        codeGroups.put(code, group);
+      }
+      groupIds[row] = group;
+    }
+  }
+
+  /**
+   * Compute the group id of each row of the batch, creating the groups that do not exist yet.
+   * 
+   * @param tb the data to be aggregated.
+   */
+  private void computeGroupIds(final TupleBatch tb) {
+    final int numTuples = tb.numTuples();
+    final ReadableColumn keys = tb.asColumn(gColumn);
+    final Column<?> keyColumn = tb.getDataColumns().get(gColumn);
     switch (gColumnType) {
       case BOOLEAN_TYPE:
-        boolean groupByBool = table.getBoolean(gColumn, row);
-        if (groupByBool) {
-          aggState = booleanAggState[0];
-        } else {
-          aggState = booleanAggState[1];
-        }
-        if (aggState == null) {
-          aggState = AggUtils.allocateAggStates(aggregators);
-          if (groupByBool) {
-            booleanAggState[0] = aggState;
-          } else {
-            booleanAggState[1] = aggState;
+        for (int row = 0; row < numTuples; ++row) {
+          /* True is index 0 in booleanGroups, False is index 1. */
+          int bucket = keys.getBoolean(row) ? 0 : 1;
+          if (booleanGroups[bucket] < 0) {
+            booleanGroups[bucket] = newGroup(keyColumn, row);
           }
+          groupIds[row] = booleanGroups[bucket];
         }
         break;
       case STRING_TYPE:
-        String groupByString = table.getString(gColumn, row);
-        aggState = stringAggState.get(groupByString);
-        if (aggState == null) {
-          aggState = AggUtils.allocateAggStates(aggregators);
-          stringAggState.put(groupByString, aggState);
+        if (keyColumn instanceof DictionaryStringColumn) {
+          final DictionaryStringColumn strings = (DictionaryStringColumn) keyColumn;
+          if (codeDictionary == null) {
+            codeDictionary = strings.getDictionary();
+          }
+          if (codeDictionary == strings.getDictionary()) {
+            computeGroupIdsFromCodes(strings, numTuples);
+            break;
+          }
+        }
+        for (int row = 0; row < numTuples; ++row) {
+          String key = keys.getString(row);
+          int group = stringGroups.getIfAbsent(key, -1);
+          if (group < 0) {
+            group = newGroup(keyColumn, row);
+            stringGroups.put(key, group);
+          }
+          groupIds[row] = group;
         }
         break;
       case DATETIME_TYPE:
-        DateTime groupByDateTime = table.getDateTime(gColumn, row);
-        aggState = datetimeAggState.get(groupByDateTime);
-        if (aggState == null) {
-          aggState = AggUtils.allocateAggStates(aggregators);
-          datetimeAggState.put(groupByDateTime, aggState);
+        for (int row = 0; row < numTuples; ++row) {
+          DateTime key = keys.getDateTime(row);
+          int group = datetimeGroups.getIfAbsent(key, -1);
+          if (group < 0) {
+            group = newGroup(keyColumn, row);
+            datetimeGroups.put(key, group);
+          }
+          groupIds[row] = group;
         }
         break;
       case INT_TYPE:
-        int groupByInt = table.getInt(gColumn, row);
-        aggState = intAggState.get(groupByInt);
-        if (aggState == null) {
-          aggState = AggUtils.allocateAggStates(aggregators);
-          intAggState.put(groupByInt, aggState);
+        for (int row = 0; row < numTuples; ++row) {
+          int key = keys.getInt(row);
+          int group = intGroups.getIfAbsent(key, -1);
+          if (group < 0) {
+            group = newGroup(keyColumn, row);
+            intGroups.put(key, group);
+          }
+          groupIds[row] = group;
         }
         break;
       case LONG_TYPE:
-        long groupByLong = table.getLong(gColumn, row);
-        aggState = longAggState.get(groupByLong);
-        if (aggState == null) {
-          aggState = AggUtils.allocateAggStates(aggregators);
-          longAggState.put(groupByLong, aggState);
+        for (int row = 0; row < numTuples; ++row) {
+          long key = keys.getLong(row);
+          int group = longGroups.getIfAbsent(key, -1);
+          if (group < 0) {
+            group = newGroup(keyColumn, row);
+            longGroups.put(key, group);
+          }
+          groupIds[row] = group;
         }
         break;
       case FLOAT_TYPE:
-        float groupByFloat = table.getFloat(gColumn, row);
-        aggState = floatAggState.get(groupByFloat);
-        if (aggState == null) {
-          aggState = AggUtils.allocateAggStates(aggregators);
-          floatAggState.put(groupByFloat, aggState);
+        for (int row = 0; row < numTuples; ++row) {
+          float key = keys.getFloat(row);
+          int group = floatGroups.getIfAbsent(key, -1);
+          if (group < 0) {
+            group = newGroup(keyColumn, row);
+            floatGroups.put(key, group);
+          }
+          groupIds[row] = group;
         }
         break;
       case DOUBLE_TYPE:
-        double groupByDouble = table.getDouble(gColumn, row);
-        aggState = doubleAggState.get(groupByDouble);
-        if (aggState == null) {
-          aggState = AggUtils.allocateAggStates(aggregators);
-          doubleAggState.put(groupByDouble, aggState);
+        for (int row = 0; row < numTuples; ++row) {
+          double key = keys.getDouble(row);
+          int group = doubleGroups.getIfAbsent(key, -1);
+          if (group < 0) {
+            group = newGroup(keyColumn, row);
+            doubleGroups.put(key, group);
+          }
+          groupIds[row] = group;
         }
         break;
+      default:
+        throw new IllegalStateException("Aggregating values of unknown type.");
     }
-    if (aggState == null) {
-      throw new IllegalStateException("Aggregating values of unknown type.");
-    }
-    return aggState;
   }
 
   /**
-   * @param tb the TupleBatch to be processed.
-   * @throws DbException if there is an error.
+   * @param keyColumn the group by column of the batch being aggregated.
+   * @param row the row containing the key of the new group.
+   * @return the id of the new group.
    */
-  private void processTupleBatch(final TupleBatch tb) throws DbException {
-    for (int i = 0; i < tb.numTuples(); ++i) {
-      Object[] groupAgg = getAggState(tb, i);
-      for (int agg = 0; agg < aggregators.length; ++agg) {
-        aggregators[agg].addRow(tb, i, groupAgg[agg]);
-      }
-    }
+  private int newGroup(final Column<?> keyColumn, final int row) {
+    int group = groupKeys.numTuples();
+    groupKeys.put(0, keyColumn, row);
+    return group;
   }
 
   /**
-   * Helper function for appending results to an output tuple buffer. By convention, the single-column aggregation key
-   * goes in column 0, and the aggregates are appended starting at column 1.
-   * 
-   * @param resultBuffer where the tuples will be appended.
-   * @param aggState the states corresponding to all aggregators.
+   * @param tb the TupleBatch to be processed.
    * @throws DbException if there is an error.
    */
-  private void concatResults(final TupleBatchBuffer resultBuffer, final Object[] aggState) throws DbException {
-    int index = 1;
-    for (int agg = 0; agg < aggregators.length; ++agg) {
-      aggregators[agg].getResult(resultBuffer, index, aggState[agg]);
-      index += aggregators[agg].getResultSchema().numColumns();
+  private void processTupleBatch(final TupleBatch tb) throws DbException {
+    final int numTuples = tb.numTuples();
+    if (groupIds.length < numTuples) {
+      groupIds = new int[numTuples];
+    }
+    final int numGroupsBefore = groupKeys.numTuples();
+    computeGroupIds(tb);
+    final int numNewGroups = groupKeys.numTuples() - numGroupsBefore;
+    for (GroupedAggregator agg : aggregators) {
+      agg.addGroups(numNewGroups);
+      agg.addRows(tb, null, numTuples, groupIds);
     }
   }
 
   /**
+   * Output the groups in the order in which they were created. By convention, the single-column aggregation key goes in
+   * column 0, and the aggregates are appended starting at column 1.
+   * 
    * @param resultBuffer where the results are stored.
    * @throws DbException if there is an error.
    */
   private void generateResult(final TupleBatchBuffer resultBuffer) throws DbException {
-
-    switch (gColumnType) {
-      case BOOLEAN_TYPE:
-        for (int boolBucket = 0; boolBucket < 2; ++boolBucket) {
-          Object[] aggState = booleanAggState[boolBucket];
-          if (aggState != null) {
-            /* True is index 0 in booleanAggState, False is index 1. */
-            resultBuffer.putBoolean(0, boolBucket == 0);
-            concatResults(resultBuffer, aggState);
-          }
-        }
-        break;
-      case STRING_TYPE:
-        for (final Map.Entry<String, Object[]> e : stringAggState.entrySet()) {
-          resultBuffer.putString(0, e.getKey());
-          concatResults(resultBuffer, e.getValue());
-        }
-        break;
-      case DATETIME_TYPE:
-        for (final Map.Entry<DateTime, Object[]> e : datetimeAggState.entrySet()) {
-          resultBuffer.putDateTime(0, e.getKey());
-          concatResults(resultBuffer, e.getValue());
-        }
-        break;
-      case INT_TYPE:
-        for (int key : intAggState.keySet().toArray()) {
-          resultBuffer.putInt(0, key);
-          concatResults(resultBuffer, intAggState.get(key));
-        }
-        break;
-      case LONG_TYPE:
-        for (long key : longAggState.keySet().toArray()) {
-          resultBuffer.putLong(0, key);
-          concatResults(resultBuffer, longAggState.get(key));
-        }
-        break;
-      case FLOAT_TYPE:
-        for (float key : floatAggState.keySet().toArray()) {
-          resultBuffer.putFloat(0, key);
-          concatResults(resultBuffer, floatAggState.get(key));
-        }
-        break;
-      case DOUBLE_TYPE:
-        for (double key : doubleAggState.keySet().toArray()) {
-          resultBuffer.putDouble(0, key);
-          concatResults(resultBuffer, doubleAggState.get(key));
-        }
-        break;
+    for (int group = 0; group < groupKeys.numTuples(); ++group) {
+      TupleUtils.copyValue(groupKeys, 0, group, resultBuffer, 0);
+      int index = 1;
+      for (GroupedAggregator agg : aggregators) {
+        agg.getResult(resultBuffer, index, group);
+        index += agg.getResultSchema().numColumns();
+      }
     }
-
   }
 
   @Override
@@ -328,30 +358,33 @@ public class SingleGroupByAggregate extends UnaryOperator {
   protected final void init(final ImmutableMap<String, Object> execEnvVars) throws DbException {
     Preconditions.checkState(getSchema() != null, "unable to determine schema in init");
 
-    aggregators = AggUtils.allocateAggs(factories, getChild().getSchema());
+    aggregators = AggUtils.allocateGroupedAggs(factories, getChild().getSchema());
     resultBuffer = new TupleBatchBuffer(getSchema());
+    groupKeys = new MutableTupleBuffer(getSchema().getSubSchema(new int[] { 0 }));
+    groupIds = new int[TupleBatch.BATCH_SIZE];
 
     switch (gColumnType) {
       case BOOLEAN_TYPE:
-        booleanAggState = new Object[2][];
+        booleanGroups = new int[] { -1, -1 };
         break;
       case INT_TYPE:
-        intAggState = new IntObjectHashMap<Object[]>();
+        intGroups = new IntIntHashMap();
         break;
       case LONG_TYPE:
-        longAggState = new LongObjectHashMap<Object[]>();
+        longGroups = new LongIntHashMap();
         break;
       case FLOAT_TYPE:
-        floatAggState = new FloatObjectHashMap<Object[]>();
+        floatGroups = new FloatIntHashMap();
         break;
       case DOUBLE_TYPE:
-        doubleAggState = new DoubleObjectHashMap<Object[]>();
+        doubleGroups = new DoubleIntHashMap();
         break;
       case STRING_TYPE:
-        stringAggState = new HashMap<String, Object[]>();
+        stringGroups = new ObjectIntHashMap<String>();
+        codeGroups = new IntIntHashMap();
         break;
       case DATETIME_TYPE:
-        datetimeAggState = new HashMap<DateTime, Object[]>();
+        datetimeGroups = new ObjectIntHashMap<DateTime>();
         break;
     }
   }
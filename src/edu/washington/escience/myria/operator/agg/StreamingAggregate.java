@@ -51,10 +51,10 @@ public class StreamingAggregate extends UnaryOperator {
   private final int[] gRange;
   /** Factories to make the Aggregators. **/
   private final AggregatorFactory[] factories;
-  /** The actual Aggregators. **/
-  private Aggregator[] aggregators;
-  /** The state of the aggregators. */
-  private Object[] aggregatorStates;
+  /** The actual Aggregators, each of which computes the current group. **/
+  private transient GroupedAggregator[] aggregators;
+  /** The rows of the current batch that belong to the current group. */
+  private transient int[] selection;
 
   /** Buffer for holding intermediate results. */
   private transient TupleBatchBuffer resultBuffer;
@@ -94,6 +94,9 @@ public class StreamingAggregate extends UnaryOperator {
     if (tb == null) {
       tb = child.nextReady();
       row = 0;
+      if (tb != null && selection.length < tb.numTuples()) {
+        selection = new int[tb.numTuples()];
+      }
     }
     while (tb != null) {
       while (row < tb.numTuples()) {
@@ -111,19 +114,25 @@ public class StreamingAggregate extends UnaryOperator {
           for (int gKey = 0; gKey < gFields.length; ++gKey) {
             TupleUtils.copyValue(tb, gFields[gKey], row, curGroupKey, gKey);
           }
-          aggregatorStates = AggUtils.allocateAggStates(aggregators);
+          resetGroup();
           if (resultBuffer.hasFilledTB()) {
             return resultBuffer.popFilled();
           }
         }
-        // update aggregator states with current tuple
-        for (int agg = 0; agg < aggregators.length; ++agg) {
-          aggregators[agg].addRow(tb, row, aggregatorStates[agg]);
+        // update aggregator states with the run of tuples that have the current key
+        int numSelected = 0;
+        do {
+          selection[numSelected++] = row++;
+        } while (row < tb.numTuples() && TupleUtils.tupleEquals(tb, gFields, row, curGroupKey, gRange, 0));
+        for (GroupedAggregator agg : aggregators) {
+          agg.addRows(tb, selection, numSelected, null);
         }
-        row++;
       }
       tb = child.nextReady();
       row = 0;
+      if (tb != null && selection.length < tb.numTuples()) {
+        selection = new int[tb.numTuples()];
+      }
     }
 
     /*
@@ -147,9 +156,19 @@ public class StreamingAggregate extends UnaryOperator {
     for (; fromIndex < curGroupKey.numColumns(); ++fromIndex) {
       TupleUtils.copyValue(curGroupKey, fromIndex, 0, resultBuffer, fromIndex);
     }
-    for (int agg = 0; agg < aggregators.length; ++agg) {
-      aggregators[agg].getResult(resultBuffer, fromIndex, aggregatorStates[agg]);
-      fromIndex += aggregators[agg].getResultSchema().numColumns();
+    for (GroupedAggregator agg : aggregators) {
+      agg.getResult(resultBuffer, fromIndex, 0);
+      fromIndex += agg.getResultSchema().numColumns();
+    }
+  }
+
+  /**
+   * Reset the aggregators to a single, empty group for the next grouping key.
+   */
+  private void resetGroup() {
+    for (GroupedAggregator agg : aggregators) {
+      agg.clear();
+      agg.addGroups(1);
     }
   }
 
@@ -185,14 +204,16 @@ public class StreamingAggregate extends UnaryOperator {
   @Override
   protected void init(final ImmutableMap<String, Object> execEnvVars) throws DbException {
     Preconditions.checkState(getSchema() != null, "unable to determine schema in init");
-    aggregators = AggUtils.allocateAggs(factories, getChild().getSchema());
-    aggregatorStates = AggUtils.allocateAggStates(aggregators);
+    aggregators = AggUtils.allocateGroupedAggs(factories, getChild().getSchema());
+    resetGroup();
+    selection = new int[TupleBatch.BATCH_SIZE];
     resultBuffer = new TupleBatchBuffer(getSchema());
   }
 
   @Override
   protected void cleanup() throws DbException {
-    aggregatorStates = null;
+    aggregators = null;
+    selection = null;
     curGroupKey = null;
     resultBuffer = null;
   }
@@ -20,6 +20,7 @@ import edu.washington.escience.myria.MyriaConstants;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.expression.Expression;
+import edu.washington.escience.myria.expression.evaluate.EvaluatorCache;
 import edu.washington.escience.myria.expression.evaluate.ExpressionOperatorParameter;
 import edu.washington.escience.myria.expression.evaluate.GenericEvaluator;
 import edu.washington.escience.myria.expression.evaluate.ScriptEvalInterface;
@@ -160,25 +161,31 @@ public class UserDefinedAggregatorFactory implements AggregatorFactory {
       output.append(Expression.RESULT).append(".put").append(type.toJavaObjectType().getSimpleName()).append("(")
           .append(varCount).append(", val").append(varCount).append(");\n");
     }
-    String script = compute.append(output).toString();
+    final String script = compute.append(output).toString();
     LOGGER.debug("Compiling UDA {}", script);
 
-    IScriptEvaluator se;
-    try {
-      se = CompilerFactoryFactory.getDefaultCompilerFactory().newScriptEvaluator();
-    } catch (Exception e) {
-      LOGGER.error("Could not create scriptevaluator", e);
-      throw new DbException("Could not create scriptevaluator", e);
-    }
-    se.setDefaultImports(MyriaConstants.DEFAULT_JANINO_IMPORTS);
-
-    try {
-      return (ScriptEvalInterface) se.createFastEvaluator(script, ScriptEvalInterface.class, new String[] {
-          Expression.TB, Expression.ROW, Expression.RESULT, Expression.STATE });
-    } catch (CompileException e) {
-      LOGGER.error("Error when compiling expression {}: {}", script, e);
-      throw new DbException("Error when compiling expression: " + script, e);
-    }
+    return EvaluatorCache.get(ScriptEvalInterface.class, script, param.getSchema(), param.getStateSchema(), null,
+        new EvaluatorCache.Compiler<ScriptEvalInterface>() {
+          @Override
+          public ScriptEvalInterface compile() throws DbException {
+            IScriptEvaluator se;
+            try {
+              se = CompilerFactoryFactory.getDefaultCompilerFactory().newScriptEvaluator();
+            } catch (Exception e) {
+              LOGGER.error("Could not create scriptevaluator", e);
+              throw new DbException("Could not create scriptevaluator", e);
+            }
+            se.setDefaultImports(MyriaConstants.DEFAULT_JANINO_IMPORTS);
+
+            try {
+              return (ScriptEvalInterface) se.createFastEvaluator(script, ScriptEvalInterface.class, new String[] {
+                  Expression.TB, Expression.ROW, Expression.RESULT, Expression.STATE });
+            } catch (CompileException e) {
+              LOGGER.error("Error when compiling expression {}: {}", script, e);
+              throw new DbException("Error when compiling expression: " + script, e);
+            }
+          }
+        });
   }
 
   /**
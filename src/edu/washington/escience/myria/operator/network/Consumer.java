@@ -261,6 +261,17 @@ public class Consumer extends LeafOperator {
     return inputBuffer;
   }
 
+  /**
+   * @return the number of nanoseconds spent deserializing, and decompressing, the tuples received by this consumer.
+   * */
+  public final long getDeserializationNanos() {
+    StreamInputBuffer<TupleBatch> buffer = inputBuffer;
+    if (buffer == null) {
+      return 0;
+    }
+    return buffer.getDeserializationNanos();
+  }
+
   /**
    * Read a single ExchangeMessage from the queue that buffers incoming ExchangeMessages.
    * 
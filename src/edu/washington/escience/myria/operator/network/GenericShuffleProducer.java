@@ -1,24 +1,54 @@
 package edu.washington.escience.myria.operator.network;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
 import com.google.common.base.Preconditions;
 
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.MyriaConstants.ProfilingMode;
 import edu.washington.escience.myria.operator.Operator;
+import edu.washington.escience.myria.operator.network.partition.MultiFieldHashPartitionFunction;
 import edu.washington.escience.myria.operator.network.partition.PartitionFunction;
+import edu.washington.escience.myria.operator.network.partition.SingleFieldHashPartitionFunction;
 import edu.washington.escience.myria.parallel.ExchangePairID;
 import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.util.BloomFilter;
+import edu.washington.escience.myria.util.HashUtils;
 import edu.washington.escience.myria.util.MyriaArrayUtils;
 
 /**
  * GenericShuffleProducer, which support json encoding of 1. Broadcast Shuffle 2. One to one Shuffle (Shuffle) 3. Hyper
  * Cube Join Shuffle (HyperJoinShuffle)
+ *
+ * A hash shuffle of one input of a join can be made skew-aware, see {@link #setSkewHandling}. The producers of one input
+ * ({@link SkewRole#SPLIT}) sample their first tuples to detect the {@link HeavyHitters}, spread the tuples of those keys
+ * round robin over all consumers, and announce the keys to the workers of the producers of the other input
+ * ({@link SkewRole#REPLICATE}), which send the tuples of those keys to all consumers. Until a replicating producer has
+ * heard from every splitting producer, it sends all its tuples to all consumers, so that every pair of matching tuples
+ * still meets at exactly one consumer. This is correct for inner joins only.
  */
 public class GenericShuffleProducer extends Producer {
 
   /** Required for Java serialization. */
   private static final long serialVersionUID = 1L;
 
+  /** How a producer takes part in a skew-aware shuffle. */
+  public static enum SkewRole {
+    /** Detect heavy hitters and spread their tuples over all consumers. */
+    SPLIT,
+    /** Send the tuples of heavy hitters to all consumers. */
+    REPLICATE
+  }
+
+  /** The default number of tuples sampled to detect heavy hitters. */
+  public static final int DEFAULT_SKEW_SAMPLE_SIZE = 4 * TupleBatch.BATCH_SIZE;
+
+  /** The default share of a consumer, relative to a fair share, above which a key is a heavy hitter. */
+  public static final double DEFAULT_SKEW_THRESHOLD = 1.0;
+
   /**
    * the partition function.
    * */
@@ -29,6 +59,69 @@ public class GenericShuffleProducer extends Producer {
    */
   private final int[][] partitionToChannel;
 
+  /** The role of this producer in a skew-aware shuffle, or null if the shuffle is not skew-aware. */
+  private SkewRole skewRole = null;
+
+  /** The id of the skew-aware shuffle, shared by the splitting and the replicating producers. */
+  private int skewGroup;
+
+  /**
+   * For a splitting producer, the workers of the replicating producers, to which heavy hitters are announced. For a
+   * replicating producer, the workers of the splitting producers, whose announcements it waits for.
+   */
+  private int[] skewPeerWorkerIds;
+
+  /** The number of tuples sampled to detect heavy hitters, or buffered while waiting for their announcement. */
+  private int skewSampleSize;
+
+  /** The share of a consumer, relative to a fair share, above which a key is a heavy hitter. */
+  private double skewThreshold;
+
+  /** The columns of the join key. */
+  private int[] skewKeyColumns;
+
+  /** {@link #partitionToChannel} plus a last partition, sent to all channels. */
+  private int[][] skewPartitionToChannel;
+
+  /** The tuples buffered while sampling or waiting for the announcement of heavy hitters. Null once sent. */
+  private transient List<TupleBatch> skewBuffer;
+
+  /** The number of tuples in {@link #skewBuffer}. */
+  private transient int skewBufferedTuples;
+
+  /** Whether the sampling or the wait for the announcement of heavy hitters is over. */
+  private transient boolean skewBufferSent;
+
+  /** The hash codes of the heavy hitters, or null if they are not known yet. */
+  private transient Set<Integer> heavyHitters;
+
+  /** The partition to which the next tuple of a heavy hitter is spread. */
+  private transient int nextSpreadPartition;
+
+  /** The number of tuples of heavy hitters spread over all consumers. */
+  private transient long numSplitTuples;
+
+  /** The number of tuples sent to all consumers. */
+  private transient long numReplicatedTuples;
+
+  /** The operator id of the join that sends semi-join filters to this producer, or null if it sends none. */
+  private Integer semiJoinId = null;
+
+  /** The columns of the join key, matching the probe columns of the join. */
+  private int[] semiJoinKeyColumns;
+
+  /**
+   * The semi-join filters of the destination workers of each partition, or null for a partition some of whose filters
+   * have not arrived yet. Kept once all filters have arrived.
+   */
+  private transient BloomFilter[][] semiJoinPartitionFilters;
+
+  /** The number of tuples dropped by semi-join filters. */
+  private transient long numSemiJoinDroppedTuples;
+
+  /** The estimated number of bytes of the tuples dropped by semi-join filters. */
+  private transient long semiJoinBytesSaved;
+
   /**
    * Shuffle to the same operator ID on multiple workers. (The old "ShuffleProducer")
    * 
@@ -89,22 +182,329 @@ public class GenericShuffleProducer extends Producer {
     return partitionFunction;
   }
 
+  /**
+   * Make this hash shuffle skew-aware. Must be called before the producer is initialized.
+   * 
+   * @param role the role of this producer in the skew-aware shuffle.
+   * @param group the id of the skew-aware shuffle, shared by the splitting and the replicating producers.
+   * @param peerWorkerIds for a splitting producer, the workers of the replicating producers; for a replicating
+   *          producer, the workers of the splitting producers.
+   * @param sampleSize the number of tuples sampled to detect heavy hitters.
+   * @param threshold the share of a consumer, relative to a fair share, above which a key is a heavy hitter.
+   */
+  public final void setSkewHandling(final SkewRole role, final int group, final int[] peerWorkerIds,
+      final int sampleSize, final double threshold) {
+    Preconditions.checkNotNull(role, "role");
+    Preconditions.checkState(semiJoinId == null, "a shuffle using semi-join filters cannot be skew-aware");
+    Preconditions.checkNotNull(peerWorkerIds, "peerWorkerIds");
+    Preconditions.checkArgument(sampleSize > 0, "sampleSize must be positive");
+    Preconditions.checkArgument(threshold > 0, "threshold must be positive");
+    if (partitionFunction instanceof SingleFieldHashPartitionFunction) {
+      skewKeyColumns = new int[] { ((SingleFieldHashPartitionFunction) partitionFunction).getIndex() };
+    } else if (partitionFunction instanceof MultiFieldHashPartitionFunction) {
+      skewKeyColumns = ((MultiFieldHashPartitionFunction) partitionFunction).getIndexes();
+    } else {
+      throw new IllegalArgumentException("A skew-aware shuffle requires a SingleFieldHash or MultiFieldHash partition");
+    }
+    skewRole = role;
+    skewGroup = group;
+    skewPeerWorkerIds = peerWorkerIds.clone();
+    skewSampleSize = sampleSize;
+    skewThreshold = threshold;
+
+    int numPartitions = partitionFunction.numPartition();
+    skewPartitionToChannel = new int[numPartitions + 1][];
+    System.arraycopy(partitionToChannel, 0, skewPartitionToChannel, 0, numPartitions);
+    skewPartitionToChannel[numPartitions] = MyriaArrayUtils.create2DHorizontalIndex(getOutputIDs().length)[0];
+    setNumOfPartition(numPartitions + 1);
+  }
+
+  /**
+   * Drop the tuples that cannot match the build input of a join, using the semi-join filters sent by the workers of the
+   * join. Until the filters of the destination workers of a partition have arrived, its tuples are sent unfiltered. Must
+   * be called before the producer is initialized, and not together with {@link #setSkewHandling}.
+   * 
+   * @param joinId the operator id of the join.
+   * @param keyColumns the columns of the join key, in the order of the probe columns of the join.
+   */
+  public final void setSemiJoinFilter(final int joinId, final int[] keyColumns) {
+    Preconditions.checkNotNull(keyColumns, "keyColumns");
+    Preconditions.checkState(skewRole == null, "a skew-aware shuffle cannot use semi-join filters");
+    semiJoinId = joinId;
+    semiJoinKeyColumns = keyColumns.clone();
+  }
+
+  /**
+   * @return whether this producer drops tuples using semi-join filters.
+   */
+  public final boolean usesSemiJoinFilter() {
+    return semiJoinId != null;
+  }
+
+  /**
+   * @return the number of tuples dropped by semi-join filters.
+   */
+  public final long getNumSemiJoinDroppedTuples() {
+    return numSemiJoinDroppedTuples;
+  }
+
+  /**
+   * @return the estimated number of bytes of the tuples dropped by semi-join filters.
+   */
+  public final long getSemiJoinBytesSaved() {
+    return semiJoinBytesSaved;
+  }
+
+  /**
+   * @return the role of this producer in a skew-aware shuffle, or null if the shuffle is not skew-aware.
+   */
+  public final SkewRole getSkewRole() {
+    return skewRole;
+  }
+
+  /**
+   * @return the number of heavy hitters, or -1 if they are not known yet.
+   */
+  public final int getNumHeavyHitters() {
+    Set<Integer> hitters = heavyHitters;
+    if (hitters == null) {
+      return -1;
+    }
+    return hitters.size();
+  }
+
+  /**
+   * @return the number of tuples of heavy hitters spread over all consumers.
+   */
+  public final long getNumSplitTuples() {
+    return numSplitTuples;
+  }
+
+  /**
+   * @return the number of tuples sent to all consumers.
+   */
+  public final long getNumReplicatedTuples() {
+    return numReplicatedTuples;
+  }
+
   @Override
   protected final void consumeTuples(final TupleBatch tup) throws DbException {
-    final TupleBatch[] partitions = getTupleBatchPartitions(tup);
+    if (skewRole != null) {
+      consumeTuplesWithSkew(tup);
+      return;
+    }
+    if (semiJoinId != null) {
+      sendPartitions(partitionToChannel, getSemiJoinFilteredPartitions(tup));
+      return;
+    }
+    sendPartitions(partitionToChannel, getTupleBatchPartitions(tup));
+  }
+
+  /**
+   * @return the semi-join filters of the destination workers of each partition, or null if no partition has all its
+   *         filters yet.
+   */
+  private BloomFilter[][] getSemiJoinPartitionFilters() {
+    if (semiJoinPartitionFilters != null) {
+      return semiJoinPartitionFilters;
+    }
+    SemiJoinFilters filters = getTaskResourceManager().getSemiJoinFilters(semiJoinId);
+    BloomFilter[][] result = new BloomFilter[partitionToChannel.length][];
+    int numComplete = 0;
+    for (int p = 0; p < partitionToChannel.length; ++p) {
+      BloomFilter[] partitionFilters = new BloomFilter[partitionToChannel[p].length];
+      for (int i = 0; i < partitionFilters.length; ++i) {
+        partitionFilters[i] = filters.get(getOutputIDs()[partitionToChannel[p][i]].getRemoteID());
+        if (partitionFilters[i] == null) {
+          partitionFilters = null;
+          break;
+        }
+      }
+      if (partitionFilters != null) {
+        result[p] = partitionFilters;
+        ++numComplete;
+      }
+    }
+    if (numComplete == 0) {
+      return null;
+    }
+    if (numComplete == result.length) {
+      semiJoinPartitionFilters = result;
+    }
+    return result;
+  }
 
+  /**
+   * Partition tuples, dropping those that the semi-join filters of all their destination workers reject.
+   * 
+   * @param tb the tuples.
+   * @return the partitions.
+   */
+  private TupleBatch[] getSemiJoinFilteredPartitions(final TupleBatch tb) {
+    BloomFilter[][] filters = getSemiJoinPartitionFilters();
+    if (filters == null) {
+      return getTupleBatchPartitions(tb);
+    }
+    int numPartitions = partitionFunction.numPartition();
+    int[] partitions = partitionFunction.partition(tb);
+    int[] hashes = HashUtils.hashSubRows(tb, semiJoinKeyColumns);
+    for (int i = 0; i < partitions.length; ++i) {
+      BloomFilter[] partitionFilters = filters[partitions[i]];
+      if (partitionFilters == null || mightMatch(partitionFilters, hashes[i])) {
+        continue;
+      }
+      /* The extra partition collects the dropped tuples, and is not sent. */
+      partitions[i] = numPartitions;
+      ++numSemiJoinDroppedTuples;
+      semiJoinBytesSaved += estimateRowBytes(tb, i);
+    }
+    return Arrays.copyOf(tb.partition(partitions, numPartitions + 1), numPartitions);
+  }
+
+  /**
+   * @param filters the semi-join filters of the destination workers of a tuple.
+   * @param keyHash the hash code of the key of the tuple.
+   * @return whether any of the filters might contain the key.
+   */
+  private static boolean mightMatch(final BloomFilter[] filters, final int keyHash) {
+    for (BloomFilter filter : filters) {
+      if (filter.mightContain(keyHash)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @param tb the tuples.
+   * @param row a row.
+   * @return the approximate number of bytes the row takes on the wire.
+   */
+  private static long estimateRowBytes(final TupleBatch tb, final int row) {
+    long bytes = 0;
+    for (int column = 0; column < tb.numColumns(); ++column) {
+      switch (tb.getSchema().getColumnType(column)) {
+        case BOOLEAN_TYPE:
+          bytes += 1;
+          break;
+        case INT_TYPE:
+        case FLOAT_TYPE:
+          bytes += Integer.SIZE / Byte.SIZE;
+          break;
+        case STRING_TYPE:
+          bytes += tb.getString(column, row).length();
+          break;
+        default:
+          bytes += Long.SIZE / Byte.SIZE;
+          break;
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Sample, buffer, or send tuples in a skew-aware shuffle.
+   * 
+   * @param tup the tuples.
+   * @throws DbException if there is an error sending the tuples.
+   */
+  private void consumeTuplesWithSkew(final TupleBatch tup) throws DbException {
+    if (heavyHitters == null && skewRole == SkewRole.REPLICATE) {
+      heavyHitters = getTaskResourceManager().getHeavyHitters(skewGroup).getIfAnnounced(skewPeerWorkerIds);
+    }
+    if (heavyHitters == null && !skewBufferSent) {
+      if (skewBuffer == null) {
+        skewBuffer = new ArrayList<>();
+      }
+      skewBuffer.add(tup);
+      skewBufferedTuples += tup.numTuples();
+      if (skewBufferedTuples >= skewSampleSize) {
+        sendSkewBuffer();
+      }
+      return;
+    }
+    sendPartitions(skewPartitionToChannel, getSkewedPartitions(tup));
+  }
+
+  /**
+   * End the sampling or the wait for the announcement of heavy hitters, and send the buffered tuples. A splitting
+   * producer detects and announces the heavy hitters here.
+   * 
+   * @throws DbException if there is an error sending the tuples.
+   */
+  private void sendSkewBuffer() throws DbException {
+    List<TupleBatch> buffered = skewBuffer;
+    skewBuffer = null;
+    skewBufferSent = true;
+    if (buffered == null) {
+      buffered = new ArrayList<>();
+    }
+    if (skewRole == SkewRole.SPLIT) {
+      int numPartitions = partitionFunction.numPartition();
+      heavyHitters = HeavyHitters.detect(buffered, skewKeyColumns, numPartitions, skewThreshold);
+      nextSpreadPartition = getTaskResourceManager().getNodeId() % numPartitions;
+      getTaskResourceManager().announceHeavyHitters(skewGroup, skewPeerWorkerIds, heavyHitters);
+    }
+    for (TupleBatch tb : buffered) {
+      sendPartitions(skewPartitionToChannel, getSkewedPartitions(tb));
+    }
+  }
+
+  /**
+   * Partition tuples in a skew-aware shuffle. The last partition goes to all consumers.
+   * 
+   * @param tb the tuples.
+   * @return the partitions.
+   */
+  private TupleBatch[] getSkewedPartitions(final TupleBatch tb) {
+    int numPartitions = partitionFunction.numPartition();
+    if (heavyHitters == null) {
+      /* A replicating producer that does not know the heavy hitters yet must send everything everywhere. */
+      TupleBatch[] result = new TupleBatch[numPartitions + 1];
+      result[numPartitions] = tb;
+      numReplicatedTuples += tb.numTuples();
+      return result;
+    }
+    int[] partitions = partitionFunction.partition(tb);
+    if (!heavyHitters.isEmpty()) {
+      int[] hashes = HeavyHitters.hashKeys(tb, skewKeyColumns);
+      for (int i = 0; i < partitions.length; ++i) {
+        if (!heavyHitters.contains(hashes[i])) {
+          continue;
+        }
+        if (skewRole == SkewRole.SPLIT) {
+          partitions[i] = nextSpreadPartition;
+          nextSpreadPartition = (nextSpreadPartition + 1) % numPartitions;
+          ++numSplitTuples;
+        } else {
+          partitions[i] = numPartitions;
+          ++numReplicatedTuples;
+        }
+      }
+    }
+    return tb.partition(partitions, numPartitions + 1);
+  }
+
+  /**
+   * Send partitions to their channels, recording the sent tuples if the query is profiled.
+   * 
+   * @param mapping the channels of each partition.
+   * @param partitions the partitions.
+   * @throws DbException if there is an error recording the sent tuples.
+   */
+  private void sendPartitions(final int[][] mapping, final TupleBatch[] partitions) throws DbException {
     if (getProfilingMode().contains(ProfilingMode.QUERY)) {
       for (int partitionIdx = 0; partitionIdx < partitions.length; partitionIdx++) {
         if (partitions[partitionIdx] != null) {
           final int numTuples = partitions[partitionIdx].numTuples();
-          for (int channelId : partitionToChannel[partitionIdx]) {
+          for (int channelId : mapping[partitionIdx]) {
             final int destWorkerId = getOutputIDs()[channelId].getRemoteID();
             getProfilingLogger().recordSent(this, numTuples, destWorkerId);
           }
         }
       }
     }
-    writePartitionsIntoChannels(true, partitionToChannel, partitions);
+    writePartitionsIntoChannels(true, mapping, partitions);
   }
 
   /**
@@ -120,6 +520,16 @@ public class GenericShuffleProducer extends Producer {
 
   @Override
   protected void childEOS() throws DbException {
+    if (skewRole != null) {
+      if (!skewBufferSent) {
+        sendSkewBuffer();
+      }
+      writePartitionsIntoChannels(false, skewPartitionToChannel, null);
+      for (int p = 0; p < numChannels(); p++) {
+        super.channelEnds(p);
+      }
+      return;
+    }
     writePartitionsIntoChannels(false, partitionToChannel, null);
     for (int p = 0; p < numChannels(); p++) {
       super.channelEnds(p);
@@ -128,6 +538,18 @@ public class GenericShuffleProducer extends Producer {
 
   @Override
   protected final void childEOI() throws DbException {
+    if (skewRole != null) {
+      if (!skewBufferSent) {
+        sendSkewBuffer();
+      }
+      /* One EOI per channel: none goes through the partition sent to all consumers. */
+      TupleBatch[] partitions = new TupleBatch[getNumOfPartition()];
+      for (int i = 0; i < partitionFunction.numPartition(); i++) {
+        partitions[i] = TupleBatch.eoiTupleBatch(getSchema());
+      }
+      writePartitionsIntoChannels(false, skewPartitionToChannel, partitions);
+      return;
+    }
     TupleBatch[] partitions = new TupleBatch[getNumOfPartition()];
     for (int i = 0; i < getNumOfPartition(); i++) {
       partitions[i] = TupleBatch.eoiTupleBatch(getSchema());
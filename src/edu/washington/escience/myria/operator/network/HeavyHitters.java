@@ -0,0 +1,94 @@
+package edu.washington.escience.myria.operator.network;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.util.HashUtils;
+
+/**
+ * The heavy hitters of a skew-aware shuffle, i.e., the join keys so frequent that sending all their tuples to a single
+ * worker would overload it. The producers that split heavy hitters, see {@link GenericShuffleProducer.SkewRole#SPLIT},
+ * detect them in a sample of their input and announce them to the workers of the producers that replicate the matching
+ * tuples. An instance of this class collects the announcements received by one worker for one skew-aware shuffle.
+ *
+ * Keys are identified by their hash codes, so that both inputs of a join agree on them. Two keys with the same hash code
+ * are both treated as heavy hitters, which only costs some extra replication.
+ */
+public final class HeavyHitters {
+
+  /** The workers that have announced their heavy hitters. */
+  private final Set<Integer> announcers = new HashSet<>();
+  /** The hash codes of the heavy hitters announced so far. */
+  private final Set<Integer> keyHashes = new HashSet<>();
+
+  /**
+   * Record the heavy hitters detected by a worker.
+   *
+   * @param workerId the worker.
+   * @param hashes the hash codes of the heavy hitters.
+   */
+  public synchronized void announce(final int workerId, final Collection<Integer> hashes) {
+    announcers.add(workerId);
+    keyHashes.addAll(hashes);
+  }
+
+  /**
+   * @param workerIds the workers that detect heavy hitters.
+   * @return the hash codes of all heavy hitters, or null if some of the workers have not announced theirs yet.
+   */
+  public synchronized ImmutableSet<Integer> getIfAnnounced(final int[] workerIds) {
+    for (int workerId : workerIds) {
+      if (!announcers.contains(workerId)) {
+        return null;
+      }
+    }
+    return ImmutableSet.copyOf(keyHashes);
+  }
+
+  /**
+   * @param tb the tuples.
+   * @param keyColumns the columns of the join key.
+   * @return the hash code of the key of every tuple.
+   */
+  public static int[] hashKeys(final TupleBatch tb, final int[] keyColumns) {
+    return HashUtils.hashSubRows(tb, keyColumns);
+  }
+
+  /**
+   * Find the heavy hitters in a sample. A key is a heavy hitter if its share of the sample is at least
+   * {@code threshold} times the share of each of the {@code numPartitions} consumers, and it occurs at least twice.
+   *
+   * @param sample the sample.
+   * @param keyColumns the columns of the join key.
+   * @param numPartitions the number of consumers.
+   * @param threshold the share of a consumer above which a key is a heavy hitter.
+   * @return the hash codes of the heavy hitters.
+   */
+  public static ImmutableSet<Integer> detect(final List<TupleBatch> sample, final int[] keyColumns,
+      final int numPartitions, final double threshold) {
+    Map<Integer, Integer> counts = new HashMap<>();
+    long numTuples = 0;
+    for (TupleBatch tb : sample) {
+      for (int hash : hashKeys(tb, keyColumns)) {
+        Integer count = counts.get(hash);
+        counts.put(hash, count == null ? 1 : count + 1);
+      }
+      numTuples += tb.numTuples();
+    }
+    double minCount = Math.max(2, threshold * numTuples / numPartitions);
+    ImmutableSet.Builder<Integer> heavy = ImmutableSet.builder();
+    for (Map.Entry<Integer, Integer> e : counts.entrySet()) {
+      if (e.getValue() >= minCount) {
+        heavy.add(e.getKey());
+      }
+    }
+    return heavy.build();
+  }
+}
@@ -11,7 +11,10 @@ import com.google.common.collect.ImmutableMap;
 
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.MyriaConstants.ColumnCompression;
 import edu.washington.escience.myria.MyriaConstants.FTMode;
+import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.column.builder.ColumnCompressor;
 import edu.washington.escience.myria.operator.DupElim;
 import edu.washington.escience.myria.operator.KeepAndSortOnMinValue;
 import edu.washington.escience.myria.operator.KeepMinValue;
@@ -27,6 +30,7 @@ import edu.washington.escience.myria.parallel.ipc.IPCEvent;
 import edu.washington.escience.myria.parallel.ipc.IPCEventListener;
 import edu.washington.escience.myria.parallel.ipc.StreamIOChannelID;
 import edu.washington.escience.myria.parallel.ipc.StreamOutputChannel;
+import edu.washington.escience.myria.proto.TransportProto.TransportMessage;
 import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.storage.TupleBatchBuffer;
 import edu.washington.escience.myria.util.MyriaArrayUtils;
@@ -79,6 +83,12 @@ public abstract class Producer extends RootOperator {
    * */
   private transient boolean nonBlockingExecution;
 
+  /**
+   * In blocking mode, {@link #writeMessage} waits on this monitor while its channel is not writable, until the channel
+   * fires {@link StreamOutputChannel#OUTPUT_RECOVERED}.
+   * */
+  private transient Object outputRecovered;
+
   /** number of parition, by default 1. */
   private int numOfPartition = 1;
 
@@ -195,6 +205,7 @@ public abstract class Producer extends RootOperator {
   public final void init(final ImmutableMap<String, Object> execEnvVars) throws DbException {
     taskResourceManager =
         (LocalFragmentResourceManager) execEnvVars.get(MyriaConstants.EXEC_ENV_VAR_FRAGMENT_RESOURCE_MANAGER);
+    outputRecovered = new Object();
     partitionBuffers = new TupleBatchBuffer[numOfPartition];
     for (int i = 0; i < numOfPartition; i++) {
       partitionBuffers[i] = new TupleBatchBuffer(getSchema());
@@ -237,11 +248,24 @@ public abstract class Producer extends RootOperator {
       @Override
       public void triggered(final IPCEvent event) {
         taskResourceManager.getFragment().notifyOutputEnabled(localizedOutputIDs[i]);
+        signalOutputRecovered();
       }
     });
     ioChannelsAvail[i] = true;
   }
 
+  /**
+   * Wake up the thread blocked in {@link #writeMessage}, if any, because one of the channels is writable again.
+   * */
+  final void signalOutputRecovered() {
+    Object monitor = outputRecovered;
+    if (monitor != null) {
+      synchronized (monitor) {
+        monitor.notifyAll();
+      }
+    }
+  }
+
   /**
    * set backup buffers as KeepMinValue.
    * 
@@ -290,41 +314,75 @@ public abstract class Producer extends RootOperator {
 
   /** the number of tuples written to channels. */
   private long numTuplesWrittenToChannels = 0;
+  /** the raw size of the columns written to remote channels, in bytes, if column compression is enabled. */
+  private long bytesBeforeCompression = 0;
+  /** the compressed size of the columns written to remote channels, in bytes, if column compression is enabled. */
+  private long bytesAfterCompression = 0;
+  /** nanoseconds spent compressing the columns written to remote channels. */
+  private long compressionNanos = 0;
+  /** nanoseconds spent in blocking mode waiting for channels to become writable. */
+  private long outputBlockedNanos = 0;
 
   /**
+   * Write a message to a channel. In blocking mode, the calling thread first waits until the channel is writable.
+   * 
    * @param chIdx the channel to write
    * @param msg the message.
-   * @return write future
+   * @return write future, or null if the thread was interrupted while waiting
    * */
   protected final ChannelFuture writeMessage(final int chIdx, final TupleBatch msg) {
     StreamOutputChannel<TupleBatch> ch = ioChannels[chIdx];
     if (nonBlockingExecution) {
       numTuplesWrittenToChannels += msg.numTuples();
-      return ch.write(msg);
+      return write(chIdx, msg);
     } else {
-      int sleepTime = 1;
-      int maxSleepTime = MyriaConstants.SHORT_WAITING_INTERVAL_MS;
-      while (true) {
-        if (ch.isWritable()) {
-          numTuplesWrittenToChannels += msg.numTuples();
-          return ch.write(msg);
-        } else {
-          int toSleep = sleepTime - 1;
-          if (maxSleepTime < sleepTime) {
-            toSleep = maxSleepTime;
-          }
-          try {
-            Thread.sleep(toSleep);
-          } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return null;
+      if (!ch.isWritable()) {
+        long start = System.nanoTime();
+        synchronized (outputRecovered) {
+          while (!ch.isWritable()) {
+            try {
+              /* Woken up by OUTPUT_RECOVERED. The timeout only guards against a change of writability without event. */
+              outputRecovered.wait(MyriaConstants.SHORT_WAITING_INTERVAL_MS);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              outputBlockedNanos += System.nanoTime() - start;
+              return null;
+            }
           }
-          sleepTime *= 2;
         }
+        outputBlockedNanos += System.nanoTime() - start;
       }
+      numTuplesWrittenToChannels += msg.numTuples();
+      return write(chIdx, msg);
     }
   }
 
+  /**
+   * Write a TupleBatch to a channel. If the subquery compresses its shuffled columns and the channel goes to another
+   * process, the TupleBatch is compressed into a TransportMessage here, which the IPC layer sends as is.
+   * 
+   * @param chIdx the channel to write
+   * @param msg the message.
+   * @return write future
+   * */
+  @SuppressWarnings("unchecked")
+  private ChannelFuture write(final int chIdx, final TupleBatch msg) {
+    StreamOutputChannel<TupleBatch> ch = ioChannels[chIdx];
+    ColumnCompression compression = taskResourceManager.getFragment().getLocalSubQuery().getColumnCompression();
+    if (compression == ColumnCompression.NONE || msg.isEOI()
+        || localizedOutputIDs[chIdx].getRemoteID() == taskResourceManager.getNodeId()) {
+      return ch.write(msg);
+    }
+    long start = System.nanoTime();
+    TransportMessage tm = msg.toTransportMessage(compression);
+    compressionNanos += System.nanoTime() - start;
+    for (Column<?> column : msg.getDataColumns()) {
+      bytesBeforeCompression += ColumnCompressor.rawSize(column);
+    }
+    bytesAfterCompression += tm.getSerializedSize();
+    return ((StreamOutputChannel<Object>) (StreamOutputChannel<?>) ch).write(tm);
+  }
+
   /**
    * Pop tuple batches from each of the buffers and try to write them to corresponding channels, if possible.
    * 
@@ -588,4 +646,32 @@ public abstract class Producer extends RootOperator {
   public final long getNumTuplesWrittenToChannels() {
     return numTuplesWrittenToChannels;
   }
+
+  /**
+   * @return the raw size, in bytes, of the columns compressed by this producer.
+   */
+  public final long getBytesBeforeCompression() {
+    return bytesBeforeCompression;
+  }
+
+  /**
+   * @return the size, in bytes, of the columns compressed by this producer after compression.
+   */
+  public final long getBytesAfterCompression() {
+    return bytesAfterCompression;
+  }
+
+  /**
+   * @return the number of nanoseconds this producer spent compressing columns.
+   */
+  public final long getCompressionNanos() {
+    return compressionNanos;
+  }
+
+  /**
+   * @return the number of nanoseconds this producer spent in blocking mode waiting for channels to become writable.
+   */
+  public final long getOutputBlockedNanos() {
+    return outputBlockedNanos;
+  }
 }
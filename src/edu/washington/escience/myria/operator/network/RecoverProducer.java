@@ -61,6 +61,7 @@ public final class RecoverProducer extends CollectProducer {
       oriProducer.getChannelsAvail()[channelIndx] = true;
       /* if the channel was disabled before crash, need to give the task a chance to enable it. */
       oriProducer.getTaskResourceManager().getFragment().notifyOutputEnabled(tmp.getID());
+      oriProducer.signalOutputRecovered();
       /* if the task has no new input, but needs to produce potential EOSs & push TBs in its buffers out. */
       oriProducer.getTaskResourceManager().getFragment().notifyNewInput();
     } else {
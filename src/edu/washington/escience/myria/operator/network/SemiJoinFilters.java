@@ -0,0 +1,36 @@
+package edu.washington.escience.myria.operator.network;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.washington.escience.myria.util.BloomFilter;
+
+/**
+ * The Bloom filters of a semi-join reduction, i.e., of the keys of the build input of a hash join. Each worker of the
+ * join sends the filter of the keys in its partition of the build input to the workers of the producers that shuffle
+ * the probe input, which then drop the tuples that cannot match before sending them. An instance of this class collects
+ * the filters received by one worker for one join.
+ */
+public final class SemiJoinFilters {
+
+  /** The filter of each worker of the join, by worker id. */
+  private final Map<Integer, BloomFilter> filters = new HashMap<>();
+
+  /**
+   * Record the filter of the build keys of a worker of the join.
+   *
+   * @param workerId the worker.
+   * @param filter the filter of its build keys.
+   */
+  public synchronized void put(final int workerId, final BloomFilter filter) {
+    filters.put(workerId, filter);
+  }
+
+  /**
+   * @param workerId a worker of the join.
+   * @return the filter of the build keys of the worker, or null if it has not arrived yet.
+   */
+  public synchronized BloomFilter get(final int workerId) {
+    return filters.get(workerId);
+  }
+}
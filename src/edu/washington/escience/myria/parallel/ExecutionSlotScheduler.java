@@ -0,0 +1,227 @@
+package edu.washington.escience.myria.parallel;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import com.google.common.base.Preconditions;
+
+import edu.washington.escience.myria.proto.ControlProto;
+
+/**
+ * Shares the execution slots of a worker fairly between the queries running on it. A slot is the right to have one
+ * {@link LocalFragment} in execution; a worker has as many slots as query executor threads.
+ *
+ * When all slots are taken, fragments wait in per-subquery queues. A freed slot goes to the waiting subquery that has
+ * used the least slot time divided by its priority, so a query with priority 2 gets twice the slot time of a query with
+ * priority 1. To keep a long-running fragment from holding a slot forever, a fragment yields its slot after a time
+ * slice, proportional to its query's priority, if other fragments are waiting.
+ *
+ * The slot time of each subquery is reported to the master in the heartbeats, see {@link #addSlotUsage}, which adds up
+ * the subqueries of a query. A subquery that has finished is reported once more, so that the master also gets the slot
+ * time it used since the last heartbeat.
+ */
+final class ExecutionSlotScheduler {
+
+  /** The slot usage of one subquery. */
+  private static final class QueryShare {
+    /** The weight of the query. */
+    private final int priority;
+    /** The fragments waiting for a slot, in the order in which they asked. */
+    private final ArrayDeque<LocalFragment> waiting = new ArrayDeque<>();
+    /** The number of slots used by the query. */
+    private int slotsInUse;
+    /** The slot time used by the subquery, in nanoseconds. */
+    private long slotNanos;
+    /** The slot time used by the subquery divided by its priority, in nanoseconds. */
+    private double virtualNanos;
+    /** Whether the subquery has finished, so that its usage can be forgotten once it holds no slots. */
+    private boolean released;
+
+    /**
+     * @param priority the weight of the query.
+     * @param virtualNanos the initial weighted slot time.
+     */
+    private QueryShare(final int priority, final double virtualNanos) {
+      this.priority = priority;
+      this.virtualNanos = virtualNanos;
+    }
+  }
+
+  /** The number of slots. */
+  private final int numSlots;
+  /** The time slice of a query with priority 1, in nanoseconds. */
+  private final long timeSliceNanos;
+  /** The number of slots in use. */
+  @GuardedBy("this")
+  private int slotsInUse;
+  /** The number of fragments waiting for a slot. Read without the lock to decide whether fragments should yield. */
+  private volatile int numWaiting;
+  /** The slot usage of each subquery. */
+  @GuardedBy("this")
+  private final Map<SubQueryId, QueryShare> shares = new HashMap<>();
+  /** The slot time of the subqueries that have finished since the last heartbeat, in nanoseconds. */
+  @GuardedBy("this")
+  private final Map<SubQueryId, Long> finishedSlotNanos = new HashMap<>();
+
+  /**
+   * @param numSlots the number of slots.
+   * @param timeSliceMillis the time slice of a query with priority 1, in milliseconds.
+   */
+  ExecutionSlotScheduler(final int numSlots, final long timeSliceMillis) {
+    Preconditions.checkArgument(numSlots > 0, "numSlots must be positive");
+    Preconditions.checkArgument(timeSliceMillis > 0, "timeSliceMillis must be positive");
+    this.numSlots = numSlots;
+    timeSliceNanos = TimeUnit.MILLISECONDS.toNanos(timeSliceMillis);
+  }
+
+  /**
+   * @param subQueryId the subquery.
+   * @param priority the weight of the query.
+   * @return the slot usage of the subquery, created if the subquery has none yet.
+   */
+  @GuardedBy("this")
+  private QueryShare getShare(final SubQueryId subQueryId, final int priority) {
+    QueryShare share = shares.get(subQueryId);
+    if (share == null) {
+      /* Start at the least weighted slot time of the other queries, so that a new query cannot claim all slots. */
+      double virtualNanos = Double.MAX_VALUE;
+      for (QueryShare other : shares.values()) {
+        virtualNanos = Math.min(virtualNanos, other.virtualNanos);
+      }
+      share = new QueryShare(priority, shares.isEmpty() ? 0 : virtualNanos);
+      shares.put(subQueryId, share);
+    }
+    return share;
+  }
+
+  /**
+   * Forget the slot usage of a finished subquery, and keep its slot time for the next heartbeat.
+   *
+   * @param subQueryId the subquery.
+   * @param share the slot usage of the subquery.
+   */
+  @GuardedBy("this")
+  private void removeShare(final SubQueryId subQueryId, final QueryShare share) {
+    shares.remove(subQueryId);
+    finishedSlotNanos.put(subQueryId, share.slotNanos);
+  }
+
+  /**
+   * Ask for a slot in which the specified fragment will execute. The fragment runs as soon as a slot is free, via
+   * {@link LocalFragment#executeInSlot()}.
+   *
+   * @param fragment the fragment.
+   * @param subQueryId the subquery of the fragment.
+   * @param priority the weight of the query.
+   */
+  void requestSlot(final LocalFragment fragment, final SubQueryId subQueryId, final int priority) {
+    synchronized (this) {
+      QueryShare share = getShare(subQueryId, priority);
+      if (slotsInUse >= numSlots) {
+        share.waiting.add(fragment);
+        ++numWaiting;
+        return;
+      }
+      ++slotsInUse;
+      ++share.slotsInUse;
+    }
+    fragment.executeInSlot();
+  }
+
+  /**
+   * Give back the slot of a fragment of the specified subquery, and hand it to the next waiting fragment, if any.
+   *
+   * @param subQueryId the subquery of the fragment.
+   * @param usedNanos how long the fragment held the slot, in nanoseconds.
+   */
+  void releaseSlot(final SubQueryId subQueryId, final long usedNanos) {
+    LocalFragment next = null;
+    synchronized (this) {
+      --slotsInUse;
+      QueryShare share = shares.get(subQueryId);
+      if (share != null) {
+        --share.slotsInUse;
+        share.slotNanos += usedNanos;
+        share.virtualNanos += (double) usedNanos / share.priority;
+        if (share.released && share.slotsInUse == 0 && share.waiting.isEmpty()) {
+          removeShare(subQueryId, share);
+        }
+      }
+
+      QueryShare nextShare = null;
+      for (QueryShare candidate : shares.values()) {
+        if (!candidate.waiting.isEmpty() && (nextShare == null || candidate.virtualNanos < nextShare.virtualNanos)) {
+          nextShare = candidate;
+        }
+      }
+      if (nextShare != null) {
+        next = nextShare.waiting.poll();
+        --numWaiting;
+        ++slotsInUse;
+        ++nextShare.slotsInUse;
+      }
+    }
+    if (next != null) {
+      next.executeInSlot();
+    }
+  }
+
+  /**
+   * @param priority the weight of the query of a fragment.
+   * @param heldNanos how long the fragment has held its slot, in nanoseconds.
+   * @return whether the fragment should give its slot to a waiting fragment.
+   */
+  boolean shouldYield(final int priority, final long heldNanos) {
+    return numWaiting > 0 && heldNanos >= timeSliceNanos * priority;
+  }
+
+  /**
+   * Forget the slot usage of a subquery once it has finished on this worker, or once its fragments give back their
+   * slots if they still hold some.
+   *
+   * @param subQueryId the subquery.
+   */
+  synchronized void releaseSubQuery(final SubQueryId subQueryId) {
+    QueryShare share = shares.get(subQueryId);
+    if (share == null) {
+      return;
+    }
+    share.released = true;
+    if (share.slotsInUse == 0 && share.waiting.isEmpty()) {
+      removeShare(subQueryId, share);
+    }
+  }
+
+  /**
+   * Add the slot usage of this worker and of each subquery on it to a heartbeat, including the subqueries that have
+   * finished since the last heartbeat.
+   *
+   * @param load the load reported by the heartbeat.
+   */
+  synchronized void addSlotUsage(final ControlProto.WorkerLoad.Builder load) {
+    load.setSlots(numSlots).setSlotsInUse(slotsInUse);
+    for (Map.Entry<SubQueryId, QueryShare> e : shares.entrySet()) {
+      QueryShare share = e.getValue();
+      load.addQuerySlotUsage(querySlotUsage(e.getKey(), share.slotNanos).setSlotsInUse(share.slotsInUse)
+          .setWaitingFragments(share.waiting.size()));
+    }
+    for (Map.Entry<SubQueryId, Long> e : finishedSlotNanos.entrySet()) {
+      load.addQuerySlotUsage(querySlotUsage(e.getKey(), e.getValue()).setSlotsInUse(0).setWaitingFragments(0));
+    }
+    finishedSlotNanos.clear();
+  }
+
+  /**
+   * @param subQueryId the subquery.
+   * @param slotNanos the slot time used by the subquery, in nanoseconds.
+   * @return the slot usage of the subquery, to which the slots in use and waiting fragments must be added.
+   */
+  private static ControlProto.QuerySlotUsage.Builder querySlotUsage(final SubQueryId subQueryId, final long slotNanos) {
+    return ControlProto.QuerySlotUsage.newBuilder().setQueryId(subQueryId.getQueryId()).setSubqueryId(
+        subQueryId.getSubqueryId()).setSlotNanos(slotNanos);
+  }
+}
@@ -13,20 +13,34 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.annotation.Nullable;
+
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.MyriaConstants.ColumnCompression;
 import edu.washington.escience.myria.MyriaConstants.ProfilingMode;
+import edu.washington.escience.myria.expression.evaluate.EvaluatorCache;
+import edu.washington.escience.myria.operator.AbstractDbInsert;
+import edu.washington.escience.myria.operator.Apply;
+import edu.washington.escience.myria.operator.ExternalOrderBy;
+import edu.washington.escience.myria.operator.Filter;
 import edu.washington.escience.myria.operator.IDBController;
 import edu.washington.escience.myria.operator.LeapFrogJoin;
 import edu.washington.escience.myria.operator.Operator;
+import edu.washington.escience.myria.operator.RightHashJoin;
 import edu.washington.escience.myria.operator.RootOperator;
 import edu.washington.escience.myria.operator.SymmetricHashJoin;
+import edu.washington.escience.myria.operator.agg.MultiGroupByAggregate;
 import edu.washington.escience.myria.operator.network.Consumer;
+import edu.washington.escience.myria.operator.network.GenericShuffleProducer;
 import edu.washington.escience.myria.operator.network.Producer;
 import edu.washington.escience.myria.parallel.ipc.IPCConnectionPool;
 import edu.washington.escience.myria.parallel.ipc.StreamIOChannelID;
@@ -59,6 +73,27 @@ public final class LocalFragment {
    */
   private final ExecutorService myExecutor;
 
+  /**
+   * Shares the execution slots of the worker between queries, or null if this fragment does not wait for slots.
+   */
+  @Nullable
+  private final ExecutionSlotScheduler slotScheduler;
+
+  /**
+   * The weight of the query of this fragment in the fair sharing of execution slots.
+   */
+  private final int priority;
+
+  /**
+   * When this fragment got its current execution slot, in nanoseconds.
+   */
+  private volatile long slotStartNanos;
+
+  /**
+   * Whether the last execution gave up its slot to a waiting fragment, so that the fragment must ask for a slot again.
+   */
+  private volatile boolean yielded = false;
+
   /**
    * Each bit for each output channel. Currently, if a single output channel is not writable, the whole
    * {@link LocalFragment} stops.
@@ -75,6 +110,11 @@ public final class LocalFragment {
    */
   private final Callable<Void> executionPlan;
 
+  /**
+   * Executes {@link #executionPlan} in an execution slot, and gives the slot back afterwards.
+   */
+  private final Callable<Void> slotExecutionPlan;
+
   /**
    * Task for executing initialization code .
    */
@@ -153,6 +193,21 @@ public final class LocalFragment {
    */
   LocalFragment(final IPCConnectionPool connectionPool, final LocalSubQuery localSubQuery, final RootOperator root,
       final ExecutorService executor) {
+    this(connectionPool, localSubQuery, root, executor, null, 1);
+  }
+
+  /**
+   * @param connectionPool the IPC connection pool.
+   * @param localSubQuery the {@link LocalSubQuery} of which this {@link LocalFragment} is a part.
+   * @param root the root operator this fragment will run.
+   * @param executor the executor who provides the execution service for the fragment to run on
+   * @param slotScheduler shares the execution slots of the worker between queries, or null to execute without a slot.
+   * @param priority the weight of the query in the fair sharing of execution slots.
+   */
+  LocalFragment(final IPCConnectionPool connectionPool, final LocalSubQuery localSubQuery, final RootOperator root,
+      final ExecutorService executor, @Nullable final ExecutionSlotScheduler slotScheduler, final int priority) {
+    this.slotScheduler = slotScheduler;
+    this.priority = priority;
     ipcEntityID = connectionPool.getMyIPCID();
     resourceManager = new LocalFragmentResourceManager(connectionPool, this);
 
@@ -218,6 +273,23 @@ public final class LocalFragment {
       }
     };
 
+    slotExecutionPlan = new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        try {
+          executionPlan.call();
+        } finally {
+          slotScheduler.releaseSlot(localSubQuery.getSubQueryId(), System.nanoTime() - slotStartNanos);
+        }
+        if (yielded) {
+          /* Wait for a slot again, behind the fragments to which this one yielded. */
+          yielded = false;
+          execute();
+        }
+        return null;
+      }
+    };
+
     initTask = new Callable<Void>() {
       @Override
       public Void call() throws Exception {
@@ -474,6 +546,12 @@ public final class LocalFragment {
                 Thread.currentThread().interrupt();
                 break;
               }
+              if (hasData && slotScheduler != null
+                  && slotScheduler.shouldYield(priority, System.nanoTime() - slotStartNanos)) {
+                // let fragments of other queries use the slot.
+                yielded = true;
+                break;
+              }
             }
           } catch (final Throwable e) {
             if (LOGGER.isErrorEnabled()) {
@@ -483,7 +561,7 @@ public final class LocalFragment {
             AtomicUtils.setBitByValue(executionCondition, STATE_FAIL);
           }
 
-          if (breakByOutputUnavailable) {
+          if (breakByOutputUnavailable || yielded) {
             // we do not know whether all the inputs have been consumed, recover the input available bit
             AtomicUtils.setBitByValue(executionCondition, STATE_INPUT_AVAILABLE);
           }
@@ -492,7 +570,7 @@ public final class LocalFragment {
 
         // Check if another round of execution is needed.
         int oldV = executionCondition.get();
-        while (oldV != EXECUTION_CONTINUE) {
+        while (yielded || oldV != EXECUTION_CONTINUE) {
           // try clear the STATE_EXECUTION_REQUESTED and STATE_IN_EXECUTION bit
           if (executionCondition.compareAndSet(oldV, oldV & ~(STATE_EXECUTION_REQUESTED | STATE_IN_EXECUTION))) {
             // exit execution.
@@ -677,10 +755,42 @@ public final class LocalFragment {
 
     if (executionCondition.compareAndSet(EXECUTION_READY, EXECUTION_READY | STATE_EXECUTION_REQUESTED)) {
       // set in execution.
-      executionHandle = myExecutor.submit(executionPlan);
+      if (slotScheduler == null) {
+        executionHandle = myExecutor.submit(executionPlan);
+      } else {
+        slotScheduler.requestSlot(this, localSubQuery.getSubQueryId(), priority);
+      }
     }
   }
 
+  /**
+   * Execute this {@link LocalFragment} in the execution slot that the {@link ExecutionSlotScheduler} has given it. If
+   * {@link #kill()} cancels the execution before it starts, the slot is released when the execution is cancelled.
+   */
+  void executeInSlot() {
+    slotStartNanos = System.nanoTime();
+    /* Set by whichever of the execution and its cancellation comes first, which then releases the slot. */
+    final AtomicBoolean slotTaken = new AtomicBoolean(false);
+    FutureTask<Void> task = new FutureTask<Void>(new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        if (!slotTaken.compareAndSet(false, true)) {
+          return null;
+        }
+        return slotExecutionPlan.call();
+      }
+    }) {
+      @Override
+      protected void done() {
+        if (isCancelled() && slotTaken.compareAndSet(false, true)) {
+          slotScheduler.releaseSlot(localSubQuery.getSubQueryId(), 0);
+        }
+      }
+    };
+    executionHandle = task;
+    myExecutor.execute(task);
+  }
+
   /**
    * Execution environment variable.
    */
@@ -795,24 +905,112 @@ public final class LocalFragment {
   public void collectOperatorResourceMeasurements(final List<ResourceStats> stats, final long timestamp,
       final Operator op, final SubQueryId subQueryId) {
     if (op instanceof Producer) {
-      addResourceReport(stats, timestamp, op, "numTuplesWritten", ((Producer) op).getNumTuplesWrittenToChannels(),
+      Producer producer = (Producer) op;
+      addResourceReport(stats, timestamp, op, "numTuplesWritten", producer.getNumTuplesWrittenToChannels(), subQueryId);
+      addResourceReport(stats, timestamp, op, "numTuplesInBuffers", producer.getNumTuplesInBuffers(), subQueryId);
+      addResourceReport(stats, timestamp, op, "outputBlockedNanos", producer.getOutputBlockedNanos(), subQueryId);
+      if (getLocalSubQuery().getColumnCompression() != ColumnCompression.NONE) {
+        addResourceReport(stats, timestamp, op, "bytesBeforeCompression", producer.getBytesBeforeCompression(),
+            subQueryId);
+        addResourceReport(stats, timestamp, op, "bytesAfterCompression", producer.getBytesAfterCompression(),
+            subQueryId);
+        addResourceReport(stats, timestamp, op, "compressionNanos", producer.getCompressionNanos(), subQueryId);
+      }
+      if (op instanceof GenericShuffleProducer && ((GenericShuffleProducer) op).getSkewRole() != null) {
+        GenericShuffleProducer shuffle = (GenericShuffleProducer) op;
+        addResourceReport(stats, timestamp, op, "heavyHitters", shuffle.getNumHeavyHitters(), subQueryId);
+        addResourceReport(stats, timestamp, op, "skewSplitTuples", shuffle.getNumSplitTuples(), subQueryId);
+        addResourceReport(stats, timestamp, op, "skewReplicatedTuples", shuffle.getNumReplicatedTuples(), subQueryId);
+      }
+      if (op instanceof GenericShuffleProducer && ((GenericShuffleProducer) op).usesSemiJoinFilter()) {
+        GenericShuffleProducer shuffle = (GenericShuffleProducer) op;
+        addResourceReport(stats, timestamp, op, "semiJoinDroppedTuples", shuffle.getNumSemiJoinDroppedTuples(),
+            subQueryId);
+        addResourceReport(stats, timestamp, op, "semiJoinBytesSaved", shuffle.getSemiJoinBytesSaved(), subQueryId);
+      }
+    } else if (op instanceof Consumer) {
+      addResourceReport(stats, timestamp, op, "deserializationNanos", ((Consumer) op).getDeserializationNanos(),
           subQueryId);
-      addResourceReport(stats, timestamp, op, "numTuplesInBuffers", ((Producer) op).getNumTuplesInBuffers(), subQueryId);
     } else if (op instanceof IDBController) {
-      addResourceReport(stats, timestamp, op, "numTuplesInState", ((IDBController) op).getStreamingState().numTuples(),
-          subQueryId);
+      IDBController idb = (IDBController) op;
+      addResourceReport(stats, timestamp, op, "numTuplesInState", idb.getStreamingState().numTuples(), subQueryId);
+      addResourceReport(stats, timestamp, op, "numIterations", idb.getNumIterations(), subQueryId);
+      int[] deltaSizes = idb.getIterationDeltaSizes();
+      long[] iterationNanos = idb.getIterationNanos();
+      if (deltaSizes.length > 0 && iterationNanos.length > 0) {
+        addResourceReport(stats, timestamp, op, "lastDeltaSize", deltaSizes[deltaSizes.length - 1], subQueryId);
+        addResourceReport(stats, timestamp, op, "lastIterationNanos", iterationNanos[iterationNanos.length - 1],
+            subQueryId);
+      }
     } else if (op instanceof SymmetricHashJoin) {
-      addResourceReport(stats, timestamp, op, "hashTableSize", ((SymmetricHashJoin) op).getNumTuplesInHashTables(),
+      SymmetricHashJoin join = (SymmetricHashJoin) op;
+      addResourceReport(stats, timestamp, op, "hashTableSize", join.getNumTuplesInHashTables(), subQueryId);
+      addResourceReport(stats, timestamp, op, "spilledBytes", join.getSpilledBytes(), subQueryId);
+      addResourceReport(stats, timestamp, op, "spillPartitions", join.getSpillPartitions(), subQueryId);
+      addResourceReport(stats, timestamp, op, "spillPasses", join.getSpillPasses(), subQueryId);
+      if (join.sendsSemiJoinFilter()) {
+        addResourceReport(stats, timestamp, op, "semiJoinFilterBytes", join.getSemiJoinFilterBytes(), subQueryId);
+        /* Measurements are integers, so the rate is reported in parts per million. */
+        addResourceReport(stats, timestamp, op, "semiJoinFilterFalsePositivePpm", Math.round(join
+            .getSemiJoinFilterFalsePositiveRate() * 1e6), subQueryId);
+      }
+    } else if (op instanceof RightHashJoin) {
+      RightHashJoin join = (RightHashJoin) op;
+      addResourceReport(stats, timestamp, op, "spilledBytes", join.getSpilledBytes(), subQueryId);
+      addResourceReport(stats, timestamp, op, "spillPartitions", join.getSpillPartitions(), subQueryId);
+      addResourceReport(stats, timestamp, op, "spillPasses", join.getSpillPasses(), subQueryId);
+      addResourceReport(stats, timestamp, op, "hashTableFromCache", join.isRightHashTableFromCache() ? 1 : 0,
           subQueryId);
+    } else if (op instanceof ExternalOrderBy) {
+      ExternalOrderBy orderBy = (ExternalOrderBy) op;
+      addResourceReport(stats, timestamp, op, "spilledBytes", orderBy.getSpilledBytes(), subQueryId);
+      addResourceReport(stats, timestamp, op, "numRuns", orderBy.getNumRuns(), subQueryId);
+    } else if (op instanceof MultiGroupByAggregate) {
+      MultiGroupByAggregate agg = (MultiGroupByAggregate) op;
+      addResourceReport(stats, timestamp, op, "spilledBytes", agg.getSpilledBytes(), subQueryId);
+      addResourceReport(stats, timestamp, op, "spillPartitions", agg.getSpillPartitions(), subQueryId);
+    } else if (op instanceof AbstractDbInsert) {
+      AbstractDbInsert insert = (AbstractDbInsert) op;
+      long loadNanos = insert.getLoadNanos();
+      addResourceReport(stats, timestamp, op, "loadedTuples", insert.getLoadedTuples(), subQueryId);
+      addResourceReport(stats, timestamp, op, "loadedBytes", insert.getLoadedBytes(), subQueryId);
+      addResourceReport(stats, timestamp, op, "loadNanos", loadNanos, subQueryId);
+      if (loadNanos > 0) {
+        double loadSeconds = (double) loadNanos / TimeUnit.SECONDS.toNanos(1);
+        addResourceReport(stats, timestamp, op, "loadTuplesPerSecond", (long) (insert.getLoadedTuples() / loadSeconds),
+            subQueryId);
+        addResourceReport(stats, timestamp, op, "loadMegabytesPerSecond",
+            (long) (insert.getLoadedBytes() / loadSeconds / (1 << 20)), subQueryId);
+      }
     } else if (op instanceof LeapFrogJoin) {
       addResourceReport(stats, timestamp, op, "hashTableSize", ((LeapFrogJoin) op).getNumTuplesInHashTables(),
           subQueryId);
+    } else if (op instanceof Apply) {
+      addCompileReports(stats, timestamp, op, ((Apply) op).getCompileStats(), subQueryId);
+    } else if (op instanceof Filter) {
+      addCompileReports(stats, timestamp, op, ((Filter) op).getCompileStats(), subQueryId);
     }
     for (Operator child : op.getChildren()) {
       collectOperatorResourceMeasurements(stats, timestamp, child, subQueryId);
     }
   }
 
+  /**
+   * Add the hits and misses of the compiled expressions of an operator in the {@link EvaluatorCache}.
+   *
+   * @param stats the list of stats.
+   * @param timestamp the starting timestamp of this event in milliseconds.
+   * @param op the operator.
+   * @param compileStats the hits and misses of the operator.
+   * @param subQueryId the subquery ID.
+   */
+  private void addCompileReports(final List<ResourceStats> stats, final long timestamp, final Operator op,
+      final EvaluatorCache.Stats compileStats, final SubQueryId subQueryId) {
+    addResourceReport(stats, timestamp, op, "compileCacheHits", compileStats.getHits(), subQueryId);
+    addResourceReport(stats, timestamp, op, "compileCacheMisses", compileStats.getMisses(), subQueryId);
+    addResourceReport(stats, timestamp, op, "compileNanos", compileStats.getCompileNanos(), subQueryId);
+  }
+
   /**
    * 
    */
@@ -1,5 +1,6 @@
 package edu.washington.escience.myria.parallel;
 
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -7,13 +8,18 @@ import com.google.common.base.Verify;
 import com.google.common.collect.Sets;
 
 import edu.washington.escience.myria.operator.network.Consumer;
+import edu.washington.escience.myria.operator.network.HeavyHitters;
+import edu.washington.escience.myria.operator.network.SemiJoinFilters;
 import edu.washington.escience.myria.parallel.ipc.FlowControlBagInputBuffer;
 import edu.washington.escience.myria.parallel.ipc.IPCConnectionPool;
 import edu.washington.escience.myria.parallel.ipc.IPCEvent;
 import edu.washington.escience.myria.parallel.ipc.IPCEventListener;
 import edu.washington.escience.myria.parallel.ipc.StreamInputBuffer;
 import edu.washington.escience.myria.parallel.ipc.StreamOutputChannel;
+import edu.washington.escience.myria.storage.JoinHashTable;
 import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.util.BloomFilter;
+import edu.washington.escience.myria.util.IPCUtils;
 
 /**
  * Holds the IPC resources for a specific fragment.
@@ -162,6 +168,106 @@ public final class LocalFragmentResourceManager {
     return ipcPool.getMyIPCID();
   }
 
+  /**
+   * @param opId the id of an operator of this fragment.
+   * @return the join hash table cached by the operator in an earlier subquery of the same query, e.g., an earlier
+   *         iteration of a {@link DoWhile}, or null if there is none.
+   */
+  public JoinHashTable getCachedJoinHashTable(final int opId) {
+    Map<Integer, JoinHashTable> tables = getCachedJoinHashTables();
+    if (tables == null) {
+      return null;
+    }
+    return tables.get(opId);
+  }
+
+  /**
+   * Cache a join hash table for the later subqueries of the query of this fragment. It is released when the query
+   * finishes. Fragments that do not run on a worker do not cache anything.
+   * 
+   * @param opId the id of the operator that built the table.
+   * @param table the table, which must not be modified from now on.
+   */
+  public void cacheJoinHashTable(final int opId, final JoinHashTable table) {
+    Map<Integer, JoinHashTable> tables = getCachedJoinHashTables();
+    if (tables != null) {
+      tables.put(opId, table);
+    }
+  }
+
+  /**
+   * @return the join hash tables cached for the query of this fragment, or null if they are not cached.
+   */
+  private Map<Integer, JoinHashTable> getCachedJoinHashTables() {
+    LocalSubQuery subQuery = fragment.getLocalSubQuery();
+    if (!(subQuery instanceof WorkerSubQuery)) {
+      return null;
+    }
+    return ((WorkerSubQuery) subQuery).getWorker().getCachedJoinHashTables(subQuery.getSubQueryId().getQueryId());
+  }
+
+  /**
+   * @param group the id of a skew-aware shuffle of the subquery of this fragment.
+   * @return the heavy hitters announced to this worker for the skew-aware shuffle. Fragments that do not run on a
+   *         worker never receive announcements.
+   */
+  public HeavyHitters getHeavyHitters(final int group) {
+    LocalSubQuery subQuery = fragment.getLocalSubQuery();
+    if (!(subQuery instanceof WorkerSubQuery)) {
+      return new HeavyHitters();
+    }
+    return ((WorkerSubQuery) subQuery).getWorker().getHeavyHitters(subQuery.getSubQueryId(), group);
+  }
+
+  /**
+   * Announce the heavy hitters detected by this fragment in a skew-aware shuffle.
+   * 
+   * @param group the id of the skew-aware shuffle.
+   * @param workerIds the workers to which the heavy hitters are announced.
+   * @param keyHashes the hash codes of the heavy hitters.
+   */
+  public void announceHeavyHitters(final int group, final int[] workerIds, final Set<Integer> keyHashes) {
+    SubQueryId subQueryId = fragment.getLocalSubQuery().getSubQueryId();
+    for (int workerId : workerIds) {
+      if (workerId == getNodeId()) {
+        getHeavyHitters(group).announce(workerId, keyHashes);
+      } else {
+        ipcPool.sendShortMessage(workerId, IPCUtils.heavyHittersTM(subQueryId, group, keyHashes));
+      }
+    }
+  }
+
+  /**
+   * @param join the operator id of a join of the subquery of this fragment that sends semi-join filters.
+   * @return the semi-join filters sent to this worker by the workers of the join. Fragments that do not run on a worker
+   *         never receive filters.
+   */
+  public SemiJoinFilters getSemiJoinFilters(final int join) {
+    LocalSubQuery subQuery = fragment.getLocalSubQuery();
+    if (!(subQuery instanceof WorkerSubQuery)) {
+      return new SemiJoinFilters();
+    }
+    return ((WorkerSubQuery) subQuery).getWorker().getSemiJoinFilters(subQuery.getSubQueryId(), join);
+  }
+
+  /**
+   * Send the semi-join filter of the build keys of a join on this worker to the producers of its probe input.
+   * 
+   * @param join the operator id of the join.
+   * @param workerIds the workers of the producers of the probe input.
+   * @param filter the filter of the build keys.
+   */
+  public void sendSemiJoinFilter(final int join, final int[] workerIds, final BloomFilter filter) {
+    SubQueryId subQueryId = fragment.getLocalSubQuery().getSubQueryId();
+    for (int workerId : workerIds) {
+      if (workerId == getNodeId()) {
+        getSemiJoinFilters(join).put(workerId, filter);
+      } else {
+        ipcPool.sendShortMessage(workerId, IPCUtils.semiJoinFilterTM(subQueryId, join, filter));
+      }
+    }
+  }
+
   /**
    * @return the corresponding fragment.
    */
@@ -4,6 +4,7 @@ import java.util.Set;
 
 import javax.annotation.Nonnull;
 
+import edu.washington.escience.myria.MyriaConstants.ColumnCompression;
 import edu.washington.escience.myria.MyriaConstants.FTMode;
 import edu.washington.escience.myria.MyriaConstants.ProfilingMode;
 
@@ -24,6 +25,11 @@ public abstract class LocalSubQuery implements Comparable<LocalSubQuery> {
    */
   private final FTMode ftMode;
 
+  /**
+   * How shuffled columns are compressed.
+   */
+  private final ColumnCompression columnCompression;
+
   /**
    * Priority, currently not used.
    */
@@ -51,9 +57,23 @@ public abstract class LocalSubQuery implements Comparable<LocalSubQuery> {
    * @param profilingMode the profiling mode of this subquery.
    */
   public LocalSubQuery(final SubQueryId subQueryId, final FTMode ftMode, @Nonnull final Set<ProfilingMode> profilingMode) {
+    this(subQueryId, ftMode, profilingMode, ColumnCompression.NONE);
+  }
+
+  /**
+   * Instantiate a new {@link LocalSubQuery} with the specified fault tolerance, profiling and column compression modes.
+   * 
+   * @param subQueryId the id of this subquery.
+   * @param ftMode the fault-tolerance mode of this subquery.
+   * @param profilingMode the profiling mode of this subquery.
+   * @param columnCompression how the columns shuffled by this subquery are compressed.
+   */
+  public LocalSubQuery(final SubQueryId subQueryId, final FTMode ftMode,
+      @Nonnull final Set<ProfilingMode> profilingMode, @Nonnull final ColumnCompression columnCompression) {
     this.subQueryId = subQueryId;
     this.ftMode = ftMode;
     this.profilingMode = profilingMode;
+    this.columnCompression = columnCompression;
   }
 
   /**
@@ -64,6 +84,14 @@ public abstract class LocalSubQuery implements Comparable<LocalSubQuery> {
     return profilingMode;
   }
 
+  /**
+   * @return how the columns shuffled by this subquery are compressed.
+   */
+  @Nonnull
+  public final ColumnCompression getColumnCompression() {
+    return columnCompression;
+  }
+
   /**
    * @return The (global) ID for this subquery.
    */
@@ -1,5 +1,6 @@
 package edu.washington.escience.myria.parallel;
 
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
@@ -19,6 +20,7 @@ import com.google.common.collect.ImmutableSet;
 
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.MyriaConstants.ColumnCompression;
 import edu.washington.escience.myria.MyriaConstants.FTMode;
 import edu.washington.escience.myria.MyriaConstants.ProfilingMode;
 import edu.washington.escience.myria.RelationKey;
@@ -71,12 +73,23 @@ public final class Query {
   private final Set<ProfilingMode> profiling;
   /** Indicates whether the query should be run with a particular fault tolerance mode. */
   private final FTMode ftMode;
+  /** How shuffled columns are compressed in this query. */
+  private final ColumnCompression columnCompression;
+  /** The maximum number of morsels of a batch processed in parallel in this query. */
+  private final int morselParallelism;
+  /** The user on whose behalf this query runs. */
+  private final String user;
+  /** The weight of this query in the fair sharing of the cluster. */
+  private final int priority;
   /** Global variables that are part of this query. */
   private final ConcurrentHashMap<String, Object> globals;
   /** Temporary relations created during the execution of this query. */
   private final ConcurrentHashMap<RelationKey, RelationWriteMetadata> tempRelations;
   /** resource usage stats of workers. */
   private final ConcurrentHashMap<Integer, ConcurrentLinkedDeque<ResourceStats>> resourceUsage;
+  /** The workers that keep state for the later subqueries of this query, see {@link SubQueryPlan#holdsQueryState()}. */
+  @GuardedBy("this")
+  private final Set<Integer> stateWorkers;
 
   /**
    * Construct a new {@link Query} object for this query.
@@ -91,6 +104,10 @@ public final class Query {
     this.server = Preconditions.checkNotNull(server, "server");
     profiling = ImmutableSet.copyOf(query.profilingMode);
     ftMode = query.ftMode;
+    columnCompression = Preconditions.checkNotNull(query.columnCompression, "columnCompression");
+    morselParallelism = query.morselParallelism;
+    user = Preconditions.checkNotNull(query.user, "user");
+    priority = query.priority;
     this.queryId = queryId;
     subqueryId = 0;
     synchronized (this) {
@@ -105,6 +122,7 @@ public final class Query {
     globals = new ConcurrentHashMap<>();
     tempRelations = new ConcurrentHashMap<>();
     resourceUsage = new ConcurrentHashMap<Integer, ConcurrentLinkedDeque<ResourceStats>>();
+    stateWorkers = new HashSet<>();
   }
 
   /**
@@ -116,6 +134,20 @@ public final class Query {
     return queryId;
   }
 
+  /**
+   * @return the user on whose behalf this query runs.
+   */
+  public String getUser() {
+    return user;
+  }
+
+  /**
+   * @return the weight of this query in the fair sharing of the cluster.
+   */
+  public int getPriority() {
+    return priority;
+  }
+
   /**
    * Return the status of this query.
    * 
@@ -189,7 +221,13 @@ public final class Query {
         }
       }
 
-      QueryConstruct.setQueryExecutionOptions(currentSubQuery.getWorkerPlans(), ftMode, profilingMode);
+      QueryConstruct.setQueryExecutionOptions(currentSubQuery.getWorkerPlans(), ftMode, profilingMode,
+          columnCompression, morselParallelism, priority);
+      for (Map.Entry<Integer, SubQueryPlan> workerPlan : currentSubQuery.getWorkerPlans().entrySet()) {
+        if (workerPlan.getValue().holdsQueryState()) {
+          stateWorkers.add(workerPlan.getKey());
+        }
+      }
       currentSubQuery.getMasterPlan().setFTMode(ftMode);
       currentSubQuery.getMasterPlan().setProfilingMode(ImmutableSet.<ProfilingMode> of());
       ++subqueryId;
@@ -207,6 +245,14 @@ public final class Query {
     return nextSubQuery();
   }
 
+  /**
+   * @return the workers that keep state for the later subqueries of this query, which must be released when the query
+   *         finishes.
+   */
+  public synchronized Set<Integer> getStateWorkers() {
+    return ImmutableSet.copyOf(stateWorkers);
+  }
+
   /**
    * Mark the current {@link SubQuery} as finished.
    */
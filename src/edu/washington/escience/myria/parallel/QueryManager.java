@@ -5,7 +5,6 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Nonnull;
@@ -17,16 +16,18 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Verify;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Maps;
 
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.MyriaConstants;
 import edu.washington.escience.myria.MyriaConstants.FTMode;
+import edu.washington.escience.myria.MyriaSystemConfigKeys;
 import edu.washington.escience.myria.RelationKey;
 import edu.washington.escience.myria.api.encoding.QueryEncoding;
 import edu.washington.escience.myria.api.encoding.QueryStatusEncoding;
 import edu.washington.escience.myria.api.encoding.QueryStatusEncoding.Status;
+import edu.washington.escience.myria.api.encoding.SchedulerStatusEncoding;
 import edu.washington.escience.myria.coordinator.CatalogException;
+import edu.washington.escience.myria.coordinator.ConfigFileException;
 import edu.washington.escience.myria.coordinator.MasterCatalog;
 import edu.washington.escience.myria.proto.ControlProto;
 import edu.washington.escience.myria.proto.ControlProto.ControlMessage;
@@ -48,8 +49,11 @@ public class QueryManager {
   private final ConcurrentHashMap<Long, Query> runningQueries;
 
   /** The queries that are queued. */
-  @GuardedBy("queryQueue")
-  private final TreeMap<Long, Query> queryQueue;
+  @GuardedBy("scheduler")
+  private final ConcurrentHashMap<Long, Query> queuedQueries;
+
+  /** Decides which queued query starts next. */
+  private final QueryScheduler scheduler;
 
   /**
    * Subqueries currently in execution.
@@ -68,11 +72,16 @@ public class QueryManager {
    * 
    * @param catalog the master catalog. Gets updated when queries finish, for example.
    * @param server the server on which the queries are executed.
+   * @throws ConfigFileException if the scheduler configuration cannot be read.
    */
-  public QueryManager(final MasterCatalog catalog, final Server server) {
+  public QueryManager(final MasterCatalog catalog, final Server server) throws ConfigFileException {
     this.catalog = catalog;
     this.server = server;
-    queryQueue = Maps.newTreeMap();
+    scheduler =
+        new QueryScheduler(Integer.valueOf(server
+            .getRuntimeConfiguration(MyriaSystemConfigKeys.SCHEDULER_MAX_RUNNING_QUERIES)), Double.valueOf(server
+            .getRuntimeConfiguration(MyriaSystemConfigKeys.SCHEDULER_ADMISSION_HEAP_FRACTION)));
+    queuedQueries = new ConcurrentHashMap<>();
     runningQueries = new ConcurrentHashMap<>();
     executingSubQueries = new ConcurrentHashMap<>();
   }
@@ -94,7 +103,26 @@ public class QueryManager {
    */
   public void updateResourceStats(final int senderId, final ControlMessage m) {
     for (ControlProto.ResourceStats stats : m.getResourceStatsList()) {
-      runningQueries.get(stats.getQueryId()).addResourceStats(senderId, ResourceStats.fromProtobuf(stats));
+      Query query = runningQueries.get(stats.getQueryId());
+      if (query != null) {
+        query.addResourceStats(senderId, ResourceStats.fromProtobuf(stats));
+      }
+    }
+  }
+
+  /**
+   * Update the load of a worker from its heartbeat, and start queued queries if the load now admits them.
+   * 
+   * @param senderId the sender worker id.
+   * @param load the load reported by the heartbeat.
+   */
+  public void updateWorkerLoad(final int senderId, final ControlProto.WorkerLoad load) {
+    scheduler.updateWorkerLoad(senderId, load);
+    try {
+      startQueuedQueries();
+    } catch (DbException e) {
+      /* The query that failed to start has already been marked as failed. */
+      LOGGER.warn("Error starting a queued query", e);
     }
   }
 
@@ -102,8 +130,29 @@ public class QueryManager {
    * @return whether this master can handle more queries or not.
    */
   private boolean canSubmitQuery() {
-    synchronized (queryQueue) {
-      return ((runningQueries.size() + queryQueue.size()) < MyriaConstants.MAX_ACTIVE_QUERIES);
+    synchronized (scheduler) {
+      return ((runningQueries.size() + scheduler.getNumQueued()) < MyriaConstants.MAX_ACTIVE_QUERIES);
+    }
+  }
+
+  /**
+   * Start the queued queries that the scheduler admits, one at a time.
+   * 
+   * @throws DbException if there is an error starting a query.
+   */
+  private void startQueuedQueries() throws DbException {
+    while (true) {
+      Query q;
+      synchronized (scheduler) {
+        Long queryId = scheduler.pollAdmissible();
+        if (queryId == null) {
+          return;
+        }
+        q = queuedQueries.remove(queryId);
+        runningQueries.put(queryId, q);
+      }
+      LOGGER.info("Now advancing to query {}", q.getQueryId());
+      advanceQuery(q);
     }
   }
 
@@ -121,25 +170,17 @@ public class QueryManager {
       throw new DbException("Error finishing query " + queryState.getQueryId(), e);
     } finally {
       runningQueries.remove(queryState.getQueryId());
-
-      /* See if we can submit a new query. */
-      if (!runningQueries.isEmpty()) {
-        /* TODO replace with proper scheduler as opposed to single-query-at-a-time. */
-        return;
+      scheduler.finished(queryState.getQueryId());
+      /* Let the workers drop the state that they kept across the subqueries of this query. */
+      Set<Integer> aliveWorkers = server.getAliveWorkers();
+      for (final Integer workerId : queryState.getStateWorkers()) {
+        if (aliveWorkers.contains(workerId)) {
+          server.getIPCConnectionPool().sendShortMessage(workerId, IPCUtils.releaseQueryTM(queryState.getQueryId()));
+        }
       }
 
-      /* Now see if the query queue has anything for us. */
-      Map.Entry<Long, Query> qEntry;
-      synchronized (queryQueue) {
-        qEntry = queryQueue.pollFirstEntry();
-      }
-      if (qEntry == null) {
-        return;
-      }
-      Query q = qEntry.getValue();
-      LOGGER.info("Now advancing to query {}", q.getQueryId());
-      runningQueries.put(q.getQueryId(), q);
-      advanceQuery(q);
+      /* See if the freed resources let a queued query start. */
+      startQueuedQueries();
     }
   }
 
@@ -182,10 +223,10 @@ public class QueryManager {
   public Query getQuery(@Nonnull final Long queryId) {
     Long qId = Preconditions.checkNotNull(queryId, "queryId");
     Query query;
-    synchronized (queryQueue) {
+    synchronized (scheduler) {
       query = runningQueries.get(qId);
       if (query == null) {
-        query = queryQueue.get(qId);
+        query = queuedQueries.get(qId);
       }
     }
     Preconditions.checkArgument(query != null, "Query #%s is not active", queryId);
@@ -224,9 +265,18 @@ public class QueryManager {
     queryStatus.elapsedNanos = state.getElapsedTime();
     queryStatus.status = state.getStatus();
     queryStatus.message = state.getMessage();
+    queryStatus.queueWaitNanos = scheduler.getQueueWaitNanos(queryId);
+    queryStatus.slotNanos = scheduler.getSlotNanos(queryId);
     return queryStatus;
   }
 
+  /**
+   * @return the queries of each user and the load of each worker, as seen by the query scheduler.
+   */
+  public SchedulerStatusEncoding getSchedulerStatus() {
+    return scheduler.getStatus();
+  }
+
   /**
    * Submit a query for execution. The workerPlans may be removed in the future if the query compiler and schedulers are
    * ready. Returns null if there are too many active queries.
@@ -241,18 +291,11 @@ public class QueryManager {
   private QueryFuture submitQuery(final long queryId, final QueryEncoding query, final QueryPlan plan)
       throws DbException, CatalogException {
     final Query queryState = new Query(queryId, query, plan, server);
-    boolean canStart = false;
-    synchronized (queryQueue) {
-      if (queryQueue.isEmpty() && runningQueries.isEmpty()) {
-        canStart = true;
-      } else {
-        queryQueue.put(queryId, queryState);
-      }
-    }
-    if (canStart) {
-      runningQueries.put(queryId, queryState);
-      advanceQuery(queryState);
+    synchronized (scheduler) {
+      queuedQueries.put(queryId, queryState);
+      scheduler.enqueue(queryId, queryState.getUser(), queryState.getPriority());
     }
+    startQueuedQueries();
     return queryState.getFuture();
   }
 
@@ -555,11 +598,12 @@ public class QueryManager {
    * Kill all queries currently executing.
    */
   protected void killAll() {
-    synchronized (queryQueue) {
-      for (Query q : queryQueue.values()) {
+    synchronized (scheduler) {
+      for (Query q : queuedQueries.values()) {
         q.kill();
+        scheduler.finished(q.getQueryId());
       }
-      queryQueue.clear();
+      queuedQueries.clear();
     }
     for (MasterSubQuery p : executingSubQueries.values()) {
       p.kill();
@@ -573,6 +617,7 @@ public class QueryManager {
    * @param workerId the worker that died.
    */
   protected void workerDied(final int workerId) {
+    scheduler.removeWorker(workerId);
     for (MasterSubQuery mqp : executingSubQueries.values()) {
       /* for each alive query that the failed worker is assigned to, tell the query that the worker failed. */
       if (mqp.getWorkerAssigned().contains(workerId)) {
@@ -0,0 +1,363 @@
+package edu.washington.escience.myria.parallel;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+
+import edu.washington.escience.myria.api.encoding.SchedulerStatusEncoding;
+import edu.washington.escience.myria.proto.ControlProto;
+
+/**
+ * Decides which queued query the master starts next. Queries are queued per user; when a query may start, the next
+ * query of the user that has used the least cluster time, weighted by the priorities of its queries, is chosen, so that
+ * one user submitting many queries cannot starve the others. Within a user, queries start in submission order.
+ *
+ * A query starts only if fewer than the maximum number of queries are running and every worker reports a heap usage
+ * below the admission fraction. The heap usage arrives with the worker heartbeats as a {@link ControlProto.WorkerLoad}.
+ * When no query is running, the next query starts regardless of the heap, since only the garbage collector can then
+ * free it.
+ */
+final class QueryScheduler {
+
+  /** A queued or running query. */
+  private static final class ScheduledQuery {
+    /** The id of the query. */
+    private final long queryId;
+    /** The user who submitted the query. */
+    private final String user;
+    /** The weight of the query. */
+    private final int priority;
+    /** When the query was queued, in nanoseconds. */
+    private final long enqueueNanos;
+    /** When the query started, in nanoseconds. */
+    private long startNanos;
+
+    /**
+     * @param queryId the id of the query.
+     * @param user the user who submitted the query.
+     * @param priority the weight of the query.
+     * @param enqueueNanos when the query was queued, in nanoseconds.
+     */
+    private ScheduledQuery(final long queryId, final String user, final int priority, final long enqueueNanos) {
+      this.queryId = queryId;
+      this.user = user;
+      this.priority = priority;
+      this.enqueueNanos = enqueueNanos;
+    }
+  }
+
+  /** The queries of one user. */
+  private static final class UserShare {
+    /** The queued queries, in submission order. */
+    private final ArrayDeque<ScheduledQuery> queued = new ArrayDeque<>();
+    /** The running queries, by query id. */
+    private final Map<Long, ScheduledQuery> running = new TreeMap<>();
+    /** The time used by the finished queries of the user, divided by their priorities, in nanoseconds. */
+    private double usageNanos;
+
+    /**
+     * @param usageNanos the initial weighted usage.
+     */
+    private UserShare(final double usageNanos) {
+      this.usageNanos = usageNanos;
+    }
+
+    /**
+     * @param now the current time, in nanoseconds.
+     * @return the weighted usage of the user, including the running queries up to now.
+     */
+    private double currentUsage(final long now) {
+      double usage = usageNanos;
+      for (ScheduledQuery q : running.values()) {
+        usage += (double) (now - q.startNanos) / q.priority;
+      }
+      return usage;
+    }
+  }
+
+  /** The maximum number of queries that run at the same time. */
+  private final int maxRunningQueries;
+  /** The fraction of its heap that every worker must be below for a new query to start. */
+  private final double admissionHeapFraction;
+  /** The source of time. */
+  private final Ticker ticker;
+  /** The users that have queries queued or running, by name. */
+  @GuardedBy("this")
+  private final Map<String, UserShare> users = new TreeMap<>();
+  /** The queued and running queries, by id. */
+  @GuardedBy("this")
+  private final Map<Long, ScheduledQuery> queries = new HashMap<>();
+  /** The number of queued queries. */
+  @GuardedBy("this")
+  private int numQueued;
+  /** The latest load reported by each worker. */
+  @GuardedBy("this")
+  private final Map<Integer, ControlProto.WorkerLoad> workerLoads = new TreeMap<>();
+  /**
+   * The latest slot time reported by each worker for each subquery of the running queries, in nanoseconds. A worker
+   * reports a subquery for the last time once it has finished there, so the reported time is kept until the query
+   * finishes.
+   */
+  @GuardedBy("this")
+  private final Map<Integer, Map<SubQueryId, Long>> workerSlotNanos = new HashMap<>();
+
+  /**
+   * @param maxRunningQueries the maximum number of queries that run at the same time.
+   * @param admissionHeapFraction the fraction of its heap that every worker must be below for a new query to start.
+   */
+  QueryScheduler(final int maxRunningQueries, final double admissionHeapFraction) {
+    this(maxRunningQueries, admissionHeapFraction, Ticker.systemTicker());
+  }
+
+  /**
+   * @param maxRunningQueries the maximum number of queries that run at the same time.
+   * @param admissionHeapFraction the fraction of its heap that every worker must be below for a new query to start.
+   * @param ticker the source of time.
+   */
+  QueryScheduler(final int maxRunningQueries, final double admissionHeapFraction, final Ticker ticker) {
+    Preconditions.checkArgument(maxRunningQueries > 0, "maxRunningQueries must be positive");
+    Preconditions.checkArgument(admissionHeapFraction > 0 && admissionHeapFraction <= 1,
+        "admissionHeapFraction must be in (0, 1]");
+    this.maxRunningQueries = maxRunningQueries;
+    this.admissionHeapFraction = admissionHeapFraction;
+    this.ticker = Preconditions.checkNotNull(ticker, "ticker");
+  }
+
+  /**
+   * Queue a query.
+   *
+   * @param queryId the id of the query.
+   * @param user the user who submitted the query.
+   * @param priority the weight of the query.
+   */
+  synchronized void enqueue(final long queryId, final String user, final int priority) {
+    Preconditions.checkArgument(!queries.containsKey(queryId), "Query #%s is already scheduled", queryId);
+    UserShare share = users.get(user);
+    if (share == null) {
+      /* Start at the least usage of the active users, so that a new user cannot claim the cluster. */
+      long now = ticker.read();
+      double usage = Double.MAX_VALUE;
+      for (UserShare other : users.values()) {
+        usage = Math.min(usage, other.currentUsage(now));
+      }
+      share = new UserShare(users.isEmpty() ? 0 : usage);
+      users.put(user, share);
+    }
+    ScheduledQuery q = new ScheduledQuery(queryId, user, priority, ticker.read());
+    share.queued.add(q);
+    queries.put(queryId, q);
+    ++numQueued;
+  }
+
+  /**
+   * @return whether every worker reports a heap usage below the admission fraction.
+   */
+  @GuardedBy("this")
+  private boolean heapAvailable() {
+    for (ControlProto.WorkerLoad load : workerLoads.values()) {
+      long max = load.getHeapMaxBytes();
+      if (max > 0 && load.getHeapUsedBytes() >= admissionHeapFraction * max) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * If a queued query may start now, mark it as running and return it.
+   *
+   * @return the id of the query to start, or null if no query may start now.
+   */
+  @Nullable
+  synchronized Long pollAdmissible() {
+    int numRunning = queries.size() - numQueued;
+    if (numQueued == 0 || numRunning >= maxRunningQueries || (numRunning > 0 && !heapAvailable())) {
+      return null;
+    }
+
+    long now = ticker.read();
+    UserShare next = null;
+    double nextUsage = 0;
+    for (UserShare share : users.values()) {
+      if (share.queued.isEmpty()) {
+        continue;
+      }
+      double usage = share.currentUsage(now);
+      if (next == null || usage < nextUsage
+          || (usage == nextUsage && share.queued.peek().queryId < next.queued.peek().queryId)) {
+        next = share;
+        nextUsage = usage;
+      }
+    }
+
+    ScheduledQuery q = next.queued.poll();
+    --numQueued;
+    q.startNanos = now;
+    next.running.put(q.queryId, q);
+    return q.queryId;
+  }
+
+  /**
+   * Forget a query that has finished, charging its user for the time it ran. A query that finishes while queued, e.g.,
+   * because it was killed, is simply removed from the queue.
+   *
+   * @param queryId the id of the query.
+   */
+  synchronized void finished(final long queryId) {
+    ScheduledQuery q = queries.remove(queryId);
+    if (q == null) {
+      return;
+    }
+    UserShare share = users.get(q.user);
+    if (share.running.remove(queryId) != null) {
+      share.usageNanos += (double) (ticker.read() - q.startNanos) / q.priority;
+    } else if (share.queued.remove(q)) {
+      --numQueued;
+    }
+    if (share.queued.isEmpty() && share.running.isEmpty()) {
+      users.remove(q.user);
+    }
+    for (Map<SubQueryId, Long> slotNanos : workerSlotNanos.values()) {
+      Iterator<SubQueryId> it = slotNanos.keySet().iterator();
+      while (it.hasNext()) {
+        if (it.next().getQueryId() == queryId) {
+          it.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the number of queued queries.
+   */
+  synchronized int getNumQueued() {
+    return numQueued;
+  }
+
+  /**
+   * @return the ids of the queued queries.
+   */
+  synchronized List<Long> getQueued() {
+    List<Long> ret = new ArrayList<>();
+    for (UserShare share : users.values()) {
+      for (ScheduledQuery q : share.queued) {
+        ret.add(q.queryId);
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * @param queryId the id of the query.
+   * @return how long the query waited in the queue, or has waited so far if it is still queued, in nanoseconds. Null if
+   *         the query is not scheduled.
+   */
+  @Nullable
+  synchronized Long getQueueWaitNanos(final long queryId) {
+    ScheduledQuery q = queries.get(queryId);
+    if (q == null) {
+      return null;
+    }
+    if (users.get(q.user).running.containsKey(queryId)) {
+      return q.startNanos - q.enqueueNanos;
+    }
+    return ticker.read() - q.enqueueNanos;
+  }
+
+  /**
+   * @param queryId the id of the query.
+   * @return the fragment execution slot time that the workers report for all the subqueries of the query, in
+   *         nanoseconds. Null if no worker has reported any.
+   */
+  @Nullable
+  synchronized Long getSlotNanos(final long queryId) {
+    Long ret = null;
+    for (Map<SubQueryId, Long> slotNanos : workerSlotNanos.values()) {
+      for (Map.Entry<SubQueryId, Long> e : slotNanos.entrySet()) {
+        if (e.getKey().getQueryId() == queryId) {
+          ret = (ret == null ? 0 : ret) + e.getValue();
+        }
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Record the latest load reported by a worker.
+   *
+   * @param workerId the worker.
+   * @param load the load of the worker.
+   */
+  synchronized void updateWorkerLoad(final int workerId, final ControlProto.WorkerLoad load) {
+    Map<SubQueryId, Long> slotNanos = workerSlotNanos.get(workerId);
+    if (slotNanos == null) {
+      slotNanos = new HashMap<>();
+      workerSlotNanos.put(workerId, slotNanos);
+    }
+    for (ControlProto.QuerySlotUsage usage : load.getQuerySlotUsageList()) {
+      if (queries.containsKey(usage.getQueryId())) {
+        slotNanos.put(new SubQueryId(usage.getQueryId(), usage.getSubqueryId()), usage.getSlotNanos());
+      }
+    }
+    workerLoads.put(workerId, load);
+  }
+
+  /**
+   * Forget the load of a worker that has died.
+   *
+   * @param workerId the worker.
+   */
+  synchronized void removeWorker(final int workerId) {
+    workerLoads.remove(workerId);
+    workerSlotNanos.remove(workerId);
+  }
+
+  /**
+   * @return the queries of each user and the load of each worker.
+   */
+  synchronized SchedulerStatusEncoding getStatus() {
+    long now = ticker.read();
+    SchedulerStatusEncoding status = new SchedulerStatusEncoding();
+    status.maxRunningQueries = maxRunningQueries;
+    status.admissionHeapFraction = admissionHeapFraction;
+    status.users = new ArrayList<>();
+    for (Map.Entry<String, UserShare> e : users.entrySet()) {
+      UserShare share = e.getValue();
+      SchedulerStatusEncoding.UserStatus user = new SchedulerStatusEncoding.UserStatus();
+      user.user = e.getKey();
+      user.queued = new ArrayList<>();
+      for (ScheduledQuery q : share.queued) {
+        user.queued.add(q.queryId);
+      }
+      user.running = new ArrayList<>(share.running.keySet());
+      user.usageNanos = (long) share.currentUsage(now);
+      status.users.add(user);
+    }
+    status.workers = new ArrayList<>();
+    for (Map.Entry<Integer, ControlProto.WorkerLoad> e : workerLoads.entrySet()) {
+      ControlProto.WorkerLoad load = e.getValue();
+      SchedulerStatusEncoding.WorkerStatus worker = new SchedulerStatusEncoding.WorkerStatus();
+      worker.workerId = e.getKey();
+      worker.heapUsedBytes = load.getHeapUsedBytes();
+      worker.heapMaxBytes = load.getHeapMaxBytes();
+      worker.slots = load.getSlots();
+      worker.slotsInUse = load.getSlotsInUse();
+      worker.compileCacheHits = load.getCompileCacheHits();
+      worker.compileCacheMisses = load.getCompileCacheMisses();
+      worker.compileNanos = load.getCompileNanos();
+      worker.compileCacheSize = load.getCompileCacheSize();
+      status.workers.add(worker);
+    }
+    return status;
+  }
+}
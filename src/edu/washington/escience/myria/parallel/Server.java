@@ -77,6 +77,7 @@ import edu.washington.escience.myria.operator.EmptyRelation;
 import edu.washington.escience.myria.operator.Operator;
 import edu.washington.escience.myria.operator.RootOperator;
 import edu.washington.escience.myria.operator.SinkRoot;
+import edu.washington.escience.myria.operator.TupleFormatter;
 import edu.washington.escience.myria.operator.agg.Aggregate;
 import edu.washington.escience.myria.operator.agg.MultiGroupByAggregate;
 import edu.washington.escience.myria.operator.agg.PrimitiveAggregator.AggregationOp;
@@ -145,6 +146,9 @@ public final class Server {
                 case WORKER_HEARTBEAT:
                   LOGGER.trace("getting heartbeat from worker {}", senderID);
                   updateHeartbeat(senderID);
+                  if (controlM.hasWorkerLoad()) {
+                    queryManager.updateWorkerLoad(senderID, controlM.getWorkerLoad());
+                  }
                   break;
                 case REMOVE_WORKER_ACK:
                   int workerID = controlM.getWorkerId();
@@ -1226,6 +1230,25 @@ public final class Server {
    */
   public ListenableFuture<Query> startDataStream(final RelationKey relationKey, final TupleWriter writer)
       throws DbException {
+    return startDataStream(relationKey, writer, null, null);
+  }
+
+  /**
+   * Start a query that streams tuples from the specified relation to the specified {@link TupleWriter}.
+   * 
+   * If a text format is given, the workers serialize their tuples with {@link TupleFormatter}s in parallel, and the
+   * {@link TupleWriter}, e.g., a {@link edu.washington.escience.myria.TextChunkTupleWriter}, receives the text chunks
+   * instead of the tuples.
+   * 
+   * @param relationKey the relation to be downloaded.
+   * @param writer the {@link TupleWriter} which will serialize the tuples.
+   * @param workerFormat if not null, the text format in which the workers serialize the tuples.
+   * @param workerId if not null, the only worker whose part of the relation is downloaded.
+   * @return the query future from which the query status can be looked up.
+   * @throws DbException if there is an error in the system.
+   */
+  public ListenableFuture<Query> startDataStream(final RelationKey relationKey, final TupleWriter writer,
+      @Nullable final String workerFormat, @Nullable final Integer workerId) throws DbException {
     /* Get the relation's schema, to make sure it exists. */
     final Schema schema;
     try {
@@ -1242,11 +1265,21 @@ public final class Server {
     } catch (CatalogException e) {
       throw new DbException(e);
     }
+    if (workerId != null) {
+      Preconditions.checkArgument(scanWorkers.contains(workerId), "worker %s does not store relation %s", workerId,
+          relationKey);
+      scanWorkers = ImmutableSet.of(workerId);
+    }
 
     /* Construct the operators that go elsewhere. */
-    DbQueryScan scan = new DbQueryScan(relationKey, schema);
+    Operator source = new DbQueryScan(relationKey, schema);
+    Schema streamSchema = schema;
+    if (workerFormat != null) {
+      source = new TupleFormatter(workerFormat, source);
+      streamSchema = TupleFormatter.CHUNK_SCHEMA;
+    }
     final ExchangePairID operatorId = ExchangePairID.newID();
-    CollectProducer producer = new CollectProducer(scan, operatorId, MyriaConstants.MASTER_ID);
+    CollectProducer producer = new CollectProducer(source, operatorId, MyriaConstants.MASTER_ID);
 
     SubQueryPlan workerPlan = new SubQueryPlan(producer);
     Map<Integer, SubQueryPlan> workerPlans = new HashMap<>(scanWorkers.size());
@@ -1255,12 +1288,15 @@ public final class Server {
     }
 
     /* Construct the master plan. */
-    final CollectConsumer consumer = new CollectConsumer(schema, operatorId, ImmutableSet.copyOf(scanWorkers));
+    final CollectConsumer consumer = new CollectConsumer(streamSchema, operatorId, ImmutableSet.copyOf(scanWorkers));
     DataOutput output = new DataOutput(consumer, writer);
     final SubQueryPlan masterPlan = new SubQueryPlan(output);
 
     /* Submit the plan for the download. */
     String planString = "download " + relationKey.toString();
+    if (workerId != null) {
+      planString += " from worker " + workerId;
+    }
     try {
       return queryManager.submitQuery(planString, planString, planString, masterPlan, workerPlans);
     } catch (CatalogException e) {
@@ -8,18 +8,22 @@ import java.util.Set;
 
 import javax.annotation.Nonnull;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
+import edu.washington.escience.myria.MyriaConstants.ColumnCompression;
 import edu.washington.escience.myria.MyriaConstants.FTMode;
 import edu.washington.escience.myria.MyriaConstants.ProfilingMode;
 import edu.washington.escience.myria.RelationKey;
 import edu.washington.escience.myria.operator.DbReader;
 import edu.washington.escience.myria.operator.DbWriter;
 import edu.washington.escience.myria.operator.Operator;
+import edu.washington.escience.myria.operator.RightHashJoin;
 import edu.washington.escience.myria.operator.RootOperator;
+import edu.washington.escience.myria.operator.network.GenericShuffleProducer;
 import edu.washington.escience.myria.util.MyriaUtils;
 
 /**
@@ -46,6 +50,15 @@ public class SubQueryPlan implements Serializable, DbReader, DbWriter {
   /** profilingMode. */
   private Set<ProfilingMode> profilingMode;
 
+  /** How shuffled columns are compressed, default: NONE. */
+  private ColumnCompression columnCompression = ColumnCompression.NONE;
+
+  /** The maximum number of morsels of a batch processed in parallel, default: 1. */
+  private int morselParallelism = 1;
+
+  /** The weight of the query in the fair sharing of the workers' execution slots, default: 1. */
+  private int priority = 1;
+
   /** Constructor. */
   public SubQueryPlan() {
     rootOps = new ArrayList<RootOperator>();
@@ -160,6 +173,100 @@ public class SubQueryPlan implements Serializable, DbReader, DbWriter {
     this.profilingMode = profilingMode;
   }
 
+  /**
+   * @return how shuffled columns are compressed.
+   */
+  @Nonnull
+  public ColumnCompression getColumnCompression() {
+    return columnCompression;
+  }
+
+  /**
+   * Set how shuffled columns are compressed.
+   * 
+   * @param columnCompression the column compression.
+   */
+  public void setColumnCompression(@Nonnull final ColumnCompression columnCompression) {
+    this.columnCompression = columnCompression;
+  }
+
+  /**
+   * @return the maximum number of morsels of a batch that stateless operators process in parallel.
+   */
+  public int getMorselParallelism() {
+    return morselParallelism;
+  }
+
+  /**
+   * Set the maximum number of morsels of a batch that stateless operators process in parallel.
+   * 
+   * @param morselParallelism the morsel parallelism, 1 to process each batch on the fragment thread.
+   */
+  public void setMorselParallelism(final int morselParallelism) {
+    Preconditions.checkArgument(morselParallelism >= 1, "morselParallelism must be positive");
+    this.morselParallelism = morselParallelism;
+  }
+
+  /**
+   * @return the weight of the query in the fair sharing of the workers' execution slots.
+   */
+  public int getPriority() {
+    return priority;
+  }
+
+  /**
+   * Set the weight of the query in the fair sharing of the workers' execution slots.
+   * 
+   * @param priority the priority, a positive weight.
+   */
+  public void setPriority(final int priority) {
+    Preconditions.checkArgument(priority >= 1, "priority must be positive");
+    this.priority = priority;
+  }
+
+  /**
+   * @return whether the worker running this plan keeps state for the later subqueries of the query, which the master
+   *         must release when the query finishes: a cached join hash table, or the heavy hitters or semi-join filters
+   *         received by a shuffle.
+   */
+  public boolean holdsQueryState() {
+    Set<Object> visited = Sets.newIdentityHashSet();
+    for (RootOperator op : rootOps) {
+      if (holdsQueryState(op, visited)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * A helper to walk the operators of this plan and find one that keeps state for the later subqueries of the query.
+   * 
+   * @param op a single operator, which will be recursively traversed
+   * @param visited which objects have been visited already
+   * @return whether the operator or one of its descendants keeps state for the later subqueries of the query.
+   */
+  private static boolean holdsQueryState(final Operator op, final Set<Object> visited) {
+    if (!visited.add(op)) {
+      return false;
+    }
+    if (op instanceof RightHashJoin && ((RightHashJoin) op).getCacheRightHashTable()) {
+      return true;
+    }
+    if (op instanceof GenericShuffleProducer) {
+      GenericShuffleProducer producer = (GenericShuffleProducer) op;
+      if (producer.getSkewRole() != null || producer.usesSemiJoinFilter()) {
+        return true;
+      }
+    }
+    for (Operator child : op.getChildren()) {
+      if (child != null && holdsQueryState(child, visited)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   @Override
   public Map<RelationKey, RelationWriteMetadata> writeSet() {
     return ImmutableMap.copyOf(writeSet);
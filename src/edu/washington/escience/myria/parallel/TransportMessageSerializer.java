@@ -30,14 +30,14 @@ public class TransportMessageSerializer implements PayloadSerializer {
   @Override
   public final ChannelBuffer serialize(final Object m) {
     Preconditions.checkNotNull(m);
-    // m has only 3 possibilities:
+    // m has only 4 possibilities:
     if (m instanceof TransportMessage) {
       // case 1: TransportMessage.QUERY
       // case 2: TransportMessage.CONTROL
-      // TransportMessage.DATA is not possible to occur here
+      // case 3: TransportMessage.DATA, a TupleBatch already compressed by a Producer
       return ChannelBuffers.wrappedBuffer(((TransportMessage) m).toByteArray());
     } else if (m instanceof TupleBatch) {
-      // case 3: TupleBatch
+      // case 4: TupleBatch
       TupleBatch tb = (TupleBatch) m;
       if (!tb.isEOI()) {
         return ChannelBuffers.wrappedBuffer(((TupleBatch) m).toTransportMessage().toByteArray());
@@ -32,13 +32,20 @@ import edu.washington.escience.myria.MyriaConstants.FTMode;
 import edu.washington.escience.myria.MyriaSystemConfigKeys;
 import edu.washington.escience.myria.accessmethod.ConnectionInfo;
 import edu.washington.escience.myria.coordinator.ConfigFileException;
+import edu.washington.escience.myria.column.StringDictionary;
+import edu.washington.escience.myria.expression.evaluate.EvaluatorCache;
+import edu.washington.escience.myria.operator.network.HeavyHitters;
+import edu.washington.escience.myria.operator.network.SemiJoinFilters;
 import edu.washington.escience.myria.parallel.ipc.IPCConnectionPool;
 import edu.washington.escience.myria.parallel.ipc.InJVMLoopbackChannelSink;
 import edu.washington.escience.myria.profiling.ProfilingLogger;
+import edu.washington.escience.myria.proto.ControlProto;
 import edu.washington.escience.myria.proto.ControlProto.ControlMessage;
 import edu.washington.escience.myria.proto.QueryProto.QueryMessage;
 import edu.washington.escience.myria.proto.TransportProto.TransportMessage;
+import edu.washington.escience.myria.storage.JoinHashTable;
 import edu.washington.escience.myria.tools.MyriaConfiguration;
+import edu.washington.escience.myria.util.BloomFilter;
 import edu.washington.escience.myria.util.IPCUtils;
 import edu.washington.escience.myria.util.JVMUtils;
 import edu.washington.escience.myria.util.concurrent.ErrorLoggingTimerTask;
@@ -220,7 +227,7 @@ public final class Worker {
     @Override
     public synchronized void runInner() {
       LOGGER.trace("sending heartbeat to server");
-      sendMessageToMaster(IPCUtils.CONTROL_WORKER_HEARTBEAT).awaitUninterruptibly();
+      sendMessageToMaster(IPCUtils.workerHeartbeat(getWorkerLoad())).awaitUninterruptibly();
     }
   }
 
@@ -280,6 +287,19 @@ public final class Worker {
     return queryExecutor;
   }
 
+  /**
+   * Shares the threads of the {@link #queryExecutor} fairly between queries. Null in blocking execution mode, where
+   * each fragment has its own thread.
+   */
+  private volatile ExecutionSlotScheduler executionSlotScheduler;
+
+  /**
+   * @return the scheduler of the execution slots of this worker, or null if fragments do not wait for slots.
+   */
+  ExecutionSlotScheduler getExecutionSlotScheduler() {
+    return executionSlotScheduler;
+  }
+
   /**
    * {@link ExecutorService} for non-query message processing.
    */
@@ -289,6 +309,12 @@ public final class Worker {
   private final Map<Long, SubQueryId> activeQueries;
   /** Currently running subqueries. {@link SubQueryId} -> {@link WorkerSubQuery}. */
   private final Map<SubQueryId, WorkerSubQuery> executingSubQueries;
+  /** Join hash tables cached across the subqueries of a query. Query ID -> operator ID -> {@link JoinHashTable}. */
+  private final ConcurrentHashMap<Long, ConcurrentHashMap<Integer, JoinHashTable>> cachedJoinHashTables;
+  /** Heavy hitters announced to this worker. {@link SubQueryId} -> skew group -> {@link HeavyHitters}. */
+  private final ConcurrentHashMap<SubQueryId, ConcurrentHashMap<Integer, HeavyHitters>> heavyHitters;
+  /** Semi-join filters sent to this worker. {@link SubQueryId} -> join operator id -> {@link SemiJoinFilters}. */
+  private final ConcurrentHashMap<SubQueryId, ConcurrentHashMap<Integer, SemiJoinFilters>> semiJoinFilters;
 
   /**
    * shutdown checker executor.
@@ -570,6 +596,139 @@ public final class Worker {
     return executingSubQueries;
   }
 
+  /**
+   * @param queryId the id of an active query.
+   * @return the join hash tables cached by the operators of the query, keyed by operator id. They are kept until the
+   *         master tells this worker that the query has finished.
+   */
+  ConcurrentHashMap<Integer, JoinHashTable> getCachedJoinHashTables(final long queryId) {
+    ConcurrentHashMap<Integer, JoinHashTable> tables = cachedJoinHashTables.get(queryId);
+    if (tables == null) {
+      tables = new ConcurrentHashMap<>();
+      ConcurrentHashMap<Integer, JoinHashTable> existing = cachedJoinHashTables.putIfAbsent(queryId, tables);
+      if (existing != null) {
+        tables = existing;
+      }
+    }
+    return tables;
+  }
+
+  /**
+   * Release the state cached across the subqueries of a finished query.
+   * 
+   * @param queryId the id of the finished query.
+   */
+  void releaseQuery(final long queryId) {
+    if (cachedJoinHashTables.remove(queryId) != null) {
+      LOGGER.info("Released the cached join hash tables of query {}", queryId);
+    }
+    for (SubQueryId subQueryId : heavyHitters.keySet()) {
+      if (subQueryId.getQueryId() == queryId) {
+        heavyHitters.remove(subQueryId);
+      }
+    }
+    for (SubQueryId subQueryId : semiJoinFilters.keySet()) {
+      if (subQueryId.getQueryId() == queryId) {
+        semiJoinFilters.remove(subQueryId);
+      }
+    }
+  }
+
+  /**
+   * @param subQueryId the subquery of a skew-aware shuffle.
+   * @param group the id of the skew-aware shuffle.
+   * @return the heavy hitters announced to this worker for the skew-aware shuffle. They are kept until the master tells
+   *         this worker that the query has finished.
+   */
+  HeavyHitters getHeavyHitters(final SubQueryId subQueryId, final int group) {
+    ConcurrentHashMap<Integer, HeavyHitters> groups = heavyHitters.get(subQueryId);
+    if (groups == null) {
+      groups = new ConcurrentHashMap<>();
+      ConcurrentHashMap<Integer, HeavyHitters> existing = heavyHitters.putIfAbsent(subQueryId, groups);
+      if (existing != null) {
+        groups = existing;
+      }
+    }
+    HeavyHitters hitters = groups.get(group);
+    if (hitters == null) {
+      hitters = new HeavyHitters();
+      HeavyHitters existing = groups.putIfAbsent(group, hitters);
+      if (existing != null) {
+        hitters = existing;
+      }
+    }
+    return hitters;
+  }
+
+  /**
+   * @param subQueryId the subquery of a semi-join reduction.
+   * @param join the operator id of the join.
+   * @return the semi-join filters sent to this worker for the join. They are kept until the master tells this worker
+   *         that the query has finished.
+   */
+  SemiJoinFilters getSemiJoinFilters(final SubQueryId subQueryId, final int join) {
+    ConcurrentHashMap<Integer, SemiJoinFilters> joins = semiJoinFilters.get(subQueryId);
+    if (joins == null) {
+      joins = new ConcurrentHashMap<>();
+      ConcurrentHashMap<Integer, SemiJoinFilters> existing = semiJoinFilters.putIfAbsent(subQueryId, joins);
+      if (existing != null) {
+        joins = existing;
+      }
+    }
+    SemiJoinFilters filters = joins.get(join);
+    if (filters == null) {
+      filters = new SemiJoinFilters();
+      SemiJoinFilters existing = joins.putIfAbsent(join, filters);
+      if (existing != null) {
+        filters = existing;
+      }
+    }
+    return filters;
+  }
+
+  /**
+   * Record the semi-join filter sent by another worker, see {@link IPCUtils#semiJoinFilterTM}.
+   * 
+   * @param senderId the worker of the join that built the filter.
+   * @param filter the filter.
+   */
+  void receiveSemiJoinFilter(final int senderId, final ControlProto.SemiJoinFilter filter) {
+    long[] words = new long[filter.getWords().size() / (Long.SIZE / Byte.SIZE)];
+    filter.getWords().asReadOnlyByteBuffer().asLongBuffer().get(words);
+    getSemiJoinFilters(new SubQueryId(filter.getQueryId(), filter.getSubqueryId()), filter.getOpId()).put(senderId,
+        new BloomFilter(words, filter.getNumHashes()));
+  }
+
+  /**
+   * Record the heavy hitters announced by another worker, see {@link IPCUtils#heavyHittersTM}.
+   * 
+   * @param senderId the worker that detected the heavy hitters.
+   * @param announcement the announcement.
+   */
+  void receiveHeavyHitters(final int senderId, final ControlProto.HeavyHitters announcement) {
+    getHeavyHitters(new SubQueryId(announcement.getQueryId(), announcement.getSubqueryId()), announcement.getOpId())
+        .announce(senderId, announcement.getKeyHashList());
+  }
+
+  /**
+   * @return the heap usage of this worker and the usage of its execution slots, which the master uses to schedule
+   *         queries, and the hits and misses of the compiled expression cache.
+   */
+  private ControlProto.WorkerLoad getWorkerLoad() {
+    Runtime runtime = Runtime.getRuntime();
+    ControlProto.WorkerLoad.Builder load =
+        ControlProto.WorkerLoad.newBuilder().setHeapUsedBytes(runtime.totalMemory() - runtime.freeMemory())
+            .setHeapMaxBytes(runtime.maxMemory());
+    ExecutionSlotScheduler slotScheduler = executionSlotScheduler;
+    if (slotScheduler != null) {
+      slotScheduler.addSlotUsage(load);
+    }
+    EvaluatorCache.Stats compileStats = EvaluatorCache.getTotalStats();
+    load.setCompileCacheHits(compileStats.getHits()).setCompileCacheMisses(compileStats.getMisses()).setCompileNanos(
+        compileStats.getCompileNanos()).setCompileCacheSize(EvaluatorCache.size());
+    return load.build();
+  }
+
   /**
    * @return query execution mode.
    */
@@ -589,6 +748,9 @@ public final class Worker {
     queryQueue = new LinkedBlockingQueue<QueryCommand>();
     activeQueries = new ConcurrentHashMap<>();
     executingSubQueries = new ConcurrentHashMap<>();
+    cachedJoinHashTables = new ConcurrentHashMap<>();
+    heavyHitters = new ConcurrentHashMap<>();
+    semiJoinFilters = new ConcurrentHashMap<>();
     execEnvVars = new ConcurrentHashMap<String, Object>();
 
     config = MyriaConfiguration.loadWithDefaultValues(FilenameUtils.concat(workingDirectory, "worker.cfg"));
@@ -615,6 +777,9 @@ public final class Worker {
     execEnvVars.put(MyriaConstants.EXEC_ENV_VAR_DATABASE_SYSTEM, databaseSystem);
     execEnvVars.put(MyriaConstants.EXEC_ENV_VAR_NODE_ID, getID());
     execEnvVars.put(MyriaConstants.EXEC_ENV_VAR_EXECUTION_MODE, queryExecutionMode);
+    execEnvVars.put(MyriaConstants.EXEC_ENV_VAR_OPERATOR_MEMORY_BUDGET, Long.valueOf(config.getRequired("runtime",
+        MyriaSystemConfigKeys.OPERATOR_MEMORY_BUDGET_BYTES)));
+    execEnvVars.put(MyriaConstants.EXEC_ENV_VAR_SPILL_DIRECTORY, FilenameUtils.concat(workingDirectory, "spill"));
     LOGGER.info("Worker: Database system " + databaseSystem);
     String jsonConnInfo = config.getSelfJsonConnInfo();
     LOGGER.info("Worker: Connection info " + jsonConnInfo);
@@ -690,6 +855,14 @@ public final class Worker {
   private void finishTask(final SubQueryId subQueryId) {
     executingSubQueries.remove(subQueryId);
     activeQueries.remove(subQueryId.getQueryId());
+    /* The slot usage and the shared dictionary are only kept while a subquery of the query runs on this worker. */
+    ExecutionSlotScheduler slotScheduler = executionSlotScheduler;
+    if (slotScheduler != null) {
+      slotScheduler.releaseSubQuery(subQueryId);
+    }
+    if (activeQueries.isEmpty()) {
+      StringDictionary.releaseShared();
+    }
   }
 
   /**
@@ -777,6 +950,9 @@ public final class Worker {
       // new RenamingThreadFactory("Nonblocking query executor"));
           new ThreadAffinityFixedRoundRobinExecutionPool(numCPU,
               new RenamingThreadFactory("Nonblocking query executor"));
+      executionSlotScheduler =
+          new ExecutionSlotScheduler(numCPU, Long.valueOf(config.getRequired("runtime",
+              MyriaSystemConfigKeys.SCHEDULER_TIME_SLICE_MILLIS)));
     } else {
       // blocking query execution
       queryExecutor = Executors.newCachedThreadPool(new RenamingThreadFactory("Blocking query executor"));
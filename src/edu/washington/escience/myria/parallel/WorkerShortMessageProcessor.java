@@ -70,7 +70,9 @@ public final class WorkerShortMessageProcessor extends AttachmentableAdapter imp
     SubQueryId subQueryId = new SubQueryId(qm.getQueryId(), qm.getSubqueryId());
     WorkerSubQuery q = null;
 
-    if (qm.getType() == Type.QUERY_DISTRIBUTE) {
+    if (qm.getType() == Type.QUERY_RELEASE) {
+      ownerWorker.releaseQuery(qm.getQueryId());
+    } else if (qm.getType() == Type.QUERY_DISTRIBUTE) {
       // new received query.
       ObjectInputStream osis = null;
       try {
@@ -109,6 +111,15 @@ public final class WorkerShortMessageProcessor extends AttachmentableAdapter imp
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("Control message received: " + cm);
     }
-    return ownerWorker.getControlMessageQueue().offer(cm);
+    switch (cm.getType()) {
+      case SEMI_JOIN_FILTER:
+        ownerWorker.receiveSemiJoinFilter(remoteID, cm.getSemiJoinFilter());
+        return true;
+      case HEAVY_HITTERS:
+        ownerWorker.receiveHeavyHitters(remoteID, cm.getHeavyHitters());
+        return true;
+      default:
+        return ownerWorker.getControlMessageQueue().offer(cm);
+    }
   }
 }
@@ -69,6 +69,16 @@ public class WorkerSubQuery extends LocalSubQuery {
    */
   private final Set<Integer> missingWorkers;
 
+  /**
+   * The maximum number of morsels of a batch that stateless operators process in parallel.
+   */
+  private final int morselParallelism;
+
+  /**
+   * The weight of the query in the fair sharing of the worker's execution slots.
+   */
+  private final int priority;
+
   /**
    * Record milliseconds so that we can normalize the time in {@link ProfilingLogger}.
    * 
@@ -148,11 +158,13 @@ public class WorkerSubQuery extends LocalSubQuery {
    * @param ownerWorker the worker on which this {@link WorkerSubQuery} is going to run
    */
   public WorkerSubQuery(final SubQueryPlan plan, final SubQueryId subQueryId, final Worker ownerWorker) {
-    super(subQueryId, plan.getFTMode(), plan.getProfilingMode());
+    super(subQueryId, plan.getFTMode(), plan.getProfilingMode(), plan.getColumnCompression());
     List<RootOperator> operators = plan.getRootOps();
     fragments = new HashSet<LocalFragment>(operators.size());
     numFinishedFragments = new AtomicInteger(0);
     worker = ownerWorker;
+    morselParallelism = plan.getMorselParallelism();
+    priority = plan.getPriority();
     missingWorkers = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
     for (final RootOperator fragmentRootOp : operators) {
       createFragment(fragmentRootOp);
@@ -167,7 +179,8 @@ public class WorkerSubQuery extends LocalSubQuery {
    */
   public LocalFragment createFragment(final RootOperator root) {
     final LocalFragment drivingFragment =
-        new LocalFragment(worker.getIPCConnectionPool(), this, root, worker.getQueryExecutor());
+        new LocalFragment(worker.getIPCConnectionPool(), this, root, worker.getQueryExecutor(), worker
+            .getExecutionSlotScheduler(), priority);
     LocalFragmentFuture fragmentExecutionFuture = drivingFragment.getExecutionFuture();
     fragmentExecutionFuture.addListener(fragmentExecutionListener);
 
@@ -196,6 +209,7 @@ public class WorkerSubQuery extends LocalSubQuery {
   public final void init(final LocalFragment f) {
     ImmutableMap.Builder<String, Object> queryExecEnvVars = ImmutableMap.builder();
     queryExecEnvVars.put(MyriaConstants.EXEC_ENV_VAR_QUERY_ID, getSubQueryId().getQueryId());
+    queryExecEnvVars.put(MyriaConstants.EXEC_ENV_VAR_MORSEL_PARALLELISM, morselParallelism);
     f.init(queryExecEnvVars.putAll(worker.getExecEnvVars()).build());
   }
 
@@ -3,6 +3,7 @@ package edu.washington.escience.myria.parallel.ipc;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -84,6 +85,11 @@ public abstract class BagInputBufferAdapter<PAYLOAD> extends AttachmentableAdapt
    * */
   private final AtomicReference<Object> processor;
 
+  /**
+   * Nanoseconds spent deserializing the received messages, added to by the IPC threads.
+   * */
+  private final AtomicLong deserializationNanos = new AtomicLong();
+
   /**
    * owner.
    * */
@@ -497,4 +503,14 @@ public abstract class BagInputBufferAdapter<PAYLOAD> extends AttachmentableAdapt
     return processor.get();
   }
 
+  @Override
+  public final void addDeserializationNanos(final long nanos) {
+    deserializationNanos.addAndGet(nanos);
+  }
+
+  @Override
+  public final long getDeserializationNanos() {
+    return deserializationNanos.get();
+  }
+
 }
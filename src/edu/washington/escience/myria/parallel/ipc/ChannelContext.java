@@ -437,6 +437,11 @@ public class ChannelContext extends AttachmentableAdapter {
    * */
   private volatile Integer remoteReplyID = null;
 
+  /**
+   * If the remote IPC entity announced in its CONNECT that it accepts columnar TupleBatch frames.
+   * */
+  private volatile boolean remoteAcceptsColumnarData = false;
+
   /**
    * For channels initiated by this IPC entity, the registration process is that this IPC entity creates a connection,
    * send my IPC ID, and wait for the remote IPC entity sending back its IPC ID within a timeout.
@@ -1115,6 +1120,20 @@ public class ChannelContext extends AttachmentableAdapter {
     remoteReply.setSuccess();
   }
 
+  /**
+   * @param accepts if the remote IPC entity accepts columnar TupleBatch frames.
+   * */
+  final void setRemoteAcceptsColumnarData(final boolean accepts) {
+    remoteAcceptsColumnarData = accepts;
+  }
+
+  /**
+   * @return if the remote IPC entity accepts columnar TupleBatch frames.
+   * */
+  final boolean remoteAcceptsColumnarData() {
+    return remoteAcceptsColumnarData;
+  }
+
   /**
    * Update moste recent IO operation on the owner Channel.
    * */
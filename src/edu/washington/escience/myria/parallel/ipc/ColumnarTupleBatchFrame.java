@@ -0,0 +1,188 @@
+package edu.washington.escience.myria.parallel.ipc;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+import com.google.common.base.Preconditions;
+
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.column.DoubleBufferColumn;
+import edu.washington.escience.myria.column.FloatBufferColumn;
+import edu.washington.escience.myria.column.IntBufferColumn;
+import edu.washington.escience.myria.column.LongBufferColumn;
+import edu.washington.escience.myria.storage.TupleBatch;
+
+/**
+ * The columnar wire format of a {@link TupleBatch}, an alternative to the protobuf {@code DataMessage} for connections
+ * whose remote end announced it in its {@link IPCMessage.Meta.CONNECT}.
+ *
+ * A frame is {@code [COLUMNAR_DATA][numTuples:int][numColumns:int][type:byte]*} followed by the raw values of each
+ * column, all little-endian. The column bodies are separate buffers composed into the frame without copying, and on
+ * receipt they are wrapped as {@link IntBufferColumn}s, {@link LongBufferColumn}s, etc. that view the frame directly.
+ *
+ * Only non-EOI batches whose columns are all INT, LONG, FLOAT or DOUBLE are encoded this way; everything else keeps
+ * the protobuf encoding.
+ */
+final class ColumnarTupleBatchFrame {
+
+  /** The byte order of every part of a frame. */
+  private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+  /** Size of the fixed part of the header: frame type, number of tuples, number of columns. */
+  private static final int HEADER_BYTES = 1 + Integer.SIZE / Byte.SIZE * 2;
+
+  /** Utility class cannot be constructed. */
+  private ColumnarTupleBatchFrame() {
+  }
+
+  /**
+   * @param m a message to be sent.
+   * @return true if m is a TupleBatch that can be encoded as a columnar frame.
+   */
+  static boolean canEncode(final Object m) {
+    if (!(m instanceof TupleBatch)) {
+      return false;
+    }
+    TupleBatch tb = (TupleBatch) m;
+    if (tb.isEOI()) {
+      return false;
+    }
+    for (Type t : tb.getSchema().getColumnTypes()) {
+      if (valueBytes(t) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param cb a received frame, positioned at its header byte.
+   * @return true if cb is a columnar frame.
+   */
+  static boolean isColumnarFrame(final ChannelBuffer cb) {
+    return cb.readable() && cb.getByte(cb.readerIndex()) == IPCMessage.Header.COLUMNAR_DATA.ordinal();
+  }
+
+  /**
+   * @param t a column type.
+   * @return the number of bytes of a value of type t in a frame, or -1 if columns of type t cannot be framed.
+   */
+  private static int valueBytes(final Type t) {
+    switch (t) {
+      case INT_TYPE:
+      case FLOAT_TYPE:
+        return Integer.SIZE / Byte.SIZE;
+      case LONG_TYPE:
+      case DOUBLE_TYPE:
+        return Long.SIZE / Byte.SIZE;
+      default:
+        return -1;
+    }
+  }
+
+  /**
+   * Encode a TupleBatch as a columnar frame, including the frame type header byte.
+   *
+   * @param tb the TupleBatch, which must satisfy {@link #canEncode(Object)}.
+   * @return the frame.
+   */
+  static ChannelBuffer encode(final TupleBatch tb) {
+    final int numColumns = tb.numColumns();
+    final int numTuples = tb.numTuples();
+    final ChannelBuffer header = ChannelBuffers.buffer(ORDER, HEADER_BYTES + numColumns);
+    header.writeByte(IPCMessage.Header.COLUMNAR_DATA.ordinal());
+    header.writeInt(numTuples);
+    header.writeInt(numColumns);
+
+    final ChannelBuffer[] parts = new ChannelBuffer[numColumns + 1];
+    parts[0] = header;
+    for (int c = 0; c < numColumns; ++c) {
+      final Column<?> column = tb.getDataColumns().get(c);
+      final Type type = column.getType();
+      header.writeByte(type.ordinal());
+      final ByteBuffer body = ByteBuffer.allocate(numTuples * valueBytes(type)).order(ORDER);
+      switch (type) {
+        case INT_TYPE:
+          for (int row = 0; row < numTuples; ++row) {
+            body.putInt(column.getInt(row));
+          }
+          break;
+        case FLOAT_TYPE:
+          for (int row = 0; row < numTuples; ++row) {
+            body.putFloat(column.getFloat(row));
+          }
+          break;
+        case LONG_TYPE:
+          for (int row = 0; row < numTuples; ++row) {
+            body.putLong(column.getLong(row));
+          }
+          break;
+        case DOUBLE_TYPE:
+          for (int row = 0; row < numTuples; ++row) {
+            body.putDouble(column.getDouble(row));
+          }
+          break;
+        default:
+          throw new IllegalArgumentException("Type " + type + " cannot be sent in a columnar frame");
+      }
+      body.flip();
+      parts[c + 1] = ChannelBuffers.wrappedBuffer(body);
+    }
+    return ChannelBuffers.wrappedBuffer(parts);
+  }
+
+  /**
+   * Decode a columnar frame. The returned TupleBatch views the frame's bytes, so the frame must not be modified
+   * afterwards.
+   *
+   * @param cb the frame, positioned at its header byte.
+   * @param schema the schema of the stream the frame was received on.
+   * @return the TupleBatch.
+   */
+  static TupleBatch decode(final ChannelBuffer cb, final Schema schema) {
+    final ByteBuffer frame = cb.toByteBuffer().order(ORDER);
+    Preconditions.checkArgument(frame.get() == IPCMessage.Header.COLUMNAR_DATA.ordinal(), "Not a columnar frame");
+    final int numTuples = frame.getInt();
+    final int numColumns = frame.getInt();
+    Preconditions.checkArgument(numColumns == schema.numColumns(),
+        "Columnar frame has %s columns, but the stream schema has %s", numColumns, schema.numColumns());
+    final Type[] types = new Type[numColumns];
+    for (int c = 0; c < numColumns; ++c) {
+      types[c] = Type.values()[frame.get()];
+      Preconditions.checkArgument(types[c] == schema.getColumnType(c),
+          "Column %s of the columnar frame is %s, but the stream schema expects %s", c, types[c], schema
+              .getColumnType(c));
+    }
+
+    final List<Column<?>> columns = new ArrayList<Column<?>>(numColumns);
+    for (Type type : types) {
+      final int length = numTuples * valueBytes(type);
+      final ByteBuffer body = frame.slice().order(ORDER);
+      body.limit(length);
+      frame.position(frame.position() + length);
+      switch (type) {
+        case INT_TYPE:
+          columns.add(new IntBufferColumn(body.asIntBuffer()));
+          break;
+        case FLOAT_TYPE:
+          columns.add(new FloatBufferColumn(body.asFloatBuffer()));
+          break;
+        case LONG_TYPE:
+          columns.add(new LongBufferColumn(body.asLongBuffer()));
+          break;
+        case DOUBLE_TYPE:
+          columns.add(new DoubleBufferColumn(body.asDoubleBuffer()));
+          break;
+        default:
+          throw new IllegalArgumentException("Type " + type + " cannot be received in a columnar frame");
+      }
+    }
+    return new TupleBatch(schema, columns, numTuples);
+  }
+}
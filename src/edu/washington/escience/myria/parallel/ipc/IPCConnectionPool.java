@@ -139,6 +139,29 @@ public final class IPCConnectionPool implements ExternalResourceReleasable {
     return payloadSerializer;
   }
 
+  /**
+   * If TupleBatches are sent as {@link ColumnarTupleBatchFrame}s to remotes that accept them.
+   * */
+  private volatile boolean columnarDataFrames = true;
+
+  /**
+   * @return if TupleBatches are sent as columnar frames to remotes that accept them.
+   * */
+  public boolean isColumnarDataFrames() {
+    return columnarDataFrames;
+  }
+
+  /**
+   * Choose the wire format of TupleBatches sent to remote IPC entities. Receiving is not affected: this pool always
+   * accepts both formats. The columnar format is only used on connections whose remote announced it accepts it, and only
+   * for batches of fixed-width columns; the protobuf format is the fallback.
+   *
+   * @param enabled true to send columnar frames where possible, false to always send protobuf.
+   * */
+  public void setColumnarDataFrames(final boolean enabled) {
+    columnarDataFrames = enabled;
+  }
+
   /**
    * Recycle unused connections.
    * */
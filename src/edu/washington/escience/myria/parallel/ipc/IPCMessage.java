@@ -15,7 +15,9 @@ public interface IPCMessage {
    * */
   enum Header {
     /***/
-    EOS, BOS, CONNECT, DISCONNECT, PING, DATA
+    EOS, BOS, CONNECT, DISCONNECT, PING, DATA,
+    /** A TupleBatch in the {@link ColumnarTupleBatchFrame} format. */
+    COLUMNAR_DATA
   }
 
   /**
@@ -117,10 +119,19 @@ public interface IPCMessage {
      * CONNECT.
      * */
     static final class CONNECT extends Meta {
+      /**
+       * Capability flag: the sender of the CONNECT can receive {@link Header#COLUMNAR_DATA} frames.
+       * */
+      static final byte ACCEPTS_COLUMNAR_DATA = 1;
+
       /**
        * remote ID.
        * */
       private final int remoteID;
+      /**
+       * capability flags of the remote. Remotes that predate the flags send none, which reads as 0.
+       * */
+      private final byte capabilities;
       /**
        * serialize value.
        * */
@@ -130,13 +141,30 @@ public interface IPCMessage {
        * @param remoteID the remote IPC ID.
        * */
       public CONNECT(final int remoteID) {
+        this(remoteID, ACCEPTS_COLUMNAR_DATA);
+      }
+
+      /**
+       * @param remoteID the remote IPC ID.
+       * @param capabilities the capability flags.
+       * */
+      CONNECT(final int remoteID, final byte capabilities) {
         this.remoteID = remoteID;
-        ChannelBuffer bb = ChannelBuffers.buffer(1 + Integer.SIZE / Byte.SIZE);
+        this.capabilities = capabilities;
+        ChannelBuffer bb = ChannelBuffers.buffer(1 + Integer.SIZE / Byte.SIZE + 1);
         bb.writeByte((byte) Header.CONNECT.ordinal());
         bb.writeInt(remoteID);
+        bb.writeByte(capabilities);
         serializeValue = ChannelBuffers.unmodifiableBuffer(bb);
       }
 
+      /**
+       * @return if the remote can receive {@link Header#COLUMNAR_DATA} frames.
+       * */
+      public boolean acceptsColumnarData() {
+        return (capabilities & ACCEPTS_COLUMNAR_DATA) != 0;
+      }
+
       /**
        * @return get the remote IPC ID.
        * */
@@ -154,7 +182,12 @@ public interface IPCMessage {
        * @param bb serialized data.
        * */
       public static CONNECT deSerialize(final ChannelBuffer bb) {
-        return new CONNECT(bb.readInt());
+        int remoteID = bb.readInt();
+        byte capabilities = 0;
+        if (bb.readable()) {
+          capabilities = bb.readByte();
+        }
+        return new CONNECT(remoteID, capabilities);
       }
 
       @Override
@@ -19,6 +19,7 @@ import org.slf4j.LoggerFactory;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.parallel.ipc.ChannelContext.RegisteredChannelContext;
 import edu.washington.escience.myria.proto.TransportProto.TransportMessage;
+import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.util.IPCUtils;
 import edu.washington.escience.myria.util.concurrent.ThreadStackDump;
 
@@ -87,6 +88,8 @@ public final class IPCMessageHandler extends SimpleChannelHandler {
       if (!ownerConnectionPool.isRemoteValid(remoteID)) {
         throw new ChannelException("Unknown RemoteID: " + remoteID);
       }
+      // before registering, so that no data is written to the channel before the format is known
+      cc.setRemoteAcceptsColumnarData(((IPCMessage.Meta.CONNECT) metaMessage).acceptsColumnarData());
       if (ch.getParent() != null) {
         // server channel
         ch.write(ownerConnectionPool.getMyIDAsMsg()).await(); // await to finish channel registering
@@ -220,12 +223,27 @@ public final class IPCMessageHandler extends SimpleChannelHandler {
     if (msg instanceof ChannelBuffer) {
       // message from remote, deserialize
       ChannelBuffer cb = (ChannelBuffer) msg;
-      msg = IPCMessage.Meta.deSerialize(cb);
+      if (ColumnarTupleBatchFrame.isColumnarFrame(cb)) {
+        final ChannelContext cc = ChannelContext.getChannelContext(ch);
+        StreamInputChannel<?> ic = cc.getRegisteredChannelContext().getIOPair().getInputChannel();
+        if (ic == null) {
+          // same as a protobuf DATA message without a bound logical input channel
+          LOGGER.warn("Unknown columnar data message from {}, through {}", cc.getRegisteredChannelContext()
+              .getRemoteID(), ChannelContext.channelToString(ctx.getChannel()));
+          return;
+        }
+        final long start = System.nanoTime();
+        msg = ColumnarTupleBatchFrame.decode(cb, (Schema) ic.getInputBuffer().getAttachment());
+        ic.getInputBuffer().addDeserializationNanos(System.nanoTime() - start);
+      } else {
+        msg = IPCMessage.Meta.deSerialize(cb);
+      }
       if (msg == null) {
         // user message
         final ChannelContext cc = ChannelContext.getChannelContext(ch);
         final int remoteID = cc.getRegisteredChannelContext().getRemoteID();
 
+        final long start = System.nanoTime();
         TransportMessage tm = (TransportMessage) ownerConnectionPool.getPayloadSerializer().deSerialize(cb, null, null);
         switch (tm.getType()) {
           case DATA:
@@ -233,6 +251,7 @@ public final class IPCMessageHandler extends SimpleChannelHandler {
             if (ic != null) {
               StreamInputBuffer<?> sib = ic.getInputBuffer();
               msg = IPCUtils.tmToTupleBatch(tm.getDataMessage(), (Schema) sib.getAttachment());
+              sib.addDeserializationNanos(System.nanoTime() - start);
             } else {
               // got a message from a physical channel which is not bound to a logical input channel, ignore
               // the binding may have been cleaned up due to failure
@@ -363,6 +382,10 @@ public final class IPCMessageHandler extends SimpleChannelHandler {
       ChannelBuffer codedMsg = null;
       if (m instanceof IPCMessage.Meta) {
         codedMsg = ((IPCMessage.Meta) m).serialize();
+      } else if (cc.remoteAcceptsColumnarData() && ownerConnectionPool.isColumnarDataFrames()
+          && ColumnarTupleBatchFrame.canEncode(m)) {
+        // a TupleBatch of fixed-width columns, and the remote negotiated the columnar format in its CONNECT
+        codedMsg = ColumnarTupleBatchFrame.encode((TupleBatch) m);
       } else {
         /*
          * m could be: 1. a TupleBatch (corresponds to IPCMessage.StreamData), 2. TransportMessage.QUERY or a
@@ -141,4 +141,16 @@ public interface StreamInputBuffer<PAYLOAD> extends Attachmentable {
    * @return application defined message processor.
    * */
   Object getProcessor();
+
+  /**
+   * Record time spent deserializing messages received into this buffer. Called by the IPC layer.
+   * 
+   * @param nanos the number of nanoseconds.
+   * */
+  void addDeserializationNanos(final long nanos);
+
+  /**
+   * @return the total number of nanoseconds spent deserializing messages received into this buffer.
+   * */
+  long getDeserializationNanos();
 }
@@ -0,0 +1,424 @@
+package edu.washington.escience.myria.storage;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import com.google.common.base.Preconditions;
+
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.column.DictionaryStringColumn;
+import edu.washington.escience.myria.column.StringDictionary;
+
+/**
+ * A hash table of tuples keyed on a subset of their columns, designed for hash joins.
+ *
+ * Tuples are stored by row index in a {@link MutableTupleBuffer}. The index itself is an open hash table of flat
+ * arrays: {@code buckets} holds the first row of each bucket, and {@code next} links each row to the next row in its
+ * bucket, so that there is no per-key object. When all key columns have fixed-width or string types, the keys of every
+ * row are also copied contiguously into a {@code long[]} so that equality checks during probes do not chase pointers
+ * into the tuple buffer. A string key is copied as its code if it comes from a {@link DictionaryStringColumn}, and is
+ * then compared by code with probing rows encoded with the same {@link StringDictionary}.
+ *
+ * The hash codes passed to this table must be computed by {@link edu.washington.escience.myria.util.HashUtils} on the
+ * key columns, so that the build and probe sides agree.
+ */
+public final class JoinHashTable {
+  /** Marks the end of a chain or an empty bucket. */
+  private static final int NONE = -1;
+  /** The initial number of buckets; must be a power of two. */
+  private static final int INITIAL_BUCKETS = 64;
+  /** The initial capacity of the per-row arrays. */
+  private static final int INITIAL_ROWS = 64;
+
+  /** The buffer holding the stored tuples. */
+  private final MutableTupleBuffer data;
+  /** The key columns of the stored tuples. */
+  private final int[] keyColumns;
+  /** The types of the key columns. */
+  private final Type[] keyTypes;
+  /** Whether the keys are copied to {@link #keys}, i.e., all the key columns are fixed-width or strings. */
+  private final boolean primitiveKeys;
+  /**
+   * For each string key column, the dictionary of the codes in {@link #keys}, taken from the first encoded column
+   * added. Strings that are not encoded with it have code -1.
+   */
+  private final StringDictionary[] dictionaries;
+
+  /** The first row of each bucket, or {@link #NONE}. */
+  private int[] buckets;
+  /** The next row in the same bucket as each row, or {@link #NONE}. */
+  private int[] next;
+  /** The hash code of each row. */
+  private int[] hashes;
+  /** The keys of each row, {@code keyColumns.length} values per row. Only used when {@link #primitiveKeys}. */
+  private long[] keys;
+
+  /**
+   * @param schema the schema of the stored tuples.
+   * @param keyColumns the key columns of the stored tuples. Order matters.
+   */
+  public JoinHashTable(final Schema schema, final int[] keyColumns) {
+    Objects.requireNonNull(schema, "schema");
+    this.keyColumns = Objects.requireNonNull(keyColumns, "keyColumns");
+    data = new MutableTupleBuffer(schema);
+    keyTypes = new Type[keyColumns.length];
+    boolean allPrimitive = true;
+    for (int i = 0; i < keyColumns.length; ++i) {
+      keyTypes[i] = schema.getColumnType(keyColumns[i]);
+      allPrimitive &= isPrimitive(keyTypes[i]) || keyTypes[i] == Type.STRING_TYPE;
+    }
+    primitiveKeys = allPrimitive;
+    dictionaries = new StringDictionary[keyColumns.length];
+    buckets = new int[INITIAL_BUCKETS];
+    Arrays.fill(buckets, NONE);
+    next = new int[INITIAL_ROWS];
+    hashes = new int[INITIAL_ROWS];
+    if (primitiveKeys) {
+      keys = new long[INITIAL_ROWS * keyColumns.length];
+    }
+  }
+
+  /**
+   * @param type a column type.
+   * @return whether values of the given type can be stored in a long.
+   */
+  private static boolean isPrimitive(final Type type) {
+    switch (type) {
+      case BOOLEAN_TYPE:
+      case DOUBLE_TYPE:
+      case FLOAT_TYPE:
+      case INT_TYPE:
+      case LONG_TYPE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * @return the number of tuples in this table.
+   */
+  public int numTuples() {
+    return data.numTuples();
+  }
+
+  /**
+   * @return the buffer holding the stored tuples. Row {@code i} of the buffer is the tuple with index {@code i}.
+   */
+  public MutableTupleBuffer getData() {
+    return data;
+  }
+
+  /**
+   * @param index the index of a stored tuple.
+   * @return the columns of the batch containing the specified tuple.
+   * @see MutableTupleBuffer#getColumns(int)
+   */
+  public ReadableColumn[] getColumns(final int index) {
+    return data.getColumns(index);
+  }
+
+  /**
+   * @param index the index of a stored tuple.
+   * @return the row of the specified tuple in the batch returned by {@link #getColumns(int)}.
+   */
+  public int getTupleIndexInContainingTB(final int index) {
+    return data.getTupleIndexInContainingTB(index);
+  }
+
+  /**
+   * @param index the index of a stored tuple.
+   * @return the hash code of the key columns of the specified tuple.
+   */
+  public int getHashCode(final int index) {
+    Preconditions.checkElementIndex(index, numTuples());
+    return hashes[index];
+  }
+
+  /**
+   * Append the specified row of the given batch to this table.
+   *
+   * @param tb the source batch, whose schema matches this table.
+   * @param row the row to add.
+   * @param hashCode the hash code of the key columns of the row.
+   * @return the index of the new tuple.
+   */
+  public int add(final TupleBatch tb, final int row, final int hashCode) {
+    final List<? extends Column<?>> columns = tb.getDataColumns();
+    final int index = data.numTuples();
+    for (int column = 0; column < columns.size(); ++column) {
+      data.put(column, columns.get(column), row);
+    }
+    link(index, hashCode);
+    if (primitiveKeys) {
+      storeKeys(index, tb, null, row);
+    }
+    return index;
+  }
+
+  /**
+   * Append the specified columns of the specified row of the given batch to this table.
+   *
+   * @param tb the source batch.
+   * @param sourceColumns the columns of the batch to store, in the order of the schema of this table.
+   * @param row the row to add.
+   * @param hashCode the hash code of the key columns of the row.
+   * @return the index of the new tuple.
+   */
+  public int add(final TupleBatch tb, final int[] sourceColumns, final int row, final int hashCode) {
+    final List<? extends Column<?>> columns = tb.getDataColumns();
+    final int index = data.numTuples();
+    for (int column = 0; column < sourceColumns.length; ++column) {
+      data.put(column, columns.get(sourceColumns[column]), row);
+    }
+    link(index, hashCode);
+    if (primitiveKeys) {
+      storeKeys(index, tb, sourceColumns, row);
+    }
+    return index;
+  }
+
+  /**
+   * Overwrite the stored tuple at the given index with the specified row of the given batch. The key columns of the
+   * row must be equal to those of the stored tuple.
+   *
+   * @param index the index of the stored tuple.
+   * @param tb the source batch, whose schema matches this table.
+   * @param row the row to copy.
+   */
+  public void replace(final int index, final TupleBatch tb, final int row) {
+    Preconditions.checkElementIndex(index, data.numTuples());
+    final List<? extends Column<?>> columns = tb.getDataColumns();
+    for (int column = 0; column < columns.size(); ++column) {
+      data.replace(column, index, columns.get(column), row);
+    }
+    if (primitiveKeys) {
+      storeKeys(index, tb, null, row);
+    }
+  }
+
+  /**
+   * Add a newly stored tuple to the index.
+   *
+   * @param index the index of the tuple, which must be the last one in {@link #data}.
+   * @param hashCode the hash code of the key columns of the tuple.
+   */
+  private void link(final int index, final int hashCode) {
+    if (index == next.length) {
+      final int capacity = next.length * 2;
+      next = Arrays.copyOf(next, capacity);
+      hashes = Arrays.copyOf(hashes, capacity);
+      if (primitiveKeys) {
+        keys = Arrays.copyOf(keys, capacity * keyColumns.length);
+      }
+    }
+    hashes[index] = hashCode;
+    if (index + 1 > buckets.length - (buckets.length >>> 2)) {
+      rehash(buckets.length * 2);
+    } else {
+      final int bucket = hashCode & (buckets.length - 1);
+      next[index] = buckets[bucket];
+      buckets[bucket] = index;
+    }
+  }
+
+  /**
+   * Copy the keys of the stored tuple at the given index to {@link #keys}.
+   *
+   * @param index the index of the stored tuple.
+   * @param tb the batch the tuple was copied from.
+   * @param sourceColumns the columns of the batch that were stored, or null if all of them were.
+   * @param row the row of the batch the tuple was copied from.
+   */
+  private void storeKeys(final int index, final TupleBatch tb, final int[] sourceColumns, final int row) {
+    final int offset = index * keyColumns.length;
+    for (int i = 0; i < keyColumns.length; ++i) {
+      int column = keyColumns[i];
+      if (sourceColumns != null) {
+        column = sourceColumns[column];
+      }
+      if (keyTypes[i] == Type.STRING_TYPE) {
+        keys[offset + i] = storedCode(i, tb.asColumn(column), row);
+      } else {
+        keys[offset + i] = encode(tb, column, row, keyTypes[i]);
+      }
+    }
+  }
+
+  /**
+   * @param key the index of a string key column.
+   * @param column the column holding the key of a tuple being stored.
+   * @param row the row of the key in the column.
+   * @return the code of the key in the dictionary of the key column, or -1 if it is not encoded with it.
+   */
+  private int storedCode(final int key, final ReadableColumn column, final int row) {
+    if (!(column instanceof DictionaryStringColumn)) {
+      return -1;
+    }
+    final DictionaryStringColumn strings = (DictionaryStringColumn) column;
+    if (dictionaries[key] == null) {
+      dictionaries[key] = strings.getDictionary();
+    } else if (dictionaries[key] != strings.getDictionary()) {
+      return -1;
+    }
+    return strings.getCode(row);
+  }
+
+  /**
+   * Rebuild the index with the given number of buckets.
+   *
+   * @param numBuckets the new number of buckets; must be a power of two.
+   */
+  private void rehash(final int numBuckets) {
+    buckets = new int[numBuckets];
+    Arrays.fill(buckets, NONE);
+    final int mask = numBuckets - 1;
+    final int numTuples = data.numTuples();
+    for (int index = 0; index < numTuples; ++index) {
+      final int bucket = hashes[index] & mask;
+      next[index] = buckets[bucket];
+      buckets[bucket] = index;
+    }
+  }
+
+  /**
+   * Find the first stored tuple whose key columns equal the specified columns in the specified row of the given table.
+   * The remaining matches are found using {@link #nextMatch}.
+   *
+   * @param table the probing table.
+   * @param compareColumns the columns of the probing table to compare with the key columns. Order matters.
+   * @param row the probing row.
+   * @param hashCode the hash code of the compare columns in the probing row.
+   * @return the index of the first matching tuple, or -1 if there is none.
+   */
+  public int firstMatch(final ReadableTable table, final int[] compareColumns, final int row, final int hashCode) {
+    return findFrom(buckets[hashCode & (buckets.length - 1)], table, compareColumns, row, hashCode);
+  }
+
+  /**
+   * Find the next stored tuple after {@code index} whose key columns equal the specified columns in the specified row
+   * of the given table.
+   *
+   * @param index the index of the previous match.
+   * @param table the probing table.
+   * @param compareColumns the columns of the probing table to compare with the key columns. Order matters.
+   * @param row the probing row.
+   * @param hashCode the hash code of the compare columns in the probing row.
+   * @return the index of the next matching tuple, or -1 if there is none.
+   */
+  public int nextMatch(final int index, final ReadableTable table, final int[] compareColumns, final int row,
+      final int hashCode) {
+    return findFrom(next[index], table, compareColumns, row, hashCode);
+  }
+
+  /**
+   * Walk a bucket chain, starting at {@code index}, until a matching tuple is found.
+   *
+   * @param index the first candidate index, or {@link #NONE}.
+   * @param table the probing table.
+   * @param compareColumns the columns of the probing table to compare with the key columns.
+   * @param row the probing row.
+   * @param hashCode the hash code of the compare columns in the probing row.
+   * @return the index of the first matching tuple, or -1 if there is none.
+   */
+  private int findFrom(final int index, final ReadableTable table, final int[] compareColumns, final int row,
+      final int hashCode) {
+    for (int cur = index; cur != NONE; cur = next[cur]) {
+      if (hashes[cur] == hashCode && keyEquals(cur, table, compareColumns, row)) {
+        return cur;
+      }
+    }
+    return NONE;
+  }
+
+  /**
+   * @param index the index of a stored tuple.
+   * @param table the probing table.
+   * @param compareColumns the columns of the probing table to compare with the key columns.
+   * @param row the probing row.
+   * @return whether the key columns of the stored tuple equal the compare columns of the probing row.
+   */
+  private boolean keyEquals(final int index, final ReadableTable table, final int[] compareColumns, final int row) {
+    if (!primitiveKeys) {
+      return TupleUtils.tupleEquals(table, compareColumns, row, data, keyColumns, index);
+    }
+    final int offset = index * keyColumns.length;
+    for (int i = 0; i < keyColumns.length; ++i) {
+      final long stored = keys[offset + i];
+      switch (keyTypes[i]) {
+        case DOUBLE_TYPE:
+          if (Double.longBitsToDouble(stored) != table.getDouble(compareColumns[i], row)) {
+            return false;
+          }
+          break;
+        case FLOAT_TYPE:
+          if (Float.intBitsToFloat((int) stored) != table.getFloat(compareColumns[i], row)) {
+            return false;
+          }
+          break;
+        case STRING_TYPE:
+          if (!stringKeyEquals(i, stored, index, table, compareColumns[i], row)) {
+            return false;
+          }
+          break;
+        default:
+          if (stored != encode(table, compareColumns[i], row, keyTypes[i])) {
+            return false;
+          }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param key the index of a string key column.
+   * @param storedCode the code of the stored key, or -1.
+   * @param index the index of the stored tuple.
+   * @param table the probing table.
+   * @param column the column of the probing table to compare with the key column.
+   * @param row the probing row.
+   * @return whether the stored key equals the probing value, comparing codes if both are encoded with the same
+   *         dictionary.
+   */
+  private boolean stringKeyEquals(final int key, final long storedCode, final int index, final ReadableTable table,
+      final int column, final int row) {
+    if (storedCode >= 0 && table instanceof TupleBatch) {
+      /* TupleBatch.asColumn does not allocate. */
+      final ReadableColumn probe = table.asColumn(column);
+      if (probe instanceof DictionaryStringColumn) {
+        final DictionaryStringColumn strings = (DictionaryStringColumn) probe;
+        if (strings.getDictionary() == dictionaries[key]) {
+          return storedCode == strings.getCode(row);
+        }
+      }
+    }
+    return data.getString(keyColumns[key], index).equals(table.getString(column, row));
+  }
+
+  /**
+   * @param table the table containing the value.
+   * @param column the column containing the value.
+   * @param row the row containing the value.
+   * @param type the type of the column, which must be fixed-width.
+   * @return the value, widened to a long.
+   */
+  private static long encode(final ReadableTable table, final int column, final int row, final Type type) {
+    switch (type) {
+      case BOOLEAN_TYPE:
+        return table.getBoolean(column, row) ? 1 : 0;
+      case DOUBLE_TYPE:
+        return Double.doubleToRawLongBits(table.getDouble(column, row));
+      case FLOAT_TYPE:
+        return Float.floatToRawIntBits(table.getFloat(column, row));
+      case INT_TYPE:
+        return table.getInt(column, row);
+      case LONG_TYPE:
+        return table.getLong(column, row);
+      default:
+        throw new UnsupportedOperationException("Cannot store a key of type " + type + " in a long");
+    }
+  }
+}
@@ -0,0 +1,233 @@
+package edu.washington.escience.myria.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Objects;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.CountingOutputStream;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.proto.TransportProto.TransportMessage;
+import edu.washington.escience.myria.util.IPCUtils;
+
+/**
+ * A temporary on-disk run of tuples, used by operators that spill their state when it exceeds a memory budget.
+ *
+ * Rows are appended with {@link #put(TupleBatch, int)} and staged in a {@link TupleBatchBuffer}, so that the file is
+ * written in full batches. Each batch is stored as a length-delimited {@link TransportMessage}, the same encoding that
+ * is sent over the network. Once the file is {@link #finish() finished}, it can be read back any number of times with
+ * {@link #openReader()}. The file is deleted by {@link #delete()}.
+ */
+public final class SpillFile {
+  /** The schema of the tuples in this file. */
+  private final Schema schema;
+  /** The file. */
+  private final File file;
+  /** The stream writing to the file, or null once the file is finished. */
+  private CountingOutputStream output;
+  /** The rows that have been added but not written yet. */
+  private TupleBatchBuffer pending;
+  /** The number of tuples in this file. */
+  private long numTuples;
+
+  /**
+   * Create a new, empty spill file in the given directory.
+   *
+   * @param schema the schema of the tuples in this file.
+   * @param directory the directory in which to create the file. It is created if it does not exist.
+   * @throws DbException if the file cannot be created.
+   */
+  public SpillFile(final Schema schema, final File directory) throws DbException {
+    this.schema = Objects.requireNonNull(schema, "schema");
+    Objects.requireNonNull(directory, "directory");
+    try {
+      if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+        throw new IOException("unable to create directory " + directory);
+      }
+      file = File.createTempFile("spill", ".run", directory);
+      output = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+    } catch (IOException e) {
+      throw new DbException(e);
+    }
+    pending = new TupleBatchBuffer(schema);
+  }
+
+  /**
+   * @param execEnvVars the execution environment variables of an operator, or null.
+   * @return the directory in which the operator should create its spill files. This is
+   *         {@link MyriaConstants#EXEC_ENV_VAR_SPILL_DIRECTORY} if set, or the system temporary directory otherwise.
+   */
+  public static File getSpillDirectory(final Map<String, Object> execEnvVars) {
+    Object directory = null;
+    if (execEnvVars != null) {
+      directory = execEnvVars.get(MyriaConstants.EXEC_ENV_VAR_SPILL_DIRECTORY);
+    }
+    if (directory == null) {
+      directory = System.getProperty("java.io.tmpdir");
+    }
+    return new File((String) directory);
+  }
+
+  /**
+   * @return the schema of the tuples in this file.
+   */
+  public Schema getSchema() {
+    return schema;
+  }
+
+  /**
+   * @return the number of tuples added to this file.
+   */
+  public long numTuples() {
+    return numTuples;
+  }
+
+  /**
+   * @return the number of bytes written to this file so far.
+   */
+  public long numBytes() {
+    return output == null ? file.length() : output.getCount();
+  }
+
+  /**
+   * Append the specified row of the given batch to this file.
+   *
+   * @param tb the source batch, whose schema matches this file.
+   * @param row the row to append.
+   * @throws DbException if there is an error writing the file.
+   */
+  public void put(final TupleBatch tb, final int row) throws DbException {
+    Preconditions.checkState(output != null, "spill file %s is already finished", file);
+    pending.put(tb, row);
+    ++numTuples;
+    TupleBatch filled;
+    while ((filled = pending.popFilled()) != null) {
+      write(filled);
+    }
+  }
+
+  /**
+   * Append a whole batch to this file.
+   *
+   * @param tb the batch, whose schema matches this file.
+   * @throws DbException if there is an error writing the file.
+   */
+  public void putAll(final TupleBatch tb) throws DbException {
+    Preconditions.checkState(output != null, "spill file %s is already finished", file);
+    numTuples += tb.numTuples();
+    write(tb);
+  }
+
+  /**
+   * @param tb the batch to be written.
+   * @throws DbException if there is an error writing the file.
+   */
+  private void write(final TupleBatch tb) throws DbException {
+    try {
+      tb.toTransportMessage().writeDelimitedTo(output);
+    } catch (IOException e) {
+      throw new DbException(e);
+    }
+  }
+
+  /**
+   * Flush the pending rows and close the file for writing. Has no effect if the file is already finished.
+   *
+   * @throws DbException if there is an error writing the file.
+   */
+  public void finish() throws DbException {
+    if (output == null) {
+      return;
+    }
+    TupleBatch tb;
+    while ((tb = pending.popAny()) != null) {
+      write(tb);
+    }
+    pending = null;
+    try {
+      output.close();
+    } catch (IOException e) {
+      throw new DbException(e);
+    } finally {
+      output = null;
+    }
+  }
+
+  /**
+   * @return a reader over the batches in this file, which must be finished.
+   * @throws DbException if the file cannot be opened.
+   */
+  public Reader openReader() throws DbException {
+    Preconditions.checkState(output == null, "spill file %s is not finished", file);
+    try {
+      return new Reader(new BufferedInputStream(new FileInputStream(file)));
+    } catch (IOException e) {
+      throw new DbException(e);
+    }
+  }
+
+  /**
+   * Close and remove the file. Any open reader must be closed separately.
+   */
+  public void delete() {
+    if (output != null) {
+      try {
+        output.close();
+      } catch (IOException e) {
+        /* The file is going away anyway. */
+        assert true;
+      }
+      output = null;
+      pending = null;
+    }
+    if (!file.delete() && file.exists()) {
+      file.deleteOnExit();
+    }
+  }
+
+  /**
+   * Reads the batches of a finished {@link SpillFile} in the order they were written.
+   */
+  public final class Reader implements Closeable {
+    /** The stream reading the file. */
+    private final InputStream input;
+
+    /**
+     * @param input the stream reading the file.
+     */
+    private Reader(final InputStream input) {
+      this.input = input;
+    }
+
+    /**
+     * @return the next batch in the file, or null if there are no more.
+     * @throws DbException if there is an error reading the file.
+     */
+    public TupleBatch next() throws DbException {
+      try {
+        TransportMessage tm = TransportMessage.parseDelimitedFrom(input);
+        if (tm == null) {
+          return null;
+        }
+        return IPCUtils.tmToTupleBatch(tm.getDataMessage(), schema);
+      } catch (IOException e) {
+        throw new DbException(e);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      input.close();
+    }
+  }
+}
@@ -13,9 +13,11 @@ import org.joda.time.DateTime;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 
+import edu.washington.escience.myria.MyriaConstants.ColumnCompression;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.column.ColumnArrays;
 import edu.washington.escience.myria.column.PrefixColumn;
 import edu.washington.escience.myria.operator.network.partition.PartitionFunction;
 import edu.washington.escience.myria.proto.TransportProto.TransportMessage;
@@ -229,34 +231,60 @@ public class TupleBatch implements ReadableTable, Serializable {
   }
 
   /**
-   * Partition this TB using the partition function. The method is implemented by shallow copy of TupleBatches.
+   * Partition this TB using the partition function, see {@link #partition(int[], int)}.
    * 
    * @return an array of TBs. The length of the array is the same as the number of partitions. If no tuple presents in a
    *         partition, say the i'th partition, the i'th element in the result array is null.
    * @param pf the partition function.
    * */
   public final TupleBatch[] partition(final PartitionFunction pf) {
-    TupleBatch[] result = new TupleBatch[pf.numPartition()];
     if (isEOI) {
+      TupleBatch[] result = new TupleBatch[pf.numPartition()];
       Arrays.fill(result, this);
       return result;
     }
+    return partition(pf.partition(this), pf.numPartition());
+  }
 
-    final int[] partitions = pf.partition(this);
+  /**
+   * Partition this TB according to the given partition of every tuple. One pass counts the tuples of every partition,
+   * then one pass per column copies its values into columns of every partition that are allocated at their final size,
+   * see {@link ColumnArrays#scatter}. The cost thus does not grow with the number of partitions.
+   * 
+   * @param partitions the partition of every tuple, in [0, numPartitions).
+   * @param numPartitions the number of partitions.
+   * @return an array of TBs of length numPartitions. If no tuple presents in a partition, say the i'th partition, the
+   *         i'th element in the result array is null.
+   */
+  public final TupleBatch[] partition(final int[] partitions, final int numPartitions) {
+    Preconditions.checkArgument(partitions.length == numTuples,
+        "Error: trying to partition a TupleBatch of length %s with %s partitions", numTuples, partitions.length);
+    TupleBatch[] result = new TupleBatch[numPartitions];
+    int[] counts = new int[numPartitions];
+    for (int p : partitions) {
+      Preconditions.checkElementIndex(p, numPartitions);
+      ++counts[p];
+    }
 
-    BitSet[] resultBitSet = new BitSet[result.length];
-    for (int i = 0; i < partitions.length; i++) {
-      int p = partitions[i];
-      Preconditions.checkElementIndex(p, result.length);
-      if (resultBitSet[p] == null) {
-        resultBitSet[p] = new BitSet(result.length);
+    /* Shortcut: all tuples are in one partition. */
+    for (int p = 0; p < numPartitions; ++p) {
+      if (numTuples > 0 && counts[p] == numTuples) {
+        result[p] = this;
+        return result;
       }
-      resultBitSet[p].set(i);
     }
 
-    for (int i = 0; i < result.length; i++) {
-      if (resultBitSet[i] != null) {
-        result[i] = filter(resultBitSet[i]);
+    Column<?>[][] partitionColumns = new Column<?>[columns.size()][];
+    for (int column = 0; column < columns.size(); ++column) {
+      partitionColumns[column] = ColumnArrays.scatter(columns.get(column), partitions, counts);
+    }
+    for (int p = 0; p < numPartitions; ++p) {
+      if (counts[p] > 0) {
+        ImmutableList.Builder<Column<?>> newColumns = ImmutableList.builder();
+        for (Column<?>[] columnOfPartitions : partitionColumns) {
+          newColumns.add(columnOfPartitions[p]);
+        }
+        result[p] = new TupleBatch(schema, newColumns.build(), counts[p], isEOI);
       }
     }
     return result;
@@ -322,6 +350,14 @@ public class TupleBatch implements ReadableTable, Serializable {
     return IPCUtils.normalDataMessage(columns, numTuples);
   }
 
+  /**
+   * @param compression how to compress the columns.
+   * @return a TransportMessage encoding the TupleBatch.
+   * */
+  public final TransportMessage toTransportMessage(final ColumnCompression compression) {
+    return IPCUtils.normalDataMessage(columns, numTuples, compression);
+  }
+
   /**
    * Create an EOI TupleBatch.
    * 
@@ -3,7 +3,10 @@ package edu.washington.escience.myria.storage;
 import com.google.common.base.Preconditions;
 
 import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.DictionaryStringColumn;
+import edu.washington.escience.myria.column.StringDictionary;
 import edu.washington.escience.myria.column.builder.ColumnBuilder;
+import edu.washington.escience.myria.column.builder.DictionaryStringColumnBuilder;
 
 /**
  * Utility functions for dealing with tuples.
@@ -13,6 +16,80 @@ public final class TupleUtils {
   private TupleUtils() {
   }
 
+  /** Estimated memory used by a string or a date beyond its contents, in bytes. */
+  private static final int OBJECT_OVERHEAD_BYTES = 40;
+
+  /**
+   * Estimate the memory used by the values of the given table. Used by operators that spill to disk when their state
+   * exceeds a memory budget.
+   * 
+   * @param table the table.
+   * @return the estimated memory used by the values of the table, in bytes.
+   */
+  public static long estimateSize(final ReadableTable table) {
+    final int numTuples = table.numTuples();
+    long bytes = 0;
+    for (int column = 0; column < table.numColumns(); ++column) {
+      switch (table.getSchema().getColumnType(column)) {
+        case BOOLEAN_TYPE:
+          bytes += numTuples;
+          break;
+        case FLOAT_TYPE:
+        case INT_TYPE:
+          bytes += numTuples * 4L;
+          break;
+        case DOUBLE_TYPE:
+        case LONG_TYPE:
+          bytes += numTuples * 8L;
+          break;
+        case DATETIME_TYPE:
+          bytes += numTuples * (long) OBJECT_OVERHEAD_BYTES;
+          break;
+        case STRING_TYPE:
+          for (int row = 0; row < numTuples; ++row) {
+            bytes += OBJECT_OVERHEAD_BYTES + 2L * table.getString(column, row).length();
+          }
+          break;
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Estimate the memory used by the specified columns of one row of the given table, consistently with
+   * {@link #estimateSize(ReadableTable)}.
+   *
+   * @param table the table.
+   * @param columns the columns.
+   * @param row the row.
+   * @return the estimated memory used by the values, in bytes.
+   */
+  public static long estimateSize(final ReadableTable table, final int[] columns, final int row) {
+    long bytes = 0;
+    for (int column : columns) {
+      switch (table.getSchema().getColumnType(column)) {
+        case BOOLEAN_TYPE:
+          bytes += 1;
+          break;
+        case FLOAT_TYPE:
+        case INT_TYPE:
+          bytes += 4;
+          break;
+        case DOUBLE_TYPE:
+        case LONG_TYPE:
+          bytes += 8;
+          break;
+        case DATETIME_TYPE:
+          bytes += OBJECT_OVERHEAD_BYTES;
+          break;
+        case STRING_TYPE:
+          bytes += OBJECT_OVERHEAD_BYTES + 2L * table.getString(column, row).length();
+          break;
+      }
+    }
+    return bytes;
+  }
+
   /**
    * Copy the specified from a {@link ReadableColumn} to a {@link AppendableTable}.
    * 
@@ -42,11 +119,31 @@ public final class TupleUtils {
         to.appendLong(from.getLong(fromRow));
         break;
       case STRING_TYPE:
-        to.appendString(from.getString(fromRow));
+        copyString(from, fromRow, to);
         break;
     }
   }
 
+  /**
+   * Copy the specified string from a {@link ReadableColumn} to a {@link ColumnBuilder}, as its code if both are
+   * encoded with the same {@link StringDictionary}.
+   * 
+   * @param from the source of the value
+   * @param fromRow the row of the source value
+   * @param to the destination of the value
+   */
+  private static void copyString(final ReadableColumn from, final int fromRow, final ColumnBuilder<?> to) {
+    if (to instanceof DictionaryStringColumnBuilder && from instanceof DictionaryStringColumn) {
+      final DictionaryStringColumnBuilder builder = (DictionaryStringColumnBuilder) to;
+      final DictionaryStringColumn strings = (DictionaryStringColumn) from;
+      if (strings.getDictionary() == builder.getDictionary()) {
+        builder.appendCode(strings.getCode(fromRow));
+        return;
+      }
+    }
+    to.appendString(from.getString(fromRow));
+  }
+
   /**
    * Copy the specified from a {@link ReadableColumn} to a {@link AppendableTable}.
    * 
@@ -236,6 +333,31 @@ public final class TupleUtils {
     return tupleCompare(table, columnCompareIndexes, rowIdx, table, columnCompareIndexes, rowIdx2, ascending);
   }
 
+  /**
+   * Check if two strings are equal. If both are in {@link TupleBatch}es whose columns are encoded with the same
+   * {@link StringDictionary}, only their codes are compared.
+   * 
+   * @param table1 the table holding the first string
+   * @param column1 the column of the first string
+   * @param row1 the row of the first string
+   * @param table2 the table holding the second string
+   * @param column2 the column of the second string
+   * @param row2 the row of the second string
+   * @return true if the strings are equal.
+   */
+  public static boolean stringEquals(final ReadableTable table1, final int column1, final int row1,
+      final ReadableTable table2, final int column2, final int row2) {
+    if (table1 instanceof TupleBatch && table2 instanceof TupleBatch) {
+      /* TupleBatch.asColumn does not allocate. */
+      final ReadableColumn c1 = table1.asColumn(column1);
+      final ReadableColumn c2 = table2.asColumn(column2);
+      if (DictionaryStringColumn.sharesDictionary(c1, c2)) {
+        return ((DictionaryStringColumn) c1).getCode(row1) == ((DictionaryStringColumn) c2).getCode(row2);
+      }
+    }
+    return table1.getString(column1, row1).equals(table2.getString(column2, row2));
+  }
+
   /**
    * Check if two tuples are equal on given columns.
    * 
@@ -281,7 +403,7 @@ public final class TupleUtils {
           }
           break;
         case STRING_TYPE:
-          if (!table1.getString(compareColumns1[i], row1).equals(table2.getString(compareColumns2[i], row2))) {
+          if (!stringEquals(table1, compareColumns1[i], row1, table2, compareColumns2[i], row2)) {
             return false;
           }
           break;
@@ -337,7 +459,7 @@ public final class TupleUtils {
           }
           break;
         case STRING_TYPE:
-          if (!table1.getString(i, row1).equals(table2.getString(i, row2))) {
+          if (!stringEquals(table1, i, row1, table2, i, row2)) {
             return false;
           }
           break;
@@ -395,7 +517,7 @@ public final class TupleUtils {
           }
           break;
         case STRING_TYPE:
-          if (!table1.getString(compareColumns[i], row1).equals(table2.getString(i, index))) {
+          if (!stringEquals(table1, compareColumns[i], row1, table2, i, index)) {
             return false;
           }
           break;
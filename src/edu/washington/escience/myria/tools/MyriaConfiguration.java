@@ -15,7 +15,9 @@ import org.apache.commons.io.FilenameUtils;
 import org.ini4j.ConfigParser;
 
 import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.MyriaConstants.ColumnCompression;
 import edu.washington.escience.myria.MyriaSystemConfigKeys;
+import edu.washington.escience.myria.accessmethod.ColumnarInfo;
 import edu.washington.escience.myria.accessmethod.ConnectionInfo;
 import edu.washington.escience.myria.coordinator.ConfigFileException;
 
@@ -234,10 +236,17 @@ public final class MyriaConfiguration extends ConfigParser {
    */
   public String getSelfJsonConnInfo() throws ConfigFileException {
     int id = Integer.parseInt(getRequired("runtime", MyriaSystemConfigKeys.WORKER_IDENTIFIER));
-    return ConnectionInfo.toJson(getRequired("deployment", MyriaSystemConfigKeys.WORKER_STORAGE_DATABASE_SYSTEM),
-        getHostname(id), getWorkingDirectory(id), id, getWorkerDatabaseName(id), getOptional("deployment",
-            MyriaSystemConfigKeys.WORKER_STORAGE_DATABASE_PASSWORD), getOptional("deployment",
-            MyriaSystemConfigKeys.WORKER_STORAGE_DATABASE_PORT));
+    String dbms = getRequired("deployment", MyriaSystemConfigKeys.WORKER_STORAGE_DATABASE_SYSTEM);
+    String json =
+        ConnectionInfo.toJson(dbms, getHostname(id), getWorkingDirectory(id), id, getWorkerDatabaseName(id),
+            getOptional("deployment", MyriaSystemConfigKeys.WORKER_STORAGE_DATABASE_PASSWORD), getOptional(
+                "deployment", MyriaSystemConfigKeys.WORKER_STORAGE_DATABASE_PORT));
+    String compression = getOptional("runtime", MyriaSystemConfigKeys.WORKER_STORAGE_COLUMNAR_COMPRESSION);
+    if (dbms.equals(MyriaConstants.STORAGE_SYSTEM_COLUMNAR) && compression != null) {
+      ColumnarInfo columnarInfo = (ColumnarInfo) ConnectionInfo.of(dbms, json);
+      json = ColumnarInfo.of(columnarInfo.getDirectory(), ColumnCompression.valueOf(compression.toUpperCase())).toJson();
+    }
+    return json;
   }
 
   /**
@@ -0,0 +1,130 @@
+package edu.washington.escience.myria.util;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A Bloom filter over the hash codes of keys, as computed by {@link HashUtils}. It answers whether a key might have been
+ * added, with no false negatives and a false positive rate set by the number of bits per key.
+ *
+ * The filter has a power-of-two number of bits, and derives the bit positions of a key from its hash code by double
+ * hashing. The hash code is remixed first, since the keys added to one filter often share the low bits of their hash
+ * codes, e.g., because they were hash partitioned to the same worker.
+ */
+public final class BloomFilter {
+
+  /** The largest number of bits of a filter. */
+  private static final int MAX_BITS = 1 << 30;
+  /** The smallest number of bits of a filter. */
+  private static final int MIN_BITS = Long.SIZE;
+  /** The largest number of bit positions per key. */
+  private static final int MAX_HASHES = 16;
+
+  /** The bits. */
+  private final long[] words;
+  /** The number of bits minus one. */
+  private final int mask;
+  /** The number of bit positions per key. */
+  private final int numHashes;
+
+  /**
+   * @param words the bits of the filter, whose number is a power of two.
+   * @param numHashes the number of bit positions per key.
+   */
+  public BloomFilter(final long[] words, final int numHashes) {
+    Preconditions.checkArgument(words.length > 0 && Integer.bitCount(words.length) == 1,
+        "the number of words must be a power of two");
+    Preconditions.checkArgument(numHashes > 0, "numHashes must be positive");
+    this.words = words;
+    mask = words.length * Long.SIZE - 1;
+    this.numHashes = numHashes;
+  }
+
+  /**
+   * @param expectedKeys the number of keys that will be added.
+   * @param bitsPerKey the number of bits per key; 8 bits give a false positive rate of about 2%.
+   * @return an empty filter sized for the specified number of keys.
+   */
+  public static BloomFilter create(final int expectedKeys, final int bitsPerKey) {
+    Preconditions.checkArgument(expectedKeys >= 0, "expectedKeys must be non-negative");
+    Preconditions.checkArgument(bitsPerKey > 0, "bitsPerKey must be positive");
+    long wanted = Math.max(MIN_BITS, Math.min(MAX_BITS, (long) expectedKeys * bitsPerKey));
+    int numBits = Integer.highestOneBit((int) wanted);
+    if (numBits < wanted) {
+      numBits <<= 1;
+    }
+    double actualBitsPerKey = (double) numBits / Math.max(1, expectedKeys);
+    int numHashes = (int) Math.max(1, Math.min(MAX_HASHES, Math.round(actualBitsPerKey * Math.log(2))));
+    return new BloomFilter(new long[numBits / Long.SIZE], numHashes);
+  }
+
+  /**
+   * @param h a hash code.
+   * @return the hash code with its bits mixed, see MurmurHash3's fmix32.
+   */
+  private static int mix(final int h) {
+    int x = h;
+    x ^= x >>> 16;
+    x *= 0x85ebca6b;
+    x ^= x >>> 13;
+    x *= 0xc2b2ae35;
+    x ^= x >>> 16;
+    return x;
+  }
+
+  /**
+   * @param keyHash the hash code of a key.
+   */
+  public void add(final int keyHash) {
+    int h1 = mix(keyHash);
+    int h2 = mix(h1) | 1;
+    for (int i = 0; i < numHashes; ++i) {
+      int bit = (h1 + i * h2) & mask;
+      words[bit >>> 6] |= 1L << bit;
+    }
+  }
+
+  /**
+   * @param keyHash the hash code of a key.
+   * @return false if the key was certainly not added, true if it might have been.
+   */
+  public boolean mightContain(final int keyHash) {
+    int h1 = mix(keyHash);
+    int h2 = mix(h1) | 1;
+    for (int i = 0; i < numHashes; ++i) {
+      int bit = (h1 + i * h2) & mask;
+      if ((words[bit >>> 6] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the bits of the filter. Do not modify them.
+   */
+  public long[] getWords() {
+    return words;
+  }
+
+  /**
+   * @return the number of bit positions per key.
+   */
+  public int getNumHashes() {
+    return numHashes;
+  }
+
+  /**
+   * @return the size of the bits of the filter, in bytes.
+   */
+  public long getSizeInBytes() {
+    return (long) words.length * Long.SIZE / Byte.SIZE;
+  }
+
+  /**
+   * @param numKeys the number of distinct keys added.
+   * @return the expected false positive rate of the filter.
+   */
+  public double getExpectedFalsePositiveRate(final long numKeys) {
+    return Math.pow(1 - Math.exp(-(double) numHashes * numKeys / (mask + 1.0)), numHashes);
+  }
+}
@@ -3,15 +3,17 @@ package edu.washington.escience.myria.util;
 import java.util.Objects;
 
 import com.google.common.base.Preconditions;
-import com.google.common.hash.HashFunction;
-import com.google.common.hash.Hasher;
-import com.google.common.hash.Hashing;
 
+import edu.washington.escience.myria.column.DictionaryStringColumn;
+import edu.washington.escience.myria.column.StringDictionary;
 import edu.washington.escience.myria.storage.ReadableColumn;
 import edu.washington.escience.myria.storage.ReadableTable;
 
 /**
  * A utility class for hashing tuples and parts of tuples.
+ *
+ * All hash codes are the low 32 bits of the 128-bit MurmurHash3 of the hashed values, and are identical to those
+ * computed with Guava's {@code Hashing.murmur3_128(seed)}. See {@link Murmur3Hasher}.
  */
 public final class HashUtils {
   /** Utility classes have no constructors. */
@@ -21,12 +23,13 @@ public final class HashUtils {
   /** picked from http://planetmath.org/goodhashtableprimes. */
   private static final int[] SEEDS = { 243, 402653189, 24593, 786433, 3145739, 12289, 49157, 6151, 98317, 1572869, };
 
-  /** The hash functions. */
-  private static final HashFunction[] HASH_FUNCTIONS = {
-      Hashing.murmur3_128(SEEDS[0]), Hashing.murmur3_128(SEEDS[1]), Hashing.murmur3_128(SEEDS[2]),
-      Hashing.murmur3_128(SEEDS[3]), Hashing.murmur3_128(SEEDS[4]), Hashing.murmur3_128(SEEDS[5]),
-      Hashing.murmur3_128(SEEDS[6]), Hashing.murmur3_128(SEEDS[7]), Hashing.murmur3_128(SEEDS[8]),
-      Hashing.murmur3_128(SEEDS[9]) };
+  /** A reusable hasher per thread, so that hashing a row does not allocate. */
+  private static final ThreadLocal<Murmur3Hasher> HASHER = new ThreadLocal<Murmur3Hasher>() {
+    @Override
+    protected Murmur3Hasher initialValue() {
+      return new Murmur3Hasher(SEEDS[0]);
+    }
+  };
 
   /**
    * Size of the hash function pool.
@@ -41,11 +44,11 @@ public final class HashUtils {
    * @return the hash code of all the values in the specified row, in column order
    */
   public static int hashRow(final ReadableTable table, final int row) {
-    Hasher hasher = HASH_FUNCTIONS[0].newHasher();
+    Murmur3Hasher hasher = HASHER.get().reset(SEEDS[0]);
     for (int i = 0; i < table.numColumns(); ++i) {
-      addValue(hasher, table, i, row);
+      hasher.putValue(table.asColumn(i), row);
     }
-    return hasher.hash().asInt();
+    return hasher.hash32();
   }
 
   /**
@@ -57,9 +60,7 @@ public final class HashUtils {
    * @return the hash code of the specified value
    */
   public static int hashValue(final ReadableTable table, final int column, final int row) {
-    Hasher hasher = HASH_FUNCTIONS[0].newHasher();
-    addValue(hasher, table, column, row);
-    return hasher.hash().asInt();
+    return hashValue(table, column, row, 0);
   }
 
   /**
@@ -73,9 +74,23 @@ public final class HashUtils {
    */
   public static int hashValue(final ReadableTable table, final int column, final int row, final int seedIndex) {
     Preconditions.checkPositionIndex(seedIndex, NUM_OF_HASHFUNCTIONS);
-    Hasher hasher = HASH_FUNCTIONS[seedIndex].newHasher();
-    addValue(hasher, table, column, row);
-    return hasher.hash().asInt();
+    final ReadableColumn col = table.asColumn(column);
+    if (seedIndex == 0 && col instanceof DictionaryStringColumn) {
+      final DictionaryStringColumn strings = (DictionaryStringColumn) col;
+      return strings.getDictionary().hash(strings.getCode(row));
+    }
+    return HASHER.get().reset(SEEDS[seedIndex]).putValue(col, row).hash32();
+  }
+
+  /**
+   * Compute the hash code of a single string, which is the hash code of the string's row in a one-column table.
+   * {@link StringDictionary} caches it for each of its strings.
+   *
+   * @param value the string to be hashed
+   * @return the hash code of the string
+   */
+  public static int hashString(final String value) {
+    return HASHER.get().reset(SEEDS[0]).putString(value).hash32();
   }
 
   /**
@@ -89,51 +104,119 @@ public final class HashUtils {
   public static int hashSubRow(final ReadableTable table, final int[] hashColumns, final int row) {
     Objects.requireNonNull(table, "table");
     Objects.requireNonNull(hashColumns, "hashColumns");
-    Hasher hasher = HASH_FUNCTIONS[0].newHasher();
+    Murmur3Hasher hasher = HASHER.get().reset(SEEDS[0]);
     for (int column : hashColumns) {
-      addValue(hasher, table, column, row);
+      hasher.putValue(table.asColumn(column), row);
     }
-    return hasher.hash().asInt();
+    return hasher.hash32();
   }
 
   /**
-   * Add the value at the specified row and column to the specified hasher.
+   * Compute the hash codes of all the rows of the given table, in column order. The i-th hash code is equal to
+   * {@link #hashRow(ReadableTable, int) hashRow(table, i)}.
    * 
-   * @param hasher the hasher
-   * @param table the table containing the value
-   * @param column the column containing the value
-   * @param row the row containing the value
-   * @return the hasher
+   * @param table the table containing the values
+   * @return the hash code of every row of the table
    */
-  private static Hasher addValue(final Hasher hasher, final ReadableTable table, final int column, final int row) {
-    return addValue(hasher, table.asColumn(column), row);
+  public static int[] hashRows(final ReadableTable table) {
+    Objects.requireNonNull(table, "table");
+    final int[] hashColumns = new int[table.numColumns()];
+    for (int i = 0; i < hashColumns.length; ++i) {
+      hashColumns[i] = i;
+    }
+    final int[] result = new int[table.numTuples()];
+    hashSubRows(table, hashColumns, 0, result);
+    return result;
   }
 
   /**
-   * Add the value at the specified row and column to the specified hasher.
+   * Compute the hash codes of the specified columns in all the rows of the given table. The i-th hash code is equal
+   * to {@link #hashSubRow(ReadableTable, int[], int) hashSubRow(table, hashColumns, i)}.
    * 
-   * @param hasher the hasher
-   * @param column the column containing the value
-   * @param row the row containing the value
-   * @return the hasher
+   * @param table the table containing the values to be hashed
+   * @param hashColumns the columns to be hashed. Order matters
+   * @return the hash code of the specified columns in every row of the table
    */
-  private static Hasher addValue(final Hasher hasher, final ReadableColumn column, final int row) {
+  public static int[] hashSubRows(final ReadableTable table, final int[] hashColumns) {
+    Objects.requireNonNull(table, "table");
+    final int[] result = new int[table.numTuples()];
+    hashSubRows(table, hashColumns, 0, result);
+    return result;
+  }
+
+  /**
+   * Compute the hash codes of the specified columns in all the rows of the given table with specific hashcode, and
+   * store them in the first {@code table.numTuples()} entries of {@code result}.
+   *
+   * @param table the table containing the values to be hashed
+   * @param hashColumns the columns to be hashed. Order matters
+   * @param seedIndex the index of the chosen hashcode
+   * @param result the array to be filled with the hash codes
+   */
+  public static void hashSubRows(final ReadableTable table, final int[] hashColumns, final int seedIndex,
+      final int[] result) {
+    Objects.requireNonNull(table, "table");
+    Objects.requireNonNull(hashColumns, "hashColumns");
+    Objects.requireNonNull(result, "result");
+    Preconditions.checkPositionIndex(seedIndex, NUM_OF_HASHFUNCTIONS);
+    final int numTuples = table.numTuples();
+    Preconditions.checkArgument(result.length >= numTuples, "result has %s entries but the table has %s rows",
+        result.length, numTuples);
+    final int seed = SEEDS[seedIndex];
+    if (hashColumns.length == 1) {
+      hashColumn(table.asColumn(hashColumns[0]), seed, numTuples, result);
+      return;
+    }
+
+    final ReadableColumn[] columns = new ReadableColumn[hashColumns.length];
+    for (int i = 0; i < columns.length; ++i) {
+      columns[i] = table.asColumn(hashColumns[i]);
+    }
+    final Murmur3Hasher hasher = HASHER.get();
+    for (int row = 0; row < numTuples; ++row) {
+      hasher.reset(seed);
+      for (ReadableColumn column : columns) {
+        hasher.putValue(column, row);
+      }
+      result[row] = hasher.hash32();
+    }
+  }
+
+  /**
+   * Compute the hash codes of the first {@code numTuples} values of a single column, using a tight loop specialized
+   * to the type of the column.
+   *
+   * @param column the column containing the values to be hashed
+   * @param seed the seed of the hash function
+   * @param numTuples the number of values to hash
+   * @param result the array to be filled with the hash codes
+   */
+  private static void hashColumn(final ReadableColumn column, final int seed, final int numTuples, final int[] result) {
+    if (seed == SEEDS[0] && column instanceof DictionaryStringColumn) {
+      /* the dictionary caches the hash code of each string. */
+      final DictionaryStringColumn strings = (DictionaryStringColumn) column;
+      final StringDictionary dictionary = strings.getDictionary();
+      for (int row = 0; row < numTuples; ++row) {
+        result[row] = dictionary.hash(strings.getCode(row));
+      }
+      return;
+    }
     switch (column.getType()) {
-      case BOOLEAN_TYPE:
-        return hasher.putBoolean(column.getBoolean(row));
-      case DATETIME_TYPE:
-        return hasher.putObject(column.getDateTime(row), TypeFunnel.INSTANCE);
-      case DOUBLE_TYPE:
-        return hasher.putDouble(column.getDouble(row));
-      case FLOAT_TYPE:
-        return hasher.putFloat(column.getFloat(row));
       case INT_TYPE:
-        return hasher.putInt(column.getInt(row));
+        for (int row = 0; row < numTuples; ++row) {
+          result[row] = (int) Murmur3Hasher.hashInt(seed, column.getInt(row));
+        }
+        return;
       case LONG_TYPE:
-        return hasher.putLong(column.getLong(row));
-      case STRING_TYPE:
-        return hasher.putObject(column.getString(row), TypeFunnel.INSTANCE);
+        for (int row = 0; row < numTuples; ++row) {
+          result[row] = (int) Murmur3Hasher.hashLong(seed, column.getLong(row));
+        }
+        return;
+      default:
+        final Murmur3Hasher hasher = HASHER.get();
+        for (int row = 0; row < numTuples; ++row) {
+          result[row] = hasher.reset(seed).putValue(column, row).hash32();
+        }
     }
-    throw new UnsupportedOperationException("Hashing a column of type " + column.getType());
   }
 }
@@ -4,7 +4,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.NotSerializableException;
 import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 
@@ -14,8 +16,10 @@ import org.jboss.netty.channel.ChannelFuture;
 import com.google.protobuf.ByteString;
 
 import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.MyriaConstants.ColumnCompression;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.column.builder.ColumnCompressor;
 import edu.washington.escience.myria.column.builder.ColumnFactory;
 import edu.washington.escience.myria.parallel.ExecutionStatistics;
 import edu.washington.escience.myria.parallel.ResourceStats;
@@ -23,6 +27,7 @@ import edu.washington.escience.myria.parallel.SocketInfo;
 import edu.washington.escience.myria.parallel.SubQueryId;
 import edu.washington.escience.myria.parallel.SubQueryPlan;
 import edu.washington.escience.myria.parallel.ipc.StreamOutputChannel;
+import edu.washington.escience.myria.proto.ControlProto;
 import edu.washington.escience.myria.proto.ControlProto.ControlMessage;
 import edu.washington.escience.myria.proto.DataProto.ColumnMessage;
 import edu.washington.escience.myria.proto.DataProto.DataMessage;
@@ -312,11 +317,22 @@ public final class IPCUtils {
    * @return a data TM encoding the data columns.
    * */
   public static TransportMessage normalDataMessage(final List<? extends Column<?>> dataColumns, final int numTuples) {
+    return normalDataMessage(dataColumns, numTuples, ColumnCompression.NONE);
+  }
+
+  /**
+   * @param dataColumns data columns
+   * @param numTuples number of tuples in the columns.
+   * @param compression how to compress the columns.
+   * @return a data TM encoding the data columns.
+   * */
+  public static TransportMessage normalDataMessage(final List<? extends Column<?>> dataColumns, final int numTuples,
+      final ColumnCompression compression) {
     final ColumnMessage[] columnProtos = new ColumnMessage[dataColumns.size()];
 
     int i = 0;
     for (final Column<?> c : dataColumns) {
-      columnProtos[i] = c.serializeToProto();
+      columnProtos[i] = ColumnCompressor.compress(c, compression);
       i++;
     }
     return DATA_TM_BUILDER.get().setDataMessage(
@@ -391,12 +407,73 @@ public final class IPCUtils {
     return QUERY_TM_BUILDER.get().setQueryMessage(queryMessageOf(taskId, QueryMessage.Type.QUERY_KILL)).build();
   }
 
+  /**
+   * @param queryId the finished query.
+   * @return a TM telling a worker to release the state it cached for the query.
+   * */
+  public static TransportMessage releaseQueryTM(final long queryId) {
+    return QUERY_TM_BUILDER.get().setQueryMessage(
+        queryMessageOf(new SubQueryId(queryId, 0), QueryMessage.Type.QUERY_RELEASE)).build();
+  }
+
   /**
    * util classes are not instantiable.
    * */
   private IPCUtils() {
   }
 
+  /**
+   * Heartbeat message sent from a worker to tell the master that it is alive, along with the worker's load.
+   * 
+   * @param load the load of the worker.
+   * @return the transport message.
+   */
+  public static TransportMessage workerHeartbeat(final ControlProto.WorkerLoad load) {
+    ControlMessage.Builder ret =
+        ControlMessage.newBuilder().setType(ControlMessage.Type.WORKER_HEARTBEAT).setWorkerLoad(load);
+    return TransportMessage.newBuilder().setType(TransportMessage.Type.CONTROL).setControlMessage(ret.build()).build();
+  }
+
+  /**
+   * Message that announces the heavy hitters detected by a worker in a skew-aware shuffle to another worker.
+   * 
+   * @param subQueryId the subquery of the skew-aware shuffle.
+   * @param group the id of the skew-aware shuffle.
+   * @param keyHashes the hash codes of the heavy hitters.
+   * @return the transport message.
+   */
+  public static TransportMessage heavyHittersTM(final SubQueryId subQueryId, final int group,
+      final Collection<Integer> keyHashes) {
+    ControlProto.HeavyHitters.Builder heavyHitters =
+        ControlProto.HeavyHitters.newBuilder().setQueryId(subQueryId.getQueryId()).setSubqueryId(
+            subQueryId.getSubqueryId()).setOpId(group).addAllKeyHash(keyHashes);
+    ControlMessage.Builder ret =
+        ControlMessage.newBuilder().setType(ControlMessage.Type.HEAVY_HITTERS).setHeavyHitters(heavyHitters);
+    return TransportMessage.newBuilder().setType(TransportMessage.Type.CONTROL).setControlMessage(ret.build()).build();
+  }
+
+  /**
+   * Message that sends the semi-join filter of the build keys of a join on one worker to a producer of its probe input.
+   * 
+   * @param subQueryId the subquery of the join.
+   * @param join the operator id of the join.
+   * @param filter the filter of the build keys.
+   * @return the transport message.
+   */
+  public static TransportMessage semiJoinFilterTM(final SubQueryId subQueryId, final int join,
+      final BloomFilter filter) {
+    long[] words = filter.getWords();
+    ByteBuffer wordBytes = ByteBuffer.allocate(words.length * Long.SIZE / Byte.SIZE);
+    wordBytes.asLongBuffer().put(words);
+    ControlProto.SemiJoinFilter.Builder semiJoinFilter =
+        ControlProto.SemiJoinFilter.newBuilder().setQueryId(subQueryId.getQueryId()).setSubqueryId(
+            subQueryId.getSubqueryId()).setOpId(join).setNumHashes(filter.getNumHashes()).setWords(
+            ByteString.copyFrom(wordBytes));
+    ControlMessage.Builder ret =
+        ControlMessage.newBuilder().setType(ControlMessage.Type.SEMI_JOIN_FILTER).setSemiJoinFilter(semiJoinFilter);
+    return TransportMessage.newBuilder().setType(TransportMessage.Type.CONTROL).setControlMessage(ret.build()).build();
+  }
+
   /**
    * Resource report message sent to master.
    * 
@@ -0,0 +1,295 @@
+package edu.washington.escience.myria.util;
+
+import edu.washington.escience.myria.storage.ReadableColumn;
+
+/**
+ * A reusable, allocation-free implementation of the x64 128-bit MurmurHash3 streaming hasher.
+ *
+ * The bytes fed to this hasher, and the resulting hash codes, are exactly those produced by Guava's
+ * {@code Hashing.murmur3_128(seed).newHasher()} when it is fed the same values through
+ * {@link com.google.common.hash.Hasher#putInt}, {@link com.google.common.hash.Hasher#putLong}, etc. This means that
+ * {@link #hash32()} equals {@code hash().asInt()} and {@link #hash64()} equals {@code hash().asLong()}, so hash codes
+ * computed here agree with those computed by older workers.
+ *
+ * Unlike Guava's hasher, an instance of this class holds its state in a few primitive fields and is {@link #reset}
+ * between uses, so hashing a row creates no garbage. Instances are not thread-safe.
+ */
+public final class Murmur3Hasher {
+  /** MurmurHash3 mixing constant. */
+  private static final long C1 = 0x87c37b91114253d5L;
+  /** MurmurHash3 mixing constant. */
+  private static final long C2 = 0x4cf5ad432745937fL;
+  /** Number of bytes in one MurmurHash3 block. */
+  private static final int BLOCK_SIZE = 16;
+
+  /** The first half of the hash state. */
+  private long h1;
+  /** The second half of the hash state. */
+  private long h2;
+  /** The low 8 bytes of the pending, not yet mixed, block. */
+  private long lo;
+  /** The high 8 bytes of the pending, not yet mixed, block. */
+  private long hi;
+  /** The number of bytes in the pending block. */
+  private int buffered;
+  /** The total number of bytes hashed so far. */
+  private int length;
+
+  /**
+   * Create a new hasher with the given seed.
+   *
+   * @param seed the seed.
+   */
+  public Murmur3Hasher(final int seed) {
+    reset(seed);
+  }
+
+  /**
+   * Discard all the values hashed so far and start over with the given seed.
+   *
+   * @param seed the seed.
+   * @return this hasher.
+   */
+  public Murmur3Hasher reset(final int seed) {
+    h1 = seed;
+    h2 = seed;
+    lo = 0;
+    hi = 0;
+    buffered = 0;
+    length = 0;
+    return this;
+  }
+
+  /**
+   * Append the low {@code numBytes} bytes of {@code value}, in little-endian order, to the stream of hashed bytes.
+   *
+   * @param value the bytes to append. The bits above the low {@code numBytes} bytes must be zero.
+   * @param numBytes the number of bytes to append, between 1 and 8.
+   */
+  private void put(final long value, final int numBytes) {
+    int pos = buffered;
+    if (pos < 8) {
+      lo |= value << (pos * 8);
+      if (pos + numBytes > 8) {
+        hi |= value >>> ((8 - pos) * 8);
+      }
+    } else {
+      hi |= value << ((pos - 8) * 8);
+    }
+    pos += numBytes;
+    if (pos >= BLOCK_SIZE) {
+      mixBlock(lo, hi);
+      pos -= BLOCK_SIZE;
+      if (pos == 0) {
+        lo = 0;
+      } else {
+        lo = value >>> ((numBytes - pos) * 8);
+      }
+      hi = 0;
+    }
+    buffered = pos;
+    length += numBytes;
+  }
+
+  /**
+   * Mix one complete 16-byte block into the hash state.
+   *
+   * @param k1 the low 8 bytes of the block.
+   * @param k2 the high 8 bytes of the block.
+   */
+  private void mixBlock(final long k1, final long k2) {
+    h1 ^= mixK1(k1);
+    h1 = Long.rotateLeft(h1, 27);
+    h1 += h2;
+    h1 = h1 * 5 + 0x52dce729;
+
+    h2 ^= mixK2(k2);
+    h2 = Long.rotateLeft(h2, 31);
+    h2 += h1;
+    h2 = h2 * 5 + 0x38495ab5;
+  }
+
+  /**
+   * @param value the value to hash.
+   * @return this hasher.
+   */
+  public Murmur3Hasher putBoolean(final boolean value) {
+    put(value ? 1 : 0, 1);
+    return this;
+  }
+
+  /**
+   * @param value the value to hash.
+   * @return this hasher.
+   */
+  public Murmur3Hasher putInt(final int value) {
+    put(value & 0xffffffffL, 4);
+    return this;
+  }
+
+  /**
+   * @param value the value to hash.
+   * @return this hasher.
+   */
+  public Murmur3Hasher putLong(final long value) {
+    put(value, 8);
+    return this;
+  }
+
+  /**
+   * @param value the value to hash.
+   * @return this hasher.
+   */
+  public Murmur3Hasher putFloat(final float value) {
+    return putInt(Float.floatToRawIntBits(value));
+  }
+
+  /**
+   * @param value the value to hash.
+   * @return this hasher.
+   */
+  public Murmur3Hasher putDouble(final double value) {
+    return putLong(Double.doubleToRawLongBits(value));
+  }
+
+  /**
+   * Hash the UTF-16 code units of the given string, equivalent to Guava's {@code putUnencodedChars}.
+   *
+   * @param value the value to hash.
+   * @return this hasher.
+   */
+  public Murmur3Hasher putString(final String value) {
+    final int len = value.length();
+    int i = 0;
+    /* Four chars at a time fill a long. */
+    for (; i + 3 < len; i += 4) {
+      put(value.charAt(i) | (long) value.charAt(i + 1) << 16 | (long) value.charAt(i + 2) << 32
+          | (long) value.charAt(i + 3) << 48, 8);
+    }
+    for (; i < len; ++i) {
+      put(value.charAt(i), 2);
+    }
+    return this;
+  }
+
+  /**
+   * Hash the value at the specified row of the given column, without boxing it.
+   *
+   * Note that, to remain compatible with {@link TypeFunnel}, a {@code DATETIME_TYPE} value adds nothing to the hash.
+   *
+   * @param column the column containing the value.
+   * @param row the row containing the value.
+   * @return this hasher.
+   */
+  public Murmur3Hasher putValue(final ReadableColumn column, final int row) {
+    switch (column.getType()) {
+      case BOOLEAN_TYPE:
+        return putBoolean(column.getBoolean(row));
+      case DATETIME_TYPE:
+        return this;
+      case DOUBLE_TYPE:
+        return putDouble(column.getDouble(row));
+      case FLOAT_TYPE:
+        return putFloat(column.getFloat(row));
+      case INT_TYPE:
+        return putInt(column.getInt(row));
+      case LONG_TYPE:
+        return putLong(column.getLong(row));
+      case STRING_TYPE:
+        return putString(column.getString(row));
+    }
+    throw new UnsupportedOperationException("Hashing a column of type " + column.getType());
+  }
+
+  /**
+   * @return the low 64 bits of the 128-bit hash of the values added since the last reset.
+   */
+  public long hash64() {
+    long a = h1;
+    long b = h2;
+    if (buffered > 0) {
+      a ^= mixK1(lo);
+      b ^= mixK2(hi);
+    }
+    return finish(a, b, length);
+  }
+
+  /**
+   * @return the low 32 bits of the 128-bit hash of the values added since the last reset.
+   */
+  public int hash32() {
+    return (int) hash64();
+  }
+
+  /**
+   * Compute the 64-bit hash of a single int value, i.e., {@code reset(seed).putInt(value).hash64()}, without touching
+   * any hasher state.
+   *
+   * @param seed the seed.
+   * @param value the value to hash.
+   * @return the low 64 bits of the 128-bit hash of the value.
+   */
+  public static long hashInt(final int seed, final int value) {
+    return finish(seed ^ mixK1(value & 0xffffffffL), seed, 4);
+  }
+
+  /**
+   * Compute the 64-bit hash of a single long value, i.e., {@code reset(seed).putLong(value).hash64()}, without
+   * touching any hasher state.
+   *
+   * @param seed the seed.
+   * @param value the value to hash.
+   * @return the low 64 bits of the 128-bit hash of the value.
+   */
+  public static long hashLong(final int seed, final long value) {
+    return finish(seed ^ mixK1(value), seed, 8);
+  }
+
+  /**
+   * The MurmurHash3 finalization step.
+   *
+   * @param a the first half of the hash state, with the tail mixed in.
+   * @param b the second half of the hash state, with the tail mixed in.
+   * @param len the total number of bytes hashed.
+   * @return the low 64 bits of the final 128-bit hash.
+   */
+  private static long finish(final long a, final long b, final int len) {
+    long x = a ^ len;
+    long y = b ^ len;
+    x += y;
+    y += x;
+    x = fmix64(x);
+    y = fmix64(y);
+    return x + y;
+  }
+
+  /**
+   * @param k1 the low 8 bytes of a block.
+   * @return the mixed value.
+   */
+  private static long mixK1(final long k1) {
+    return Long.rotateLeft(k1 * C1, 31) * C2;
+  }
+
+  /**
+   * @param k2 the high 8 bytes of a block.
+   * @return the mixed value.
+   */
+  private static long mixK2(final long k2) {
+    return Long.rotateLeft(k2 * C2, 33) * C1;
+  }
+
+  /**
+   * @param k the value to mix.
+   * @return the mixed value.
+   */
+  private static long fmix64(final long k) {
+    long x = k;
+    x ^= x >>> 33;
+    x *= 0xff51afd7ed558ccdL;
+    x ^= x >>> 33;
+    x *= 0xc4ceb9fe1a85ec53L;
+    x ^= x >>> 33;
+    return x;
+  }
+}
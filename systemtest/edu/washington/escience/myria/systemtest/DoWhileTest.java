@@ -27,6 +27,7 @@ import edu.washington.escience.myria.operator.DbInsert;
 import edu.washington.escience.myria.operator.DbInsertTemp;
 import edu.washington.escience.myria.operator.DbQueryScan;
 import edu.washington.escience.myria.operator.EOSSource;
+import edu.washington.escience.myria.operator.RightHashJoin;
 import edu.washington.escience.myria.operator.RootOperator;
 import edu.washington.escience.myria.operator.SinkRoot;
 import edu.washington.escience.myria.operator.TupleSource;
@@ -39,6 +40,7 @@ import edu.washington.escience.myria.parallel.QueryPlan;
 import edu.washington.escience.myria.parallel.Sequence;
 import edu.washington.escience.myria.parallel.SubQuery;
 import edu.washington.escience.myria.parallel.SubQueryPlan;
+import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.storage.TupleBatchBuffer;
 import edu.washington.escience.myria.util.JsonAPIUtils;
 
@@ -122,6 +124,80 @@ public class DoWhileTest extends SystemTestBase {
     assertEquals("val,exp\r\n5,32\r\n", finalX);
   }
 
+  /**
+   * The loop of {@link #testDoWhile()}, but {@code val} is incremented by joining with a static relation:
+   * 
+   * <pre>
+   * x = [0 as val, 1 as exp];
+   * next = [0 as val, 1 as next], ..., [9 as val, 10 as next];
+   * do
+   *     x = [from x, next where x.val = next.val emit next.next as val, 2*x.exp as exp];
+   *     next = empty;
+   * while [from x emit max(val) < 5];
+   * store(x, OUTPUT);
+   * </pre>
+   * 
+   * The join caches the hash table built on {@code next} in the first iteration, so the later iterations must still
+   * find the successors that were removed from the relation.
+   */
+  @Test
+  public void testDoWhileCachedJoin() throws Exception {
+    RelationKey x = RelationKey.of("test", "dowhile", "cachedjoinx");
+    RelationKey next = RelationKey.of("test", "dowhile", "cachedjoinnext");
+    String condition = "condition";
+
+    /* x = [0 as val, 1 as exp]; next = [i as val, i+1 as next]; */
+    Schema schema = Schema.ofFields("val", Type.INT_TYPE, "exp", Type.INT_TYPE);
+    TupleBatchBuffer tbb = new TupleBatchBuffer(schema);
+    tbb.putInt(0, 0);
+    tbb.putInt(1, 1);
+    SubQuery preX = wrapForWorker1(new DbInsert(new TupleSource(tbb), x, true));
+    Schema nextSchema = Schema.ofFields("val", Type.INT_TYPE, "next", Type.INT_TYPE);
+    TupleBatchBuffer nextTuples = new TupleBatchBuffer(nextSchema);
+    for (int i = 0; i < 10; ++i) {
+      nextTuples.putInt(0, i);
+      nextTuples.putInt(1, i + 1);
+    }
+    SubQuery preNext = wrapForWorker1(new DbInsert(new TupleSource(nextTuples), next, true));
+
+    /* Body: x = [from x, next where x.val = next.val emit next.next as val, 2*x.exp as exp]. */
+    RightHashJoin join =
+        new RightHashJoin(ImmutableList.of("exp", "next"), new DbQueryScan(x, schema), new DbQueryScan(next,
+            nextSchema), new int[] { 0 }, new int[] { 0 }, new int[] { 1 }, new int[] { 1 });
+    join.setOpId(1);
+    join.setCacheRightHashTable(true);
+    List<Expression> expressions =
+        ImmutableList.of(new Expression("val", new VariableExpression(1)), new Expression("exp", new TimesExpression(
+            new VariableExpression(0), new ConstantExpression(2))));
+    SubQuery body = wrapForWorker1(new DbInsert(new Apply(join, expressions), x, true));
+    /* next = empty; */
+    SubQuery clearNext =
+        wrapForWorker1(new DbInsert(new TupleSource(ImmutableList.<TupleBatch> of(), nextSchema), next, true));
+
+    /* Condition: condition = [from x emit max(val) < 5]. */
+    Aggregate maxX = new Aggregate(new DbQueryScan(x, schema), new SingleColumnAggregatorFactory(0, AggregationOp.MAX));
+    Expression filterExpression =
+        new Expression("f", new LessThanExpression(new VariableExpression(0), new ConstantExpression(5)));
+    SubQuery updateCondition =
+        wrapForWorker1(new DbInsertTemp(new Apply(maxX, ImmutableList.of(filterExpression)), RelationKey.ofTemp(1,
+            condition), null, true, null));
+
+    DoWhile doWhile = new DoWhile(ImmutableList.of(body, clearNext, updateCondition), condition);
+    SubQuery post = wrapForWorker1(new DbInsert(new DbQueryScan(x, schema), x, true));
+
+    QueryPlan actualQuery = new Sequence(ImmutableList.of(preX, preNext, doWhile, post));
+    QueryEncoding queryEncoding = new QueryEncoding();
+    queryEncoding.rawQuery = "testDoWhileCachedJoin";
+    queryEncoding.logicalRa = "testDoWhileCachedJoin";
+    Query query = server.getQueryManager().submitQuery(queryEncoding, actualQuery).get();
+
+    assertEquals(query.getStatus(), Status.SUCCESS);
+    String finalX =
+        JsonAPIUtils.download("localhost", masterDaemonPort, x.getUserName(), x.getProgramName(), x.getRelationName(),
+            "csv");
+    assertEquals("val,exp\r\n5,32\r\n", finalX);
+  }
+
   private static SubQueryPlan emptyMasterPlan() {
     return new SubQueryPlan(new SinkRoot(new EOSSource()));
   }
@@ -0,0 +1,112 @@
+package edu.washington.escience.myria;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+
+public class BinaryColumnarTupleWriterTest {
+
+  private static final Schema SCHEMA = Schema.ofFields("i", Type.INT_TYPE, "l", Type.LONG_TYPE, "f", Type.FLOAT_TYPE,
+      "d", Type.DOUBLE_TYPE, "b", Type.BOOLEAN_TYPE, "s", Type.STRING_TYPE, "t", Type.DATETIME_TYPE);
+
+  private static final DateTime EPOCH = new DateTime(0, DateTimeZone.UTC);
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    TupleBatchBuffer tbb = new TupleBatchBuffer(SCHEMA);
+    int numTuples = TupleBatch.BATCH_SIZE + 7;
+    for (int i = 0; i < numTuples; ++i) {
+      tbb.putInt(0, i);
+      tbb.putLong(1, -i * 1000000007L);
+      tbb.putFloat(2, i / 4.0f);
+      tbb.putDouble(3, i / 3.0);
+      tbb.putBoolean(4, i % 2 == 0);
+      tbb.putString(5, "é" + i);
+      tbb.putDateTime(6, EPOCH.plusSeconds(i));
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryColumnarTupleWriter writer = new BinaryColumnarTupleWriter(SCHEMA, out);
+    writer.writeColumnHeaders(SCHEMA.getColumnNames());
+    for (TupleBatch tb : tbb.getAll()) {
+      writer.writeTuples(tb);
+    }
+    writer.done();
+
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+    assertEquals(BinaryColumnarTupleWriter.MAGIC, in.readInt());
+    assertEquals(BinaryColumnarTupleWriter.VERSION, in.readInt());
+    assertEquals(SCHEMA.numColumns(), in.readInt());
+    for (int column = 0; column < SCHEMA.numColumns(); ++column) {
+      assertEquals(SCHEMA.getColumnType(column).name(), in.readUTF());
+      assertEquals(SCHEMA.getColumnName(column), in.readUTF());
+    }
+
+    int row = 0;
+    for (int blockSize = in.readInt(); blockSize != BinaryColumnarTupleWriter.END_OF_DATA; blockSize = in.readInt()) {
+      assertEquals(blockSize * 4, in.readInt());
+      for (int i = 0; i < blockSize; ++i) {
+        assertEquals(row + i, in.readInt());
+      }
+      assertEquals(blockSize * 8, in.readInt());
+      for (int i = 0; i < blockSize; ++i) {
+        assertEquals(-(row + i) * 1000000007L, in.readLong());
+      }
+      assertEquals(blockSize * 4, in.readInt());
+      for (int i = 0; i < blockSize; ++i) {
+        assertEquals((row + i) / 4.0f, in.readFloat(), 0.0f);
+      }
+      assertEquals(blockSize * 8, in.readInt());
+      for (int i = 0; i < blockSize; ++i) {
+        assertEquals((row + i) / 3.0, in.readDouble(), 0.0);
+      }
+      assertEquals(blockSize, in.readInt());
+      for (int i = 0; i < blockSize; ++i) {
+        assertEquals((row + i) % 2 == 0, in.readByte() == 1);
+      }
+      in.readInt();
+      for (int i = 0; i < blockSize; ++i) {
+        byte[] value = new byte[in.readInt()];
+        in.readFully(value);
+        assertEquals("é" + (row + i), new String(value, StandardCharsets.UTF_8));
+      }
+      assertEquals(blockSize * 8, in.readInt());
+      for (int i = 0; i < blockSize; ++i) {
+        assertEquals(EPOCH.plusSeconds(row + i).getMillis(), in.readLong());
+      }
+      row += blockSize;
+    }
+    assertEquals(numTuples, row);
+    assertEquals(-1, in.read());
+  }
+
+  @Test
+  public void testError() throws IOException {
+    Schema schema = Schema.ofFields("x", Type.INT_TYPE);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryColumnarTupleWriter writer = new BinaryColumnarTupleWriter(schema, out);
+    writer.writeColumnHeaders(ImmutableList.of("x"));
+    writer.error();
+
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+    in.readInt();
+    in.readInt();
+    assertEquals(1, in.readInt());
+    in.readUTF();
+    in.readUTF();
+    assertEquals(BinaryColumnarTupleWriter.ERROR, in.readInt());
+  }
+}
@@ -1,18 +1,29 @@
 package edu.washington.escience.myria;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.junit.Test;
 
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
 import edu.washington.escience.myria.storage.TupleBuffer;
 
 public class PostgresBinaryTupleWriterTest {
@@ -75,4 +86,188 @@ public class PostgresBinaryTupleWriterTest {
       assertEquals(expected[i], actual[i]);
     }
   }
+
+  /** The PostgreSQL epoch, 2000-01-01 00:00:00, in milliseconds since the Java epoch. */
+  private static final long PG_EPOCH_MILLIS = 946684800000L;
+
+  /** A schema with every type. */
+  private static final Schema ALL_TYPES = new Schema(ImmutableList.of(Type.BOOLEAN_TYPE, Type.INT_TYPE,
+      Type.LONG_TYPE, Type.FLOAT_TYPE, Type.DOUBLE_TYPE, Type.STRING_TYPE, Type.DATETIME_TYPE));
+
+  /**
+   * Decodes a PostgreSQL COPY BINARY stream, as the server would.
+   *
+   * @param bytes the stream.
+   * @param schema the schema of the tuples in the stream.
+   * @return the tuples.
+   */
+  private static TupleBuffer decode(final byte[] bytes, final Schema schema) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+    byte[] signature = new byte[11];
+    in.readFully(signature);
+    assertArrayEquals("PGCOPY\n\377\r\n\0".getBytes(StandardCharsets.ISO_8859_1), signature);
+    assertEquals(0, in.readInt());
+    assertEquals(0, in.readInt());
+
+    TupleBuffer tuples = new TupleBuffer(schema);
+    DateTimeZone zone = DateTimeZone.getDefault();
+    for (short numColumns = in.readShort(); numColumns != -1; numColumns = in.readShort()) {
+      assertEquals(schema.numColumns(), numColumns);
+      for (int column = 0; column < numColumns; ++column) {
+        int length = in.readInt();
+        switch (schema.getColumnType(column)) {
+          case BOOLEAN_TYPE:
+            assertEquals(1, length);
+            tuples.putBoolean(column, in.readByte() != 0);
+            break;
+          case DOUBLE_TYPE:
+            assertEquals(8, length);
+            tuples.putDouble(column, in.readDouble());
+            break;
+          case FLOAT_TYPE:
+            assertEquals(4, length);
+            tuples.putFloat(column, in.readFloat());
+            break;
+          case INT_TYPE:
+            assertEquals(4, length);
+            tuples.putInt(column, in.readInt());
+            break;
+          case LONG_TYPE:
+            assertEquals(8, length);
+            tuples.putLong(column, in.readLong());
+            break;
+          case DATETIME_TYPE:
+            assertEquals(8, length);
+            long localMillis = TimeUnit.MICROSECONDS.toMillis(in.readLong()) + PG_EPOCH_MILLIS;
+            tuples.putDateTime(column, new DateTime(zone.convertLocalToUTC(localMillis, false), zone));
+            break;
+          case STRING_TYPE:
+            byte[] utf8Bytes = new byte[length];
+            in.readFully(utf8Bytes);
+            tuples.putString(column, new String(utf8Bytes, StandardCharsets.UTF_8));
+            break;
+        }
+      }
+    }
+    assertEquals(-1, in.read());
+    return tuples;
+  }
+
+  /**
+   * @param tuples the tuples to write, one call to writeTuples per batch.
+   * @return the COPY BINARY stream.
+   */
+  private static byte[] write(final TupleBatchBuffer tuples) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    PostgresBinaryTupleWriter writer = new PostgresBinaryTupleWriter(out);
+    for (TupleBatch tb : tuples.getAll()) {
+      writer.writeTuples(tb);
+    }
+    writer.done();
+    return out.toByteArray();
+  }
+
+  /**
+   * Asserts that the tuples written and decoded are equal to the original ones.
+   *
+   * @param expected the original tuples.
+   * @param actual the decoded tuples.
+   */
+  private static void assertSameTuples(final TupleBatchBuffer expected, final TupleBuffer actual) {
+    assertEquals(expected.numTuples(), actual.numTuples());
+    int row = 0;
+    for (TupleBatch tb : expected.getAll()) {
+      for (int i = 0; i < tb.numTuples(); ++i, ++row) {
+        for (int column = 0; column < tb.numColumns(); ++column) {
+          switch (tb.getSchema().getColumnType(column)) {
+            case DOUBLE_TYPE:
+              assertEquals(Double.doubleToLongBits(tb.getDouble(column, i)), Double.doubleToLongBits(actual.getDouble(
+                  column, row)));
+              break;
+            case FLOAT_TYPE:
+              assertEquals(Float.floatToIntBits(tb.getFloat(column, i)), Float.floatToIntBits(actual.getFloat(column,
+                  row)));
+              break;
+            case DATETIME_TYPE:
+              assertEquals(tb.getDateTime(column, i).getMillis(), actual.getDateTime(column, row).getMillis());
+              break;
+            case BOOLEAN_TYPE:
+              assertEquals(tb.getBoolean(column, i), actual.getBoolean(column, row));
+              break;
+            case INT_TYPE:
+              assertEquals(tb.getInt(column, i), actual.getInt(column, row));
+              break;
+            case LONG_TYPE:
+              assertEquals(tb.getLong(column, i), actual.getLong(column, row));
+              break;
+            case STRING_TYPE:
+              assertEquals(tb.getString(column, i), actual.getString(column, row));
+              break;
+            default:
+              throw new IllegalArgumentException("Type " + tb.getSchema().getColumnType(column) + " is not supported.");
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testRoundTripAllTypes() throws IOException {
+    TupleBatchBuffer tuples = new TupleBatchBuffer(ALL_TYPES);
+    float[] floats =
+        { 0.0f, -0.0f, 3.14f, -1.5e-30f, Float.MIN_VALUE, Float.MAX_VALUE, Float.NaN, Float.POSITIVE_INFINITY,
+            Float.NEGATIVE_INFINITY };
+    double[] doubles =
+        { 0.0, -0.0, Math.PI, -2.5e-300, Double.MIN_VALUE, Double.MAX_VALUE, Double.NaN, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY };
+    String[] strings = { "", "one", "caf\u00e9", "\u65e5\u672c\u8a9e", "\ud83d\ude00 smile", "tab\tand\nnewline" };
+    DateTime[] times =
+        { new DateTime(2000, 1, 1, 0, 0, 0), new DateTime(1990, 7, 18, 2, 3, 10, 123),
+            new DateTime(1969, 12, 31, 23, 59, 59, 999), new DateTime(1492, 10, 12, 12, 0, 0),
+            new DateTime(2013, 9, 30, 3, 1, 10, 1, DateTimeZone.forOffsetHours(-7)),
+            new DateTime(2038, 1, 19, 3, 14, 8, DateTimeZone.UTC) };
+    int numTuples = 3 * TupleBatch.BATCH_SIZE + 7;
+    for (int i = 0; i < numTuples; ++i) {
+      tuples.putBoolean(0, i % 3 == 0);
+      tuples.putInt(1, i % 2 == 0 ? Integer.MIN_VALUE + i : Integer.MAX_VALUE - i);
+      tuples.putLong(2, i % 2 == 0 ? Long.MIN_VALUE + i : Long.MAX_VALUE - i);
+      tuples.putFloat(3, floats[i % floats.length] * (i % 4 == 1 ? 1 : i));
+      tuples.putDouble(4, doubles[i % doubles.length] * (i % 4 == 1 ? 1 : i));
+      tuples.putString(5, strings[i % strings.length]);
+      tuples.putDateTime(6, times[i % times.length]);
+    }
+
+    assertSameTuples(tuples, decode(write(tuples), ALL_TYPES));
+  }
+
+  @Test
+  public void testStringsLargerThanBuffer() throws IOException {
+    Schema schema = Schema.ofFields(Type.STRING_TYPE, "s", Type.INT_TYPE, "i");
+    TupleBatchBuffer tuples = new TupleBatchBuffer(schema);
+    tuples.putString(0, Strings.repeat("a\u00e9\u65e5\ud83d\ude00", 50000));
+    tuples.putInt(1, 1);
+    tuples.putString(0, Strings.repeat("x", 64 * 1024 - 3));
+    tuples.putInt(1, 2);
+    tuples.putString(0, "after");
+    tuples.putInt(1, 3);
+
+    assertSameTuples(tuples, decode(write(tuples), schema));
+  }
+
+  @Test
+  public void testStringEncodingMatchesJava() throws IOException {
+    Schema schema = Schema.ofFields(Type.STRING_TYPE, "s");
+    String[] strings = { "\u007f\u0080\u07ff\u0800\uffff", "unpaired \ud83d high", "unpaired \ude00 low", "end \ud83d" };
+    for (String string : strings) {
+      TupleBatchBuffer tuples = new TupleBatchBuffer(schema);
+      tuples.putString(0, string);
+      byte[] actual = write(tuples);
+
+      byte[] utf8Bytes = string.getBytes(StandardCharsets.UTF_8);
+      /* 19 bytes of header, 2 bytes for the number of columns and 4 for the length of the value. */
+      assertEquals(utf8Bytes.length, ByteBuffer.wrap(actual, 21, 4).getInt());
+      assertArrayEquals(utf8Bytes, Arrays.copyOfRange(actual, 25, 25 + utf8Bytes.length));
+      assertEquals(25 + utf8Bytes.length + 2, actual.length);
+    }
+  }
 }
@@ -0,0 +1,257 @@
+package edu.washington.escience.myria.accessmethod;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.MyriaConstants.ColumnCompression;
+import edu.washington.escience.myria.RelationKey;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.accessmethod.AccessMethod.IndexRef;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+
+public class ColumnarAccessMethodTest {
+
+  @Rule
+  public TemporaryFolder storageFolder = new TemporaryFolder();
+
+  private static final Schema SCHEMA = Schema.ofFields("b", Type.BOOLEAN_TYPE, "i", Type.INT_TYPE, "l", Type.LONG_TYPE,
+      "f", Type.FLOAT_TYPE, "d", Type.DOUBLE_TYPE, "s", Type.STRING_TYPE, "t", Type.DATETIME_TYPE);
+
+  private static final RelationKey RELATION = RelationKey.of("public", "adhoc", "columnar");
+
+  private static final int NUM_TUPLES = 25000;
+
+  private AccessMethod open(final ColumnCompression compression) throws DbException {
+    return AccessMethod.of(MyriaConstants.STORAGE_SYSTEM_COLUMNAR,
+        ColumnarInfo.of(storageFolder.getRoot().getAbsolutePath(), compression), false);
+  }
+
+  /** Tuples whose values are all determined by their row, with runs of repeated values so that compression pays. */
+  private static List<TupleBatch> tuples(final int from, final int to) {
+    TupleBatchBuffer tbb = new TupleBatchBuffer(SCHEMA);
+    for (int row = from; row < to; ++row) {
+      tbb.putBoolean(0, row % 3 == 0);
+      tbb.putInt(1, row);
+      tbb.putLong(2, row / 100);
+      tbb.putFloat(3, row / 4.0f);
+      tbb.putDouble(4, -row / 8.0);
+      tbb.putString(5, "é" + row % 7);
+      tbb.putDateTime(6, new DateTime(1000L * row));
+    }
+    return tbb.getAll();
+  }
+
+  private static void checkRow(final TupleBatch tb, final int row, final int expected) {
+    assertEquals(expected % 3 == 0, tb.getBoolean(0, row));
+    assertEquals(expected, tb.getInt(1, row));
+    assertEquals(expected / 100, tb.getLong(2, row));
+    assertEquals(expected / 4.0f, tb.getFloat(3, row), 0);
+    assertEquals(-expected / 8.0, tb.getDouble(4, row), 0);
+    assertEquals("é" + expected % 7, tb.getString(5, row));
+    assertEquals(new DateTime(1000L * expected).getMillis(), tb.getDateTime(6, row).getMillis());
+  }
+
+  private static List<Integer> ints(final Iterator<TupleBatch> tuples, final int column) {
+    List<Integer> ret = new ArrayList<>();
+    while (tuples.hasNext()) {
+      TupleBatch tb = tuples.next();
+      for (int row = 0; row < tb.numTuples(); ++row) {
+        ret.add(tb.getInt(column, row));
+      }
+    }
+    return ret;
+  }
+
+  private void checkRoundTrip(final ColumnCompression compression) throws DbException {
+    AccessMethod accessMethod = open(compression);
+    accessMethod.createTableIfNotExists(RELATION, SCHEMA);
+    accessMethod.tupleBatchInsert(RELATION, tuples(0, NUM_TUPLES / 2));
+    accessMethod.tupleBatchInsert(RELATION, tuples(NUM_TUPLES / 2, NUM_TUPLES));
+
+    Iterator<TupleBatch> it =
+        accessMethod.tupleBatchIteratorFromQuery("SELECT * FROM " + RELATION.toString(MyriaConstants.STORAGE_SYSTEM_COLUMNAR),
+            SCHEMA);
+    int expected = 0;
+    while (it.hasNext()) {
+      TupleBatch tb = it.next();
+      for (int row = 0; row < tb.numTuples(); ++row) {
+        checkRow(tb, row, expected++);
+      }
+    }
+    assertEquals(NUM_TUPLES, expected);
+    accessMethod.close();
+  }
+
+  @Test
+  public void testRoundTripAllTypes() throws DbException {
+    checkRoundTrip(ColumnCompression.NONE);
+  }
+
+  @Test
+  public void testRoundTripLightweightCompression() throws DbException {
+    checkRoundTrip(ColumnCompression.LIGHTWEIGHT);
+  }
+
+  @Test
+  public void testRoundTripDeflateCompression() throws DbException {
+    checkRoundTrip(ColumnCompression.DEFLATE);
+  }
+
+  @Test
+  public void testProjectionAndPredicates() throws DbException {
+    AccessMethod accessMethod = open(ColumnCompression.LIGHTWEIGHT);
+    accessMethod.tupleBatchInsert(RELATION, tuples(0, NUM_TUPLES));
+    String relation = RELATION.toString(MyriaConstants.STORAGE_SYSTEM_COLUMNAR);
+    Schema projected = Schema.ofFields("s", Type.STRING_TYPE, "i", Type.INT_TYPE);
+
+    List<Integer> ids =
+        ints(accessMethod.tupleBatchIteratorFromQuery("SELECT s, i FROM " + relation
+            + " WHERE i >= 100 AND i < 20000 AND l <> 150 AND s = 'é3' AND b = FALSE AND d <= -12.5", projected), 1);
+    List<Integer> expected = new ArrayList<>();
+    for (int row = 100; row < 20000; ++row) {
+      if (row / 100 != 150 && row % 7 == 3 && row % 3 != 0 && -row / 8.0 <= -12.5) {
+        expected.add(row);
+      }
+    }
+    assertEquals(expected, ids);
+
+    List<Integer> dates =
+        ints(accessMethod.tupleBatchIteratorFromQuery("SELECT s, i FROM " + relation + " WHERE t > '"
+            + new DateTime(1000L * (NUM_TUPLES - 3)) + "' AND f > 1.5", projected), 1);
+    assertEquals(ImmutableList.of(NUM_TUPLES - 2, NUM_TUPLES - 1), dates);
+  }
+
+  @Test
+  public void testZoneMapsSkipChunks() throws DbException {
+    AccessMethod accessMethod = open(ColumnCompression.NONE);
+    for (int from = 0; from < NUM_TUPLES; from += 1000) {
+      accessMethod.tupleBatchInsert(RELATION, tuples(from, from + 1000));
+    }
+    ColumnarRelation relation =
+        ColumnarRelation.open(storageFolder.getRoot().toPath().resolve(
+            RELATION.toString(MyriaConstants.STORAGE_SYSTEM_COLUMNAR)));
+    ColumnarQuery query =
+        ColumnarQuery.parse("SELECT * FROM " + RELATION.toString(MyriaConstants.STORAGE_SYSTEM_COLUMNAR)
+            + " WHERE i >= 3500 AND i < 4200");
+    query.bind(SCHEMA);
+    int matching = 0;
+    for (ColumnarRelation.Chunk chunk : relation.readChunks()) {
+      if (chunk.mayMatch(query.getPredicates())) {
+        ++matching;
+      }
+    }
+    assertEquals(2, matching);
+  }
+
+  @Test
+  public void testCount() throws DbException {
+    AccessMethod accessMethod = open(ColumnCompression.NONE);
+    accessMethod.tupleBatchInsert(RELATION, tuples(0, NUM_TUPLES));
+    String relation = RELATION.toString(MyriaConstants.STORAGE_SYSTEM_COLUMNAR);
+    Schema countSchema = Schema.ofFields("count", Type.LONG_TYPE);
+
+    TupleBatch count = accessMethod.tupleBatchIteratorFromQuery("SELECT COUNT(*) FROM " + relation, countSchema).next();
+    assertEquals(NUM_TUPLES, count.getLong(0, 0));
+    count =
+        accessMethod.tupleBatchIteratorFromQuery("SELECT COUNT(*) FROM " + relation + " WHERE i < 10", countSchema)
+            .next();
+    assertEquals(10, count.getLong(0, 0));
+  }
+
+  @Test
+  public void testOrderBy() throws DbException {
+    AccessMethod accessMethod = open(ColumnCompression.NONE);
+    accessMethod.tupleBatchInsert(RELATION, tuples(0, 1000));
+    Schema projected = Schema.ofFields("l", Type.LONG_TYPE, "i", Type.INT_TYPE);
+
+    List<Integer> ids =
+        ints(accessMethod.tupleBatchIteratorFromQuery("SELECT l, i FROM "
+            + RELATION.toString(MyriaConstants.STORAGE_SYSTEM_COLUMNAR) + " ORDER BY l ASC, i DESC", projected), 1);
+    List<Integer> expected = new ArrayList<>();
+    for (int l = 0; l < 10; ++l) {
+      for (int i = 99; i >= 0; --i) {
+        expected.add(100 * l + i);
+      }
+    }
+    assertEquals(expected, ids);
+  }
+
+  @Test
+  public void testDropAndRename() throws DbException {
+    AccessMethod accessMethod = open(ColumnCompression.NONE);
+    RelationKey temp = RelationKey.of("public", "adhoc", "columnar_temp");
+    accessMethod.tupleBatchInsert(RELATION, tuples(0, 10));
+    accessMethod.tupleBatchInsert(temp, tuples(10, 15));
+
+    accessMethod.dropAndRenameTables(RELATION, temp);
+    List<Integer> ids =
+        ints(accessMethod.tupleBatchIteratorFromQuery("SELECT * FROM "
+            + RELATION.toString(MyriaConstants.STORAGE_SYSTEM_COLUMNAR), SCHEMA), 1);
+    assertEquals(ImmutableList.of(10, 11, 12, 13, 14), ids);
+    assertFalse(ColumnarRelation.exists(storageFolder.getRoot().toPath().resolve(
+        temp.toString(MyriaConstants.STORAGE_SYSTEM_COLUMNAR))));
+
+    accessMethod.dropTableIfExistsCascade(RELATION);
+    accessMethod.dropTableIfExists(RELATION);
+    assertEquals(0, storageFolder.getRoot().list().length);
+  }
+
+  @Test
+  public void testIndexesClusterTheRelation() throws DbException {
+    AccessMethod accessMethod = open(ColumnCompression.NONE);
+    accessMethod.tupleBatchInsert(RELATION, tuples(0, 1000));
+    List<IndexRef> index = ImmutableList.of(IndexRef.of(0, false), IndexRef.of(1, false));
+    accessMethod.createIndexes(RELATION, SCHEMA, ImmutableList.of(index));
+    accessMethod.createIndexIfNotExists(RELATION, SCHEMA, index);
+    accessMethod.createIndexIfNotExists(RELATION, SCHEMA, ImmutableList.of(IndexRef.of(2)));
+
+    ColumnarRelation relation =
+        ColumnarRelation.open(storageFolder.getRoot().toPath().resolve(
+            RELATION.toString(MyriaConstants.STORAGE_SYSTEM_COLUMNAR)));
+    assertEquals(ImmutableList.of(index, ImmutableList.of(IndexRef.of(2))), relation.readIndexes());
+
+    Iterator<TupleBatch> it =
+        accessMethod.tupleBatchIteratorFromQuery("SELECT * FROM "
+            + RELATION.toString(MyriaConstants.STORAGE_SYSTEM_COLUMNAR), SCHEMA);
+    int previous = Integer.MAX_VALUE;
+    boolean previousFlag = true;
+    int numTuples = 0;
+    while (it.hasNext()) {
+      TupleBatch tb = it.next();
+      for (int row = 0; row < tb.numTuples(); ++row) {
+        checkRow(tb, row, tb.getInt(1, row));
+        boolean flag = tb.getBoolean(0, row);
+        assertTrue(previousFlag || !flag);
+        assertTrue(flag != previousFlag || tb.getInt(1, row) < previous);
+        previousFlag = flag;
+        previous = tb.getInt(1, row);
+        ++numTuples;
+      }
+    }
+    assertEquals(1000, numTuples);
+  }
+
+  @Test(expected = DbException.class)
+  public void testUnsupportedQuery() throws DbException {
+    AccessMethod accessMethod = open(ColumnCompression.NONE);
+    accessMethod.tupleBatchInsert(RELATION, tuples(0, 10));
+    accessMethod.tupleBatchIteratorFromQuery("SELECT * FROM "
+        + RELATION.toString(MyriaConstants.STORAGE_SYSTEM_COLUMNAR) + " WHERE i + 1 > 3", SCHEMA);
+  }
+}
@@ -0,0 +1,213 @@
+package edu.washington.escience.myria.column;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.BitSet;
+
+import org.junit.Test;
+
+import com.almworks.sqlite4java.SQLiteConnection;
+import com.almworks.sqlite4java.SQLiteStatement;
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.MyriaConstants.ColumnCompression;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.accessmethod.SQLiteTupleBatchIterator;
+import edu.washington.escience.myria.column.builder.ColumnCompressor;
+import edu.washington.escience.myria.column.builder.ColumnFactory;
+import edu.washington.escience.myria.column.builder.DictionaryStringColumnBuilder;
+import edu.washington.escience.myria.column.builder.StringColumnBuilder;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleUtils;
+import edu.washington.escience.myria.util.HashUtils;
+
+public class DictionaryStringColumnTest {
+
+  private static final String[] VALUES = { "<http://a>", "<http://b>", "<http://a>", "", "<http://c>", "<http://b>" };
+
+  private static StringColumn encoded(final StringDictionary dictionary) {
+    DictionaryStringColumnBuilder builder = new DictionaryStringColumnBuilder(dictionary);
+    for (String value : VALUES) {
+      builder.appendString(value);
+    }
+    return builder.build();
+  }
+
+  private static StringColumn plain() {
+    StringColumnBuilder builder = new StringColumnBuilder();
+    for (String value : VALUES) {
+      builder.appendString(value);
+    }
+    return builder.build();
+  }
+
+  private static TupleBatch batch(final Column<?> column) {
+    return new TupleBatch(Schema.ofFields("s", Type.STRING_TYPE), ImmutableList.<Column<?>> of(column));
+  }
+
+  @Test
+  public void testBuild() {
+    StringDictionary dictionary = new StringDictionary(100);
+    StringColumn column = encoded(dictionary);
+    assertTrue(column instanceof DictionaryStringColumn);
+    assertEquals(4, dictionary.size());
+    DictionaryStringColumn codes = (DictionaryStringColumn) column;
+    assertEquals(codes.getCode(0), codes.getCode(2));
+    assertFalse(codes.getCode(0) == codes.getCode(1));
+    for (int i = 0; i < VALUES.length; ++i) {
+      assertEquals(VALUES[i], column.getString(i));
+    }
+  }
+
+  @Test
+  public void testFullDictionary() {
+    StringDictionary dictionary = new StringDictionary(2);
+    StringColumn column = encoded(dictionary);
+    assertTrue(column instanceof StringArrayColumn);
+    assertEquals(-1, dictionary.encode("<http://d>"));
+    for (int i = 0; i < VALUES.length; ++i) {
+      assertEquals(VALUES[i], column.getString(i));
+    }
+  }
+
+  @Test
+  public void testFilterKeepsCodes() {
+    StringColumn column = encoded(new StringDictionary(100));
+    BitSet keep = new BitSet();
+    keep.set(1);
+    keep.set(4);
+    Column<String> filtered = column.filter(keep);
+    assertTrue(filtered instanceof DictionaryStringColumn);
+    assertEquals(2, filtered.size());
+    assertEquals(VALUES[1], filtered.getString(0));
+    assertEquals(VALUES[4], filtered.getString(1));
+  }
+
+  @Test
+  public void testHashMatchesPlainStrings() {
+    TupleBatch encoded = batch(encoded(new StringDictionary(100)));
+    TupleBatch plain = batch(plain());
+    assertArrayEquals(HashUtils.hashSubRows(plain, new int[] { 0 }), HashUtils.hashSubRows(encoded, new int[] { 0 }));
+    for (int row = 0; row < VALUES.length; ++row) {
+      assertEquals(HashUtils.hashValue(plain, 0, row), HashUtils.hashValue(encoded, 0, row));
+      assertEquals(HashUtils.hashValue(plain, 0, row, 3), HashUtils.hashValue(encoded, 0, row, 3));
+    }
+  }
+
+  @Test
+  public void testEquals() {
+    StringDictionary dictionary = new StringDictionary(100);
+    TupleBatch encoded1 = batch(encoded(dictionary));
+    TupleBatch encoded2 = batch(encoded(dictionary));
+    TupleBatch other = batch(encoded(new StringDictionary(100)));
+    TupleBatch plain = batch(plain());
+    for (int row1 = 0; row1 < VALUES.length; ++row1) {
+      for (int row2 = 0; row2 < VALUES.length; ++row2) {
+        boolean expected = VALUES[row1].equals(VALUES[row2]);
+        assertEquals(expected, TupleUtils.stringEquals(encoded1, 0, row1, encoded2, 0, row2));
+        assertEquals(expected, TupleUtils.stringEquals(encoded1, 0, row1, other, 0, row2));
+        assertEquals(expected, TupleUtils.stringEquals(encoded1, 0, row1, plain, 0, row2));
+      }
+    }
+  }
+
+  @Test
+  public void testCompressedShuffleDecodesToSharedDictionary() {
+    StringColumnBuilder builder = new StringColumnBuilder();
+    for (int i = 0; i < 100; ++i) {
+      builder.appendString(VALUES[i % VALUES.length]);
+    }
+    StringColumn column = builder.build();
+    Column<?> decoded =
+        ColumnFactory.columnFromColumnMessage(ColumnCompressor.compress(column, ColumnCompression.LIGHTWEIGHT), column
+            .size());
+    assertTrue(decoded instanceof DictionaryStringColumn);
+    assertTrue(((DictionaryStringColumn) decoded).getDictionary() == StringDictionary.shared());
+    for (int i = 0; i < column.size(); ++i) {
+      assertEquals(column.getString(i), decoded.getString(i));
+    }
+  }
+
+  @Test
+  public void testSQLiteScanEncodesToSharedDictionary() throws Exception {
+    SQLiteConnection connection = new SQLiteConnection();
+    connection.open(true);
+    connection.exec("CREATE TABLE t (s TEXT)");
+    SQLiteStatement insert = connection.prepare("INSERT INTO t VALUES (?)");
+    for (String value : VALUES) {
+      insert.bind(1, value).step();
+      insert.reset();
+    }
+    insert.dispose();
+
+    SQLiteTupleBatchIterator scan =
+        new SQLiteTupleBatchIterator(connection.prepare("SELECT s FROM t"), connection, Schema.ofFields("s",
+            Type.STRING_TYPE));
+    TupleBatch tb = scan.next();
+    assertFalse(scan.hasNext());
+    assertTrue(tb.getDataColumns().get(0) instanceof DictionaryStringColumn);
+    DictionaryStringColumn column = (DictionaryStringColumn) tb.getDataColumns().get(0);
+    assertTrue(column.getDictionary() == StringDictionary.shared());
+    assertEquals(column.getCode(0), column.getCode(2));
+    for (int i = 0; i < VALUES.length; ++i) {
+      assertEquals(VALUES[i], column.getString(i));
+    }
+  }
+
+  @Test
+  public void testEncodeAllAddsAllOrNothing() {
+    StringDictionary dictionary = new StringDictionary(3);
+    assertEquals(0, dictionary.encode("a"));
+    assertNull(dictionary.encodeAll(ImmutableList.of("a", "b", "c", "d")));
+    assertEquals(1, dictionary.size());
+    assertEquals(-1, dictionary.lookup("b"));
+    assertArrayEquals(new int[] { 1, 0, 2 }, dictionary.encodeAll(ImmutableList.of("b", "a", "c")));
+    assertEquals(3, dictionary.size());
+  }
+
+  @Test
+  public void testReleasedSharedDictionaryIsReplaced() {
+    StringColumnBuilder builder = new StringColumnBuilder();
+    for (int i = 0; i < 100; ++i) {
+      builder.appendString(VALUES[i % VALUES.length]);
+    }
+    StringColumn column = builder.build();
+    DictionaryStringColumn before =
+        (DictionaryStringColumn) ColumnFactory.columnFromColumnMessage(ColumnCompressor.compress(column,
+            ColumnCompression.LIGHTWEIGHT), column.size());
+    StringDictionary.releaseShared();
+    assertTrue(StringDictionary.shared() != before.getDictionary());
+    assertEquals(0, StringDictionary.shared().size());
+
+    DictionaryStringColumn after =
+        (DictionaryStringColumn) ColumnFactory.columnFromColumnMessage(ColumnCompressor.compress(column,
+            ColumnCompression.LIGHTWEIGHT), column.size());
+    assertTrue(StringDictionary.shared() == after.getDictionary());
+    /* Columns of the replaced dictionary still decode and compare by string. */
+    assertTrue(TupleUtils.stringEquals(batch(before), 0, 1, batch(after), 0, 1));
+    assertFalse(TupleUtils.stringEquals(batch(before), 0, 0, batch(after), 0, 1));
+  }
+
+  @Test
+  public void testJavaSerialization() throws Exception {
+    StringColumn column = encoded(new StringDictionary(100));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream oos = new ObjectOutputStream(bytes);
+    oos.writeObject(column);
+    oos.close();
+    Object copy = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+    assertTrue(copy instanceof StringArrayColumn);
+    for (int i = 0; i < VALUES.length; ++i) {
+      assertEquals(VALUES[i], ((StringColumn) copy).getString(i));
+    }
+  }
+}
@@ -0,0 +1,171 @@
+package edu.washington.escience.myria.column.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import edu.washington.escience.myria.MyriaConstants.ColumnCompression;
+import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.proto.DataProto.ColumnMessage;
+import edu.washington.escience.myria.proto.DataProto.EncodedColumnMessage.Encoding;
+import edu.washington.escience.myria.storage.TupleBatch;
+
+public class ColumnCompressorTest {
+
+  private static final int N = TupleBatch.BATCH_SIZE;
+
+  /** Compress and decompress a column in every mode and check that the values survive. */
+  private static void assertRoundTrip(final Column<?> column) {
+    for (ColumnCompression compression : ColumnCompression.values()) {
+      ColumnMessage message = ColumnCompressor.compress(column, compression);
+      Column<?> copy = ColumnFactory.columnFromColumnMessage(message, column.size());
+      assertEquals(column.getType(), copy.getType());
+      assertEquals(column.size(), copy.size());
+      for (int i = 0; i < column.size(); ++i) {
+        assertEquals(compression + " row " + i, column.getObject(i), copy.getObject(i));
+      }
+    }
+  }
+
+  private static Encoding encoding(final Column<?> column, final ColumnCompression compression) {
+    ColumnMessage message = ColumnCompressor.compress(column, compression);
+    if (!message.hasEncodedColumn()) {
+      return null;
+    }
+    return message.getEncodedColumn().getEncoding();
+  }
+
+  @Test
+  public void testIntFrameOfReference() {
+    Random r = new Random(1);
+    IntColumnBuilder builder = new IntColumnBuilder();
+    for (int i = 0; i < N; ++i) {
+      builder.appendInt(1000000 + r.nextInt(100));
+    }
+    Column<?> column = builder.build();
+    assertEquals(Encoding.FRAME_OF_REFERENCE, encoding(column, ColumnCompression.LIGHTWEIGHT));
+    assertTrue(ColumnCompressor.compress(column, ColumnCompression.LIGHTWEIGHT).getSerializedSize() < ColumnCompressor
+        .rawSize(column) / 3);
+    assertRoundTrip(column);
+  }
+
+  @Test
+  public void testLongDelta() {
+    LongColumnBuilder builder = new LongColumnBuilder();
+    for (int i = 0; i < N; ++i) {
+      builder.appendLong(Long.MIN_VALUE + 3L * i);
+    }
+    Column<?> column = builder.build();
+    assertEquals(Encoding.DELTA, encoding(column, ColumnCompression.LIGHTWEIGHT));
+    assertTrue(ColumnCompressor.compress(column, ColumnCompression.LIGHTWEIGHT).getSerializedSize() < ColumnCompressor
+        .rawSize(column) / 10);
+    assertRoundTrip(column);
+  }
+
+  @Test
+  public void testLongFullRange() {
+    Random r = new Random(2);
+    LongColumnBuilder builder = new LongColumnBuilder();
+    builder.appendLong(Long.MIN_VALUE).appendLong(Long.MAX_VALUE);
+    for (int i = 2; i < N; ++i) {
+      builder.appendLong(r.nextLong());
+    }
+    Column<?> column = builder.build();
+    assertEquals(null, encoding(column, ColumnCompression.LIGHTWEIGHT));
+    assertRoundTrip(column);
+  }
+
+  @Test
+  public void testDateTime() {
+    DateTimeColumnBuilder builder = new DateTimeColumnBuilder();
+    DateTime start = new DateTime(2014, 1, 1, 0, 0);
+    for (int i = 0; i < N; ++i) {
+      builder.appendDateTime(start.plusSeconds(i));
+    }
+    Column<?> column = builder.build();
+    assertEquals(Encoding.DELTA, encoding(column, ColumnCompression.LIGHTWEIGHT));
+    assertRoundTrip(column);
+  }
+
+  @Test
+  public void testStringDictionary() {
+    StringColumnBuilder builder = new StringColumnBuilder();
+    String[] values = { "red", "green", "blue", "" };
+    for (int i = 0; i < N; ++i) {
+      builder.appendString(values[i % values.length]);
+    }
+    Column<?> column = builder.build();
+    assertEquals(Encoding.DICTIONARY, encoding(column, ColumnCompression.LIGHTWEIGHT));
+    assertTrue(ColumnCompressor.compress(column, ColumnCompression.LIGHTWEIGHT).getSerializedSize() < ColumnCompressor
+        .rawSize(column) / 10);
+    assertRoundTrip(column);
+  }
+
+  @Test
+  public void testStringDistinct() {
+    StringColumnBuilder builder = new StringColumnBuilder();
+    for (int i = 0; i < N; ++i) {
+      builder.appendString("value" + i);
+    }
+    Column<?> column = builder.build();
+    assertEquals(null, encoding(column, ColumnCompression.LIGHTWEIGHT));
+    assertRoundTrip(column);
+  }
+
+  @Test
+  public void testBooleanRunLength() {
+    BooleanColumnBuilder builder = new BooleanColumnBuilder();
+    for (int i = 0; i < N; ++i) {
+      builder.appendBoolean(i / 1000 % 2 == 1);
+    }
+    Column<?> column = builder.build();
+    assertEquals(Encoding.RUN_LENGTH, encoding(column, ColumnCompression.LIGHTWEIGHT));
+    assertRoundTrip(column);
+  }
+
+  @Test
+  public void testDoubleDeflate() {
+    DoubleColumnBuilder builder = new DoubleColumnBuilder();
+    for (int i = 0; i < N; ++i) {
+      builder.appendDouble(i % 3);
+    }
+    Column<?> column = builder.build();
+    assertEquals(null, encoding(column, ColumnCompression.LIGHTWEIGHT));
+    ColumnMessage deflated = ColumnCompressor.compress(column, ColumnCompression.DEFLATE);
+    assertEquals(Encoding.PLAIN, deflated.getEncodedColumn().getEncoding());
+    assertTrue(deflated.getEncodedColumn().getDeflated());
+    assertRoundTrip(column);
+  }
+
+  @Test
+  public void testSmallAndEmpty() {
+    assertRoundTrip(new IntColumnBuilder().build());
+    assertRoundTrip(new IntColumnBuilder().appendInt(7).build());
+    assertRoundTrip(new BooleanColumnBuilder().appendBoolean(true).build());
+    assertRoundTrip(new StringColumnBuilder().appendString("a").appendString("a").appendString("a").build());
+    assertFalse(ColumnCompressor.compress(new LongColumnBuilder().build(), ColumnCompression.DEFLATE)
+        .hasEncodedColumn());
+  }
+
+  @Test
+  public void testPackWidths() {
+    Random r = new Random(3);
+    for (int width = 0; width <= Long.SIZE; ++width) {
+      long[] values = new long[37];
+      for (int i = 0; i < values.length; ++i) {
+        values[i] = width == Long.SIZE ? r.nextLong() : r.nextLong() & ((1L << width) - 1);
+      }
+      byte[] packed = ColumnCompressor.pack(values, values.length, width);
+      assertEquals((values.length * width + 7) / 8, packed.length);
+      long[] unpacked = ColumnCompressor.unpack(packed, values.length, width);
+      for (int i = 0; i < values.length; ++i) {
+        assertEquals(values[i], unpacked[i]);
+      }
+    }
+  }
+}
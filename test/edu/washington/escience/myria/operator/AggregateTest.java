@@ -5,15 +5,19 @@ import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import org.joda.time.DateTime;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Doubles;
@@ -22,22 +26,30 @@ import com.google.common.primitives.Ints;
 import com.google.common.primitives.Longs;
 
 import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.MyriaConstants;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.column.Column;
 import edu.washington.escience.myria.column.ConstantValueColumn;
+import edu.washington.escience.myria.column.StringDictionary;
 import edu.washington.escience.myria.column.builder.BooleanColumnBuilder;
 import edu.washington.escience.myria.column.builder.ColumnBuilder;
 import edu.washington.escience.myria.column.builder.DateTimeColumnBuilder;
+import edu.washington.escience.myria.column.builder.DictionaryStringColumnBuilder;
 import edu.washington.escience.myria.column.builder.DoubleColumnBuilder;
 import edu.washington.escience.myria.column.builder.FloatColumnBuilder;
 import edu.washington.escience.myria.column.builder.IntColumnBuilder;
 import edu.washington.escience.myria.column.builder.LongColumnBuilder;
 import edu.washington.escience.myria.column.builder.StringColumnBuilder;
+import edu.washington.escience.myria.operator.agg.AggUtils;
 import edu.washington.escience.myria.operator.agg.Aggregate;
+import edu.washington.escience.myria.operator.agg.Aggregator;
 import edu.washington.escience.myria.operator.agg.AggregatorFactory;
+import edu.washington.escience.myria.operator.agg.CountAllAggregatorFactory;
+import edu.washington.escience.myria.operator.agg.GroupedAggregator;
 import edu.washington.escience.myria.operator.agg.MultiGroupByAggregate;
 import edu.washington.escience.myria.operator.agg.PrimitiveAggregator.AggregationOp;
+import edu.washington.escience.myria.operator.agg.PrimitiveGroupedAggregator;
 import edu.washington.escience.myria.operator.agg.SingleColumnAggregatorFactory;
 import edu.washington.escience.myria.operator.agg.SingleGroupByAggregate;
 import edu.washington.escience.myria.storage.TupleBatch;
@@ -50,6 +62,9 @@ import edu.washington.escience.myria.util.Tuple;
 
 public class AggregateTest {
 
+  @Rule
+  public TemporaryFolder spillFolder = new TemporaryFolder();
+
   /**
    * Ensure that the given Schema matches the expected numeric aggregate types for the given Type.
    * 
@@ -916,4 +931,228 @@ public class AggregateTest {
     LongColumnBuilder builder = new LongColumnBuilder().appendLong(Long.MIN_VALUE + 1).appendLong(-3);
     doAggOpsToCol(builder, new AggregationOp[] { AggregationOp.SUM }, true);
   }
+
+  /** Groups (i % 1000, i % 7) over a value column, so that there are 7000 groups of varying sizes. */
+  private TupleBatchBuffer manyGroups(final int numTuples) {
+    final Schema schema =
+        new Schema(ImmutableList.of(Type.LONG_TYPE, Type.LONG_TYPE, Type.LONG_TYPE), ImmutableList.of("a", "b", "c"));
+    final TupleBatchBuffer tbb = new TupleBatchBuffer(schema);
+    for (int i = 0; i < numTuples; ++i) {
+      tbb.putLong(0, i % 1000);
+      tbb.putLong(1, i % 7);
+      tbb.putLong(2, i);
+    }
+    return tbb;
+  }
+
+  private TupleBatchBuffer drain(final Operator op, final Map<String, Object> envVars) throws DbException {
+    op.open(envVars);
+    TupleBatchBuffer result = new TupleBatchBuffer(op.getSchema());
+    while (!op.eos()) {
+      TupleBatch tb = op.nextReady();
+      if (tb != null) {
+        result.appendTB(tb);
+      }
+    }
+    op.close();
+    return result;
+  }
+
+  @Test
+  public void testMultiGroupSpillMatchesInMemory() throws DbException {
+    final int numTuples = 50000;
+    final AggregatorFactory[] aggs =
+        new AggregatorFactory[] {
+            new SingleColumnAggregatorFactory(2, AggregationOp.COUNT, AggregationOp.SUM, AggregationOp.MIN,
+                AggregationOp.MAX, AggregationOp.AVG), new CountAllAggregatorFactory() };
+    TupleBatchBuffer expected =
+        drain(new MultiGroupByAggregate(new TupleSource(manyGroups(numTuples)), new int[] { 0, 1 }, aggs), null);
+    assertEquals(7000, expected.numTuples());
+
+    MultiGroupByAggregate spilled =
+        new MultiGroupByAggregate(new TupleSource(manyGroups(numTuples)), new int[] { 0, 1 }, aggs);
+    spilled.setMemoryBudget(16 * 1024);
+    Map<String, Object> envVars = TestEnvVars.get();
+    envVars.put(MyriaConstants.EXEC_ENV_VAR_SPILL_DIRECTORY, spillFolder.getRoot().getAbsolutePath());
+    TupleBatchBuffer actual = drain(spilled, envVars);
+    assertTrue(spilled.getSpilledBytes() > 0);
+    assertTrue(spilled.getSpillPartitions() > 16);
+    assertEquals(0, spillFolder.getRoot().list().length);
+
+    TestUtils.assertTupleBagEqual(TestUtils.tupleBatchToTupleBag(expected), TestUtils.tupleBatchToTupleBag(actual));
+  }
+
+  @Test
+  public void testMultiGroupPreAggregation() throws DbException {
+    final int numTuples = 50000;
+    MultiGroupByAggregate partial =
+        new MultiGroupByAggregate(new TupleSource(manyGroups(numTuples)), new int[] { 0, 1 },
+            new SingleColumnAggregatorFactory(2, AggregationOp.COUNT, AggregationOp.SUM));
+    partial.setPreAggregation(500);
+    MultiGroupByAggregate combined =
+        new MultiGroupByAggregate(partial, new int[] { 0, 1 }, new SingleColumnAggregatorFactory(2, AggregationOp.SUM),
+            new SingleColumnAggregatorFactory(3, AggregationOp.SUM));
+    TupleBatchBuffer actual = drain(combined, null);
+    assertEquals(7000, actual.numTuples());
+
+    TupleBatchBuffer expected =
+        drain(new MultiGroupByAggregate(new TupleSource(manyGroups(numTuples)), new int[] { 0, 1 },
+            new SingleColumnAggregatorFactory(2, AggregationOp.COUNT, AggregationOp.SUM)), null);
+    TestUtils.assertTupleBagEqual(TestUtils.tupleBatchToTupleBag(expected), TestUtils.tupleBatchToTupleBag(actual));
+
+    /* The partial aggregate never holds more than 500 groups, so every group is output more than once. */
+    MultiGroupByAggregate partialOnly =
+        new MultiGroupByAggregate(new TupleSource(manyGroups(numTuples)), new int[] { 0, 1 },
+            new SingleColumnAggregatorFactory(2, AggregationOp.COUNT));
+    partialOnly.setPreAggregation(500);
+    TupleBatchBuffer partials = drain(partialOnly, null);
+    assertTrue(partials.numTuples() > 7000);
+  }
+
+  @Test
+  public void testMultiGroupPreAggregationRejectsAvg() {
+    MultiGroupByAggregate partial =
+        new MultiGroupByAggregate(new TupleSource(manyGroups(10)), new int[] { 0, 1 }, new CountAllAggregatorFactory(),
+            new SingleColumnAggregatorFactory(2, AggregationOp.SUM, AggregationOp.AVG));
+    try {
+      partial.setPreAggregation(500);
+      fail("AVG cannot be pre-aggregated");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("pre-aggregation"));
+    }
+    /* Final aggregates are still allowed. */
+    partial.setPreAggregation(0);
+  }
+
+  @Test
+  public void testMultiGroupNegativeFloatMinMax() throws DbException {
+    final Schema schema =
+        new Schema(ImmutableList.of(Type.INT_TYPE, Type.INT_TYPE, Type.FLOAT_TYPE, Type.DOUBLE_TYPE), ImmutableList.of(
+            "a", "b", "f", "d"));
+    final TupleBatchBuffer tbb = new TupleBatchBuffer(schema);
+    for (int i = 0; i < 3; ++i) {
+      tbb.putInt(0, 1);
+      tbb.putInt(1, 2);
+      tbb.putFloat(2, -1.5f - i);
+      tbb.putDouble(3, 2.5 + i);
+    }
+    TupleBatchBuffer result =
+        drain(new MultiGroupByAggregate(new TupleSource(tbb), new int[] { 0, 1 }, new SingleColumnAggregatorFactory(2,
+            AggregationOp.MIN, AggregationOp.MAX), new SingleColumnAggregatorFactory(3, AggregationOp.MIN,
+            AggregationOp.MAX)), null);
+    assertEquals(1, result.numTuples());
+    TupleBatch tb = result.popAny();
+    assertEquals(-3.5f, tb.getFloat(2, 0), 0.0f);
+    assertEquals(-1.5f, tb.getFloat(3, 0), 0.0f);
+    assertEquals(2.5, tb.getDouble(4, 0), 0.0);
+    assertEquals(4.5, tb.getDouble(5, 0), 0.0);
+  }
+
+  @Test
+  public void testGroupedAggregatorSelectionMatchesRowAtATime() throws DbException {
+    final AggregationOp[] allOps =
+        new AggregationOp[] {
+            AggregationOp.COUNT, AggregationOp.MIN, AggregationOp.MAX, AggregationOp.SUM, AggregationOp.AVG,
+            AggregationOp.STDEV };
+    final int numGroups = 5;
+    final Random random = new Random(7);
+    for (Type type : new Type[] { Type.INT_TYPE, Type.LONG_TYPE, Type.FLOAT_TYPE, Type.DOUBLE_TYPE }) {
+      TupleBatchBuffer input = new TupleBatchBuffer(Schema.ofFields("value", type));
+      for (int i = 0; i < 1000; ++i) {
+        int value = random.nextInt(2000) - 1000;
+        switch (type) {
+          case INT_TYPE:
+            input.putInt(0, value);
+            break;
+          case LONG_TYPE:
+            input.putLong(0, value * 100003L);
+            break;
+          case FLOAT_TYPE:
+            input.putFloat(0, value / 7.0f);
+            break;
+          default:
+            input.putDouble(0, value / 7.0);
+            break;
+        }
+      }
+      TupleBatch tb = input.popAny();
+      AggregatorFactory[] factories =
+          new AggregatorFactory[] { new SingleColumnAggregatorFactory(0, allOps), new CountAllAggregatorFactory() };
+
+      /* Every other row, in numGroups groups. */
+      int[] selection = new int[tb.numTuples() / 2];
+      int[] groups = new int[selection.length];
+      for (int i = 0; i < selection.length; ++i) {
+        selection[i] = 2 * i;
+        groups[i] = (i * 31) % numGroups;
+      }
+      GroupedAggregator[] grouped = AggUtils.allocateGroupedAggs(factories, tb.getSchema());
+      assertTrue(grouped[0] instanceof PrimitiveGroupedAggregator);
+      for (GroupedAggregator agg : grouped) {
+        agg.addGroups(numGroups);
+        agg.addRows(tb, selection, selection.length, groups);
+      }
+
+      Aggregator[] rowAggs = AggUtils.allocateAggs(factories, tb.getSchema());
+      Object[][] states = new Object[numGroups][];
+      for (int g = 0; g < numGroups; ++g) {
+        states[g] = AggUtils.allocateAggStates(rowAggs);
+      }
+      for (int i = 0; i < selection.length; ++i) {
+        for (int a = 0; a < rowAggs.length; ++a) {
+          rowAggs[a].addRow(tb, selection[i], states[groups[i]][a]);
+        }
+      }
+
+      Schema resultSchema = Schema.merge(rowAggs[0].getResultSchema(), rowAggs[1].getResultSchema());
+      TupleBatchBuffer expected = new TupleBatchBuffer(resultSchema);
+      TupleBatchBuffer actual = new TupleBatchBuffer(resultSchema);
+      for (int g = 0; g < numGroups; ++g) {
+        rowAggs[0].getResult(expected, 0, states[g][0]);
+        rowAggs[1].getResult(expected, allOps.length, states[g][1]);
+        grouped[0].getResult(actual, 0, g);
+        grouped[1].getResult(actual, allOps.length, g);
+      }
+      TestUtils.assertTupleBagEqual(TestUtils.tupleBatchToTupleBag(expected), TestUtils.tupleBatchToTupleBag(actual));
+    }
+  }
+
+  private static TupleBatch keyValueBatch(final ColumnBuilder<String> keys, final String... values) {
+    LongColumnBuilder ones = new LongColumnBuilder();
+    for (String value : values) {
+      keys.appendString(value);
+      ones.appendLong(1);
+    }
+    return new TupleBatch(Schema.ofFields("key", Type.STRING_TYPE, "value", Type.LONG_TYPE), ImmutableList
+        .<Column<?>> of(keys.build(), ones.build()));
+  }
+
+  @Test
+  public void testSingleGroupDictionaryStrings() throws DbException {
+    StringDictionary dictionary = new StringDictionary(100);
+    TupleSource source =
+        new TupleSource(ImmutableList.of(keyValueBatch(new DictionaryStringColumnBuilder(dictionary), "a", "b", "a"),
+            keyValueBatch(new StringColumnBuilder(), "b", "c", "a"), keyValueBatch(new DictionaryStringColumnBuilder(
+                dictionary), "c", "d", "b")));
+    SingleGroupByAggregate agg =
+        new SingleGroupByAggregate(source, 0, new SingleColumnAggregatorFactory(1, AggregationOp.SUM));
+    agg.open(TestEnvVars.get());
+    Map<String, Long> sums = new HashMap<>();
+    while (!agg.eos()) {
+      TupleBatch tb = agg.nextReady();
+      if (tb == null) {
+        continue;
+      }
+      for (int row = 0; row < tb.numTuples(); ++row) {
+        assertNull(sums.put(tb.getString(0, row), tb.getLong(1, row)));
+      }
+    }
+    agg.close();
+    Map<String, Long> expected = new HashMap<>();
+    expected.put("a", 3L);
+    expected.put("b", 3L);
+    expected.put("c", 2L);
+    expected.put("d", 1L);
+    assertEquals(expected, sums);
+  }
 }
@@ -0,0 +1,230 @@
+package edu.washington.escience.myria.operator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.RelationKey;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.accessmethod.AccessMethod;
+import edu.washington.escience.myria.accessmethod.ColumnarInfo;
+import edu.washington.escience.myria.accessmethod.ConnectionInfo;
+import edu.washington.escience.myria.accessmethod.SQLiteInfo;
+import edu.washington.escience.myria.expression.AndExpression;
+import edu.washington.escience.myria.expression.ConstantExpression;
+import edu.washington.escience.myria.expression.EqualsExpression;
+import edu.washington.escience.myria.expression.Expression;
+import edu.washington.escience.myria.expression.GreaterThanExpression;
+import edu.washington.escience.myria.expression.GreaterThanOrEqualsExpression;
+import edu.washington.escience.myria.expression.LessThanExpression;
+import edu.washington.escience.myria.expression.NegateExpression;
+import edu.washington.escience.myria.expression.NotEqualsExpression;
+import edu.washington.escience.myria.expression.NotExpression;
+import edu.washington.escience.myria.expression.OrExpression;
+import edu.washington.escience.myria.expression.PlusExpression;
+import edu.washington.escience.myria.expression.RandomExpression;
+import edu.washington.escience.myria.expression.SqlExpressionTranslator;
+import edu.washington.escience.myria.expression.TimesExpression;
+import edu.washington.escience.myria.expression.VariableExpression;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+import edu.washington.escience.myria.util.TestEnvVars;
+import edu.washington.escience.myria.util.TestUtils;
+
+public class DbQueryScanPushDownTest {
+
+  @Rule
+  public TemporaryFolder storageFolder = new TemporaryFolder();
+
+  private static final Schema SCHEMA = Schema.ofFields("id", Type.INT_TYPE, "big", Type.LONG_TYPE, "ratio",
+      Type.DOUBLE_TYPE, "name", Type.STRING_TYPE, "flag", Type.BOOLEAN_TYPE, "weight", Type.FLOAT_TYPE);
+
+  private static final RelationKey RELATION = RelationKey.of("public", "adhoc", "pushdown");
+
+  private static final int NUM_TUPLES = 2000;
+
+  private static TupleBatchBuffer tuples() {
+    TupleBatchBuffer tbb = new TupleBatchBuffer(SCHEMA);
+    for (int i = 0; i < NUM_TUPLES; ++i) {
+      tbb.putInt(0, i);
+      tbb.putLong(1, i * 1000000007L);
+      tbb.putDouble(2, i / 7.0);
+      tbb.putString(3, "name'" + i % 13);
+      tbb.putBoolean(4, i % 3 == 0);
+      tbb.putFloat(5, i / 10.0f);
+    }
+    return tbb;
+  }
+
+  private ConnectionInfo store(final String dbms) throws DbException {
+    ConnectionInfo connectionInfo;
+    if (dbms.equals(MyriaConstants.STORAGE_SYSTEM_SQLITE)) {
+      Logger.getLogger("com.almworks.sqlite4java").setLevel(Level.SEVERE);
+      connectionInfo = SQLiteInfo.of(new File(storageFolder.getRoot(), "pushdown.db").getAbsolutePath());
+    } else {
+      connectionInfo = ColumnarInfo.of(storageFolder.getRoot().getAbsolutePath());
+    }
+    AccessMethod accessMethod = AccessMethod.of(dbms, connectionInfo, false);
+    accessMethod.createTableIfNotExists(RELATION, SCHEMA);
+    accessMethod.tupleBatchInsert(RELATION, tuples().getAll());
+    accessMethod.close();
+    return connectionInfo;
+  }
+
+  private static List<String> drain(final Operator op) throws DbException {
+    List<String> rows = new ArrayList<>();
+    op.open(TestEnvVars.get());
+    while (!op.eos()) {
+      TupleBatch tb = op.nextReady();
+      if (tb == null) {
+        continue;
+      }
+      for (int row = 0; row < tb.numTuples(); ++row) {
+        StringBuilder sb = new StringBuilder();
+        for (int column = 0; column < tb.numColumns(); ++column) {
+          sb.append(TestUtils.getValue(tb, column, row)).append('|');
+        }
+        rows.add(sb.toString());
+      }
+    }
+    op.close();
+    return rows;
+  }
+
+  private static Expression variable(final int column) {
+    return new Expression(SCHEMA.getColumnName(column), new VariableExpression(column));
+  }
+
+  /** id >= 100 AND id < 1500 AND NOT (name = 'name''4' OR big > 1050000007350L) AND id <> 123 AND flag */
+  private static Expression predicate() {
+    return new Expression("p", new AndExpression(new AndExpression(new AndExpression(new GreaterThanOrEqualsExpression(
+        new VariableExpression(0), new ConstantExpression(100)), new LessThanExpression(new VariableExpression(0),
+        new ConstantExpression(1500))), new NotExpression(new OrExpression(new EqualsExpression(new VariableExpression(3),
+        new ConstantExpression("name'4")), new GreaterThanExpression(new VariableExpression(1), new ConstantExpression(
+        1050000007350L))))), new AndExpression(new NotEqualsExpression(new VariableExpression(0),
+        new ConstantExpression(123)), new VariableExpression(4))));
+  }
+
+  /** A conjunction of comparisons between columns and constants, which the columnar storage evaluates. */
+  private static Expression simplePredicate() {
+    return new Expression("p", new AndExpression(new AndExpression(new GreaterThanOrEqualsExpression(
+        new ConstantExpression(1500), new VariableExpression(0)), new NotEqualsExpression(new VariableExpression(5),
+        new ConstantExpression(12.3f))), new AndExpression(new EqualsExpression(new VariableExpression(3),
+        new ConstantExpression("name'4")), new VariableExpression(4))));
+  }
+
+  private void checkPushDown(final String dbms, final Expression predicate, final List<Expression> emitExpressions)
+      throws DbException {
+    ConnectionInfo connectionInfo = store(dbms);
+
+    List<String> expected =
+        drain(new Apply(new Filter(predicate, new DbQueryScan(connectionInfo, RELATION, SCHEMA)), emitExpressions));
+    assertEquals(true, expected.size() > 0);
+
+    DbQueryScan filtered = new DbQueryScan(connectionInfo, RELATION, SCHEMA).pushDownPredicate(predicate, dbms);
+    assertNotNull(filtered);
+    DbQueryScan projected = filtered.pushDownProjection(emitExpressions, dbms);
+    assertNotNull(projected);
+    assertEquals(new Apply(filtered, emitExpressions).getSchema(), projected.getSchema());
+    assertEquals(expected, drain(projected));
+  }
+
+  @Test
+  public void testSQLitePushDown() throws DbException {
+    checkPushDown(MyriaConstants.STORAGE_SYSTEM_SQLITE, predicate(), ImmutableList.of(variable(3), variable(0),
+        variable(4), variable(5), variable(2), new Expression("constant", new ConstantExpression("it's"))));
+  }
+
+  @Test
+  public void testColumnarPushDown() throws DbException {
+    checkPushDown(MyriaConstants.STORAGE_SYSTEM_COLUMNAR, simplePredicate(), ImmutableList.of(variable(3),
+        variable(0), variable(5)));
+  }
+
+  @Test
+  public void testUntranslatableExpressionsStayInJava() throws DbException {
+    DbQueryScan scan = new DbQueryScan(RELATION, SCHEMA);
+    String sqlite = MyriaConstants.STORAGE_SYSTEM_SQLITE;
+    String columnar = MyriaConstants.STORAGE_SYSTEM_COLUMNAR;
+    String postgres = MyriaConstants.STORAGE_SYSTEM_POSTGRESQL;
+
+    /* Strings are ordered by collation in SQL. */
+    Expression stringOrder =
+        new Expression("p", new LessThanExpression(new VariableExpression(3), new ConstantExpression("name'5")));
+    assertNull(scan.pushDownPredicate(stringOrder, sqlite));
+    assertNotNull(scan.pushDownPredicate(stringOrder, columnar));
+
+    /* Integral arithmetic only fails on overflow like Java in PostgreSQL. */
+    Expression sum =
+        new Expression("sum", new PlusExpression(new VariableExpression(0), new ConstantExpression(
+            Type.LONG_TYPE, "3")));
+    assertNull(scan.pushDownProjection(ImmutableList.of(sum), sqlite));
+    assertEquals("(\"id\" + CAST(3 AS BIGINT))", SqlExpressionTranslator.translateValue(sum, SCHEMA, postgres));
+
+    /* Java wraps negation at the minimum value, but PostgreSQL fails. */
+    Expression negated = new Expression("negated", new NegateExpression(new VariableExpression(0)));
+    assertNull(SqlExpressionTranslator.translateValue(negated, SCHEMA, postgres));
+    assertNull(scan.pushDownPredicate(new Expression("p", new LessThanExpression(new NegateExpression(
+        new VariableExpression(1)), new ConstantExpression(0L))), postgres));
+
+    /* Java overflows floating-point arithmetic to infinity, but PostgreSQL fails. */
+    Expression scaled =
+        new Expression("scaled", new TimesExpression(new VariableExpression(2), new ConstantExpression(2.5)));
+    assertNull(SqlExpressionTranslator.translateValue(scaled, SCHEMA, postgres));
+    assertNull(scan.pushDownProjection(ImmutableList.of(scaled), sqlite));
+
+    /* Java never orders NaN, but the databases order it above every value or store it as NULL. */
+    for (Expression ordered : ImmutableList.of(
+        new Expression("p", new GreaterThanExpression(new VariableExpression(2), new ConstantExpression(150.5))),
+        new Expression("p", new LessThanExpression(new ConstantExpression(12.3f), new VariableExpression(5))),
+        new Expression("p", new GreaterThanExpression(new VariableExpression(0), new VariableExpression(2))))) {
+      assertNull(scan.pushDownPredicate(ordered, postgres));
+      assertNull(scan.pushDownPredicate(ordered, sqlite));
+      assertNull(scan.pushDownPredicate(ordered, columnar));
+    }
+    /* NaN is unequal to a value that is not NaN everywhere, but equal to itself in PostgreSQL. */
+    Expression equal =
+        new Expression("p", new EqualsExpression(new VariableExpression(2), new ConstantExpression(0.5)));
+    assertEquals("(\"ratio\" = CAST(0.5 AS DOUBLE PRECISION))", SqlExpressionTranslator.translatePredicate(equal,
+        SCHEMA, postgres));
+    assertNotNull(scan.pushDownPredicate(equal, columnar));
+    assertNull(scan.pushDownPredicate(equal, sqlite));
+    assertNull(scan.pushDownPredicate(new Expression("p", new NotEqualsExpression(new VariableExpression(2),
+        new VariableExpression(5))), postgres));
+    /* Integral columns are never NaN. */
+    assertNotNull(scan.pushDownPredicate(new Expression("p", new GreaterThanExpression(new VariableExpression(0),
+        new ConstantExpression(150.5))), sqlite));
+
+    /* The columnar storage only evaluates comparisons of columns with constants, and only projects columns. */
+    assertNull(scan.pushDownPredicate(predicate(), columnar));
+    assertNull(scan.pushDownProjection(ImmutableList.of(sum), columnar));
+
+    /* Random values are not deterministic. */
+    assertNull(scan.pushDownProjection(ImmutableList.of(new Expression("r", new RandomExpression())), postgres));
+
+    /* Projected scans cannot be filtered, and sorted scans cannot be projected. */
+    DbQueryScan projected = scan.pushDownProjection(ImmutableList.of(variable(0)), sqlite);
+    assertNull(projected.pushDownPredicate(predicate(), sqlite));
+    DbQueryScan sorted = new DbQueryScan(RELATION, SCHEMA, new int[] { 0 }, new boolean[] { true });
+    assertNull(sorted.pushDownProjection(ImmutableList.of(variable(0)), sqlite));
+
+    /* Other database systems and scans of arbitrary SQL are left alone. */
+    assertNull(scan.pushDownPredicate(predicate(), MyriaConstants.STORAGE_SYSTEM_MYSQL));
+    assertNull(new DbQueryScan("SELECT * FROM x", SCHEMA).pushDownPredicate(predicate(), sqlite));
+  }
+}
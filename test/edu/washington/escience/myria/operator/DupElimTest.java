@@ -14,6 +14,11 @@ import com.google.common.collect.Lists;
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.column.StringDictionary;
+import edu.washington.escience.myria.column.builder.ColumnBuilder;
+import edu.washington.escience.myria.column.builder.DictionaryStringColumnBuilder;
+import edu.washington.escience.myria.column.builder.StringColumnBuilder;
 import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.storage.TupleBatchBuffer;
 import edu.washington.escience.myria.util.TestEnvVars;
@@ -114,4 +119,35 @@ public class DupElimTest {
     assertEquals(3, ans.get(0).numTuples());
     assertEquals(1, ans.get(1).numTuples());
   }
+
+  private static TupleBatch stringBatch(final ColumnBuilder<String> builder, final String... values) {
+    for (String value : values) {
+      builder.appendString(value);
+    }
+    return new TupleBatch(Schema.ofFields("string", Type.STRING_TYPE), ImmutableList.<Column<?>> of(builder.build()));
+  }
+
+  @Test
+  public void testDupElimDictionaryStrings() throws DbException {
+    StringDictionary dictionary = new StringDictionary(100);
+    List<TupleBatch> input =
+        ImmutableList.of(stringBatch(new DictionaryStringColumnBuilder(dictionary), "a", "b", "a"), stringBatch(
+            new StringColumnBuilder(), "b", "c", "c"), stringBatch(new DictionaryStringColumnBuilder(dictionary), "c",
+            "d", "a"));
+    StreamingStateWrapper dupElim = new StreamingStateWrapper(new TupleSource(input), new DupElim());
+
+    List<String> ans = Lists.newLinkedList();
+    dupElim.open(TestEnvVars.get());
+    while (!dupElim.eos()) {
+      TupleBatch tb = dupElim.nextReady();
+      if (tb != null) {
+        for (int row = 0; row < tb.numTuples(); ++row) {
+          ans.add(tb.getString(0, row));
+        }
+      }
+    }
+    dupElim.close();
+
+    assertEquals(ImmutableList.of("a", "b", "c", "d"), ans);
+  }
 }
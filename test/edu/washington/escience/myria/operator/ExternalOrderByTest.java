@@ -0,0 +1,139 @@
+package edu.washington.escience.myria.operator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+import edu.washington.escience.myria.util.TestEnvVars;
+import edu.washington.escience.myria.util.TestUtils;
+
+public class ExternalOrderByTest {
+
+  @Rule
+  public TemporaryFolder spillFolder = new TemporaryFolder();
+
+  private Map<String, Object> spillEnvVars() {
+    Map<String, Object> envVars = TestEnvVars.get();
+    envVars.put(MyriaConstants.EXEC_ENV_VAR_SPILL_DIRECTORY, spillFolder.getRoot().getAbsolutePath());
+    return envVars;
+  }
+
+  /** Split the tuples into small batches, so that a tiny budget produces many runs. */
+  private List<TupleBatch> smallBatches(final TupleBatchBuffer tuples, final int batchSize) {
+    List<TupleBatch> ret = new ArrayList<>();
+    for (TupleBatch tb : tuples.getAll()) {
+      for (int from = 0; from < tb.numTuples(); from += batchSize) {
+        TupleBatchBuffer tbb = new TupleBatchBuffer(tb.getSchema());
+        for (int row = from; row < Math.min(from + batchSize, tb.numTuples()); ++row) {
+          tbb.put(tb, row);
+        }
+        ret.add(tbb.popAny());
+      }
+    }
+    return ret;
+  }
+
+  private List<Entry<Long, String>> drain(final Operator op) throws DbException {
+    final List<Entry<Long, String>> entries = new ArrayList<>();
+    while (!op.eos()) {
+      TupleBatch tb = op.nextReady();
+      if (tb != null) {
+        for (int i = 0; i < tb.numTuples(); i++) {
+          entries.add(new SimpleEntry<Long, String>(tb.getLong(0, i), tb.getString(1, i)));
+        }
+      }
+    }
+    return entries;
+  }
+
+  @Test
+  public void testInMemory() throws DbException {
+    TupleBatchBuffer randomTuples = TestUtils.generateRandomTuples(52300, 5000, false);
+    ExternalOrderBy order =
+        new ExternalOrderBy(new TupleSource(randomTuples), new int[] { 0, 1 }, new boolean[] { true, true });
+    order.open(spillEnvVars());
+    List<Entry<Long, String>> entries = drain(order);
+    assertEquals(0, order.getNumRuns());
+    order.close();
+
+    assertEquals(52300, entries.size());
+    Comparator<Entry<Long, String>> comparator = new TestUtils.EntryComparator();
+    for (int i = 1; i < entries.size(); ++i) {
+      assertTrue(comparator.compare(entries.get(i - 1), entries.get(i)) <= 0);
+    }
+  }
+
+  @Test
+  public void testSpilledMatchesInput() throws DbException {
+    TupleBatchBuffer randomTuples = TestUtils.generateRandomTuples(20000, 5000, false);
+    ExternalOrderBy order =
+        new ExternalOrderBy(new TupleSource(smallBatches(randomTuples, 100)), new int[] { 1, 0 }, new boolean[] {
+            false, true });
+    /* Every input batch becomes a run, which needs intermediate merges. */
+    order.setMemoryBudget(1);
+    order.open(spillEnvVars());
+    List<Entry<Long, String>> entries = drain(order);
+    assertTrue(order.getNumRuns() > 200);
+    assertTrue(order.getSpilledBytes() > 0);
+    order.close();
+    assertEquals(0, spillFolder.getRoot().list().length);
+
+    assertEquals(20000, entries.size());
+    for (int i = 1; i < entries.size(); ++i) {
+      Entry<Long, String> previous = entries.get(i - 1);
+      Entry<Long, String> current = entries.get(i);
+      int compared = previous.getValue().compareTo(current.getValue());
+      assertTrue(compared > 0 || (compared == 0 && previous.getKey() <= current.getKey()));
+    }
+
+    TupleBatchBuffer sorted = new TupleBatchBuffer(randomTuples.getSchema());
+    for (Entry<Long, String> entry : entries) {
+      sorted.putLong(0, entry.getKey());
+      sorted.putString(1, entry.getValue());
+    }
+    TestUtils.assertTupleBagEqual(TestUtils.tupleBatchToTupleBag(randomTuples), TestUtils.tupleBatchToTupleBag(sorted));
+  }
+
+  @Test
+  public void testFeedsMergeJoin() throws DbException {
+    TupleBatchBuffer left = TestUtils.generateRandomTuples(5000, 1000, false);
+    TupleBatchBuffer right = TestUtils.generateRandomTuples(3000, 1000, false);
+    ExternalOrderBy leftOrder =
+        new ExternalOrderBy(new TupleSource(smallBatches(left, 500)), new int[] { 0 }, new boolean[] { true });
+    ExternalOrderBy rightOrder =
+        new ExternalOrderBy(new TupleSource(smallBatches(right, 500)), new int[] { 0 }, new boolean[] { true });
+    leftOrder.setMemoryBudget(20 * 1024);
+    rightOrder.setMemoryBudget(20 * 1024);
+    MergeJoin join =
+        new MergeJoin(ImmutableList.of("id1", "name1", "id2", "name2"), leftOrder, rightOrder, new int[] { 0 },
+            new int[] { 0 }, new boolean[] { true });
+    join.open(spillEnvVars());
+    TupleBatchBuffer result = new TupleBatchBuffer(join.getSchema());
+    while (!join.eos()) {
+      TupleBatch tb = join.nextReady();
+      if (tb != null) {
+        result.appendTB(tb);
+      }
+    }
+    assertTrue(leftOrder.getNumRuns() > 1);
+    join.close();
+
+    TestUtils.assertTupleBagEqual(TestUtils.naturalJoin(left, right, 0, 0), TestUtils.tupleBatchToTupleBag(result));
+  }
+}
@@ -0,0 +1,143 @@
+package edu.washington.escience.myria.operator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.expression.ConstantExpression;
+import edu.washington.escience.myria.expression.Expression;
+import edu.washington.escience.myria.expression.LessThanExpression;
+import edu.washington.escience.myria.expression.ModuloExpression;
+import edu.washington.escience.myria.expression.PlusExpression;
+import edu.washington.escience.myria.expression.SqrtExpression;
+import edu.washington.escience.myria.expression.VariableExpression;
+import edu.washington.escience.myria.operator.Morsels.MorselTask;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+import edu.washington.escience.myria.util.TestEnvVars;
+import edu.washington.escience.myria.util.TestUtils;
+
+public class MorselsTest {
+
+  private static final int PARALLELISM = 4;
+
+  private static Map<String, Object> envVars(final int parallelism) {
+    Map<String, Object> envVars = TestEnvVars.get();
+    envVars.put(MyriaConstants.EXEC_ENV_VAR_MORSEL_PARALLELISM, parallelism);
+    return envVars;
+  }
+
+  /** @return every row produced by the operator, in order. */
+  private static List<List<Object>> drain(final Operator op, final Map<String, Object> envVars) throws DbException {
+    List<List<Object>> rows = new ArrayList<>();
+    op.open(envVars);
+    while (!op.eos()) {
+      TupleBatch tb = op.nextReady();
+      if (tb == null) {
+        continue;
+      }
+      for (int row = 0; row < tb.numTuples(); ++row) {
+        List<Object> tuple = new ArrayList<>();
+        for (int column = 0; column < tb.numColumns(); ++column) {
+          tuple.add(TestUtils.getValue(tb, column, row));
+        }
+        rows.add(tuple);
+      }
+    }
+    op.close();
+    return rows;
+  }
+
+  @Test
+  public void testRunSplitsInOrder() throws DbException {
+    final int numTuples = 10 * Morsels.MIN_MORSEL_SIZE + 7;
+    List<int[]> ranges = Morsels.run(numTuples, PARALLELISM, new MorselTask<int[]>() {
+      @Override
+      public int[] process(final int from, final int to) {
+        return new int[] { from, to };
+      }
+    });
+    assertEquals(PARALLELISM, ranges.size());
+    int next = 0;
+    for (int[] range : ranges) {
+      assertEquals(next, range[0]);
+      assertTrue(range[1] > range[0]);
+      next = range[1];
+    }
+    assertEquals(numTuples, next);
+  }
+
+  @Test
+  public void testNumMorsels() {
+    assertEquals(1, Morsels.numMorsels(0, PARALLELISM));
+    assertEquals(1, Morsels.numMorsels(Morsels.MIN_MORSEL_SIZE * 2 - 1, PARALLELISM));
+    assertEquals(2, Morsels.numMorsels(Morsels.MIN_MORSEL_SIZE * 2, PARALLELISM));
+    assertEquals(PARALLELISM, Morsels.numMorsels(TupleBatch.BATCH_SIZE, PARALLELISM));
+    assertEquals(1, Morsels.numMorsels(TupleBatch.BATCH_SIZE, 1));
+    assertEquals(1, Morsels.getParallelism(null));
+    assertEquals(1, Morsels.getParallelism(TestEnvVars.get()));
+    assertEquals(PARALLELISM, Morsels.getParallelism(envVars(PARALLELISM)));
+  }
+
+  @Test(expected = DbException.class)
+  public void testRunPropagatesErrors() throws DbException {
+    Morsels.run(TupleBatch.BATCH_SIZE, PARALLELISM, new MorselTask<Void>() {
+      @Override
+      public Void process(final int from, final int to) throws DbException {
+        if (from > 0) {
+          throw new DbException("morsel failed");
+        }
+        return null;
+      }
+    });
+  }
+
+  @Test
+  public void testFilter() throws DbException {
+    TupleBatchBuffer input = TestUtils.generateRandomTuples(3 * TupleBatch.BATCH_SIZE, 1000, false);
+    Expression predicate =
+        new Expression("small", new LessThanExpression(new ModuloExpression(new VariableExpression(0),
+            new ConstantExpression(7L)), new ConstantExpression(3L)));
+    List<List<Object>> serial = drain(new Filter(predicate, new TupleSource(input)), envVars(1));
+    List<List<Object>> parallel = drain(new Filter(predicate, new TupleSource(input)), envVars(PARALLELISM));
+    assertTrue(serial.size() > 0);
+    assertEquals(serial, parallel);
+  }
+
+  @Test
+  public void testApply() throws DbException {
+    TupleBatchBuffer input = TestUtils.generateRandomTuples(3 * TupleBatch.BATCH_SIZE, 1000, false);
+    List<Expression> expressions =
+        ImmutableList.of(new Expression("name", new VariableExpression(1)), new Expression("root", new SqrtExpression(
+            new VariableExpression(0))), new Expression("next", new PlusExpression(new VariableExpression(0),
+            new ConstantExpression(1L))), new Expression("one", new ConstantExpression(1L)));
+    List<List<Object>> serial = drain(new Apply(new TupleSource(input), expressions), envVars(1));
+    List<List<Object>> parallel = drain(new Apply(new TupleSource(input), expressions), envVars(PARALLELISM));
+    assertEquals(3 * TupleBatch.BATCH_SIZE, serial.size());
+    assertEquals(serial, parallel);
+  }
+
+  @Test
+  public void testRightHashJoinProbe() throws DbException {
+    TupleBatchBuffer left = TestUtils.generateRandomTuples(3 * TupleBatch.BATCH_SIZE, 2000, false);
+    TupleBatchBuffer right = TestUtils.generateRandomTuples(1000, 2000, false);
+    List<String> names = ImmutableList.of("id1", "name1", "id2", "name2");
+    List<List<Object>> serial =
+        drain(new RightHashJoin(names, new TupleSource(left), new TupleSource(right), new int[] { 0 }, new int[] { 0 }),
+            envVars(1));
+    List<List<Object>> parallel =
+        drain(new RightHashJoin(names, new TupleSource(left), new TupleSource(right), new int[] { 0 }, new int[] { 0 }),
+            envVars(PARALLELISM));
+    assertTrue(serial.size() > 0);
+    assertEquals(serial, parallel);
+  }
+}
@@ -308,6 +308,36 @@ public class OperatorTest {
     assertTrue(sum == N);
   }
 
+  @Test
+  public void testKeepMinValue() throws DbException {
+    final Schema schema = new Schema(ImmutableList.of(Type.LONG_TYPE, Type.LONG_TYPE), ImmutableList.of("id", "value"));
+
+    TupleBatchBuffer input = new TupleBatchBuffer(schema);
+    long[][] tuples = { { 1, 10 }, { 2, 20 }, { 1, 15 }, { 2, 7 }, { 3, 30 } };
+    for (long[] tuple : tuples) {
+      input.putLong(0, tuple[0]);
+      input.putLong(1, tuple[1]);
+    }
+
+    TupleSource scan = new TupleSource(input);
+    StreamingStateWrapper keepmin = new StreamingStateWrapper(scan, new KeepMinValue(new int[] { 0 }, new int[] { 1 }));
+    keepmin.open(null);
+    while (!keepmin.eos()) {
+      keepmin.nextReady();
+    }
+
+    long[] minValue = { 0, 10, 7, 30 };
+    int count = 0;
+    for (TupleBatch tb : keepmin.getStreamingState().exportState()) {
+      for (int i = 0; i < tb.numTuples(); i++) {
+        assertEquals(minValue[(int) tb.getLong(0, i)], tb.getLong(1, i));
+      }
+      count += tb.numTuples();
+    }
+    keepmin.close();
+    assertEquals(3, count);
+  }
+
   @Test
   public void testMergeJoin() throws DbException {
     final Schema leftSchema =
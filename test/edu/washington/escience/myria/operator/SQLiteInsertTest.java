@@ -1,11 +1,13 @@
 package edu.washington.escience.myria.operator;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -22,7 +24,9 @@ import edu.washington.escience.myria.MyriaConstants;
 import edu.washington.escience.myria.RelationKey;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.accessmethod.AccessMethod.IndexRef;
 import edu.washington.escience.myria.accessmethod.SQLiteInfo;
+import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.storage.TupleBatchBuffer;
 import edu.washington.escience.myria.util.FSUtils;
 
@@ -87,6 +91,64 @@ public class SQLiteInsertTest {
     sqliteConnection.dispose();
   }
 
+  @Test
+  public void testManyBatchesIndexedAfterLoad() throws Exception {
+    final RelationKey tuplesKey = RelationKey.of("test", "test", "my_indexed_tuples");
+    final int numTuples = 5 * TupleBatch.BATCH_SIZE + 17;
+    final TupleBatchBuffer tuples = new TupleBatchBuffer(schema);
+    for (int i = 0; i < numTuples; ++i) {
+      tuples.putInt(0, i);
+      tuples.putString(1, "tuple " + i);
+    }
+
+    final List<List<IndexRef>> indexes = ImmutableList.<List<IndexRef>> of(ImmutableList.of(IndexRef.of(0)));
+    final DbInsert insert =
+        new DbInsert(new TupleSource(tuples), tuplesKey, SQLiteInfo.of(tempFile.getAbsolutePath()), true, indexes);
+    insert.open(null);
+    while (!insert.eos()) {
+      insert.nextReady();
+    }
+    assertEquals(numTuples, insert.getLoadedTuples());
+    assertTrue(insert.getLoadedBytes() > 4L * numTuples);
+    insert.close();
+
+    final SQLiteConnection sqliteConnection = new SQLiteConnection(tempFile);
+    sqliteConnection.open(false);
+    SQLiteStatement statement =
+        sqliteConnection.prepare("SELECT COUNT(*), SUM(col0) FROM "
+            + tuplesKey.toString(MyriaConstants.STORAGE_SYSTEM_SQLITE) + ";");
+    assertTrue(statement.step());
+    assertEquals(numTuples, statement.columnInt(0));
+    assertEquals((long) numTuples * (numTuples - 1) / 2, statement.columnLong(1));
+    statement.dispose();
+    statement = sqliteConnection.prepare("SELECT COUNT(*) FROM sqlite_master WHERE type = 'index';");
+    assertTrue(statement.step());
+    assertEquals(1, statement.columnInt(0));
+    sqliteConnection.dispose();
+  }
+
+  @Test
+  public void testCloseBeforeEOS() throws Exception {
+    final RelationKey tuplesKey = RelationKey.of("test", "test", "my_aborted_tuples");
+    final DbInsert insert =
+        new DbInsert(new TupleSource(data), tuplesKey, SQLiteInfo.of(tempFile.getAbsolutePath()), true);
+    insert.open(null);
+    insert.nextReady();
+    insert.close();
+
+    /* The loader thread must be gone, and the relation must not have been created. */
+    for (Thread t : Thread.getAllStackTraces().keySet()) {
+      assertFalse(t.getName().startsWith("DbInsert loader"));
+    }
+    final SQLiteConnection sqliteConnection = new SQLiteConnection(tempFile);
+    sqliteConnection.open(false);
+    final SQLiteStatement statement =
+        sqliteConnection.prepare("SELECT COUNT(*) FROM sqlite_master WHERE name = 'test:test:my_aborted_tuples';");
+    assertTrue(statement.step());
+    assertEquals(0, statement.columnInt(0));
+    sqliteConnection.dispose();
+  }
+
   /**
    * Cleanup what we created.
    * 
@@ -1,17 +1,31 @@
 package edu.washington.escience.myria.operator;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.util.Map;
+
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
 
 import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.MyriaConstants;
 import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.parallel.QueryExecutionMode;
 import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
 import edu.washington.escience.myria.util.JoinTestUtils;
 import edu.washington.escience.myria.util.TestEnvVars;
+import edu.washington.escience.myria.util.TestUtils;
 
 public class SymmetricHashJoinTest {
 
+  @Rule
+  public TemporaryFolder spillFolder = new TemporaryFolder();
+
   @Test
   public void testSymmetricHashJoin() throws DbException {
     TupleSource left = new TupleSource(JoinTestUtils.leftInput);
@@ -38,4 +52,72 @@ public class SymmetricHashJoinTest {
     Operator join = new SymmetricHashJoin(left, right, new int[] { 0 }, new int[] { 0 });
     join.open(TestEnvVars.get());
   }
+
+  @Test
+  public void testSymmetricHashJoinSpills() throws DbException {
+    TupleSource left = new TupleSource(JoinTestUtils.leftInput);
+    TupleSource right = new TupleSource(JoinTestUtils.rightInput);
+    SymmetricHashJoin join = new SymmetricHashJoin(left, right, new int[] { 1, 0, 2 }, new int[] { 2, 1, 0 });
+    join.setMemoryBudget(1);
+    join.open(spillEnvVars());
+    long count = 0;
+    while (!join.eos()) {
+      TupleBatch tb = join.nextReady();
+      if (tb == null) {
+        continue;
+      }
+      count += tb.numTuples();
+    }
+    assertEquals(7L, count);
+    assertTrue(join.getSpillPasses() >= 1);
+    assertTrue(join.getSpilledBytes() > 0);
+    join.close();
+    assertEquals(0, spillFolder.getRoot().list().length);
+  }
+
+  @Test
+  public void testSpilledJoinMatchesExpected() throws DbException {
+    TupleBatchBuffer leftTuples = TestUtils.generateRandomTuples(20000, 1000, false);
+    TupleBatchBuffer rightTuples = TestUtils.generateRandomTuples(5000, 1000, false);
+    /* A heavy key that no amount of partitioning can split. */
+    for (int i = 0; i < 3000; ++i) {
+      rightTuples.putLong(0, 1001L);
+      rightTuples.putString(1, "heavy");
+    }
+    for (int i = 0; i < 3; ++i) {
+      leftTuples.putLong(0, 1001L);
+      leftTuples.putString(1, "probe");
+    }
+
+    for (QueryExecutionMode mode : QueryExecutionMode.values()) {
+      SymmetricHashJoin join =
+          new SymmetricHashJoin(ImmutableList.of("id1", "name1", "id2", "name2"), new TupleSource(leftTuples),
+              new TupleSource(rightTuples), new int[] { 0 }, new int[] { 0 });
+      /* The budget goes through the execution environment, like a worker's default. */
+      Map<String, Object> envVars = spillEnvVars();
+      envVars.put(MyriaConstants.EXEC_ENV_VAR_OPERATOR_MEMORY_BUDGET, 16L * 1024);
+      envVars.put(MyriaConstants.EXEC_ENV_VAR_EXECUTION_MODE, mode);
+      join.open(envVars);
+      TupleBatchBuffer result = new TupleBatchBuffer(join.getSchema());
+      while (!join.eos()) {
+        TupleBatch tb = join.nextReady();
+        if (tb != null) {
+          result.appendTB(tb);
+        }
+      }
+      assertTrue(join.getSpillPasses() > 1);
+      assertTrue(join.getSpillPartitions() > 16);
+      join.close();
+
+      TestUtils.assertTupleBagEqual(TestUtils.naturalJoin(leftTuples, rightTuples, 0, 0), TestUtils
+          .tupleBatchToTupleBag(result));
+      assertEquals(0, spillFolder.getRoot().list().length);
+    }
+  }
+
+  private Map<String, Object> spillEnvVars() {
+    Map<String, Object> envVars = TestEnvVars.get();
+    envVars.put(MyriaConstants.EXEC_ENV_VAR_SPILL_DIRECTORY, spillFolder.getRoot().getAbsolutePath());
+    return envVars;
+  }
 }
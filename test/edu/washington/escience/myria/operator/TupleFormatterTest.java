@@ -0,0 +1,85 @@
+package edu.washington.escience.myria.operator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.CsvTupleWriter;
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.JsonTupleWriter;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.TextChunkTupleWriter;
+import edu.washington.escience.myria.TupleWriter;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+import edu.washington.escience.myria.util.TestEnvVars;
+
+public class TupleFormatterTest {
+
+  private static final Schema SCHEMA = Schema.ofFields("id", Type.LONG_TYPE, "name", Type.STRING_TYPE,
+      "ratio", Type.DOUBLE_TYPE);
+
+  private static List<TupleBatch> tuples(final int numTuples) {
+    TupleBatchBuffer tbb = new TupleBatchBuffer(SCHEMA);
+    for (int i = 0; i < numTuples; ++i) {
+      tbb.putLong(0, i);
+      tbb.putString(1, "a, \"b\"\n" + i);
+      tbb.putDouble(2, i / 3.0);
+    }
+    return tbb.getAll();
+  }
+
+  private static TupleWriter writer(final String format, final ByteArrayOutputStream out) throws IOException {
+    switch (format) {
+      case "csv":
+        return new CsvTupleWriter(out);
+      case "tsv":
+        return new CsvTupleWriter('\t', out);
+      default:
+        return new JsonTupleWriter(out);
+    }
+  }
+
+  /** Check that formatting on the workers and assembling at the master is the same as formatting at the master. */
+  private static void checkFormat(final String format, final int numTuples) throws IOException, DbException {
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    TupleWriter writer = writer(format, expected);
+    writer.writeColumnHeaders(SCHEMA.getColumnNames());
+    for (TupleBatch tb : tuples(numTuples)) {
+      writer.writeTuples(tb);
+    }
+    writer.done();
+
+    ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    TupleFormatter formatter = new TupleFormatter(format, new TupleSource(tuples(numTuples), SCHEMA));
+    DataOutput output = new DataOutput(formatter, new TextChunkTupleWriter(format, SCHEMA.getColumnNames(), actual));
+    output.open(TestEnvVars.get());
+    while (!output.eos()) {
+      output.nextReady();
+    }
+    output.close();
+
+    assertEquals(expected.toString(), actual.toString());
+  }
+
+  @Test
+  public void testFormats() throws IOException, DbException {
+    for (String format : ImmutableList.of("csv", "tsv", "json")) {
+      checkFormat(format, 0);
+      checkFormat(format, 1);
+      checkFormat(format, 2 * TupleBatch.BATCH_SIZE + 3);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnsupportedFormat() {
+    new TupleFormatter("binary", new TupleSource(tuples(1), SCHEMA));
+  }
+}
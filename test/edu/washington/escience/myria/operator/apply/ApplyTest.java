@@ -13,6 +13,7 @@ import com.google.common.hash.Hashing;
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.Column;
 import edu.washington.escience.myria.expression.AbsExpression;
 import edu.washington.escience.myria.expression.AndExpression;
 import edu.washington.escience.myria.expression.CeilExpression;
@@ -48,6 +49,7 @@ import edu.washington.escience.myria.expression.TimesExpression;
 import edu.washington.escience.myria.expression.ToUpperCaseExpression;
 import edu.washington.escience.myria.expression.VariableExpression;
 import edu.washington.escience.myria.expression.WorkerIdExpression;
+import edu.washington.escience.myria.expression.evaluate.BatchEvaluator;
 import edu.washington.escience.myria.expression.evaluate.ConstantEvaluator;
 import edu.washington.escience.myria.expression.evaluate.ExpressionOperatorParameter;
 import edu.washington.escience.myria.expression.evaluate.GenericEvaluator;
@@ -647,4 +649,35 @@ public class ApplyTest {
     conditional.getOutputType(new ExpressionOperatorParameter());
   }
 
+  @Test
+  public void testBatchEvaluatorOnRowRange() throws DbException {
+    TupleBatchBuffer input = new TupleBatchBuffer(Schema.ofFields(Type.INT_TYPE, "i", Type.BOOLEAN_TYPE, "b"));
+    for (int i = 0; i < 10; ++i) {
+      input.putInt(0, i);
+      input.putBoolean(1, i % 2 == 0);
+    }
+    TupleBatch tb = input.popAny();
+    /* Boolean columns are always copied, only for the rows that are read. */
+    BatchEvaluator evaluator =
+        new BatchEvaluator(ImmutableList.of(new Expression("plus", new PlusExpression(new VariableExpression(0),
+            new ConstantExpression(1))), new Expression("not", new NotExpression(new VariableExpression(1)))),
+            new ExpressionOperatorParameter(tb.getSchema()));
+    evaluator.compile();
+
+    Column<?>[] range = evaluator.evaluate(tb, 3, 7);
+    assertEquals(4, range[0].size());
+    for (int row = 3; row < 7; ++row) {
+      assertEquals(row + 1, range[0].getInt(row - 3));
+      assertEquals(row % 2 != 0, range[1].getBoolean(row - 3));
+    }
+
+    Object[] results = evaluator.allocateResults(tb.numTuples());
+    evaluator.evaluateInto(tb, 5, 10, results);
+    evaluator.evaluateInto(tb, 0, 5, results);
+    Column<?>[] all = evaluator.toColumns(results, tb.numTuples());
+    for (int row = 0; row < tb.numTuples(); ++row) {
+      assertEquals(row + 1, all[0].getInt(row));
+      assertEquals(row % 2 != 0, all[1].getBoolean(row));
+    }
+  }
 }
@@ -0,0 +1,77 @@
+package edu.washington.escience.myria.operator.apply;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.expression.ConstantExpression;
+import edu.washington.escience.myria.expression.Expression;
+import edu.washington.escience.myria.expression.PlusExpression;
+import edu.washington.escience.myria.expression.VariableExpression;
+import edu.washington.escience.myria.expression.evaluate.BatchEvaluator;
+import edu.washington.escience.myria.expression.evaluate.EvaluatorCache;
+import edu.washington.escience.myria.expression.evaluate.ExpressionOperatorParameter;
+import edu.washington.escience.myria.expression.evaluate.GenericEvaluator;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+
+public class EvaluatorCacheTest {
+
+  /** A constant that no other test uses, so that the cache does not already hold the evaluators of this test. */
+  private static final int UNIQUE = 918273645;
+
+  private static Expression plusUnique() {
+    return new Expression("plus", new PlusExpression(new VariableExpression(0), new ConstantExpression(UNIQUE)));
+  }
+
+  @Test
+  public void testSameSourceAndSchemaHits() throws DbException {
+    /* The cache ignores column names, which do not change the generated code. */
+    Schema first = Schema.ofFields(Type.LONG_TYPE, "a");
+    Schema second = Schema.ofFields(Type.LONG_TYPE, "b");
+    GenericEvaluator miss = new GenericEvaluator(plusUnique(), new ExpressionOperatorParameter(first));
+    miss.compile();
+    assertEquals(1, miss.getCompileStats().getMisses());
+    assertEquals(0, miss.getCompileStats().getHits());
+
+    GenericEvaluator hit = new GenericEvaluator(plusUnique(), new ExpressionOperatorParameter(second));
+    hit.compile();
+    assertEquals(0, hit.getCompileStats().getMisses());
+    assertEquals(1, hit.getCompileStats().getHits());
+    assertEquals(0, hit.getCompileStats().getCompileNanos());
+  }
+
+  @Test
+  public void testDifferentSchemaMisses() throws DbException {
+    TupleBatchBuffer input = new TupleBatchBuffer(Schema.ofFields(Type.INT_TYPE, "a"));
+    input.putInt(0, 1);
+    input.putInt(0, 2);
+    TupleBatch tb = input.popAny();
+
+    long missesBefore = EvaluatorCache.getTotalStats().getMisses();
+    BatchEvaluator ints =
+        new BatchEvaluator(ImmutableList.of(plusUnique()), new ExpressionOperatorParameter(tb.getSchema()));
+    ints.compile();
+    BatchEvaluator longs =
+        new BatchEvaluator(ImmutableList.of(plusUnique()), new ExpressionOperatorParameter(Schema.ofFields(
+            Type.LONG_TYPE, "a")));
+    longs.compile();
+    assertEquals(1, ints.getCompileStats().getMisses());
+    assertEquals(1, longs.getCompileStats().getMisses());
+    assertEquals(missesBefore + 2, EvaluatorCache.getTotalStats().getMisses());
+
+    /* A cached evaluator computes the same results. */
+    BatchEvaluator cached =
+        new BatchEvaluator(ImmutableList.of(plusUnique()), new ExpressionOperatorParameter(tb.getSchema()));
+    cached.compile();
+    assertEquals(1, cached.getCompileStats().getHits());
+    Column<?> result = cached.evaluate(tb, 0, tb.numTuples())[0];
+    assertEquals(UNIQUE + 2, result.getInt(1));
+  }
+}
@@ -186,4 +186,38 @@ public class StatefulApplyTest {
     assertEquals(2, old);
   }
 
+  @Test
+  public void testUpdatesReadPreviousState() throws DbException {
+    final TupleBatchBuffer tbb = new TupleBatchBuffer(Schema.ofFields(Type.INT_TYPE, "x"));
+    for (int i = 0; i < NUM_TUPLES; ++i) {
+      tbb.putInt(0, i);
+    }
+
+    /* The previous input: both updates must read the state of the previous row. */
+    Expression initA = new Expression("a", new ConstantExpression(-2));
+    Expression initB = new Expression("b", new ConstantExpression(-1));
+    Expression updateA = new Expression("a", new StateExpression(1));
+    Expression updateB = new Expression("b", new VariableExpression(0));
+    StatefulApply apply =
+        new StatefulApply(new TupleSource(tbb), ImmutableList.of(new Expression("x", new VariableExpression(0)),
+            new Expression("previous", new StateExpression(0)), new Expression("one", new ConstantExpression(1))),
+            ImmutableList.of(initA, initB), ImmutableList.of(updateA, updateB));
+
+    apply.open(TestEnvVars.get());
+    int count = 0;
+    while (!apply.eos()) {
+      TupleBatch tb = apply.nextReady();
+      if (tb == null) {
+        continue;
+      }
+      for (int i = 0; i < tb.numTuples(); ++i) {
+        assertEquals(count, tb.getInt(0, i));
+        assertEquals(count - 1, tb.getInt(1, i));
+        assertEquals(1, tb.getInt(2, i));
+        count++;
+      }
+    }
+    apply.close();
+    assertEquals(NUM_TUPLES, count);
+  }
 }
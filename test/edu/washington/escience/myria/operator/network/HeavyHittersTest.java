@@ -0,0 +1,61 @@
+package edu.washington.escience.myria.operator.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+
+public class HeavyHittersTest {
+
+  private static final Schema SCHEMA = new Schema(ImmutableList.of(Type.INT_TYPE, Type.INT_TYPE), ImmutableList.of(
+      "key", "value"));
+
+  /*
+   * Generates a batch in which key 0 appears in half of the tuples, and every other key once.
+   */
+  private static List<TupleBatch> skewedSample(final int numTuples) {
+    TupleBatchBuffer tbb = new TupleBatchBuffer(SCHEMA);
+    for (int i = 0; i < numTuples; ++i) {
+      tbb.putInt(0, i % 2 == 0 ? 0 : i);
+      tbb.putInt(1, i);
+    }
+    return tbb.getAll();
+  }
+
+  @Test
+  public void testDetect() {
+    List<TupleBatch> sample = skewedSample(100);
+    int[] keyColumns = new int[] { 0 };
+    int heavyHash = HeavyHitters.hashKeys(sample.get(0), keyColumns)[0];
+
+    /* Key 0 has 50 tuples; a fair share of 4 consumers is 25. */
+    assertEquals(ImmutableSet.of(heavyHash), HeavyHitters.detect(sample, keyColumns, 4, 1.0));
+    /* Twice a fair share of 2 consumers is 100. */
+    assertEquals(ImmutableSet.of(), HeavyHitters.detect(sample, keyColumns, 2, 2.0));
+    /* A key that occurs once is never a heavy hitter. */
+    assertEquals(ImmutableSet.of(heavyHash), HeavyHitters.detect(sample, keyColumns, 1000, 1.0));
+  }
+
+  @Test
+  public void testGetIfAnnounced() {
+    HeavyHitters heavyHitters = new HeavyHitters();
+    int[] workers = new int[] { 1, 2 };
+    assertNull(heavyHitters.getIfAnnounced(workers));
+    heavyHitters.announce(1, ImmutableSet.of(7));
+    assertNull(heavyHitters.getIfAnnounced(workers));
+    heavyHitters.announce(2, ImmutableSet.<Integer> of());
+    assertEquals(ImmutableSet.of(7), heavyHitters.getIfAnnounced(workers));
+    heavyHitters.announce(1, ImmutableSet.of(9));
+    assertEquals(ImmutableSet.of(7, 9), heavyHitters.getIfAnnounced(workers));
+  }
+}
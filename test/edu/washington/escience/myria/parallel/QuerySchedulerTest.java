@@ -0,0 +1,154 @@
+package edu.washington.escience.myria.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import com.google.common.base.Ticker;
+
+import edu.washington.escience.myria.proto.ControlProto;
+
+public class QuerySchedulerTest {
+
+  /** A clock that moves only when told to. */
+  private static final class FakeTicker extends Ticker {
+    private long nanos = 0;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+
+    private void advance(final long delta) {
+      nanos += delta;
+    }
+  }
+
+  private static ControlProto.WorkerLoad heap(final long used, final long max) {
+    return ControlProto.WorkerLoad.newBuilder().setHeapUsedBytes(used).setHeapMaxBytes(max).build();
+  }
+
+  private static ControlProto.QuerySlotUsage usage(final long queryId, final long subqueryId, final long nanos) {
+    return ControlProto.QuerySlotUsage.newBuilder().setQueryId(queryId).setSubqueryId(subqueryId).setSlotNanos(nanos)
+        .setSlotsInUse(1).setWaitingFragments(0).build();
+  }
+
+  private static ControlProto.WorkerLoad slotNanos(final ControlProto.QuerySlotUsage... usages) {
+    ControlProto.WorkerLoad.Builder load =
+        ControlProto.WorkerLoad.newBuilder().setHeapUsedBytes(0).setHeapMaxBytes(100);
+    for (ControlProto.QuerySlotUsage usage : usages) {
+      load.addQuerySlotUsage(usage);
+    }
+    return load.build();
+  }
+
+  @Test
+  public void testSerialByDefault() {
+    QueryScheduler scheduler = new QueryScheduler(1, 0.8, new FakeTicker());
+    scheduler.enqueue(1, "a", 1);
+    scheduler.enqueue(2, "a", 1);
+    assertEquals(Long.valueOf(1), scheduler.pollAdmissible());
+    assertNull(scheduler.pollAdmissible());
+    scheduler.finished(1);
+    assertEquals(Long.valueOf(2), scheduler.pollAdmissible());
+    assertNull(scheduler.pollAdmissible());
+    assertEquals(0, scheduler.getNumQueued());
+  }
+
+  @Test
+  public void testFairShareBetweenUsers() {
+    FakeTicker ticker = new FakeTicker();
+    QueryScheduler scheduler = new QueryScheduler(1, 0.8, ticker);
+    /* User a submits three queries before user b submits one. */
+    scheduler.enqueue(1, "a", 1);
+    scheduler.enqueue(2, "a", 1);
+    scheduler.enqueue(3, "a", 1);
+    scheduler.enqueue(4, "b", 1);
+
+    assertEquals(Long.valueOf(1), scheduler.pollAdmissible());
+    ticker.advance(100);
+    scheduler.finished(1);
+    /* User a has used the cluster, so user b goes next. */
+    assertEquals(Long.valueOf(4), scheduler.pollAdmissible());
+    ticker.advance(10);
+    scheduler.finished(4);
+    /* User b has used less than user a, but has nothing queued. */
+    assertEquals(Long.valueOf(2), scheduler.pollAdmissible());
+    scheduler.finished(2);
+    assertEquals(Long.valueOf(3), scheduler.pollAdmissible());
+  }
+
+  @Test
+  public void testPriorityWeightsUsage() {
+    FakeTicker ticker = new FakeTicker();
+    QueryScheduler scheduler = new QueryScheduler(2, 0.8, ticker);
+    scheduler.enqueue(1, "low", 1);
+    scheduler.enqueue(2, "high", 4);
+    assertEquals(Long.valueOf(1), scheduler.pollAdmissible());
+    assertEquals(Long.valueOf(2), scheduler.pollAdmissible());
+    scheduler.enqueue(3, "low", 1);
+    scheduler.enqueue(4, "high", 4);
+    ticker.advance(100);
+    /* Both ran for 100ns, but the high priority query is charged a quarter of that. */
+    scheduler.finished(1);
+    assertEquals(Long.valueOf(4), scheduler.pollAdmissible());
+  }
+
+  @Test
+  public void testMemoryAdmission() {
+    QueryScheduler scheduler = new QueryScheduler(2, 0.5, new FakeTicker());
+    scheduler.updateWorkerLoad(1, heap(90, 100));
+    scheduler.enqueue(1, "a", 1);
+    scheduler.enqueue(2, "a", 1);
+    /* Nothing is running, so the first query starts even though the heap is full. */
+    assertEquals(Long.valueOf(1), scheduler.pollAdmissible());
+    assertNull(scheduler.pollAdmissible());
+    scheduler.updateWorkerLoad(1, heap(40, 100));
+    assertEquals(Long.valueOf(2), scheduler.pollAdmissible());
+  }
+
+  @Test
+  public void testQueueWaitAndSlotTime() {
+    FakeTicker ticker = new FakeTicker();
+    QueryScheduler scheduler = new QueryScheduler(1, 0.8, ticker);
+    scheduler.enqueue(1, "a", 1);
+    scheduler.enqueue(2, "a", 1);
+    assertEquals(Long.valueOf(1), scheduler.pollAdmissible());
+    ticker.advance(50);
+    assertEquals(Long.valueOf(50), scheduler.getQueueWaitNanos(2));
+    scheduler.updateWorkerLoad(1, slotNanos(usage(1, 0, 7)));
+    scheduler.updateWorkerLoad(2, slotNanos(usage(1, 0, 5)));
+    assertEquals(Long.valueOf(12), scheduler.getSlotNanos(1));
+    assertNull(scheduler.getSlotNanos(2));
+
+    scheduler.finished(1);
+    assertEquals(Long.valueOf(2), scheduler.pollAdmissible());
+    ticker.advance(30);
+    assertEquals(Long.valueOf(50), scheduler.getQueueWaitNanos(2));
+    assertNull(scheduler.getQueueWaitNanos(1));
+    assertEquals(1, scheduler.getStatus().users.size());
+  }
+
+  @Test
+  public void testSlotTimeOfFinishedSubqueries() {
+    QueryScheduler scheduler = new QueryScheduler(1, 0.8, new FakeTicker());
+    scheduler.enqueue(1, "a", 1);
+    assertEquals(Long.valueOf(1), scheduler.pollAdmissible());
+    scheduler.updateWorkerLoad(1, slotNanos(usage(1, 0, 7)));
+    /*
+     * Between two heartbeats, subquery 0 used 2ns more and finished, and subqueries 1 and 2 ran. The worker reports the
+     * finished ones once more.
+     */
+    scheduler.updateWorkerLoad(1, slotNanos(usage(1, 0, 9), usage(1, 1, 4), usage(1, 2, 3)));
+    assertEquals(Long.valueOf(16), scheduler.getSlotNanos(1));
+    /* Only subquery 2 still runs. */
+    scheduler.updateWorkerLoad(1, slotNanos(usage(1, 2, 5)));
+    assertEquals(Long.valueOf(18), scheduler.getSlotNanos(1));
+    scheduler.updateWorkerLoad(1, heap(0, 100));
+    assertEquals(Long.valueOf(18), scheduler.getSlotNanos(1));
+
+    scheduler.finished(1);
+    assertNull(scheduler.getSlotNanos(1));
+  }
+}
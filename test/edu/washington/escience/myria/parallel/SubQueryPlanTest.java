@@ -0,0 +1,56 @@
+package edu.washington.escience.myria.parallel;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import edu.washington.escience.myria.operator.RightHashJoin;
+import edu.washington.escience.myria.operator.SinkRoot;
+import edu.washington.escience.myria.operator.TupleSource;
+import edu.washington.escience.myria.operator.network.GenericShuffleProducer;
+import edu.washington.escience.myria.operator.network.GenericShuffleProducer.SkewRole;
+import edu.washington.escience.myria.operator.network.partition.SingleFieldHashPartitionFunction;
+import edu.washington.escience.myria.util.JoinTestUtils;
+
+public class SubQueryPlanTest {
+
+  private static RightHashJoin join() {
+    return new RightHashJoin(new TupleSource(JoinTestUtils.leftInput), new TupleSource(JoinTestUtils.rightInput),
+        new int[] { 0, 1, 2 }, new int[] { 1, 2, 0 });
+  }
+
+  private static GenericShuffleProducer shuffle() {
+    TupleSource source = new TupleSource(JoinTestUtils.leftInput);
+    return new GenericShuffleProducer(source, ExchangePairID.newID(), new int[] { 1, 2 },
+        new SingleFieldHashPartitionFunction(2, 0));
+  }
+
+  @Test
+  public void testHoldsQueryStateOnlyWithCachedJoin() {
+    assertFalse(new SubQueryPlan(new SinkRoot(join())).holdsQueryState());
+
+    RightHashJoin cached = join();
+    SubQueryPlan plan = new SubQueryPlan(new SinkRoot(cached));
+    /* The join may be configured after it has been added to the plan. */
+    cached.setCacheRightHashTable(true);
+    assertTrue(plan.holdsQueryState());
+  }
+
+  @Test
+  public void testHoldsQueryStateWithSkewAwareShuffle() {
+    assertFalse(new SubQueryPlan(shuffle()).holdsQueryState());
+
+    GenericShuffleProducer skewAware = shuffle();
+    skewAware.setSkewHandling(SkewRole.SPLIT, 0, new int[] { 3 }, GenericShuffleProducer.DEFAULT_SKEW_SAMPLE_SIZE,
+        GenericShuffleProducer.DEFAULT_SKEW_THRESHOLD);
+    assertTrue(new SubQueryPlan(skewAware).holdsQueryState());
+  }
+
+  @Test
+  public void testHoldsQueryStateWithSemiJoinShuffle() {
+    GenericShuffleProducer filtered = shuffle();
+    filtered.setSemiJoinFilter(0, new int[] { 0 });
+    assertTrue(new SubQueryPlan(filtered).holdsQueryState());
+  }
+}
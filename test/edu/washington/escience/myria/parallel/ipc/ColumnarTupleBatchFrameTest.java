@@ -0,0 +1,133 @@
+package edu.washington.escience.myria.parallel.ipc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.BitSet;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.handler.codec.embedder.DecoderEmbedder;
+import org.jboss.netty.handler.codec.embedder.EncoderEmbedder;
+import org.jboss.netty.handler.codec.protobuf.ProtobufVarint32FrameDecoder;
+import org.jboss.netty.handler.codec.protobuf.ProtobufVarint32LengthFieldPrepender;
+import org.junit.Test;
+
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.DoubleBufferColumn;
+import edu.washington.escience.myria.column.IntBufferColumn;
+import edu.washington.escience.myria.column.LongColumn;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+
+public class ColumnarTupleBatchFrameTest {
+
+  private static final Schema SCHEMA = Schema.ofFields("i", Type.INT_TYPE, "l", Type.LONG_TYPE, "f", Type.FLOAT_TYPE,
+      "d", Type.DOUBLE_TYPE);
+
+  private static TupleBatch makeBatch(final int numTuples) {
+    TupleBatchBuffer tbb = new TupleBatchBuffer(SCHEMA);
+    for (int i = 0; i < numTuples; ++i) {
+      tbb.putInt(0, i - 3);
+      tbb.putLong(1, Long.MAX_VALUE - i);
+      tbb.putFloat(2, i / 7.0f);
+      tbb.putDouble(3, -i / 3.0);
+    }
+    return tbb.popAny();
+  }
+
+  /** Send a frame through the length prepender and frame decoder of the IPC pipeline. */
+  private static ChannelBuffer throughPipeline(final ChannelBuffer frame) {
+    EncoderEmbedder<ChannelBuffer> encoder =
+        new EncoderEmbedder<ChannelBuffer>(new ProtobufVarint32LengthFieldPrepender());
+    encoder.offer(frame);
+    ChannelBuffer wire = ChannelBuffers.dynamicBuffer();
+    ChannelBuffer out;
+    while ((out = encoder.poll()) != null) {
+      wire.writeBytes(out);
+    }
+    DecoderEmbedder<ChannelBuffer> decoder = new DecoderEmbedder<ChannelBuffer>(new ProtobufVarint32FrameDecoder());
+    decoder.offer(wire);
+    return decoder.poll();
+  }
+
+  private static void assertBatchEquals(final TupleBatch expected, final TupleBatch actual) {
+    assertEquals(expected.numTuples(), actual.numTuples());
+    for (int row = 0; row < expected.numTuples(); ++row) {
+      assertEquals(expected.getInt(0, row), actual.getInt(0, row));
+      assertEquals(expected.getLong(1, row), actual.getLong(1, row));
+      assertEquals(expected.getFloat(2, row), actual.getFloat(2, row), 0);
+      assertEquals(expected.getDouble(3, row), actual.getDouble(3, row), 0);
+    }
+  }
+
+  @Test
+  public void testRoundTrip() {
+    TupleBatch tb = makeBatch(TupleBatch.BATCH_SIZE);
+    assertTrue(ColumnarTupleBatchFrame.canEncode(tb));
+    ChannelBuffer received = throughPipeline(ColumnarTupleBatchFrame.encode(tb));
+    assertTrue(ColumnarTupleBatchFrame.isColumnarFrame(received));
+    TupleBatch decoded = ColumnarTupleBatchFrame.decode(received, SCHEMA);
+    assertTrue(decoded.getDataColumns().get(0) instanceof IntBufferColumn);
+    assertTrue(decoded.getDataColumns().get(3) instanceof DoubleBufferColumn);
+    assertBatchEquals(tb, decoded);
+  }
+
+  @Test
+  public void testRoundTripSmallAndFiltered() {
+    TupleBatch tb = makeBatch(5);
+    assertBatchEquals(tb, ColumnarTupleBatchFrame.decode(throughPipeline(ColumnarTupleBatchFrame.encode(tb)), SCHEMA));
+
+    BitSet keep = new BitSet();
+    keep.set(1);
+    keep.set(4);
+    TupleBatch filtered = tb.filter(keep);
+    assertBatchEquals(filtered, ColumnarTupleBatchFrame.decode(throughPipeline(ColumnarTupleBatchFrame
+        .encode(filtered)), SCHEMA));
+  }
+
+  @Test
+  public void testProtobufFallback() {
+    assertFalse(ColumnarTupleBatchFrame.canEncode(TupleBatch.eoiTupleBatch(SCHEMA)));
+    TupleBatchBuffer tbb = new TupleBatchBuffer(Schema.ofFields("s", Type.STRING_TYPE));
+    tbb.putString(0, "a");
+    assertFalse(ColumnarTupleBatchFrame.canEncode(tbb.popAny()));
+    assertFalse(ColumnarTupleBatchFrame.isColumnarFrame(IPCMessage.Meta.EOS.serialize()));
+  }
+
+  @Test
+  public void testConnectNegotiation() {
+    ChannelBuffer current = new IPCMessage.Meta.CONNECT(3).serialize();
+    IPCMessage.Meta.CONNECT connect = (IPCMessage.Meta.CONNECT) IPCMessage.Meta.deSerialize(current);
+    assertEquals(3, connect.getRemoteID());
+    assertTrue(connect.acceptsColumnarData());
+
+    /* a CONNECT from a remote that does not know about columnar frames */
+    ChannelBuffer old = ChannelBuffers.buffer(5);
+    old.writeByte(IPCMessage.Header.CONNECT.ordinal());
+    old.writeInt(3);
+    connect = (IPCMessage.Meta.CONNECT) IPCMessage.Meta.deSerialize(old);
+    assertEquals(3, connect.getRemoteID());
+    assertFalse(connect.acceptsColumnarData());
+  }
+
+  @Test
+  public void testJavaSerialization() throws Exception {
+    TupleBatch tb = makeBatch(10);
+    TupleBatch decoded = ColumnarTupleBatchFrame.decode(throughPipeline(ColumnarTupleBatchFrame.encode(tb)), SCHEMA);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream oos = new ObjectOutputStream(bytes);
+    oos.writeObject(decoded);
+    oos.close();
+    TupleBatch copy =
+        (TupleBatch) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+    assertTrue(copy.getDataColumns().get(1) instanceof LongColumn);
+    assertBatchEquals(tb, copy);
+  }
+}
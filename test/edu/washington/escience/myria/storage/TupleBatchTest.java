@@ -0,0 +1,102 @@
+package edu.washington.escience.myria.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.column.DictionaryStringColumn;
+import edu.washington.escience.myria.column.StringDictionary;
+import edu.washington.escience.myria.column.builder.DictionaryStringColumnBuilder;
+
+public class TupleBatchTest {
+
+  private static TupleBatch allTypes(final int numTuples) {
+    Schema schema =
+        Schema.ofFields(Type.BOOLEAN_TYPE, "b", Type.DATETIME_TYPE, "d", Type.DOUBLE_TYPE, "x", Type.FLOAT_TYPE, "f",
+            Type.INT_TYPE, "i", Type.LONG_TYPE, "l", Type.STRING_TYPE, "s");
+    TupleBatchBuffer tbb = new TupleBatchBuffer(schema);
+    for (int i = 0; i < numTuples; ++i) {
+      tbb.putBoolean(0, i % 3 == 0);
+      tbb.putDateTime(1, new DateTime(i * 1000L));
+      tbb.putDouble(2, i / 2.0);
+      tbb.putFloat(3, i / 4.0f);
+      tbb.putInt(4, i);
+      tbb.putLong(5, i * 10L);
+      tbb.putString(6, "row" + i);
+    }
+    return tbb.popAny();
+  }
+
+  @Test
+  public void testPartitionKeepsRowsInOrder() {
+    int numTuples = 100;
+    int numPartitions = 7;
+    TupleBatch tb = allTypes(numTuples);
+    int[] partitions = new int[numTuples];
+    for (int i = 0; i < numTuples; ++i) {
+      /* Partition 6 stays empty. */
+      partitions[i] = (i * 7 + i / 10) % (numPartitions - 1);
+    }
+
+    TupleBatch[] result = tb.partition(partitions, numPartitions);
+    assertEquals(numPartitions, result.length);
+    assertNull(result[numPartitions - 1]);
+    int[] next = new int[numPartitions];
+    for (int i = 0; i < numTuples; ++i) {
+      TupleBatch part = result[partitions[i]];
+      int row = next[partitions[i]]++;
+      assertEquals(tb.getSchema(), part.getSchema());
+      assertEquals(i % 3 == 0, part.getBoolean(0, row));
+      assertEquals(new DateTime(i * 1000L), part.getDateTime(1, row));
+      assertEquals(i / 2.0, part.getDouble(2, row), 0);
+      assertEquals(i / 4.0f, part.getFloat(3, row), 0);
+      assertEquals(i, part.getInt(4, row));
+      assertEquals(i * 10L, part.getLong(5, row));
+      assertEquals("row" + i, part.getString(6, row));
+    }
+    for (int p = 0; p < numPartitions - 1; ++p) {
+      assertEquals(next[p], result[p].numTuples());
+    }
+  }
+
+  @Test
+  public void testPartitionKeepsDictionary() {
+    StringDictionary dictionary = new StringDictionary(10);
+    DictionaryStringColumnBuilder builder = new DictionaryStringColumnBuilder(dictionary);
+    for (int i = 0; i < 20; ++i) {
+      builder.appendString("s" + i % 5);
+    }
+    TupleBatch tb =
+        new TupleBatch(Schema.ofFields(Type.STRING_TYPE, "s"), ImmutableList.<Column<?>> of(builder.build()));
+    int[] partitions = new int[20];
+    for (int i = 0; i < 20; ++i) {
+      partitions[i] = i % 3;
+    }
+
+    TupleBatch[] result = tb.partition(partitions, 3);
+    for (int i = 0; i < 20; ++i) {
+      Column<?> part = result[i % 3].getDataColumns().get(0);
+      assertTrue(part instanceof DictionaryStringColumn);
+      assertSame(dictionary, ((DictionaryStringColumn) part).getDictionary());
+      assertEquals("s" + i % 5, part.getString(i / 3));
+    }
+  }
+
+  @Test
+  public void testPartitionIntoOne() {
+    TupleBatch tb = allTypes(10);
+    TupleBatch[] result = tb.partition(new int[] { 2, 2, 2, 2, 2, 2, 2, 2, 2, 2 }, 3);
+    assertNull(result[0]);
+    assertNull(result[1]);
+    assertSame(tb, result[2]);
+  }
+}
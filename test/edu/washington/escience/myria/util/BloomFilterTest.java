@@ -0,0 +1,60 @@
+package edu.washington.escience.myria.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BloomFilterTest {
+
+  @Test
+  public void testNoFalseNegatives() {
+    Random rand = new Random(1);
+    int[] keys = new int[10000];
+    BloomFilter filter = BloomFilter.create(keys.length, 8);
+    for (int i = 0; i < keys.length; ++i) {
+      keys[i] = rand.nextInt();
+      filter.add(keys[i]);
+    }
+    for (int key : keys) {
+      assertTrue(filter.mightContain(key));
+    }
+  }
+
+  @Test
+  public void testFalsePositiveRate() {
+    int numKeys = 10000;
+    BloomFilter filter = BloomFilter.create(numKeys, 8);
+    /* Keys that share their low bits, as the keys hash partitioned to one worker do. */
+    for (int i = 0; i < numKeys; ++i) {
+      filter.add(i * 16);
+    }
+    int falsePositives = 0;
+    int numProbes = 100000;
+    for (int i = 0; i < numProbes; ++i) {
+      if (filter.mightContain(i * 16 + 1)) {
+        ++falsePositives;
+      }
+    }
+    double expected = filter.getExpectedFalsePositiveRate(numKeys);
+    assertTrue(expected < 0.05);
+    assertTrue((double) falsePositives / numProbes < 2 * expected);
+  }
+
+  @Test
+  public void testSizing() {
+    BloomFilter empty = BloomFilter.create(0, 8);
+    assertEquals(Long.SIZE / Byte.SIZE, empty.getSizeInBytes());
+    assertFalse(empty.mightContain(42));
+
+    /* 1000 keys at 8 bits per key round up to 8192 bits. */
+    BloomFilter filter = BloomFilter.create(1000, 8);
+    assertEquals(8192 / Byte.SIZE, filter.getSizeInBytes());
+    BloomFilter copy = new BloomFilter(filter.getWords().clone(), filter.getNumHashes());
+    filter.add(7);
+    assertFalse(copy.mightContain(7));
+  }
+}
@@ -0,0 +1,187 @@
+package edu.washington.escience.myria.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+
+/**
+ * Check that the allocation-free hashing path produces exactly the same hash codes as Guava's murmur3_128, so that
+ * producers and consumers on different versions agree on partitions.
+ */
+public class HashUtilsTest {
+
+  private static final Schema SCHEMA = Schema.ofFields("i", Type.INT_TYPE, "l", Type.LONG_TYPE, "s", Type.STRING_TYPE,
+      "b", Type.BOOLEAN_TYPE, "d", Type.DOUBLE_TYPE, "f", Type.FLOAT_TYPE, "t", Type.DATETIME_TYPE);
+
+  private TupleBatch randomBatch(final Random rand) {
+    TupleBatchBuffer tbb = new TupleBatchBuffer(SCHEMA);
+    for (int row = 0; row < TupleBatch.BATCH_SIZE; ++row) {
+      tbb.putInt(0, rand.nextInt());
+      tbb.putLong(1, rand.nextLong());
+      StringBuilder sb = new StringBuilder();
+      int len = rand.nextInt(40);
+      for (int c = 0; c < len; ++c) {
+        sb.append((char) rand.nextInt(Character.MAX_VALUE));
+      }
+      tbb.putString(2, sb.toString());
+      tbb.putBoolean(3, rand.nextBoolean());
+      tbb.putDouble(4, rand.nextDouble());
+      tbb.putFloat(5, rand.nextFloat());
+      tbb.putDateTime(6, new DateTime(rand.nextInt() & 0xffffffffL));
+    }
+    return tbb.popAny();
+  }
+
+  private int guavaHash(final TupleBatch tb, final int[] columns, final int row, final int seed) {
+    Hasher hasher = Hashing.murmur3_128(seed).newHasher();
+    for (int column : columns) {
+      switch (tb.getSchema().getColumnType(column)) {
+        case BOOLEAN_TYPE:
+          hasher.putBoolean(tb.getBoolean(column, row));
+          break;
+        case DATETIME_TYPE:
+          hasher.putObject(tb.getDateTime(column, row), TypeFunnel.INSTANCE);
+          break;
+        case DOUBLE_TYPE:
+          hasher.putDouble(tb.getDouble(column, row));
+          break;
+        case FLOAT_TYPE:
+          hasher.putFloat(tb.getFloat(column, row));
+          break;
+        case INT_TYPE:
+          hasher.putInt(tb.getInt(column, row));
+          break;
+        case LONG_TYPE:
+          hasher.putLong(tb.getLong(column, row));
+          break;
+        case STRING_TYPE:
+          hasher.putObject(tb.getString(column, row), TypeFunnel.INSTANCE);
+          break;
+      }
+    }
+    return hasher.hash().asInt();
+  }
+
+  @Test
+  public void testSingleColumnsMatchGuava() {
+    TupleBatch tb = randomBatch(new Random(1));
+    for (int column = 0; column < SCHEMA.numColumns(); ++column) {
+      int[] columns = new int[] { column };
+      int[] batch = HashUtils.hashSubRows(tb, columns);
+      for (int row = 0; row < tb.numTuples(); ++row) {
+        int expected = guavaHash(tb, columns, row, 243);
+        assertEquals(expected, HashUtils.hashValue(tb, column, row));
+        assertEquals(expected, HashUtils.hashSubRow(tb, columns, row));
+        assertEquals(expected, batch[row]);
+      }
+    }
+  }
+
+  @Test
+  public void testSeedsMatchGuava() {
+    TupleBatch tb = randomBatch(new Random(2));
+    int[] seeds = { 243, 402653189, 24593, 786433, 3145739, 12289, 49157, 6151, 98317, 1572869 };
+    int[] result = new int[tb.numTuples()];
+    for (int seedIndex = 0; seedIndex < HashUtils.NUM_OF_HASHFUNCTIONS; ++seedIndex) {
+      for (int column = 0; column < SCHEMA.numColumns(); ++column) {
+        HashUtils.hashSubRows(tb, new int[] { column }, seedIndex, result);
+        for (int row = 0; row < tb.numTuples(); ++row) {
+          int expected = guavaHash(tb, new int[] { column }, row, seeds[seedIndex]);
+          assertEquals(expected, HashUtils.hashValue(tb, column, row, seedIndex));
+          assertEquals(expected, result[row]);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testMultipleColumnsMatchGuava() {
+    Random rand = new Random(3);
+    TupleBatch tb = randomBatch(rand);
+    for (int trial = 0; trial < 50; ++trial) {
+      int[] columns = new int[1 + rand.nextInt(6)];
+      for (int i = 0; i < columns.length; ++i) {
+        columns[i] = rand.nextInt(SCHEMA.numColumns());
+      }
+      int[] batch = HashUtils.hashSubRows(tb, columns);
+      for (int row = 0; row < tb.numTuples(); ++row) {
+        int expected = guavaHash(tb, columns, row, 243);
+        assertEquals(expected, HashUtils.hashSubRow(tb, columns, row));
+        assertEquals(expected, batch[row]);
+      }
+    }
+  }
+
+  @Test
+  public void testWholeRowsMatchGuava() {
+    TupleBatch tb = randomBatch(new Random(4));
+    int[] all = new int[] { 0, 1, 2, 3, 4, 5, 6 };
+    int[] expected = new int[tb.numTuples()];
+    for (int row = 0; row < tb.numTuples(); ++row) {
+      expected[row] = guavaHash(tb, all, row, 243);
+      assertEquals(expected[row], HashUtils.hashRow(tb, row));
+    }
+    assertArrayEquals(expected, HashUtils.hashRows(tb));
+  }
+
+  @Test
+  public void testHasherMatchesGuavaAcrossBlockBoundaries() {
+    Random rand = new Random(5);
+    Murmur3Hasher hasher = new Murmur3Hasher(0);
+    for (int trial = 0; trial < 1000; ++trial) {
+      int seed = rand.nextInt();
+      Hasher expected = Hashing.murmur3_128(seed).newHasher();
+      hasher.reset(seed);
+      int numValues = rand.nextInt(20);
+      for (int i = 0; i < numValues; ++i) {
+        switch (rand.nextInt(4)) {
+          case 0:
+            boolean b = rand.nextBoolean();
+            expected.putBoolean(b);
+            hasher.putBoolean(b);
+            break;
+          case 1:
+            int v = rand.nextInt();
+            expected.putInt(v);
+            hasher.putInt(v);
+            break;
+          case 2:
+            long l = rand.nextLong();
+            expected.putLong(l);
+            hasher.putLong(l);
+            break;
+          default:
+            String s = Integer.toString(rand.nextInt(), 36);
+            expected.putUnencodedChars(s);
+            hasher.putString(s);
+        }
+      }
+      assertEquals(expected.hash().asLong(), hasher.hash64());
+    }
+  }
+
+  @Test
+  public void testClosedFormMatchesHasher() {
+    Random rand = new Random(6);
+    Murmur3Hasher hasher = new Murmur3Hasher(0);
+    for (int trial = 0; trial < 1000; ++trial) {
+      int seed = rand.nextInt();
+      int v = rand.nextInt();
+      long l = rand.nextLong();
+      assertEquals(hasher.reset(seed).putInt(v).hash64(), Murmur3Hasher.hashInt(seed, v));
+      assertEquals(hasher.reset(seed).putLong(l).hash64(), Murmur3Hasher.hashLong(seed, l));
+    }
+  }
+}
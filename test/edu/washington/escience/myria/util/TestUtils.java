@@ -39,6 +39,7 @@ import edu.washington.escience.myria.operator.network.partition.PartitionFunctio
 import edu.washington.escience.myria.parallel.ExchangePairID;
 import edu.washington.escience.myria.parallel.SubQuery;
 import edu.washington.escience.myria.parallel.SubQueryPlan;
+import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.storage.TupleBatchBuffer;
 
 public final class TestUtils {
@@ -415,6 +416,33 @@ public final class TestUtils {
     return result;
   }
 
+  /**
+   * @param tb a tuple batch.
+   * @param column the column of the value.
+   * @param row the row of the value.
+   * @return the value, read with the getter of the type of the column.
+   */
+  public static Object getValue(final TupleBatch tb, final int column, final int row) {
+    switch (tb.getSchema().getColumnType(column)) {
+      case BOOLEAN_TYPE:
+        return tb.getBoolean(column, row);
+      case DATETIME_TYPE:
+        return tb.getDateTime(column, row);
+      case DOUBLE_TYPE:
+        return tb.getDouble(column, row);
+      case FLOAT_TYPE:
+        return tb.getFloat(column, row);
+      case INT_TYPE:
+        return tb.getInt(column, row);
+      case LONG_TYPE:
+        return tb.getLong(column, row);
+      case STRING_TYPE:
+        return tb.getString(column, row);
+      default:
+        throw new IllegalArgumentException("Type " + tb.getSchema().getColumnType(column) + " is not supported.");
+    }
+  }
+
   /**
    * @param numTuples how many tuples in output
    * @param sampleSize how many different values should be created at random (around numTuples/sampleSize duplicates)